@@ -0,0 +1,120 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.devs;
+
+import model.devs.AtomicModel;
+
+import org.jamesii.core.model.State;
+
+/**
+ * Atomic model used by the {@link DEVSProcessorBenchmarks}. The cell has an
+ * internal event every time unit, outputs its current value and mixes all
+ * received values into its value. Each state transition additionally executes
+ * a configurable amount of (pure) computation, which simulates the costs of
+ * the transition functions of more realistic models. The value is kept in the
+ * state object, so the cell can be simulated optimistically, too.
+ */
+public class BenchmarkCell extends AtomicModel<BenchmarkCell.CellState> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -4046339373367306474L;
+
+  /** The input port. */
+  public static final String PORT_IN = "in";
+
+  /** The output port. */
+  public static final String PORT_OUT = "out";
+
+  /** The number of iterations to be computed per state transition. */
+  private final int work;
+
+  /**
+   * The state of a cell.
+   */
+  public static class CellState extends State {
+
+    /** Serialisation ID. */
+    private static final long serialVersionUID = 5154069521331466311L;
+
+    /** The current value of the cell. */
+    private long value;
+  }
+
+  /**
+   * Instantiates a new benchmark cell.
+   *
+   * @param name
+   *          the name of the cell
+   * @param seed
+   *          the initial value
+   * @param work
+   *          the number of iterations to be computed per state transition
+   */
+  public BenchmarkCell(String name, long seed, int work) {
+    super(name);
+    getState().value = seed;
+    this.work = work;
+    addInPort(PORT_IN, Long.class);
+    addOutPort(PORT_OUT, Long.class);
+  }
+
+  @Override
+  protected CellState createState() {
+    return new CellState();
+  }
+
+  @Override
+  protected void deltaExternal(double elapsedTime) {
+    CellState state = getState();
+    for (Object o : getInPort(PORT_IN).readAll()) {
+      state.value ^= ((Long) o).longValue();
+    }
+    state.value = compute(state.value);
+  }
+
+  @Override
+  protected void deltaInternal() {
+    getState().value = compute(getState().value);
+  }
+
+  @Override
+  protected void lambda() {
+    getOutPort(PORT_OUT).write(getState().value);
+  }
+
+  @Override
+  public double timeAdvance() {
+    return 1.;
+  }
+
+  /**
+   * Get the current value.
+   *
+   * @return the value
+   */
+  public long getValue() {
+    return getState().value;
+  }
+
+  /**
+   * Execute {@link #work} iterations of a xorshift generator.
+   *
+   * @param x
+   *          the start value
+   * @return the result
+   */
+  private long compute(long x) {
+    long result = x == 0 ? 1 : x;
+    for (int i = 0; i < work; i++) {
+      result ^= result << 13;
+      result ^= result >>> 7;
+      result ^= result << 17;
+    }
+    return result;
+  }
+
+}
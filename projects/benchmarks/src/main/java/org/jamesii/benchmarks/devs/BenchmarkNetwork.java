@@ -0,0 +1,79 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.devs;
+
+import java.util.Collection;
+
+import model.devs.CoupledModel;
+import model.devscore.IBasicDEVSModel;
+
+/**
+ * Coupled model used by the {@link DEVSProcessorBenchmarks}. Contains a ring
+ * of {@link BenchmarkCell}s, where each cell sends its outputs to the
+ * following fanOut cells. As all cells have the same time advance all of them
+ * are imminent at the same time.
+ */
+public class BenchmarkNetwork extends CoupledModel {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 2314917069553372398L;
+
+  /** The cells. */
+  private final BenchmarkCell[] cells;
+
+  /**
+   * Instantiates a new benchmark network.
+   *
+   * @param size
+   *          the number of cells
+   * @param fanOut
+   *          the number of cells each cell is coupled to
+   * @param work
+   *          the number of iterations to be computed per state transition
+   */
+  public BenchmarkNetwork(int size, int fanOut, int work) {
+    super("network");
+    cells = new BenchmarkCell[size];
+    for (int i = 0; i < size; i++) {
+      cells[i] = new BenchmarkCell("cell" + i, i + 1, work);
+      addModel(cells[i]);
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 1; j <= Math.min(fanOut, size - 1); j++) {
+        addCoupling(cells[i], BenchmarkCell.PORT_OUT, cells[(i + j) % size],
+            BenchmarkCell.PORT_IN);
+      }
+    }
+  }
+
+  @Override
+  public IBasicDEVSModel select(Collection<IBasicDEVSModel> imminents) {
+    // the model with the smallest name, thus the choice is reproducible
+    IBasicDEVSModel result = null;
+    for (IBasicDEVSModel m : imminents) {
+      if (result == null || m.getName().compareTo(result.getName()) < 0) {
+        result = m;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Combine the values of all cells, used to check that the results of two
+   * runs are equal.
+   *
+   * @return the checksum
+   */
+  public long getChecksum() {
+    long result = 0;
+    for (BenchmarkCell cell : cells) {
+      result = 31 * result + cell.getValue();
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.devs;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jamesii.core.processor.IProcessor;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import simulator.devs.flatparallel.FlatParallelProcessor;
+import simulator.devs.flatparallel.FlatParallelProcessorFactory;
+import simulator.devs.flatsequential.FlatSequentialProcessor;
+import simulator.devs.flatsequential.eventforwarding.CompiledExternalEventForwardingHandler;
+import simulator.devs.flatsequential.eventforwarding.DirectExternalEventForwardingHandler;
+import simulator.devs.flatsequential.eventforwarding.ExternalEventForwardingHandler;
+import simulator.devs.timewarp.TimeWarpProcessor;
+import simulator.devs.timewarp.TimeWarpProcessorFactory;
+import simulator.devscore.BasicDEVSProcessor;
+import simulator.devscore.util.SerialisationStateCopyHandler;
+
+/**
+ * Compares the {@link FlatSequentialProcessor}, the
+ * {@link FlatParallelProcessor} and the {@link TimeWarpProcessor} on a
+ * {@link BenchmarkNetwork}, where all cells are imminent at the same time. One
+ * operation is the computation of one time unit, i.e., each cell executes its
+ * lambda function and one or two state transitions (for the time warp
+ * processor: the global virtual time advances by at least one time unit). The
+ * flat processors are combined with the
+ * {@link DirectExternalEventForwardingHandler} and the
+ * {@link CompiledExternalEventForwardingHandler}, the time warp processor does
+ * not use them.<br/>
+ * Run with {@code java -jar target/benchmarks.jar DEVSProcessorBenchmarks}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DEVSProcessorBenchmarks {
+
+  /** Name of the sequential processor parameter value. */
+  public static final String SEQUENTIAL = "flatsequential";
+
+  /** Name of the parallel processor parameter value. */
+  public static final String PARALLEL = "flatparallel";
+
+  /** Name of the time warp processor parameter value. */
+  public static final String TIME_WARP = "timewarp";
+
+  /** Name of the direct event forwarding parameter value. */
+  public static final String DIRECT = "direct";
+
+  /** Name of the compiled event forwarding parameter value. */
+  public static final String COMPILED = "compiled";
+
+  /**
+   * The simulation to be executed.
+   */
+  @State(Scope.Benchmark)
+  public static class SimulationState {
+
+    /** The processor to be used. */
+    @Param({ SEQUENTIAL, PARALLEL, TIME_WARP })
+    private String processor;
+
+    /** The event forwarding to be used. */
+    @Param({ DIRECT, COMPILED })
+    private String forwarding;
+
+    /** The number of cells. */
+    @Param({ "100", "1000", "10000" })
+    private int size;
+
+    /** The number of cells each cell is coupled to. */
+    @Param({ "4" })
+    private int fanOut;
+
+    /** The number of iterations computed per state transition. */
+    @Param({ "0", "1000", "10000" })
+    private int work;
+
+    /** The processor. */
+    private BasicDEVSProcessor simulator;
+
+    /**
+     * Create the model and the processor.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+      BenchmarkNetwork model = new BenchmarkNetwork(size, fanOut, work);
+      ExternalEventForwardingHandler handler =
+          COMPILED.equals(forwarding)
+              ? new CompiledExternalEventForwardingHandler()
+              : new DirectExternalEventForwardingHandler();
+      if (TIME_WARP.equals(processor)) {
+        TimeWarpProcessor p =
+            new TimeWarpProcessor(model, null, Runtime.getRuntime()
+                .availableProcessors(),
+                TimeWarpProcessorFactory.DEFAULT_STEPS_PER_EPOCH,
+                Double.POSITIVE_INFINITY, new SerialisationStateCopyHandler());
+        p.init(0);
+        simulator = p;
+      } else if (PARALLEL.equals(processor)) {
+        FlatParallelProcessor p =
+            new FlatParallelProcessor(model,
+                new IndexedHeapEventQueueFactory(), handler, Runtime
+                    .getRuntime().availableProcessors(),
+                FlatParallelProcessorFactory.DEFAULT_THRESHOLD);
+        p.init(0);
+        simulator = p;
+      } else {
+        FlatSequentialProcessor p =
+            new FlatSequentialProcessor(model,
+                new IndexedHeapEventQueueFactory(), handler);
+        p.init(0);
+        simulator = p;
+      }
+    }
+
+    /**
+     * Release the resources of the processor.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      simulator.cleanUp();
+    }
+
+    /**
+     * Get the processor.
+     *
+     * @return the processor
+     */
+    public IProcessor<Double> getSimulator() {
+      return simulator;
+    }
+  }
+
+  /**
+   * Compute one time unit.
+   *
+   * @param state
+   *          the simulation
+   * @return the new simulation time
+   */
+  @Benchmark
+  public double timeUnit(SimulationState state) {
+    IProcessor<Double> simulator = state.getSimulator();
+    double time = simulator.getTime();
+    while (simulator.getTime() == time) {
+      simulator.executeNextStep();
+    }
+    return simulator.getTime();
+  }
+
+}
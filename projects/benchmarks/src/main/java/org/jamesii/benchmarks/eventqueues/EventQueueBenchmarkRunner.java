@@ -0,0 +1,88 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.eventqueues;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the {@link EventQueueBenchmarks} for all event queue factories found in
+ * the registry and writes the results as JSON (to the file given by the JMH
+ * option {@code -rff}, default {@value #DEFAULT_RESULT_FILE}). Each result
+ * record contains the benchmark (i.e., the access pattern), the parameters
+ * (factory, size, distribution) and the measured throughput, thus the file can
+ * directly be used as training data for the selection of event queues.<br/>
+ * All other JMH command line options can be used as well, e.g.,
+ * {@code -p size=1000,100000} to restrict the queue sizes, or
+ * {@code -p factory=...} to benchmark a given set of factories only.
+ */
+public final class EventQueueBenchmarkRunner {
+
+  /** The default result file. */
+  public static final String DEFAULT_RESULT_FILE = "eventqueues.json";
+
+  /**
+   * Hidden constructor.
+   */
+  private EventQueueBenchmarkRunner() {
+  }
+
+  /**
+   * Get the class names of all event queue factories in the registry.
+   *
+   * @return the class names
+   */
+  public static List<String> getFactoryNames() {
+    List<String> result = new ArrayList<>();
+    List<EventQueueFactory> factories =
+        SimSystem.getRegistry().getFactories(EventQueueFactory.class);
+    if (factories != null) {
+      for (EventQueueFactory eqf : factories) {
+        result.add(eqf.getClass().getName());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * The main method.
+   *
+   * @param args
+   *          the JMH command line options
+   * @throws Exception
+   *           if the options are invalid or the benchmarks fail
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cmdOptions = new CommandLineOptions(args);
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+
+    if (cmdOptions.getIncludes().isEmpty()) {
+      options.include(EventQueueBenchmarks.class.getName());
+    }
+    if (!cmdOptions.getParameter("factory").hasValue()) {
+      List<String> factories = getFactoryNames();
+      options.param("factory", factories.toArray(new String[factories.size()]));
+    }
+    if (!cmdOptions.getResultFormat().hasValue()) {
+      options.resultFormat(ResultFormatType.JSON);
+    }
+    if (!cmdOptions.getResult().hasValue()) {
+      options.result(DEFAULT_RESULT_FILE);
+    }
+
+    new Runner(options.build()).run();
+  }
+
+}
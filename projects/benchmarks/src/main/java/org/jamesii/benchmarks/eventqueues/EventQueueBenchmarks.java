@@ -0,0 +1,237 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.eventqueues;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jamesii.core.util.eventset.Entry;
+import org.jamesii.core.util.eventset.IEventQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Micro benchmarks for event queues. Each benchmark method executes one
+ * "operation" of a classic event queue access pattern:
+ * <ul>
+ * <li>{@link #hold(QueueState)} - the classic hold model: dequeue the minimal
+ * event and enqueue it again with an increased time stamp, the queue size stays
+ * constant</li>
+ * <li>{@link #markovHold(MarkovHoldState)} - the Markov hold model: enqueue and
+ * dequeue operations are selected by a two state Markov chain, thus the queue
+ * grows and shrinks in phases</li>
+ * <li>{@link #upDown(UpDownState, Blackhole)} - enqueue {@code size} events
+ * into an empty queue and dequeue all of them again</li>
+ * <li>{@link #requeue(RequeueState, Blackhole)} - the access pattern of the
+ * flat sequential DEVS processor: dequeue all imminent events, re-enqueue the
+ * ones not selected, and requeue the selected event and a number of
+ * "influenced" events</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EventQueueBenchmarks {
+
+  /**
+   * State for the Markov hold model. The queue holds between half and twice
+   * the initial number of events.
+   */
+  public static class MarkovHoldState extends QueueState {
+
+    /** Probability to switch between the growing and the shrinking phase. */
+    private static final double SWITCH_PROBABILITY = 0.01;
+
+    /** Probability of an enqueue operation in the growing phase. */
+    private static final double ENQUEUE_PROBABILITY = 0.75;
+
+    /** Events which are currently not in the queue. */
+    private Object[] spare;
+
+    /** Number of events in {@link #spare}. */
+    private int spareCount;
+
+    /** True if the queue is currently in the growing phase. */
+    private boolean growing = true;
+
+    @Override
+    protected void fill() {
+      super.fill();
+      spare = new Object[getSize() * 2];
+      for (int i = 0; i < getSize(); i++) {
+        spare[spareCount++] = new Object();
+      }
+    }
+
+    /**
+     * Execute one operation of the model.
+     *
+     * @return the event enqueued or dequeued
+     */
+    Object step() {
+      if (getRandom().nextDouble() < SWITCH_PROBABILITY) {
+        growing = !growing;
+      }
+      double p = getRandom().nextDouble();
+      boolean enqueue = growing ? p < ENQUEUE_PROBABILITY
+          : p >= ENQUEUE_PROBABILITY;
+      IEventQueue<Object, Double> queue = getQueue();
+      int size = queue.size();
+      if (size <= getSize() / 2) {
+        enqueue = true;
+      } else if (size >= getSize() * 2) {
+        enqueue = false;
+      }
+      if (enqueue && spareCount > 0) {
+        Object event = spare[--spareCount];
+        Double min = queue.getMin();
+        queue.enqueue(event, (min == null ? 0. : min) + nextIncrement());
+        return event;
+      }
+      Object event = queue.dequeue().getEvent();
+      spare[spareCount++] = event;
+      return event;
+    }
+  }
+
+  /**
+   * State for the up / down benchmark: the queue is empty initially.
+   */
+  public static class UpDownState extends QueueState {
+
+    /** The time stamps to be used. */
+    private double[] times;
+
+    @Override
+    protected void fill() {
+      times = new double[getSize()];
+      for (int i = 0; i < times.length; i++) {
+        times[i] = nextIncrement() * getSize();
+      }
+    }
+  }
+
+  /**
+   * State for the requeue benchmark.
+   */
+  public static class RequeueState extends QueueState {
+
+    /** The number of events influenced by each imminent event. */
+    @Param({ "4" })
+    private int influencees;
+
+    /** The influenced events, drawn in before. */
+    private int[] influenced;
+
+    /** The current position in {@link #influenced}. */
+    private int next;
+
+    @Override
+    protected void fill() {
+      super.fill();
+      influenced = new int[1 << 16];
+      for (int i = 0; i < influenced.length; i++) {
+        influenced[i] = (int) (getRandom().nextDouble() * getSize());
+      }
+    }
+
+    /**
+     * Get the next influenced event.
+     *
+     * @return the event
+     */
+    Object nextInfluenced() {
+      next = (next + 1) & (influenced.length - 1);
+      return getEvents()[influenced[next]];
+    }
+  }
+
+  /**
+   * The hold model.
+   *
+   * @param state
+   *          the state
+   * @return the event dequeued
+   */
+  @Benchmark
+  public Entry<Object, Double> hold(QueueState state) {
+    IEventQueue<Object, Double> queue = state.getQueue();
+    Entry<Object, Double> e = queue.dequeue();
+    queue.enqueue(e.getEvent(), e.getTime() + state.nextIncrement());
+    return e;
+  }
+
+  /**
+   * The Markov hold model.
+   *
+   * @param state
+   *          the state
+   * @return the event enqueued or dequeued
+   */
+  @Benchmark
+  public Object markovHold(MarkovHoldState state) {
+    return state.step();
+  }
+
+  /**
+   * Fill the queue and empty it again.
+   *
+   * @param state
+   *          the state
+   * @param bh
+   *          the black hole consuming the dequeued events
+   */
+  @Benchmark
+  public void upDown(UpDownState state, Blackhole bh) {
+    IEventQueue<Object, Double> queue = state.getQueue();
+    Object[] events = state.getEvents();
+    double[] times = state.times;
+    for (int i = 0; i < events.length; i++) {
+      queue.enqueue(events[i], times[i]);
+    }
+    for (int i = 0; i < events.length; i++) {
+      bh.consume(queue.dequeue());
+    }
+  }
+
+  /**
+   * The access pattern of the flat sequential DEVS processor.
+   *
+   * @param state
+   *          the state
+   * @param bh
+   *          the black hole consuming the imminent events
+   */
+  @Benchmark
+  public void requeue(RequeueState state, Blackhole bh) {
+    IEventQueue<Object, Double> queue = state.getQueue();
+    double now = queue.getMin();
+    List<Object> imminents = queue.dequeueAll();
+    Object selected = imminents.get(0);
+    for (int i = 1; i < imminents.size(); i++) {
+      queue.enqueue(imminents.get(i), now);
+    }
+    queue.requeue(selected, now + state.nextIncrement());
+    for (int i = 0; i < state.influencees; i++) {
+      Object influenced = state.nextInfluenced();
+      if (influenced != selected) {
+        queue.requeue(influenced, now + state.nextIncrement());
+      }
+    }
+    bh.consume(selected);
+  }
+
+}
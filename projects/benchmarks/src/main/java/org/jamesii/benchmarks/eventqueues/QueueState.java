@@ -0,0 +1,148 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.eventqueues;
+
+import org.jamesii.core.math.random.distributions.IDistribution;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.java.JavaRandom;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.util.eventset.IEventQueue;
+import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding an event queue filled with {@link #size} events. The
+ * queue is created by the {@link EventQueueFactory} given by its class name,
+ * the time stamps of the initial events (and the increments used by the
+ * benchmarks) are drawn from the given {@link TimeStampDistribution}.<br/>
+ * The default parameter values only cover a few queues,
+ * {@link EventQueueBenchmarkRunner} replaces them by all event queue factories
+ * found in the registry.
+ */
+@State(Scope.Thread)
+public class QueueState {
+
+  /** The seed used for all benchmarks (to make the runs comparable). */
+  public static final long SEED = 1234L;
+
+  /** Fully qualified class name of the event queue factory. */
+  @Param({ "org.jamesii.core.util.eventset.HeapEventQueueFactory",
+      "org.jamesii.core.util.eventset.calendar.CalendarQueueFactory",
+      "org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory" })
+  private String factory;
+
+  /** The number of events in the queue. */
+  @Param({ "100", "1000", "10000", "100000", "1000000", "10000000" })
+  private int size;
+
+  /** The distribution of the time increments. */
+  @Param({ "EXPONENTIAL", "UNIFORM", "BIMODAL", "TRIANGULAR" })
+  private TimeStampDistribution distribution;
+
+  /** The queue. */
+  private IEventQueue<Object, Double> queue;
+
+  /** The time increment distribution. */
+  private IDistribution increments;
+
+  /** The random number generator. */
+  private IRandom random;
+
+  /** The events which have been enqueued initially. */
+  private Object[] events;
+
+  /**
+   * Create the queue and the events. Subclasses may override
+   * {@link #fill()} to change the initial content of the queue.
+   *
+   * @throws Exception
+   *           if the factory cannot be instantiated
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    random = new JavaRandom(SEED);
+    increments = distribution.create(random);
+    queue = createQueue();
+    events = new Object[size];
+    for (int i = 0; i < size; i++) {
+      events[i] = new Object();
+    }
+    fill();
+  }
+
+  /**
+   * Create a new, empty queue.
+   *
+   * @return the queue
+   * @throws Exception
+   *           if the factory cannot be instantiated
+   */
+  protected IEventQueue<Object, Double> createQueue() throws Exception {
+    EventQueueFactory eqf =
+        (EventQueueFactory) Class.forName(factory).newInstance();
+    return eqf.createDirect(new ParameterBlock());
+  }
+
+  /**
+   * Enqueue all events, with time stamps drawn from the distribution.
+   */
+  protected void fill() {
+    for (Object event : events) {
+      queue.enqueue(event, nextIncrement());
+    }
+  }
+
+  /**
+   * Draw the next time increment.
+   *
+   * @return the increment
+   */
+  public final double nextIncrement() {
+    return TimeStampDistribution.increment(increments);
+  }
+
+  /**
+   * Gets the queue.
+   *
+   * @return the queue
+   */
+  public final IEventQueue<Object, Double> getQueue() {
+    return queue;
+  }
+
+  /**
+   * Gets the events.
+   *
+   * @return the events
+   */
+  public final Object[] getEvents() {
+    return events;
+  }
+
+  /**
+   * Gets the random number generator.
+   *
+   * @return the random number generator
+   */
+  public final IRandom getRandom() {
+    return random;
+  }
+
+  /**
+   * Gets the number of events.
+   *
+   * @return the size
+   */
+  public final int getSize() {
+    return size;
+  }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.eventqueues;
+
+import org.jamesii.core.math.random.distributions.BimodalDistribution;
+import org.jamesii.core.math.random.distributions.ExponentialDistribution;
+import org.jamesii.core.math.random.distributions.IDistribution;
+import org.jamesii.core.math.random.distributions.TriangularDistribution;
+import org.jamesii.core.math.random.distributions.UniformDistribution;
+import org.jamesii.core.math.random.generators.IRandom;
+
+/**
+ * The time increment distributions classically used for the evaluation of
+ * event queues (see Rönngren, R. &amp; Ayani, R. A comparative study of parallel
+ * and sequential priority queue algorithms, ACM TOMACS 7(2), 1997). The
+ * exponential, uniform and triangular distributions have a mean of one, the
+ * bimodal distribution (with the default parameters of
+ * {@link BimodalDistribution}) has a mean of about 1.43.
+ */
+public enum TimeStampDistribution {
+
+  /** Exponential distribution (mean 1). */
+  EXPONENTIAL {
+    @Override
+    public IDistribution create(IRandom random) {
+      return new ExponentialDistribution(random, 1.);
+    }
+  },
+
+  /** Uniform distribution on [0, 2]. */
+  UNIFORM {
+    @Override
+    public IDistribution create(IRandom random) {
+      return new UniformDistribution(random, 0., 2.);
+    }
+  },
+
+  /**
+   * Bimodal distribution (90% of the values in [0.095, 0.95], 10% in [9.52,
+   * 9.62], mean about 1.43).
+   */
+  BIMODAL {
+    @Override
+    public IDistribution create(IRandom random) {
+      return new BimodalDistribution(random);
+    }
+  },
+
+  /**
+   * Triangular distribution on [0, 1.5] with a density increasing linearly up
+   * to 1.5 (mean 1).
+   */
+  TRIANGULAR {
+    @Override
+    public IDistribution create(IRandom random) {
+      return new TriangularDistribution(random, 1.5);
+    }
+  };
+
+  /**
+   * Create the distribution.
+   *
+   * @param random
+   *          the random number generator to be used
+   * @return the distribution
+   */
+  public abstract IDistribution create(IRandom random);
+
+  /**
+   * Draw a (non-negative) time increment from the given distribution.
+   *
+   * @param distribution
+   *          the distribution
+   * @return the increment
+   */
+  public static double increment(IDistribution distribution) {
+    return Math.max(0., distribution.getRandomNumber());
+  }
+
+}
@@ -0,0 +1,48 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.nsm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark comparing the exact compiled NSM processor to the tau-leaping one
+ * (see {@link NSMProcessorState}): each invocation simulates one replication
+ * up to {@link NSMProcessorState#END_TIME}. Besides the time per replication,
+ * the mean and standard deviation of the outcome are printed at the end of
+ * each trial.
+ * The jar's main class runs the event queue benchmarks, use
+ * {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main NSMProcessor}
+ * to run these.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NSMProcessorBenchmarks {
+
+  /**
+   * Simulate one replication.
+   *
+   * @param state
+   *          the state
+   * @return the number of steps (events and leaps)
+   */
+  @Benchmark
+  public int simulate(NSMProcessorState state) {
+    return state.getProcessor().runUntil(NSMProcessorState.END_TIME);
+  }
+
+}
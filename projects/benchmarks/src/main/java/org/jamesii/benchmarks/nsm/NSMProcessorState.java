@@ -0,0 +1,156 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.nsm;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+
+import model.mlspace.MLSpaceModel;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.reader.MLSpaceModelReader;
+import model.mlspace.reader.MLSpaceModelReaderFactory;
+import model.mlspace.subvols.Subvol;
+
+import org.jamesii.core.math.random.generators.mersennetwister.MersenneTwister;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import simulator.mlspace.CompiledNSMProcessor;
+import simulator.mlspace.TauLeapingNSMProcessor;
+import simulator.mlspace.event.NSMEvent;
+
+/**
+ * Benchmark state holding a fresh NSM processor for a reversible association
+ * A + B &lt;-&gt; C in a cubic compartment with the given initial number of A
+ * and B entities. Each replication uses the next seed, so that the runs of all
+ * processors are comparable.
+ * <br/>
+ * The amount of C at the end of each replication is recorded, and its mean
+ * and standard deviation are printed at the end of the trial, so that the
+ * error of the approximate processor can be compared to the exact one.
+ */
+@State(Scope.Thread)
+public class NSMProcessorState {
+
+  /** The seed of the first replication. */
+  public static final long SEED = 1234L;
+
+  /** The simulation end time. */
+  public static final double END_TIME = 1.;
+
+  /** The processor: exact compiled NSM or tau-leaping. */
+  @Param({ "Compiled", "TauLeaping" })
+  private String processor;
+
+  /** Initial number of A and B entities each. */
+  @Param({ "1000", "10000", "100000" })
+  private int copies;
+
+  /** Error control parameter of the tau-leaping processor. */
+  @Param({ "0.03" })
+  private double epsilon;
+
+  /** The processor of the current replication. */
+  private CompiledNSMProcessor proc;
+
+  /** The model of the current replication. */
+  private MLSpaceModel model;
+
+  /** Seed of the next replication. */
+  private long seed = SEED;
+
+  /** Number of replications finished. */
+  private int numRuns = 0;
+
+  /** Sum of the final amounts of C. */
+  private double sum = 0.;
+
+  /** Sum of the squared final amounts of C. */
+  private double sumOfSquares = 0.;
+
+  /**
+   * Read the model and create the processor for the next replication.
+   *
+   * @throws Exception
+   *           if the model cannot be read
+   */
+  @Setup(Level.Invocation)
+  public void setUp() throws Exception {
+    // association rate scaled such that the dynamics is the same for all
+    // copy numbers
+    String text =
+        "Cell(size:8,position:(0,0,0),shape:cube); A(diffusion:1); "
+            + "B(diffusion:1); C(diffusion:0.5); 1 Cell[" + copies + " A + "
+            + copies + " B]; A + B -> C @ "
+            + BigDecimal.valueOf(40. / copies).toPlainString()
+            + "; C -> A + B @ 0.1";
+    model =
+        (MLSpaceModel) new MLSpaceModelReader().read(new URI(
+            MLSpaceModelReaderFactory.ML_SPACE_STRING, text, null),
+            Collections.<String, Object> emptyMap());
+    MersenneTwister random = new MersenneTwister(seed++);
+    model.initSubvolumes(random, 2., 2.);
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    if ("TauLeaping".equals(processor)) {
+      proc =
+          new TauLeapingNSMProcessor(model,
+              new IndexedHeapEventQueue<NSMEvent>(), random, epsilon);
+    } else {
+      proc =
+          new CompiledNSMProcessor(model,
+              new IndexedHeapEventQueue<NSMEvent>(), random);
+    }
+  }
+
+  /**
+   * Record the final amount of C of the replication.
+   */
+  @TearDown(Level.Invocation)
+  public void record() {
+    int amount = 0;
+    for (Subvol sv : model.getSubvolumes()) {
+      for (Map.Entry<NSMEntity, Integer> e : sv.getState().entrySet()) {
+        if ("C".equals(e.getKey().getSpecies().toString())) {
+          amount += e.getValue();
+        }
+      }
+    }
+    numRuns++;
+    sum += amount;
+    sumOfSquares += (double) amount * amount;
+  }
+
+  /**
+   * Print mean and standard deviation of the final amount of C.
+   */
+  @TearDown(Level.Trial)
+  public void report() {
+    double mean = sum / numRuns;
+    System.out.println();
+    System.out.println(processor + " (" + copies + " copies): C at time "
+        + END_TIME + " = " + mean + " +- "
+        + Math.sqrt(Math.max(0., sumOfSquares / numRuns - mean * mean))
+        + " (" + numRuns + " replications)");
+  }
+
+  /**
+   * Gets the processor of the current replication.
+   *
+   * @return the processor
+   */
+  public final CompiledNSMProcessor getProcessor() {
+    return proc;
+  }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.perfdb;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks comparing the insert and query throughput of the batched
+ * performance database ({@link org.jamesii.perfdb.batched.BatchedPerformanceDatabase})
+ * with one ad-hoc statement per entity (see {@link PerfDBState}), both on an
+ * in-memory HSQLDB:
+ * <ul>
+ * <li>{@link #recordRuns(PerfDBState)} - record
+ * {@value #RUNS_PER_INVOCATION} runs (an application with one performance
+ * each, as done by the performance recorder) and wait until they are written,
+ * the throughput is given per run</li>
+ * <li>{@link #queryPerformances(PerfDBState)} - read all performances of an
+ * application</li>
+ * </ul>
+ * Use {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main PerfDB} to
+ * run these.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PerfDBBenchmarks {
+
+  /** Number of runs recorded per invocation of {@link #recordRuns}. */
+  public static final int RUNS_PER_INVOCATION = 100;
+
+  /**
+   * Record runs.
+   *
+   * @param state
+   *          the state
+   * @throws Exception
+   *           if writing fails
+   */
+  @Benchmark
+  @OperationsPerInvocation(RUNS_PER_INVOCATION)
+  public void recordRuns(PerfDBState state) throws Exception {
+    for (int i = 0; i < RUNS_PER_INVOCATION; i++) {
+      state.recordRun(i);
+    }
+    state.flush();
+  }
+
+  /**
+   * Query the performances of an application.
+   *
+   * @param state
+   *          the state
+   * @return the number of performances
+   * @throws Exception
+   *           if reading fails
+   */
+  @Benchmark
+  public int queryPerformances(PerfDBState state) throws Exception {
+    return state.queryPerformances();
+  }
+
+}
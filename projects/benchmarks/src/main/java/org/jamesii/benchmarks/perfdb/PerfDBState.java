@@ -0,0 +1,237 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.perfdb;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+import org.jamesii.core.data.DBConnectionData;
+import org.jamesii.perfdb.batched.BatchedPerformanceDatabase;
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IHardwareSetup;
+import org.jamesii.perfdb.entities.IMachine;
+import org.jamesii.perfdb.entities.IPerformanceType;
+import org.jamesii.perfdb.entities.IProblemInstance;
+import org.jamesii.perfdb.entities.IRuntimeConfiguration;
+import org.jamesii.perfdb.recording.performance.totaltime.TotalRuntimePerfMeasurerFactory;
+import org.jamesii.perfdb.recording.selectiontrees.SelectionTree;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state holding a performance database in an in-memory HSQLDB, with
+ * a problem instance, runtime configuration, hardware setup and performance
+ * type to record runs for, and {@value #NUM_APPLICATIONS} applications with
+ * {@value #PERFORMANCES_PER_APPLICATION} performances each to query.
+ * <br/>
+ * The implementation {@code batched} uses the
+ * {@link BatchedPerformanceDatabase}. The implementation {@code adhoc} uses the
+ * same schema, but accesses it like the entities of the JDBC implementation
+ * ({@link org.jamesii.core.util.database.SimpleDataBaseEntity}), i.e. with one
+ * ad-hoc statement per insert in auto-commit mode, and one query per
+ * referenced entity when reading. (The JDBC implementation itself cannot be
+ * used, as its schema requires MySQL.)
+ */
+@State(Scope.Thread)
+public class PerfDBState {
+
+  /** Number of applications to query. */
+  public static final int NUM_APPLICATIONS = 1000;
+
+  /** Number of performances of each application to query. */
+  public static final int PERFORMANCES_PER_APPLICATION = 5;
+
+  /** The implementation, batched or adhoc. */
+  @Param({ "batched", "adhoc" })
+  private String implementation;
+
+  /** The connection data. */
+  private DBConnectionData connectionData;
+
+  /** The batched performance database (used to set up both). */
+  private BatchedPerformanceDatabase perfDB;
+
+  /** The connection used by the ad-hoc implementation. */
+  private Connection connection;
+
+  /** The problem instance runs are recorded for. */
+  private IProblemInstance instance;
+
+  /** The runtime configuration runs are recorded for. */
+  private IRuntimeConfiguration config;
+
+  /** The hardware setup runs are recorded for. */
+  private IHardwareSetup setup;
+
+  /** The performance type of the recorded performances. */
+  private IPerformanceType perfType;
+
+  /** The applications to query. */
+  private final List<IApplication> applications = new ArrayList<>();
+
+  /** The last IDs of applications and performances (ad-hoc only). */
+  private long lastApplicationID, lastPerformanceID;
+
+  /** The index of the next application to query. */
+  private int next = -1;
+
+  /**
+   * Create the database and the entities.
+   *
+   * @throws Exception
+   *           if the database cannot be created
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    connectionData =
+        new DBConnectionData("jdbc:hsqldb:mem:perfdb_benchmark_"
+            + System.nanoTime(), "sa", "", "org.hsqldb.jdbcDriver");
+    perfDB = new BatchedPerformanceDatabase(connectionData);
+    perfDB.open();
+    instance =
+        perfDB.newProblemInstance(perfDB.newProblemDefinition(perfDB
+            .newProblemScheme(new URI("http://benchmark/perfdb"), "Scheme",
+                "type", ""), new HashMap<String, Serializable>(),
+            new HashMap<String, Serializable>()), 0L, "rng");
+    config = perfDB.newRuntimeConfiguration(new SelectionTree(null), false);
+    setup =
+        perfDB.newHardwareSetup("setup", "", "none", 0,
+            new HashSet<IMachine>());
+    perfType =
+        perfDB.getPerformanceType(TotalRuntimePerfMeasurerFactory.class);
+    for (int i = 0; i < NUM_APPLICATIONS; i++) {
+      IApplication app = perfDB.newApplication(instance, config, setup, null);
+      for (int j = 0; j < PERFORMANCES_PER_APPLICATION; j++) {
+        perfDB.newPerformance(app, perfType, j);
+      }
+      applications.add(app);
+    }
+    perfDB.flush();
+    if ("adhoc".equals(implementation)) {
+      perfDB.close();
+      perfDB = null;
+      connection = connectionData.createNewConnection();
+      lastApplicationID = queryMaxID("applications");
+      lastPerformanceID = queryMaxID("performances");
+    }
+  }
+
+  /**
+   * Close the database and drop its content.
+   *
+   * @throws Exception
+   *           if closing fails
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    if (perfDB != null) {
+      perfDB.close();
+    } else {
+      connection.close();
+    }
+    try (Connection conn = connectionData.createNewConnection();
+        Statement st = conn.createStatement()) {
+      st.execute("SHUTDOWN");
+    }
+  }
+
+  /**
+   * Record a run: create an application and store its performance.
+   *
+   * @param performance
+   *          the performance
+   * @throws SQLException
+   *           if writing fails
+   */
+  public void recordRun(double performance) throws SQLException {
+    if (perfDB != null) {
+      perfDB.newPerformance(
+          perfDB.newApplication(instance, config, setup, null), perfType,
+          performance);
+      return;
+    }
+    try (Statement st = connection.createStatement()) {
+      lookUp(st, "performance_types", perfType.getID());
+      long appID = ++lastApplicationID;
+      st.executeUpdate("INSERT INTO applications (id, instance_id, config_id,"
+          + " setup_id, execution_date) VALUES (" + appID + ", "
+          + instance.getID() + ", " + config.getID() + ", " + setup.getID()
+          + ", '" + new Timestamp(System.currentTimeMillis()) + "')");
+      st.executeUpdate("INSERT INTO performances VALUES ("
+          + (++lastPerformanceID) + ", " + appID + ", " + perfType.getID()
+          + ", " + performance + ")");
+    }
+  }
+
+  /**
+   * Wait until all recorded runs are written.
+   */
+  public void flush() {
+    if (perfDB != null) {
+      perfDB.flush();
+    }
+  }
+
+  /**
+   * Read all performances of the next application.
+   *
+   * @return the number of performances
+   * @throws SQLException
+   *           if reading fails
+   */
+  public int queryPerformances() throws SQLException {
+    next = (next + 1) % applications.size();
+    IApplication app = applications.get(next);
+    if (perfDB != null) {
+      return perfDB.getAllPerformances(app).size();
+    }
+    int count = 0;
+    try (Statement st = connection.createStatement();
+        Statement lookUp = connection.createStatement();
+        ResultSet rs =
+            st.executeQuery("SELECT * FROM performances WHERE application_id="
+                + app.getID())) {
+      while (rs.next()) {
+        lookUp(lookUp, "performance_types", rs.getLong("type_id"));
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static void lookUp(Statement st, String table, long id)
+      throws SQLException {
+    try (ResultSet rs =
+        st.executeQuery("SELECT * FROM " + table + " WHERE id=" + id)) {
+      if (!rs.next()) {
+        throw new IllegalStateException("No entity " + id + " in " + table);
+      }
+    }
+  }
+
+  private long queryMaxID(String table) throws SQLException {
+    try (Statement st = connection.createStatement();
+        ResultSet rs = st.executeQuery("SELECT MAX(id) FROM " + table)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+}
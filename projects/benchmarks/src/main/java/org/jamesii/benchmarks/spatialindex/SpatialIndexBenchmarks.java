@@ -0,0 +1,88 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.spatialindex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import model.mlspace.entities.spatial.SpatialEntity;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Micro benchmarks comparing spatial indices on the compartments of the
+ * ML-Space example models (see {@link SpatialIndexState}). Each benchmark
+ * method executes one operation:
+ * <ul>
+ * <li>{@link #visitCollisions(SpatialIndexState)} - visit all components
+ * colliding with a component (the query of the continuous space processor)</li>
+ * <li>{@link #collidingComps(SpatialIndexState)} - the same query, collecting
+ * the colliding components in a list</li>
+ * <li>{@link #moveAndVisitCollisions(SpatialIndexState)} - move a component
+ * slightly, update its position in the index and visit the components
+ * colliding with it afterwards</li>
+ * </ul>
+ * The example models are read from the directory given by the parameter
+ * {@code modelDir}, which by default is the one of the ML-Space sandbox
+ * relative to the benchmarks project (use e.g.
+ * {@code -p modelDir=/path/to/examples} when running the jar from elsewhere).
+ * The jar's main class runs the event queue benchmarks, use
+ * {@code java -cp target/benchmarks.jar org.openjdk.jmh.Main SpatialIndex}
+ * to run these.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpatialIndexBenchmarks {
+
+  /**
+   * Collision query.
+   *
+   * @param state
+   *          the state
+   * @return the number of colliding components
+   */
+  @Benchmark
+  public int visitCollisions(SpatialIndexState state) {
+    return state.countCollisions(state.nextComp());
+  }
+
+  /**
+   * Collision query returning a list.
+   *
+   * @param state
+   *          the state
+   * @return the colliding components
+   */
+  @Benchmark
+  public List<SpatialEntity> collidingComps(SpatialIndexState state) {
+    return state.getIndex().collidingComps(state.nextComp());
+  }
+
+  /**
+   * Small move followed by a collision query.
+   *
+   * @param state
+   *          the state
+   * @return the number of colliding components
+   */
+  @Benchmark
+  public int moveAndVisitCollisions(SpatialIndexState state) {
+    SpatialEntity comp = state.nextComp();
+    state.moveComp();
+    return state.countCollisions(comp);
+  }
+
+}
@@ -0,0 +1,204 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.benchmarks.spatialindex;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import model.mlspace.IMLSpaceModel;
+import model.mlspace.entities.spatial.SpatialEntity;
+import model.mlspace.reader.MLSpaceModelReader;
+
+import org.jamesii.core.math.geometry.GeoUtils;
+import org.jamesii.core.math.geometry.shapes.IShape;
+import org.jamesii.core.math.geometry.spatialindex.ICollisionVisitor;
+import org.jamesii.core.math.geometry.spatialindex.ISpatialIndex;
+import org.jamesii.core.math.geometry.spatialindex.SpatialIndexFactory;
+import org.jamesii.core.math.geometry.vectors.IDisplacementVector;
+import org.jamesii.core.math.geometry.vectors.IVectorFactory;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding a spatial index with all compartments of an ML-Space
+ * example model registered. The index is created by the
+ * {@link SpatialIndexFactory} given by its class name and initialised with the
+ * shape of the root compartment, as done by the continuous space processor.
+ * <br/>
+ * The sequence of components to query and the displacements of the small
+ * moves (normally distributed with a standard deviation of
+ * {@value #RELATIVE_MOVE} times the component's extension) are drawn in
+ * before, so that the runs of all indices are comparable.
+ */
+@State(Scope.Thread)
+public class SpatialIndexState {
+
+  /** The seed used for all benchmarks (to make the runs comparable). */
+  public static final long SEED = 1234L;
+
+  /** Standard deviation of a move relative to the component's extension. */
+  public static final double RELATIVE_MOVE = 0.05;
+
+  /** Number of predrawn operations (a power of two). */
+  private static final int NUM_OPERATIONS = 1 << 16;
+
+  /** Fully qualified class name of the spatial index factory. */
+  @Param({
+      "org.jamesii.core.math.geometry.spatialindex.StaticGridSpatialIndexFactory",
+      "org.jamesii.core.math.geometry.spatialindex.LooseOctreeSpatialIndexFactory",
+      "org.jamesii.core.math.geometry.spatialindex.MultiResolutionGridSpatialIndexFactory" })
+  private String indexFactory;
+
+  /** Name of the example model (file name without extension). */
+  @Param({ "ABReaction", "ActinModelBMC", "LipidRafts",
+      "MitoQualityAndFissionCMSB", "Sturrock-Hes1-3D", "SweepingOrganelles" })
+  private String model;
+
+  /** Directory of the example models (relative to the working directory). */
+  @Param({ "../mlspace-sandbox/_release-pone/_release_files/examples" })
+  private String modelDir;
+
+  /** The spatial index. */
+  private ISpatialIndex<SpatialEntity> index;
+
+  /** The components to query (or move), in order. */
+  private SpatialEntity[] comps;
+
+  /** The displacements for {@link #comps}. */
+  private IDisplacementVector[] displacements;
+
+  /** The inverse displacements (to revert moves out of bounds). */
+  private IDisplacementVector[] reverse;
+
+  /** The current position in {@link #comps}. */
+  private int next = -1;
+
+  /** Visitor counting the colliding components. */
+  private final CountingVisitor visitor = new CountingVisitor();
+
+  /**
+   * Read the model, create the index and register all compartments.
+   *
+   * @throws Exception
+   *           if the factory cannot be instantiated
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    File file = new File(modelDir, model + ".mls");
+    IMLSpaceModel mlsModel = new MLSpaceModelReader().read(file.toURI(),
+        Collections.<String, Object> emptyMap());
+    if (mlsModel == null) {
+      throw new IllegalArgumentException("Could not read model " + file);
+    }
+    Collection<SpatialEntity> roots = mlsModel.getCompartments().getRoots();
+    IShape topLevelShape = roots.size() == 1 ? roots.iterator().next()
+        .getShape() : GeoUtils.surroundingBox(roots);
+
+    SpatialIndexFactory sif =
+        (SpatialIndexFactory) Class.forName(indexFactory).newInstance();
+    index = sif.createDirect(new ParameterBlock());
+    index.init(topLevelShape);
+    List<SpatialEntity> movable = new ArrayList<>();
+    for (SpatialEntity comp : mlsModel.getCompartments().getAllNodes()) {
+      index.registerNewEntity(comp);
+      if (mlsModel.getCompartments().getParent(comp) != null) {
+        movable.add(comp);
+      }
+    }
+    if (movable.isEmpty()) {
+      throw new IllegalArgumentException("No compartments in " + file);
+    }
+
+    Random random = new Random(SEED);
+    IVectorFactory vecFac = mlsModel.getVectorFactory();
+    comps = new SpatialEntity[NUM_OPERATIONS];
+    displacements = new IDisplacementVector[NUM_OPERATIONS];
+    reverse = new IDisplacementVector[NUM_OPERATIONS];
+    double[] coords = new double[vecFac.getDimension()];
+    for (int i = 0; i < NUM_OPERATIONS; i++) {
+      comps[i] = movable.get(random.nextInt(movable.size()));
+      double stdDev = RELATIVE_MOVE
+          * comps[i].getShape().getMaxExtVector().length();
+      for (int d = 0; d < coords.length; d++) {
+        coords[d] = random.nextGaussian() * stdDev;
+      }
+      displacements[i] = vecFac.newDisplacementVector(coords);
+      reverse[i] = displacements[i].times(-1.);
+    }
+  }
+
+  /**
+   * Advance to the next predrawn operation.
+   *
+   * @return the component to query
+   */
+  final SpatialEntity nextComp() {
+    next = (next + 1) & (NUM_OPERATIONS - 1);
+    return comps[next];
+  }
+
+  /**
+   * Move the current component by its displacement, or not at all if it
+   * would leave the system boundaries, and update the index.
+   */
+  final void moveComp() {
+    SpatialEntity comp = comps[next];
+    comp.move(displacements[next]);
+    if (index.isOutOfBounds(comp)) {
+      comp.move(reverse[next]);
+    } else {
+      index.updateCompPos(comp);
+    }
+  }
+
+  /**
+   * Count the components colliding with the given one.
+   *
+   * @param comp
+   *          the component
+   * @return the number of colliding components
+   */
+  final int countCollisions(SpatialEntity comp) {
+    visitor.count = 0;
+    index.visitCollidingComps(comp, visitor);
+    return visitor.count;
+  }
+
+  /**
+   * Gets the spatial index.
+   *
+   * @return the index
+   */
+  public final ISpatialIndex<SpatialEntity> getIndex() {
+    return index;
+  }
+
+  /**
+   * Collision visitor counting the visited components.
+   */
+  private static final class CountingVisitor implements
+      ICollisionVisitor<SpatialEntity> {
+
+    /** The number of components visited. */
+    private int count;
+
+    @Override
+    public boolean visit(SpatialEntity comp) {
+      count++;
+      return true;
+    }
+  }
+
+}
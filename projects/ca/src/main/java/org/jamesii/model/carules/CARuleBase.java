@@ -23,7 +23,10 @@ import org.jamesii.model.cacore.neighborhood.INeighborhood;
  * algorithm used</li>
  * <li>The rng used is thread safe!</li>
  * </ul>
- * The default implementations don't take care about this!
+ * The default implementations don't take care about this!<br/>
+ * The rules are compiled on instantiation (see {@link CompiledRules}), thus
+ * totalistic rules are looked up in a table instead of evaluating their
+ * conditions. The list of rules must therefore not be changed afterwards.
  * 
  * @author Stefan Rybacki
  */
@@ -49,6 +52,9 @@ class CARuleBase implements ICARuleBase {
   /** The neighborhood. */
   private INeighborhood neighborhood;
 
+  /** The compiled rules, null if the rules are interpreted only. */
+  private final CompiledRules compiled;
+
   /**
    * Instantiates a new CA rule base.
    * 
@@ -63,10 +69,32 @@ class CARuleBase implements ICARuleBase {
    */
   public CARuleBase(List<CARule> rules, INeighborhood hood, boolean torus,
       IRandom rnd) {
+    this(rules, hood, torus, rnd, 0);
+  }
+
+  /**
+   * Instantiates a new CA rule base, compiling the rules for the given number
+   * of states.
+   * 
+   * @param rules
+   *          the rules
+   * @param hood
+   *          the neighborhood to use
+   * @param torus
+   *          flag whether to use torus grid
+   * @param rnd
+   *          the random number generator
+   * @param numberOfStates
+   *          the number of states, the rules are not compiled if this is not
+   *          positive
+   */
+  public CARuleBase(List<CARule> rules, INeighborhood hood, boolean torus,
+      IRandom rnd, int numberOfStates) {
     this.rules = rules;
     this.random = rnd;
     this.neighborhood = hood;
     this.isTorus = torus;
+    this.compiled = CompiledRules.compile(rules, numberOfStates, hood);
 
     // check for non reactive rules
     for (CARule rule : rules) {
@@ -76,6 +104,37 @@ class CARuleBase implements ICARuleBase {
 
   @Override
   public int getNextState(int current, INeighborStates<Integer> neighbors) {
+    CARule[] candidates =
+        compiled == null ? null : compiled.getRules(current, neighbors);
+    if (candidates == null) {
+      return interpret(current, neighbors);
+    }
+
+    boolean matched = compiled.isTable();
+    for (CARule rule : candidates) {
+      if (!matched
+          && !(rule.getCurrentCondition().isTrue(current, neighbors) && rule
+              .getPreCondition().isTrue(current, neighbors))) {
+        continue;
+      }
+      if ((!rule.hasProbability())
+          || (Double.compare(random.nextDouble(), rule.getProbability()) <= 0)) {
+        return rule.getDestinationState();
+      }
+    }
+    return current;
+  }
+
+  /**
+   * Determine the next state by evaluating the conditions of all rules.
+   * 
+   * @param current
+   *          the current state
+   * @param neighbors
+   *          the neighbor states
+   * @return the next state
+   */
+  private int interpret(int current, INeighborStates<Integer> neighbors) {
     // first matching rule is used if probability also agrees
     for (CARule rule : rules) {
       if (rule != null && rule.getCurrentCondition().isTrue(current, neighbors)
@@ -82,7 +82,7 @@ public class CARulesModel extends AbstractCAModel implements ICARulesModel {
 
     this.ruleBase =
         new CARuleBase(rules, neighborhood, torus, SimSystem.getRNGGenerator()
-            .getNextRNG());
+            .getNextRNG(), states.size());
   }
 
   /**
@@ -112,7 +112,7 @@ public class CARulesModel extends AbstractCAModel implements ICARulesModel {
 
     this.ruleBase =
         new CARuleBase(rules, neighborhood, torus, SimSystem.getRNGGenerator()
-            .getNextRNG());
+            .getNextRNG(), states == null ? 0 : states.size());
   }
 
   @Override
@@ -0,0 +1,348 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.model.carules;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.jamesii.model.cacore.INeighborStates;
+import org.jamesii.model.cacore.neighborhood.INeighborhood;
+
+/**
+ * Compiled form of the rules of a {@link CARuleBase}. Instead of evaluating
+ * the conditions of all rules for each cell, the rules which might fire are
+ * looked up per cell.<br/>
+ * If all conditions of all rules are {@link ITotalisticCondition}s the
+ * outcome of the conditions only depends on the current state and on the
+ * number of neighbours being in the counted states. In this case the
+ * conditions are evaluated once for all combinations of current state and
+ * counts, and the rules matching are stored in a table indexed by them, thus
+ * per cell only the counts have to be determined. Otherwise (or if the table
+ * would be too large) the rules are only dispatched by the current state,
+ * i.e., rules whose current condition only depends on the current state are
+ * dropped for the states they do not accept, and the conditions of the
+ * remaining rules are evaluated per cell.<br/>
+ * In both cases the order of the rules is preserved, thus the first rule
+ * matching and passing its probability check is still the one applied.
+ */
+final class CompiledRules {
+
+  /** The maximal number of entries of a lookup table. */
+  static final int MAX_TABLE_SIZE = 1 << 20;
+
+  /** Shared empty rule list. */
+  private static final CARule[] NONE = new CARule[0];
+
+  /** The number of states. */
+  private final int numberOfStates;
+
+  /**
+   * The states counted in the neighbourhood, null if the rules are only
+   * dispatched by the current state.
+   */
+  private final int[] countedStates;
+
+  /** The maximal count of a state (the size of the neighbourhood). */
+  private final int maxCount;
+
+  /**
+   * The rules which might fire, indexed by the current state (and the counts
+   * of the counted states).
+   */
+  private final CARule[][] table;
+
+  /**
+   * Instantiates new compiled rules.
+   *
+   * @param numberOfStates
+   *          the number of states
+   * @param countedStates
+   *          the counted states, null for per state dispatch only
+   * @param maxCount
+   *          the maximal count
+   * @param table
+   *          the table
+   */
+  private CompiledRules(int numberOfStates, int[] countedStates,
+      int maxCount, CARule[][] table) {
+    this.numberOfStates = numberOfStates;
+    this.countedStates = countedStates;
+    this.maxCount = maxCount;
+    this.table = table;
+  }
+
+  /**
+   * Compile the given rules.
+   *
+   * @param rules
+   *          the rules
+   * @param numberOfStates
+   *          the number of states, i.e., the states are 0 .. numberOfStates-1
+   * @param hood
+   *          the neighbourhood
+   * @return the compiled rules, null if the number of states is unknown
+   */
+  static CompiledRules compile(List<CARule> rules, int numberOfStates,
+      INeighborhood hood) {
+    if (numberOfStates <= 0) {
+      return null;
+    }
+    int maxCount = hood == null ? -1 : hood.getCellCount();
+
+    Set<Integer> counted = new TreeSet<>();
+    boolean totalistic = maxCount >= 0;
+    for (CARule rule : rules) {
+      if (!totalistic) {
+        break;
+      }
+      if (rule != null) {
+        totalistic =
+            isTotalistic(rule.getCurrentCondition(), counted)
+                && isTotalistic(rule.getPreCondition(), counted);
+      }
+    }
+
+    if (totalistic) {
+      long size = numberOfStates;
+      for (int i = 0; i < counted.size() && size <= MAX_TABLE_SIZE; i++) {
+        size *= maxCount + 1;
+      }
+      if (size <= MAX_TABLE_SIZE) {
+        int[] states = new int[counted.size()];
+        int i = 0;
+        for (Integer s : counted) {
+          states[i++] = s;
+        }
+        return compileTable(rules, numberOfStates, states, maxCount,
+            (int) size);
+      }
+    }
+
+    return compileDispatch(rules, numberOfStates);
+  }
+
+  /**
+   * Checks whether the given condition is totalistic, and collects the
+   * counted states.
+   *
+   * @param condition
+   *          the condition
+   * @param counted
+   *          the counted states
+   * @return true, if the condition is totalistic
+   */
+  private static boolean isTotalistic(ICACondition condition,
+      Set<Integer> counted) {
+    return condition instanceof ITotalisticCondition
+        && ((ITotalisticCondition) condition).collectCountedStates(counted);
+  }
+
+  /**
+   * Build the lookup table for totalistic rules.
+   *
+   * @param rules
+   *          the rules
+   * @param numberOfStates
+   *          the number of states
+   * @param states
+   *          the counted states
+   * @param maxCount
+   *          the maximal count
+   * @param size
+   *          the size of the table
+   * @return the compiled rules
+   */
+  private static CompiledRules compileTable(List<CARule> rules,
+      int numberOfStates, int[] states, int maxCount, int size) {
+    CARule[][] table = new CARule[size][];
+    CountNeighborStates counts = new CountNeighborStates(states);
+    Map<List<CARule>, CARule[]> interned = new HashMap<>();
+    List<CARule> matching = new ArrayList<>();
+
+    for (int index = 0; index < size; index++) {
+      // decode the counts (the last counted state varies fastest)
+      int rest = index;
+      for (int i = states.length - 1; i >= 0; i--) {
+        counts.counts[i] = rest % (maxCount + 1);
+        rest /= maxCount + 1;
+      }
+      int current = rest;
+
+      matching.clear();
+      for (CARule rule : rules) {
+        if (rule != null && rule.getCurrentCondition().isTrue(current, counts)
+            && rule.getPreCondition().isTrue(current, counts)) {
+          matching.add(rule);
+          // rules behind one firing for sure are never reached
+          if (!rule.hasProbability()) {
+            break;
+          }
+        }
+      }
+      table[index] = intern(interned, matching);
+    }
+
+    return new CompiledRules(numberOfStates, states, maxCount, table);
+  }
+
+  /**
+   * Build the per current state dispatch.
+   *
+   * @param rules
+   *          the rules
+   * @param numberOfStates
+   *          the number of states
+   * @return the compiled rules
+   */
+  private static CompiledRules compileDispatch(List<CARule> rules,
+      int numberOfStates) {
+    CARule[][] table = new CARule[numberOfStates][];
+    Map<List<CARule>, CARule[]> interned = new HashMap<>();
+    List<CARule> candidates = new ArrayList<>();
+    Set<Integer> counted = new TreeSet<>();
+
+    for (int current = 0; current < numberOfStates; current++) {
+      candidates.clear();
+      for (CARule rule : rules) {
+        if (rule == null) {
+          continue;
+        }
+        counted.clear();
+        ICACondition condition = rule.getCurrentCondition();
+        // conditions not depending on the neighbours can be decided now
+        if (isTotalistic(condition, counted) && counted.isEmpty()
+            && !condition.isTrue(current, null)) {
+          continue;
+        }
+        candidates.add(rule);
+      }
+      table[current] = intern(interned, candidates);
+    }
+
+    return new CompiledRules(numberOfStates, null, -1, table);
+  }
+
+  /**
+   * Get a shared array for the given rule list.
+   *
+   * @param interned
+   *          the arrays created so far
+   * @param rules
+   *          the rules
+   * @return the array
+   */
+  private static CARule[] intern(Map<List<CARule>, CARule[]> interned,
+      List<CARule> rules) {
+    if (rules.isEmpty()) {
+      return NONE;
+    }
+    CARule[] result = interned.get(rules);
+    if (result == null) {
+      result = rules.toArray(new CARule[rules.size()]);
+      interned.put(new ArrayList<>(rules), result);
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether the rules have been compiled into a lookup table, i.e.,
+   * whether the conditions do not need to be evaluated per cell any more.
+   *
+   * @return true, if the rules are looked up
+   */
+  boolean isTable() {
+    return countedStates != null;
+  }
+
+  /**
+   * Get the rules which might fire for a cell in the given state having the
+   * given neighbours. If {@link #isTable()} the conditions of the returned
+   * rules are met, otherwise they still have to be checked.
+   *
+   * @param current
+   *          the current state
+   * @param neighbors
+   *          the neighbours
+   * @return the rules in their original order, null if the rules have to be
+   *         interpreted for this cell (e.g., the current state is unknown)
+   */
+  CARule[] getRules(int current, INeighborStates<Integer> neighbors) {
+    if (current < 0 || current >= numberOfStates) {
+      return null;
+    }
+    if (countedStates == null) {
+      return table[current];
+    }
+    int index = current;
+    for (int state : countedStates) {
+      int count = neighbors.getCountOf(state);
+      if (count < 0 || count > maxCount) {
+        return null;
+      }
+      index = index * (maxCount + 1) + count;
+    }
+    return table[index];
+  }
+
+  /**
+   * Neighbour states used for evaluating totalistic conditions while
+   * building the table. Only provides the counts of the counted states.
+   */
+  private static final class CountNeighborStates implements
+      INeighborStates<Integer> {
+
+    /** The counted states. */
+    private final int[] states;
+
+    /** The counts of the counted states. */
+    private final int[] counts;
+
+    /**
+     * Instantiates new count neighbour states.
+     *
+     * @param states
+     *          the counted states
+     */
+    CountNeighborStates(int[] states) {
+      this.states = states;
+      this.counts = new int[states.length];
+    }
+
+    @Override
+    public Integer getState(int... coord) {
+      throw new UnsupportedOperationException(
+          "Totalistic conditions must not access single neighbours.");
+    }
+
+    @Override
+    public int getCountOf(Integer state) {
+      if (state == null) {
+        return 0;
+      }
+      for (int i = 0; i < states.length; i++) {
+        if (states[i] == state) {
+          return counts[i];
+        }
+      }
+      throw new IllegalStateException("State " + state
+          + " has not been announced as counted state, counted states are "
+          + Arrays.toString(states));
+    }
+
+    @Override
+    public int getCountOf(Integer state, INeighborhood in) {
+      throw new UnsupportedOperationException(
+          "Totalistic conditions must not use other neighbourhoods.");
+    }
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.model.carules;
+
+import java.util.Set;
+
+/**
+ * Interface for {@link ICACondition}s whose outcome only depends on the
+ * current state of a cell and on the number of neighbours being in certain
+ * states (but not on the position of these neighbours). The rules of a
+ * {@link CARulesModel} consisting of such conditions only are compiled into a
+ * lookup table indexed by the current state and these counts.
+ */
+public interface ITotalisticCondition extends ICACondition {
+
+  /**
+   * Adds the states whose number of occurrences in the neighbourhood this
+   * condition depends on to the given set. Composed conditions can only be
+   * totalistic if all of their sub conditions are, thus they return
+   * {@code false} if one of their sub conditions is not totalistic.
+   *
+   * @param countedStates
+   *          the set the counted states are added to
+   * @return true, if the condition is totalistic, false otherwise
+   */
+  boolean collectCountedStates(Set<Integer> countedStates);
+
+}
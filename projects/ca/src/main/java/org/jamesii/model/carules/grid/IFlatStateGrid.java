@@ -0,0 +1,40 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.model.carules.grid;
+
+/**
+ * Grids implementing this interface support the bulk transfer of all cell
+ * states from and to a flat int array. Within the array the first coordinate
+ * varies fastest, i.e., the state of the cell (x, y) of a grid with the size
+ * (w, h) is stored at the index x + y * w (see
+ * {@link org.jamesii.simulator.carules.CAMultiSimulator#convertNDimIndexTo1DimIndex(int[], int[])}
+ * ).<br/>
+ * Simulators working on their own state buffers use these methods to feed the
+ * buffers from the grid and to drain the results back into the grid without
+ * accessing each cell separately.
+ */
+public interface IFlatStateGrid extends ICARulesGrid {
+
+  /**
+   * Copy the states of all cells into the given array.
+   *
+   * @param states
+   *          the target array, has to hold (at least) as many elements as the
+   *          grid has cells
+   */
+  void getStates(int[] states);
+
+  /**
+   * Set the states of all cells from the given array.
+   *
+   * @param states
+   *          the source array, has to hold (at least) as many elements as the
+   *          grid has cells
+   */
+  void setStates(int[] states);
+
+}
@@ -15,13 +15,14 @@ import org.jamesii.model.carules.CACell;
 import org.jamesii.model.carules.ICACell;
 import org.jamesii.model.carules.grid.AbstractGrid;
 import org.jamesii.model.carules.grid.ICARulesGrid;
+import org.jamesii.model.carules.grid.IFlatStateGrid;
 
 /**
  * The Class Grid1D.
  * 
  * @author Jan Himmelspach
  */
-public final class Grid1D extends AbstractGrid {
+public final class Grid1D extends AbstractGrid implements IFlatStateGrid {
 
   /** The data. */
   private int[] data;
@@ -139,6 +140,16 @@ public final class Grid1D extends AbstractGrid {
     data[coord[0]] = state;
   }
 
+  @Override
+  public void getStates(int[] states) {
+    System.arraycopy(data, 0, states, 0, width);
+  }
+
+  @Override
+  public void setStates(int[] states) {
+    System.arraycopy(states, 0, data, 0, width);
+  }
+
   /**
    * Calculate hash code.
    */
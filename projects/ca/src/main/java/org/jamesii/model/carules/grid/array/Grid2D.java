@@ -15,6 +15,7 @@ import org.jamesii.model.carules.CACell;
 import org.jamesii.model.carules.ICACell;
 import org.jamesii.model.carules.grid.AbstractGrid;
 import org.jamesii.model.carules.grid.ICARulesGrid;
+import org.jamesii.model.carules.grid.IFlatStateGrid;
 import org.jamesii.model.carules.grid.IGrid2D;
 
 /**
@@ -22,7 +23,8 @@ import org.jamesii.model.carules.grid.IGrid2D;
  * 
  * @author Jan Himmelspach
  */
-public final class Grid2D extends AbstractGrid implements IGrid2D {
+public final class Grid2D extends AbstractGrid implements IGrid2D,
+    IFlatStateGrid {
 
   /** The data. */
   private int[] data;
@@ -241,6 +243,16 @@ public final class Grid2D extends AbstractGrid implements IGrid2D {
     data[(coord[0]) + (coord[1] * size[0])] = state;
   }
 
+  @Override
+  public void getStates(int[] states) {
+    System.arraycopy(data, 0, states, 0, size[0] * size[1]);
+  }
+
+  @Override
+  public void setStates(int[] states) {
+    System.arraycopy(states, 0, data, 0, size[0] * size[1]);
+  }
+
   /**
    * Calculate hash code.
    */
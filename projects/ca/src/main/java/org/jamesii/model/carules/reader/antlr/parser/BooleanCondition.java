@@ -6,8 +6,11 @@
  */
 package org.jamesii.model.carules.reader.antlr.parser;
 
+import java.util.Set;
+
 import org.jamesii.model.cacore.INeighborStates;
 import org.jamesii.model.carules.ICACondition;
+import org.jamesii.model.carules.ITotalisticCondition;
 
 /**
  * Very basic implementation of {@link ICACondition} where the outcome of
@@ -17,7 +20,7 @@ import org.jamesii.model.carules.ICACondition;
  * @author Stefan Rybacki
  * 
  */
-public class BooleanCondition implements ICACondition {
+public class BooleanCondition implements ITotalisticCondition {
 
   /**
    * The condition {@link #isTrue(int, INeighborStates)} returns.
@@ -54,4 +57,9 @@ public class BooleanCondition implements ICACondition {
   public ICACondition getCondition(int index) {
     return null;
   }
+
+  @Override
+  public boolean collectCountedStates(Set<Integer> countedStates) {
+    return true;
+  }
 }
@@ -8,10 +8,12 @@ package org.jamesii.model.carules.reader.antlr.parser;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.jamesii.model.cacore.INeighborStates;
 import org.jamesii.model.carules.CARule;
 import org.jamesii.model.carules.ICACondition;
+import org.jamesii.model.carules.ITotalisticCondition;
 
 /**
  * Implementation of {@link ICACondition} to be used in the currentCondition
@@ -22,7 +24,8 @@ import org.jamesii.model.carules.ICACondition;
  * @author Stefan Rybacki
  * 
  */
-public final class CurrentStateCondition implements ICACondition {
+public final class CurrentStateCondition implements
+    ITotalisticCondition {
 
   /**
    * The states that are allowed.
@@ -69,6 +72,11 @@ public final class CurrentStateCondition implements ICACondition {
     return false;
   }
 
+  @Override
+  public boolean collectCountedStates(Set<Integer> countedStates) {
+    return true;
+  }
+
   /**
    * Adds a state to the list of allowed current states.
    * 
@@ -6,8 +6,11 @@
  */
 package org.jamesii.model.carules.reader.antlr.parser;
 
+import java.util.Set;
+
 import org.jamesii.model.cacore.INeighborStates;
 import org.jamesii.model.carules.ICACondition;
+import org.jamesii.model.carules.ITotalisticCondition;
 
 /**
  * Simple inverting implementation of {@link ICACondition} which takes another
@@ -17,7 +20,7 @@ import org.jamesii.model.carules.ICACondition;
  * @author Stefan Rybacki
  * 
  */
-public class NotCondition implements ICACondition {
+public class NotCondition implements ITotalisticCondition {
 
   /**
    * The condition to invert.
@@ -51,6 +54,16 @@ public class NotCondition implements ICACondition {
     return !condition.isTrue(currentState, neighbors);
   }
 
+  @Override
+  public boolean collectCountedStates(Set<Integer> countedStates) {
+    if (condition == null) {
+      return true;
+    }
+    return condition instanceof ITotalisticCondition
+        && ((ITotalisticCondition) condition)
+            .collectCountedStates(countedStates);
+  }
+
   @Override
   public String toString() {
     return "NOT " + condition.toString();
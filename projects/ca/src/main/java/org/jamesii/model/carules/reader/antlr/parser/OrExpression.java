@@ -6,10 +6,13 @@
  */
 package org.jamesii.model.carules.reader.antlr.parser;
 
+import java.util.Set;
+
 import org.jamesii.model.cacore.INeighborStates;
 import org.jamesii.model.carules.AbstractCondition;
 import org.jamesii.model.carules.CARule;
 import org.jamesii.model.carules.ICACondition;
+import org.jamesii.model.carules.ITotalisticCondition;
 
 /**
  * Basic {@link ICACondition} implementation that can be used in either
@@ -19,7 +22,8 @@ import org.jamesii.model.carules.ICACondition;
  * @author Stefan Rybacki
  * 
  */
-public class OrExpression extends AbstractCondition {
+public class OrExpression extends AbstractCondition implements
+    ITotalisticCondition {
 
   /**
    * Instantiates a new or expression. And already adds the specified
@@ -46,6 +50,18 @@ public class OrExpression extends AbstractCondition {
     return result;
   }
 
+  @Override
+  public boolean collectCountedStates(Set<Integer> countedStates) {
+    for (int i = 0; i < getConditionCount(); i++) {
+      ICACondition c = getCondition(i);
+      if (!(c instanceof ITotalisticCondition)
+          || !((ITotalisticCondition) c).collectCountedStates(countedStates)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public void addCondition(ICACondition c) {
     super.addCondition(c);
@@ -6,9 +6,12 @@
  */
 package org.jamesii.model.carules.reader.antlr.parser;
 
+import java.util.Set;
+
 import org.jamesii.model.cacore.INeighborStates;
 import org.jamesii.model.carules.CARule;
 import org.jamesii.model.carules.ICACondition;
+import org.jamesii.model.carules.ITotalisticCondition;
 
 /**
  * Implements a condition that can be used in the preCondition part of a
@@ -18,7 +21,7 @@ import org.jamesii.model.carules.ICACondition;
  * @author Stefan Rybacki
  * 
  */
-public class StateCondition implements ICACondition {
+public class StateCondition implements ITotalisticCondition {
 
   /**
    * The max occurrence.
@@ -84,6 +87,12 @@ public class StateCondition implements ICACondition {
     return count >= min && count <= max;
   }
 
+  @Override
+  public boolean collectCountedStates(Set<Integer> countedStates) {
+    countedStates.add(state);
+    return true;
+  }
+
   @Override
   public String toString() {
     return state + "[" + min + ":" + max + "]";
@@ -0,0 +1,69 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simulator.carules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jamesii.core.distributed.partition.Partition;
+import org.jamesii.core.experiments.tasks.IComputationTask;
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.plugins.annotations.Plugin;
+import org.jamesii.core.processor.IProcessor;
+import org.jamesii.core.processor.ProcessorInformation;
+import org.jamesii.core.processor.plugintype.JamesProcessorFactory;
+import org.jamesii.model.carules.ICARulesModel;
+
+/**
+ * A factory for creating {@link CADoubleBufferedSimulator} objects.
+ */
+@Plugin(version = "1.0")
+public class CADoubleBufferedProcessorFactory extends JamesProcessorFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -3496950263779880524L;
+
+  /**
+   * Constant for the "efficiency" of the computation algorithm. Computes the
+   * same as the {@link CAProcessorFactory} without creating objects per cell,
+   * thus slightly above it.
+   */
+  private static final double EFFICIENCY = .45;
+
+  @Override
+  public IProcessor create(IModel model, IComputationTask simulation,
+      Partition partition, ParameterBlock params, Context context) {
+    CADoubleBufferedSimulator sim = new CADoubleBufferedSimulator(model);
+    sim.setComputationTask(simulation);
+    ProcessorInformation pi = new ProcessorInformation();
+    pi.setLocal(sim);
+
+    simulation.setProcessorInfo(pi);
+
+    return sim;
+  }
+
+  @Override
+  public double getEfficencyIndex() {
+    return EFFICIENCY;
+  }
+
+  @Override
+  public List<Class<?>> getSupportedInterfaces() {
+    ArrayList<Class<?>> al = new ArrayList<>();
+    al.add(ICARulesModel.class);
+    return al;
+  }
+
+  @Override
+  public boolean supportsSubPartitions() {
+    return false;
+  }
+
+}
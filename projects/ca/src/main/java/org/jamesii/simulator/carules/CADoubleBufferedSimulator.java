@@ -0,0 +1,162 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simulator.carules;
+
+import java.util.Arrays;
+
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.processor.RunnableProcessor;
+import org.jamesii.model.carules.ICARuleBase;
+import org.jamesii.model.carules.ICARulesModel;
+import org.jamesii.model.carules.grid.ICARulesGrid;
+import org.jamesii.model.carules.grid.IFlatStateGrid;
+
+/**
+ * CA "full" simulator working on two flat state buffers. Like the
+ * {@link CASimulator} this simulator computes the state of each cell of the
+ * grid per simulation step, but instead of cloning the grid and creating
+ * cell and neighbour state objects per cell it reads the current states from
+ * one int array and writes the new states to a second one; afterwards both
+ * arrays are swapped. The neighbours of a cell are accessed via precomputed
+ * index offsets (see {@link FlatNeighborStates}), thus a step does not create
+ * any objects (as long as the rules do not).<br/>
+ * The buffers are fed from the grid of the model on the first step (and
+ * whenever the grid of the model has been exchanged or resized), and the new
+ * states are drained back to the grid after each step, thus observers see the
+ * same grid as with the other simulators. Grids implementing
+ * {@link IFlatStateGrid} (i.e., the array based Grid1D and Grid2D) are fed
+ * and drained in bulk, for all other grids only the cells which changed their
+ * state are written back. Changes applied to the grid by others than this
+ * simulator between two steps are not recognized.<br/>
+ * In contrast to the {@link CASimulator} the torus flag of the rules (see
+ * {@link ICARuleBase#isTorus(int)}) is taken into account.
+ */
+public class CADoubleBufferedSimulator extends RunnableProcessor<Double> {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 6480131522738440155L;
+
+  /** The time. */
+  private double time = 0.;
+
+  /** The grid the buffers have been fed from. */
+  private transient ICARulesGrid fedGrid;
+
+  /** The size of the grid. */
+  private transient int[] size;
+
+  /** The buffer containing the current states. */
+  private transient int[] current;
+
+  /** The buffer the new states are written to. */
+  private transient int[] next;
+
+  /** The coordinates of the cell currently computed. */
+  private transient int[] coord;
+
+  /** The neighbour states, moved from cell to cell. */
+  private transient FlatNeighborStates neighbours;
+
+  /**
+   * Instantiates a new double buffered CA simulator.
+   *
+   * @param model
+   *          the model
+   */
+  public CADoubleBufferedSimulator(IModel model) {
+    super(model);
+  }
+
+  @Override
+  public Double getTime() {
+    return time;
+  }
+
+  @Override
+  protected void nextStep() {
+    ICARulesModel m = this.getModel();
+    ICARulesGrid grid = m.getGrid();
+    ICARuleBase rules = m.getBaseRules();
+
+    if (grid != fedGrid || !Arrays.equals(size, grid.getSize())) {
+      feed(grid);
+    }
+
+    neighbours.setStates(current);
+    Arrays.fill(coord, 0);
+    boolean bulk = grid instanceof IFlatStateGrid;
+
+    for (int i = 0; i < current.length; i++) {
+      int state = current[i];
+      neighbours.moveTo(i, coord, rules.getNeighborhood(state),
+          rules.isTorus(state));
+      int nextState = rules.getNextState(state, neighbours);
+      next[i] = nextState;
+      if (!bulk && nextState != state) {
+        grid.setState(nextState, coord);
+      }
+      nextCell();
+    }
+
+    if (bulk) {
+      ((IFlatStateGrid) grid).setStates(next);
+    }
+
+    int[] swap = current;
+    current = next;
+    next = swap;
+
+    m.changed();
+
+    // advance the time
+    time += 1;
+    changed();
+  }
+
+  /**
+   * Create the buffers and copy the states of the given grid into the buffer
+   * of the current states.
+   *
+   * @param grid
+   *          the grid
+   */
+  private void feed(ICARulesGrid grid) {
+    size = grid.getSize();
+    int cellCount = 1;
+    for (int element : size) {
+      cellCount *= element;
+    }
+    current = new int[cellCount];
+    next = new int[cellCount];
+    coord = new int[size.length];
+    neighbours = new FlatNeighborStates(size);
+
+    if (grid instanceof IFlatStateGrid) {
+      ((IFlatStateGrid) grid).getStates(current);
+    } else {
+      for (int i = 0; i < cellCount; i++) {
+        current[i] = grid.getState(coord);
+        nextCell();
+      }
+    }
+    fedGrid = grid;
+  }
+
+  /**
+   * Move {@link #coord} to the next cell, the first coordinate varies fastest.
+   */
+  private void nextCell() {
+    for (int i = 0; i < coord.length; i++) {
+      coord[i]++;
+      if (coord[i] < size[i]) {
+        return;
+      }
+      coord[i] = 0;
+    }
+  }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simulator.carules;
+
+import org.jamesii.model.cacore.INeighborStates;
+import org.jamesii.model.cacore.neighborhood.INeighborhood;
+
+/**
+ * Neighbour states of a cell, working directly on a flat state buffer of the
+ * {@link CADoubleBufferedSimulator}. A single instance is moved from cell to
+ * cell (see {@link #moveTo(int, int[], INeighborhood, boolean)}), thus no
+ * objects are created per cell.<br/>
+ * For each neighbourhood the offsets of the neighbour cells in the buffer are
+ * precomputed. For cells which are at least the radius of the neighbourhood
+ * away from the border of the grid the neighbours are accessed by just adding
+ * these offsets to the index of the cell, the wrap around (torus) / the
+ * border check is only computed for the remaining cells.
+ */
+final class FlatNeighborStates implements INeighborStates<Integer> {
+
+  /** The size of the grid. */
+  private final int[] size;
+
+  /** The distance of two neighboured cells in the buffer, per dimension. */
+  private final int[] strides;
+
+  /** The current state buffer. */
+  private int[] states;
+
+  /** The neighbourhood the offsets have been computed for. */
+  private INeighborhood neighborhood;
+
+  /** The relative coordinates of the neighbours. */
+  private int[][] cells;
+
+  /** The offsets of the neighbours in the buffer. */
+  private int[] offsets;
+
+  /** The maximal distance of a neighbour, per dimension. */
+  private int[] radius;
+
+  /** The index of the current cell. */
+  private int index;
+
+  /** The coordinates of the current cell. */
+  private int[] coord;
+
+  /** Flag whether the grid is a torus. */
+  private boolean torus;
+
+  /** Flag whether all neighbours of the current cell are inside the grid. */
+  private boolean interior;
+
+  /**
+   * Instantiates new neighbour states for a grid of the given size.
+   *
+   * @param size
+   *          the size of the grid
+   */
+  FlatNeighborStates(int[] size) {
+    this.size = size.clone();
+    strides = new int[size.length];
+    int stride = 1;
+    for (int i = 0; i < size.length; i++) {
+      strides[i] = stride;
+      stride *= size[i];
+    }
+  }
+
+  /**
+   * Set the state buffer to be read.
+   *
+   * @param states
+   *          the state buffer
+   */
+  void setStates(int[] states) {
+    this.states = states;
+  }
+
+  /**
+   * Move to the given cell.
+   *
+   * @param cellIndex
+   *          the index of the cell in the buffer
+   * @param cellCoord
+   *          the coordinates of the cell (not copied)
+   * @param hood
+   *          the neighbourhood to be used
+   * @param isTorus
+   *          flag whether the grid is a torus
+   */
+  void moveTo(int cellIndex, int[] cellCoord, INeighborhood hood,
+      boolean isTorus) {
+    if (hood != neighborhood) {
+      prepare(hood);
+    }
+    index = cellIndex;
+    coord = cellCoord;
+    torus = isTorus;
+
+    interior = true;
+    for (int i = 0; i < size.length; i++) {
+      if (coord[i] < radius[i] || coord[i] >= size[i] - radius[i]) {
+        interior = false;
+        break;
+      }
+    }
+  }
+
+  /**
+   * Precompute the offsets of the given neighbourhood.
+   *
+   * @param hood
+   *          the neighbourhood
+   */
+  private void prepare(INeighborhood hood) {
+    int count = hood.getCellCount();
+    cells = new int[count][];
+    offsets = new int[count];
+    radius = new int[size.length];
+    for (int k = 0; k < count; k++) {
+      cells[k] = hood.getCell(k).clone();
+      for (int i = 0; i < cells[k].length && i < size.length; i++) {
+        offsets[k] += cells[k][i] * strides[i];
+        radius[i] = Math.max(radius[i], Math.abs(cells[k][i]));
+      }
+    }
+    neighborhood = hood;
+  }
+
+  /**
+   * Get the index of the cell at the given position relative to the current
+   * cell.
+   *
+   * @param relative
+   *          the relative coordinates
+   * @return the index, or -1 if the cell is outside of the grid
+   */
+  private int indexOf(int[] relative) {
+    int result = 0;
+    for (int i = 0; i < size.length; i++) {
+      int c = coord[i] + (i < relative.length ? relative[i] : 0);
+      if (c < 0 || c >= size[i]) {
+        if (!torus) {
+          return -1;
+        }
+        c %= size[i];
+        if (c < 0) {
+          c += size[i];
+        }
+      }
+      result += c * strides[i];
+    }
+    return result;
+  }
+
+  @Override
+  public Integer getState(int... relative) {
+    int i = indexOf(relative);
+    if (i < 0) {
+      return null;
+    }
+    return states[i];
+  }
+
+  @Override
+  public int getCountOf(Integer state) {
+    if (state == null) {
+      return 0;
+    }
+    int s = state;
+    int result = 0;
+    if (interior) {
+      for (int offset : offsets) {
+        if (states[index + offset] == s) {
+          result++;
+        }
+      }
+    } else {
+      for (int[] cell : cells) {
+        int i = indexOf(cell);
+        if (i >= 0 && states[i] == s) {
+          result++;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int getCountOf(Integer state, INeighborhood in) {
+    if (state == null) {
+      return 0;
+    }
+    int s = state;
+    int result = 0;
+    for (int k = 0; k < in.getCellCount(); k++) {
+      int i = indexOf(in.getCell(k));
+      if (i >= 0 && states[i] == s) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+}
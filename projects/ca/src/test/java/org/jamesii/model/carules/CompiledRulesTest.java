@@ -0,0 +1,193 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.model.carules;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jamesii.ChattyTestRule;
+import org.jamesii.core.math.random.generators.java.JavaRandom;
+import org.jamesii.model.cacore.INeighborStates;
+import org.jamesii.model.cacore.neighborhood.INeighborhood;
+import org.jamesii.model.cacore.neighborhood.MooreNeighborhood;
+import org.jamesii.model.carules.reader.antlr.parser.AndExpression;
+import org.jamesii.model.carules.reader.antlr.parser.BooleanCondition;
+import org.jamesii.model.carules.reader.antlr.parser.CurrentStateCondition;
+import org.jamesii.model.carules.reader.antlr.parser.NotCondition;
+import org.jamesii.model.carules.reader.antlr.parser.OrExpression;
+import org.jamesii.model.carules.reader.antlr.parser.StateCondition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link CompiledRules}, comparing the compiled rule base with
+ * the interpreted one on random rules.
+ */
+public class CompiledRulesTest extends ChattyTestRule {
+
+  /** The number of states. */
+  private static final int STATES = 4;
+
+  /** The neighbourhood. */
+  private static final INeighborhood HOOD = new MooreNeighborhood(2);
+
+  private Random rnd;
+
+  private long seed;
+
+  @Before
+  public void setUp() throws Exception {
+    seed = System.nanoTime();
+    addParameter("seed", seed);
+    rnd = new Random(seed);
+  }
+
+  /**
+   * Create a random totalistic condition.
+   *
+   * @param depth
+   *          the maximal depth of the condition
+   * @return the condition
+   */
+  private ICACondition randomCondition(int depth) {
+    switch (rnd.nextInt(depth > 0 ? 6 : 3)) {
+    case 0:
+      return new BooleanCondition(rnd.nextBoolean());
+    case 1:
+      return new CurrentStateCondition(rnd.nextInt(STATES),
+          rnd.nextInt(STATES));
+    case 2:
+      int min = rnd.nextInt(HOOD.getCellCount() + 1);
+      return new StateCondition(rnd.nextInt(STATES), min, min
+          + rnd.nextInt(4));
+    case 3:
+      return new NotCondition(randomCondition(depth - 1));
+    case 4:
+      AndExpression and = new AndExpression(randomCondition(depth - 1));
+      and.addCondition(randomCondition(depth - 1));
+      return and;
+    default:
+      OrExpression or = new OrExpression(randomCondition(depth - 1));
+      or.addCondition(randomCondition(depth - 1));
+      return or;
+    }
+  }
+
+  /**
+   * Create random rules, some of them probabilistic.
+   *
+   * @param count
+   *          the number of rules
+   * @return the rules
+   */
+  private List<CARule> randomRules(int count) {
+    List<CARule> rules = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      rules.add(new CARule(new CurrentStateCondition(rnd.nextInt(STATES)),
+          randomCondition(2), rnd.nextInt(STATES), rnd.nextBoolean() ? 1d
+              : rnd.nextDouble()));
+    }
+    return rules;
+  }
+
+  /**
+   * Compare the next states computed by a compiled and an interpreted rule
+   * base for random neighbourhoods.
+   *
+   * @param rules
+   *          the rules
+   * @param table
+   *          flag whether the rules are expected to be compiled into a table
+   */
+  private void compare(List<CARule> rules, boolean table) {
+    assertEquals(table, CompiledRules.compile(rules, STATES, HOOD).isTable());
+
+    CARuleBase interpreted =
+        new CARuleBase(rules, HOOD, false, new JavaRandom(seed));
+    CARuleBase compiled =
+        new CARuleBase(rules, HOOD, false, new JavaRandom(seed), STATES);
+
+    for (int i = 0; i < 10000; i++) {
+      CountNeighborStates neighbors = new CountNeighborStates();
+      for (int k = 0; k < HOOD.getCellCount(); k++) {
+        neighbors.counts[rnd.nextInt(STATES)]++;
+      }
+      int current = rnd.nextInt(STATES);
+      assertEquals(interpreted.getNextState(current, neighbors),
+          compiled.getNextState(current, neighbors));
+    }
+  }
+
+  /**
+   * Test totalistic rules, which are compiled into a lookup table.
+   */
+  @Test
+  public void testTable() {
+    for (int i = 0; i < 20; i++) {
+      compare(randomRules(1 + rnd.nextInt(10)), true);
+    }
+  }
+
+  /**
+   * Test rules containing a condition which is not totalistic, thus the rules
+   * are only dispatched by the current state.
+   */
+  @Test
+  public void testDispatch() {
+    for (int i = 0; i < 20; i++) {
+      List<CARule> rules = randomRules(1 + rnd.nextInt(10));
+      rules.add(rnd.nextInt(rules.size()), new CARule(new CurrentStateCondition(
+          rnd.nextInt(STATES)), new ICACondition() {
+        @Override
+        public boolean isTrue(int currentState,
+            INeighborStates<Integer> neighbors) {
+          return neighbors.getCountOf(currentState) % 2 == 0;
+        }
+
+        @Override
+        public int getConditionCount() {
+          return 0;
+        }
+
+        @Override
+        public ICACondition getCondition(int index) {
+          return null;
+        }
+      }, rnd.nextInt(STATES), 1d));
+      compare(rules, false);
+    }
+  }
+
+  /**
+   * Neighbour states only providing the counts of the states.
+   */
+  private static final class CountNeighborStates implements
+      INeighborStates<Integer> {
+
+    /** The counts per state. */
+    private final int[] counts = new int[STATES];
+
+    @Override
+    public Integer getState(int... coord) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getCountOf(Integer state) {
+      return state >= 0 && state < STATES ? counts[state] : 0;
+    }
+
+    @Override
+    public int getCountOf(Integer state, INeighborhood in) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simulator.carules;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.jamesii.ChattyTestRule;
+import org.jamesii.core.processor.RunnableProcessor;
+import org.jamesii.model.cacore.neighborhood.MooreNeighborhood;
+import org.jamesii.model.carules.CACell;
+import org.jamesii.model.carules.CARule;
+import org.jamesii.model.carules.CARulesModel;
+import org.jamesii.model.carules.ICACell;
+import org.jamesii.model.carules.grid.ICARulesGrid;
+import org.jamesii.model.carules.grid.array.ArrayGrid2DFactory;
+import org.jamesii.model.carules.grid.object.ObjectGrid2DFactory;
+import org.jamesii.model.carules.grid.plugintype.BaseGridFactory;
+import org.jamesii.model.carules.reader.antlr.parser.CurrentStateCondition;
+import org.jamesii.model.carules.reader.antlr.parser.NotCondition;
+import org.jamesii.model.carules.reader.antlr.parser.StateCondition;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the {@link CADoubleBufferedSimulator}, using Conway's game of
+ * life.
+ */
+public class CADoubleBufferedSimulatorTest extends ChattyTestRule {
+
+  /** The width of the grid. */
+  private static final int WIDTH = 37;
+
+  /** The height of the grid. */
+  private static final int HEIGHT = 23;
+
+  private Random rnd;
+
+  @Before
+  public void setUp() throws Exception {
+    long seed = System.nanoTime();
+    addParameter("seed", seed);
+    rnd = new Random(seed);
+  }
+
+  /**
+   * Create a game of life model.
+   *
+   * @param cells
+   *          the initially alive cells
+   * @param size
+   *          the size of the grid
+   * @param torus
+   *          flag whether the grid is a torus
+   * @param factory
+   *          the grid factory
+   * @return the model
+   */
+  private static CARulesModel createModel(List<ICACell> cells, int[] size,
+      boolean torus, BaseGridFactory factory) {
+    List<CARule> rules = new ArrayList<>();
+    rules.add(new CARule(new CurrentStateCondition(1), new NotCondition(
+        new StateCondition(1, 2, 3)), 0, 1d));
+    rules.add(new CARule(new CurrentStateCondition(0), new StateCondition(1,
+        3, 3), 1, 1d));
+    return new CARulesModel("life", 2, rules, Arrays.asList("dead", "alive"),
+        new MooreNeighborhood(2), cells, size, torus, factory);
+  }
+
+  /**
+   * Get the states of all cells of the given grid.
+   *
+   * @param grid
+   *          the grid
+   * @return the states
+   */
+  private static int[] getStates(ICARulesGrid grid) {
+    int[] size = grid.getSize();
+    int[] result = new int[size[0] * size[1]];
+    for (int y = 0; y < size[1]; y++) {
+      for (int x = 0; x < size[0]; x++) {
+        result[x + y * size[0]] = grid.getState(x, y);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Compare the trajectory with the one of the {@link CASimulator}, for a
+   * random initial grid.
+   *
+   * @param factory
+   *          the grid factory used by the double buffered simulator
+   */
+  private void compareWithCASimulator(BaseGridFactory factory) {
+    List<ICACell> cells = new ArrayList<>();
+    for (int x = 0; x < WIDTH; x++) {
+      for (int y = 0; y < HEIGHT; y++) {
+        if (rnd.nextInt(3) == 0) {
+          cells.add(new CACell(new int[] { x, y }, 1));
+        }
+      }
+    }
+    int[] size = new int[] { WIDTH, HEIGHT };
+
+    CARulesModel expectedModel =
+        createModel(cells, size, false, new ArrayGrid2DFactory());
+    CARulesModel model = createModel(cells, size, false, factory);
+    RunnableProcessor<Double> expected = new CASimulator(expectedModel);
+    RunnableProcessor<Double> simulator =
+        new CADoubleBufferedSimulator(model);
+
+    for (int i = 0; i < 50; i++) {
+      expected.executeNextStep();
+      simulator.executeNextStep();
+      assertEquals(expected.getTime(), simulator.getTime());
+      assertArrayEquals(getStates(expectedModel.getGrid()),
+          getStates(model.getGrid()));
+    }
+  }
+
+  /**
+   * Test that the simulator computes the same as the {@link CASimulator} on
+   * an array grid.
+   */
+  @Test
+  public void testArrayGrid() {
+    compareWithCASimulator(new ArrayGrid2DFactory());
+  }
+
+  /**
+   * Test that the simulator computes the same as the {@link CASimulator} on
+   * an object grid, which has to be fed and drained cell by cell.
+   */
+  @Test
+  public void testObjectGrid() {
+    compareWithCASimulator(new ObjectGrid2DFactory());
+  }
+
+  /**
+   * Test the torus wrap: a glider moves one cell diagonally every four steps,
+   * thus on an n x n torus it is back at its initial position after 4n steps.
+   */
+  @Test
+  public void testTorus() {
+    int n = 8;
+    List<ICACell> cells = new ArrayList<>();
+    int[][] glider = { { 1, 0 }, { 2, 1 }, { 0, 2 }, { 1, 2 }, { 2, 2 } };
+    for (int[] c : glider) {
+      cells.add(new CACell(c, 1));
+    }
+    CARulesModel model =
+        createModel(cells, new int[] { n, n }, true, new ArrayGrid2DFactory());
+    int[] initial = getStates(model.getGrid());
+
+    RunnableProcessor<Double> simulator =
+        new CADoubleBufferedSimulator(model);
+    for (int i = 0; i < 4 * n; i++) {
+      simulator.executeNextStep();
+      int alive = 0;
+      for (int s : getStates(model.getGrid())) {
+        alive += s;
+      }
+      assertEquals(glider.length, alive);
+      if (i == 4 * n / 2 - 1) {
+        assertFalse(Arrays.equals(initial, getStates(model.getGrid())));
+      }
+    }
+    assertArrayEquals(initial, getStates(model.getGrid()));
+  }
+
+}
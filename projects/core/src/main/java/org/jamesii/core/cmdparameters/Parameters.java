@@ -14,6 +14,7 @@ import java.util.logging.Level;
 import org.jamesii.SimSystem;
 import org.jamesii.core.distributed.allocation.plugintype.SimulationResourceAllocatorFactory;
 import org.jamesii.core.distributed.masterserver.IMasterServer;
+import org.jamesii.core.observe.AsynchronousMediator.Backpressure;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.util.misc.ParameterUtils;
 
@@ -323,6 +324,44 @@ public class Parameters extends AbstractParameters {
         monitoringEnabled);
   }
 
+  /**
+   * Checks if the observers are informed asynchronously.
+   * 
+   * @return the boolean
+   */
+  public Boolean isAsynchronousObservation() {
+    return getParameterBlock().getSubBlockValue(
+        ParameterUtils.ASYNCHRONOUS_OBSERVATION);
+  }
+
+  /**
+   * Sets whether the observers are informed asynchronously.
+   * 
+   * @param asynchronousObservation
+   *          true if the observers shall be informed asynchronously
+   */
+  public void setAsynchronousObservation(boolean asynchronousObservation) {
+    this.getParameterBlock().addSubBlock(
+        ParameterUtils.ASYNCHRONOUS_OBSERVATION, asynchronousObservation);
+  }
+
+  /**
+   * Sets up the asynchronous observation.
+   * 
+   * @param bufferSize
+   *          the number of buffered notifications
+   * @param backpressure
+   *          the policy applied if the buffer is full
+   */
+  public void setAsynchronousObservation(int bufferSize,
+      Backpressure backpressure) {
+    setAsynchronousObservation(true);
+    this.getParameterBlock().addSubBlock(
+        ParameterUtils.OBSERVATION_BUFFER_SIZE, bufferSize);
+    this.getParameterBlock().addSubBlock(
+        ParameterUtils.OBSERVATION_BACKPRESSURE, backpressure);
+  }
+
   /**
    * Checks if is log time.
    * 
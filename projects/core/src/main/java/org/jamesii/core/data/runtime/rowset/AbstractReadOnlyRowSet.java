@@ -0,0 +1,1053 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.NClob;
+import java.sql.Ref;
+import java.sql.ResultSet;
+import java.sql.RowId;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+
+import javax.sql.RowSet;
+import javax.sql.rowset.BaseRowSet;
+
+import org.jamesii.core.util.misc.Base64;
+
+/**
+ * Base class for {@link RowSet}s providing read-only access to tabular data
+ * not stemming from a database (e.g., from a file). All methods which modify
+ * the data throw a {@link SQLFeatureNotSupportedException}, and the getters
+ * accepting column labels are mapped to the ones accepting column indices
+ * using {@link #findColumn(String)}. The getters for the less common types
+ * are derived from {@link #getString(int)}, {@link #getLong(int)} and
+ * {@link #getDouble(int)} in the same way as the {@link FileRowSet} derives
+ * them from the text stored in the file.
+ * <p>
+ * As for the {@link FileRowSet} the {@code command}, {@code username} and
+ * {@code password} properties are not used.
+ */
+public abstract class AbstractReadOnlyRowSet extends BaseRowSet implements
+    RowSet {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 3165281807766253170L;
+
+  /** Exception message for methods modifying the data. */
+  private static final String EX_READ_ONLY = "This row set is read-only.";
+
+  /** Exception message for methods that have no meaning in this class. */
+  private static final String EX_NOT_APPLICABLE =
+      "This method is not applicable in this implementation.";
+
+  /**
+   * Initialises the properties of the row set: scrollable, insensitive to
+   * changes and read-only.
+   */
+  protected AbstractReadOnlyRowSet() {
+    try {
+      setType(TYPE_SCROLL_INSENSITIVE);
+      setConcurrency(CONCUR_READ_ONLY);
+      setReadOnly(true);
+    } catch (SQLException e) {
+      throw new FileRowSetException(e);
+    }
+  }
+
+  /**
+   * Create the exception thrown by all methods modifying the data.
+   *
+   * @return the exception
+   */
+  protected static SQLFeatureNotSupportedException readOnly() {
+    return new SQLFeatureNotSupportedException(EX_READ_ONLY);
+  }
+
+  /**
+   * Create the exception thrown by all methods not supported.
+   *
+   * @return the exception
+   */
+  protected static SQLFeatureNotSupportedException notApplicable() {
+    return new SQLFeatureNotSupportedException(EX_NOT_APPLICABLE);
+  }
+
+  // ==========================================================================
+  // Getters derived from the basic ones
+  // ==========================================================================
+
+  @Override
+  public byte getByte(int columnIndex) throws SQLException {
+    return (byte) getLong(columnIndex);
+  }
+
+  @Override
+  public short getShort(int columnIndex) throws SQLException {
+    return (short) getLong(columnIndex);
+  }
+
+  @Override
+  public int getInt(int columnIndex) throws SQLException {
+    return (int) getLong(columnIndex);
+  }
+
+  @Override
+  public float getFloat(int columnIndex) throws SQLException {
+    return (float) getDouble(columnIndex);
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    return new BigDecimal(getString(columnIndex));
+  }
+
+  /**
+   * @deprecated as in {@link ResultSet}
+   */
+  @Deprecated
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex, int scale)
+      throws SQLException {
+    return getBigDecimal(columnIndex).setScale(scale);
+  }
+
+  /**
+   * Interprets the string value of the column as Base64 encoded data, which is
+   * the way the {@link FileRowSet} stores byte arrays.
+   */
+  @Override
+  public byte[] getBytes(int columnIndex) throws SQLException {
+    return Base64.decode(getString(columnIndex));
+  }
+
+  @Override
+  public Date getDate(int columnIndex) throws SQLException {
+    return Date.valueOf(getString(columnIndex));
+  }
+
+  @Override
+  public Time getTime(int columnIndex) throws SQLException {
+    return Time.valueOf(getString(columnIndex));
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex) throws SQLException {
+    return Timestamp.valueOf(getString(columnIndex));
+  }
+
+  @Override
+  public Date getDate(int columnIndex, Calendar cal) throws SQLException {
+    Date d = getDate(columnIndex);
+    return new Date(d.getTime() + cal.getTimeZone().getOffset(d.getTime()));
+  }
+
+  @Override
+  public Time getTime(int columnIndex, Calendar cal) throws SQLException {
+    Time t = getTime(columnIndex);
+    return new Time(t.getTime() + cal.getTimeZone().getOffset(t.getTime()));
+  }
+
+  @Override
+  public Timestamp getTimestamp(int columnIndex, Calendar cal)
+      throws SQLException {
+    Timestamp t = getTimestamp(columnIndex);
+    Timestamp result =
+        new Timestamp(t.getTime() + cal.getTimeZone().getOffset(t.getTime()));
+    result.setNanos(t.getNanos());
+    return result;
+  }
+
+  @Override
+  public URL getURL(int columnIndex) throws SQLException {
+    try {
+      return new URL(getString(columnIndex));
+    } catch (MalformedURLException e) {
+      throw new SQLException(e);
+    }
+  }
+
+  @Override
+  public String getNString(int columnIndex) throws SQLException {
+    return getString(columnIndex);
+  }
+
+  /**
+   * The map is ignored, as there are no user defined types.
+   */
+  @Override
+  public Object getObject(int columnIndex, Map<String, Class<?>> map)
+      throws SQLException {
+    return getObject(columnIndex);
+  }
+
+  @Override
+  public <T> T getObject(int columnIndex, Class<T> type) throws SQLException {
+    Object result;
+    if (type == String.class) {
+      result = getString(columnIndex);
+    } else if (type == Boolean.class) {
+      result = getBoolean(columnIndex);
+    } else if (type == Integer.class) {
+      result = getInt(columnIndex);
+    } else if (type == Long.class) {
+      result = getLong(columnIndex);
+    } else if (type == Double.class) {
+      result = getDouble(columnIndex);
+    } else if (type == Float.class) {
+      result = getFloat(columnIndex);
+    } else if (type == BigDecimal.class) {
+      result = getBigDecimal(columnIndex);
+    } else {
+      result = getObject(columnIndex);
+    }
+    if (wasNull()) {
+      return null;
+    }
+    if (!type.isInstance(result)) {
+      throw new SQLException("The value cannot be converted to "
+          + type.getName());
+    }
+    return type.cast(result);
+  }
+
+  // ==========================================================================
+  // Getters accepting column labels
+  // ==========================================================================
+
+  @Override
+  public String getString(String columnLabel) throws SQLException {
+    return getString(findColumn(columnLabel));
+  }
+
+  @Override
+  public boolean getBoolean(String columnLabel) throws SQLException {
+    return getBoolean(findColumn(columnLabel));
+  }
+
+  @Override
+  public byte getByte(String columnLabel) throws SQLException {
+    return getByte(findColumn(columnLabel));
+  }
+
+  @Override
+  public short getShort(String columnLabel) throws SQLException {
+    return getShort(findColumn(columnLabel));
+  }
+
+  @Override
+  public int getInt(String columnLabel) throws SQLException {
+    return getInt(findColumn(columnLabel));
+  }
+
+  @Override
+  public long getLong(String columnLabel) throws SQLException {
+    return getLong(findColumn(columnLabel));
+  }
+
+  @Override
+  public float getFloat(String columnLabel) throws SQLException {
+    return getFloat(findColumn(columnLabel));
+  }
+
+  @Override
+  public double getDouble(String columnLabel) throws SQLException {
+    return getDouble(findColumn(columnLabel));
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel) throws SQLException {
+    return getBigDecimal(findColumn(columnLabel));
+  }
+
+  /**
+   * @deprecated as in {@link ResultSet}
+   */
+  @Deprecated
+  @Override
+  public BigDecimal getBigDecimal(String columnLabel, int scale)
+      throws SQLException {
+    return getBigDecimal(findColumn(columnLabel), scale);
+  }
+
+  @Override
+  public byte[] getBytes(String columnLabel) throws SQLException {
+    return getBytes(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(String columnLabel) throws SQLException {
+    return getDate(findColumn(columnLabel));
+  }
+
+  @Override
+  public Time getTime(String columnLabel) throws SQLException {
+    return getTime(findColumn(columnLabel));
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel) throws SQLException {
+    return getTimestamp(findColumn(columnLabel));
+  }
+
+  @Override
+  public Date getDate(String columnLabel, Calendar cal) throws SQLException {
+    return getDate(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public Time getTime(String columnLabel, Calendar cal) throws SQLException {
+    return getTime(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public Timestamp getTimestamp(String columnLabel, Calendar cal)
+      throws SQLException {
+    return getTimestamp(findColumn(columnLabel), cal);
+  }
+
+  @Override
+  public URL getURL(String columnLabel) throws SQLException {
+    return getURL(findColumn(columnLabel));
+  }
+
+  @Override
+  public String getNString(String columnLabel) throws SQLException {
+    return getNString(findColumn(columnLabel));
+  }
+
+  @Override
+  public Object getObject(String columnLabel) throws SQLException {
+    return getObject(findColumn(columnLabel));
+  }
+
+  @Override
+  public Object getObject(String columnLabel, Map<String, Class<?>> map)
+      throws SQLException {
+    return getObject(findColumn(columnLabel), map);
+  }
+
+  @Override
+  public <T> T getObject(String columnLabel, Class<T> type)
+      throws SQLException {
+    return getObject(findColumn(columnLabel), type);
+  }
+
+  // ==========================================================================
+  // Unsupported getters
+  // ==========================================================================
+
+  @Override
+  public InputStream getAsciiStream(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public InputStream getAsciiStream(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  /**
+   * @deprecated as in {@link ResultSet}
+   */
+  @Deprecated
+  @Override
+  public InputStream getUnicodeStream(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  /**
+   * @deprecated as in {@link ResultSet}
+   */
+  @Deprecated
+  @Override
+  public InputStream getUnicodeStream(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public InputStream getBinaryStream(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public InputStream getBinaryStream(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Reader getCharacterStream(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Reader getCharacterStream(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Reader getNCharacterStream(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Reader getNCharacterStream(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Ref getRef(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Ref getRef(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Blob getBlob(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Blob getBlob(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Clob getClob(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Clob getClob(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public NClob getNClob(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public NClob getNClob(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Array getArray(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public Array getArray(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public RowId getRowId(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public RowId getRowId(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public SQLXML getSQLXML(int columnIndex) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public SQLXML getSQLXML(String columnLabel) throws SQLException {
+    throw notApplicable();
+  }
+
+  @Override
+  public String getCursorName() throws SQLException {
+    throw notApplicable();
+  }
+
+  // ==========================================================================
+  // Miscellaneous methods of the ResultSet
+  // ==========================================================================
+
+  /**
+   * @return always {@code null}, there are no warnings.
+   */
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    // there are no warnings
+  }
+
+  /**
+   * @return always {@code null}, there is no statement.
+   */
+  @Override
+  public Statement getStatement() throws SQLException {
+    return null;
+  }
+
+  @Override
+  public int getHoldability() throws SQLException {
+    return HOLD_CURSORS_OVER_COMMIT;
+  }
+
+  /**
+   * @return always {@code false}, the data cannot be modified.
+   */
+  @Override
+  public boolean rowUpdated() throws SQLException {
+    return false;
+  }
+
+  /**
+   * @return always {@code false}, the data cannot be modified.
+   */
+  @Override
+  public boolean rowInserted() throws SQLException {
+    return false;
+  }
+
+  /**
+   * @return always {@code false}, the data cannot be modified.
+   */
+  @Override
+  public boolean rowDeleted() throws SQLException {
+    return false;
+  }
+
+  /**
+   * Does nothing, the data cannot be modified.
+   */
+  @Override
+  public void refreshRow() throws SQLException {
+    // the row cannot have been changed
+  }
+
+  /**
+   * Does nothing, the insert row cannot be entered.
+   */
+  @Override
+  public void moveToCurrentRow() throws SQLException {
+    // the cursor is always on the current row
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return iface.isInstance(this);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (!isWrapperFor(iface)) {
+      throw new SQLException("This row set does not implement "
+          + iface.getName());
+    }
+    return iface.cast(this);
+  }
+
+  // ==========================================================================
+  // Methods modifying the data, all of them throw an exception
+  // ==========================================================================
+
+  @Override
+  public void insertRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void deleteRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void cancelRowUpdates() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void moveToInsertRow() throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateArray(int columnIndex, Array x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateArray(String columnLabel, Array x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex,
+      InputStream inputStream, int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(int columnIndex,
+      InputStream inputStream, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel,
+      InputStream inputStream, int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateAsciiStream(String columnLabel,
+      InputStream inputStream, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBigDecimal(int columnIndex, BigDecimal x)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBigDecimal(String columnLabel, BigDecimal x)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex,
+      InputStream inputStream, int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(int columnIndex,
+      InputStream inputStream, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel,
+      InputStream inputStream, int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBinaryStream(String columnLabel,
+      InputStream inputStream, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, Blob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(int columnIndex, InputStream inputStream, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, Blob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel, InputStream inputStream)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBlob(String columnLabel,
+      InputStream inputStream, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBoolean(int columnIndex, boolean x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBoolean(String columnLabel, boolean x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateByte(int columnIndex, byte x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateByte(String columnLabel, byte x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBytes(int columnIndex, byte[] x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateBytes(String columnLabel, byte[] x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader reader, int length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(int columnIndex, Reader reader, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel,
+      Reader reader, int length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateCharacterStream(String columnLabel,
+      Reader reader, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Clob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(int columnIndex, Reader reader, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Clob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateClob(String columnLabel, Reader reader, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDate(int columnIndex, Date x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDate(String columnLabel, Date x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDouble(int columnIndex, double x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateDouble(String columnLabel, double x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateFloat(int columnIndex, float x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateFloat(String columnLabel, float x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateInt(int columnIndex, int x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateInt(String columnLabel, int x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateLong(int columnIndex, long x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateLong(String columnLabel, long x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(int columnIndex,
+      Reader reader, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(String columnLabel, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNCharacterStream(String columnLabel,
+      Reader reader, long length) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, NClob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader reader) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(int columnIndex, Reader reader, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, NClob x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader reader)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNClob(String columnLabel, Reader reader, long length)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNString(int columnIndex, String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNString(String columnLabel, String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNull(int columnIndex) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateNull(String columnLabel) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(int columnIndex, Object x, int scaleOrLength)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateObject(String columnLabel, Object x, int scaleOrLength)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRef(int columnIndex, Ref x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRef(String columnLabel, Ref x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRowId(int columnIndex, RowId x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateRowId(String columnLabel, RowId x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateSQLXML(int columnIndex, SQLXML x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateSQLXML(String columnLabel, SQLXML x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateShort(int columnIndex, short x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateShort(String columnLabel, short x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateString(int columnIndex, String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateString(String columnLabel, String x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTime(int columnIndex, Time x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTime(String columnLabel, Time x) throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTimestamp(int columnIndex, Timestamp x)
+      throws SQLException {
+    throw readOnly();
+  }
+
+  @Override
+  public void updateTimestamp(String columnLabel, Timestamp x)
+      throws SQLException {
+    throw readOnly();
+  }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.jamesii.core.data.runtime.CSVParser;
+
+/**
+ * Converts the CSV files used by the {@link FileRowSet} into
+ * {@link ColumnarFile}s. The file is read twice: in the first pass the type
+ * of each column is determined, in the second pass the values are written.
+ * The type of a column is {@link ColumnType#BOOLEAN} if all values are
+ * "true" or "false", the narrowest of {@link ColumnType#INT},
+ * {@link ColumnType#LONG} and {@link ColumnType#DOUBLE} all values can be
+ * parsed as, and {@link ColumnType#STRING} otherwise (in particular for
+ * columns mixing booleans and numbers). Empty fields are stored as null
+ * values and do not influence the type of the column. Base64 encoded objects
+ * and byte arrays remain strings.
+ * <p>
+ * Usage from the command line: {@code CSVToColumnarConverter <csv file>
+ * <target file> [<encoding>]}
+ */
+public final class CSVToColumnarConverter {
+
+  /**
+   * Hidden constructor.
+   */
+  private CSVToColumnarConverter() {
+  }
+
+  /**
+   * Converts the given CSV file (UTF-8 encoded) using the default block size.
+   *
+   * @param csv
+   *          the CSV file
+   * @param target
+   *          the file to be written
+   * @return the types determined for the columns
+   * @throws IOException
+   *           if reading or writing fails, or the CSV file is malformed
+   */
+  public static ColumnType[] convert(File csv, File target) throws IOException {
+    return convert(csv, target, Charset.forName("UTF-8"),
+        ColumnarFileWriter.DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Converts the given CSV file.
+   *
+   * @param csv
+   *          the CSV file
+   * @param target
+   *          the file to be written
+   * @param encoding
+   *          the encoding of the CSV file
+   * @param blockSize
+   *          the number of rows per block of the min/max index
+   * @return the types determined for the columns
+   * @throws IOException
+   *           if reading or writing fails, or the CSV file is malformed
+   */
+  public static ColumnType[] convert(File csv, File target, Charset encoding,
+      int blockSize) throws IOException {
+    CSVParser parser = new CSVParser();
+    String[] names;
+    ColumnType[] types;
+
+    try (FileLineIterator lines = open(csv, encoding)) {
+      names = parser.parse(lines.current());
+      types = inferTypes(lines, parser, names.length);
+    }
+
+    try (FileLineIterator lines = open(csv, encoding);
+        ColumnarFileWriter writer =
+            new ColumnarFileWriter(target, names, types, blockSize)) {
+      int lineNumber = 1;
+      for (CharSequence line = lines.next(); line != null; line =
+          lines.next()) {
+        lineNumber++;
+        String[] fields = parse(parser, line, names.length, lineNumber);
+        for (String field : fields) {
+          if (field.isEmpty()) {
+            writer.writeNull();
+          } else {
+            writer.writeParsed(field);
+          }
+        }
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Open the CSV file.
+   *
+   * @param csv
+   *          the file
+   * @param encoding
+   *          the encoding
+   * @return the line iterator, positioned on the header
+   * @throws IOException
+   *           if the file cannot be opened
+   */
+  private static FileLineIterator open(File csv, Charset encoding)
+      throws IOException {
+    FileLineIterator lines = new FileLineIterator(csv);
+    lines.setEncoding(encoding);
+    return lines;
+  }
+
+  /**
+   * Parse a line and check the number of fields.
+   *
+   * @param parser
+   *          the parser
+   * @param line
+   *          the line
+   * @param columns
+   *          the number of columns
+   * @param lineNumber
+   *          the number of the line, for error messages
+   * @return the fields
+   * @throws IOException
+   *           if the number of fields is wrong
+   */
+  private static String[] parse(CSVParser parser, CharSequence line,
+      int columns, int lineNumber) throws IOException {
+    String[] fields = parser.parse(line);
+    if (fields.length != columns) {
+      throw new IOException("Line " + lineNumber + " has " + fields.length
+          + " fields, but there are " + columns + " columns.");
+    }
+    return fields;
+  }
+
+  /**
+   * Determine the types of the columns.
+   *
+   * @param lines
+   *          the lines, positioned on the header
+   * @param parser
+   *          the parser
+   * @param columns
+   *          the number of columns
+   * @return the types
+   * @throws IOException
+   *           if the file is malformed
+   */
+  private static ColumnType[] inferTypes(FileLineIterator lines,
+      CSVParser parser, int columns) throws IOException {
+    // null as long as only empty fields have been found
+    ColumnType[] types = new ColumnType[columns];
+    int lineNumber = 1;
+    for (CharSequence line = lines.next(); line != null; line = lines.next()) {
+      lineNumber++;
+      String[] fields = parse(parser, line, columns, lineNumber);
+      for (int i = 0; i < columns; i++) {
+        if (!fields[i].isEmpty() && types[i] != ColumnType.STRING) {
+          types[i] = widen(types[i], getType(fields[i]));
+        }
+      }
+    }
+
+    for (int i = 0; i < columns; i++) {
+      if (types[i] == null) {
+        types[i] = ColumnType.STRING;
+      }
+    }
+    return types;
+  }
+
+  /**
+   * Get the narrowest type the given value can be stored as without loss.
+   *
+   * @param value
+   *          the value
+   * @return the type
+   */
+  private static ColumnType getType(String value) {
+    if ("true".equals(value) || "false".equals(value)) {
+      return ColumnType.BOOLEAN;
+    }
+    try {
+      Integer.parseInt(value);
+      return ColumnType.INT;
+    } catch (NumberFormatException e) {
+      // try the wider types
+    }
+    try {
+      Long.parseLong(value);
+      return ColumnType.LONG;
+    } catch (NumberFormatException e) {
+      // try the wider types
+    }
+    try {
+      Double.parseDouble(value);
+      return ColumnType.DOUBLE;
+    } catch (NumberFormatException e) {
+      return ColumnType.STRING;
+    }
+  }
+
+  /**
+   * Get the narrowest type values of both given types can be stored as. The
+   * numeric types are widened to each other, booleans and numbers can only be
+   * stored as strings together.
+   *
+   * @param type
+   *          the type determined so far, null if there is none yet
+   * @param valueType
+   *          the type of the next value
+   * @return the type
+   */
+  private static ColumnType widen(ColumnType type, ColumnType valueType) {
+    if (type == null || type == valueType) {
+      return valueType;
+    }
+    if (type == ColumnType.BOOLEAN || valueType == ColumnType.BOOLEAN
+        || type == ColumnType.STRING || valueType == ColumnType.STRING) {
+      return ColumnType.STRING;
+    }
+    // INT, LONG and DOUBLE are declared from narrow to wide
+    return type.compareTo(valueType) > 0 ? type : valueType;
+  }
+
+  /**
+   * Converts a CSV file.
+   *
+   * @param args
+   *          the CSV file, the target file and optionally the encoding of the
+   *          CSV file
+   * @throws IOException
+   *           if the conversion fails
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: " + CSVToColumnarConverter.class.getName()
+          + " <csv file> <target file> [<encoding>]");
+      return;
+    }
+    Charset encoding =
+        args.length > 2 ? Charset.forName(args[2]) : Charset.forName("UTF-8");
+    ColumnType[] types =
+        convert(new File(args[0]), new File(args[1]), encoding,
+            ColumnarFileWriter.DEFAULT_BLOCK_SIZE);
+    System.out.println("Converted " + types.length + " columns to "
+        + args[1]);
+  }
+
+}
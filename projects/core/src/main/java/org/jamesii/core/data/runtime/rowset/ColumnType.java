@@ -0,0 +1,114 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.sql.Types;
+
+/**
+ * The types of the columns of a {@link ColumnarFile}. Each type is stored with
+ * a fixed width per row; the values of {@link #STRING} columns are stored as
+ * offsets into a separate area of the file holding the (UTF-8 encoded)
+ * strings.
+ */
+public enum ColumnType {
+
+  /** Boolean values, stored as one byte. */
+  BOOLEAN(1, 1, Types.BOOLEAN),
+
+  /** Integer values, stored as four bytes. */
+  INT(2, 4, Types.INTEGER),
+
+  /** Long values, stored as eight bytes. */
+  LONG(3, 8, Types.BIGINT),
+
+  /** Double values, stored as eight bytes. */
+  DOUBLE(4, 8, Types.DOUBLE),
+
+  /** Strings, stored as eight byte offsets of the actual strings. */
+  STRING(5, 8, Types.VARCHAR);
+
+  /** The code of the type in the file. */
+  private final byte code;
+
+  /** The number of bytes per value. */
+  private final int width;
+
+  /** The SQL type, see {@link Types}. */
+  private final int sqlType;
+
+  /**
+   * Instantiates a new column type.
+   *
+   * @param code
+   *          the code of the type in the file
+   * @param width
+   *          the number of bytes per value, has to be a power of two
+   * @param sqlType
+   *          the SQL type
+   */
+  private ColumnType(int code, int width, int sqlType) {
+    this.code = (byte) code;
+    this.width = width;
+    this.sqlType = sqlType;
+  }
+
+  /**
+   * Gets the code of the type in the file.
+   *
+   * @return the code
+   */
+  byte getCode() {
+    return code;
+  }
+
+  /**
+   * Gets the number of bytes per value.
+   *
+   * @return the width
+   */
+  public int getWidth() {
+    return width;
+  }
+
+  /**
+   * Gets the SQL type, see {@link Types}.
+   *
+   * @return the SQL type
+   */
+  public int getSqlType() {
+    return sqlType;
+  }
+
+  /**
+   * Checks whether a min/max block index is maintained for columns of this
+   * type.
+   *
+   * @return true, if the type is numeric
+   */
+  public boolean isNumeric() {
+    return this != STRING;
+  }
+
+  /**
+   * Get the type with the given code.
+   *
+   * @param code
+   *          the code
+   * @return the type
+   * @throws IllegalArgumentException
+   *           if there is no type with the given code
+   */
+  static ColumnType forCode(byte code) {
+    for (ColumnType type : values()) {
+      if (type.code == code) {
+        return type;
+      }
+    }
+    throw new IllegalArgumentException("Unknown column type " + code);
+  }
+
+}
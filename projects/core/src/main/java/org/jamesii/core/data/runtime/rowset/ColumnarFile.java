@@ -0,0 +1,546 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read access to a file storing tabular data column by column in binary form,
+ * as written by the {@link ColumnarFileWriter}. In contrast to the CSV files
+ * read by the {@link FileRowSet} the values do not need to be parsed: each
+ * column is stored as a contiguous area of fixed-width values which is
+ * memory-mapped, thus a value is read by computing its offset only.<br/>
+ * For each numeric column the minimum and the maximum value of each block of
+ * rows are stored as well; {@link #findFirst(int, double, double, long)} uses
+ * them to skip blocks not containing any value of a given range, e.g., when
+ * looking up a time interval in a trajectory.<br/>
+ * Null values are marked in a bit set per column (see
+ * {@link #isNull(int, long)}); they are read as null objects and strings, and
+ * as 0 and false by the primitive getters.<br/>
+ * <br/>
+ * The file starts with a header (magic number, version, number of rows,
+ * number of columns, block size and, per column, its name, its type, and the
+ * offsets of its values, its strings, its block index and its null bit set,
+ * which is -1 if the column has no null values). Strings are stored UTF-8
+ * encoded in a separate area per column, their values are the offsets of the
+ * strings in that area. All numbers are stored big-endian.
+ *
+ * @see ColumnarFileWriter
+ * @see ColumnarFileRowSet
+ */
+public class ColumnarFile implements Closeable {
+
+  /**
+   * The number of bits of the offset inside of a mapped chunk, values never
+   * cross chunks as the widths of the types are powers of two.
+   */
+  private static final int CHUNK_BITS = 30;
+
+  /** The mask of the offset inside of a chunk. */
+  private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+  /** The file. */
+  private final RandomAccessFile file;
+
+  /** The channel of the file. */
+  private final FileChannel channel;
+
+  /** The number of rows. */
+  private final long rowCount;
+
+  /** The number of rows per block. */
+  private final int blockSize;
+
+  /** The names of the columns. */
+  private final String[] names;
+
+  /** The types of the columns. */
+  private final ColumnType[] types;
+
+  /** The mapped values, per column and chunk. */
+  private final MappedByteBuffer[][] values;
+
+  /** The offsets of the string areas. */
+  private final long[] heapOffsets;
+
+  /** The lengths of the string areas. */
+  private final long[] heapLengths;
+
+  /** The minimum values per block, per column. */
+  private final double[][] minima;
+
+  /** The maximum values per block, per column. */
+  private final double[][] maxima;
+
+  /**
+   * The rows with null values, as bit set per column (null for columns
+   * without null values).
+   */
+  private final long[][] nulls;
+
+  /**
+   * Opens the given file.
+   *
+   * @param f
+   *          the file
+   * @throws IOException
+   *           if the file cannot be read or is not a columnar file
+   */
+  public ColumnarFile(File f) throws IOException {
+    long[] dataOffsets;
+    long[] indexOffsets;
+    long[] nullOffsets;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+      if (in.readInt() != ColumnarFileWriter.MAGIC) {
+        throw new IOException(f + " is not a columnar file.");
+      }
+      int version = in.readInt();
+      if (version != ColumnarFileWriter.VERSION) {
+        throw new IOException("Unsupported version " + version + " of " + f);
+      }
+      rowCount = in.readLong();
+      int count = in.readInt();
+      blockSize = in.readInt();
+
+      names = new String[count];
+      types = new ColumnType[count];
+      dataOffsets = new long[count];
+      heapOffsets = new long[count];
+      heapLengths = new long[count];
+      indexOffsets = new long[count];
+      nullOffsets = new long[count];
+      for (int i = 0; i < count; i++) {
+        names[i] = in.readUTF();
+        types[i] = ColumnType.forCode(in.readByte());
+        dataOffsets[i] = in.readLong();
+        heapOffsets[i] = in.readLong();
+        heapLengths[i] = in.readLong();
+        indexOffsets[i] = in.readLong();
+        nullOffsets[i] = in.readLong();
+      }
+    }
+
+    file = new RandomAccessFile(f, "r");
+    channel = file.getChannel();
+    try {
+      int blocks = getBlockCount();
+      values = new MappedByteBuffer[names.length][];
+      minima = new double[names.length][];
+      maxima = new double[names.length][];
+      nulls = new long[names.length][];
+      for (int i = 0; i < names.length; i++) {
+        values[i] = map(dataOffsets[i], rowCount * types[i].getWidth());
+        if (types[i].isNumeric()) {
+          minima[i] = new double[blocks];
+          maxima[i] = new double[blocks];
+          ByteBuffer index = ByteBuffer.allocate(blocks * 16);
+          readFully(index, indexOffsets[i]);
+          for (int b = 0; b < blocks; b++) {
+            minima[i][b] = index.getDouble();
+            maxima[i][b] = index.getDouble();
+          }
+        }
+        if (nullOffsets[i] >= 0) {
+          ByteBuffer bits =
+              ByteBuffer.allocate((int) ((rowCount + 63) >>> 6) * 8);
+          readFully(bits, nullOffsets[i]);
+          nulls[i] = new long[bits.remaining() / 8];
+          bits.asLongBuffer().get(nulls[i]);
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Map the given area of the file in chunks.
+   *
+   * @param offset
+   *          the offset of the area
+   * @param length
+   *          the length of the area
+   * @return the chunks
+   * @throws IOException
+   *           if mapping fails
+   */
+  private MappedByteBuffer[] map(long offset, long length) throws IOException {
+    int chunks = (int) ((length + CHUNK_MASK) >>> CHUNK_BITS);
+    MappedByteBuffer[] result = new MappedByteBuffer[chunks];
+    for (int c = 0; c < chunks; c++) {
+      long start = (long) c << CHUNK_BITS;
+      result[c] =
+          channel.map(MapMode.READ_ONLY, offset + start,
+              Math.min(CHUNK_MASK + 1, length - start));
+    }
+    return result;
+  }
+
+  /**
+   * Read bytes from the file until the buffer is full.
+   *
+   * @param buffer
+   *          the buffer
+   * @param position
+   *          the position in the file
+   * @throws IOException
+   *           if reading fails
+   */
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, pos);
+      if (read < 0) {
+        throw new IOException("Unexpected end of file.");
+      }
+      pos += read;
+    }
+    buffer.flip();
+  }
+
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+  /**
+   * Gets the number of rows.
+   *
+   * @return the row count
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Gets the number of columns.
+   *
+   * @return the column count
+   */
+  public int getColumnCount() {
+    return names.length;
+  }
+
+  /**
+   * Gets the name of a column.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @return the name
+   */
+  public String getColumnName(int column) {
+    return names[column];
+  }
+
+  /**
+   * Gets the type of a column.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @return the type
+   */
+  public ColumnType getColumnType(int column) {
+    return types[column];
+  }
+
+  /**
+   * Gets the number of rows per block of the min/max index.
+   *
+   * @return the block size
+   */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Gets the number of blocks of the min/max index.
+   *
+   * @return the block count
+   */
+  public int getBlockCount() {
+    return (int) ((rowCount + blockSize - 1) / blockSize);
+  }
+
+  /**
+   * Gets the minimum value of a numeric column in the given block.
+   *
+   * @param column
+   *          the column
+   * @param block
+   *          the block
+   * @return the minimum, positive infinity if the block only contains NaNs
+   *         and null values
+   */
+  public double getBlockMinimum(int column, int block) {
+    return minima[column][block];
+  }
+
+  /**
+   * Gets the maximum value of a numeric column in the given block.
+   *
+   * @param column
+   *          the column
+   * @param block
+   *          the block
+   * @return the maximum, negative infinity if the block only contains NaNs
+   *         and null values
+   */
+  public double getBlockMaximum(int column, int block) {
+    return maxima[column][block];
+  }
+
+  /**
+   * Checks whether the given column contains null values.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @return true, if there is at least one null value
+   */
+  public boolean hasNulls(int column) {
+    return nulls[column] != null;
+  }
+
+  /**
+   * Checks whether the value of the given cell is null.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return true, if the value is null
+   */
+  public boolean isNull(int column, long row) {
+    long[] bits = nulls[column];
+    return bits != null && (bits[(int) (row >>> 6)] & (1L << row)) != 0;
+  }
+
+  /**
+   * Find the first row, starting at the given row, whose value in the given
+   * numeric column lies in the given range (null values never do). Blocks
+   * whose minimum and maximum do not overlap the range are skipped without
+   * reading their values.
+   *
+   * @param column
+   *          the column
+   * @param min
+   *          the lower bound (inclusive)
+   * @param max
+   *          the upper bound (inclusive)
+   * @param fromRow
+   *          the first row to be checked
+   * @return the row, -1 if there is no such row
+   */
+  public long findFirst(int column, double min, double max, long fromRow) {
+    if (!types[column].isNumeric()) {
+      throw new IllegalArgumentException("Column " + names[column]
+          + " is not numeric.");
+    }
+    long row = Math.max(fromRow, 0);
+    while (row < rowCount) {
+      int block = (int) (row / blockSize);
+      long end = Math.min((long) (block + 1) * blockSize, rowCount);
+      if (maxima[column][block] >= min && minima[column][block] <= max) {
+        for (; row < end; row++) {
+          double value = getDouble(column, row);
+          if (value >= min && value <= max && !isNull(column, row)) {
+            return row;
+          }
+        }
+      }
+      row = end;
+    }
+    return -1;
+  }
+
+  /**
+   * Get the raw buffer containing the value of the given cell.
+   *
+   * @param column
+   *          the column
+   * @param offset
+   *          the offset of the value in the column
+   * @return the buffer
+   */
+  private ByteBuffer chunk(int column, long offset) {
+    return values[column][(int) (offset >>> CHUNK_BITS)];
+  }
+
+  /**
+   * Gets the value of the given cell as double.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return the value, 0 for null values
+   * @throws NumberFormatException
+   *           if the value of a string column is not a number
+   */
+  public double getDouble(int column, long row) {
+    if (isNull(column, row)) {
+      return 0;
+    }
+    switch (types[column]) {
+    case DOUBLE:
+      long offset = row << 3;
+      return chunk(column, offset).getDouble((int) (offset & CHUNK_MASK));
+    case STRING:
+      return Double.parseDouble(getString(column, row));
+    default:
+      return getLong(column, row);
+    }
+  }
+
+  /**
+   * Gets the value of the given cell as long. Double values are truncated.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return the value, 0 for null values
+   * @throws NumberFormatException
+   *           if the value of a string column is not a number
+   */
+  public long getLong(int column, long row) {
+    if (isNull(column, row)) {
+      return 0;
+    }
+    long offset;
+    switch (types[column]) {
+    case BOOLEAN:
+      return chunk(column, row).get((int) (row & CHUNK_MASK));
+    case INT:
+      offset = row << 2;
+      return chunk(column, offset).getInt((int) (offset & CHUNK_MASK));
+    case LONG:
+      offset = row << 3;
+      return chunk(column, offset).getLong((int) (offset & CHUNK_MASK));
+    case DOUBLE:
+      return (long) getDouble(column, row);
+    default:
+      return Long.parseLong(getString(column, row));
+    }
+  }
+
+  /**
+   * Gets the value of the given cell as boolean. Numbers are true if they are
+   * not 0, strings are converted like by the {@link FileRowSet}.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return the value, false for null values
+   */
+  public boolean getBoolean(int column, long row) {
+    if (isNull(column, row)) {
+      return false;
+    }
+    switch (types[column]) {
+    case DOUBLE:
+      return getDouble(column, row) != 0;
+    case STRING:
+      String s = getString(column, row);
+      if ("true".equalsIgnoreCase(s)) {
+        return true;
+      }
+      try {
+        return Long.parseLong(s) != 0L;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    default:
+      return getLong(column, row) != 0;
+    }
+  }
+
+  /**
+   * Gets the value of the given cell as string. Numbers are converted using
+   * {@link Long#toString(long)} and {@link Double#toString(double)}, thus for
+   * double columns the result may differ from the text the value had in a CSV
+   * file (e.g., "1.0" instead of "1").
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return the value, null for null values
+   */
+  public String getString(int column, long row) {
+    if (isNull(column, row)) {
+      return null;
+    }
+    switch (types[column]) {
+    case BOOLEAN:
+      return Boolean.toString(getLong(column, row) != 0);
+    case DOUBLE:
+      return Double.toString(getDouble(column, row));
+    case STRING:
+      long offset = row << 3;
+      long start = chunk(column, offset).getLong((int) (offset & CHUNK_MASK));
+      long end;
+      if (row + 1 < rowCount) {
+        offset += 8;
+        end = chunk(column, offset).getLong((int) (offset & CHUNK_MASK));
+      } else {
+        end = heapLengths[column];
+      }
+      ByteBuffer bytes = ByteBuffer.allocate((int) (end - start));
+      try {
+        readFully(bytes, heapOffsets[column] + start);
+      } catch (IOException e) {
+        throw new FileRowSetException(e);
+      }
+      return new String(bytes.array(), ColumnarFileWriter.UTF8);
+    default:
+      return Long.toString(getLong(column, row));
+    }
+  }
+
+  /**
+   * Gets the value of the given cell as object of the type of the column,
+   * i.e., as {@link Boolean}, {@link Integer}, {@link Long}, {@link Double} or
+   * {@link String}.
+   *
+   * @param column
+   *          the column, starting with 0
+   * @param row
+   *          the row, starting with 0
+   * @return the value, null for null values
+   */
+  public Object getObject(int column, long row) {
+    if (isNull(column, row)) {
+      return null;
+    }
+    switch (types[column]) {
+    case BOOLEAN:
+      return getLong(column, row) != 0;
+    case INT:
+      return (int) getLong(column, row);
+    case LONG:
+      return getLong(column, row);
+    case DOUBLE:
+      return getDouble(column, row);
+    default:
+      return getString(column, row);
+    }
+  }
+
+}
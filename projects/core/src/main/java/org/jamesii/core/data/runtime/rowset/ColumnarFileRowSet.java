@@ -0,0 +1,495 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import javax.sql.RowSet;
+import javax.sql.RowSetMetaData;
+import javax.sql.rowset.RowSetMetaDataImpl;
+
+/**
+ * A read-only {@link RowSet} on a {@link ColumnarFile}. It can be used instead
+ * of a {@link FileRowSet} wherever the data is only read (e.g., for result
+ * reports): the values are not parsed from text but read from memory-mapped
+ * fixed-width columns, and moving the cursor to an arbitrary row does not
+ * require to search for line breaks. Existing CSV files can be converted
+ * using the {@link CSVToColumnarConverter}.
+ * <p>
+ * As for the {@link FileRowSet} the {@code dataSource} property is used to
+ * denote the file name to use. In contrast to it, {@link #getObject(int)}
+ * returns the values typed according to the column types (see
+ * {@link ColumnarFile#getObject(int, long)}), the column types are provided
+ * by the metadata, and null values (e.g., empty fields of a converted CSV
+ * file) are reported by {@link #wasNull()}.
+ * <p>
+ * Additionally to the {@link RowSet} methods the cursor can be moved to the
+ * next row whose value in a numeric column lies in a given range (see
+ * {@link #nextInRange(int, double, double)}), using the min/max block index
+ * of the file.
+ */
+public class ColumnarFileRowSet extends AbstractReadOnlyRowSet {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -4467036532281848151L;
+
+  /** The name of the file to operate on. */
+  private String fileName;
+
+  /**
+   * The file. It's transient as there is no guarantee that the file is
+   * available on the target machine.
+   */
+  private transient ColumnarFile file;
+
+  /** This {@link RowSet}'s metadata. */
+  private transient RowSetMetaData metadata;
+
+  /** The number of rows. */
+  private int rowCount;
+
+  /** The current row, 0 means before the first, rowCount+1 after the last. */
+  private int currentRow;
+
+  /** A value indicating that this RowSet was closed. */
+  private boolean closed = true;
+
+  /** A value indicating that the value read last was null. */
+  private boolean lastNull;
+
+  /**
+   * Initialises a new instance of the {@link ColumnarFileRowSet} class. The
+   * file name has to be set before calling {@link #execute()}.
+   */
+  public ColumnarFileRowSet() {
+    super();
+  }
+
+  /**
+   * Initialises a new instance of the {@link ColumnarFileRowSet} class and
+   * opens the given file.
+   *
+   * @param file
+   *          the file
+   * @throws SQLException
+   *           if the file cannot be opened
+   */
+  public ColumnarFileRowSet(File file) throws SQLException {
+    this();
+    setFileName(file.getAbsolutePath());
+    execute();
+  }
+
+  /**
+   * Retrieves the file name of the underlying file.
+   *
+   * @return the file name of the underlying file.
+   */
+  public String getFileName() {
+    return fileName;
+  }
+
+  /**
+   * Sets the file name for this RowSet. This is only valid as long as the file
+   * hasn't yet been opened.
+   *
+   * @param newFileName
+   *          The new file name to use.
+   * @throws UnsupportedOperationException
+   *           if the file was opened already.
+   * @throws NullPointerException
+   *           if the file name was {@code null}.
+   */
+  public void setFileName(String newFileName) {
+    if (file != null) {
+      throw new UnsupportedOperationException(
+          "This method cannot be called once the file was opened.");
+    }
+    if (newFileName == null) {
+      throw new FileRowSetException("The file name may not be null.");
+    }
+    fileName = newFileName;
+  }
+
+  /**
+   * @return the file name of the underlying file.
+   */
+  @Override
+  public String getDataSourceName() {
+    return getFileName();
+  }
+
+  /**
+   * Equivalent to {@link #setFileName(String)}.
+   */
+  @Override
+  public void setDataSourceName(String name) throws SQLException {
+    setFileName(name);
+  }
+
+  /**
+   * Gets the underlying file, e.g., for accessing its block index.
+   *
+   * @return the file, null if not opened yet
+   */
+  public ColumnarFile getColumnarFile() {
+    return file;
+  }
+
+  /**
+   * @throws SQLException
+   *           if no file name was set or the file could not be opened.
+   */
+  @Override
+  public void execute() throws SQLException {
+    if (getFileName() == null) {
+      throw new SQLException(
+          "The file name must be set before calling execute().");
+    }
+    if (file != null) {
+      return;
+    }
+
+    try {
+      file = new ColumnarFile(new File(getFileName()));
+    } catch (IOException e) {
+      throw new SQLException(e);
+    }
+    if (file.getRowCount() > Integer.MAX_VALUE) {
+      long rows = file.getRowCount();
+      close();
+      throw new SQLException("The file contains " + rows
+          + " rows, more than a RowSet can address.");
+    }
+
+    rowCount = (int) file.getRowCount();
+    metadata = createMetaData();
+    currentRow = 0;
+    closed = false;
+  }
+
+  /**
+   * Create the metadata describing the columns of the file.
+   *
+   * @return the metadata
+   * @throws SQLException
+   *           should not happen
+   */
+  private RowSetMetaData createMetaData() throws SQLException {
+    RowSetMetaData md = new RowSetMetaDataImpl();
+    md.setColumnCount(file.getColumnCount());
+    for (int i = 0; i < file.getColumnCount(); i++) {
+      ColumnType type = file.getColumnType(i);
+      md.setColumnName(i + 1, file.getColumnName(i));
+      md.setColumnLabel(i + 1, file.getColumnName(i));
+      md.setColumnType(i + 1, type.getSqlType());
+      md.setColumnTypeName(i + 1, type.name());
+      md.setSigned(i + 1, type == ColumnType.INT || type == ColumnType.LONG
+          || type == ColumnType.DOUBLE);
+      md.setNullable(i + 1, file.hasNulls(i) ? ResultSetMetaData.columnNullable
+          : ResultSetMetaData.columnNoNulls);
+    }
+    return md;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    closed = true;
+    metadata = null;
+    if (file != null) {
+      try {
+        file.close();
+      } catch (IOException e) {
+        throw new SQLException(e);
+      } finally {
+        file = null;
+      }
+    }
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    return closed;
+  }
+
+  /**
+   * Checks that this row set has not been closed.
+   *
+   * @throws SQLException
+   *           if the row set is closed
+   */
+  private void notClosed() throws SQLException {
+    if (closed) {
+      throw new SQLException("The RowSet is closed.");
+    }
+  }
+
+  /**
+   * Checks that the column is valid and the cursor is on a row, and returns
+   * the (0-based) row. Remembers whether the value of the cell is null, see
+   * {@link #wasNull()}.
+   *
+   * @param columnIndex
+   *          the column index
+   * @return the row
+   * @throws SQLException
+   *           if the row set is closed, the column index is invalid or the
+   *           cursor is not on a row
+   */
+  private long row(int columnIndex) throws SQLException {
+    notClosed();
+    if (columnIndex < 1 || columnIndex > file.getColumnCount()) {
+      throw new SQLException(new IndexOutOfBoundsException(
+          "The column index is outside of the valid range."));
+    }
+    if (currentRow < 1 || currentRow > rowCount) {
+      throw new SQLException("The cursor is not on a row.");
+    }
+    long row = currentRow - 1L;
+    lastNull = file.isNull(columnIndex - 1, row);
+    return row;
+  }
+
+  /**
+   * @throws SQLException
+   *           if this method is called once this {@link RowSet} is closed.
+   */
+  @Override
+  public ResultSetMetaData getMetaData() throws SQLException {
+    notClosed();
+    return metadata;
+  }
+
+  @Override
+  public int findColumn(String columnLabel) throws SQLException {
+    notClosed();
+    if (columnLabel == null) {
+      throw new FileRowSetException("The column label must not be null.");
+    }
+    for (int i = 0; i < file.getColumnCount(); i++) {
+      if (columnLabel.equals(file.getColumnName(i))) {
+        return i + 1;
+      }
+    }
+    throw new SQLException(new IllegalArgumentException(
+        "The column label is not valid"));
+  }
+
+  @Override
+  public boolean wasNull() throws SQLException {
+    notClosed();
+    return lastNull;
+  }
+
+  // ==========================================================================
+  // Getters
+  // ==========================================================================
+
+  @Override
+  public String getString(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    return file.getString(columnIndex - 1, row);
+  }
+
+  @Override
+  public boolean getBoolean(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    return file.getBoolean(columnIndex - 1, row);
+  }
+
+  @Override
+  public long getLong(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    try {
+      return file.getLong(columnIndex - 1, row);
+    } catch (NumberFormatException e) {
+      throw new SQLException(e);
+    }
+  }
+
+  @Override
+  public double getDouble(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    try {
+      return file.getDouble(columnIndex - 1, row);
+    } catch (NumberFormatException e) {
+      throw new SQLException(e);
+    }
+  }
+
+  @Override
+  public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    if (lastNull) {
+      return null;
+    }
+    switch (file.getColumnType(columnIndex - 1)) {
+    case INT:
+    case LONG:
+      return BigDecimal.valueOf(file.getLong(columnIndex - 1, row));
+    case DOUBLE:
+      return BigDecimal.valueOf(file.getDouble(columnIndex - 1, row));
+    default:
+      return super.getBigDecimal(columnIndex);
+    }
+  }
+
+  @Override
+  public Object getObject(int columnIndex) throws SQLException {
+    long row = row(columnIndex);
+    return file.getObject(columnIndex - 1, row);
+  }
+
+  // ==========================================================================
+  // Cursor movement
+  // ==========================================================================
+
+  @Override
+  public boolean next() throws SQLException {
+    notClosed();
+    if (currentRow <= rowCount) {
+      currentRow++;
+    }
+    return currentRow <= rowCount;
+  }
+
+  @Override
+  public boolean previous() throws SQLException {
+    notClosed();
+    if (currentRow > 0) {
+      currentRow--;
+    }
+    return currentRow > 0;
+  }
+
+  @Override
+  public boolean first() throws SQLException {
+    return absolute(1);
+  }
+
+  @Override
+  public boolean last() throws SQLException {
+    return absolute(-1);
+  }
+
+  @Override
+  public void beforeFirst() throws SQLException {
+    notClosed();
+    currentRow = 0;
+  }
+
+  @Override
+  public void afterLast() throws SQLException {
+    notClosed();
+    currentRow = rowCount + 1;
+  }
+
+  @Override
+  public boolean absolute(int row) throws SQLException {
+    notClosed();
+    long target = row >= 0 ? row : (long) rowCount + 1 + row;
+    if (target < 1) {
+      currentRow = 0;
+      return false;
+    }
+    if (target > rowCount) {
+      currentRow = rowCount + 1;
+      return false;
+    }
+    currentRow = (int) target;
+    return true;
+  }
+
+  @Override
+  public boolean relative(int rows) throws SQLException {
+    notClosed();
+    long target = (long) currentRow + rows;
+    if (target < 1) {
+      currentRow = 0;
+      return false;
+    }
+    if (target > rowCount) {
+      currentRow = rowCount + 1;
+      return false;
+    }
+    currentRow = (int) target;
+    return true;
+  }
+
+  @Override
+  public int getRow() throws SQLException {
+    notClosed();
+    return currentRow >= 1 && currentRow <= rowCount ? currentRow : 0;
+  }
+
+  @Override
+  public boolean isBeforeFirst() throws SQLException {
+    notClosed();
+    return rowCount > 0 && currentRow == 0;
+  }
+
+  @Override
+  public boolean isAfterLast() throws SQLException {
+    notClosed();
+    return rowCount > 0 && currentRow > rowCount;
+  }
+
+  @Override
+  public boolean isFirst() throws SQLException {
+    notClosed();
+    return rowCount > 0 && currentRow == 1;
+  }
+
+  @Override
+  public boolean isLast() throws SQLException {
+    notClosed();
+    return rowCount > 0 && currentRow == rowCount;
+  }
+
+  /**
+   * Move the cursor to the next row whose value in the given numeric column
+   * lies in the given range. Blocks of rows are skipped using the min/max
+   * index of the file, see {@link ColumnarFile#findFirst(int, double, double,
+   * long)}.
+   *
+   * @param columnIndex
+   *          the column index, starting with 1
+   * @param min
+   *          the lower bound (inclusive)
+   * @param max
+   *          the upper bound (inclusive)
+   * @return true, if there is such a row, false if the cursor has been moved
+   *         after the last row
+   * @throws SQLException
+   *           if the row set is closed or the column is invalid
+   */
+  public boolean nextInRange(int columnIndex, double min, double max)
+      throws SQLException {
+    notClosed();
+    if (columnIndex < 1 || columnIndex > file.getColumnCount()) {
+      throw new SQLException(new IndexOutOfBoundsException(
+          "The column index is outside of the valid range."));
+    }
+    long row;
+    try {
+      row = file.findFirst(columnIndex - 1, min, max, currentRow);
+    } catch (IllegalArgumentException e) {
+      throw new SQLException(e);
+    }
+    if (row < 0) {
+      afterLast();
+      return false;
+    }
+    currentRow = (int) row + 1;
+    return true;
+  }
+
+}
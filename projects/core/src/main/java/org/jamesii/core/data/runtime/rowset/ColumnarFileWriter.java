@@ -0,0 +1,653 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link ColumnarFile} row by row. The values of a row have to be
+ * written column by column using the typed write methods (or
+ * {@link #writeParsed(String)} and {@link #writeNull()}); the row is finished
+ * as soon as the value of the last column has been written.<br/>
+ * While writing, the values of each column are collected in a temporary file
+ * next to the target file, and the minimum and maximum of each block of rows
+ * is computed for the numeric columns. On {@link #close()} the target file is
+ * assembled from the header, the temporary files and the block index.
+ *
+ * @see ColumnarFile
+ */
+public class ColumnarFileWriter implements Closeable {
+
+  /** The magic number at the beginning of a columnar file ("JCOL"). */
+  static final int MAGIC = 0x4A434F4C;
+
+  /** The version of the file format. */
+  static final int VERSION = 2;
+
+  /** The default number of rows per block of the min/max index. */
+  public static final int DEFAULT_BLOCK_SIZE = 4096;
+
+  /** The charset of the strings. */
+  static final Charset UTF8 = Charset.forName("UTF-8");
+
+  /** The file to be written. */
+  private final File file;
+
+  /** The names of the columns. */
+  private final String[] names;
+
+  /** The types of the columns. */
+  private final ColumnType[] types;
+
+  /** The number of rows per block. */
+  private final int blockSize;
+
+  /** The temporary files for the values. */
+  private final File[] dataFiles;
+
+  /** The streams to the temporary value files. */
+  private final DataOutputStream[] data;
+
+  /** The temporary files for the strings (null for other columns). */
+  private final File[] heapFiles;
+
+  /** The streams to the temporary string files. */
+  private final DataOutputStream[] heaps;
+
+  /** The number of bytes written to the string files. */
+  private final long[] heapLengths;
+
+  /** The minimum values per block, per column. */
+  private final double[][] minima;
+
+  /** The maximum values per block, per column. */
+  private final double[][] maxima;
+
+  /**
+   * The rows with null values, as bit set per column (null for columns
+   * without null values).
+   */
+  private final long[][] nulls;
+
+  /** The number of complete rows. */
+  private long rowCount;
+
+  /** The column to be written next. */
+  private int column;
+
+  /** Flag whether the writer has been closed. */
+  private boolean closed;
+
+  /**
+   * Instantiates a new writer using the {@link #DEFAULT_BLOCK_SIZE}.
+   *
+   * @param file
+   *          the file to be written
+   * @param names
+   *          the names of the columns
+   * @param types
+   *          the types of the columns
+   * @throws IOException
+   *           if the temporary files cannot be created
+   */
+  public ColumnarFileWriter(File file, String[] names, ColumnType[] types)
+      throws IOException {
+    this(file, names, types, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Instantiates a new writer.
+   *
+   * @param file
+   *          the file to be written
+   * @param names
+   *          the names of the columns
+   * @param types
+   *          the types of the columns
+   * @param blockSize
+   *          the number of rows per block of the min/max index
+   * @throws IOException
+   *           if the temporary files cannot be created
+   */
+  public ColumnarFileWriter(File file, String[] names, ColumnType[] types,
+      int blockSize) throws IOException {
+    if (names.length == 0 || names.length != types.length) {
+      throw new IllegalArgumentException(
+          "There has to be a type for each column, and at least one column.");
+    }
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("The block size must be positive.");
+    }
+    this.file = file;
+    this.names = names.clone();
+    this.types = types.clone();
+    this.blockSize = blockSize;
+
+    int count = names.length;
+    dataFiles = new File[count];
+    data = new DataOutputStream[count];
+    heapFiles = new File[count];
+    heaps = new DataOutputStream[count];
+    heapLengths = new long[count];
+    minima = new double[count][];
+    maxima = new double[count][];
+    nulls = new long[count][];
+
+    File dir = file.getAbsoluteFile().getParentFile();
+    try {
+      for (int i = 0; i < count; i++) {
+        dataFiles[i] = File.createTempFile(file.getName(), ".col", dir);
+        data[i] = open(dataFiles[i]);
+        if (types[i].isNumeric()) {
+          minima[i] = new double[16];
+          maxima[i] = new double[16];
+        } else {
+          heapFiles[i] = File.createTempFile(file.getName(), ".str", dir);
+          heaps[i] = open(heapFiles[i]);
+        }
+      }
+    } catch (IOException e) {
+      discard();
+      throw e;
+    }
+  }
+
+  /**
+   * Open a buffered stream to the given file.
+   *
+   * @param f
+   *          the file
+   * @return the stream
+   * @throws IOException
+   *           if the file cannot be opened
+   */
+  private static DataOutputStream open(File f) throws IOException {
+    return new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(f), 64 * 1024));
+  }
+
+  /**
+   * Gets the number of rows written so far.
+   *
+   * @return the row count
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Write a boolean value to the next column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeBoolean(boolean value) throws IOException {
+    int c = nextColumn();
+    switch (types[c]) {
+    case BOOLEAN:
+      data[c].writeByte(value ? 1 : 0);
+      break;
+    case STRING:
+      writeStringValue(c, Boolean.toString(value));
+      break;
+    default:
+      writeNumber(c, value ? 1 : 0);
+    }
+    finishValue(c, value ? 1 : 0);
+  }
+
+  /**
+   * Write a long value to the next column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeLong(long value) throws IOException {
+    int c = nextColumn();
+    if (types[c] == ColumnType.STRING) {
+      writeStringValue(c, Long.toString(value));
+    } else {
+      writeNumber(c, value);
+    }
+    finishValue(c, value);
+  }
+
+  /**
+   * Write an int value to the next column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeInt(int value) throws IOException {
+    writeLong(value);
+  }
+
+  /**
+   * Write a double value to the next column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeDouble(double value) throws IOException {
+    int c = nextColumn();
+    switch (types[c]) {
+    case DOUBLE:
+      data[c].writeDouble(value);
+      break;
+    case STRING:
+      writeStringValue(c, Double.toString(value));
+      break;
+    default:
+      throw new IllegalArgumentException("Column " + names[c] + " is of type "
+          + types[c] + ", a double value cannot be stored.");
+    }
+    finishValue(c, value);
+  }
+
+  /**
+   * Write a string to the next column. The column has to be of type
+   * {@link ColumnType#STRING}, see {@link #writeParsed(String)} for converting
+   * strings to the type of the column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeString(String value) throws IOException {
+    int c = nextColumn();
+    if (types[c] != ColumnType.STRING) {
+      throw new IllegalArgumentException("Column " + names[c] + " is of type "
+          + types[c] + ", use writeParsed to convert strings.");
+    }
+    writeStringValue(c, value);
+    finishValue(c, 0);
+  }
+
+  /**
+   * Write the given string converted to the type of the next column.
+   *
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   * @throws NumberFormatException
+   *           if the value cannot be converted to the numeric type of the
+   *           column
+   */
+  public void writeParsed(String value) throws IOException {
+    switch (types[column]) {
+    case BOOLEAN:
+      writeBoolean(Boolean.parseBoolean(value));
+      break;
+    case INT:
+      writeInt(Integer.parseInt(value));
+      break;
+    case LONG:
+      writeLong(Long.parseLong(value));
+      break;
+    case DOUBLE:
+      writeDouble(Double.parseDouble(value));
+      break;
+    default:
+      writeString(value);
+    }
+  }
+
+  /**
+   * Write a null value to the next column. The null value is not taken into
+   * account by the block index.
+   *
+   * @throws IOException
+   *           if writing fails
+   */
+  public void writeNull() throws IOException {
+    int c = nextColumn();
+    switch (types[c]) {
+    case DOUBLE:
+      data[c].writeDouble(Double.NaN);
+      break;
+    case STRING:
+      writeStringValue(c, "");
+      break;
+    default:
+      writeNumber(c, 0);
+    }
+    int word = (int) (rowCount >>> 6);
+    if (nulls[c] == null) {
+      nulls[c] = new long[Math.max(word + 1, 16)];
+    } else if (word >= nulls[c].length) {
+      nulls[c] = Arrays.copyOf(nulls[c], Math.max(word + 1,
+          nulls[c].length * 2));
+    }
+    nulls[c][word] |= 1L << rowCount;
+    // NaN is ignored by the block index
+    finishValue(c, Double.NaN);
+  }
+
+  /**
+   * Get the next column to be written.
+   *
+   * @return the column
+   */
+  private int nextColumn() {
+    if (closed) {
+      throw new IllegalStateException("The writer has been closed.");
+    }
+    return column;
+  }
+
+  /**
+   * Write a number to an integral column.
+   *
+   * @param c
+   *          the column
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  private void writeNumber(int c, long value) throws IOException {
+    switch (types[c]) {
+    case BOOLEAN:
+      data[c].writeByte(value != 0 ? 1 : 0);
+      break;
+    case INT:
+      if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+        throw new IllegalArgumentException("Value " + value
+            + " does not fit into int column " + names[c]);
+      }
+      data[c].writeInt((int) value);
+      break;
+    case LONG:
+      data[c].writeLong(value);
+      break;
+    default:
+      data[c].writeDouble(value);
+    }
+  }
+
+  /**
+   * Write a string to a string column.
+   *
+   * @param c
+   *          the column
+   * @param value
+   *          the value
+   * @throws IOException
+   *           if writing fails
+   */
+  private void writeStringValue(int c, String value) throws IOException {
+    byte[] bytes = (value == null ? "" : value).getBytes(UTF8);
+    data[c].writeLong(heapLengths[c]);
+    heaps[c].write(bytes);
+    heapLengths[c] += bytes.length;
+  }
+
+  /**
+   * Update the block index of the column and move to the next column.
+   *
+   * @param c
+   *          the column
+   * @param value
+   *          the numeric value written
+   */
+  private void finishValue(int c, double value) {
+    if (types[c].isNumeric()) {
+      int block = (int) (rowCount / blockSize);
+      if (block >= minima[c].length) {
+        minima[c] = Arrays.copyOf(minima[c], minima[c].length * 2);
+        maxima[c] = Arrays.copyOf(maxima[c], maxima[c].length * 2);
+      }
+      if (rowCount % blockSize == 0) {
+        minima[c][block] = Double.POSITIVE_INFINITY;
+        maxima[c][block] = Double.NEGATIVE_INFINITY;
+      }
+      // NaN is neither the minimum nor the maximum
+      if (value < minima[c][block]) {
+        minima[c][block] = value;
+      }
+      if (value > maxima[c][block]) {
+        maxima[c][block] = value;
+      }
+    }
+    column++;
+    if (column == types.length) {
+      column = 0;
+      rowCount++;
+    }
+  }
+
+  /**
+   * Finish the file. The row currently written has to be complete.
+   *
+   * @throws IOException
+   *           if writing the file fails
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (column != 0) {
+        throw new IOException("The last row is incomplete, only " + column
+            + " of " + types.length + " values have been written.");
+      }
+      for (int i = 0; i < types.length; i++) {
+        data[i].close();
+        if (heaps[i] != null) {
+          heaps[i].close();
+        }
+      }
+      assemble();
+    } finally {
+      discard();
+    }
+  }
+
+  /**
+   * Write the target file from the temporary files.
+   *
+   * @throws IOException
+   *           if writing fails
+   */
+  private void assemble() throws IOException {
+    int blocks = (int) ((rowCount + blockSize - 1) / blockSize);
+    int nullWords = (int) ((rowCount + 63) >>> 6);
+    long[] dataOffsets = new long[types.length];
+    long[] heapOffsets = new long[types.length];
+    long[] indexOffsets = new long[types.length];
+    long[] nullOffsets = new long[types.length];
+
+    // the header has the same size independent from the offsets
+    long offset =
+        header(dataOffsets, heapOffsets, indexOffsets, nullOffsets).length;
+    for (int i = 0; i < types.length; i++) {
+      dataOffsets[i] = offset;
+      offset += rowCount * types[i].getWidth();
+      heapOffsets[i] = offset;
+      offset += heapLengths[i];
+      indexOffsets[i] = offset;
+      if (types[i].isNumeric()) {
+        offset += blocks * 16L;
+      }
+      if (nulls[i] != null) {
+        nullOffsets[i] = offset;
+        offset += nullWords * 8L;
+      } else {
+        nullOffsets[i] = -1;
+      }
+    }
+
+    try (FileOutputStream out = new FileOutputStream(file);
+        FileChannel channel = out.getChannel()) {
+      writeFully(channel, ByteBuffer.wrap(header(dataOffsets, heapOffsets,
+          indexOffsets, nullOffsets)));
+      for (int i = 0; i < types.length; i++) {
+        transfer(dataFiles[i], channel);
+        if (heapFiles[i] != null) {
+          transfer(heapFiles[i], channel);
+        } else {
+          ByteBuffer index = ByteBuffer.allocate(blocks * 16);
+          for (int b = 0; b < blocks; b++) {
+            index.putDouble(minima[i][b]);
+            index.putDouble(maxima[i][b]);
+          }
+          index.flip();
+          writeFully(channel, index);
+        }
+        if (nulls[i] != null) {
+          ByteBuffer bits = ByteBuffer.allocate(nullWords * 8);
+          for (int w = 0; w < nullWords; w++) {
+            bits.putLong(w < nulls[i].length ? nulls[i][w] : 0);
+          }
+          bits.flip();
+          writeFully(channel, bits);
+        }
+      }
+    }
+  }
+
+  /**
+   * Create the header of the file.
+   *
+   * @param dataOffsets
+   *          the offsets of the values of the columns
+   * @param heapOffsets
+   *          the offsets of the strings of the columns
+   * @param indexOffsets
+   *          the offsets of the block indexes of the columns
+   * @param nullOffsets
+   *          the offsets of the null bit sets of the columns, -1 for columns
+   *          without null values
+   * @return the header
+   * @throws IOException
+   *           should not happen
+   */
+  private byte[] header(long[] dataOffsets, long[] heapOffsets,
+      long[] indexOffsets, long[] nullOffsets) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(rowCount);
+      out.writeInt(types.length);
+      out.writeInt(blockSize);
+      for (int i = 0; i < types.length; i++) {
+        out.writeUTF(names[i]);
+        out.writeByte(types[i].getCode());
+        out.writeLong(dataOffsets[i]);
+        out.writeLong(heapOffsets[i]);
+        out.writeLong(heapLengths[i]);
+        out.writeLong(indexOffsets[i]);
+        out.writeLong(nullOffsets[i]);
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Append the content of the given file to the channel.
+   *
+   * @param source
+   *          the file
+   * @param target
+   *          the channel
+   * @throws IOException
+   *           if copying fails
+   */
+  private static void transfer(File source, FileChannel target)
+      throws IOException {
+    try (FileInputStream in = new FileInputStream(source);
+        FileChannel channel = in.getChannel()) {
+      long size = channel.size();
+      long position = 0;
+      while (position < size) {
+        position += channel.transferTo(position, size - position, target);
+      }
+    }
+  }
+
+  /**
+   * Write the whole buffer to the channel.
+   *
+   * @param channel
+   *          the channel
+   * @param buffer
+   *          the buffer
+   * @throws IOException
+   *           if writing fails
+   */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * Close and delete the temporary files.
+   */
+  private void discard() {
+    for (int i = 0; i < dataFiles.length; i++) {
+      close(data[i]);
+      close(heaps[i]);
+      delete(dataFiles[i]);
+      delete(heapFiles[i]);
+    }
+  }
+
+  /**
+   * Close the given stream, ignoring errors.
+   *
+   * @param stream
+   *          the stream, may be null
+   */
+  private static void close(Closeable stream) {
+    if (stream != null) {
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // the content is not needed any more
+      }
+    }
+  }
+
+  /**
+   * Delete the given file.
+   *
+   * @param f
+   *          the file, may be null
+   */
+  private static void delete(File f) {
+    if (f != null && f.exists() && !f.delete()) {
+      f.deleteOnExit();
+    }
+  }
+
+}
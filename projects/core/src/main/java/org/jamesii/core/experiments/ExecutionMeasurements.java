@@ -87,6 +87,24 @@ public class ExecutionMeasurements extends Entity {
     SimSystem.report(Level.FINEST, message1);
   }
 
+  /**
+   * Signals that the model has been copied from a cached model template.
+   */
+  public void modelCacheHit() {
+    info.setModelCacheHits(info.getModelCacheHits() + 1);
+    SimSystem.report(Level.FINEST, getIdentification()
+        + "Model copied from cached template");
+  }
+
+  /**
+   * Signals that the model has been read to create a cached model template.
+   */
+  public void modelCacheMiss() {
+    info.setModelCacheMisses(info.getModelCacheMisses() + 1);
+    SimSystem.report(Level.FINEST, getIdentification()
+        + "Model read to create a cached template");
+  }
+
   /**
    * Signals start of simulation creation.
    */
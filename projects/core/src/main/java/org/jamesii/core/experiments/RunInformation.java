@@ -58,6 +58,12 @@ public class RunInformation implements Serializable {
   /** The estimated memory consumed by the computation (at startup). */
   private long computationMemory = 0;
 
+  /** The number of models copied from a cached model template. */
+  private long modelCacheHits = 0;
+
+  /** The number of models read to create a cached model template. */
+  private long modelCacheMisses = 0;
+
   /**
    * Flag denoting whether the executed run was the final run of the
    * configuration.
@@ -417,6 +423,45 @@ public class RunInformation implements Serializable {
     this.computationTaskRunTime = computationTaskRunTime;
   }
 
+  /**
+   * Sets the number of models copied from a cached model template.
+   * 
+   * @param modelCacheHits
+   *          the modelCacheHits to set
+   */
+  protected void setModelCacheHits(long modelCacheHits) {
+    this.modelCacheHits = modelCacheHits;
+  }
+
+  /**
+   * Gets the number of models copied from a cached model template.
+   * 
+   * @return the modelCacheHits
+   */
+  public long getModelCacheHits() {
+    return modelCacheHits;
+  }
+
+  /**
+   * Sets the number of models read to create a cached model template.
+   * 
+   * @param modelCacheMisses
+   *          the modelCacheMisses to set
+   */
+  protected void setModelCacheMisses(long modelCacheMisses) {
+    this.modelCacheMisses = modelCacheMisses;
+  }
+
+  /**
+   * Gets the number of models read to create a cached model template. Runs
+   * whose models cannot be cached count neither as hit nor as miss.
+   * 
+   * @return the modelCacheMisses
+   */
+  public long getModelCacheMisses() {
+    return modelCacheMisses;
+  }
+
   /**
    * Sets the total memory.
    * 
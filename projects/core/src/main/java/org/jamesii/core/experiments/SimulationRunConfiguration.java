@@ -6,6 +6,7 @@
  */
 package org.jamesii.core.experiments;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -23,11 +24,15 @@ import org.jamesii.core.experiments.instrumentation.model.IModelInstrumenter;
 import org.jamesii.core.experiments.tasks.ComputationTaskIDObject;
 import org.jamesii.core.experiments.tasks.setup.IComputationTaskSetup;
 import org.jamesii.core.experiments.tasks.stoppolicy.plugintype.ComputationTaskStopPolicyFactory;
+import org.jamesii.core.base.IEntity;
 import org.jamesii.core.model.IModel;
+import org.jamesii.core.observe.AsynchronousMediator;
+import org.jamesii.core.observe.AsynchronousMediator.Backpressure;
 import org.jamesii.core.observe.IObservable;
 import org.jamesii.core.observe.IObserver;
 import org.jamesii.core.observe.IStoringObserver;
 import org.jamesii.core.observe.Mediator;
+import org.jamesii.core.parameters.ImmutableParameterBlock;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.serialization.IConstructorParameterProvider;
 import org.jamesii.core.serialization.SerialisationUtils;
@@ -111,6 +116,9 @@ public class SimulationRunConfiguration implements
   /** List of all observers for the computation task. */
   private final transient List<IObserver<? extends IObservable>> computationTaskObservers;
 
+  /** The asynchronous mediators created for the instrumented entities. */
+  private transient List<AsynchronousMediator> asynchronousMediators;
+
   /** Factory class of the data storage used by all storage observers. */
   private final Class<? extends DataStorageFactory> dataStorageFactoryClass;
 
@@ -264,7 +272,7 @@ public class SimulationRunConfiguration implements
       return;
     }
 
-    Mediator.create(model);
+    createMediator(model);
 
     for (IModelInstrumenter modelInstrumenter : modelInstrumenters) {
       modelInstrumenter.instrumentModel(model, this);
@@ -298,7 +306,7 @@ public class SimulationRunConfiguration implements
       return;
     }
     
-    Mediator.create(simulation);
+    createMediator(simulation);
 
     for (IComputationInstrumenter simInstrumenter : computationTaskInstrumenters) {
       simInstrumenter.instrumentComputation(simulation);
@@ -313,6 +321,54 @@ public class SimulationRunConfiguration implements
     }
   }
 
+  /**
+   * Creates the mediator of the given entity if it is not mediated already.
+   * Depending on the {@link ParameterUtils#ASYNCHRONOUS_OBSERVATION} flag this
+   * is a {@link Mediator} or an {@link AsynchronousMediator}.
+   * 
+   * @param entity
+   *          the entity to be mediated
+   */
+  protected void createMediator(IEntity entity) {
+    if (!execParams.getSubBlockValue(ParameterUtils.ASYNCHRONOUS_OBSERVATION,
+        false)) {
+      Mediator.create(entity);
+      return;
+    }
+    AsynchronousMediator mediator =
+        AsynchronousMediator.create(entity, execParams.getSubBlockValue(
+            ParameterUtils.OBSERVATION_BUFFER_SIZE,
+            AsynchronousMediator.DEFAULT_CAPACITY), execParams
+            .getSubBlockValue(ParameterUtils.OBSERVATION_BACKPRESSURE,
+                Backpressure.BLOCK));
+    if (mediator != null) {
+      if (asynchronousMediators == null) {
+        asynchronousMediators = new ArrayList<>();
+      }
+      asynchronousMediators.add(mediator);
+    }
+  }
+
+  /**
+   * Dispatches all pending notifications of asynchronous mediators created by
+   * this configuration and stops them. Has to be called before the results of
+   * the observers are used.
+   */
+  public void finishObservation() {
+    if (asynchronousMediators == null) {
+      return;
+    }
+    for (AsynchronousMediator mediator : asynchronousMediators) {
+      mediator.close();
+      if (mediator.getDroppedNotifications() > 0) {
+        SimSystem.report(Level.INFO, mediator.getDroppedNotifications()
+            + " notifications have been dropped by the observation of "
+            + getComputationTaskID());
+      }
+    }
+    asynchronousMediators = null;
+  }
+
   @Override
   public ParameterBlock getAbsModelReaderFactoryParams() {
     return defensiveCopy(absModelReaderFactoryParams);
@@ -545,7 +601,8 @@ public class SimulationRunConfiguration implements
   }
 
   /**
-   * Returns a defensive copy of a parameter block, or null.
+   * Returns a defensive copy of a parameter block, or null. Immutable
+   * parameter blocks are returned as they are.
    * 
    * @param paramBlock
    *          the param block
@@ -553,8 +610,8 @@ public class SimulationRunConfiguration implements
    * @return the parameter block
    */
   private ParameterBlock defensiveCopy(ParameterBlock paramBlock) {
-    if (paramBlock == null) {
-      return null;
+    if (paramBlock == null || paramBlock instanceof ImmutableParameterBlock) {
+      return paramBlock;
     }
     return paramBlock.getCopy();
   }
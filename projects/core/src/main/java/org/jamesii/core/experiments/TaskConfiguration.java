@@ -37,6 +37,7 @@ import org.jamesii.core.experiments.tasks.stoppolicy.plugintype.ComputationTaskS
 import org.jamesii.core.model.variables.BaseVariable;
 import org.jamesii.core.observe.IObservable;
 import org.jamesii.core.observe.IObserver;
+import org.jamesii.core.parameters.ImmutableParameterBlock;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.parameters.ParameterBlocks;
 import org.jamesii.core.parameters.ParameterizedFactory;
@@ -663,13 +664,13 @@ public class TaskConfiguration implements Serializable,
             getParametersCopy(),
             (dataStorageFactory != null && dataStorageFactory.isInitialized()) ? dataStorageFactory
                 .getFactoryInstance().getClass() : null,
-            (dataStorageFactory != null) ? attemptDeepCopy(dataStorageFactory
+            (dataStorageFactory != null) ? share(dataStorageFactory
                 .getParameters()) : null,
             (taskStopPolicyFactory != null) ? taskStopPolicyFactory
                 .getFactoryInstance().getClass() : null,
-            (taskStopPolicyFactory != null) ? attemptDeepCopy(taskStopPolicyFactory
-                .getParameter()) : null, attemptDeepCopy(modelReaderParams),
-            attemptDeepCopy(customReaderParams), attemptDeepCopy(execParams),
+            (taskStopPolicyFactory != null) ? share(taskStopPolicyFactory
+                .getParameter()) : null, share(modelReaderParams),
+            share(customReaderParams), share(execParams),
             getMasterServer(), attemptDeepCopy(modelObservers),
             createModelInstrumenters(), attemptDeepCopy(simulationObservers),
             createComputationInstrumenters(), setup);
@@ -715,6 +716,26 @@ public class TaskConfiguration implements Serializable,
     return result;
   }
 
+  /**
+   * Returns a parameter block which can be handed to a computation task
+   * configuration. Blocks containing immutable values only are shared as
+   * {@link ImmutableParameterBlock} (which is cheap, and free if the block is
+   * immutable already), all others are copied by
+   * {@link #attemptDeepCopy(ParameterBlock)}.
+   * 
+   * @param pBlock
+   *          the parameter block, might be null
+   * 
+   * @return the block to be used by the computation task configuration
+   */
+  private ParameterBlock share(ParameterBlock pBlock) {
+    if (pBlock == null) {
+      return null;
+    }
+    ParameterBlock result = ImmutableParameterBlock.freeze(pBlock);
+    return result != null ? result : attemptDeepCopy(pBlock);
+  }
+
   /**
    * This method attempts to create a deep copy of a parameter block. It is
    * recursively trying to create a deep copy of the parameter block and its sub
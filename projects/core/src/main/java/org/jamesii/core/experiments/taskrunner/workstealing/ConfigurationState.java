@@ -0,0 +1,255 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jamesii.core.data.model.IModelReader;
+import org.jamesii.core.experiments.ComputationTaskRuntimeInformation;
+import org.jamesii.core.experiments.IExperimentExecutionController;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.experiments.taskrunner.workstealing.TaskRunnerMetrics.ConfigurationMetrics;
+
+/**
+ * The state of a task configuration executed by the
+ * {@link WorkStealingComputationTaskRunner}.
+ * <p>
+ * Finished replications are handled without locking: they are added to a
+ * queue, and the thread which finds the queue empty before becomes the one
+ * processing the queue (and thus the replication criterion) until it is
+ * empty. The replications of a configuration are thus processed one after the
+ * other, while those of different configurations are processed concurrently
+ * by the workers that finished them, without a dedicated thread.
+ */
+class ConfigurationState {
+
+  /**
+   * A finished replication.
+   */
+  static class Completion {
+
+    /** The job, null if the replication has been skipped. */
+    private final ReplicationJob job;
+
+    /** The results. */
+    private final RunInformation results;
+
+    /**
+     * Instantiates a new completion.
+     *
+     * @param job
+     *          the job, null if skipped
+     * @param results
+     *          the results, null if skipped
+     */
+    Completion(ReplicationJob job, RunInformation results) {
+      this.job = job;
+      this.results = results;
+    }
+
+    /**
+     * @return the job, null if the replication has been skipped
+     */
+    ReplicationJob getJob() {
+      return job;
+    }
+
+    /**
+     * @return the runtime information, null if the replication has been
+     *         skipped
+     */
+    ComputationTaskRuntimeInformation getRuntimeInfo() {
+      return job == null ? null : job.getRuntimeInfo();
+    }
+
+    /**
+     * @return the results, null if the replication has been skipped
+     */
+    RunInformation getResults() {
+      return results;
+    }
+  }
+
+  /** The task configuration. */
+  private final TaskConfiguration config;
+
+  /** The execution controller of the configuration. */
+  private final IExperimentExecutionController controller;
+
+  /** The model reader to be used. */
+  private final IModelReader modelReader;
+
+  /** The metrics of the configuration. */
+  private final ConfigurationMetrics metrics;
+
+  /** The jobs currently executed. */
+  private final Set<ReplicationJob> activeJobs = Collections
+      .newSetFromMap(new ConcurrentHashMap<ReplicationJob, Boolean>());
+
+  /** The finished replications not yet processed. */
+  private final Queue<Completion> completions = new ConcurrentLinkedQueue<>();
+
+  /** The number of completions added but not processed. */
+  private final AtomicInteger pendingCompletions = new AtomicInteger();
+
+  /**
+   * The results of the executed replications. Accessed by the thread
+   * processing the completions only.
+   */
+  private final List<RunInformation> runInfos = new ArrayList<>();
+
+  /** The number of replications scheduled but not processed yet. */
+  private int outstanding;
+
+  /** Flag set if the configuration has been cancelled. */
+  private volatile boolean cancelled;
+
+  /**
+   * Instantiates a new configuration state.
+   *
+   * @param config
+   *          the task configuration
+   * @param controller
+   *          the execution controller
+   * @param modelReader
+   *          the model reader
+   * @param metrics
+   *          the metrics
+   */
+  ConfigurationState(TaskConfiguration config,
+      IExperimentExecutionController controller, IModelReader modelReader,
+      ConfigurationMetrics metrics) {
+    this.config = config;
+    this.controller = controller;
+    this.modelReader = modelReader;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Adds a finished replication. The completions are processed by the given
+   * runner, either directly or by the thread currently processing the
+   * completions of this configuration.
+   *
+   * @param completion
+   *          the completion
+   * @param runner
+   *          the runner
+   */
+  void completed(Completion completion,
+      WorkStealingComputationTaskRunner runner) {
+    completions.add(completion);
+    if (pendingCompletions.getAndIncrement() != 0) {
+      // another thread is processing the completions
+      return;
+    }
+    do {
+      runner.processCompletion(this, completions.poll());
+    } while (pendingCompletions.decrementAndGet() != 0);
+  }
+
+  /**
+   * Adds the given number of replications to the outstanding ones.
+   *
+   * @param replications
+   *          the number of replications
+   */
+  void plan(int replications) {
+    outstanding += replications;
+  }
+
+  /**
+   * Records a processed replication.
+   *
+   * @param results
+   *          the results, null if it has been skipped
+   */
+  void processed(RunInformation results) {
+    if (results != null) {
+      runInfos.add(results);
+    }
+    outstanding--;
+  }
+
+  /**
+   * Checks whether all replications planned have been processed. If so, the
+   * replication criterion has to be asked for more.
+   *
+   * @return true, if there are no outstanding replications
+   */
+  boolean isFinished() {
+    return outstanding == 0;
+  }
+
+  /**
+   * @return the results of the replications processed so far
+   */
+  List<RunInformation> getRunInfos() {
+    return runInfos;
+  }
+
+  /**
+   * @return the task configuration
+   */
+  TaskConfiguration getConfig() {
+    return config;
+  }
+
+  /**
+   * @return the execution controller
+   */
+  IExperimentExecutionController getController() {
+    return controller;
+  }
+
+  /**
+   * @return the model reader
+   */
+  IModelReader getModelReader() {
+    return modelReader;
+  }
+
+  /**
+   * @return the metrics
+   */
+  ConfigurationMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * @return the jobs currently executed
+   */
+  Set<ReplicationJob> getActiveJobs() {
+    return activeJobs;
+  }
+
+  /**
+   * @return true, if the configuration has been cancelled
+   */
+  boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Cancels the configuration: no further replications are started, the
+   * active ones are cancelled.
+   */
+  void cancel() {
+    cancelled = true;
+    for (ReplicationJob job : activeJobs) {
+      job.cancel();
+    }
+  }
+
+}
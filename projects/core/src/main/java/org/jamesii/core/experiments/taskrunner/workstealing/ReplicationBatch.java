@@ -0,0 +1,87 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.concurrent.RecursiveAction;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.taskrunner.workstealing.ConfigurationState.Completion;
+
+/**
+ * A batch of replications of the same task configuration, executed one after
+ * the other by a worker of the {@link WorkStealingComputationTaskRunner}.
+ * Batching short replications reduces the scheduling overhead per
+ * replication. If other workers run out of work, the remaining replications
+ * of a batch are split off and can be stolen.
+ */
+class ReplicationBatch extends RecursiveAction {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 4785206541391869128L;
+
+  /** The runner. */
+  private final transient WorkStealingComputationTaskRunner runner;
+
+  /** The configuration to be replicated. */
+  private final transient ConfigurationState state;
+
+  /** The number of replications still to be executed by this batch. */
+  private int replications;
+
+  /**
+   * Instantiates a new replication batch.
+   *
+   * @param runner
+   *          the runner
+   * @param state
+   *          the configuration to be replicated
+   * @param replications
+   *          the number of replications
+   */
+  ReplicationBatch(WorkStealingComputationTaskRunner runner,
+      ConfigurationState state, int replications) {
+    this.runner = runner;
+    this.state = state;
+    this.replications = replications;
+  }
+
+  @Override
+  protected void compute() {
+    while (replications > 0) {
+      if (replications > 1 && getSurplusQueuedTaskCount() <= 0) {
+        // other workers might be idle: let them steal half of the rest
+        int split = replications / 2;
+        replications -= split;
+        new ReplicationBatch(runner, state, split).fork();
+      }
+      replications--;
+
+      if (state.isCancelled() || runner.isStopping()) {
+        state.completed(new Completion(null, null), runner);
+        continue;
+      }
+
+      ReplicationJob job = new ReplicationJob(runner, state);
+      state.getActiveJobs().add(job);
+      long start = System.nanoTime();
+      RunInformation results;
+      try {
+        results = job.execute();
+      } catch (RuntimeException ex) {
+        SimSystem.report(ex);
+        results = new RunInformation(false);
+      } finally {
+        state.getActiveJobs().remove(job);
+      }
+      runner.getMetrics().replicationExecuted(state.getMetrics(),
+          System.nanoTime() - start);
+      state.completed(new Completion(job, results), runner);
+    }
+  }
+
+}
@@ -0,0 +1,189 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.experiments.ComputationSetupException;
+import org.jamesii.core.experiments.ComputationTaskRuntimeInformation;
+import org.jamesii.core.experiments.IComputationTaskConfiguration;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.taskrunner.ComputationTaskHandler;
+import org.jamesii.core.experiments.tasks.IComputationTask;
+import org.jamesii.core.experiments.tasks.IInitializedComputationTask;
+
+/**
+ * A single replication executed by a {@link ReplicationBatch}. As for the
+ * jobs of the parallel task runner the computation task is initialised, the
+ * execution controller is notified, and the task is run or cancelled
+ * depending on its decision.
+ */
+class ReplicationJob {
+
+  /** The runner. */
+  private final WorkStealingComputationTaskRunner runner;
+
+  /** The configuration the replication belongs to. */
+  private final ConfigurationState state;
+
+  /** The configuration of the computation task. */
+  private IComputationTaskConfiguration runConfig;
+
+  /** The runtime information, available after the initialisation. */
+  private volatile ComputationTaskRuntimeInformation runtimeInfo;
+
+  /** Flag determining whether the computation task shall be cancelled. */
+  private volatile boolean cancel = false;
+
+  /** Flag determining whether the task shall be run once notified. */
+  private boolean runComputationTask = true;
+
+  /** Flag set once the execution controller has decided. */
+  private boolean notified = false;
+
+  /**
+   * Instantiates a new replication job.
+   *
+   * @param runner
+   *          the runner
+   * @param state
+   *          the configuration the replication belongs to
+   */
+  ReplicationJob(WorkStealingComputationTaskRunner runner,
+      ConfigurationState state) {
+    this.runner = runner;
+    this.state = state;
+  }
+
+  /**
+   * Initialises and executes the computation task.
+   *
+   * @return the results of the run
+   */
+  RunInformation execute() {
+    RunInformation result = null;
+    IInitializedComputationTask initCompTask = null;
+    try {
+      runConfig =
+          state.getConfig().newComputationTaskConfiguration(
+              runner.getComputationTaskID(state.getConfig()));
+      initCompTask =
+          ComputationTaskHandler.initRunConfig(runConfig, runner,
+              state.getModelReader());
+      if (initCompTask == null) {
+        throw new ComputationSetupException(
+            "Computation task init process failed");
+      }
+      result = initCompTask.getRunInfo();
+      runtimeInfo =
+          new ComputationTaskRuntimeInformation(runConfig, state.getConfig(),
+              initCompTask.getComputationTask(),
+              result.getComputationTaskID(), result);
+    } catch (Throwable t) {
+      SimSystem.report(t);
+    } finally {
+      if (result == null) {
+        result = new RunInformation(false);
+      }
+      if (runtimeInfo == null) {
+        runtimeInfo =
+            new ComputationTaskRuntimeInformation(runConfig, state.getConfig(),
+                null, null, result);
+      }
+      runner.notifyExecutionController(this, state.getController(),
+          runtimeInfo);
+    }
+
+    try {
+      // let the pool compensate for the blocked worker while waiting
+      ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+        @Override
+        public boolean block() throws InterruptedException {
+          synchronized (ReplicationJob.this) {
+            while (!notified) {
+              ReplicationJob.this.wait();
+            }
+          }
+          return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+          synchronized (ReplicationJob.this) {
+            return notified;
+          }
+        }
+      });
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      return result;
+    }
+
+    if (runComputationTask && !cancel) {
+      try {
+        result =
+            ComputationTaskHandler.runComputationTask(initCompTask, runConfig,
+                runner.getInteractiveConsole(), null, runner);
+      } catch (Exception ex) {
+        SimSystem.report(ex);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Called once the execution controller decided whether the task shall be
+   * run.
+   *
+   * @param run
+   *          true if the task shall be run, false if it shall be cancelled
+   */
+  synchronized void setRunComputationTask(boolean run) {
+    runComputationTask = run;
+    notified = true;
+    notifyAll();
+  }
+
+  /**
+   * Cancels the computation task, i.e., if it runs in a network the master
+   * server is told to stop, if it runs locally it is stopped directly. If it
+   * has not been started yet, it won't be.
+   */
+  void cancel() {
+    cancel = true;
+    // do not wait for the execution controller any longer
+    setRunComputationTask(false);
+    ComputationTaskRuntimeInformation info = runtimeInfo;
+    if (info == null) {
+      return;
+    }
+    if (runConfig.useMasterServer()) {
+      try {
+        runConfig.getMasterServer().stop(info.getComputationTaskID());
+      } catch (Exception e) {
+        SimSystem.report(Level.SEVERE, "Couldn't stop computation!");
+      }
+    } else {
+      IComputationTask task = info.getComputationTask();
+      if (task != null) {
+        task.stopProcessor();
+      }
+    }
+  }
+
+  /**
+   * Gets the runtime information, available after the initialisation.
+   *
+   * @return the runtime information
+   */
+  ComputationTaskRuntimeInformation getRuntimeInfo() {
+    return runtimeInfo;
+  }
+
+}
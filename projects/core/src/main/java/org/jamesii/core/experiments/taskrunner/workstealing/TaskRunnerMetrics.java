@@ -0,0 +1,239 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.util.id.IUniqueID;
+
+/**
+ * Metrics of a {@link WorkStealingComputationTaskRunner}: the number of jobs
+ * waiting in the pool, the time the workers have been idle and the throughput,
+ * overall and per task configuration. All values are updated without locking
+ * and may be read at any time, e.g., while the experiment is running.
+ */
+public class TaskRunnerMetrics {
+
+  /** The number of nanoseconds per second. */
+  private static final double NANOS_PER_SECOND = 1e9;
+
+  /** The pool the metrics are collected for. */
+  private final ForkJoinPool pool;
+
+  /** The time the runner has been created, in nanoseconds. */
+  private final long start = System.nanoTime();
+
+  /** The time the workers spent on replications, in nanoseconds. */
+  private final LongAdder busyTime = new LongAdder();
+
+  /** The number of replications executed. */
+  private final LongAdder executed = new LongAdder();
+
+  /** The metrics per configuration. */
+  private final ConcurrentMap<IUniqueID, ConfigurationMetrics> configurations =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates new metrics.
+   *
+   * @param pool
+   *          the pool executing the replications
+   */
+  TaskRunnerMetrics(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Gets the metrics of the given configuration, creates them if there are
+   * none yet.
+   *
+   * @param config
+   *          the configuration
+   * @return the metrics of the configuration
+   */
+  ConfigurationMetrics getOrCreate(TaskConfiguration config) {
+    ConfigurationMetrics metrics = configurations.get(config.getUniqueID());
+    if (metrics == null) {
+      metrics = new ConfigurationMetrics(config.toString());
+      ConfigurationMetrics old =
+          configurations.putIfAbsent(config.getUniqueID(), metrics);
+      if (old != null) {
+        metrics = old;
+      }
+    }
+    return metrics;
+  }
+
+  /**
+   * Records the execution of a replication.
+   *
+   * @param metrics
+   *          the metrics of the configuration the replication belongs to
+   * @param duration
+   *          the time needed for the replication in nanoseconds
+   */
+  void replicationExecuted(ConfigurationMetrics metrics, long duration) {
+    busyTime.add(duration);
+    executed.increment();
+    metrics.replicationExecuted(duration);
+  }
+
+  /**
+   * Gets the number of jobs (batches of replications) waiting for a worker.
+   *
+   * @return the queue depth
+   */
+  public long getQueueDepth() {
+    return pool.getQueuedSubmissionCount() + pool.getQueuedTaskCount();
+  }
+
+  /**
+   * Gets the time the workers have not been executing replications since the
+   * runner has been created, summed up over all workers.
+   *
+   * @return the idle time in seconds
+   */
+  public double getIdleTime() {
+    long available = (System.nanoTime() - start) * pool.getParallelism();
+    return Math.max(0, available - busyTime.sum()) / NANOS_PER_SECOND;
+  }
+
+  /**
+   * Gets the number of replications executed.
+   *
+   * @return the number of replications
+   */
+  public long getExecutedReplications() {
+    return executed.sum();
+  }
+
+  /**
+   * Gets the number of replications executed per second since the runner has
+   * been created.
+   *
+   * @return the throughput
+   */
+  public double getThroughput() {
+    return executed.sum() * NANOS_PER_SECOND
+        / Math.max(1, System.nanoTime() - start);
+  }
+
+  /**
+   * Gets the metrics of the configurations executed so far.
+   *
+   * @return the metrics per configuration
+   */
+  public Collection<ConfigurationMetrics> getConfigurationMetrics() {
+    List<ConfigurationMetrics> result =
+        new ArrayList<>(configurations.values());
+    return Collections.unmodifiableList(result);
+  }
+
+  @Override
+  public String toString() {
+    return "executed replications: " + getExecutedReplications()
+        + ", throughput: " + getThroughput() + "/s, idle time: "
+        + getIdleTime() + " s, queue depth: " + getQueueDepth();
+  }
+
+  /**
+   * Metrics of a single task configuration.
+   */
+  public static class ConfigurationMetrics {
+
+    /** The description of the configuration. */
+    private final String configuration;
+
+    /** The time the first replication has been scheduled, in nanoseconds. */
+    private final long start = System.nanoTime();
+
+    /** The time the last replication has been finished, in nanoseconds. */
+    private volatile long end = start;
+
+    /** The time needed for the replications, in nanoseconds. */
+    private final LongAdder runTime = new LongAdder();
+
+    /** The number of replications executed. */
+    private final LongAdder executed = new LongAdder();
+
+    /**
+     * Instantiates new configuration metrics.
+     *
+     * @param configuration
+     *          the description of the configuration
+     */
+    ConfigurationMetrics(String configuration) {
+      this.configuration = configuration;
+    }
+
+    /**
+     * Records the execution of a replication.
+     *
+     * @param duration
+     *          the time needed in nanoseconds
+     */
+    void replicationExecuted(long duration) {
+      runTime.add(duration);
+      executed.increment();
+      end = System.nanoTime();
+    }
+
+    /**
+     * Gets the mean time needed per replication.
+     *
+     * @return the mean run time in nanoseconds, 0 if nothing has been executed
+     *         yet
+     */
+    public long getMeanRunTime() {
+      long count = executed.sum();
+      return count == 0 ? 0 : runTime.sum() / count;
+    }
+
+    /**
+     * Gets the number of replications executed.
+     *
+     * @return the number of replications
+     */
+    public long getExecutedReplications() {
+      return executed.sum();
+    }
+
+    /**
+     * Gets the number of replications finished per second between scheduling
+     * the first and finishing the last one.
+     *
+     * @return the throughput
+     */
+    public double getThroughput() {
+      return executed.sum() * NANOS_PER_SECOND / Math.max(1, end - start);
+    }
+
+    /**
+     * Gets the description of the configuration.
+     *
+     * @return the configuration
+     */
+    public String getConfiguration() {
+      return configuration;
+    }
+
+    @Override
+    public String toString() {
+      return configuration + ": " + getExecutedReplications()
+          + " replications, " + getThroughput() + "/s";
+    }
+  }
+
+}
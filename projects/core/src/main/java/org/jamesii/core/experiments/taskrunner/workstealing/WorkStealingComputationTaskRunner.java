@@ -0,0 +1,387 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.data.model.read.plugintype.AbstractModelReaderFactory;
+import org.jamesii.core.data.model.read.plugintype.ModelReaderFactory;
+import org.jamesii.core.data.storage.IDataStorage;
+import org.jamesii.core.experiments.ComputationSetupException;
+import org.jamesii.core.experiments.ComputationTaskRuntimeInformation;
+import org.jamesii.core.experiments.IExperimentExecutionController;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.experiments.taskrunner.AbstractTaskRunner;
+import org.jamesii.core.experiments.taskrunner.parallel.ParallelComputationTaskRunner;
+import org.jamesii.core.experiments.taskrunner.workstealing.ConfigurationState.Completion;
+import org.jamesii.core.util.info.JavaInfo;
+
+/**
+ * Task runner executing the replications of the task configurations in
+ * parallel on a work-stealing {@link ForkJoinPool}. In contrast to the
+ * {@link ParallelComputationTaskRunner} there is no single thread handling the
+ * finished computations: the worker finishing a replication processes it
+ * (i.e., asks the replication criterion for further replications and
+ * schedules them), see {@link ConfigurationState}. Short replications of the
+ * same configuration are batched into a single job, which is split again if
+ * other workers run out of work. The batch size is chosen such that a batch
+ * takes about the batch duration given, based on the mean run time of the
+ * replications of the configuration computed so far.
+ * <p>
+ * The metrics of the runner (queue depth, idle time, throughput per
+ * configuration) can be retrieved by {@link #getMetrics()}, and are reported
+ * once the runner is stopped.
+ */
+public class WorkStealingComputationTaskRunner extends AbstractTaskRunner {
+
+  /** The default duration of a batch of replications, in milliseconds. */
+  public static final long DEFAULT_BATCH_DURATION = 100;
+
+  /** The default maximal number of replications per batch. */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 32;
+
+  /** The pool executing the replications. */
+  private final transient ForkJoinPool pool;
+
+  /** The intended duration of a batch, in nanoseconds. */
+  private final long batchDuration;
+
+  /** The maximal number of replications per batch. */
+  private final int maxBatchSize;
+
+  /** The metrics. */
+  private final transient TaskRunnerMetrics metrics;
+
+  /** The configurations currently executed. */
+  private final Map<TaskConfiguration, ConfigurationState> configurations =
+      new ConcurrentHashMap<>();
+
+  /** The jobs waiting for the decision of their execution controller. */
+  private final Map<ComputationTaskRuntimeInformation, ReplicationJob> waitingJobs =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Instantiates a new work stealing computation task runner using all
+   * available processors and the default batch setup.
+   */
+  public WorkStealingComputationTaskRunner() {
+    this(-1, DEFAULT_BATCH_DURATION, DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Instantiates a new work stealing computation task runner.
+   *
+   * @param maxThreads
+   *          the number of workers; use -1 to use the number of available
+   *          processors, use -n to use "all but n-1" of the available
+   *          processors (see {@link ParallelComputationTaskRunner})
+   * @param batchDuration
+   *          the intended duration of a batch of replications, in
+   *          milliseconds
+   * @param maxBatchSize
+   *          the maximal number of replications per batch
+   */
+  public WorkStealingComputationTaskRunner(int maxThreads, long batchDuration,
+      int maxBatchSize) {
+    int threadCount = maxThreads;
+    if (maxThreads < 0) {
+      // relative interpretation: use all but -maxThreads-1 cores
+      threadCount = new JavaInfo().getCpus() + 1 + maxThreads;
+    }
+    if (threadCount <= 0) {
+      threadCount = 1;
+    }
+    pool =
+        new ForkJoinPool(threadCount,
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+    this.batchDuration = TimeUnit.MILLISECONDS.toNanos(batchDuration);
+    this.maxBatchSize = Math.max(1, maxBatchSize);
+    metrics = new TaskRunnerMetrics(pool);
+  }
+
+  @Override
+  protected void executeConfiguration(TaskConfiguration taskConfig) {
+    if (isStopping()) {
+      return;
+    }
+
+    try {
+      initModelReader(taskConfig);
+      reportConfigExecution();
+
+      ConfigurationState state =
+          new ConfigurationState(taskConfig,
+              getExperimentController(taskConfig), getModelReader(),
+              metrics.getOrCreate(taskConfig));
+      int replications = taskConfig.allowedReplications(state.getRunInfos());
+      if (replications <= 0) {
+        throw new ComputationSetupException(
+            "For the task "
+                + taskConfig
+                + " the runner was not able to setup a single execution as the replication number estimated was 0.");
+      }
+      configurations.put(taskConfig, state);
+      state.plan(replications);
+      schedule(state, replications);
+    } catch (Exception t) {
+      SimSystem.report(t);
+      getExperimentController(taskConfig).computationTaskInitialized(
+          this,
+          new ComputationTaskRuntimeInformation(null, taskConfig, null, null,
+              new RunInformation(true)));
+    }
+  }
+
+  /**
+   * Initialises a model reader for given computation task configuration, if
+   * there is no master server (model readers are created on the servers) and
+   * if no model reader has been created with the right configuration
+   * already.
+   *
+   * @param taskConfig
+   *          task configuration for which the model shall be read
+   */
+  protected void initModelReader(TaskConfiguration taskConfig) {
+    if (!taskConfig.useMasterServer()
+        && (getAbsModReaderParams() == null || !getAbsModReaderParams().equals(
+            taskConfig.getModelReaderParams()))) {
+      ModelReaderFactory modelReaderWriterFactory =
+          SimSystem.getRegistry().getFactory(AbstractModelReaderFactory.class,
+              taskConfig.getModelReaderParams());
+      setModelReader(modelReaderWriterFactory.create(taskConfig
+          .getCustomRWParams(), SimSystem.getRegistry().createContext()));
+      setAbsModReaderParams(taskConfig.getModelReaderParams());
+    }
+  }
+
+  /**
+   * Schedules the given number of replications of the configuration, batched
+   * according to the mean run time of the replications so far.
+   *
+   * @param state
+   *          the configuration
+   * @param replications
+   *          the number of replications
+   */
+  private void schedule(ConfigurationState state, int replications) {
+    long meanRunTime = state.getMetrics().getMeanRunTime();
+    long batchSize = maxBatchSize;
+    if (meanRunTime > 0) {
+      batchSize = Math.max(1, Math.min(maxBatchSize, batchDuration / meanRunTime));
+    }
+    // give every worker something to do
+    int parallelism = pool.getParallelism();
+    batchSize =
+        Math.min(batchSize, (replications + parallelism - 1) / parallelism);
+
+    for (int remaining = replications; remaining > 0;) {
+      int size = (int) Math.min(batchSize, remaining);
+      remaining -= size;
+      ReplicationBatch batch = new ReplicationBatch(this, state, size);
+      Thread current = Thread.currentThread();
+      if (current instanceof ForkJoinWorkerThread
+          && ((ForkJoinWorkerThread) current).getPool() == pool) {
+        batch.fork();
+      } else {
+        pool.execute(batch);
+      }
+    }
+  }
+
+  /**
+   * Processes a finished replication. Is called for the replications of a
+   * configuration one after the other, see
+   * {@link ConfigurationState#completed(Completion, WorkStealingComputationTaskRunner)}
+   * .
+   *
+   * @param state
+   *          the configuration
+   * @param completion
+   *          the finished replication
+   */
+  void processCompletion(ConfigurationState state, Completion completion) {
+    TaskConfiguration taskConfig = state.getConfig();
+    RunInformation results = completion.getResults();
+
+    // if we have a data storage attached we will inform the storage that no
+    // more data for this computation task will be written
+    if (results != null && taskConfig.hasDataStorage()
+        && results.getComputationTaskID() != null) {
+      taskConfig.createPlainDataStorage().computationTaskDone(
+          results.getComputationTaskID().getId());
+    }
+
+    state.processed(results);
+
+    // ask for further replications once all planned ones are done
+    if (state.isFinished() && !state.isCancelled() && !isStopping()) {
+      int replications = 0;
+      try {
+        replications = taskConfig.allowedReplications(state.getRunInfos());
+      } catch (RuntimeException ex) {
+        SimSystem.report(ex);
+      }
+      if (replications > 0) {
+        state.plan(replications);
+        schedule(state, replications);
+      }
+    }
+
+    boolean jobDone = state.isFinished();
+    if (completion.getJob() != null) {
+      if (jobDone) {
+        results.setJobDone(true);
+      }
+      state.getController().computationTaskExecuted(this,
+          completion.getRuntimeInfo(), results);
+    } else if (jobDone) {
+      // the last replication has been skipped, but the execution controller
+      // still has to learn that the configuration is done
+      RunInformation done = new RunInformation(true);
+      state.getController().computationTaskExecuted(this,
+          new ComputationTaskRuntimeInformation(null, taskConfig, null, null,
+              done), done);
+    }
+
+    if (jobDone) {
+      removeTaskConfig(state);
+    }
+  }
+
+  /**
+   * Removes the task configuration from the maintained maps.
+   *
+   * @param state
+   *          the configuration which shall be removed
+   */
+  private void removeTaskConfig(ConfigurationState state) {
+    TaskConfiguration taskConfig = state.getConfig();
+    SimSystem.report(Level.FINE, "Finished " + state.getMetrics());
+    configurations.remove(taskConfig);
+
+    // it is important to use the data storage created previously; a new one
+    // might allocate extra resources which are not freed if the factory is
+    // used here once more
+    if (taskConfig.hasDataStorage()) {
+      IDataStorage<?> storage = getDataStorage(taskConfig);
+      if (storage != null) {
+        storage.computationTaskDone(taskConfig.getUniqueID());
+      }
+    }
+    removeExperimentController(taskConfig);
+  }
+
+  /**
+   * Notifies the execution controller that a replication has been
+   * initialised.
+   *
+   * @param job
+   *          the job of the replication
+   * @param expController
+   *          the execution controller to be notified
+   * @param ctrti
+   *          the runtime information of the replication
+   */
+  void notifyExecutionController(ReplicationJob job,
+      IExperimentExecutionController expController,
+      ComputationTaskRuntimeInformation ctrti) {
+    waitingJobs.put(ctrti, job);
+    expController.computationTaskInitialized(this, ctrti);
+  }
+
+  @Override
+  protected void processNotification(
+      ComputationTaskRuntimeInformation taskInfo, boolean run) {
+    if (taskInfo == null) {
+      SimSystem.report(Level.SEVERE, "Computation task not initialized");
+      return;
+    }
+    ReplicationJob job = waitingJobs.remove(taskInfo);
+    if (job == null) {
+      SimSystem.report(Level.SEVERE, "ComputationTaskExecution job not found");
+      getExperimentController(taskInfo.getComputationTaskConfiguration())
+          .computationTaskExecuted(this, taskInfo, new RunInformation(true));
+    } else {
+      job.setRunComputationTask(run);
+    }
+  }
+
+  @Override
+  public boolean cancelAllJobs(IExperimentExecutionController expController) {
+    setPausing(true);
+    Iterator<TaskConfiguration> it = getTaskConfigurationIterator();
+    while (it.hasNext()) {
+      TaskConfiguration config = it.next();
+      if (getExperimentController(config) == expController) {
+        cancelConfiguration(config);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void cancelConfiguration(TaskConfiguration taskConfiguration) {
+    ConfigurationState state = configurations.get(taskConfiguration);
+    if (state != null) {
+      // the controller is removed once the remaining replications are done
+      state.cancel();
+    } else {
+      removeExperimentController(taskConfiguration);
+    }
+    getTodoList().remove(taskConfiguration);
+  }
+
+  @Override
+  public void cancelTask(
+      ComputationTaskRuntimeInformation taskRuntimeInformation) {
+    processNotification(taskRuntimeInformation, false);
+  }
+
+  @Override
+  public void stop() {
+    if (isStopping()) {
+      return;
+    }
+    super.stop();
+
+    for (ConfigurationState state : configurations.values()) {
+      state.cancel();
+    }
+    pool.shutdown();
+    SimSystem.report(Level.INFO, "Work stealing task runner stopped, "
+        + metrics);
+  }
+
+  @Override
+  public void recoverTask(long taskUID,
+      ComputationTaskRuntimeInformation runtimeInfo) {
+    SimSystem.report(Level.SEVERE, "recoverTask(): Not implemented.");
+  }
+
+  @Override
+  public void restartTask(long taskUID) {
+    SimSystem.report(Level.SEVERE, "restartTask(): Not implemented.");
+  }
+
+  /**
+   * Gets the metrics of this runner.
+   *
+   * @return the metrics
+   */
+  public TaskRunnerMetrics getMetrics() {
+    return metrics;
+  }
+
+}
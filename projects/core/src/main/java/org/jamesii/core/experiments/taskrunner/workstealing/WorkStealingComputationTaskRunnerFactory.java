@@ -0,0 +1,59 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import org.jamesii.core.experiments.taskrunner.ITaskRunner;
+import org.jamesii.core.experiments.taskrunner.plugintype.TaskRunnerFactory;
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+
+/**
+ * A factory for creating {@link WorkStealingComputationTaskRunner} objects.
+ */
+public class WorkStealingComputationTaskRunnerFactory extends
+    TaskRunnerFactory {
+
+  /**
+   * Maximal number of threads that can be spawned. Type: {@link Integer}.
+   * Default is -1 (= number of cores).
+   */
+  public static final String NUM_CORES = "Number of used cores";
+
+  /**
+   * The intended duration of a batch of replications in milliseconds. Type:
+   * {@link Long}. Default is
+   * {@link WorkStealingComputationTaskRunner#DEFAULT_BATCH_DURATION}.
+   */
+  public static final String BATCH_DURATION = "Batch duration";
+
+  /**
+   * The maximal number of replications per batch. Type: {@link Integer}.
+   * Default is {@link WorkStealingComputationTaskRunner#DEFAULT_MAX_BATCH_SIZE}.
+   */
+  public static final String MAX_BATCH_SIZE = "Maximal batch size";
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 2201687416478946613L;
+
+  /**
+   * Instantiates a new work stealing computation task runner factory.
+   */
+  public WorkStealingComputationTaskRunnerFactory() {
+    super();
+  }
+
+  @Override
+  public ITaskRunner create(ParameterBlock parameter, Context context) {
+    return new WorkStealingComputationTaskRunner(
+        ParameterBlocks.getSubBlockValueOrDefault(parameter, NUM_CORES, -1),
+        ParameterBlocks.getSubBlockValueOrDefault(parameter, BATCH_DURATION,
+            WorkStealingComputationTaskRunner.DEFAULT_BATCH_DURATION),
+        ParameterBlocks.getSubBlockValueOrDefault(parameter, MAX_BATCH_SIZE,
+            WorkStealingComputationTaskRunner.DEFAULT_MAX_BATCH_SIZE));
+  }
+}
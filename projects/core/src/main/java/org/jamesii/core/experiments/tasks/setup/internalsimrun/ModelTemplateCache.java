@@ -0,0 +1,428 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.tasks.setup.internalsimrun;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.data.model.IModelReader;
+import org.jamesii.core.experiments.ExecutionMeasurements;
+import org.jamesii.core.model.IInstantiableModel;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.serialization.SerialisationUtils;
+
+/**
+ * Cache of model templates, so that the replications of a configuration do not
+ * have to read (parse, initialise, ...) the same model again and again. A
+ * template is identified by the model URI, the parameters of the model reader
+ * and the model parameters. The model is read once per template, each further
+ * request gets a copy of it:
+ * <ul>
+ * <li>models implementing {@link IInstantiableModel} are kept as template and
+ * copied by {@link IInstantiableModel#instantiate()},</li>
+ * <li>other models are kept as serialised snapshot and copied by
+ * deserialisation, if the model reader parameters contain the sub-block
+ * {@link #SNAPSHOT} set to true (the models have to be {@link Serializable}),
+ * </li>
+ * <li>all other models are read for each request, as before.</li>
+ * </ul>
+ * Snapshots have to be requested explicitly as a model may draw random numbers
+ * while being read, i.e., two reads of the same model might differ.
+ * <p>
+ * The number of templates and the size of the snapshots kept are bounded, the
+ * least recently used templates are evicted first. Snapshots exceeding the
+ * size bound on their own are not kept, their models are read for each
+ * request (until their template is evicted). The cache is thread-safe,
+ * if several replications request the same template concurrently the model is
+ * read only once.
+ */
+public class ModelTemplateCache {
+
+  /**
+   * Name of the model reader parameter enabling snapshots for models which do
+   * not implement {@link IInstantiableModel} (value: {@link Boolean}).
+   */
+  public static final String SNAPSHOT = "modelSnapshot";
+
+  /** The default maximal number of templates. */
+  public static final int DEFAULT_MAX_TEMPLATES = 16;
+
+  /** The default maximal size of all snapshots (in bytes). */
+  public static final long DEFAULT_MAX_SNAPSHOT_BYTES = 64L << 20;
+
+  /** The cache shared by all task runners of this JVM. */
+  private static final ModelTemplateCache INSTANCE = new ModelTemplateCache(
+      DEFAULT_MAX_TEMPLATES, DEFAULT_MAX_SNAPSHOT_BYTES);
+
+  /** The maximal number of templates. */
+  private final int maxTemplates;
+
+  /** The maximal size of all snapshots (in bytes). */
+  private final long maxSnapshotBytes;
+
+  /** The templates, in the order of their last use. */
+  private final LinkedHashMap<Key, Template> templates = new LinkedHashMap<>(
+      16, 0.75f, true);
+
+  /** The size of all snapshots kept (in bytes). */
+  private long snapshotBytes;
+
+  /** The number of models copied from a template. */
+  private final AtomicLong hits = new AtomicLong();
+
+  /** The number of models read to create a template. */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Instantiates a new model template cache.
+   *
+   * @param maxTemplates
+   *          the maximal number of templates
+   * @param maxSnapshotBytes
+   *          the maximal size of all snapshots (in bytes)
+   */
+  public ModelTemplateCache(int maxTemplates, long maxSnapshotBytes) {
+    if (maxTemplates < 1) {
+      throw new IllegalArgumentException(
+          "The cache has to hold at least one template.");
+    }
+    this.maxTemplates = maxTemplates;
+    this.maxSnapshotBytes = maxSnapshotBytes;
+  }
+
+  /**
+   * Gets the cache shared by all task runners of this JVM.
+   *
+   * @return the cache
+   */
+  public static ModelTemplateCache getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Gets a model, either as copy of a template or by reading it with the given
+   * model reader.
+   *
+   * @param modelReader
+   *          the model reader
+   * @param uri
+   *          the model URI
+   * @param readerParameters
+   *          the parameters of the model reader
+   * @param parameters
+   *          the model parameters
+   * @param execMeasures
+   *          the execution measurements to record hits and misses in, might
+   *          be null
+   * @return the model
+   */
+  public IModel getModel(IModelReader modelReader, URI uri,
+      ParameterBlock readerParameters, Map<String, ?> parameters,
+      ExecutionMeasurements execMeasures) {
+    Key key = new Key(uri, readerParameters, parameters);
+    Template template;
+    synchronized (this) {
+      template = templates.get(key);
+      if (template == null) {
+        template = new Template();
+        templates.put(key, template);
+        evict();
+      }
+    }
+
+    if (template.isUncacheable()) {
+      return modelReader.read(uri, parameters);
+    }
+
+    IModel model = null;
+    synchronized (template) {
+      if (!template.isLoaded()) {
+        model = modelReader.read(uri, parameters);
+        boolean snapshot =
+            ParameterBlocks.getSubBlockValueOrDefault(readerParameters,
+                SNAPSHOT, Boolean.FALSE);
+        model = template.load(model, snapshot, maxSnapshotBytes);
+        if (template.isUncacheable()) {
+          return model;
+        }
+        misses.incrementAndGet();
+        if (execMeasures != null) {
+          execMeasures.modelCacheMiss();
+        }
+        added(key, template);
+        return model;
+      }
+    }
+    model = template.instantiate();
+    hits.incrementAndGet();
+    if (execMeasures != null) {
+      execMeasures.modelCacheHit();
+    }
+    return model;
+  }
+
+  /**
+   * Accounts for the size of a template just loaded.
+   *
+   * @param key
+   *          the key of the template
+   * @param template
+   *          the template
+   */
+  private synchronized void added(Key key, Template template) {
+    // the template might have been evicted while being loaded
+    if (templates.get(key) == template) {
+      snapshotBytes += template.getSize();
+      evict();
+    }
+  }
+
+  /**
+   * Evicts the least recently used templates until the bounds are met again.
+   */
+  private void evict() {
+    Iterator<Template> it = templates.values().iterator();
+    while (it.hasNext()
+        && (templates.size() > maxTemplates || snapshotBytes > maxSnapshotBytes)) {
+      Template template = it.next();
+      snapshotBytes -= template.getSize();
+      it.remove();
+    }
+  }
+
+  /**
+   * Removes all templates.
+   */
+  public synchronized void clear() {
+    templates.clear();
+    snapshotBytes = 0;
+  }
+
+  /**
+   * Gets the number of templates currently kept.
+   *
+   * @return the number of templates
+   */
+  public synchronized int size() {
+    return templates.size();
+  }
+
+  /**
+   * Gets the size of all snapshots currently kept.
+   *
+   * @return the size in bytes
+   */
+  public synchronized long getSnapshotBytes() {
+    return snapshotBytes;
+  }
+
+  /**
+   * Gets the number of models copied from a template.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * Gets the number of models read to create a template.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * The template of a model, either the model itself or its snapshot.
+   */
+  private static final class Template {
+
+    /** The model, if it is an instantiable model. */
+    private IInstantiableModel model;
+
+    /** The snapshot of the model, if it is not instantiable. */
+    private byte[] snapshot;
+
+    /** Flag set if the model cannot be cached. */
+    private volatile boolean uncacheable;
+
+    /**
+     * Checks whether the template has been loaded.
+     *
+     * @return true, if loaded
+     */
+    boolean isLoaded() {
+      return model != null || snapshot != null;
+    }
+
+    /**
+     * Checks whether the model cannot be cached.
+     *
+     * @return true, if the model has to be read on each request
+     */
+    boolean isUncacheable() {
+      return uncacheable;
+    }
+
+    /**
+     * Gets the size of the template, only snapshots are accounted for.
+     *
+     * @return the size in bytes
+     */
+    long getSize() {
+      return snapshot != null ? snapshot.length : 0;
+    }
+
+    /**
+     * Loads the template from the model read.
+     *
+     * @param read
+     *          the model read
+     * @param allowSnapshot
+     *          flag whether a snapshot may be taken
+     * @param maxSnapshotBytes
+     *          the maximal size of the snapshot (in bytes)
+     * @return the model to be used by the requesting replication
+     */
+    IModel load(IModel read, boolean allowSnapshot, long maxSnapshotBytes) {
+      if (read instanceof IInstantiableModel) {
+        model = (IInstantiableModel) read;
+        return model.instantiate();
+      }
+      if (allowSnapshot && read instanceof Serializable) {
+        try {
+          byte[] bytes = SerialisationUtils.serialize((Serializable) read);
+          if (bytes.length <= maxSnapshotBytes) {
+            snapshot = bytes;
+            return read;
+          }
+          SimSystem.report(Level.INFO, "Snapshot of the model "
+              + read.getName() + " exceeds the size of the model cache ("
+              + bytes.length + " bytes), it will be read for each run.");
+        } catch (IOException e) {
+          SimSystem.report(Level.WARNING, "Snapshot of the model "
+              + read.getName() + " failed, it will be read for each run.", e);
+        }
+      }
+      uncacheable = true;
+      return read;
+    }
+
+    /**
+     * Creates a copy of the template.
+     *
+     * @return the model
+     */
+    IModel instantiate() {
+      if (model != null) {
+        return model.instantiate();
+      }
+      try {
+        return (IModel) SerialisationUtils.deserialize(snapshot);
+      } catch (IOException | ClassNotFoundException e) {
+        throw new IllegalStateException(
+            "Could not restore the snapshot of a model.", e);
+      }
+    }
+  }
+
+  /**
+   * The key of a template. The reader parameters are compared structurally.
+   */
+  private static final class Key {
+
+    /** The model URI. */
+    private final URI uri;
+
+    /** A copy of the reader parameters. */
+    private final ParameterBlock readerParameters;
+
+    /** A copy of the model parameters. */
+    private final Map<String, ?> parameters;
+
+    /** The hash code. */
+    private final int hash;
+
+    /**
+     * Instantiates a new key.
+     *
+     * @param uri
+     *          the model URI
+     * @param readerParameters
+     *          the reader parameters
+     * @param parameters
+     *          the model parameters
+     */
+    Key(URI uri, ParameterBlock readerParameters, Map<String, ?> parameters) {
+      this.uri = uri;
+      this.readerParameters = ParameterBlocks.getCopy(readerParameters);
+      this.parameters =
+          parameters == null ? null : new HashMap<String, Object>(parameters);
+      hash =
+          31 * (31 * Objects.hashCode(uri) + Objects.hashCode(parameters))
+              + hashCode(readerParameters);
+    }
+
+    /**
+     * Computes a hash code of a parameter block which does not depend on the
+     * order of the sub-blocks.
+     *
+     * @param block
+     *          the parameter block
+     * @return the hash code
+     */
+    private static int hashCode(ParameterBlock block) {
+      if (block == null) {
+        return 0;
+      }
+      int result = Objects.hashCode(block.getValue());
+      for (Map.Entry<String, ParameterBlock> entry : block.getSubBlocks()
+          .entrySet()) {
+        result += entry.getKey().hashCode() ^ hashCode(entry.getValue());
+      }
+      return result;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      if (hash != other.hash || !Objects.equals(uri, other.uri)
+          || !Objects.equals(parameters, other.parameters)) {
+        return false;
+      }
+      if (readerParameters == null || other.readerParameters == null) {
+        return readerParameters == other.readerParameters;
+      }
+      return readerParameters.compareTo(other.readerParameters) == 0;
+    }
+  }
+
+}
@@ -29,7 +29,9 @@ import org.jamesii.core.experiments.optimization.parameter.instrumenter.IRespons
 import org.jamesii.core.experiments.taskrunner.InitializedComputationTask;
 import org.jamesii.core.experiments.tasks.IInitializedComputationTask;
 import org.jamesii.core.experiments.tasks.setup.IComputationTaskSetup;
+import org.jamesii.core.math.random.rnggenerator.stream.StreamRNGGenerator;
 import org.jamesii.core.model.IModel;
+import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.simulationrun.ISimulationRun;
 import org.jamesii.core.simulationrun.SimulationRun;
 
@@ -80,6 +82,11 @@ public class SimulationRunSetup implements IComputationTaskSetup {
     // Instantiate model and simulation
     ISimulationRun simulation = null;
 
+    // generators requested by model and processor depend on the replication
+    // only, see StreamRNGGenerator
+    StreamRNGGenerator.startReplication(Math.max(0,
+        ((SimulationRunConfiguration) computationTaskConfig)
+            .getComputationTaskConfigNumber() - 1));
     try {
       IModel model =
           createModel((SimulationRunConfiguration) computationTaskConfig,
@@ -92,6 +99,8 @@ public class SimulationRunSetup implements IComputationTaskSetup {
     } catch (Throwable t) {
       return handleError((SimulationRunConfiguration) computationTaskConfig, t,
           info);
+    } finally {
+      StreamRNGGenerator.finishReplication();
     }
     String message =
         "Simulation run with expID:" + info.getExpID() + " and simID:"
@@ -103,7 +112,8 @@ public class SimulationRunSetup implements IComputationTaskSetup {
   }
 
   /**
-   * Creates the model.
+   * Creates the model. The model is read once per model template, see
+   * {@link ModelTemplateCache}.
    * 
    * @param simRunConfig
    *          the sim run config
@@ -121,10 +131,11 @@ public class SimulationRunSetup implements IComputationTaskSetup {
       IModelReader modelReader, ExecutionMeasurements execMeasures) {
     IModel model;
     execMeasures.startModelCreation();
+    ParameterBlock readerParams = simRunConfig.getAbsModelReaderFactoryParams();
     model =
-        modelReader.read((URI) simRunConfig.getAbsModelReaderFactoryParams()
-            .getSubBlockValue(AbstractModelReaderFactory.URI), simRunConfig
-            .getParameters());
+        ModelTemplateCache.getInstance().getModel(modelReader,
+            (URI) readerParams.getSubBlockValue(AbstractModelReaderFactory.URI),
+            readerParams, simRunConfig.getParameters(), execMeasures);
     execMeasures.stopModelCreation();
     return model;
   }
@@ -316,6 +327,7 @@ public class SimulationRunSetup implements IComputationTaskSetup {
   @Override
   public void cleanUp(IComputationTaskConfiguration simRunConfig,
       RunInformation runInfo) {
+    ((SimulationRunConfiguration) simRunConfig).finishObservation();
     gatherDirectResponses(runInfo, (SimulationRunConfiguration) simRunConfig);
     removeSimRunDataStorage((SimulationRunConfiguration) simRunConfig,
         runInfo.getExecutionIDs());
@@ -0,0 +1,57 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.generators;
+
+/**
+ * The mixing function of the SplitMix64 generator by Steele, Lea and Flood.
+ * It is a bijection on 64 bit values whose results of consecutive inputs are
+ * practically uncorrelated, so it is used to spread a (possibly small) seed
+ * over the state of a generator and to derive seeds from a seed and a stream
+ * number.
+ */
+public final class SplitMix {
+
+  /** The increment of the SplitMix64 generator (odd, derived from φ). */
+  public static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+  /**
+   * Hidden constructor.
+   */
+  private SplitMix() {
+  }
+
+  /**
+   * Mixes the bits of the given value.
+   *
+   * @param value
+   *          the value
+   * @return the mixed value
+   */
+  public static long mix(long value) {
+    long z = value;
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Derives a seed from the given seed and stream number. Different streams
+   * of the same seed yield different seeds, but, in contrast to generators
+   * supporting streams, nothing prevents the sequences of the generators
+   * seeded with them from overlapping.
+   *
+   * @param seed
+   *          the seed
+   * @param stream
+   *          the stream number
+   * @return the derived seed
+   */
+  public static long deriveSeed(long seed, long stream) {
+    return mix(mix(seed + GOLDEN_GAMMA) + (stream + 1) * GOLDEN_GAMMA);
+  }
+
+}
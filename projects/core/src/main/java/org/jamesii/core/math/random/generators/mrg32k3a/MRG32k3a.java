@@ -0,0 +1,388 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.generators.mrg32k3a;
+
+import org.jamesii.core.math.random.generators.AbstractRandom;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.RNGInfo;
+import org.jamesii.core.math.random.generators.RNGInfo.UsableBits;
+import org.jamesii.core.math.random.generators.RNGPeriod;
+import org.jamesii.core.math.random.generators.SplitMix;
+
+/**
+ * This class implements the combined multiple recursive generator MRG32k3a by
+ * L'Ecuyer with streams and substreams as described by L'Ecuyer, Simard, Chen
+ * and Kelton ("An Object-Oriented Random-Number Package with Many Long Streams
+ * and Substreams").
+ * <p>
+ * The period of approximately 2<sup>191</sup> is partitioned into streams of
+ * length 2<sup>127</sup>, each of which is partitioned into substreams of
+ * length 2<sup>76</sup>. The start of any stream is computed from the seed by
+ * a single matrix-vector multiplication with a jump matrix, which is raised to
+ * the power of the stream number by repeated squaring, i.e., in O(log n).
+ * Thus generators for different streams never overlap (unless more than
+ * 2<sup>127</sup> numbers are drawn from one of them), and the generator of a
+ * stream can be re-created from the seed and the stream number alone, without
+ * any coordination between the threads or hosts using the streams.
+ * <p>
+ * Instances are not thread-safe, each thread (replication) is meant to use
+ * its own stream instead of sharing a
+ * {@link org.jamesii.core.math.random.generators.SynchronizedRandomNumberGenerator}
+ * . The generated numbers lie in [0, m<sub>1</sub>) with m<sub>1</sub> =
+ * 2<sup>32</sup> − 209, so the 209 largest 32 bit values never occur.
+ */
+public class MRG32k3a extends AbstractRandom implements IRandom {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -1707342163806540211L;
+
+  /** The generator info. */
+  private static final RNGInfo RNGINFO = new RNGInfo("MRG32k3a", "MRG",
+      new RNGPeriod(1, 2, 191), 32, 32, UsableBits.UPPER, 32, UsableBits.UPPER);
+
+  /** The modulus of the first component. */
+  static final long M1 = 4294967087L;
+
+  /** The modulus of the second component. */
+  static final long M2 = 4294944443L;
+
+  /** The multiplier a<sub>12</sub> of the first component. */
+  private static final long A12 = 1403580L;
+
+  /** The negated multiplier a<sub>13</sub> of the first component. */
+  private static final long A13N = 810728L;
+
+  /** The multiplier a<sub>21</sub> of the second component. */
+  private static final long A21 = 527612L;
+
+  /** The negated multiplier a<sub>23</sub> of the second component. */
+  private static final long A23N = 1370589L;
+
+  /** The exponent of the stream length (as power of two). */
+  private static final int STREAM_EXPONENT = 127;
+
+  /** The exponent of the substream length (as power of two). */
+  private static final int SUBSTREAM_EXPONENT = 76;
+
+  /** The transition matrix of the first component. */
+  static final long[][] A1 = { { 0, 1, 0 }, { 0, 0, 1 },
+      { M1 - A13N, A12, 0 } };
+
+  /** The transition matrix of the second component. */
+  static final long[][] A2 = { { 0, 1, 0 }, { 0, 0, 1 },
+      { M2 - A23N, 0, A21 } };
+
+  /** The matrix advancing the first component by one stream. */
+  static final long[][] A1_STREAM = powerOfTwo(A1, STREAM_EXPONENT, M1);
+
+  /** The matrix advancing the second component by one stream. */
+  static final long[][] A2_STREAM = powerOfTwo(A2, STREAM_EXPONENT, M2);
+
+  /** The matrix advancing the first component by one substream. */
+  private static final long[][] A1_SUBSTREAM = powerOfTwo(A1,
+      SUBSTREAM_EXPONENT, M1);
+
+  /** The matrix advancing the second component by one substream. */
+  private static final long[][] A2_SUBSTREAM = powerOfTwo(A2,
+      SUBSTREAM_EXPONENT, M2);
+
+  /** The number of the stream. */
+  private final long stream;
+
+  /** The state of the first component. */
+  private long[] s1 = new long[3];
+
+  /** The state of the second component. */
+  private long[] s2 = new long[3];
+
+  /** The state of the first component at the start of the substream. */
+  private long[] substream1 = new long[3];
+
+  /** The state of the second component at the start of the substream. */
+  private long[] substream2 = new long[3];
+
+  /**
+   * Creates a generator for the first stream of a default random seed taken
+   * from {@link Math#random()}.
+   */
+  public MRG32k3a() {
+    this(Math.round(Math.random() * Long.MAX_VALUE));
+  }
+
+  /**
+   * Creates a generator for the first stream of the given seed.
+   *
+   * @param seed
+   *          the seed
+   */
+  public MRG32k3a(long seed) {
+    this(seed, 0);
+  }
+
+  /**
+   * Creates a generator for the given stream of the given seed. Generators of
+   * the same seed and different streams yield non-overlapping sequences.
+   *
+   * @param seed
+   *          the seed
+   * @param stream
+   *          the number of the stream, must not be negative
+   */
+  public MRG32k3a(long seed, long stream) {
+    super(seed);
+    if (stream < 0) {
+      throw new IllegalArgumentException("The stream must not be negative.");
+    }
+    this.stream = stream;
+    init(seed);
+  }
+
+  /**
+   * Creates a generator starting at the given state, as the package of
+   * L'Ecuyer et al. does. The first three values must be in [0,
+   * m<sub>1</sub>) and not all zero, the last three in [0, m<sub>2</sub>) and
+   * not all zero.
+   *
+   * @param state
+   *          the six components of the state
+   */
+  public MRG32k3a(long[] state) {
+    super(0L);
+    if (state.length != 6 || !isValid(state, 0, M1) || !isValid(state, 3, M2)) {
+      throw new IllegalArgumentException("Invalid MRG32k3a state.");
+    }
+    this.stream = 0;
+    System.arraycopy(state, 0, s1, 0, 3);
+    System.arraycopy(state, 3, s2, 0, 3);
+    startSubstream();
+  }
+
+  @Override
+  protected void init(long seed) {
+    // spread the seed over the state, no component may be all zero
+    long x = seed;
+    for (int i = 0; i < 3; i++) {
+      x += SplitMix.GOLDEN_GAMMA;
+      s1[i] = 1 + Long.remainderUnsigned(SplitMix.mix(x), M1 - 1);
+    }
+    for (int i = 0; i < 3; i++) {
+      x += SplitMix.GOLDEN_GAMMA;
+      s2[i] = 1 + Long.remainderUnsigned(SplitMix.mix(x), M2 - 1);
+    }
+    if (stream > 0) {
+      s1 = multiply(power(A1_STREAM, stream, M1), s1, M1);
+      s2 = multiply(power(A2_STREAM, stream, M2), s2, M2);
+    }
+    startSubstream();
+  }
+
+  @Override
+  public final long next() {
+    long p1 = (A12 * s1[1] - A13N * s1[0]) % M1;
+    if (p1 < 0) {
+      p1 += M1;
+    }
+    s1[0] = s1[1];
+    s1[1] = s1[2];
+    s1[2] = p1;
+
+    long p2 = (A21 * s2[2] - A23N * s2[0]) % M2;
+    if (p2 < 0) {
+      p2 += M2;
+    }
+    s2[0] = s2[1];
+    s2[1] = s2[2];
+    s2[2] = p2;
+
+    long z = p1 - p2;
+    return z < 0 ? z + M1 : z;
+  }
+
+  /**
+   * Advances the generator to the start of the next substream of its stream.
+   * This can be used to get independent sequences within a stream, e.g., one
+   * per model component.
+   */
+  public void nextSubstream() {
+    substream1 = multiply(A1_SUBSTREAM, substream1, M1);
+    substream2 = multiply(A2_SUBSTREAM, substream2, M2);
+    resetSubstream();
+  }
+
+  /**
+   * Resets the generator to the start of its current substream, i.e., the
+   * numbers drawn since then are generated again.
+   */
+  public void resetSubstream() {
+    s1 = substream1.clone();
+    s2 = substream2.clone();
+  }
+
+  /**
+   * Gets the number of the stream of this generator.
+   *
+   * @return the stream
+   */
+  public long getStream() {
+    return stream;
+  }
+
+  /**
+   * Gets the current state, the first three values belong to the first
+   * component, the last three values to the second one.
+   *
+   * @return a copy of the state
+   */
+  public long[] getState() {
+    return new long[] { s1[0], s1[1], s1[2], s2[0], s2[1], s2[2] };
+  }
+
+  @Override
+  public RNGInfo getInfo() {
+    return RNGINFO;
+  }
+
+  /**
+   * Marks the current state as start of the substream.
+   */
+  private void startSubstream() {
+    substream1 = s1.clone();
+    substream2 = s2.clone();
+  }
+
+  /**
+   * Checks whether three values of a state are valid for the given modulus.
+   *
+   * @param state
+   *          the state
+   * @param offset
+   *          the index of the first value
+   * @param m
+   *          the modulus
+   * @return true, if all values are in [0, m) and not all zero
+   */
+  private static boolean isValid(long[] state, int offset, long m) {
+    boolean nonZero = false;
+    for (int i = offset; i < offset + 3; i++) {
+      if (state[i] < 0 || state[i] >= m) {
+        return false;
+      }
+      nonZero |= state[i] != 0;
+    }
+    return nonZero;
+  }
+
+  /**
+   * Computes (a · b) mod m for a, b in [0, m) and m &lt; 2<sup>32</sup>
+   * without overflow.
+   *
+   * @param a
+   *          the first factor
+   * @param b
+   *          the second factor
+   * @param m
+   *          the modulus
+   * @return the product modulo m
+   */
+  static long multiply(long a, long b, long m) {
+    long high = (a * (b >>> 16)) % m;
+    return ((high << 16) + a * (b & 0xffffL)) % m;
+  }
+
+  /**
+   * Computes the product of a 3×3 matrix and a vector modulo m.
+   *
+   * @param a
+   *          the matrix
+   * @param v
+   *          the vector
+   * @param m
+   *          the modulus
+   * @return the product
+   */
+  static long[] multiply(long[][] a, long[] v, long m) {
+    long[] result = new long[3];
+    for (int i = 0; i < 3; i++) {
+      long sum = 0;
+      for (int j = 0; j < 3; j++) {
+        sum = (sum + multiply(a[i][j], v[j], m)) % m;
+      }
+      result[i] = sum;
+    }
+    return result;
+  }
+
+  /**
+   * Computes the product of two 3×3 matrices modulo m.
+   *
+   * @param a
+   *          the first matrix
+   * @param b
+   *          the second matrix
+   * @param m
+   *          the modulus
+   * @return the product
+   */
+  static long[][] multiply(long[][] a, long[][] b, long m) {
+    long[][] result = new long[3][3];
+    for (int i = 0; i < 3; i++) {
+      for (int j = 0; j < 3; j++) {
+        long sum = 0;
+        for (int k = 0; k < 3; k++) {
+          sum = (sum + multiply(a[i][k], b[k][j], m)) % m;
+        }
+        result[i][j] = sum;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes a<sup>n</sup> modulo m by repeated squaring.
+   *
+   * @param a
+   *          the matrix
+   * @param n
+   *          the exponent, not negative
+   * @param m
+   *          the modulus
+   * @return the power
+   */
+  static long[][] power(long[][] a, long n, long m) {
+    long[][] result = { { 1, 0, 0 }, { 0, 1, 0 }, { 0, 0, 1 } };
+    long[][] square = a;
+    for (long e = n; e > 0; e >>>= 1) {
+      if ((e & 1) != 0) {
+        result = multiply(result, square, m);
+      }
+      if (e > 1) {
+        square = multiply(square, square, m);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Computes a<sup>2<sup>e</sup></sup> modulo m by squaring e times.
+   *
+   * @param a
+   *          the matrix
+   * @param e
+   *          the exponent of the exponent
+   * @param m
+   *          the modulus
+   * @return the power
+   */
+  private static long[][] powerOfTwo(long[][] a, int e, long m) {
+    long[][] result = a;
+    for (int i = 0; i < e; i++) {
+      result = multiply(result, result, m);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.generators.mrg32k3a;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.plugintype.RandomGeneratorFactory;
+
+/**
+ * Handles creation of instances of the {@link MRG32k3a} generator, for the
+ * first or any other stream of a seed.
+ */
+public class MRG32k3aGeneratorFactory extends RandomGeneratorFactory {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 2190374461547342218L;
+
+  @Override
+  public IRandom create(Long seed) {
+    return new MRG32k3a(seed);
+  }
+
+  @Override
+  public IRandom create(Long seed, long stream) {
+    return new MRG32k3a(seed, stream);
+  }
+
+  @Override
+  public boolean supportsStreams() {
+    return true;
+  }
+
+}
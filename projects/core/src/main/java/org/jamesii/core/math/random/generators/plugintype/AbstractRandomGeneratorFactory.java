@@ -22,4 +22,10 @@ public class AbstractRandomGeneratorFactory extends
   /** Seeds of the RNG to be used. */
   public static final String SEED = "seed";
 
+  /**
+   * Number of the stream of the seed to be used, see
+   * {@link RandomGeneratorFactory#create(Long, long)}.
+   */
+  public static final String STREAM = "stream";
+
 }
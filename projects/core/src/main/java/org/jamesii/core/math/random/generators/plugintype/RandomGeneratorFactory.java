@@ -9,6 +9,7 @@ package org.jamesii.core.math.random.generators.plugintype;
 import org.jamesii.core.factories.Context;
 import org.jamesii.core.factories.Factory;
 import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.SplitMix;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.parameters.ParameterBlocks;
 
@@ -32,11 +33,39 @@ public abstract class RandomGeneratorFactory extends Factory<IRandom> {
    */
   public abstract IRandom create(Long seed);
 
+  /**
+   * Creates a random number generator for the given stream of the given seed.
+   * If the generator {@link #supportsStreams() supports streams}, generators
+   * of the same seed and different streams yield non-overlapping sequences.
+   * Otherwise the generator is created with a seed derived from seed and
+   * stream, which is reproducible but does not rule out overlaps.
+   * 
+   * @param seed
+   *          The seed to use.
+   * @param stream
+   *          The number of the stream, must not be negative.
+   * @return An instance of the respective random number generator.
+   */
+  public IRandom create(Long seed, long stream) {
+    return create(SplitMix.deriveSeed(seed, stream));
+  }
+
+  /**
+   * Checks whether the generators created support non-overlapping streams,
+   * see {@link #create(Long, long)}.
+   * 
+   * @return true, if streams are supported
+   */
+  public boolean supportsStreams() {
+    return false;
+  }
+
   /**
    * Creates a random number generator with the given parameters.
  * @param block
    *          The parameter block to use. Should contain a “seed” parameter as
-   *          well as generator-specific ones.
+   *          well as generator-specific ones. If it contains a “stream”
+   *          parameter, the generator for this stream of the seed is created.
  * @return An instance of the respective random number generator.
    */
   @Override
@@ -44,6 +73,12 @@ public abstract class RandomGeneratorFactory extends Factory<IRandom> {
     Long seed =
         ParameterBlocks.getSubBlockValue(block,
             AbstractRandomGeneratorFactory.SEED);
+    Long stream =
+        ParameterBlocks.getSubBlockValue(block,
+            AbstractRandomGeneratorFactory.STREAM);
+    if (stream != null) {
+      return create(seed, stream);
+    }
     return create(seed);
   }
 
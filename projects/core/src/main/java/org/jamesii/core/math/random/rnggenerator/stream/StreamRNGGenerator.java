@@ -0,0 +1,203 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.rnggenerator.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3aGeneratorFactory;
+import org.jamesii.core.math.random.generators.plugintype.AbstractRandomGeneratorFactory;
+import org.jamesii.core.math.random.generators.plugintype.RandomGeneratorFactory;
+import org.jamesii.core.math.random.rnggenerator.IRNGGenerator;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterizedFactory;
+
+/**
+ * RNG generator that hands out the streams of a single seed instead of
+ * generating new seeds. The generator returned for a stream number depends on
+ * the seed and the stream number only. {@link #getNextRNG()} hands out the
+ * streams one after the other, without locking.
+ * <p>
+ * While a thread sets up a replication (see {@link #startReplication(long)}),
+ * {@link #getNextRNG()} instead hands out the generators of this replication
+ * (see {@link #getRNG(long, int)}) in the order in which they are requested by
+ * the thread. Thus the model and the processor of replication <i>i</i> get the
+ * very same numbers, regardless of the order in which the replications are
+ * executed or the host they are executed on. The
+ * {@link org.jamesii.core.experiments.tasks.setup.internalsimrun.SimulationRunSetup}
+ * does so with the replication number of each simulation run, i.e., the
+ * replications with the same number of different configurations use the same
+ * streams (common random numbers).
+ * <p>
+ * Streams do not overlap if the {@link RandomGeneratorFactory} used
+ * {@link RandomGeneratorFactory#supportsStreams() supports streams}, as the
+ * default {@link MRG32k3aGeneratorFactory} does. For other factories the
+ * generators are seeded with seeds derived from seed and stream number.
+ */
+public class StreamRNGGenerator implements IRNGGenerator {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -5338465919017474420L;
+
+  /** The {@link RandomGeneratorFactory} to be used. */
+  private ParameterizedFactory<RandomGeneratorFactory> rngFactory =
+      new ParameterizedFactory<RandomGeneratorFactory>(
+          new MRG32k3aGeneratorFactory());
+
+  /** The seed the streams belong to. */
+  private volatile long seed;
+
+  /**
+   * The first stream of the replications; the streams below are handed out by
+   * {@link #getNextRNG()} outside of replications.
+   */
+  private static final long FIRST_REPLICATION_STREAM = 1L << 62;
+
+  /** The maximal number of generators per replication. */
+  private static final int GENERATORS_PER_REPLICATION = 1 << 16;
+
+  /**
+   * The replication the current thread sets up (if any) and the number of
+   * generators handed out for it so far.
+   */
+  private static final ThreadLocal<long[]> REPLICATION = new ThreadLocal<>();
+
+  /** The number of the stream to be returned by {@link #getNextRNG()}. */
+  private final AtomicLong nextStream = new AtomicLong();
+
+  /**
+   * Default constructor, uses the current time as seed.
+   */
+  public StreamRNGGenerator() {
+    this(System.currentTimeMillis());
+  }
+
+  /**
+   * Instantiates a new stream RNG generator.
+   *
+   * @param seed
+   *          the seed
+   */
+  public StreamRNGGenerator(long seed) {
+    setSeed(seed);
+  }
+
+  @Override
+  public final void setSeed(long seed) {
+    this.seed = seed;
+    nextStream.set(0);
+    SimSystem.report(Level.CONFIG,
+        "A stream based random number generator generator has been "
+            + "initialized with a seed of " + seed);
+  }
+
+  /**
+   * Gets the seed the streams belong to.
+   *
+   * @return the seed
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  @Override
+  public IRandom getNextRNG() {
+    long[] replication = REPLICATION.get();
+    if (replication != null) {
+      return getRNG(replication[0], (int) replication[1]++);
+    }
+    return getRNG(nextStream.getAndIncrement());
+  }
+
+  /**
+   * Gets the given generator of a replication, i.e., the generator that the
+   * call of {@link #getNextRNG()} with this number (counting from zero)
+   * returns while the replication is set up. The generator depends on the seed,
+   * the replication and the generator number only, and its stream is distinct
+   * from those handed out outside of replications.
+   *
+   * @param replication
+   *          the number of the replication, must not be negative
+   * @param generator
+   *          the number of the generator within the replication, must not be
+   *          negative
+   * @return the generator
+   */
+  public IRandom getRNG(long replication, int generator) {
+    if (replication < 0
+        || replication >= FIRST_REPLICATION_STREAM / GENERATORS_PER_REPLICATION) {
+      throw new IllegalArgumentException("Invalid replication: " + replication);
+    }
+    if (generator < 0 || generator >= GENERATORS_PER_REPLICATION) {
+      throw new IllegalArgumentException("Invalid generator number: "
+          + generator + " (at most " + GENERATORS_PER_REPLICATION
+          + " generators per replication are supported)");
+    }
+    return getRNG(FIRST_REPLICATION_STREAM + replication
+        * GENERATORS_PER_REPLICATION + generator);
+  }
+
+  /**
+   * Marks the start of the set-up of a replication in the current thread. Until
+   * {@link #finishReplication()} is called, {@link #getNextRNG()} hands out the
+   * generators of the replication to this thread. Affects all
+   * {@link StreamRNGGenerator}s, and has no effect for other
+   * {@link org.jamesii.core.math.random.rnggenerator.IRNGGenerator}s.
+   *
+   * @param replication
+   *          the number of the replication, must not be negative
+   */
+  public static void startReplication(long replication) {
+    if (replication < 0) {
+      throw new IllegalArgumentException(
+          "The replication must not be negative.");
+    }
+    REPLICATION.set(new long[] { replication, 0 });
+  }
+
+  /**
+   * Marks the end of the set-up of a replication in the current thread, see
+   * {@link #startReplication(long)}.
+   */
+  public static void finishReplication() {
+    REPLICATION.remove();
+  }
+
+  /**
+   * Gets the generator of the given stream. The generator depends on the seed
+   * and the stream number only, calling the method twice with the same number
+   * yields two generators producing the same sequence.
+   *
+   * @param stream
+   *          the number of the stream, must not be negative
+   * @return the generator of the stream
+   */
+  public IRandom getRNG(long stream) {
+    if (stream < 0) {
+      throw new IllegalArgumentException("The stream must not be negative.");
+    }
+    ParameterBlock parameters = rngFactory.getParameters().getCopy();
+    parameters.addSubBl(AbstractRandomGeneratorFactory.SEED, seed);
+    parameters.addSubBl(AbstractRandomGeneratorFactory.STREAM, stream);
+    return rngFactory.getFactoryInstance().create(parameters,
+        SimSystem.getRegistry().createContext());
+  }
+
+  @Override
+  public ParameterizedFactory<RandomGeneratorFactory> getRNGFactory() {
+    return rngFactory;
+  }
+
+  @Override
+  public void setRNGFactory(
+      ParameterizedFactory<RandomGeneratorFactory> rngFactory) {
+    this.rngFactory = rngFactory;
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.rnggenerator.stream;
+
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.math.random.generators.plugintype.RandomGeneratorFactory;
+import org.jamesii.core.math.random.rnggenerator.IRNGGenerator;
+import org.jamesii.core.math.random.rnggenerator.plugintype.RNGGeneratorFactory;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.parameters.ParameterizedFactory;
+
+/**
+ * Handles creation of instances of the {@link StreamRNGGenerator}.
+ */
+public class StreamRNGGeneratorFactory extends RNGGeneratorFactory {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 4426361920608489137L;
+
+  @Override
+  public IRNGGenerator create(ParameterBlock parameter, Context context) {
+    Long seed =
+        ParameterBlocks.getSubBlockValue(parameter,
+            IRNGGenerator.RNG_INIT_SEED);
+    StreamRNGGenerator generator =
+        seed == null ? new StreamRNGGenerator() : new StreamRNGGenerator(seed);
+    ParameterizedFactory<RandomGeneratorFactory> rngFactory =
+        ParameterBlocks.getSubBlockValue(parameter, IRNGGenerator.RNG_FACTORY);
+    if (rngFactory != null) {
+      generator.setRNGFactory(rngFactory);
+    }
+    return generator;
+  }
+
+}
@@ -0,0 +1,35 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.model;
+
+/**
+ * Models which can create fresh instances of themselves without being read
+ * again should implement this interface. The model read once is kept as a
+ * template by the
+ * {@link org.jamesii.core.experiments.tasks.setup.internalsimrun.ModelTemplateCache}
+ * , and each further replication of the same configuration is executed on an
+ * instance created by {@link #instantiate()}.
+ *
+ * @see org.jamesii.core.experiments.tasks.setup.internalsimrun.ModelTemplateCache
+ */
+public interface IInstantiableModel extends IModel {
+
+  /**
+   * Creates a new instance of this model. The instance has to be independent
+   * of this model (and of all other instances), i.e., executing it must not
+   * change this model, and it has to be equal to the model that would result
+   * from reading the model again with the same parameters. This model is not
+   * executed itself, so it can share immutable parts (e.g., a parsed
+   * structure) with its instances.
+   * <p>
+   * This method may be called concurrently, it must not change this model.
+   *
+   * @return the new instance
+   */
+  IModel instantiate();
+
+}
@@ -0,0 +1,626 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.observe;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.base.IEntity;
+
+/**
+ * Mediator which informs {@link IAsynchronousObserver}s asynchronously. In
+ * contrast to the {@link Mediator} these observers are not updated on the
+ * thread calling {@link #notifyObservers(IObservable, Object)} (usually the
+ * thread executing the simulation). Instead, their snapshots of the observed
+ * state are taken on this thread and put into a ring buffer of preallocated
+ * slots, which is drained in batches by a background thread passing the
+ * snapshots to the observers. Thus, the simulation does not have to wait for
+ * observers writing to a data storage, and the observers still see the state
+ * that caused the notification.
+ * <p>
+ * All other observers may read the state of the entity when they are updated,
+ * so they are updated on the notifying thread, as by the {@link Mediator}.
+ * <p>
+ * The ring buffer has a single producer: the notify methods must not be
+ * called concurrently, which is the case if the observed entities are
+ * changed by a single simulation thread only. Registering and unregistering
+ * observers is possible from any thread.
+ * <p>
+ * What happens if the buffer is full is determined by the {@link Backpressure}
+ * policy. Before the observed data is used (e.g., at the end of a simulation
+ * run) {@link #flush()} or {@link #close()} have to be called.
+ */
+public class AsynchronousMediator implements IMediator, Serializable {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -3171407920463517712L;
+
+  /**
+   * Policies for handling notifications if the buffer is full.
+   */
+  public enum Backpressure {
+
+    /** Wait until the observers caught up. No notification is lost. */
+    BLOCK,
+
+    /** Discard the notifications which do not fit into the buffer. */
+    DROP,
+
+    /**
+     * Once the buffer is half full, only every n-th notification is accepted
+     * (see {@link AsynchronousMediator#getSampleInterval()}), if it is full
+     * the notifications are discarded.
+     */
+    SAMPLE
+  }
+
+  /** The default number of slots of the buffer. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** The default sample interval for {@link Backpressure#SAMPLE}. */
+  public static final int DEFAULT_SAMPLE_INTERVAL = 10;
+
+  /** The maximal number of notifications dispatched before releasing slots. */
+  private static final int MAX_BATCH = 256;
+
+  /** The time to wait between checks of the buffer (in nanoseconds). */
+  private static final long WAIT_NANOS = 100000L;
+
+  /**
+   * The observers of an entity at some point in time, split into those
+   * updated synchronously and asynchronously. Immutable, so it can be stored
+   * with a notification.
+   */
+  private static final class Recipients {
+
+    /** The observers updated on the notifying thread. */
+    private final IObserver<?>[] synchronous;
+
+    /** The observers updated by the drainer. */
+    private final IAsynchronousObserver<?, ?>[] asynchronous;
+
+    /**
+     * Instantiates new recipients.
+     *
+     * @param observers
+     *          the observers
+     */
+    Recipients(List<IObserver<?>> observers) {
+      List<IObserver<?>> sync = new ArrayList<>();
+      List<IAsynchronousObserver<?, ?>> async = new ArrayList<>();
+      for (IObserver<?> observer : observers) {
+        if (observer instanceof IAsynchronousObserver) {
+          async.add((IAsynchronousObserver<?, ?>) observer);
+        } else {
+          sync.add(observer);
+        }
+      }
+      synchronous = sync.toArray(new IObserver<?>[sync.size()]);
+      asynchronous =
+          async.toArray(new IAsynchronousObserver<?, ?>[async.size()]);
+    }
+  }
+
+  /** The objectives. */
+  private final ConcurrentMap<IObservable, List<IObserver<?>>> objectives =
+      new ConcurrentHashMap<>();
+
+  /** The current recipients, per entity. Updated on (un)registration. */
+  private transient ConcurrentMap<IObservable, Recipients> recipients;
+
+  /** The number of slots, a power of two. */
+  private final int capacity;
+
+  /** The policy applied if the buffer is full. */
+  private final Backpressure backpressure;
+
+  /** Every n-th notification is accepted when sampling. */
+  private final int sampleInterval;
+
+  /** The entities of the slots. */
+  private transient IObservable[] entities;
+
+  /** The recipients of the slots. */
+  private transient Recipients[] slotRecipients;
+
+  /**
+   * The snapshots of the slots, one per asynchronous recipient. The arrays are
+   * kept and only replaced if more observers are registered.
+   */
+  private transient Object[][] snapshots;
+
+  /** The position of the next slot to be read. Written by the drainer only. */
+  private transient AtomicLong head;
+
+  /** The position of the next slot to be written. Written by the producer. */
+  private transient AtomicLong tail;
+
+  /** The thread draining the buffer, created on the first notification. */
+  private transient Thread drainer;
+
+  /** Flag set by the drainer before it waits for new notifications. */
+  private transient volatile boolean drainerWaiting;
+
+  /** Flag indicating that the mediator has been closed. */
+  private transient volatile boolean closed;
+
+  /** The first exception thrown by an observer, if any. */
+  private transient volatile Throwable failure;
+
+  /** The number of notifications discarded. Written by the producer. */
+  private transient volatile long dropped;
+
+  /** The number of notifications seen while sampling. */
+  private transient long sampleCounter;
+
+  /**
+   * Instantiates a new asynchronous mediator with the default capacity, which
+   * blocks if the buffer is full.
+   */
+  public AsynchronousMediator() {
+    this(DEFAULT_CAPACITY, Backpressure.BLOCK);
+  }
+
+  /**
+   * Instantiates a new asynchronous mediator.
+   *
+   * @param capacity
+   *          the minimal number of slots of the buffer, rounded up to a power
+   *          of two
+   * @param backpressure
+   *          the policy applied if the buffer is full
+   */
+  public AsynchronousMediator(int capacity, Backpressure backpressure) {
+    this(capacity, backpressure, DEFAULT_SAMPLE_INTERVAL);
+  }
+
+  /**
+   * Instantiates a new asynchronous mediator.
+   *
+   * @param capacity
+   *          the minimal number of slots of the buffer, rounded up to a power
+   *          of two
+   * @param backpressure
+   *          the policy applied if the buffer is full
+   * @param sampleInterval
+   *          every n-th notification is accepted if the buffer is half full
+   *          and the policy is {@link Backpressure#SAMPLE}
+   */
+  public AsynchronousMediator(int capacity, Backpressure backpressure,
+      int sampleInterval) {
+    if (capacity < 2 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("The capacity has to be in [2, 2^30]");
+    }
+    if (sampleInterval < 1) {
+      throw new IllegalArgumentException(
+          "The sample interval has to be positive");
+    }
+    this.capacity = Integer.highestOneBit(capacity - 1) << 1;
+    this.backpressure =
+        backpressure == null ? Backpressure.BLOCK : backpressure;
+    this.sampleInterval = sampleInterval;
+    setTransientFields();
+  }
+
+  @Override
+  public synchronized void register(IObservable entity,
+      IObserver<?> observer) {
+    List<IObserver<?>> observers = objectives.get(entity);
+    if (observers == null) {
+      observers = new CopyOnWriteArrayList<>();
+      objectives.put(entity, observers);
+    }
+    observers.add(observer);
+    updateRecipients(entity);
+  }
+
+  @Override
+  public synchronized void unRegister(IObservable entity) {
+    objectives.remove(entity);
+    updateRecipients(entity);
+  }
+
+  @Override
+  public synchronized void unRegister(IObservable entity,
+      IObserver<?> observer) {
+    List<IObserver<?>> obsList = objectives.get(entity);
+    if (obsList != null) {
+      obsList.remove(observer);
+      updateRecipients(entity);
+    }
+  }
+
+  /**
+   * Update the recipients of the given entity after its observers changed.
+   *
+   * @param entity
+   *          the entity
+   */
+  private void updateRecipients(IObservable entity) {
+    List<IObserver<?>> observers = objectives.get(entity);
+    if (observers == null || observers.isEmpty()) {
+      recipients.remove(entity);
+    } else {
+      recipients.put(entity, new Recipients(observers));
+    }
+  }
+
+  @Override
+  public List<IObserver<?>> getObserver(IObservable entity) {
+    return objectives.get(entity);
+  }
+
+  @Override
+  public void notifyObservers(IObservable sender) {
+    notifyObservers(sender, null);
+  }
+
+  @Override
+  public void notifyObservers(IObservable sender, Object hint) {
+    Recipients r = recipients.get(sender);
+    if (r == null) {
+      return;
+    }
+    update(r.synchronous, sender, hint);
+    if (r.asynchronous.length == 0) {
+      return;
+    }
+    if (closed) {
+      // nobody drains the buffer anymore
+      updateDirectly(r.asynchronous, sender, hint);
+      return;
+    }
+
+    long t = tail.get();
+    long free = capacity - (t - head.get());
+    if (free == 0
+        || (backpressure == Backpressure.SAMPLE && free <= capacity / 2)) {
+      switch (backpressure) {
+      case BLOCK:
+        awaitSlot(t);
+        break;
+      case SAMPLE:
+        if (free > 0 && ++sampleCounter % sampleInterval == 0) {
+          break;
+        }
+        dropped++;
+        return;
+      default:
+        dropped++;
+        return;
+      }
+    }
+
+    int slot = (int) t & (capacity - 1);
+    Object[] snapshot = snapshots[slot];
+    if (snapshot == null || snapshot.length < r.asynchronous.length) {
+      snapshot = new Object[r.asynchronous.length];
+      snapshots[slot] = snapshot;
+    }
+    takeSnapshots(r.asynchronous, sender, hint, snapshot);
+    entities[slot] = sender;
+    slotRecipients[slot] = r;
+    tail.set(t + 1);
+
+    if (drainer == null) {
+      startDrainer();
+    } else if (drainerWaiting) {
+      LockSupport.unpark(drainer);
+    }
+  }
+
+  /**
+   * Wait until the slot at the given position has been released by the
+   * drainer.
+   *
+   * @param position
+   *          the position
+   */
+  private void awaitSlot(long position) {
+    while (position - head.get() >= capacity) {
+      LockSupport.unpark(drainer);
+      LockSupport.parkNanos(this, WAIT_NANOS);
+    }
+  }
+
+  /**
+   * Start the thread draining the buffer.
+   */
+  private void startDrainer() {
+    drainer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        drain();
+      }
+    }, "Asynchronous observation");
+    drainer.setDaemon(true);
+    drainer.start();
+  }
+
+  /**
+   * The loop of the drainer: dispatch the notifications in the buffer until
+   * the mediator is closed and the buffer is empty.
+   */
+  private void drain() {
+    while (true) {
+      long h = head.get();
+      long t = tail.get();
+      if (h == t) {
+        if (closed) {
+          return;
+        }
+        drainerWaiting = true;
+        if (tail.get() == h && !closed) {
+          LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+        drainerWaiting = false;
+        continue;
+      }
+
+      long end = Math.min(t, h + MAX_BATCH);
+      for (long i = h; i < end; i++) {
+        int slot = (int) i & (capacity - 1);
+        IObservable entity = entities[slot];
+        IAsynchronousObserver<?, ?>[] observers =
+            slotRecipients[slot].asynchronous;
+        Object[] snapshot = snapshots[slot];
+        entities[slot] = null;
+        slotRecipients[slot] = null;
+        try {
+          updateFromSnapshots(observers, entity, snapshot);
+        } catch (Throwable th) {
+          if (failure == null) {
+            failure = th;
+          }
+          SimSystem.report(Level.SEVERE, "An observer of " + entity
+              + " failed.", th);
+        } finally {
+          Arrays.fill(snapshot, 0, observers.length, null);
+        }
+      }
+      head.set(end);
+    }
+  }
+
+  /**
+   * Update the given observers.
+   *
+   * @param observers
+   *          the observers
+   * @param entity
+   *          the entity
+   * @param hint
+   *          the hint, may be null
+   */
+  @SuppressWarnings("unchecked")
+  // casts to IObserver<IObservable> are OK because type compatibility is
+  // ensured
+  private static void update(IObserver<?>[] observers, IObservable entity,
+      Object hint) {
+    if (hint == null) {
+      for (IObserver<?> observer : observers) {
+        ((IObserver<IObservable>) observer).update(entity);
+      }
+    } else {
+      for (IObserver<?> observer : observers) {
+        ((IObserver<IObservable>) observer).update(entity, hint);
+      }
+    }
+  }
+
+  /**
+   * Take the snapshots of the given asynchronous observers.
+   *
+   * @param observers
+   *          the observers
+   * @param entity
+   *          the entity
+   * @param hint
+   *          the hint, may be null
+   * @param snapshot
+   *          the snapshots, per observer (output)
+   */
+  @SuppressWarnings("unchecked")
+  private static void takeSnapshots(IAsynchronousObserver<?, ?>[] observers,
+      IObservable entity, Object hint, Object[] snapshot) {
+    for (int k = 0; k < observers.length; k++) {
+      snapshot[k] =
+          ((IAsynchronousObserver<IObservable, ?>) observers[k]).snapshot(
+              entity, hint);
+    }
+  }
+
+  /**
+   * Pass the snapshots to the given asynchronous observers.
+   *
+   * @param observers
+   *          the observers
+   * @param entity
+   *          the entity
+   * @param snapshot
+   *          the snapshots, per observer
+   */
+  @SuppressWarnings("unchecked")
+  private static void updateFromSnapshots(
+      IAsynchronousObserver<?, ?>[] observers, IObservable entity,
+      Object[] snapshot) {
+    for (int k = 0; k < observers.length; k++) {
+      ((IAsynchronousObserver<IObservable, Object>) observers[k])
+          .updateFromSnapshot(entity, snapshot[k]);
+    }
+  }
+
+  /**
+   * Take the snapshots of the given asynchronous observers and pass them on
+   * directly (after the mediator has been closed).
+   *
+   * @param observers
+   *          the observers
+   * @param entity
+   *          the entity
+   * @param hint
+   *          the hint, may be null
+   */
+  private static void updateDirectly(IAsynchronousObserver<?, ?>[] observers,
+      IObservable entity, Object hint) {
+    Object[] snapshot = new Object[observers.length];
+    takeSnapshots(observers, entity, hint, snapshot);
+    updateFromSnapshots(observers, entity, snapshot);
+  }
+
+  /**
+   * Wait until all notifications in the buffer have been dispatched. Has to
+   * be called by the thread notifying the observers.
+   *
+   * @throws ObserverException
+   *           if an observer has thrown an exception
+   */
+  public void flush() {
+    awaitEmpty();
+    Throwable th = failure;
+    if (th != null) {
+      failure = null;
+      throw new ObserverException("An observer failed: " + th.getMessage(),
+          th);
+    }
+  }
+
+  /**
+   * Dispatch the remaining notifications and stop the background thread.
+   * Notifications received afterwards are dispatched directly. Exceptions
+   * thrown by the observers have been reported already, they are not thrown
+   * here.
+   */
+  public void close() {
+    awaitEmpty();
+    closed = true;
+    Thread t = drainer;
+    if (t != null) {
+      LockSupport.unpark(t);
+      try {
+        t.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Wait until the buffer is empty.
+   */
+  private void awaitEmpty() {
+    long t = tail.get();
+    while (head.get() < t) {
+      LockSupport.unpark(drainer);
+      LockSupport.parkNanos(this, WAIT_NANOS);
+    }
+  }
+
+  /**
+   * Gets the number of notifications discarded due to the backpressure
+   * policy.
+   *
+   * @return the number of dropped notifications
+   */
+  public long getDroppedNotifications() {
+    return dropped;
+  }
+
+  /**
+   * Gets the number of slots of the buffer.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the policy applied if the buffer is full.
+   *
+   * @return the backpressure policy
+   */
+  public Backpressure getBackpressure() {
+    return backpressure;
+  }
+
+  /**
+   * Gets the sample interval used by {@link Backpressure#SAMPLE}.
+   *
+   * @return the sample interval
+   */
+  public int getSampleInterval() {
+    return sampleInterval;
+  }
+
+  /**
+   * Creates an asynchronous mediator if entity is not already mediated (in
+   * this case, nothing happens).
+   *
+   * @param entity
+   *          entity for which the mediator shall be created and set
+   * @param capacity
+   *          the capacity of the buffer
+   * @param backpressure
+   *          the policy applied if the buffer is full
+   * @return the created mediator, null if the entity had a mediator already
+   */
+  public static AsynchronousMediator create(IEntity entity, int capacity,
+      Backpressure backpressure) {
+    if (entity.getMediator() != null) {
+      return null;
+    }
+    AsynchronousMediator mediator =
+        new AsynchronousMediator(capacity, backpressure);
+    entity.setMediator(mediator);
+    return mediator;
+  }
+
+  /**
+   * Is called from the JAVA serialization API. Added
+   * {@link #setTransientFields()} call.
+   *
+   * @param in
+   * @throws IOException
+   * @throws ClassNotFoundException
+   */
+  private void readObject(ObjectInputStream in) throws IOException,
+      ClassNotFoundException {
+    in.defaultReadObject();
+    setTransientFields();
+  }
+
+  /**
+   * Restores transient fields after serialisation.
+   */
+  private void setTransientFields() {
+    recipients = new ConcurrentHashMap<>();
+    for (Map.Entry<IObservable, List<IObserver<?>>> e : objectives.entrySet()) {
+      if (!e.getValue().isEmpty()) {
+        recipients.put(e.getKey(), new Recipients(e.getValue()));
+      }
+    }
+    entities = new IObservable[capacity];
+    slotRecipients = new Recipients[capacity];
+    snapshots = new Object[capacity][];
+    head = new AtomicLong();
+    tail = new AtomicLong();
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.observe;
+
+/**
+ * Interface of observers which can be informed asynchronously by the
+ * {@link AsynchronousMediator}. On notification the mediator calls
+ * {@link #snapshot(IObservable, Object)} on the notifying thread, so the
+ * observer can copy everything it needs from the (still unchanged) entity.
+ * Later, the mediator's background thread passes this snapshot to
+ * {@link #updateFromSnapshot(IObservable, Object)}, when the entity may have
+ * changed already: this method must only use the snapshot, not the state of
+ * the entity. Observers which only use the hint can simply return it as
+ * snapshot.
+ * <p>
+ * Other mediators just call the update methods of {@link IObserver}.
+ *
+ * @param <E>
+ *          type of entity to observe
+ * @param <S>
+ *          type of the snapshots
+ */
+public interface IAsynchronousObserver<E extends IObservable, S> extends
+    IObserver<E> {
+
+  /**
+   * Copy the state to be observed. Called on the notifying thread, must not
+   * keep references to mutable parts of the entity's state.
+   *
+   * @param entity
+   *          the entity that was updated
+   * @param hint
+   *          the hint, null if none has been given
+   * @return the snapshot
+   */
+  S snapshot(E entity, Object hint);
+
+  /**
+   * Observe the state copied by {@link #snapshot(IObservable, Object)}. Called
+   * by the background thread of the mediator, in the order of the
+   * notifications.
+   *
+   * @param entity
+   *          the entity that was updated, its state must not be read
+   * @param snapshot
+   *          the snapshot
+   */
+  void updateFromSnapshot(E entity, S snapshot);
+
+}
@@ -32,4 +32,16 @@ public class ObserverException extends RuntimeException {
     super();
   }
 
+  /**
+   * Instantiates a new observer exception.
+   * 
+   * @param msg
+   *          the msg to be printed
+   * @param cause
+   *          the cause
+   */
+  public ObserverException(String msg, Throwable cause) {
+    super(msg, cause);
+  }
+
 }
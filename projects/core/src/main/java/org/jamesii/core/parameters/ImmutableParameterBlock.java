@@ -0,0 +1,281 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.parameters;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.URI;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.UUID;
+
+/**
+ * Immutable (persistent) parameter block. Instances can be shared freely, so
+ * they do not need to be copied defensively. All methods changing a parameter
+ * block throw an {@link UnsupportedOperationException}, changed versions are
+ * created by {@link #with(String, Object)}, {@link #with(String,
+ * ParameterBlock)}, {@link #withValue(Object)} and {@link #without(String)}
+ * instead. These share all sub-blocks not changed with the original block,
+ * i.e., only the path to the changed sub-block is copied. A mutable copy can
+ * still be created by {@link #getCopy()}.
+ * <p>
+ * Immutable blocks are created by {@link #of(ParameterBlock)}, which shares
+ * the values of the original block, or by {@link #freeze(ParameterBlock)},
+ * which succeeds only if all values are known to be immutable themselves
+ * (e.g., strings, numbers, enums, classes and URIs). Blocks containing other
+ * (legacy, possibly mutable) values have to be copied as before.
+ *
+ * @see ParameterBlock
+ */
+public final class ImmutableParameterBlock extends ParameterBlock {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -4329380398561713376L;
+
+  /** The empty block. */
+  private static final ImmutableParameterBlock EMPTY =
+      new ImmutableParameterBlock(null,
+          Collections.<String, ParameterBlock> emptyMap());
+
+  /**
+   * Instantiates a new immutable parameter block.
+   *
+   * @param val
+   *          the value
+   * @param subBlocks
+   *          the sub-blocks, all immutable, the map must not be changed
+   *          afterwards
+   */
+  private ImmutableParameterBlock(Object val,
+      Map<String, ParameterBlock> subBlocks) {
+    super(val, Collections.unmodifiableMap(subBlocks));
+  }
+
+  /**
+   * Gets the empty block, i.e., the block without value and sub-blocks.
+   *
+   * @return the empty block
+   */
+  public static ImmutableParameterBlock empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Creates an immutable block with the given value and without sub-blocks.
+   *
+   * @param val
+   *          the value
+   * @return the block
+   */
+  public static ImmutableParameterBlock of(Object val) {
+    if (val == null) {
+      return EMPTY;
+    }
+    return new ImmutableParameterBlock(val,
+        Collections.<String, ParameterBlock> emptyMap());
+  }
+
+  /**
+   * Creates an immutable version of the given parameter block. The values are
+   * shared with the given block, immutable sub-blocks are reused.
+   *
+   * @param block
+   *          the parameter block, might be null
+   * @return the immutable version of the block, null if the block is null
+   */
+  public static ImmutableParameterBlock of(ParameterBlock block) {
+    return convert(block, false);
+  }
+
+  /**
+   * Creates an immutable version of the given parameter block if all of its
+   * values are immutable (see {@link #isImmutableValue(Object)}), so that the
+   * result can be shared without any copying.
+   *
+   * @param block
+   *          the parameter block, might be null
+   * @return the immutable version of the block, null if the block is null or
+   *         contains a value which might be mutable
+   */
+  public static ImmutableParameterBlock freeze(ParameterBlock block) {
+    return convert(block, true);
+  }
+
+  /**
+   * Converts a parameter block recursively.
+   *
+   * @param block
+   *          the block
+   * @param immutableValuesOnly
+   *          flag whether values which might be mutable shall be rejected
+   * @return the immutable block, null if the block is null or has been
+   *         rejected
+   */
+  private static ImmutableParameterBlock convert(ParameterBlock block,
+      boolean immutableValuesOnly) {
+    if (block == null) {
+      return null;
+    }
+    if (block instanceof ImmutableParameterBlock) {
+      return (ImmutableParameterBlock) block;
+    }
+    Object val = block.getValue();
+    if (immutableValuesOnly && !isImmutableValue(val)) {
+      return null;
+    }
+    Map<String, ParameterBlock> subBlocks = block.getSubBlocks();
+    if (subBlocks.isEmpty()) {
+      return of(val);
+    }
+    Map<String, ParameterBlock> converted = new HashMap<>(subBlocks.size());
+    for (Entry<String, ParameterBlock> entry : subBlocks.entrySet()) {
+      ParameterBlock sub = entry.getValue();
+      ImmutableParameterBlock immutableSub = convert(sub, immutableValuesOnly);
+      if (sub != null && immutableSub == null) {
+        return null;
+      }
+      converted.put(entry.getKey(), immutableSub);
+    }
+    return new ImmutableParameterBlock(val, converted);
+  }
+
+  /**
+   * Checks whether a value is known to be immutable, and thus can be shared
+   * between parameter blocks without being copied.
+   *
+   * @param val
+   *          the value
+   * @return true, if the value is immutable (null is considered immutable)
+   */
+  public static boolean isImmutableValue(Object val) {
+    return val == null || val instanceof String || val instanceof Integer
+        || val instanceof Long || val instanceof Double
+        || val instanceof Boolean || val instanceof Float
+        || val instanceof Short || val instanceof Byte
+        || val instanceof Character || val instanceof BigInteger
+        || val instanceof BigDecimal || val instanceof Enum<?>
+        || val instanceof Class<?> || val instanceof URI
+        || val instanceof UUID || val instanceof File
+        || val instanceof ImmutableParameterBlock;
+  }
+
+  /**
+   * Creates a block with the given value and the sub-blocks of this one.
+   *
+   * @param val
+   *          the new value
+   * @return the changed block
+   */
+  public ImmutableParameterBlock withValue(Object val) {
+    return new ImmutableParameterBlock(val, new HashMap<>(getSubBlocks()));
+  }
+
+  /**
+   * Creates a block in which the value of the sub-block with the given
+   * identifier is replaced (the sub-block is added if not present). The
+   * sub-blocks of the sub-block are kept.
+   *
+   * @param ident
+   *          the identifier of the sub-block
+   * @param val
+   *          the new value of the sub-block
+   * @return the changed block
+   */
+  public ImmutableParameterBlock with(String ident, Object val) {
+    ParameterBlock sub = getSubBlock(ident);
+    ImmutableParameterBlock changed =
+        sub == null ? of(val) : ((ImmutableParameterBlock) sub).withValue(val);
+    return withSubBlock(ident, changed);
+  }
+
+  /**
+   * Creates a block in which the sub-block with the given identifier is
+   * replaced (or added) by the immutable version of the given block.
+   *
+   * @param ident
+   *          the identifier of the sub-block
+   * @param block
+   *          the new sub-block
+   * @return the changed block
+   */
+  public ImmutableParameterBlock with(String ident, ParameterBlock block) {
+    return withSubBlock(ident, of(block));
+  }
+
+  /**
+   * Creates a block without the sub-block with the given identifier.
+   *
+   * @param ident
+   *          the identifier of the sub-block
+   * @return the changed block, this one if there is no such sub-block
+   */
+  public ImmutableParameterBlock without(String ident) {
+    if (!hasSubBlock(ident)) {
+      return this;
+    }
+    Map<String, ParameterBlock> subBlocks = new HashMap<>(getSubBlocks());
+    subBlocks.remove(ident);
+    return new ImmutableParameterBlock(getValue(), subBlocks);
+  }
+
+  /**
+   * Creates a block with the given sub-block, sharing all other sub-blocks.
+   *
+   * @param ident
+   *          the identifier of the sub-block
+   * @param block
+   *          the sub-block
+   * @return the changed block
+   */
+  private ImmutableParameterBlock withSubBlock(String ident,
+      ImmutableParameterBlock block) {
+    Map<String, ParameterBlock> subBlocks =
+        new HashMap<>(getSubBlocks().size() + 1);
+    subBlocks.putAll(getSubBlocks());
+    subBlocks.put(ident, block);
+    return new ImmutableParameterBlock(getValue(), subBlocks);
+  }
+
+  @Override
+  public void addSubBlock(String ident, ParameterBlock block) {
+    throw new UnsupportedOperationException(
+        "Immutable parameter block, use with(...) instead.");
+  }
+
+  @Override
+  public ParameterBlock addSubBlock(String ident, Object o) {
+    throw new UnsupportedOperationException(
+        "Immutable parameter block, use with(...) instead.");
+  }
+
+  @Override
+  public ParameterBlock removeSubBlock(String ident) {
+    throw new UnsupportedOperationException(
+        "Immutable parameter block, use without(...) instead.");
+  }
+
+  @Override
+  public void setValue(Object val) {
+    throw new UnsupportedOperationException(
+        "Immutable parameter block, use withValue(...) instead.");
+  }
+
+  @Override
+  public ParameterBlock setVal(Object val) {
+    throw new UnsupportedOperationException(
+        "Immutable parameter block, use withValue(...) instead.");
+  }
+
+  @Override
+  public void setSubBlocks(Map<String, ParameterBlock> subBlocks) {
+    throw new UnsupportedOperationException("Immutable parameter block.");
+  }
+
+}
@@ -95,7 +95,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    * @param block
    *          the sub-block
    */
-  public final void addSubBlock(String ident, ParameterBlock block) {
+  public void addSubBlock(String ident, ParameterBlock block) {
     subBlocks.put(ident, block);
   }
 
@@ -109,7 +109,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    * 
    * @return reference to the newly created sub-block
    */
-  public final ParameterBlock addSubBlock(String ident, Object o) {
+  public ParameterBlock addSubBlock(String ident, Object o) {
     ParameterBlock block = new ParameterBlock(o);
     subBlocks.put(ident, block);
     return block;
@@ -188,7 +188,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    * 
    * @return the removed parameter block, null if none was deleted
    */
-  public final ParameterBlock removeSubBlock(String ident) {
+  public ParameterBlock removeSubBlock(String ident) {
     return subBlocks.remove(ident);
   }
 
@@ -211,7 +211,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    * @param val
    *          the val
    */
-  public final void setValue(Object val) {
+  public void setValue(Object val) {
     value = val;
   }
 
@@ -223,7 +223,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    *          new value
    * @return this block
    */
-  public final ParameterBlock setVal(Object val) {
+  public ParameterBlock setVal(Object val) {
     value = val;
     return this;
   }
@@ -292,7 +292,7 @@ public class ParameterBlock implements Serializable, Comparable<ParameterBlock>
    * @param subBlocks
    *          the sub blocks
    */
-  public final void setSubBlocks(Map<String, ParameterBlock> subBlocks) {
+  public void setSubBlocks(Map<String, ParameterBlock> subBlocks) {
     this.subBlocks = subBlocks;
   }
 
@@ -199,7 +199,7 @@ public class SimulationRun extends NamedEntity implements ISimulationRun {
     // Get the parameters regarding processor configuration
     ParameterBlock apfp =
         ParameterBlocks.getSBOrEmpty(config.getExecParams(),
-            ProcessorFactory.class.getName());
+            ProcessorFactory.class.getName()).getCopy();
     apfp.addSubBlock(AbstractProcessorFactory.PARTITION, partition);
     ProcessorFactory pf =
         SimSystem.getRegistry()
@@ -227,10 +227,8 @@ public class SimulationRun extends NamedEntity implements ISimulationRun {
   private void initFromConfig() {
     startTime = config.getSimStartTime();
 
-    ParameterBlock pb = config.getStopPolicyParameters();
-    if (pb == null) {
-      pb = new ParameterBlock();
-    }
+    ParameterBlock pb =
+        ParameterBlocks.newOrCopy(config.getStopPolicyParameters());
     pb.addSubBlock(ComputationTaskStopPolicyFactory.COMPTASK, this);
 
     // It is necessary to consult the registry here (so that it, e.g., can
@@ -0,0 +1,70 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset;
+
+/**
+ * Event queue with a primitive (double) time base. In addition to the methods
+ * of {@link IEventQueue}, which have to work on boxed {@link Double} values and
+ * {@link Entry} objects, implementations of this interface provide a fast path
+ * operating on primitive time stamps. Processors executing huge numbers of
+ * hold operations can check whether the queue created for them implements this
+ * interface and use these methods instead, which avoids the allocation of a
+ * {@link Double} and an {@link Entry} per enqueue / dequeue operation.<br/>
+ * The boxed methods are still available (and have the same semantics), thus
+ * implementations of this interface can be used wherever an
+ * {@link IEventQueue} is required.
+ *
+ * @param <E>
+ *          the type of the events to be stored in the queue
+ */
+public interface IPrimitiveTimeEventQueue<E> extends IEventQueue<E, Double> {
+
+  /**
+   * Enqueue an event for the given time. Same as
+   * {@link #enqueue(Object, Comparable)} but without the need to box the time
+   * stamp.
+   *
+   * @param event
+   *          to be inserted into the queue
+   * @param time
+   *          of the event to happen
+   */
+  void enqueue(E event, double time);
+
+  /**
+   * Get the minimal time stamp. Does not modify the queue. Same as
+   * {@link #getMin()} but returns a primitive value.
+   *
+   * @return the current minimal time stamp, or {@link Double#NaN} if the queue
+   *         is empty
+   */
+  double getMinTime();
+
+  /**
+   * Dequeue the event with the smallest time stamp. Same as {@link #dequeue()}
+   * but only the event is returned, thus no {@link Entry} has to be created.
+   * If the time stamp of the event is required it has to be retrieved by
+   * calling {@link #getMinTime()} in before.
+   *
+   * @return the event with the smallest time stamp, or null if the queue is
+   *         empty
+   */
+  E dequeueMinEvent();
+
+  /**
+   * Update the time stamp of the given event. Same as
+   * {@link #requeue(Object, Comparable)} but without the need to box the time
+   * stamp. If the event is not in the queue it is enqueued.
+   *
+   * @param event
+   *          the event to be updated
+   * @param newTime
+   *          the new time stamp of the event
+   */
+  void requeue(E event, double newTime);
+
+}
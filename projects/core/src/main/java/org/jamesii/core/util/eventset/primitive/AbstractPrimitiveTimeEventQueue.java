@@ -0,0 +1,107 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jamesii.core.util.eventset.AbstractEventQueue;
+import org.jamesii.core.util.eventset.Entry;
+import org.jamesii.core.util.eventset.IPrimitiveTimeEventQueue;
+
+/**
+ * Base class for event queues with a primitive time base. All methods of the
+ * {@link org.jamesii.core.util.eventset.IEventQueue} interface working on
+ * boxed values are mapped to the primitive methods of
+ * {@link IPrimitiveTimeEventQueue}, thus subclasses only need to implement the
+ * primitive fast path (and the lookup methods).<br/>
+ * The boxed methods still create {@link Entry} / {@link Double} objects for
+ * their return values, i.e., only the primitive methods are allocation free.
+ *
+ * @param <E>
+ *          the type of the events to be stored in the queue
+ */
+public abstract class AbstractPrimitiveTimeEventQueue<E> extends
+    AbstractEventQueue<E, Double> implements IPrimitiveTimeEventQueue<E> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -2400745573810520366L;
+
+  @Override
+  public void enqueue(E event, Double time) {
+    enqueue(event, time.doubleValue());
+  }
+
+  @Override
+  public Entry<E, Double> dequeue() {
+    if (isEmpty()) {
+      return null;
+    }
+    double time = getMinTime();
+    return new Entry<>(dequeueMinEvent(), time);
+  }
+
+  @Override
+  public Double getMin() {
+    if (isEmpty()) {
+      return null;
+    }
+    return getMinTime();
+  }
+
+  @Override
+  public List<E> dequeueAll() {
+    List<E> result = new ArrayList<>();
+    if (isEmpty()) {
+      return result;
+    }
+    double time = getMinTime();
+    while (!isEmpty() && getMinTime() == time) {
+      result.add(dequeueMinEvent());
+    }
+    return result;
+  }
+
+  @Override
+  public Map<E, Object> dequeueAllHashed() {
+    Map<E, Object> result = new HashMap<>();
+    for (E e : dequeueAll()) {
+      result.put(e, null);
+    }
+    return result;
+  }
+
+  @Override
+  public void requeue(E event, Double newTime) {
+    requeue(event, newTime.doubleValue());
+  }
+
+  @Override
+  public void requeue(E event, Double oldTime, Double newTime) {
+    requeue(event, newTime.doubleValue());
+  }
+
+  /**
+   * Compute the capacity to be used if the given capacity does not suffice
+   * anymore.
+   *
+   * @param capacity
+   *          the current capacity
+   * @return the new capacity
+   */
+  protected static int grow(int capacity) {
+    int result = capacity + (capacity >> 1) + 1;
+    if (result < 0) {
+      throw new IllegalStateException(
+          "Event queue cannot store more than Integer.MAX_VALUE events.");
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,528 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Indexed 4-ary heap event queue. The time stamps and events are stored in
+ * parallel arrays organized as an implicit heap in which each node has
+ * {@link #ARITY} children (which results in a flatter heap and a better cache
+ * behaviour than a binary heap). In addition, the queue maintains an index
+ * mapping each event to its position in the heap, thus the operations working
+ * on a given event ({@link #getTime(Object)}, {@link #requeue(Object, double)},
+ * {@link #dequeue(Object)}) do not have to search the heap.<br/>
+ * The index is an open addressing hash table using reference identity (see
+ * {@link System#identityHashCode(Object)}), which corresponds to the identity
+ * semantics of {@link org.jamesii.core.util.eventset.Entry#compareTo(org.jamesii.core.util.eventset.Entry)}.
+ * Neither the heap nor the index create objects per operation, the arrays are
+ * only reallocated if the queue grows beyond its capacity.<br/>
+ * As the index can hold each event only once, enqueuing an event which is
+ * already in the queue updates its time stamp (as
+ * {@link #requeue(Object, double)} does).
+ *
+ * Classification<br/>
+ * <table>
+ * <tr>
+ * <td><b>Property</b></td>
+ * <td><b>Value</b></td>
+ * </tr>
+ * <tr>
+ * <td>List type</td>
+ * <td>1-tier list</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Operations</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>{@link #enqueue(Object, double)}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueMinEvent()}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueAll()}</td>
+ * <td>O(k log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #requeue(Object, double)}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeue(Object)}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #getTime(Object)}</td>
+ * <td>O(1)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #getMinTime()}</td>
+ * <td>O(1)</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Parameters</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>initial capacity</td>
+ * </tr>
+ * </table>
+ *
+ * @param <E>
+ *          the type of the events to be stored in the queue
+ */
+public class IndexedHeapEventQueue<E> extends
+    AbstractPrimitiveTimeEventQueue<E> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -7047417163592716236L;
+
+  /** The number of children per heap node. */
+  public static final int ARITY = 4;
+
+  /** The default initial capacity. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /** Marker for "no slot". */
+  private static final int NONE = -1;
+
+  /** The time stamps, heap ordered. */
+  private double[] times;
+
+  /** The events, parallel to {@link #times}. */
+  private Object[] events;
+
+  /** The number of events in the queue. */
+  private int size;
+
+  /**
+   * The slot of the index table of the event at a heap position (identity
+   * hash codes are not stable across serialization, thus the index is rebuilt
+   * on deserialization).
+   */
+  private transient int[] slots;
+
+  /** The events of the index table (open addressing, linear probing). */
+  private transient Object[] keys;
+
+  /** The heap positions of the events in {@link #keys}. */
+  private transient int[] positions;
+
+  /** Mask to compute the slot from a hash value. */
+  private transient int mask;
+
+  /**
+   * Instantiates a new indexed heap event queue.
+   */
+  public IndexedHeapEventQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new indexed heap event queue.
+   *
+   * @param initialCapacity
+   *          the number of events which can be stored before the internal
+   *          arrays have to be enlarged
+   */
+  public IndexedHeapEventQueue(int initialCapacity) {
+    super();
+    int capacity = Math.max(1, initialCapacity);
+    times = new double[capacity];
+    events = new Object[capacity];
+    slots = new int[capacity];
+    initIndex(tableSize(capacity));
+  }
+
+  @Override
+  public void enqueue(E event, double time) {
+    if (findSlot(event) != NONE) {
+      requeue(event, time);
+      return;
+    }
+    if (size == times.length) {
+      ensureCapacity(grow(size));
+    }
+    int slot = insertKey(event);
+    siftUp(size, event, time, slot);
+    size++;
+  }
+
+  @Override
+  public double getMinTime() {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    return times[0];
+  }
+
+  @Override
+  public E dequeueMinEvent() {
+    if (size == 0) {
+      return null;
+    }
+    E result = event(0);
+    removeAt(0);
+    return result;
+  }
+
+  @Override
+  public Double dequeue(E event) {
+    int slot = findSlot(event);
+    if (slot == NONE) {
+      return null;
+    }
+    int pos = positions[slot];
+    double time = times[pos];
+    removeAt(pos);
+    return time;
+  }
+
+  @Override
+  public List<E> dequeueAll(Double time) {
+    List<E> result = new ArrayList<>();
+    double t = time.doubleValue();
+    for (int i = 0; i < size; i++) {
+      if (times[i] == t) {
+        result.add(event(i));
+      }
+    }
+    for (E e : result) {
+      dequeue(e);
+    }
+    return result;
+  }
+
+  @Override
+  public Double getTime(E event) {
+    int slot = findSlot(event);
+    if (slot == NONE) {
+      return null;
+    }
+    return times[positions[slot]];
+  }
+
+  @Override
+  public void requeue(E event, double newTime) {
+    int slot = findSlot(event);
+    if (slot == NONE) {
+      enqueue(event, newTime);
+      return;
+    }
+    int pos = positions[slot];
+    if (newTime < times[pos]) {
+      siftUp(pos, event, newTime, slot);
+    } else {
+      siftDown(pos, event, newTime, slot);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void setSize(long newSize) {
+    super.setSize(newSize);
+    if (newSize > times.length && newSize <= Integer.MAX_VALUE) {
+      ensureCapacity((int) newSize);
+    }
+  }
+
+  /**
+   * Get the event stored at the given heap position.
+   *
+   * @param pos
+   *          the heap position
+   * @return the event
+   */
+  @SuppressWarnings("unchecked")
+  private E event(int pos) {
+    return (E) events[pos];
+  }
+
+  /**
+   * Remove the event at the given heap position.
+   *
+   * @param pos
+   *          the heap position
+   */
+  private void removeAt(int pos) {
+    removeKey(slots[pos]);
+    size--;
+    double lastTime = times[size];
+    Object lastEvent = events[size];
+    int lastSlot = slots[size];
+    events[size] = null;
+    if (pos == size) {
+      return;
+    }
+    siftDown(pos, lastEvent, lastTime, lastSlot);
+    if (events[pos] == lastEvent) {
+      siftUp(pos, lastEvent, lastTime, lastSlot);
+    }
+  }
+
+  /**
+   * Move the given entry up, starting at the given (free) position.
+   *
+   * @param pos
+   *          the start position
+   * @param event
+   *          the event
+   * @param time
+   *          the time stamp
+   * @param slot
+   *          the index slot of the event
+   */
+  private void siftUp(int pos, Object event, double time, int slot) {
+    int i = pos;
+    while (i > 0) {
+      int parent = (i - 1) / ARITY;
+      if (times[parent] <= time) {
+        break;
+      }
+      move(parent, i);
+      i = parent;
+    }
+    place(i, event, time, slot);
+  }
+
+  /**
+   * Move the given entry down, starting at the given (free) position.
+   *
+   * @param pos
+   *          the start position
+   * @param event
+   *          the event
+   * @param time
+   *          the time stamp
+   * @param slot
+   *          the index slot of the event
+   */
+  private void siftDown(int pos, Object event, double time, int slot) {
+    int i = pos;
+    while (true) {
+      int first = i * ARITY + 1;
+      if (first >= size) {
+        break;
+      }
+      int last = Math.min(first + ARITY, size);
+      int child = first;
+      for (int c = first + 1; c < last; c++) {
+        if (times[c] < times[child]) {
+          child = c;
+        }
+      }
+      if (time <= times[child]) {
+        break;
+      }
+      move(child, i);
+      i = child;
+    }
+    place(i, event, time, slot);
+  }
+
+  /**
+   * Move the entry at the heap position from to the heap position to.
+   *
+   * @param from
+   *          the source position
+   * @param to
+   *          the target position
+   */
+  private void move(int from, int to) {
+    times[to] = times[from];
+    events[to] = events[from];
+    slots[to] = slots[from];
+    positions[slots[to]] = to;
+  }
+
+  /**
+   * Store the given entry at the given heap position.
+   *
+   * @param pos
+   *          the heap position
+   * @param event
+   *          the event
+   * @param time
+   *          the time stamp
+   * @param slot
+   *          the index slot of the event
+   */
+  private void place(int pos, Object event, double time, int slot) {
+    times[pos] = time;
+    events[pos] = event;
+    slots[pos] = slot;
+    positions[slot] = pos;
+  }
+
+  /**
+   * Enlarge the internal arrays.
+   *
+   * @param capacity
+   *          the new capacity
+   */
+  private void ensureCapacity(int capacity) {
+    times = Arrays.copyOf(times, capacity);
+    events = Arrays.copyOf(events, capacity);
+    slots = Arrays.copyOf(slots, capacity);
+    if (tableSize(capacity) > keys.length) {
+      rebuildIndex(tableSize(capacity));
+    }
+  }
+
+  /**
+   * Compute the size of the index table for the given capacity (a power of
+   * two, at least twice the capacity).
+   *
+   * @param capacity
+   *          the capacity of the heap
+   * @return the size of the table
+   */
+  private static int tableSize(int capacity) {
+    int result = Integer.highestOneBit(Math.max(2, capacity)) << 2;
+    if (result <= 0) {
+      throw new IllegalStateException("Event queue index cannot be enlarged.");
+    }
+    return result;
+  }
+
+  /**
+   * Create an empty index table.
+   *
+   * @param tableSize
+   *          the size of the table (power of two)
+   */
+  private void initIndex(int tableSize) {
+    keys = new Object[tableSize];
+    positions = new int[tableSize];
+    mask = tableSize - 1;
+  }
+
+  /**
+   * Recreate the index table for the events currently in the heap.
+   *
+   * @param tableSize
+   *          the size of the table (power of two)
+   */
+  private void rebuildIndex(int tableSize) {
+    initIndex(tableSize);
+    for (int i = 0; i < size; i++) {
+      int slot = insertKey(events[i]);
+      slots[i] = slot;
+      positions[slot] = i;
+    }
+  }
+
+  /**
+   * Compute the preferred slot of the given event.
+   *
+   * @param event
+   *          the event
+   * @return the slot
+   */
+  private int home(Object event) {
+    int h = System.identityHashCode(event) * 0x9E3779B9;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /**
+   * Find the index slot of the given event.
+   *
+   * @param event
+   *          the event
+   * @return the slot, or {@link #NONE}
+   */
+  private int findSlot(Object event) {
+    int i = home(event);
+    while (keys[i] != null) {
+      if (keys[i] == event) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return NONE;
+  }
+
+  /**
+   * Insert the given event (which must not be in the index) into the index.
+   *
+   * @param event
+   *          the event
+   * @return the slot
+   */
+  private int insertKey(Object event) {
+    int i = home(event);
+    while (keys[i] != null) {
+      i = (i + 1) & mask;
+    }
+    keys[i] = event;
+    return i;
+  }
+
+  /**
+   * Remove the given slot from the index. Entries which would not be found
+   * anymore are shifted back, thus no deletion markers are required.
+   *
+   * @param slot
+   *          the slot
+   */
+  private void removeKey(int slot) {
+    int free = slot;
+    keys[free] = null;
+    int i = free;
+    while (true) {
+      i = (i + 1) & mask;
+      Object key = keys[i];
+      if (key == null) {
+        return;
+      }
+      int h = home(key);
+      // move the entry if its home is not cyclically within (free, i]
+      boolean move =
+          free <= i ? (h <= free || h > i) : (h <= free && h > i);
+      if (move) {
+        keys[free] = key;
+        positions[free] = positions[i];
+        slots[positions[free]] = free;
+        keys[i] = null;
+        free = i;
+      }
+    }
+  }
+
+  /**
+   * Rebuild the index after deserialization.
+   *
+   * @param in
+   *          the stream
+   * @throws IOException
+   *           Signals that an I/O exception has occurred.
+   * @throws ClassNotFoundException
+   *           the class not found exception
+   */
+  private void readObject(ObjectInputStream in) throws IOException,
+      ClassNotFoundException {
+    in.defaultReadObject();
+    slots = new int[times.length];
+    rebuildIndex(tableSize(times.length));
+  }
+
+}
@@ -0,0 +1,667 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Calendar queue (Brown, R; 1988; Communications of the ACM 31, 10 Oct.
+ * 1220-1227) using pooled slots and a primitive time base. In contrast to the
+ * {@link org.jamesii.core.util.eventset.calendar.CalendarQueue} the buckets are
+ * not realized as lists of {@link org.jamesii.core.util.eventset.Entry}
+ * objects: each event occupies a slot of a pool which consists of parallel
+ * arrays (time stamps, events, and the index of the next slot in the same
+ * bucket). The buckets are singly linked, sorted lists of slot indices. Freed
+ * slots are kept in a free list and reused, thus the hold operation does not
+ * allocate any memory once the pool has reached its working size.<br/>
+ * Each bucket covers a "day" of the width {@link #getWidth()}, the bucket an
+ * event belongs to is determined by its "virtual bucket" (the number of days
+ * since time 0) modulo the number of buckets. The number of buckets is doubled
+ * (halved) if the number of events exceeds twice (drops below half) the number
+ * of buckets; the width is re-estimated on each resize from the separation of
+ * the events to be dequeued next. Events with an infinite time stamp are kept
+ * in a separate list.<br/>
+ * Events are not required to be enqueued in increasing time stamp order,
+ * enqueuing an event before the current position of the calendar moves the
+ * calendar back. Events with identical time stamps are returned in the order
+ * they have been enqueued.
+ *
+ * Classification<br/>
+ * <table>
+ * <tr>
+ * <td><b>Property</b></td>
+ * <td><b>Value</b></td>
+ * </tr>
+ * <tr>
+ * <td>List type</td>
+ * <td>1-tier list</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Operations</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>{@link #enqueue(Object, double)}</td>
+ * <td>O(1) (expected)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueMinEvent()}</td>
+ * <td>O(1) (expected)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueAll()}</td>
+ * <td>O(k) (expected)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #requeue(Object, double)}</td>
+ * <td>O(n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #getMinTime()}</td>
+ * <td>O(1) (expected)</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Parameters</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>initial capacity</td>
+ * </tr>
+ * </table>
+ *
+ * @param <E>
+ *          the type of the events to be stored in the queue
+ */
+public class PrimitiveCalendarQueue<E> extends
+    AbstractPrimitiveTimeEventQueue<E> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -4626716553616713440L;
+
+  /** Marker for "no slot". */
+  private static final int NONE = -1;
+
+  /** The minimal number of buckets. */
+  private static final int MIN_BUCKETS = 2;
+
+  /** The maximal number of events sampled for the width estimation. */
+  private static final int WIDTH_SAMPLES = 25;
+
+  /** The default initial capacity of the slot pool. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /** The time stamps of the slots. */
+  private double[] times;
+
+  /** The events of the slots. */
+  private Object[] events;
+
+  /** The next slot in the same bucket (or in the free list). */
+  private int[] next;
+
+  /** Number of slots which have been used at least once. */
+  private int used;
+
+  /** Head of the free list. */
+  private int free = NONE;
+
+  /** The heads of the buckets. */
+  private int[] buckets;
+
+  /** Head of the list of events with an infinite time stamp. */
+  private int infHead = NONE;
+
+  /** Tail of the list of events with an infinite time stamp. */
+  private int infTail = NONE;
+
+  /** Number of events with an infinite time stamp. */
+  private int infSize;
+
+  /** Number of events stored in the buckets. */
+  private int calSize;
+
+  /** The width of a bucket. */
+  private double width = 1.0;
+
+  /**
+   * The virtual bucket ("day") the calendar currently points to. No event in
+   * the buckets has a smaller virtual bucket.
+   */
+  private long currentDay;
+
+  /** Flag to suppress resizes while a resize is in progress. */
+  private boolean resizeEnabled = true;
+
+  /**
+   * Instantiates a new primitive calendar queue.
+   */
+  public PrimitiveCalendarQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new primitive calendar queue.
+   *
+   * @param initialCapacity
+   *          the number of events which can be stored before the slot pool has
+   *          to be enlarged
+   */
+  public PrimitiveCalendarQueue(int initialCapacity) {
+    super();
+    int capacity = Math.max(1, initialCapacity);
+    times = new double[capacity];
+    events = new Object[capacity];
+    next = new int[capacity];
+    buckets = new int[MIN_BUCKETS];
+    Arrays.fill(buckets, NONE);
+  }
+
+  @Override
+  public void enqueue(E event, double time) {
+    int slot = allocate();
+    times[slot] = time;
+    events[slot] = event;
+    if (time == Double.POSITIVE_INFINITY) {
+      appendInf(slot);
+      return;
+    }
+    long day = dayOf(time);
+    if (calSize == 0 || day < currentDay) {
+      currentDay = day;
+    }
+    insert(slot);
+    calSize++;
+    if (resizeEnabled && calSize > 2 * buckets.length) {
+      resize(2 * buckets.length);
+    }
+  }
+
+  @Override
+  public double getMinTime() {
+    if (calSize == 0) {
+      return infSize == 0 ? Double.NaN : Double.POSITIVE_INFINITY;
+    }
+    return times[buckets[findMinBucket()]];
+  }
+
+  @Override
+  public E dequeueMinEvent() {
+    if (calSize == 0) {
+      if (infSize == 0) {
+        return null;
+      }
+      int slot = infHead;
+      infHead = next[slot];
+      if (infHead == NONE) {
+        infTail = NONE;
+      }
+      infSize--;
+      return release(slot);
+    }
+    int bucket = findMinBucket();
+    int slot = buckets[bucket];
+    buckets[bucket] = next[slot];
+    calSize--;
+    E result = release(slot);
+    shrinkIfNeeded();
+    return result;
+  }
+
+  @Override
+  public Double dequeue(E event) {
+    // infinite time stamps
+    int prev = NONE;
+    for (int slot = infHead; slot != NONE; slot = next[slot]) {
+      if (events[slot] == event) {
+        unlinkInf(prev, slot);
+        release(slot);
+        return Double.POSITIVE_INFINITY;
+      }
+      prev = slot;
+    }
+    for (int b = 0; b < buckets.length; b++) {
+      Double result = removeFromBucket(b, event);
+      if (result != null) {
+        shrinkIfNeeded();
+        return result;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public List<E> dequeueAll(Double time) {
+    List<E> result = new ArrayList<>();
+    double t = time.doubleValue();
+    if (t == Double.POSITIVE_INFINITY) {
+      for (int slot = infHead; slot != NONE;) {
+        int n = next[slot];
+        result.add(release(slot));
+        slot = n;
+      }
+      infHead = NONE;
+      infTail = NONE;
+      infSize = 0;
+      return result;
+    }
+    int bucket = bucketOf(dayOf(t));
+    int prev = NONE;
+    int slot = buckets[bucket];
+    // buckets are sorted: skip smaller time stamps, take all equal ones
+    while (slot != NONE && times[slot] < t) {
+      prev = slot;
+      slot = next[slot];
+    }
+    while (slot != NONE && times[slot] == t) {
+      int n = next[slot];
+      result.add(release(slot));
+      calSize--;
+      slot = n;
+    }
+    if (prev == NONE) {
+      buckets[bucket] = slot;
+    } else {
+      next[prev] = slot;
+    }
+    shrinkIfNeeded();
+    return result;
+  }
+
+  @Override
+  public Double getTime(E event) {
+    int slot = find(event);
+    if (slot == NONE) {
+      return null;
+    }
+    return times[slot];
+  }
+
+  @Override
+  public void requeue(E event, double newTime) {
+    resizeEnabled = false;
+    dequeue(event);
+    resizeEnabled = true;
+    enqueue(event, newTime);
+  }
+
+  @Override
+  public void requeue(E event, Double oldTime, Double newTime) {
+    Double removed = null;
+    resizeEnabled = false;
+    if (oldTime != null && oldTime < Double.POSITIVE_INFINITY) {
+      removed = removeFromBucket(bucketOf(dayOf(oldTime)), event);
+    }
+    if (removed == null) {
+      dequeue(event);
+    }
+    resizeEnabled = true;
+    enqueue(event, newTime.doubleValue());
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return calSize + infSize == 0;
+  }
+
+  @Override
+  public int size() {
+    return calSize + infSize;
+  }
+
+  @Override
+  public void setSize(long newSize) {
+    super.setSize(newSize);
+    if (newSize > times.length && newSize <= Integer.MAX_VALUE) {
+      ensureCapacity((int) newSize);
+    }
+  }
+
+  /**
+   * Get the width of a bucket.
+   *
+   * @return the width
+   */
+  public double getWidth() {
+    return width;
+  }
+
+  /**
+   * Get the number of buckets.
+   *
+   * @return the number of buckets
+   */
+  public int getBucketCount() {
+    return buckets.length;
+  }
+
+  /**
+   * Compute the virtual bucket ("day") of the given time stamp.
+   *
+   * @param time
+   *          the time stamp
+   * @return the day
+   */
+  private long dayOf(double time) {
+    return (long) Math.floor(time / width);
+  }
+
+  /**
+   * Compute the bucket of the given virtual bucket.
+   *
+   * @param day
+   *          the day
+   * @return the bucket index
+   */
+  private int bucketOf(long day) {
+    return (int) Math.floorMod(day, (long) buckets.length);
+  }
+
+  /**
+   * Find the bucket containing the event with the minimal time stamp and move
+   * the calendar to the day of this event. Must only be called if there are
+   * events in the buckets.
+   *
+   * @return the index of the bucket
+   */
+  private int findMinBucket() {
+    int n = buckets.length;
+    long day = currentDay;
+    for (int i = 0; i < n; i++, day++) {
+      int bucket = bucketOf(day);
+      int head = buckets[bucket];
+      if (head != NONE && dayOf(times[head]) <= day) {
+        currentDay = day;
+        return bucket;
+      }
+    }
+    // nothing within one "year": directly search the minimum
+    int minBucket = NONE;
+    double min = Double.POSITIVE_INFINITY;
+    for (int b = 0; b < n; b++) {
+      int head = buckets[b];
+      if (head != NONE && (minBucket == NONE || times[head] < min)) {
+        min = times[head];
+        minBucket = b;
+      }
+    }
+    currentDay = dayOf(min);
+    return minBucket;
+  }
+
+  /**
+   * Insert the given slot into its bucket (sorted, behind all slots with the
+   * same time stamp).
+   *
+   * @param slot
+   *          the slot
+   */
+  private void insert(int slot) {
+    double time = times[slot];
+    int bucket = bucketOf(dayOf(time));
+    int prev = NONE;
+    int cur = buckets[bucket];
+    while (cur != NONE && times[cur] <= time) {
+      prev = cur;
+      cur = next[cur];
+    }
+    next[slot] = cur;
+    if (prev == NONE) {
+      buckets[bucket] = slot;
+    } else {
+      next[prev] = slot;
+    }
+  }
+
+  /**
+   * Remove the given event from the given bucket.
+   *
+   * @param bucket
+   *          the bucket
+   * @param event
+   *          the event
+   * @return the time stamp of the event, or null if the event is not in the
+   *         bucket
+   */
+  private Double removeFromBucket(int bucket, E event) {
+    int prev = NONE;
+    for (int slot = buckets[bucket]; slot != NONE; slot = next[slot]) {
+      if (events[slot] == event) {
+        if (prev == NONE) {
+          buckets[bucket] = next[slot];
+        } else {
+          next[prev] = next[slot];
+        }
+        double time = times[slot];
+        release(slot);
+        calSize--;
+        return time;
+      }
+      prev = slot;
+    }
+    return null;
+  }
+
+  /**
+   * Find the slot of the given event.
+   *
+   * @param event
+   *          the event
+   * @return the slot, or {@link #NONE}
+   */
+  private int find(E event) {
+    for (int slot = 0; slot < used; slot++) {
+      if (events[slot] == event) {
+        return slot;
+      }
+    }
+    return NONE;
+  }
+
+  /**
+   * Append the given slot to the list of events with infinite time stamps.
+   *
+   * @param slot
+   *          the slot
+   */
+  private void appendInf(int slot) {
+    next[slot] = NONE;
+    if (infTail == NONE) {
+      infHead = slot;
+    } else {
+      next[infTail] = slot;
+    }
+    infTail = slot;
+    infSize++;
+  }
+
+  /**
+   * Unlink the given slot from the list of events with infinite time stamps.
+   *
+   * @param prev
+   *          the predecessor of the slot
+   * @param slot
+   *          the slot
+   */
+  private void unlinkInf(int prev, int slot) {
+    if (prev == NONE) {
+      infHead = next[slot];
+    } else {
+      next[prev] = next[slot];
+    }
+    if (infTail == slot) {
+      infTail = prev;
+    }
+    infSize--;
+  }
+
+  /**
+   * Get a free slot.
+   *
+   * @return the slot
+   */
+  private int allocate() {
+    if (free != NONE) {
+      int slot = free;
+      free = next[slot];
+      return slot;
+    }
+    if (used == times.length) {
+      ensureCapacity(grow(used));
+    }
+    return used++;
+  }
+
+  /**
+   * Put the given slot back to the free list.
+   *
+   * @param slot
+   *          the slot
+   * @return the event which has been stored in the slot
+   */
+  @SuppressWarnings("unchecked")
+  private E release(int slot) {
+    E event = (E) events[slot];
+    events[slot] = null;
+    next[slot] = free;
+    free = slot;
+    return event;
+  }
+
+  /**
+   * Enlarge the slot pool.
+   *
+   * @param capacity
+   *          the new capacity
+   */
+  private void ensureCapacity(int capacity) {
+    times = Arrays.copyOf(times, capacity);
+    events = Arrays.copyOf(events, capacity);
+    next = Arrays.copyOf(next, capacity);
+  }
+
+  /**
+   * Halve the number of buckets if there are too few events.
+   */
+  private void shrinkIfNeeded() {
+    if (resizeEnabled && buckets.length > MIN_BUCKETS
+        && calSize < buckets.length / 2 - 2) {
+      resize(buckets.length / 2);
+    }
+  }
+
+  /**
+   * Change the number of buckets and recompute the width of the buckets.
+   *
+   * @param newBuckets
+   *          the new number of buckets
+   */
+  private void resize(int newBuckets) {
+    resizeEnabled = false;
+    double newWidth = estimateWidth();
+
+    // collect all slots of the old buckets
+    int[] oldBuckets = buckets;
+    int chain = NONE;
+    for (int b = 0; b < oldBuckets.length; b++) {
+      int slot = oldBuckets[b];
+      while (slot != NONE) {
+        int n = next[slot];
+        next[slot] = chain;
+        chain = slot;
+        slot = n;
+      }
+    }
+
+    width = newWidth;
+    buckets = new int[newBuckets];
+    Arrays.fill(buckets, NONE);
+
+    // the chain is in reverse order, thus same time stamps have to be
+    // re-inserted in front of each other to keep their order
+    double min = Double.POSITIVE_INFINITY;
+    while (chain != NONE) {
+      int n = next[chain];
+      insertFront(chain);
+      min = Math.min(min, times[chain]);
+      chain = n;
+    }
+    if (calSize > 0) {
+      currentDay = dayOf(min);
+    }
+    resizeEnabled = true;
+  }
+
+  /**
+   * Insert the given slot into its bucket (sorted, in front of all slots with
+   * the same time stamp).
+   *
+   * @param slot
+   *          the slot
+   */
+  private void insertFront(int slot) {
+    double time = times[slot];
+    int bucket = bucketOf(dayOf(time));
+    int prev = NONE;
+    int cur = buckets[bucket];
+    while (cur != NONE && times[cur] < time) {
+      prev = cur;
+      cur = next[cur];
+    }
+    next[slot] = cur;
+    if (prev == NONE) {
+      buckets[bucket] = slot;
+    } else {
+      next[prev] = slot;
+    }
+  }
+
+  /**
+   * Estimate the new width of the buckets from the separation of the next
+   * events to be dequeued (see Brown, 1988).
+   *
+   * @return the new width
+   */
+  private double estimateWidth() {
+    int samples = Math.min(calSize, WIDTH_SAMPLES);
+    if (samples < 2) {
+      return width;
+    }
+
+    // take out the next events (without releasing their slots)
+    int[] taken = new int[samples];
+    for (int i = 0; i < samples; i++) {
+      int bucket = findMinBucket();
+      int slot = buckets[bucket];
+      buckets[bucket] = next[slot];
+      taken[i] = slot;
+    }
+
+    double avg = (times[taken[samples - 1]] - times[taken[0]]) / (samples - 1);
+    double sum = 0.;
+    int count = 0;
+    for (int i = 1; i < samples; i++) {
+      double sep = times[taken[i]] - times[taken[i - 1]];
+      if (sep < 2 * avg) {
+        sum += sep;
+        count++;
+      }
+    }
+
+    // put them back
+    for (int i = samples - 1; i >= 0; i--) {
+      insertFront(taken[i]);
+    }
+    currentDay = dayOf(times[taken[0]]);
+
+    double result = count == 0 ? 0. : 3. * sum / count;
+    if (result <= 0. || Double.isNaN(result) || Double.isInfinite(result)) {
+      return width;
+    }
+    return result;
+  }
+
+}
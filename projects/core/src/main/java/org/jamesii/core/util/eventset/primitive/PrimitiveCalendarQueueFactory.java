@@ -0,0 +1,56 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.util.eventset.IEventQueue;
+import org.jamesii.core.util.eventset.plugintype.EventIdentityBehavior;
+import org.jamesii.core.util.eventset.plugintype.EventOrderingBehavior;
+import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+
+/**
+ * A factory for the {@link PrimitiveCalendarQueue} event queue.
+ */
+public class PrimitiveCalendarQueueFactory extends EventQueueFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -3381764239155020797L;
+
+  /** Name of the parameter holding the initial capacity. */
+  public static final String INITIAL_CAPACITY = "initialCapacity";
+
+  /**
+   * Instantiates a new factory.
+   */
+  public PrimitiveCalendarQueueFactory() {
+    super();
+  }
+
+  @Override
+  public <E> IEventQueue<E, Double> createDirect(ParameterBlock parameter) {
+    int capacity =
+        ParameterBlocks.getSubBlockValueOrDefault(parameter, INITIAL_CAPACITY,
+            PrimitiveCalendarQueue.DEFAULT_CAPACITY);
+    return new PrimitiveCalendarQueue<>(capacity);
+  }
+
+  @Override
+  public double getEfficencyIndex() {
+    return 0.7;
+  }
+
+  @Override
+  public EventIdentityBehavior getEventIdentityBehaviour() {
+    return EventIdentityBehavior.IDENTITY;
+  }
+
+  @Override
+  public EventOrderingBehavior getEventOrderingBehaviour() {
+    return EventOrderingBehavior.FIFO;
+  }
+}
@@ -0,0 +1,333 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary heap based event queue using a primitive time base. In contrast to
+ * the {@link org.jamesii.core.util.eventset.HeapEventQueue} no
+ * {@link org.jamesii.core.util.eventset.Entry} objects are created per event:
+ * the time stamps are stored in a double array and the events in a parallel
+ * object array, both organized as an implicit binary heap. The arrays are only
+ * reallocated if the queue grows beyond its current capacity.<br/>
+ * Finding an event (e.g., for {@link #getTime(Object)} or
+ * {@link #requeue(Object, double)}) requires a linear scan over the events, as
+ * no event to position index is maintained.
+ *
+ * Classification<br/>
+ * <table>
+ * <tr>
+ * <td><b>Property</b></td>
+ * <td><b>Value</b></td>
+ * </tr>
+ * <tr>
+ * <td>List type</td>
+ * <td>1-tier list</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Operations</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>{@link #enqueue(Object, double)}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueMinEvent()}</td>
+ * <td>O(log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #dequeueAll()}</td>
+ * <td>O(k log n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #requeue(Object, double)}</td>
+ * <td>O(n)</td>
+ * </tr>
+ * <tr>
+ * <td>{@link #getMinTime()}</td>
+ * <td>O(1)</td>
+ * </tr>
+ * <tr>
+ * <td colspan="2"><b><i>Parameters</i></b></td>
+ * </tr>
+ * <tr>
+ * <td>initial capacity</td>
+ * </tr>
+ * </table>
+ *
+ * @param <E>
+ *          the type of the events to be stored in the queue
+ */
+public class PrimitiveHeapEventQueue<E> extends
+    AbstractPrimitiveTimeEventQueue<E> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 5361487637009215734L;
+
+  /** The default initial capacity. */
+  public static final int DEFAULT_CAPACITY = 64;
+
+  /** The time stamps, heap ordered. */
+  private double[] times;
+
+  /** The events, parallel to {@link #times}. */
+  private Object[] events;
+
+  /** The number of events in the queue. */
+  private int size;
+
+  /**
+   * Instantiates a new primitive heap event queue.
+   */
+  public PrimitiveHeapEventQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new primitive heap event queue.
+   *
+   * @param initialCapacity
+   *          the number of events which can be stored before the internal
+   *          arrays have to be enlarged
+   */
+  public PrimitiveHeapEventQueue(int initialCapacity) {
+    super();
+    int capacity = Math.max(1, initialCapacity);
+    times = new double[capacity];
+    events = new Object[capacity];
+  }
+
+  @Override
+  public void enqueue(E event, double time) {
+    if (size == times.length) {
+      ensureCapacity(grow(size));
+    }
+    siftUp(size, event, time);
+    size++;
+  }
+
+  @Override
+  public double getMinTime() {
+    if (size == 0) {
+      return Double.NaN;
+    }
+    return times[0];
+  }
+
+  @Override
+  public E dequeueMinEvent() {
+    if (size == 0) {
+      return null;
+    }
+    E result = event(0);
+    removeAt(0);
+    return result;
+  }
+
+  @Override
+  public Double dequeue(E event) {
+    int index = indexOf(event);
+    if (index < 0) {
+      return null;
+    }
+    double time = times[index];
+    removeAt(index);
+    return time;
+  }
+
+  @Override
+  public List<E> dequeueAll(Double time) {
+    List<E> result = new ArrayList<>();
+    double t = time.doubleValue();
+    int newSize = 0;
+    for (int i = 0; i < size; i++) {
+      if (times[i] == t) {
+        result.add(event(i));
+      } else {
+        times[newSize] = times[i];
+        events[newSize] = events[i];
+        newSize++;
+      }
+    }
+    if (newSize != size) {
+      Arrays.fill(events, newSize, size, null);
+      size = newSize;
+      heapify();
+    }
+    return result;
+  }
+
+  @Override
+  public Double getTime(E event) {
+    int index = indexOf(event);
+    if (index < 0) {
+      return null;
+    }
+    return times[index];
+  }
+
+  @Override
+  public void requeue(E event, double newTime) {
+    int index = indexOf(event);
+    if (index < 0) {
+      enqueue(event, newTime);
+      return;
+    }
+    double oldTime = times[index];
+    if (newTime < oldTime) {
+      siftUp(index, event, newTime);
+    } else {
+      siftDown(index, event, newTime);
+    }
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void setSize(long newSize) {
+    super.setSize(newSize);
+    if (newSize > times.length && newSize <= Integer.MAX_VALUE) {
+      ensureCapacity((int) newSize);
+    }
+  }
+
+  /**
+   * Enlarge the internal arrays.
+   *
+   * @param capacity
+   *          the new capacity
+   */
+  private void ensureCapacity(int capacity) {
+    times = Arrays.copyOf(times, capacity);
+    events = Arrays.copyOf(events, capacity);
+  }
+
+  /**
+   * Get the event stored at the given heap position.
+   *
+   * @param index
+   *          the heap position
+   * @return the event
+   */
+  @SuppressWarnings("unchecked")
+  private E event(int index) {
+    return (E) events[index];
+  }
+
+  /**
+   * Find the heap position of the given event (identity is checked by
+   * reference).
+   *
+   * @param event
+   *          the event
+   * @return the position, or -1 if the event is not in the queue
+   */
+  private int indexOf(E event) {
+    for (int i = 0; i < size; i++) {
+      if (events[i] == event) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Remove the event at the given heap position.
+   *
+   * @param index
+   *          the heap position
+   */
+  private void removeAt(int index) {
+    size--;
+    double lastTime = times[size];
+    Object lastEvent = events[size];
+    events[size] = null;
+    if (index == size) {
+      return;
+    }
+    siftDown(index, lastEvent, lastTime);
+    if (events[index] == lastEvent) {
+      siftUp(index, lastEvent, lastTime);
+    }
+  }
+
+  /**
+   * Move the given entry up, starting at the given (free) position.
+   *
+   * @param index
+   *          the start position
+   * @param event
+   *          the event
+   * @param time
+   *          the time stamp of the event
+   */
+  private void siftUp(int index, Object event, double time) {
+    int i = index;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (times[parent] <= time) {
+        break;
+      }
+      times[i] = times[parent];
+      events[i] = events[parent];
+      i = parent;
+    }
+    times[i] = time;
+    events[i] = event;
+  }
+
+  /**
+   * Move the given entry down, starting at the given (free) position.
+   *
+   * @param index
+   *          the start position
+   * @param event
+   *          the event
+   * @param time
+   *          the time stamp of the event
+   */
+  private void siftDown(int index, Object event, double time) {
+    int i = index;
+    int half = size >>> 1;
+    while (i < half) {
+      int child = (i << 1) + 1;
+      int right = child + 1;
+      if (right < size && times[right] < times[child]) {
+        child = right;
+      }
+      if (time <= times[child]) {
+        break;
+      }
+      times[i] = times[child];
+      events[i] = events[child];
+      i = child;
+    }
+    times[i] = time;
+    events[i] = event;
+  }
+
+  /**
+   * Restore the heap property for the whole array (Floyd's method).
+   */
+  private void heapify() {
+    for (int i = (size >>> 1) - 1; i >= 0; i--) {
+      siftDown(i, events[i], times[i]);
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.util.eventset.IEventQueue;
+import org.jamesii.core.util.eventset.plugintype.EventIdentityBehavior;
+import org.jamesii.core.util.eventset.plugintype.EventOrderingBehavior;
+import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+
+/**
+ * A factory for the {@link PrimitiveHeapEventQueue} event queue.
+ */
+public class PrimitiveHeapEventQueueFactory extends EventQueueFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 4137260984461735182L;
+
+  /** Name of the parameter holding the initial capacity. */
+  public static final String INITIAL_CAPACITY = "initialCapacity";
+
+  /**
+   * Instantiates a new factory.
+   */
+  public PrimitiveHeapEventQueueFactory() {
+    super();
+  }
+
+  @Override
+  public <E> IEventQueue<E, Double> createDirect(ParameterBlock parameter) {
+    int capacity =
+        ParameterBlocks.getSubBlockValueOrDefault(parameter, INITIAL_CAPACITY,
+            PrimitiveHeapEventQueue.DEFAULT_CAPACITY);
+    return new PrimitiveHeapEventQueue<>(capacity);
+  }
+
+  @Override
+  public double getEfficencyIndex() {
+    return 0.5;
+  }
+
+  @Override
+  public EventIdentityBehavior getEventIdentityBehaviour() {
+    return EventIdentityBehavior.IDENTITY;
+  }
+
+  @Override
+  public EventOrderingBehavior getEventOrderingBehaviour() {
+    return EventOrderingBehavior.UNORDERED_REPRODUCIBLE;
+  }
+}
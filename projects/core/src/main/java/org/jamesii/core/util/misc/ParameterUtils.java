@@ -8,6 +8,7 @@ package org.jamesii.core.util.misc;
 
 import org.jamesii.core.distributed.allocation.ConstantResourceAllocatorFactory;
 import org.jamesii.core.factories.Factory;
+import org.jamesii.core.observe.AsynchronousMediator;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.parameters.ParameterBlocks;
 
@@ -75,6 +76,28 @@ public final class ParameterUtils {
    */
   public static final String INTER_STEP_DELAY = "interStepDelay";
 
+  /**
+   * If true, the observers of models and simulation runs are informed by an
+   * {@link AsynchronousMediator}, i.e., asynchronously if they implement
+   * {@link org.jamesii.core.observe.IAsynchronousObserver}. Default is false.
+   */
+  public static final String ASYNCHRONOUS_OBSERVATION =
+      "asynchronousObservation";
+
+  /**
+   * The number of notifications buffered in case of asynchronous observation.
+   * Default is {@link AsynchronousMediator#DEFAULT_CAPACITY}.
+   */
+  public static final String OBSERVATION_BUFFER_SIZE = "observationBufferSize";
+
+  /**
+   * The {@link AsynchronousMediator.Backpressure} policy applied if the buffer
+   * of an asynchronous observation is full. Default is
+   * {@link AsynchronousMediator.Backpressure#BLOCK}.
+   */
+  public static final String OBSERVATION_BACKPRESSURE =
+      "observationBackpressure";
+
   /**
    * The separator to distinguish sub-block names for distinct factories
    * configurations that have the same base factory. For example, the second
@@ -106,6 +129,7 @@ public final class ParameterUtils {
     execParams.addSubBlock(SIM_START_TIME, 0.0);
     execParams.addSubBlock(SIM_STOP_TIME, Double.POSITIVE_INFINITY);
     execParams.addSubBlock(INTER_STEP_DELAY, 0L);
+    execParams.addSubBlock(ASYNCHRONOUS_OBSERVATION, false);
     execParams.addSubBl(START_PAUSED, false);
     execParams.addSubBl(SIM_RESOURCE_ALLOCATION, new ParameterBlock(
         ConstantResourceAllocatorFactory.class.getCanonicalName()));
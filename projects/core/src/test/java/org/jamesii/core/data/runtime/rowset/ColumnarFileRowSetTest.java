@@ -0,0 +1,317 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.data.runtime.rowset;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
+
+import org.jamesii.core.data.runtime.CSVFormatter;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link ColumnarFileRowSet}, the {@link ColumnarFileWriter}
+ * and the {@link CSVToColumnarConverter}. The data read from a converted CSV
+ * file is compared with the data read from the CSV file by a
+ * {@link FileRowSet}.
+ */
+public class ColumnarFileRowSetTest extends TestCase {
+
+  /** The number of rows of the test file. */
+  private static final int ROWS = 1000;
+
+  /** The CSV file. */
+  private File csv;
+
+  /** The columnar file. */
+  private File columnar;
+
+  /** The row set on the columnar file. */
+  private ColumnarFileRowSet crs;
+
+  @Override
+  protected void setUp() throws Exception {
+    csv = File.createTempFile("CFRSTest", ".csv");
+    csv.deleteOnExit();
+    columnar = File.createTempFile("CFRSTest", ".col");
+    columnar.deleteOnExit();
+
+    try (BufferedWriter w =
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csv),
+            Charset.forName("UTF-8")))) {
+      w.write("time,count,big,flag,name\r\n");
+      for (int i = 0; i < ROWS; i++) {
+        w.write(CSVFormatter.formatCSV(
+            new String[] { Double.toString(i * 0.5), Integer.toString(i % 7),
+                Long.toString(i * 10000000000L), Boolean.toString(i % 3 == 0),
+                "näme, \"" + i + "\"" }, ','));
+        w.write("\r\n");
+      }
+    }
+
+    ColumnType[] types =
+        CSVToColumnarConverter.convert(csv, columnar, Charset.forName("UTF-8"),
+            16);
+    assertEquals(ColumnType.DOUBLE, types[0]);
+    assertEquals(ColumnType.INT, types[1]);
+    assertEquals(ColumnType.LONG, types[2]);
+    assertEquals(ColumnType.BOOLEAN, types[3]);
+    assertEquals(ColumnType.STRING, types[4]);
+
+    crs = new ColumnarFileRowSet(columnar);
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    crs.close();
+  }
+
+  /**
+   * Test that all values equal the ones read by the {@link FileRowSet}.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testValuesEqualFileRowSet() throws Exception {
+    FileRowSet frs = new FileRowSet();
+    frs.setFileName(csv.getAbsolutePath());
+    frs.execute();
+    try {
+      assertEquals(5, crs.getMetaData().getColumnCount());
+      assertEquals("big", crs.getMetaData().getColumnLabel(3));
+      assertEquals(Types.DOUBLE, crs.getMetaData().getColumnType(1));
+      int rows = 0;
+      while (frs.next()) {
+        assertTrue(crs.next());
+        rows++;
+        assertEquals(rows, crs.getRow());
+        assertEquals(frs.getDouble(1), crs.getDouble("time"), 0);
+        assertEquals(frs.getInt(2), crs.getInt(2));
+        assertEquals(frs.getLong(3), crs.getLong(3));
+        assertEquals(frs.getBoolean(4), crs.getBoolean(4));
+        assertEquals(frs.getString(5), crs.getString(5));
+        assertEquals(frs.getString(2), crs.getString(2));
+        assertEquals(Integer.valueOf(frs.getInt(2)), crs.getObject(2));
+      }
+      assertEquals(ROWS, rows);
+      assertFalse(crs.next());
+      assertTrue(crs.isAfterLast());
+    } finally {
+      frs.close();
+    }
+  }
+
+  /**
+   * Test the cursor movement.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testNavigation() throws Exception {
+    assertTrue(crs.isBeforeFirst());
+    assertTrue(crs.last());
+    assertTrue(crs.isLast());
+    assertEquals(ROWS - 1, crs.getDouble(1) * 2, 0);
+    assertTrue(crs.absolute(-10));
+    assertEquals(ROWS - 9, crs.getRow());
+    assertTrue(crs.relative(-5));
+    assertEquals(ROWS - 14, crs.getRow());
+    assertTrue(crs.first());
+    assertTrue(crs.isFirst());
+    assertFalse(crs.previous());
+    assertTrue(crs.isBeforeFirst());
+    assertFalse(crs.absolute(ROWS + 1));
+    assertTrue(crs.isAfterLast());
+    assertTrue(crs.previous());
+    assertTrue(crs.isLast());
+  }
+
+  /**
+   * Test the lookup of rows using the block index.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testNextInRange() throws Exception {
+    ColumnarFile file = crs.getColumnarFile();
+    assertEquals(16, file.getBlockSize());
+    assertEquals((ROWS + 15) / 16, file.getBlockCount());
+    assertEquals(16 * 0.5, file.getBlockMinimum(0, 1), 0);
+    assertEquals(31 * 0.5, file.getBlockMaximum(0, 1), 0);
+
+    int found = 0;
+    while (crs.nextInRange(1, 100, 110.25)) {
+      double time = crs.getDouble(1);
+      assertTrue(time >= 100 && time <= 110.25);
+      found++;
+    }
+    assertEquals(21, found);
+    assertTrue(crs.isAfterLast());
+
+    crs.beforeFirst();
+    assertTrue(crs.nextInRange(2, 6, 6));
+    assertEquals(7, crs.getRow());
+    assertTrue(crs.nextInRange(2, 6, 6));
+    assertEquals(14, crs.getRow());
+    assertFalse(crs.nextInRange(1, -2, -1));
+  }
+
+  /**
+   * Test that the row set cannot be modified.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testReadOnly() throws Exception {
+    crs.first();
+    try {
+      crs.updateInt(2, 3);
+      fail();
+    } catch (SQLFeatureNotSupportedException e) {
+      // expected
+    }
+    try {
+      crs.moveToInsertRow();
+      fail();
+    } catch (SQLFeatureNotSupportedException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Test the types of columns mixing booleans and numbers, and of columns with
+   * empty fields, which are read as null values.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testMixedAndEmptyColumns() throws Exception {
+    File mixedCsv = File.createTempFile("CFRSTest", ".csv");
+    mixedCsv.deleteOnExit();
+    File f = File.createTempFile("CFRSTest", ".col");
+    f.deleteOnExit();
+    try (BufferedWriter w =
+        new BufferedWriter(new OutputStreamWriter(
+            new FileOutputStream(mixedCsv), Charset.forName("UTF-8")))) {
+      w.write("mixed,count,flag,ratio,none\r\n");
+      w.write("true,1,,,\r\n");
+      w.write("5,,false,0.5,\r\n");
+      w.write("false,0,true,,\r\n");
+    }
+
+    ColumnType[] types =
+        CSVToColumnarConverter.convert(mixedCsv, f, Charset.forName("UTF-8"),
+            2);
+    assertEquals(ColumnType.STRING, types[0]);
+    assertEquals(ColumnType.INT, types[1]);
+    assertEquals(ColumnType.BOOLEAN, types[2]);
+    assertEquals(ColumnType.DOUBLE, types[3]);
+    assertEquals(ColumnType.STRING, types[4]);
+
+    ColumnarFileRowSet rs = new ColumnarFileRowSet(f);
+    try {
+      ResultSetMetaData md = rs.getMetaData();
+      assertEquals(ResultSetMetaData.columnNoNulls, md.isNullable(1));
+      assertEquals(ResultSetMetaData.columnNullable, md.isNullable(2));
+
+      assertTrue(rs.next());
+      assertEquals("true", rs.getString(1));
+      assertFalse(rs.wasNull());
+      assertEquals(1, rs.getInt(2));
+      assertFalse(rs.wasNull());
+      assertFalse(rs.getBoolean(3));
+      assertTrue(rs.wasNull());
+      assertNull(rs.getObject(4));
+      assertTrue(rs.wasNull());
+      assertNull(rs.getString(5));
+      assertTrue(rs.wasNull());
+
+      assertTrue(rs.next());
+      assertEquals("5", rs.getString(1));
+      assertEquals(0, rs.getInt(2));
+      assertTrue(rs.wasNull());
+      assertNull(rs.getObject(2, Integer.class));
+      assertNull(rs.getBigDecimal(2));
+      assertEquals(Boolean.FALSE, rs.getObject(3));
+      assertFalse(rs.wasNull());
+      assertEquals(0.5, rs.getDouble(4), 0);
+
+      // the null value of the second row is not found
+      rs.beforeFirst();
+      assertTrue(rs.nextInRange(2, 0, 0));
+      assertEquals(3, rs.getRow());
+      assertEquals(0, rs.getInt(2));
+      assertFalse(rs.wasNull());
+
+      ColumnarFile file = rs.getColumnarFile();
+      assertEquals(1, file.getBlockMinimum(1, 0), 0);
+      assertEquals(1, file.getBlockMaximum(1, 0), 0);
+      assertTrue(file.isNull(3, 2));
+      assertFalse(file.hasNulls(0));
+    } finally {
+      rs.close();
+    }
+  }
+
+  /**
+   * Test writing a file directly and reading an empty file.
+   *
+   * @throws Exception
+   *           if the test fails
+   */
+  public void testWriter() throws Exception {
+    File f = File.createTempFile("CFRSTest", ".col");
+    f.deleteOnExit();
+    try (ColumnarFileWriter writer =
+        new ColumnarFileWriter(f, new String[] { "a", "b" }, new ColumnType[] {
+            ColumnType.DOUBLE, ColumnType.STRING })) {
+      writer.writeDouble(Double.NaN);
+      writer.writeString("");
+      writer.writeDouble(-1);
+      writer.writeString(null);
+      assertEquals(2, writer.getRowCount());
+    }
+    try (ColumnarFile file = new ColumnarFile(f)) {
+      assertEquals(2, file.getRowCount());
+      assertTrue(Double.isNaN(file.getDouble(0, 0)));
+      assertEquals("", file.getString(1, 1));
+      assertEquals(-1, file.getBlockMinimum(0, 0), 0);
+      assertEquals(-1, file.getBlockMaximum(0, 0), 0);
+    }
+
+    File empty = File.createTempFile("CFRSTest", ".col");
+    empty.deleteOnExit();
+    new ColumnarFileWriter(empty, new String[] { "a" },
+        new ColumnType[] { ColumnType.LONG }).close();
+    ColumnarFileRowSet rs = new ColumnarFileRowSet(empty);
+    try {
+      assertFalse(rs.next());
+      assertFalse(rs.isAfterLast());
+    } finally {
+      rs.close();
+    }
+
+    try {
+      ColumnarFileWriter writer =
+          new ColumnarFileWriter(empty, new String[] { "a", "b" },
+              new ColumnType[] { ColumnType.LONG, ColumnType.LONG });
+      writer.writeLong(1);
+      writer.close();
+      fail();
+    } catch (IOException e) {
+      // expected, the row is incomplete
+    }
+  }
+
+}
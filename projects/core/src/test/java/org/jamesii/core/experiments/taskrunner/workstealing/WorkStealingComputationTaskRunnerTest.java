@@ -0,0 +1,320 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.taskrunner.workstealing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.data.model.IModelReader;
+import org.jamesii.core.distributed.simulationserver.ISimulationServer;
+import org.jamesii.core.experiments.BaseExperiment;
+import org.jamesii.core.experiments.ComputationTaskRuntimeInformation;
+import org.jamesii.core.experiments.IComputationTaskConfiguration;
+import org.jamesii.core.experiments.IExperimentExecutionController;
+import org.jamesii.core.experiments.IExperimentExecutionListener;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.experiments.replication.RepNumberCriterionFactory;
+import org.jamesii.core.experiments.replication.plugintype.RepCriterionFactory;
+import org.jamesii.core.experiments.taskrunner.ITaskRunner;
+import org.jamesii.core.experiments.taskrunner.InitializedComputationTask;
+import org.jamesii.core.experiments.tasks.IInitializedComputationTask;
+import org.jamesii.core.experiments.tasks.setup.IComputationTaskSetup;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterizedFactory;
+import org.jamesii.core.util.misc.ParameterUtils;
+
+/**
+ * Tests for the {@link WorkStealingComputationTaskRunner}.
+ */
+public class WorkStealingComputationTaskRunnerTest extends TestCase {
+
+  /** The number of initialised computation tasks per configuration. */
+  static final Map<Object, AtomicInteger> INITIALISED =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Setup counting the initialisations, the tasks themselves do nothing.
+   */
+  static class CountingSetup implements IComputationTaskSetup {
+
+    /** Serialisation ID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The key to count for. */
+    private final String key;
+
+    /**
+     * Instantiates a new counting setup.
+     *
+     * @param key
+     *          the key to count for
+     */
+    CountingSetup(String key) {
+      this.key = key;
+      INITIALISED.put(key, new AtomicInteger());
+    }
+
+    @Override
+    public void cleanUp(IComputationTaskConfiguration compTaskConfig,
+        RunInformation runInfo) {
+    }
+
+    @Override
+    public IInitializedComputationTask initComputationTask(
+        IComputationTaskConfiguration computationTaskConfig,
+        IModelReader modelReader, RunInformation info,
+        List<ISimulationServer> resources) {
+      INITIALISED.get(key).incrementAndGet();
+      return new InitializedComputationTask(null, info);
+    }
+  }
+
+  /**
+   * Controller starting every task and counting the finished ones.
+   */
+  static class CountingController implements IExperimentExecutionController {
+
+    /** The number of executed tasks. */
+    final AtomicInteger executed = new AtomicInteger();
+
+    /** Counted down once per finished configuration. */
+    final CountDownLatch configurationsDone;
+
+    /**
+     * Instantiates a new counting controller.
+     *
+     * @param configurations
+     *          the number of configurations
+     */
+    CountingController(int configurations) {
+      configurationsDone = new CountDownLatch(configurations);
+    }
+
+    @Override
+    public void computationTaskInitialized(ITaskRunner taskRunner,
+        ComputationTaskRuntimeInformation taskRTInfo) {
+      taskRunner.runTask(taskRTInfo);
+    }
+
+    @Override
+    public void computationTaskExecuted(ITaskRunner taskRunner,
+        ComputationTaskRuntimeInformation ctrti, RunInformation runInfo) {
+      executed.incrementAndGet();
+      if (runInfo.isJobDone()) {
+        configurationsDone.countDown();
+      }
+    }
+
+    @Override
+    public void addExecutionListener(
+        IExperimentExecutionListener expExecListener) {
+    }
+
+    @Override
+    public BaseExperiment getExperiment() {
+      return null;
+    }
+
+    @Override
+    public boolean removeExecutionListener(
+        IExperimentExecutionListener expExecListener) {
+      return false;
+    }
+
+    @Override
+    public void setExperiment(BaseExperiment exp) {
+    }
+
+    @Override
+    public void stop(boolean stopTasks) {
+    }
+
+    @Override
+    public void run() {
+    }
+  }
+
+  /**
+   * Creates a configuration with the given number of replications.
+   *
+   * @param key
+   *          the key to count the initialisations for
+   * @param replications
+   *          the number of replications
+   * @return the configuration
+   */
+  private static TaskConfiguration createConfig(String key, int replications) {
+    TaskConfiguration config =
+        new TaskConfiguration(1, new ParameterBlock(),
+            new HashMap<String, Object>(),
+            ParameterUtils.getDefaultExecParamBlock());
+    config.setReplicationCriterionFactory(new ParameterizedFactory<RepCriterionFactory>(
+        new RepNumberCriterionFactory(), new ParameterBlock(replications,
+            RepNumberCriterionFactory.NUM_REPS)));
+    config.setSetup(new CountingSetup(key));
+    return config;
+  }
+
+  /**
+   * Tests that all replications of all configurations are executed exactly
+   * once, batched and unbatched.
+   *
+   * @throws InterruptedException
+   *           if interrupted
+   */
+  public void testReplications() throws InterruptedException {
+    checkReplications(1);
+    checkReplications(WorkStealingComputationTaskRunner.DEFAULT_MAX_BATCH_SIZE);
+  }
+
+  /**
+   * Executes some configurations and checks the number of replications.
+   *
+   * @param maxBatchSize
+   *          the maximal batch size
+   * @throws InterruptedException
+   *           if interrupted
+   */
+  private void checkReplications(int maxBatchSize)
+      throws InterruptedException {
+    WorkStealingComputationTaskRunner runner = createRunner(4, maxBatchSize);
+    int[] replications = { 1, 7, 100, 250 };
+    List<TaskConfiguration> configs = new ArrayList<>();
+    for (int i = 0; i < replications.length; i++) {
+      configs.add(createConfig(maxBatchSize + ":" + i, replications[i]));
+    }
+    CountingController controller =
+        new CountingController(replications.length);
+
+    Thread thread = new Thread(runner);
+    thread.start();
+    runner.scheduleConfigurations(controller, configs);
+    assertTrue(controller.configurationsDone.await(30, TimeUnit.SECONDS));
+
+    int sum = 0;
+    for (int i = 0; i < replications.length; i++) {
+      assertEquals(replications[i], INITIALISED.get(maxBatchSize + ":" + i)
+          .get());
+      sum += replications[i];
+    }
+    assertEquals(sum, controller.executed.get());
+    assertEquals(sum, runner.getMetrics().getExecutedReplications());
+    assertEquals(replications.length, runner.getMetrics()
+        .getConfigurationMetrics().size());
+    assertTrue(runner.getMetrics().getThroughput() > 0);
+
+    runner.stop();
+    thread.join(10000);
+    assertFalse(thread.isAlive());
+  }
+
+  /**
+   * Tests that the execution controller learns that a configuration is done
+   * if it is cancelled, i.e., if its last replications are skipped.
+   *
+   * @throws InterruptedException
+   *           if interrupted
+   */
+  public void testCancelConfiguration() throws InterruptedException {
+    WorkStealingComputationTaskRunner runner = createRunner(1, 1);
+    final TaskConfiguration config = createConfig("cancel", 50);
+    CountingController controller = new CountingController(1) {
+      @Override
+      public void computationTaskExecuted(ITaskRunner taskRunner,
+          ComputationTaskRuntimeInformation ctrti, RunInformation runInfo) {
+        taskRunner.cancelConfiguration(config);
+        super.computationTaskExecuted(taskRunner, ctrti, runInfo);
+      }
+    };
+
+    Thread thread = new Thread(runner);
+    thread.start();
+    List<TaskConfiguration> configs = new ArrayList<>();
+    configs.add(config);
+    runner.scheduleConfigurations(controller, configs);
+    assertTrue(controller.configurationsDone.await(30, TimeUnit.SECONDS));
+    assertTrue(INITIALISED.get("cancel").get() < 50);
+
+    runner.stop();
+    thread.join(10000);
+    assertFalse(thread.isAlive());
+  }
+
+  /**
+   * Tests that a worker waiting for the decision of the execution controller
+   * does not stall the pool: the controller only decides once two
+   * replications have been initialised, although there is a single worker.
+   *
+   * @throws InterruptedException
+   *           if interrupted
+   */
+  public void testBlockedWorkerIsCompensated() throws InterruptedException {
+    WorkStealingComputationTaskRunner runner = createRunner(1, 1);
+    CountingController controller = new CountingController(1) {
+
+      /** The replications waiting for the decision. */
+      private final List<ComputationTaskRuntimeInformation> initialised =
+          new ArrayList<>();
+
+      @Override
+      public void computationTaskInitialized(ITaskRunner taskRunner,
+          ComputationTaskRuntimeInformation taskRTInfo) {
+        synchronized (initialised) {
+          initialised.add(taskRTInfo);
+          if (initialised.size() < 2) {
+            return;
+          }
+          for (ComputationTaskRuntimeInformation info : initialised) {
+            taskRunner.runTask(info);
+          }
+        }
+      }
+    };
+
+    Thread thread = new Thread(runner);
+    thread.start();
+    List<TaskConfiguration> configs = new ArrayList<>();
+    configs.add(createConfig("blocked", 2));
+    runner.scheduleConfigurations(controller, configs);
+    assertTrue(controller.configurationsDone.await(30, TimeUnit.SECONDS));
+    assertEquals(2, controller.executed.get());
+
+    runner.stop();
+    thread.join(10000);
+    assertFalse(thread.isAlive());
+  }
+
+  /**
+   * Creates a runner whose tasks do not need a model.
+   *
+   * @param maxThreads
+   *          the number of workers
+   * @param maxBatchSize
+   *          the maximal batch size
+   * @return the runner
+   */
+  private static WorkStealingComputationTaskRunner createRunner(
+      int maxThreads, int maxBatchSize) {
+    return new WorkStealingComputationTaskRunner(maxThreads,
+        WorkStealingComputationTaskRunner.DEFAULT_BATCH_DURATION, maxBatchSize) {
+      @Override
+      protected void initModelReader(TaskConfiguration taskConfig) {
+        // the tasks do not need a model
+      }
+    };
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.experiments.tasks.setup.internalsimrun;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.data.model.IModelReader;
+import org.jamesii.core.experiments.ExecutionMeasurements;
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.model.IInstantiableModel;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.model.Model;
+import org.jamesii.core.model.symbolic.ISymbolicModel;
+import org.jamesii.core.parameters.ParameterBlock;
+
+/**
+ * Tests for the {@link ModelTemplateCache}.
+ */
+public class ModelTemplateCacheTest extends TestCase {
+
+  /** A model which is not instantiable. */
+  static class PlainModel extends Model {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The value. */
+    private int value;
+
+    /**
+     * Instantiates a new plain model.
+     *
+     * @param value
+     *          the value
+     */
+    PlainModel(int value) {
+      super("plain");
+      this.value = value;
+    }
+
+    /**
+     * Gets the value.
+     *
+     * @return the value
+     */
+    int getValue() {
+      return value;
+    }
+  }
+
+  /** An instantiable model. */
+  static class TemplateModel extends PlainModel implements IInstantiableModel {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Instantiates a new template model.
+     *
+     * @param value
+     *          the value
+     */
+    TemplateModel(int value) {
+      super(value);
+    }
+
+    @Override
+    public IModel instantiate() {
+      return new PlainModel(getValue());
+    }
+  }
+
+  /** Model reader counting the models read. */
+  static class CountingReader implements IModelReader {
+
+    /** Flag whether instantiable models shall be read. */
+    private final boolean instantiable;
+
+    /** The number of models read. */
+    private int reads;
+
+    /**
+     * Instantiates a new counting reader.
+     *
+     * @param instantiable
+     *          flag whether instantiable models shall be read
+     */
+    CountingReader(boolean instantiable) {
+      this.instantiable = instantiable;
+    }
+
+    @Override
+    public IModel read(URI source, Map<String, ?> parameters) {
+      reads++;
+      int value = (Integer) parameters.get("value");
+      return instantiable ? new TemplateModel(value) : new PlainModel(value);
+    }
+
+    @Override
+    public ISymbolicModel<?> read(URI ident) {
+      return null;
+    }
+  }
+
+  /** The model URI. */
+  private final URI uri = URI.create("java://test.Model");
+
+  /**
+   * Creates the model parameters.
+   *
+   * @param value
+   *          the value
+   * @return the parameters
+   */
+  private static Map<String, Object> params(int value) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("value", value);
+    return params;
+  }
+
+  /**
+   * Tests that instantiable models are read once per template and copied
+   * afterwards.
+   */
+  public void testInstantiableModel() {
+    ModelTemplateCache cache = new ModelTemplateCache(4, 1024);
+    CountingReader reader = new CountingReader(true);
+    ParameterBlock readerParams = new ParameterBlock().addSubBl("uri", uri);
+    RunInformation info = new RunInformation(false);
+    ExecutionMeasurements measures = new ExecutionMeasurements(info);
+
+    IModel first = cache.getModel(reader, uri, readerParams, params(1), measures);
+    IModel second =
+        cache.getModel(reader, uri, new ParameterBlock().addSubBl("uri", uri),
+            params(1), measures);
+    IModel other = cache.getModel(reader, uri, readerParams, params(2), null);
+
+    assertEquals(2, reader.reads);
+    assertNotSame(first, second);
+    assertFalse(first instanceof TemplateModel);
+    assertEquals(1, ((PlainModel) second).getValue());
+    assertEquals(2, ((PlainModel) other).getValue());
+    assertEquals(1, cache.getHits());
+    assertEquals(2, cache.getMisses());
+    assertEquals(1, info.getModelCacheHits());
+    assertEquals(1, info.getModelCacheMisses());
+  }
+
+  /**
+   * Tests that other models are cached as snapshots only on request.
+   */
+  public void testSnapshots() {
+    ModelTemplateCache cache = new ModelTemplateCache(4, 1 << 20);
+    CountingReader reader = new CountingReader(false);
+
+    ParameterBlock readerParams = new ParameterBlock();
+    cache.getModel(reader, uri, readerParams, params(1), null);
+    cache.getModel(reader, uri, readerParams, params(1), null);
+    assertEquals(2, reader.reads);
+    assertEquals(0, cache.getHits() + cache.getMisses());
+
+    readerParams.addSubBlock(ModelTemplateCache.SNAPSHOT, Boolean.TRUE);
+    IModel first = cache.getModel(reader, uri, readerParams, params(1), null);
+    IModel second = cache.getModel(reader, uri, readerParams, params(1), null);
+    assertEquals(3, reader.reads);
+    assertNotSame(first, second);
+    assertEquals(1, ((PlainModel) second).getValue());
+    assertTrue(cache.getSnapshotBytes() > 0);
+  }
+
+  /**
+   * Tests the eviction of the least recently used templates.
+   */
+  public void testEviction() {
+    ModelTemplateCache cache = new ModelTemplateCache(2, 1 << 20);
+    CountingReader reader = new CountingReader(true);
+    ParameterBlock readerParams = new ParameterBlock();
+
+    cache.getModel(reader, uri, readerParams, params(1), null);
+    cache.getModel(reader, uri, readerParams, params(2), null);
+    cache.getModel(reader, uri, readerParams, params(1), null);
+    cache.getModel(reader, uri, readerParams, params(3), null);
+    assertEquals(2, cache.size());
+    assertEquals(3, reader.reads);
+
+    // 2 has been evicted, 1 not
+    cache.getModel(reader, uri, readerParams, params(1), null);
+    assertEquals(3, reader.reads);
+    cache.getModel(reader, uri, readerParams, params(2), null);
+    assertEquals(4, reader.reads);
+
+    // snapshots exceeding the byte bound are not kept, and do not evict
+    // other templates
+    ModelTemplateCache small = new ModelTemplateCache(2, 1);
+    CountingReader templateReader = new CountingReader(true);
+    small.getModel(templateReader, uri, new ParameterBlock(), params(2), null);
+    CountingReader snapshotReader = new CountingReader(false);
+    readerParams.addSubBlock(ModelTemplateCache.SNAPSHOT, Boolean.TRUE);
+    small.getModel(snapshotReader, uri, readerParams, params(1), null);
+    small.getModel(snapshotReader, uri, readerParams, params(1), null);
+    assertEquals(2, snapshotReader.reads);
+    assertEquals(0, small.getSnapshotBytes());
+    assertEquals(1, small.getMisses());
+    small.getModel(templateReader, uri, new ParameterBlock(), params(2), null);
+    assertEquals(1, templateReader.reads);
+    assertEquals(1, small.getHits());
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.generators.mrg32k3a;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.plugintype.AbstractRandomGeneratorFactory;
+import org.jamesii.core.parameters.ParameterBlock;
+
+/**
+ * Tests for the {@link MRG32k3a} generator and its streams.
+ */
+public class MRG32k3aTest extends TestCase {
+
+  /** The jump matrix of the first component as published by L'Ecuyer et al. */
+  private static final long[][] PUBLISHED_A1_STREAM = {
+      { 2427906178L, 3580155704L, 949770784L },
+      { 226153695L, 1230515664L, 3580155704L },
+      { 1988835001L, 986791581L, 1230515664L } };
+
+  /**
+   * The jump matrix of the second component as published by L'Ecuyer et al.
+   */
+  private static final long[][] PUBLISHED_A2_STREAM = {
+      { 1464411153L, 277697599L, 1610723613L },
+      { 32183930L, 1464411153L, 1022607788L },
+      { 2824425944L, 32183930L, 2093834863L } };
+
+  /** The default state of the package of L'Ecuyer et al. */
+  private static final long[] DEFAULT_STATE = { 12345, 12345, 12345, 12345,
+      12345, 12345 };
+
+  /**
+   * Tests that the computed jump matrices are the published ones.
+   */
+  public void testJumpMatrices() {
+    assertTrue(Arrays.deepEquals(PUBLISHED_A1_STREAM, MRG32k3a.A1_STREAM));
+    assertTrue(Arrays.deepEquals(PUBLISHED_A2_STREAM, MRG32k3a.A2_STREAM));
+  }
+
+  /**
+   * Tests the first number generated from the default state of the package
+   * of L'Ecuyer et al.
+   */
+  public void testReferenceValue() {
+    MRG32k3a rng = new MRG32k3a(DEFAULT_STATE);
+    assertEquals(0.12701112204657714, rng.next() / (MRG32k3a.M1 + 1.0),
+        1e-15);
+  }
+
+  /**
+   * Tests that jumping ahead by a matrix power yields the state reached by
+   * drawing the numbers.
+   */
+  public void testJumpAhead() {
+    MRG32k3a rng = new MRG32k3a(DEFAULT_STATE);
+    long[] state = rng.getState();
+    for (int i = 0; i < 1000; i++) {
+      rng.next();
+    }
+    long[] s1 =
+        MRG32k3a.multiply(MRG32k3a.power(MRG32k3a.A1, 1000, MRG32k3a.M1),
+            Arrays.copyOfRange(state, 0, 3), MRG32k3a.M1);
+    long[] s2 =
+        MRG32k3a.multiply(MRG32k3a.power(MRG32k3a.A2, 1000, MRG32k3a.M2),
+            Arrays.copyOfRange(state, 3, 6), MRG32k3a.M2);
+    assertTrue(Arrays.equals(s1, Arrays.copyOfRange(rng.getState(), 0, 3)));
+    assertTrue(Arrays.equals(s2, Arrays.copyOfRange(rng.getState(), 3, 6)));
+  }
+
+  /**
+   * Tests that the start of a stream is reached by jumping from the previous
+   * one, and that streams are reproducible from seed and stream number.
+   */
+  public void testStreams() {
+    long seed = 4711;
+    long[] state = new MRG32k3a(seed).getState();
+    for (int stream = 1; stream < 20; stream++) {
+      long[] s1 =
+          MRG32k3a.multiply(MRG32k3a.A1_STREAM, Arrays.copyOfRange(state, 0, 3),
+              MRG32k3a.M1);
+      long[] s2 =
+          MRG32k3a.multiply(MRG32k3a.A2_STREAM, Arrays.copyOfRange(state, 3, 6),
+              MRG32k3a.M2);
+      state = new MRG32k3a(seed, stream).getState();
+      assertTrue(Arrays.equals(s1, Arrays.copyOfRange(state, 0, 3)));
+      assertTrue(Arrays.equals(s2, Arrays.copyOfRange(state, 3, 6)));
+    }
+
+    MRG32k3a rng = new MRG32k3a(seed, 1000000007L);
+    MRG32k3a same = new MRG32k3a(seed, 1000000007L);
+    MRG32k3a other = new MRG32k3a(seed, 1000000008L);
+    boolean differs = false;
+    for (int i = 0; i < 1000; i++) {
+      long value = rng.next();
+      assertEquals(value, same.next());
+      differs |= value != other.next();
+    }
+    assertTrue(differs);
+  }
+
+  /**
+   * Tests resetting and advancing substreams.
+   */
+  public void testSubstreams() {
+    MRG32k3a rng = new MRG32k3a(42, 3);
+    long[] first = new long[100];
+    for (int i = 0; i < first.length; i++) {
+      first[i] = rng.next();
+    }
+    rng.resetSubstream();
+    for (int i = 0; i < first.length; i++) {
+      assertEquals(first[i], rng.next());
+    }
+    rng.nextSubstream();
+    boolean differs = false;
+    for (int i = 0; i < first.length; i++) {
+      differs |= first[i] != rng.next();
+    }
+    assertTrue(differs);
+  }
+
+  /**
+   * Tests the creation of streams by the factory.
+   */
+  public void testFactory() {
+    MRG32k3aGeneratorFactory factory = new MRG32k3aGeneratorFactory();
+    assertTrue(factory.supportsStreams());
+    IRandom rng =
+        factory.create(new ParameterBlock().addSubBl(
+            AbstractRandomGeneratorFactory.SEED, 17L).addSubBl(
+            AbstractRandomGeneratorFactory.STREAM, 5L), null);
+    assertEquals(5, ((MRG32k3a) rng).getStream());
+    assertTrue(Arrays.equals(new MRG32k3a(17, 5).getState(),
+        ((MRG32k3a) rng).getState()));
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.rnggenerator.stream;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.java.JavaRandomGeneratorFactory;
+import org.jamesii.core.math.random.generators.plugintype.RandomGeneratorFactory;
+import org.jamesii.core.parameters.ParameterizedFactory;
+
+/**
+ * Tests for the {@link StreamRNGGenerator}.
+ */
+public class StreamRNGGeneratorTest extends TestCase {
+
+  /**
+   * Checks whether two generators yield the same numbers.
+   *
+   * @param expected
+   *          the expected generator
+   * @param actual
+   *          the actual generator
+   */
+  private static void assertSameSequence(IRandom expected, IRandom actual) {
+    for (int i = 0; i < 100; i++) {
+      assertEquals(expected.nextLong(), actual.nextLong());
+    }
+  }
+
+  /**
+   * Tests that the streams handed out depend on seed and stream number only.
+   */
+  public void testReproducibility() {
+    StreamRNGGenerator generator = new StreamRNGGenerator(123);
+    IRandom first = generator.getNextRNG();
+    IRandom second = generator.getNextRNG();
+    assertFalse(first.nextLong() == second.nextLong());
+
+    StreamRNGGenerator other = new StreamRNGGenerator(123);
+    assertSameSequence(other.getRNG(1), generator.getRNG(1));
+    other.getNextRNG();
+    assertSameSequence(other.getRNG(1), other.getNextRNG());
+
+    generator.setSeed(123);
+    assertSameSequence(new StreamRNGGenerator(123).getRNG(0),
+        generator.getNextRNG());
+  }
+
+  /**
+   * Tests that the generators handed out while a replication is set up depend
+   * on seed, replication and their order only.
+   *
+   * @throws InterruptedException
+   *           if the test is interrupted
+   */
+  public void testReplications() throws InterruptedException {
+    final StreamRNGGenerator generator = new StreamRNGGenerator(123);
+    generator.getNextRNG();
+    StreamRNGGenerator.startReplication(4);
+    try {
+      IRandom first = generator.getNextRNG();
+      final IRandom[] otherThread = new IRandom[1];
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          otherThread[0] = generator.getNextRNG();
+        }
+      };
+      thread.start();
+      thread.join();
+      IRandom second = generator.getNextRNG();
+
+      StreamRNGGenerator other = new StreamRNGGenerator(123);
+      assertSameSequence(other.getRNG(4, 0), first);
+      assertSameSequence(other.getRNG(4, 1), second);
+      assertSameSequence(other.getRNG(1), otherThread[0]);
+    } finally {
+      StreamRNGGenerator.finishReplication();
+    }
+    assertSameSequence(new StreamRNGGenerator(123).getRNG(2),
+        generator.getNextRNG());
+    assertFalse(generator.getRNG(0, 0).nextLong() == generator.getRNG(1, 0)
+        .nextLong());
+
+    try {
+      generator.getRNG(0, -1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that factories without stream support get derived seeds.
+   */
+  public void testWithoutStreamSupport() {
+    StreamRNGGenerator generator = new StreamRNGGenerator(123);
+    generator.setRNGFactory(new ParameterizedFactory<RandomGeneratorFactory>(
+        new JavaRandomGeneratorFactory()));
+    assertSameSequence(generator.getRNG(7), generator.getRNG(7));
+    assertFalse(generator.getRNG(7).nextLong() == generator.getRNG(8)
+        .nextLong());
+  }
+
+}
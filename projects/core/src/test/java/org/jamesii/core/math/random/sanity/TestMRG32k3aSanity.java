@@ -0,0 +1,23 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.sanity;
+
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3aGeneratorFactory;
+import org.jamesii.core.math.random.generators.plugintype.RandomGeneratorFactory;
+
+/**
+ * Basic sanity checks for the {@link MRG32k3a} RNG.
+ */
+public class TestMRG32k3aSanity extends RNGSanityCheck {
+
+  @Override
+  protected RandomGeneratorFactory getRNGFactory() {
+    return new MRG32k3aGeneratorFactory();
+  }
+
+}
@@ -0,0 +1,22 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.random.serialization;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+
+/**
+ * Basic serialization test of the {@link MRG32k3a} RNG.
+ */
+public class TestMRG32k3aSerialization extends TestRNGSerialization {
+
+  @Override
+  protected IRandom getRNG() {
+    return new MRG32k3a();
+  }
+
+}
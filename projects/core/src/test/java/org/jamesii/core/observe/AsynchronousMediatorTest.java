@@ -0,0 +1,311 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.observe;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.base.Entity;
+import org.jamesii.core.observe.AsynchronousMediator.Backpressure;
+
+/**
+ * Tests for the {@link AsynchronousMediator}.
+ */
+public class AsynchronousMediatorTest extends TestCase {
+
+  /** The number of notifications sent. */
+  private static final int NOTIFICATIONS = 10000;
+
+  /**
+   * Entity with a mutable value.
+   */
+  static class ValueEntity extends Entity {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The value. */
+    int value;
+  }
+
+  /**
+   * Synchronous observer recording the hints received.
+   */
+  static class SynchronousObserver implements IObserver<Entity> {
+
+    /** The hints received. */
+    final List<Object> hints = new ArrayList<>();
+
+    /** The thread which called the observer last. */
+    Thread caller;
+
+    @Override
+    public void update(Entity entity) {
+      update(entity, "none");
+    }
+
+    @Override
+    public void update(Entity entity, Object hint) {
+      caller = Thread.currentThread();
+      hints.add(hint);
+    }
+  }
+
+  /**
+   * Asynchronous observer recording the hints received, the hint is the
+   * snapshot.
+   */
+  static class RecordingObserver extends SynchronousObserver implements
+      IAsynchronousObserver<Entity, Object> {
+
+    @Override
+    public Object snapshot(Entity entity, Object hint) {
+      return hint == null ? "none" : hint;
+    }
+
+    @Override
+    public void updateFromSnapshot(Entity entity, Object snapshot) {
+      update(entity, snapshot);
+    }
+  }
+
+  /**
+   * Asynchronous observer recording the values of a {@link ValueEntity}.
+   */
+  static class ValueObserver implements
+      IAsynchronousObserver<ValueEntity, Integer> {
+
+    /** The values observed. */
+    final List<Integer> values = new ArrayList<>();
+
+    /** The latch to wait for on the first update. */
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    @Override
+    public void update(ValueEntity entity) {
+      throw new IllegalStateException("Not called asynchronously.");
+    }
+
+    @Override
+    public void update(ValueEntity entity, Object hint) {
+      throw new IllegalStateException("Not called asynchronously.");
+    }
+
+    @Override
+    public Integer snapshot(ValueEntity entity, Object hint) {
+      return entity.value;
+    }
+
+    @Override
+    public void updateFromSnapshot(ValueEntity entity, Integer snapshot) {
+      try {
+        latch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      values.add(snapshot);
+    }
+  }
+
+  /**
+   * Observer which waits for a latch on the first update.
+   */
+  static class StallingObserver extends RecordingObserver {
+
+    /** The latch to wait for. */
+    final CountDownLatch latch = new CountDownLatch(1);
+
+    @Override
+    public void updateFromSnapshot(Entity entity, Object snapshot) {
+      try {
+        latch.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.updateFromSnapshot(entity, snapshot);
+    }
+  }
+
+  /**
+   * Tests that blocking delivers all notifications in order, off the
+   * notifying thread.
+   */
+  public void testBlock() {
+    AsynchronousMediator mediator =
+        new AsynchronousMediator(8, Backpressure.BLOCK);
+    assertEquals(8, mediator.getCapacity());
+    Entity e = new Entity();
+    e.setMediator(mediator);
+    RecordingObserver observer = new RecordingObserver();
+    e.registerObserver(observer);
+
+    for (int i = 0; i < NOTIFICATIONS; i++) {
+      e.changed(i);
+    }
+    e.changed();
+    mediator.flush();
+
+    assertEquals(NOTIFICATIONS + 1, observer.hints.size());
+    for (int i = 0; i < NOTIFICATIONS; i++) {
+      assertEquals(i, observer.hints.get(i));
+    }
+    assertEquals("none", observer.hints.get(NOTIFICATIONS));
+    assertNotSame(Thread.currentThread(), observer.caller);
+    assertEquals(0, mediator.getDroppedNotifications());
+    mediator.close();
+  }
+
+  /**
+   * Tests that notifications not fitting into the buffer are dropped.
+   */
+  public void testDrop() {
+    AsynchronousMediator mediator =
+        new AsynchronousMediator(4, Backpressure.DROP);
+    Entity e = new Entity();
+    e.setMediator(mediator);
+    StallingObserver observer = new StallingObserver();
+    e.registerObserver(observer);
+
+    for (int i = 0; i < 100; i++) {
+      e.changed(i);
+    }
+    observer.latch.countDown();
+    mediator.close();
+
+    // the first one is taken by the drainer, at most four wait in the buffer
+    assertTrue(observer.hints.size() <= 5);
+    assertEquals(100, observer.hints.size()
+        + mediator.getDroppedNotifications());
+    assertEquals(0, observer.hints.get(0));
+  }
+
+  /**
+   * Tests that sampling accepts every n-th notification once the buffer is
+   * half full.
+   */
+  public void testSample() {
+    AsynchronousMediator mediator =
+        new AsynchronousMediator(64, Backpressure.SAMPLE, 4);
+    Entity e = new Entity();
+    e.setMediator(mediator);
+    StallingObserver observer = new StallingObserver();
+    e.registerObserver(observer);
+
+    for (int i = 0; i < 100; i++) {
+      e.changed(i);
+    }
+    observer.latch.countDown();
+    mediator.close();
+
+    assertEquals(100, observer.hints.size()
+        + mediator.getDroppedNotifications());
+    assertTrue(mediator.getDroppedNotifications() > 0);
+    assertTrue(observer.hints.size() > 32);
+    // the accepted notifications are still in order
+    for (int i = 1; i < observer.hints.size(); i++) {
+      assertTrue((Integer) observer.hints.get(i - 1) < (Integer) observer.hints
+          .get(i));
+    }
+  }
+
+  /**
+   * Tests that failures of observers are thrown by flush and that a closed
+   * mediator informs the observers directly.
+   */
+  public void testFailureAndClose() {
+    AsynchronousMediator mediator = new AsynchronousMediator();
+    Entity e = new Entity();
+    e.setMediator(mediator);
+    e.registerObserver(new RecordingObserver() {
+      @Override
+      public void updateFromSnapshot(Entity entity, Object snapshot) {
+        throw new IllegalStateException("failed");
+      }
+    });
+    e.changed(1);
+    try {
+      mediator.flush();
+      fail("The failure of the observer has not been thrown.");
+    } catch (ObserverException ex) {
+      assertTrue(ex.getCause() instanceof IllegalStateException);
+    }
+    mediator.flush();
+    mediator.close();
+
+    e.unregisterObservers();
+    RecordingObserver observer = new RecordingObserver();
+    e.registerObserver(observer);
+    e.changed(2);
+    assertEquals(1, observer.hints.size());
+    assertSame(Thread.currentThread(), observer.caller);
+  }
+
+  /**
+   * Tests that the asynchronous observers see the state at the time of the
+   * notification, although the entity is changed before they are updated.
+   */
+  public void testSnapshots() {
+    AsynchronousMediator mediator =
+        new AsynchronousMediator(64, Backpressure.BLOCK);
+    ValueEntity e = new ValueEntity();
+    e.setMediator(mediator);
+    ValueObserver observer = new ValueObserver();
+    e.registerObserver(observer);
+
+    for (int i = 0; i < 50; i++) {
+      e.value = i;
+      e.changed();
+    }
+    e.value = -1;
+    observer.latch.countDown();
+    mediator.flush();
+
+    assertEquals(50, observer.values.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(Integer.valueOf(i), observer.values.get(i));
+    }
+    mediator.close();
+  }
+
+  /**
+   * Tests that observers not implementing {@link IAsynchronousObserver}, which
+   * may read the state of the entity, are updated on the notifying thread.
+   */
+  public void testSynchronousObservers() {
+    AsynchronousMediator mediator = new AsynchronousMediator();
+    Entity e = new Entity();
+    e.setMediator(mediator);
+    SynchronousObserver synchronous = new SynchronousObserver();
+    StallingObserver asynchronous = new StallingObserver();
+    e.registerObserver(synchronous);
+    e.registerObserver(asynchronous);
+
+    e.changed(1);
+    e.changed();
+    // the asynchronous observer is still stalled
+    assertEquals(2, synchronous.hints.size());
+    assertEquals(1, synchronous.hints.get(0));
+    assertEquals("none", synchronous.hints.get(1));
+    assertSame(Thread.currentThread(), synchronous.caller);
+
+    asynchronous.latch.countDown();
+    mediator.flush();
+    assertEquals(synchronous.hints, asynchronous.hints);
+    assertNotSame(Thread.currentThread(), asynchronous.caller);
+
+    e.unregisterObserver(synchronous);
+    e.changed(2);
+    mediator.close();
+    assertEquals(2, synchronous.hints.size());
+    assertEquals(3, asynchronous.hints.size());
+  }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.parameters;
+
+import java.net.URI;
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.util.misc.Clone;
+
+/**
+ * Tests for the {@link ImmutableParameterBlock}.
+ */
+public class TestImmutableParameterBlock extends TestCase {
+
+  /**
+   * Creates a mutable test block.
+   *
+   * @return the block
+   */
+  private static ParameterBlock createBlock() {
+    return new ParameterBlock("root").addSubBl("uri",
+        URI.create("file:///model.xml")).addSubBl(
+        "exec",
+        new ParameterBlock("processor").addSubBl("threads", 4).addSubBl(
+            "window", 10.0));
+  }
+
+  /**
+   * Tests the conversion of mutable blocks.
+   */
+  public void testConversion() {
+    ParameterBlock block = createBlock();
+    ImmutableParameterBlock frozen = ImmutableParameterBlock.freeze(block);
+    assertNotNull(frozen);
+    assertEquals(0, frozen.compareTo(block));
+    assertSame(frozen, ImmutableParameterBlock.freeze(frozen));
+    assertNull(ImmutableParameterBlock.freeze(null));
+
+    // changing the original block does not change the immutable one
+    block.getSubBlock("exec").addSubBlock("threads", 8);
+    assertEquals(Integer.valueOf(4), frozen.getSubBlock("exec")
+        .getSubBlockValue("threads"));
+
+    // mutable values are rejected by freeze, but not by of
+    block.addSubBlock("list", new ArrayList<String>());
+    assertNull(ImmutableParameterBlock.freeze(block));
+    assertNotNull(ImmutableParameterBlock.of(block));
+  }
+
+  /**
+   * Tests that immutable blocks cannot be changed.
+   */
+  public void testImmutability() {
+    ImmutableParameterBlock frozen =
+        ImmutableParameterBlock.freeze(createBlock());
+    try {
+      frozen.addSubBlock("a", 1);
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      frozen.getSubBlock("exec").setValue("other");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+    try {
+      frozen.getSubBlocks().remove("uri");
+      fail();
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    // copies are mutable again
+    ParameterBlock copy = frozen.getCopy();
+    copy.getSubBlock("exec").addSubBlock("threads", 2);
+    assertEquals(Integer.valueOf(4), frozen.getSubBlock("exec")
+        .getSubBlockValue("threads"));
+  }
+
+  /**
+   * Tests the persistent updates.
+   */
+  public void testUpdates() {
+    ImmutableParameterBlock frozen =
+        ImmutableParameterBlock.freeze(createBlock());
+    ImmutableParameterBlock changed = frozen.with("uri", "other");
+    assertEquals("other", changed.getSubBlockValue("uri"));
+    assertEquals(URI.create("file:///model.xml"),
+        frozen.getSubBlockValue("uri"));
+    // unchanged sub-blocks are shared
+    assertSame(frozen.getSubBlock("exec"), changed.getSubBlock("exec"));
+
+    ImmutableParameterBlock exec =
+        ((ImmutableParameterBlock) frozen.getSubBlock("exec")).with("threads",
+            8);
+    changed = frozen.with("exec", exec);
+    assertEquals(Integer.valueOf(8), changed.getSubBlock("exec")
+        .getSubBlockValue("threads"));
+    assertEquals("processor", changed.getSubBlock("exec").getValue());
+    assertSame(exec, changed.getSubBlock("exec"));
+
+    changed = frozen.without("uri").withValue("newRoot");
+    assertFalse(changed.hasSubBlock("uri"));
+    assertTrue(frozen.hasSubBlock("uri"));
+    assertEquals("newRoot", changed.getValue());
+    assertSame(frozen, frozen.without("unknown"));
+  }
+
+  /**
+   * Tests the serialisation.
+   *
+   * @throws Exception
+   *           if serialisation fails
+   */
+  public void testSerialisation() throws Exception {
+    ImmutableParameterBlock frozen =
+        ImmutableParameterBlock.freeze(createBlock());
+    ParameterBlock clone = Clone.cloneSerializable(frozen);
+    assertTrue(clone instanceof ImmutableParameterBlock);
+    assertEquals(0, frozen.compareTo(clone));
+  }
+
+}
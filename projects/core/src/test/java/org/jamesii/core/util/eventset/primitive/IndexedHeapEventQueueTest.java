@@ -0,0 +1,101 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jamesii.core.util.eventset.HeapEventQueue;
+import org.jamesii.core.util.misc.Clone;
+
+/**
+ * Tests the {@link IndexedHeapEventQueue} event queue.
+ */
+public class IndexedHeapEventQueueTest extends PrimitiveTimeEventQueueTest {
+
+  /**
+   * The Constructor.
+   *
+   * @param name
+   *          the name
+   */
+  public IndexedHeapEventQueueTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public IndexedHeapEventQueue<Object> create() {
+    return new IndexedHeapEventQueue<>(1);
+  }
+
+  /**
+   * Compares random sequences of requeue, dequeue(event) and getTime
+   * operations with the results of the {@link HeapEventQueue}.
+   */
+  public void testRequeueAgainstHeapEventQueue() {
+    IndexedHeapEventQueue<Object> queue = new IndexedHeapEventQueue<>(1);
+    HeapEventQueue<Object> reference = new HeapEventQueue<>();
+    List<Object> events = new ArrayList<>();
+    Random rand = new Random(42);
+
+    for (int i = 0; i < 500; i++) {
+      Object event = new Object();
+      events.add(event);
+      double time = rand.nextInt(100);
+      queue.enqueue(event, time);
+      reference.enqueue(event, time);
+    }
+
+    for (int i = 0; i < 20000; i++) {
+      Object event = events.get(rand.nextInt(events.size()));
+      switch (rand.nextInt(4)) {
+      case 0:
+        double time = rand.nextInt(100);
+        queue.requeue(event, time);
+        reference.requeue(event, time);
+        break;
+      case 1:
+        assertEquals(reference.dequeue(event), queue.dequeue(event));
+        break;
+      case 2:
+        assertEquals(reference.getTime(event), queue.getTime(event));
+        break;
+      default:
+        assertEquals(reference.getMin(), queue.getMin());
+        if (!queue.isEmpty()) {
+          double min = queue.getMinTime();
+          Object dequeued = queue.dequeueMinEvent();
+          assertEquals(min, reference.dequeue(dequeued).doubleValue());
+        }
+      }
+      assertEquals(reference.size(), queue.size());
+    }
+  }
+
+  /**
+   * Tests that the event index is still usable after serialization.
+   *
+   * @throws Exception
+   *           if serialization fails
+   */
+  public void testSerialization() throws Exception {
+    IndexedHeapEventQueue<String> queue = new IndexedHeapEventQueue<>();
+    for (int i = 0; i < 100; i++) {
+      queue.enqueue("event" + i, 100. - i);
+    }
+    IndexedHeapEventQueue<String> copy = Clone.cloneSerializable(queue);
+    assertEquals(100, copy.size());
+    String event = copy.dequeueMinEvent();
+    assertEquals("event99", event);
+    assertNull(copy.getTime(event));
+    copy.enqueue(event, 200.);
+    assertEquals(200., copy.getTime(event).doubleValue());
+    copy.requeue(event, 0.);
+    assertEquals(0., copy.getMinTime());
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+/**
+ * Tests the {@link PrimitiveCalendarQueue} event queue.
+ */
+public class PrimitiveCalendarQueueTest extends PrimitiveTimeEventQueueTest {
+
+  /**
+   * The Constructor.
+   *
+   * @param name
+   *          the name
+   */
+  public PrimitiveCalendarQueueTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public PrimitiveCalendarQueue<Object> create() {
+    return new PrimitiveCalendarQueue<>(1);
+  }
+
+}
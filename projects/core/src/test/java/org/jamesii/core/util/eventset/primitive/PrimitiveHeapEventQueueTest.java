@@ -0,0 +1,29 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+/**
+ * Tests the {@link PrimitiveHeapEventQueue} event queue.
+ */
+public class PrimitiveHeapEventQueueTest extends PrimitiveTimeEventQueueTest {
+
+  /**
+   * The Constructor.
+   *
+   * @param name
+   *          the name
+   */
+  public PrimitiveHeapEventQueueTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public PrimitiveHeapEventQueue<Object> create() {
+    return new PrimitiveHeapEventQueue<>(1);
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.util.eventset.primitive;
+
+import java.util.Random;
+
+import org.jamesii.core.util.eventset.EventQueueTest;
+import org.jamesii.core.util.eventset.IPrimitiveTimeEventQueue;
+
+/**
+ * Base class for tests of {@link IPrimitiveTimeEventQueue} implementations:
+ * runs all tests of {@link EventQueueTest} on the boxed methods, and tests the
+ * primitive fast path in addition.
+ */
+public abstract class PrimitiveTimeEventQueueTest extends EventQueueTest {
+
+  /**
+   * The Constructor.
+   *
+   * @param name
+   *          the name
+   */
+  public PrimitiveTimeEventQueueTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public abstract IPrimitiveTimeEventQueue<Object> create();
+
+  /**
+   * Tests the primitive fast path with a hold model (which also exercises the
+   * enlargement of the internal arrays).
+   */
+  public void testPrimitiveHold() {
+    IPrimitiveTimeEventQueue<Object> queue = create();
+    assertTrue(Double.isNaN(queue.getMinTime()));
+    assertNull(queue.dequeueMinEvent());
+
+    Random rand = new Random(42);
+    for (int i = 0; i < 1000; i++) {
+      queue.enqueue(new Object(), rand.nextDouble());
+    }
+    double last = -1.;
+    for (int i = 0; i < 10000; i++) {
+      double min = queue.getMinTime();
+      assertTrue(min >= last);
+      last = min;
+      Object event = queue.dequeueMinEvent();
+      assertNotNull(event);
+      queue.enqueue(event, min - Math.log(rand.nextDouble()));
+    }
+    assertEquals(1000, queue.size());
+
+    Object event = new Object();
+    queue.enqueue(event, last + 0.5);
+    queue.requeue(event, last);
+    assertEquals(last, queue.getMinTime());
+    assertSame(event, queue.dequeueMinEvent());
+  }
+}
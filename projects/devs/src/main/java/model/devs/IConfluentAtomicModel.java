@@ -0,0 +1,37 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package model.devs;
+
+import org.jamesii.core.model.AbstractState;
+
+/**
+ * Atomic models implementing this interface provide their own confluent
+ * transition function (delta<sub>con</sub>) as defined by the Parallel DEVS
+ * formalism. The confluent transition is executed instead of the internal and
+ * external transition functions if a model is imminent and receives external
+ * events at the same time.<br>
+ * Simulators supporting confluent transitions (e.g.,
+ * {@link simulator.devs.flatparallel.FlatParallelProcessor}) execute
+ * delta<sub>int</sub> followed by delta<sub>ext</sub> with an elapsed time of
+ * 0 for models not implementing this interface, which is the default confluent
+ * function of PDEVS.
+ *
+ * @param <S>
+ *          the type of the state
+ */
+public interface IConfluentAtomicModel<S extends AbstractState> extends
+    IAtomicModel<S> {
+
+  /**
+   * The confluent transition function. On invocation the input ports of the
+   * model contain the bag of external events, and the elapsed time equals the
+   * last time advance value. As for the other transition functions any
+   * attached observer has to be informed about the state change.
+   */
+  void deltaConfluentSim();
+
+}
@@ -101,6 +101,7 @@ public abstract class BasicAtomicModel<S extends AbstractState> extends
   @Override
   public void deltaExternalSim(double elapsedTime) {
     deltaExternal(elapsedTime);
+    flushPortChanges();
     changedState();
     changed();
   }
@@ -114,6 +115,7 @@ public abstract class BasicAtomicModel<S extends AbstractState> extends
   @Override
   public void deltaInternalSim() {
     deltaInternal();
+    flushPortChanges();
     changedState();
     changed();
   }
@@ -142,6 +144,7 @@ public abstract class BasicAtomicModel<S extends AbstractState> extends
   @Override
   public void lambdaSim() {
     lambda();
+    flushPortChanges();
   }
 
   /**
@@ -161,11 +161,38 @@ public abstract class BasicDEVSModel extends Model implements IBasicDEVSModel {
    */
   private IPort addPort(IPortSet portSet, String name, Class<?> portValueClass) {
     portChangeAllowed();
-    Port port = new Port(name, portValueClass);
+    IPort port = createPort(name, portValueClass);
     portSet.addPort(port);
     return port;
   }
 
+  /**
+   * Creates the ports added by {@link #addInPort(String, Class)} and
+   * {@link #addOutPort(String, Class)}. Models passing many values per step
+   * can override this method to use a
+   * {@link model.devscore.ports.RingBufferPort} instead of the default
+   * {@link Port}.
+   * 
+   * @param name
+   *          the name of the port
+   * @param portValueClass
+   *          the class of the values of the port
+   * 
+   * @return the new port
+   */
+  protected IPort createPort(String name, Class<?> portValueClass) {
+    return new Port(name, portValueClass);
+  }
+
+  /**
+   * Forwards the change notifications coalesced by the in and out ports of
+   * the model to their observers.
+   */
+  protected void flushPortChanges() {
+    getInPorts().flushChanges();
+    getOutPorts().flushChanges();
+  }
+
   /**
    * Build full name, that's the model's parent names followed by the own name
    * each seperated by a dot - this name is always unique because two models
@@ -65,4 +65,10 @@ public interface IPortSet extends IElementSet<IPort> {
    */
   void removePort(IPort port);
 
+  /**
+   * Forwards the change notifications coalesced by the ports of the set (see
+   * {@link RingBufferPort#flushChanges()}) to their observers.
+   */
+  void flushChanges();
+
 }
@@ -26,9 +26,15 @@ public class PortSet extends ElementSet<IPort> implements IPortSet {
   /** The ports to be maintained by this set. */
   private Map<String, IPort> helements = new HashMap<>(1);
 
+  /** The number of ports coalescing their change notifications. */
+  private int coalescingPorts;
+
   @Override
   public void addPort(IPort port) {
     getVelements().add(port);
+    if (port instanceof RingBufferPort) {
+      coalescingPorts++;
+    }
     helements.put(port.getName(), port);
     setElementIterator(null);
     changed();
@@ -41,6 +47,19 @@ public class PortSet extends ElementSet<IPort> implements IPortSet {
     }
   }
 
+  @Override
+  public void flushChanges() {
+    if (coalescingPorts == 0) {
+      return;
+    }
+    for (int i = 0; i < getVelements().size(); i++) {
+      IPort port = getVelements().get(i);
+      if (port instanceof RingBufferPort) {
+        ((RingBufferPort) port).flushChanges();
+      }
+    }
+  }
+
   @Override
   public IPort getPort(String name) {
     return helements.get(name);
@@ -64,6 +83,9 @@ public class PortSet extends ElementSet<IPort> implements IPortSet {
           + " could not be removed!");
     }
     helements.remove(port.getName());
+    if (port instanceof RingBufferPort) {
+      coalescingPorts--;
+    }
 
     setElementIterator(null);
     changed();
@@ -0,0 +1,361 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package model.devscore.ports;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+import org.jamesii.core.base.NamedEntity;
+
+/**
+ * Port storing its values in a circular buffer, for ports passing many values
+ * per step. In contrast to the {@link Port}
+ * <ul>
+ * <li>{@link #read()} removes the first value in constant time,</li>
+ * <li>{@link #clear()} keeps the buffer for reuse (unless the values are
+ * still referenced by a list returned by {@link #readAll()}),</li>
+ * <li>values can be moved in bulk with {@link #drainTo(Collection)} and
+ * {@link #writeAll(List)},</li>
+ * <li>observers are not notified on each read and write, the notifications
+ * are coalesced until {@link #flushChanges()} is called, which the
+ * {@link model.devscore.BasicAtomicModel} does once per transition.</li>
+ * </ul>
+ * The list returned by {@link #readAll()} is a view of the buffer, like the
+ * list of the {@link Port} it reflects later reads and writes, and it keeps
+ * the values read if the port is cleared afterwards.
+ * <p>
+ * Models use ring buffer ports by adding them via
+ * {@link model.devscore.BasicDEVSModel#addInPort(IPort)} and
+ * {@link model.devscore.BasicDEVSModel#addOutPort(IPort)}, or by overriding
+ * {@link model.devscore.BasicDEVSModel#createPort(String, Class)}.
+ */
+public class RingBufferPort extends NamedEntity implements IPort {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 2698017353385542179L;
+
+  /** The default initial capacity. */
+  public static final int DEFAULT_CAPACITY = 8;
+
+  /** The class of the values. */
+  private final Class<?> valueClass;
+
+  /** The buffer, its length is a power of two. */
+  private Object[] buffer;
+
+  /** The index of the first value in the buffer. */
+  private int head;
+
+  /** The number of values stored. */
+  private int count;
+
+  /** The view returned by {@link #readAll()}, null if not created yet. */
+  private transient Values view;
+
+  /** Flag set if values have been read or written since the last flush. */
+  private boolean modified;
+
+  /**
+   * Instantiates a new ring buffer port.
+   *
+   * @param name
+   *          the name of the port
+   * @param valueClass
+   *          the class of the values
+   */
+  public RingBufferPort(String name, Class<?> valueClass) {
+    this(name, valueClass, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Instantiates a new ring buffer port.
+   *
+   * @param name
+   *          the name of the port
+   * @param valueClass
+   *          the class of the values
+   * @param initialCapacity
+   *          the initial capacity of the buffer, it grows if needed
+   */
+  public RingBufferPort(String name, Class<?> valueClass, int initialCapacity) {
+    super(name);
+    this.valueClass = valueClass;
+    int capacity = 1;
+    while (capacity < initialCapacity) {
+      capacity <<= 1;
+    }
+    buffer = new Object[capacity];
+  }
+
+  /**
+   * Gets the class of the values.
+   *
+   * @return the value class
+   */
+  public Class<?> getValueClass() {
+    return valueClass;
+  }
+
+  @Override
+  public final void clear() {
+    if (count == 0) {
+      return;
+    }
+    if (view != null) {
+      // the values read are still referenced, hand the buffer over (without
+      // copying it) and continue with a fresh one
+      view.detach(buffer, head, count);
+      view = null;
+      buffer = new Object[buffer.length];
+    } else {
+      for (int i = 0; i < count; i++) {
+        buffer[(head + i) & (buffer.length - 1)] = null;
+      }
+    }
+    head = 0;
+    count = 0;
+  }
+
+  @Override
+  public final int getValuesCount() {
+    return count;
+  }
+
+  @Override
+  public final boolean hasValue() {
+    return count > 0;
+  }
+
+  @Override
+  public final Object read() {
+    if (count == 0) {
+      return null;
+    }
+    Object value = buffer[head];
+    buffer[head] = null;
+    head = (head + 1) & (buffer.length - 1);
+    count--;
+    modified = true;
+    return value;
+  }
+
+  @Override
+  public final Object read(int index) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+          + count);
+    }
+    return buffer[(head + index) & (buffer.length - 1)];
+  }
+
+  @Override
+  public final List<Object> readAll() {
+    if (view == null) {
+      view = new Values(this);
+    }
+    return view;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public final <M> M readAs() {
+    return (M) read();
+  }
+
+  /**
+   * Removes all values from the port and adds them to the given collection.
+   *
+   * @param target
+   *          the collection to add the values to
+   * @return the number of values moved
+   */
+  public final int drainTo(Collection<Object> target) {
+    int n = count;
+    for (int i = 0; i < n; i++) {
+      int index = (head + i) & (buffer.length - 1);
+      target.add(buffer[index]);
+      buffer[index] = null;
+    }
+    head = 0;
+    count = 0;
+    if (n > 0) {
+      modified = true;
+    }
+    return n;
+  }
+
+  @Override
+  public final void write(Object o) {
+    if (o.getClass() != valueClass) {
+      throw new PortTypeMismatchException("Writing on port " + getName()
+          + " with a wrong type " + o.getClass().getName() + " instead of "
+          + valueClass.getName());
+    }
+    ensureCapacity(count + 1);
+    buffer[(head + count) & (buffer.length - 1)] = o;
+    count++;
+    modified = true;
+  }
+
+  @Override
+  public final void writeAll(List<Object> o) {
+    int n = o.size();
+    if (n == 0) {
+      return;
+    }
+    ensureCapacity(count + n);
+    int mask = buffer.length - 1;
+    if (o instanceof RandomAccess) {
+      for (int i = 0; i < n; i++) {
+        buffer[(head + count + i) & mask] = o.get(i);
+      }
+    } else {
+      int i = 0;
+      for (Object value : o) {
+        buffer[(head + count + i++) & mask] = value;
+      }
+    }
+    count += n;
+    modified = true;
+  }
+
+  /**
+   * Notifies the observers once if values have been read or written since
+   * the last call.
+   */
+  public final void flushChanges() {
+    if (modified) {
+      modified = false;
+      changed();
+    }
+  }
+
+  /**
+   * Grows the buffer to hold at least the given number of values.
+   *
+   * @param capacity
+   *          the capacity needed
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= buffer.length) {
+      return;
+    }
+    int length = buffer.length;
+    while (length < capacity) {
+      length <<= 1;
+    }
+    Object[] grown = new Object[length];
+    copy(buffer, head, count, grown);
+    buffer = grown;
+    head = 0;
+  }
+
+  /**
+   * Copies the values of a circular buffer to the start of an array.
+   *
+   * @param source
+   *          the circular buffer
+   * @param head
+   *          the index of the first value
+   * @param count
+   *          the number of values
+   * @param target
+   *          the array to copy to
+   */
+  private static void copy(Object[] source, int head, int count,
+      Object[] target) {
+    int first = Math.min(count, source.length - head);
+    System.arraycopy(source, head, target, 0, first);
+    System.arraycopy(source, 0, target, first, count - first);
+  }
+
+  /**
+   * The view of the values returned by {@link RingBufferPort#readAll()}. It
+   * reads through to the port until the port is cleared, then it keeps the
+   * values it had.
+   */
+  private static final class Values extends AbstractList<Object> implements
+      RandomAccess, Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = -2237069010693049585L;
+
+    /** The port, null if detached. */
+    private RingBufferPort port;
+
+    /** The buffer of the port, owned by the view after detaching. */
+    private Object[] values;
+
+    /** The index of the first value in {@link #values}. */
+    private int head;
+
+    /** The number of values kept after detaching. */
+    private int count;
+
+    /**
+     * Instantiates a new view.
+     *
+     * @param port
+     *          the port
+     */
+    Values(RingBufferPort port) {
+      this.port = port;
+    }
+
+    /**
+     * Detaches the view from the port. The view takes over the buffer, the
+     * port must not use it any longer.
+     *
+     * @param buffer
+     *          the buffer of the port
+     * @param head
+     *          the index of the first value
+     * @param count
+     *          the number of values
+     */
+    void detach(Object[] buffer, int head, int count) {
+      values = buffer;
+      this.head = head;
+      this.count = count;
+      port = null;
+    }
+
+    @Override
+    public Object get(int index) {
+      if (port != null) {
+        return port.read(index);
+      }
+      if (index < 0 || index >= count) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: "
+            + count);
+      }
+      return values[(head + index) & (values.length - 1)];
+    }
+
+    @Override
+    public int size() {
+      return port != null ? port.count : count;
+    }
+
+    /**
+     * Replaces the view by a plain list on serialisation.
+     *
+     * @return the list to be serialised
+     * @throws ObjectStreamException
+     *           never
+     */
+    private Object writeReplace() throws ObjectStreamException {
+      return new ArrayList<>(this);
+    }
+  }
+
+}
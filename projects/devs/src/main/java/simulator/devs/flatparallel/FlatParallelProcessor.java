@@ -0,0 +1,552 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatparallel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import model.devs.IConfluentAtomicModel;
+import model.devscore.IBasicAtomicModel;
+import model.devscore.IBasicCoupledModel;
+import model.devscore.IBasicDEVSModel;
+
+import org.jamesii.core.experiments.tasks.stoppolicy.EmptyStopCondition;
+import org.jamesii.core.experiments.tasks.stoppolicy.IComputationTaskStopPolicy;
+import org.jamesii.core.model.AbstractState;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.model.InvalidModelException;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.processor.IRunnable;
+import org.jamesii.core.processor.ProcessorStatus;
+import org.jamesii.core.processor.execontrol.ExecutionControl;
+import org.jamesii.core.util.eventset.IEventQueue;
+import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+
+import simulator.devs.flatsequential.eventforwarding.ExternalEventForwardingHandler;
+import simulator.devscore.BasicDEVSProcessor;
+
+/**
+ * The Class FlatParallelProcessor.
+ *
+ * <p>
+ * Parallel DEVS simulator which, like the
+ * {@link simulator.devs.flatsequential.FlatSequentialProcessor}, virtually
+ * flattens the model tree: all atomic models are enqueued with their tonies in
+ * a single event queue ({@link #events}), and coupled models are only used for
+ * the event forwarding. In contrast to the sequential simulator no select
+ * function is applied: all atomic models having the minimal time stamp are
+ * imminent (bag semantics of PDEVS), and models which are imminent and
+ * influenced at the same time execute their confluent transition function
+ * (see {@link IConfluentAtomicModel}).
+ * </p>
+ *
+ * <p>
+ * A step is computed in four phases:
+ * <ol>
+ * <li>the lambda functions of all imminent models are executed in parallel,</li>
+ * <li>the outputs are copied to the receivers by the {@link #eventForwarding}
+ * mechanism (sequentially),</li>
+ * <li>the state transition functions and the time advance functions of all
+ * imminent and influenced models are executed in parallel,</li>
+ * <li>the new tonies are requeued (sequentially).</li>
+ * </ol>
+ * The parallel phases are executed by a fork/join pool. All models get a fixed
+ * index on initialization (ordered by their full names), and the sequential
+ * phases always process the models in the order of these indices. Thus the
+ * order of the events in the input ports, the order of the state change
+ * notifications and the order of the requeue operations do not depend on the
+ * thread scheduling (or the ordering of the event queue), and so the results
+ * of a run are reproducible.<br>
+ * Please note that the model functions are executed concurrently, so they must
+ * not share mutable data, and observers attached to the ports of the models
+ * may be notified from the worker threads. State observers are notified from
+ * the thread running the simulator.
+ * </p>
+ *
+ * <p>
+ * Phases with less than {@link #threshold} models are executed by the calling
+ * thread, thus the overhead of the parallel execution is only paid if there are
+ * sufficiently many imminent / influenced models.
+ * </p>
+ */
+public class FlatParallelProcessor extends BasicDEVSProcessor implements
+    IRunnable {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -6217785426630195531L;
+
+  /** Role flag of a model being imminent. */
+  private static final byte IMMINENT = 1;
+
+  /** Role flag of a model having received external events. */
+  private static final byte INFLUENCED = 2;
+
+  /** Role of a model being imminent and influenced. */
+  private static final byte CONFLUENT = IMMINENT | INFLUENCED;
+
+  /** The phase computing the outputs. */
+  private static final int LAMBDA = 0;
+
+  /** The phase computing the state transitions. */
+  private static final int TRANSITION = 1;
+
+  /** The event forwarding. */
+  private ExternalEventForwardingHandler eventForwarding;
+
+  /** The list of events, here the atomic models together with their tonies. */
+  private IEventQueue<IBasicDEVSModel, Double> events;
+
+  /** Execution control variable, used by all runnable processors. */
+  private ExecutionControl executionControl;
+
+  /** The event queue factory. */
+  private EventQueueFactory eqFactory;
+
+  /** The atomic models, in index order. */
+  private IBasicAtomicModel<?>[] models;
+
+  /** The index of each atomic model in {@link #models}. */
+  private Map<IBasicDEVSModel, Integer> indices;
+
+  /** The toles, per model index. */
+  private double[] toles;
+
+  /** The newly computed tonies, per model index. */
+  private double[] tonies;
+
+  /** The roles of the models in the current step, per model index. */
+  private byte[] roles;
+
+  /** The indices of the models to be processed in the current step. */
+  private int[] active;
+
+  /** The maximal number of worker threads to be used. */
+  private final int parallelism;
+
+  /** The minimal number of models per forked task. */
+  private final int threshold;
+
+  /** The fork/join pool, created on first use. */
+  private transient ForkJoinPool pool;
+
+  /**
+   * A flag that indicates whether the model associated to this processor is
+   * atomic or not, i.e., coupled.
+   */
+  private boolean isAssociatedModelAtomic = false;
+
+  /**
+   * Instantiates a new flat parallel processor.
+   *
+   * @param model
+   *          the root model to be computed
+   * @param eqf
+   *          the event queue factory to be used
+   * @param eventForwarding
+   *          the event forwarding mechanism
+   * @param parallelism
+   *          the maximal number of worker threads
+   * @param threshold
+   *          the minimal number of models per forked task
+   */
+  public FlatParallelProcessor(IModel model, EventQueueFactory eqf,
+      ExternalEventForwardingHandler eventForwarding, int parallelism,
+      int threshold) {
+    super(model);
+    eqFactory = eqf;
+    this.eventForwarding = eventForwarding;
+    this.parallelism = Math.max(1, parallelism);
+    this.threshold = Math.max(1, threshold);
+    executionControl = new ExecutionControl(this);
+  }
+
+  /**
+   * Invokes the respective functions of the associated model in the defined
+   * order, in case the associated model is an atomic DEVS model and not a
+   * coupled DEVS model.
+   */
+  private void executeAtomicModel() {
+    IBasicAtomicModel<?> m = (IBasicAtomicModel<?>) getModel();
+    m.lambdaSim();
+    m.deltaInternalSim();
+    m.clearOutPorts();
+
+    setTimeOfLastEvent(getTime());
+    setTime(m.timeAdvanceSim() + getTime());
+  }
+
+  @Override
+  public void doEvent() {
+    if (isAssociatedModelAtomic) {
+      executeAtomicModel();
+      return;
+    }
+
+    double t = getTime();
+
+    // all models with the minimal tonie are imminent
+    List<IBasicDEVSModel> imminents = events.dequeueAll();
+    int imminentCount = 0;
+    for (IBasicDEVSModel m : imminents) {
+      int index = indices.get(m);
+      roles[index] = IMMINENT;
+      active[imminentCount++] = index;
+    }
+    Arrays.sort(active, 0, imminentCount);
+
+    execute(LAMBDA, t, imminentCount);
+
+    // propagate outputs, in index order of the senders
+    Map<IBasicDEVSModel, Object> senders = new LinkedHashMap<>();
+    for (int i = 0; i < imminentCount; i++) {
+      senders.put(models[active[i]], null);
+    }
+    Map<IBasicAtomicModel<? extends AbstractState>, Object> influencedAM =
+        new HashMap<>();
+    eventForwarding.copyExternalEvents(senders, influencedAM);
+
+    int activeCount = imminentCount;
+    for (IBasicAtomicModel<? extends AbstractState> m : influencedAM.keySet()) {
+      Integer index = indices.get(m);
+      if (index == null) {
+        continue;
+      }
+      if (roles[index] == 0) {
+        active[activeCount++] = index;
+      }
+      roles[index] |= INFLUENCED;
+    }
+    Arrays.sort(active, 0, activeCount);
+
+    setTimeOfLastEvent(t);
+    execute(TRANSITION, t, activeCount);
+
+    for (int i = 0; i < activeCount; i++) {
+      int index = active[i];
+      IBasicAtomicModel<?> m = models[index];
+      // inform any attached observer if the state has been changed
+      m.getState().isChangedRR();
+      toles[index] = t;
+      roles[index] = 0;
+      events.requeue(m, tonies[index]);
+    }
+    this.changed();
+  }
+
+  /**
+   * Execute the given phase for the first count models in {@link #active}.
+   * Executed in parallel if there are more than {@link #threshold} models.
+   *
+   * @param phase
+   *          the phase
+   * @param time
+   *          the current time
+   * @param count
+   *          the number of models to be processed
+   */
+  private void execute(int phase, double time, int count) {
+    if (count <= threshold || parallelism == 1) {
+      compute(phase, time, 0, count);
+    } else {
+      getPool().invoke(new PhaseTask(phase, time, 0, count));
+    }
+  }
+
+  /**
+   * Execute the given phase for the models with the positions from
+   * (inclusive) to to (exclusive) in {@link #active}.
+   *
+   * @param phase
+   *          the phase
+   * @param time
+   *          the current time
+   * @param from
+   *          the first position
+   * @param to
+   *          the position after the last one
+   */
+  private void compute(int phase, double time, int from, int to) {
+    for (int i = from; i < to; i++) {
+      int index = active[i];
+      IBasicAtomicModel<?> m = models[index];
+      if (phase == LAMBDA) {
+        m.lambdaSim();
+      } else {
+        transition(m, index, time);
+      }
+    }
+  }
+
+  /**
+   * Execute the state transition function according to the role of the model
+   * and compute its new tonie.
+   *
+   * @param m
+   *          the model
+   * @param index
+   *          the index of the model
+   * @param time
+   *          the current time
+   */
+  private void transition(IBasicAtomicModel<?> m, int index, double time) {
+    switch (roles[index]) {
+    case IMMINENT:
+      m.clearOutPorts();
+      m.deltaInternalSim();
+      break;
+    case INFLUENCED:
+      m.deltaExternalSim(time - toles[index]);
+      m.clearInPorts();
+      break;
+    case CONFLUENT:
+      m.clearOutPorts();
+      if (m instanceof IConfluentAtomicModel) {
+        ((IConfluentAtomicModel<?>) m).deltaConfluentSim();
+      } else {
+        m.deltaInternalSim();
+        m.deltaExternalSim(0);
+      }
+      m.clearInPorts();
+      break;
+    default:
+      throw new IllegalStateException("Model " + m.getFullName()
+          + " has no role in the current step.");
+    }
+    tonies[index] = time + m.timeAdvanceSim();
+  }
+
+  /**
+   * Get the fork/join pool, create it if needed.
+   *
+   * @return the pool
+   */
+  private ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    return pool;
+  }
+
+  @Override
+  public void cleanUp() {
+    if (pool != null) {
+      pool.shutdown();
+      pool = null;
+    }
+    super.cleanUp();
+  }
+
+  @Override
+  public String getCompleteInfoString() {
+    return super.getCompleteInfoString() + "\nEvent queue: "
+        + events.getClass().getName() + "\nCopy mechanism: "
+        + eventForwarding.getClass().getName() + "\nParallelism: "
+        + parallelism;
+  }
+
+  /**
+   * Initializes the processor using the given time. All atomic models are
+   * collected, indexed and enqueued, and the event forwarding is initialized.
+   * <br>
+   * The current time is moved to the minimal time (tonie) of all events.
+   *
+   * @param time
+   *          the time to start with
+   */
+  public void init(double time) {
+    if (getModel() instanceof IBasicAtomicModel) {
+      isAssociatedModelAtomic = true;
+      setTimeOfLastEvent(time);
+      setTime(((IBasicAtomicModel<?>) getModel()).timeAdvanceSim() + time);
+    } else if (getModel() instanceof IBasicCoupledModel) {
+      List<IBasicAtomicModel<?>> atomics = new ArrayList<>();
+      collectAtomicModels((IBasicCoupledModel) getModel(), atomics);
+      Collections.sort(atomics, new Comparator<IBasicDEVSModel>() {
+        @Override
+        public int compare(IBasicDEVSModel m1, IBasicDEVSModel m2) {
+          return m1.getFullName().compareTo(m2.getFullName());
+        }
+      });
+
+      int size = atomics.size();
+      models = atomics.toArray(new IBasicAtomicModel<?>[size]);
+      indices = new HashMap<>();
+      toles = new double[size];
+      tonies = new double[size];
+      roles = new byte[size];
+      active = new int[size];
+
+      events = eqFactory.createDirect(new ParameterBlock(getModel()));
+      for (int i = 0; i < size; i++) {
+        indices.put(models[i], i);
+        toles[i] = time;
+        events.enqueue(models[i], time + models[i].timeAdvanceSim());
+      }
+
+      eventForwarding.init(getAssociatedDEVSModel());
+      setTime(events.getMin());
+    } else {
+      throw new InvalidModelException(getModel()
+          + " is neither an atomic nor a coupled DEVS model.");
+    }
+  }
+
+  /**
+   * Collect all atomic models contained in the given coupled model.
+   *
+   * @param model
+   *          the coupled model
+   * @param atomics
+   *          the list the atomic models are added to
+   */
+  private static void collectAtomicModels(IBasicCoupledModel model,
+      List<IBasicAtomicModel<?>> atomics) {
+    Iterator<IBasicDEVSModel> it = model.getSubModelIterator();
+    while (it.hasNext()) {
+      IBasicDEVSModel m = it.next();
+      if (m instanceof IBasicCoupledModel) {
+        collectAtomicModels((IBasicCoupledModel) m, atomics);
+      } else {
+        atomics.add((IBasicAtomicModel<?>) m);
+      }
+    }
+  }
+
+  @Override
+  public boolean isPausing() {
+    return executionControl.isPausing();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return executionControl.isRunning();
+  }
+
+  @Override
+  public boolean isStopping() {
+    return executionControl.isStopping();
+  }
+
+  @Override
+  public void pause() {
+    executionControl.pause();
+  }
+
+  @Override
+  public void postEvent() {
+    if (!isAssociatedModelAtomic) {
+      this.setTime(events.getMin());
+    }
+  }
+
+  @Override
+  public void preEvent() {
+
+  }
+
+  @Override
+  public void run() {
+    run(new EmptyStopCondition());
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end) {
+    executionControl.run(end);
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end, long pause) {
+    executionControl.run(end, pause);
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end, long pause, boolean paused) {
+    executionControl.run(end, pause, paused);
+  }
+
+  @Override
+  public void next(int num) {
+    executionControl.next(num);
+  }
+
+  @Override
+  public void stop() {
+    executionControl.stop();
+  }
+
+  @Override
+  public void setDelay(long pause) {
+    executionControl.setDelay(pause);
+  }
+
+  @Override
+  public ProcessorStatus getStatus() {
+    return executionControl.getStatus();
+  }
+
+  /**
+   * Fork/join task executing a phase for a range of {@link #active}. Ranges
+   * are split in halves until they are not larger than {@link #threshold}.
+   */
+  private final class PhaseTask extends RecursiveAction {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 4127938465014512391L;
+
+    /** The phase. */
+    private final int phase;
+
+    /** The current time. */
+    private final double time;
+
+    /** The first position. */
+    private final int from;
+
+    /** The position after the last one. */
+    private final int to;
+
+    /**
+     * Instantiates a new phase task.
+     *
+     * @param phase
+     *          the phase
+     * @param time
+     *          the current time
+     * @param from
+     *          the first position
+     * @param to
+     *          the position after the last one
+     */
+    PhaseTask(int phase, double time, int from, int to) {
+      this.phase = phase;
+      this.time = time;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        FlatParallelProcessor.this.compute(phase, time, from, to);
+        return;
+      }
+      int middle = (from + to) >>> 1;
+      invokeAll(new PhaseTask(phase, time, from, middle), new PhaseTask(
+          phase, time, middle, to));
+    }
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatparallel;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+
+import model.devs.IAtomicModel;
+import model.devs.ICoupledModel;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.distributed.partition.Partition;
+import org.jamesii.core.experiments.tasks.IComputationTask;
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.processor.IProcessor;
+import org.jamesii.core.processor.ProcessorInformation;
+import org.jamesii.core.processor.plugintype.JamesProcessorFactory;
+import org.jamesii.core.simulationrun.ISimulationRun;
+import org.jamesii.core.util.eventset.plugintype.AbstractEventQueueFactory;
+
+import simulator.devs.flatsequential.eventforwarding.ExternalEventForwardingHandler;
+import simulator.devs.flatsequential.eventforwarding.plugintype.AbstractExternalEventForwardingHandlerFactory;
+import simulator.devs.flatsequential.eventforwarding.plugintype.ExternalEventForwardingHandlerFactory;
+
+/**
+ * A factory for creating {@link FlatParallelProcessor} objects.
+ */
+public class FlatParallelProcessorFactory extends JamesProcessorFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 2925170963478104176L;
+
+  /** The maximal number of worker threads. Type: {@link Integer}. */
+  public static final String PARALLELISM = "parallelism";
+
+  /**
+   * The minimal number of models per forked task, phases with less models are
+   * executed sequentially. Type: {@link Integer}.
+   */
+  public static final String THRESHOLD = "threshold";
+
+  /** The default for {@link #THRESHOLD}. */
+  public static final int DEFAULT_THRESHOLD = 32;
+
+  @Override
+  public IProcessor create(IModel model, IComputationTask computationTask,
+      Partition partition, ParameterBlock parameters, Context context) {
+
+    ISimulationRun simulation = (ISimulationRun) computationTask;
+
+    ExternalEventForwardingHandlerFactory f =
+        SimSystem.getRegistry().getFactory(
+            AbstractExternalEventForwardingHandlerFactory.class, null);
+    ExternalEventForwardingHandler eefh =
+        f.create(null, SimSystem.getRegistry().createContext());
+
+    SimSystem.report(Level.CONFIG, "Using " + eefh.getClass().getName()
+        + " as external event forwarding mechanism.");
+
+    ParameterBlock eqfp = parameters.getSubBlock("eventqueue");
+
+    int parallelism =
+        ParameterBlocks.getSubBlockValueOrDefault(parameters, PARALLELISM,
+            Runtime.getRuntime().availableProcessors());
+    int threshold =
+        ParameterBlocks.getSubBlockValueOrDefault(parameters, THRESHOLD,
+            DEFAULT_THRESHOLD);
+
+    FlatParallelProcessor p =
+        new FlatParallelProcessor(model, SimSystem.getRegistry().getFactory(
+            AbstractEventQueueFactory.class, eqfp), eefh, parallelism,
+            threshold);
+
+    p.init(simulation.getStartTime());
+
+    simulation.setProcessorInfo(new ProcessorInformation(p));
+
+    return p;
+  }
+
+  /**
+   * Return a value between 0 and 1 which represents the simulators efficiency.
+   * The parallel simulator only pays off for models with many simultaneous
+   * events, and in contrast to the sequential simulators it does not apply
+   * the select function, thus it is not used by default.
+   *
+   * @return 0 for a not efficient and 1 for a highly efficient one
+   */
+  @Override
+  public double getEfficencyIndex() {
+    return 0.05;
+  }
+
+  @Override
+  public List<Class<?>> getSupportedInterfaces() {
+    List<Class<?>> al = new ArrayList<>();
+    al.add(ICoupledModel.class);
+    al.add(IAtomicModel.class);
+    return al;
+  }
+
+  @Override
+  public boolean supportsSubPartitions() {
+    return false;
+  }
+
+}
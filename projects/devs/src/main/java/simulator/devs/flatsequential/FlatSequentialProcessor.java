@@ -33,6 +33,8 @@ import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
 import simulator.devs.flatsequential.eventforwarding.ExternalEventForwardingHandler;
 import simulator.devscore.BasicDEVSProcessor;
 import simulator.devscore.DEVSProcessorState;
+import simulator.devscore.dynamic.DynamicStructureChangeHandler;
+import simulator.devscore.dynamic.IStructureChangeListener;
 
 /**
  * The Class FlatSequentialProcessor.
@@ -94,6 +96,9 @@ public class FlatSequentialProcessor extends BasicDEVSProcessor implements
   /** The toles. */
   private Map<IBasicDEVSModel, Double> toles = new HashMap<>();
 
+  /** The handler of structural changes, null if the model is static. */
+  private DynamicStructureChangeHandler structureChangeHandler;
+
   /**
    * A flag that indicates whether the model associated to this processor is
    * atomic or not, i.e., coupled.
@@ -445,6 +450,39 @@ public class FlatSequentialProcessor extends BasicDEVSProcessor implements
     toles.put(model, getTime());
   }
 
+  /**
+   * Get the handler of structural changes.
+   * 
+   * @return the handler, null if the model is static
+   */
+  public DynamicStructureChangeHandler getStructureChangeHandler() {
+    return structureChangeHandler;
+  }
+
+  /**
+   * Set the handler applying the structural changes to the model. If the event
+   * forwarding mechanism derives data from the model structure (i.e., it is an
+   * {@link IStructureChangeListener}, as the
+   * {@link simulator.devs.flatsequential.eventforwarding.CompiledExternalEventForwardingHandler}
+   * ) it is registered at the handler, and thus updated after each change.
+   * 
+   * @param handler
+   *          the handler, null if the model is static
+   */
+  public void setStructureChangeHandler(DynamicStructureChangeHandler handler) {
+    if (eventForwarding instanceof IStructureChangeListener) {
+      IStructureChangeListener listener =
+          (IStructureChangeListener) eventForwarding;
+      if (structureChangeHandler != null) {
+        structureChangeHandler.removeStructureChangeListener(listener);
+      }
+      if (handler != null) {
+        handler.addStructureChangeListener(listener);
+      }
+    }
+    structureChangeHandler = handler;
+  }
+
   @Override
   public void setDelay(long pause) {
     executionControl.setDelay(pause);
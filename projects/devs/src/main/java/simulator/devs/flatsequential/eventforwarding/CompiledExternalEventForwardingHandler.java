@@ -0,0 +1,510 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatsequential.eventforwarding;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jamesii.core.model.AbstractState;
+import org.jamesii.core.model.InvalidModelException;
+import org.jamesii.core.processor.util.BasicHandler;
+
+import model.devscore.IBasicAtomicModel;
+import model.devscore.IBasicCoupledModel;
+import model.devscore.IBasicDEVSModel;
+import model.devscore.couplings.BasicCoupling;
+import model.devscore.couplings.Coupling;
+import model.devscore.ports.IPort;
+import simulator.devscore.dynamic.IStructureChangeListener;
+
+/**
+ * This event forwarding handler flattens the couplings like the
+ * {@link DirectExternalEventForwardingHandler} does, but compiles the direct
+ * couplings into integer indexed routing arrays: each atomic model gets an
+ * id, the out ports of a model are a slice of the source port array, and the
+ * targets of a port are a slice of the target arrays. Copying the outputs of
+ * an imminent model thus is a loop over arrays; the values of a port are read
+ * once and written to all of its targets. The influenced models are collected
+ * in a bit set and added to the influencee map once each.
+ * <p>
+ * If registered at a
+ * {@link simulator.devscore.dynamic.DynamicStructureChangeHandler} (see
+ * {@link simulator.devs.flatsequential.FlatSequentialProcessor#setStructureChangeHandler(simulator.devscore.dynamic.DynamicStructureChangeHandler)}
+ * ) the routing is updated after each structural change: only the couplings
+ * of the changed coupled model are collected again, and only the routes of
+ * models inside it or of models whose routes use couplings of it are resolved
+ * again. The routing arrays themselves are compiled anew from all routes,
+ * which is linear in the number of models and direct couplings, but does not
+ * need to follow any coupling through the model hierarchy.
+ * <p>
+ * <b>NOTE</b>: Like the {@link DirectExternalEventForwardingHandler} this
+ * handler can only handle couplings of type
+ * {@link model.devscore.couplings.Coupling}.
+ */
+public class CompiledExternalEventForwardingHandler extends BasicHandler
+    implements ExternalEventForwardingHandler, IStructureChangeListener {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -3061588219263401934L;
+
+  /** Number of bits per word of the influencee bit set. */
+  private static final int WORD_BITS = 6;
+
+  /**
+   * A coupling together with the coupled model it has been defined in.
+   */
+  private static final class Link implements Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 4411017284650203366L;
+
+    /** The coupling. */
+    private final Coupling coupling;
+
+    /** The coupled model the coupling has been defined in. */
+    private final IBasicCoupledModel context;
+
+    /**
+     * Instantiates a new link.
+     *
+     * @param coupling
+     *          the coupling
+     * @param context
+     *          the coupled model the coupling has been defined in
+     */
+    Link(Coupling coupling, IBasicCoupledModel context) {
+      this.coupling = coupling;
+      this.context = context;
+    }
+  }
+
+  /**
+   * The resolved routes of an atomic model: per out port the receiving
+   * atomic models and their in ports.
+   */
+  private static final class Routes implements Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = -6244407436211802245L;
+
+    /** The targets per out port, in the order of first use. */
+    private final Map<IPort, List<Coupling>> targets = new LinkedHashMap<>();
+
+    /** The coupled models whose couplings have been used. */
+    private final Set<IBasicCoupledModel> contexts = new HashSet<>();
+  }
+
+  /** The root model. */
+  private IBasicCoupledModel root;
+
+  /** The couplings defined in each coupled model. */
+  private Map<IBasicCoupledModel, List<Link>> couplingsPerContext =
+      new HashMap<>();
+
+  /** The coupled models contained in each coupled model. */
+  private Map<IBasicCoupledModel, List<IBasicCoupledModel>> subContexts =
+      new HashMap<>();
+
+  /** The couplings per source model and port, of all coupled models. */
+  private Map<IBasicDEVSModel, Map<IPort, List<Link>>> outgoing =
+      new HashMap<>();
+
+  /** The resolved routes per atomic model. */
+  private Map<IBasicDEVSModel, Routes> routes = new HashMap<>();
+
+  /** The ids of the atomic models. */
+  private Map<IBasicDEVSModel, Integer> ids = new HashMap<>();
+
+  /** The atomic models, indexed by id. */
+  private IBasicAtomicModel<? extends AbstractState>[] models;
+
+  /**
+   * The index of the first out port of each model in {@link #sourcePorts},
+   * the last element is the number of source ports.
+   */
+  private int[] portOffsets;
+
+  /** The out ports having targets, grouped by model. */
+  private IPort[] sourcePorts;
+
+  /**
+   * The index of the first target of each source port in
+   * {@link #targetPorts}, the last element is the number of targets.
+   */
+  private int[] routeOffsets;
+
+  /** The in ports receiving values, grouped by source port. */
+  private IPort[] targetPorts;
+
+  /** The ids of the models of the {@link #targetPorts}. */
+  private int[] targetIds;
+
+  /** The bit set of influenced models, indexed by id. */
+  private long[] influencees;
+
+  @Override
+  public void init(IBasicDEVSModel model) {
+    root = (IBasicCoupledModel) model;
+    couplingsPerContext = new HashMap<>();
+    subContexts = new HashMap<>();
+    outgoing = new HashMap<>();
+    routes = new HashMap<>();
+    collectCouplings(root);
+    List<IBasicAtomicModel<? extends AbstractState>> atomics =
+        new ArrayList<>();
+    collectAtomicModels(root, atomics);
+    for (IBasicAtomicModel<? extends AbstractState> m : atomics) {
+      routes.put(m, resolve(m));
+    }
+    compile(atomics);
+  }
+
+  @Override
+  public void copyExternalEvents(Map<IBasicDEVSModel, Object> imminents,
+      Map<IBasicAtomicModel<? extends AbstractState>, Object> influencedAM) {
+    int minWord = influencees.length;
+    int maxWord = -1;
+    for (IBasicDEVSModel src : imminents.keySet()) {
+      Integer id = ids.get(src);
+      if (id == null) {
+        continue;
+      }
+      for (int p = portOffsets[id]; p < portOffsets[id + 1]; p++) {
+        IPort port = sourcePorts[p];
+        if (!port.hasValue()) {
+          continue;
+        }
+        List<Object> values = port.readAll();
+        for (int r = routeOffsets[p]; r < routeOffsets[p + 1]; r++) {
+          targetPorts[r].writeAll(values);
+          int target = targetIds[r];
+          int word = target >>> WORD_BITS;
+          influencees[word] |= 1L << target;
+          minWord = Math.min(minWord, word);
+          maxWord = Math.max(maxWord, word);
+        }
+      }
+    }
+
+    // hand over the influenced models, and clear the bit set again
+    for (int w = minWord; w <= maxWord; w++) {
+      long word = influencees[w];
+      while (word != 0) {
+        int bit = Long.numberOfTrailingZeros(word);
+        influencedAM.put(models[(w << WORD_BITS) + bit], null);
+        word &= word - 1;
+      }
+      influencees[w] = 0;
+    }
+  }
+
+  @Override
+  public void structureChanged(IBasicDEVSModel model) {
+    if (root == null) {
+      return;
+    }
+    IBasicCoupledModel changed =
+        model instanceof IBasicCoupledModel ? (IBasicCoupledModel) model
+            : model.getParent();
+    if (changed == null) {
+      changed = root;
+    }
+
+    // collect the couplings of the changed model (and of the models it
+    // contains, as some might have been added) again
+    Set<IBasicCoupledModel> stale = new HashSet<>();
+    removeCouplings(changed, stale);
+    collectCouplings(changed);
+
+    List<IBasicAtomicModel<? extends AbstractState>> atomics =
+        new ArrayList<>();
+    collectAtomicModels(root, atomics);
+    Set<IBasicDEVSModel> inside = new HashSet<>();
+    collectAtomicModels(changed, inside);
+
+    Map<IBasicDEVSModel, Routes> newRoutes = new HashMap<>();
+    for (IBasicAtomicModel<? extends AbstractState> m : atomics) {
+      Routes r = routes.get(m);
+      if (r == null || inside.contains(m) || !disjoint(r.contexts, stale)) {
+        r = resolve(m);
+      }
+      newRoutes.put(m, r);
+    }
+    routes = newRoutes;
+    compile(atomics);
+  }
+
+  /**
+   * Collects the couplings of the given coupled model and of all coupled
+   * models contained.
+   *
+   * @param model
+   *          the coupled model
+   */
+  private void collectCouplings(IBasicCoupledModel model) {
+    List<IBasicCoupledModel> contained = new ArrayList<>();
+    Iterator<IBasicDEVSModel> it = model.getSubModelIterator();
+    while (it.hasNext()) {
+      IBasicDEVSModel m = it.next();
+      if (m instanceof IBasicCoupledModel) {
+        contained.add((IBasicCoupledModel) m);
+        collectCouplings((IBasicCoupledModel) m);
+      }
+    }
+    subContexts.put(model, contained);
+
+    List<Link> links = new ArrayList<>();
+    addLinks(model, model.getEICIterator(), links);
+    addLinks(model, model.getEOCIterator(), links);
+    addLinks(model, model.getICIterator(), links);
+    couplingsPerContext.put(model, links);
+  }
+
+  /**
+   * Adds the couplings of the given iterator to the list of couplings of the
+   * context and to the couplings per source model and port.
+   *
+   * @param context
+   *          the coupled model the couplings are defined in
+   * @param it
+   *          the couplings
+   * @param links
+   *          the couplings of the context
+   */
+  private void addLinks(IBasicCoupledModel context,
+      Iterator<BasicCoupling> it, List<Link> links) {
+    while (it.hasNext()) {
+      BasicCoupling bc = it.next();
+      if (!(bc instanceof Coupling)) {
+        throw new InvalidModelException(
+            "The compiled event forwarding only supports std DEVS couplings!");
+      }
+      Link link = new Link((Coupling) bc, context);
+      links.add(link);
+
+      Map<IPort, List<Link>> ports = outgoing.get(bc.getModel1());
+      if (ports == null) {
+        ports = new HashMap<>();
+        outgoing.put(bc.getModel1(), ports);
+      }
+      List<Link> portLinks = ports.get(bc.getPort1());
+      if (portLinks == null) {
+        portLinks = new ArrayList<>();
+        ports.put(bc.getPort1(), portLinks);
+      }
+      portLinks.add(link);
+    }
+  }
+
+  /**
+   * Removes the couplings collected for the given coupled model and the
+   * coupled models it contained at the time of collection.
+   *
+   * @param model
+   *          the coupled model
+   * @param removed
+   *          the coupled models whose couplings have been removed (output)
+   */
+  private void removeCouplings(IBasicCoupledModel model,
+      Set<IBasicCoupledModel> removed) {
+    removed.add(model);
+    List<IBasicCoupledModel> contained = subContexts.remove(model);
+    if (contained != null) {
+      for (IBasicCoupledModel m : contained) {
+        removeCouplings(m, removed);
+      }
+    }
+    List<Link> links = couplingsPerContext.remove(model);
+    if (links == null) {
+      return;
+    }
+    for (Link link : links) {
+      Coupling c = link.coupling;
+      Map<IPort, List<Link>> ports = outgoing.get(c.getModel1());
+      if (ports != null) {
+        List<Link> portLinks = ports.get(c.getPort1());
+        if (portLinks != null) {
+          portLinks.remove(link);
+          if (portLinks.isEmpty()) {
+            ports.remove(c.getPort1());
+          }
+        }
+        if (ports.isEmpty()) {
+          outgoing.remove(c.getModel1());
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves the direct couplings of the out ports of the given atomic model.
+   *
+   * @param model
+   *          the atomic model
+   * @return the routes of the model
+   */
+  private Routes resolve(IBasicDEVSModel model) {
+    Routes result = new Routes();
+    Map<IPort, List<Link>> ports = outgoing.get(model);
+    if (ports != null) {
+      for (Map.Entry<IPort, List<Link>> e : ports.entrySet()) {
+        List<Coupling> targets = new ArrayList<>();
+        for (Link link : e.getValue()) {
+          follow(model, e.getKey(), link, targets, result.contexts);
+        }
+        if (!targets.isEmpty()) {
+          result.targets.put(e.getKey(), targets);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Follows the given coupling (recursively) until atomic models are
+   * reached, and adds direct couplings to these.
+   *
+   * @param startModel
+   *          the atomic source model
+   * @param startPort
+   *          the source port
+   * @param link
+   *          the coupling to follow
+   * @param targets
+   *          the direct couplings found (output)
+   * @param contexts
+   *          the coupled models whose couplings have been used (output)
+   */
+  private void follow(IBasicDEVSModel startModel, IPort startPort, Link link,
+      List<Coupling> targets, Set<IBasicCoupledModel> contexts) {
+    contexts.add(link.context);
+    IBasicDEVSModel endModel = link.coupling.getModel2();
+    IPort endPort = link.coupling.getPort2();
+    if (!(endModel instanceof IBasicCoupledModel)) {
+      targets.add(new Coupling(startModel, startPort, endModel, endPort));
+      return;
+    }
+    Map<IPort, List<Link>> ports = outgoing.get(endModel);
+    if (ports == null) {
+      return;
+    }
+    List<Link> next = ports.get(endPort);
+    if (next == null) {
+      return;
+    }
+    for (Link l : next) {
+      follow(startModel, startPort, l, targets, contexts);
+    }
+  }
+
+  /**
+   * Compiles the routes into the routing arrays.
+   *
+   * @param atomics
+   *          the atomic models, the index is used as id
+   */
+  @SuppressWarnings("unchecked")
+  private void compile(List<IBasicAtomicModel<? extends AbstractState>> atomics) {
+    int n = atomics.size();
+    models = atomics.toArray(new IBasicAtomicModel[n]);
+    ids = new HashMap<>(n * 2);
+    for (int i = 0; i < n; i++) {
+      ids.put(models[i], i);
+    }
+
+    int portCount = 0;
+    int routeCount = 0;
+    for (IBasicDEVSModel m : models) {
+      Routes r = routes.get(m);
+      portCount += r.targets.size();
+      for (List<Coupling> targets : r.targets.values()) {
+        routeCount += targets.size();
+      }
+    }
+
+    portOffsets = new int[n + 1];
+    sourcePorts = new IPort[portCount];
+    routeOffsets = new int[portCount + 1];
+    targetPorts = new IPort[routeCount];
+    targetIds = new int[routeCount];
+    int p = 0;
+    int r = 0;
+    for (int i = 0; i < n; i++) {
+      portOffsets[i] = p;
+      for (Map.Entry<IPort, List<Coupling>> e : routes.get(models[i]).targets
+          .entrySet()) {
+        sourcePorts[p] = e.getKey();
+        routeOffsets[p] = r;
+        for (Coupling c : e.getValue()) {
+          Integer target = ids.get(c.getModel2());
+          if (target == null) {
+            throw new InvalidModelException("The model "
+                + c.getModel2().getFullName()
+                + " is coupled but not part of the model tree.");
+          }
+          targetPorts[r] = c.getPort2();
+          targetIds[r] = target;
+          r++;
+        }
+        p++;
+      }
+    }
+    portOffsets[n] = p;
+    routeOffsets[p] = r;
+    influencees = new long[(n >>> WORD_BITS) + 1];
+  }
+
+  /**
+   * Collects the atomic models contained in the given coupled model.
+   *
+   * @param model
+   *          the coupled model
+   * @param atomics
+   *          the atomic models (output)
+   */
+  @SuppressWarnings("unchecked")
+  private static void collectAtomicModels(IBasicCoupledModel model,
+      Collection<? super IBasicAtomicModel<? extends AbstractState>> atomics) {
+    Iterator<IBasicDEVSModel> it = model.getSubModelIterator();
+    while (it.hasNext()) {
+      IBasicDEVSModel m = it.next();
+      if (m instanceof IBasicCoupledModel) {
+        collectAtomicModels((IBasicCoupledModel) m, atomics);
+      } else {
+        atomics.add((IBasicAtomicModel<? extends AbstractState>) m);
+      }
+    }
+  }
+
+  /**
+   * Checks whether the given sets have no element in common.
+   *
+   * @param a
+   *          the first set
+   * @param b
+   *          the second set
+   * @return true, if there is no common element
+   */
+  private static boolean disjoint(Set<IBasicCoupledModel> a,
+      Set<IBasicCoupledModel> b) {
+    for (IBasicCoupledModel m : b) {
+      if (a.contains(m)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
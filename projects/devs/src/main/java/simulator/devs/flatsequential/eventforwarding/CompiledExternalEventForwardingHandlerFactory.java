@@ -0,0 +1,29 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatsequential.eventforwarding;
+
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.parameters.ParameterBlock;
+
+import simulator.devs.flatsequential.eventforwarding.plugintype.ExternalEventForwardingHandlerFactory;
+
+/**
+ * Factory for the {@link CompiledExternalEventForwardingHandler}.
+ */
+public class CompiledExternalEventForwardingHandlerFactory extends
+    ExternalEventForwardingHandlerFactory {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 5318862146394817523L;
+
+  @Override
+  public ExternalEventForwardingHandler create(ParameterBlock parameters,
+      Context context) {
+    return new CompiledExternalEventForwardingHandler();
+  }
+
+}
@@ -0,0 +1,94 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.util.List;
+
+/**
+ * A logical process of the {@link TimeWarpProcessor}, i.e., a part of the
+ * atomic models of a model simulated optimistically. The processor drives
+ * the logical processes in epochs: first all logical processes
+ * {@link #execute(int, double)} some steps concurrently, afterwards the global
+ * virtual time is computed from the {@link #getLocalMinimum()}s and passed to
+ * {@link #fossilCollect(double)}.
+ * <p>
+ * {@link #receive(TimeWarpMessage)} and {@link #receiveAll(List)} may be
+ * called concurrently to {@link #execute(int, double)} (by the other logical
+ * processes), all other methods are called by the processor only.
+ */
+public interface ILogicalProcess {
+
+  /**
+   * Receives a message (or anti-message) sent by another logical process.
+   *
+   * @param message
+   *          the message
+   */
+  void receive(TimeWarpMessage message);
+
+  /**
+   * Receives the given messages (or anti-messages) in the given order.
+   *
+   * @param messages
+   *          the messages
+   */
+  void receiveAll(List<TimeWarpMessage> messages);
+
+  /**
+   * Executes at most the given number of steps with time stamps less than the
+   * given limit. Received messages are processed before each step, which may
+   * roll back steps executed before.
+   *
+   * @param maxSteps
+   *          the maximal number of steps
+   * @param limit
+   *          the time stamp limit (exclusive)
+   * @return the number of steps executed
+   */
+  int execute(int maxSteps, double limit);
+
+  /**
+   * Processes the messages received and returns the minimal time stamp of the
+   * steps to be executed (or re-executed).
+   *
+   * @return the local minimum, {@link Double#POSITIVE_INFINITY} if there is
+   *         nothing to be done
+   */
+  double getLocalMinimum();
+
+  /**
+   * Commits all steps with time stamps less than the given global virtual
+   * time, and frees the information saved for rolling them back.
+   *
+   * @param gvt
+   *          the global virtual time
+   * @return the number of steps committed
+   */
+  long fossilCollect(double gvt);
+
+  /**
+   * Gets the number of rollbacks.
+   *
+   * @return the number of rollbacks
+   */
+  long getRollbacks();
+
+  /**
+   * Gets the number of steps which have been rolled back.
+   *
+   * @return the number of steps rolled back
+   */
+  long getRolledBackSteps();
+
+  /**
+   * Gets the number of anti-messages sent.
+   *
+   * @return the number of anti-messages
+   */
+  long getAntiMessages();
+
+}
@@ -0,0 +1,577 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.jamesii.core.model.AbstractState;
+
+import model.devs.IConfluentAtomicModel;
+import model.devscore.IBasicAtomicModel;
+import model.devscore.ports.IPort;
+import simulator.devs.timewarp.transport.ITimeWarpTransport;
+import simulator.devscore.util.StateCopyHandler;
+
+/**
+ * Logical process of the {@link TimeWarpProcessor}. The logical process
+ * simulates a part of the atomic models of a model optimistically, i.e., it
+ * executes the steps of its models as soon as it knows about them, without
+ * waiting for the other logical processes. If a message arrives which should
+ * have been processed already (a straggler), the logical process rolls back
+ * all steps with time stamps greater or equal to the time stamp of the
+ * message, and cancels the messages sent by these steps by sending
+ * anti-messages.
+ * <p>
+ * A step of the logical process at time t corresponds to a step of the
+ * {@link simulator.devs.flatparallel.FlatParallelProcessor}: the lambda
+ * functions of all local models imminent at t are executed, and afterwards
+ * the state transition functions of all local models imminent at t or
+ * receiving messages with the time stamp t. The outputs of a model at t only
+ * depend on its state before t, so if a step at t is rolled back because of a
+ * message with the time stamp t, the messages sent by it remain valid. They
+ * are kept and used when the step is re-executed, thus zero delay couplings
+ * between logical processes do not cause cascades of rollbacks.
+ * <p>
+ * Before a model executes a state transition its state is saved by the
+ * {@link StateCopyHandler}, the saved states (and the messages consumed and
+ * sent) are kept in the history until the step is committed by
+ * {@link #fossilCollect(double)}.
+ */
+public class LogicalProcess implements ILogicalProcess, Serializable {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -5290167463312155932L;
+
+  /** Role flag of a model being imminent. */
+  private static final byte IMMINENT = 1;
+
+  /** Role flag of a model having received messages. */
+  private static final byte INFLUENCED = 2;
+
+  /** Role of a model being imminent and influenced. */
+  private static final byte CONFLUENT = IMMINENT | INFLUENCED;
+
+  /**
+   * Route of the values of an out port of a model to an in port of an atomic
+   * model.
+   */
+  static final class Route implements Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 3790417045807693416L;
+
+    /** The index of the receiving model. */
+    private final int target;
+
+    /** The name of the in port of the receiving model. */
+    private final String port;
+
+    /**
+     * Instantiates a new route.
+     *
+     * @param target
+     *          the index of the receiving model
+     * @param port
+     *          the name of the in port of the receiving model
+     */
+    Route(int target, String port) {
+      this.target = target;
+      this.port = port;
+    }
+  }
+
+  /**
+   * A step executed, with everything needed for rolling it back.
+   */
+  private static final class Step implements Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = -1716150808001727447L;
+
+    /** The time stamp. */
+    private final double time;
+
+    /** The local indices of the models which executed a state transition. */
+    private int[] models;
+
+    /** The states of these models before the step. */
+    private AbstractState[] states;
+
+    /** The toles of these models before the step. */
+    private double[] toles;
+
+    /** The tonies of these models before the step. */
+    private double[] tonies;
+
+    /** The messages consumed. */
+    private final List<TimeWarpMessage> consumed = new ArrayList<>();
+
+    /** The messages sent. */
+    private List<TimeWarpMessage> sent = new ArrayList<>();
+
+    /**
+     * Instantiates a new step.
+     *
+     * @param time
+     *          the time stamp
+     */
+    Step(double time) {
+      this.time = time;
+    }
+  }
+
+  /**
+   * Orders the local models by their tonies (and their indices).
+   */
+  private final class ScheduleComparator implements Comparator<Integer>,
+      Serializable {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 2201436958346035512L;
+
+    @Override
+    public int compare(Integer i1, Integer i2) {
+      int result = Double.compare(tonies[i1], tonies[i2]);
+      return result != 0 ? result : Integer.compare(i1, i2);
+    }
+  }
+
+  /** The index of the logical process. */
+  private final int index;
+
+  /** The local models, ordered by their (global) indices. */
+  private final IBasicAtomicModel<?>[] models;
+
+  /** The global indices of the local models. */
+  private final int[] ids;
+
+  /** The local indices of all models, -1 for models of other processes. */
+  private final int[] localIndices;
+
+  /** The logical process of each model, per global index. */
+  private final int[] processes;
+
+  /** The routes of the local models, per out port name. */
+  private final List<Map<String, Route[]>> routes;
+
+  /** The state copy handler. */
+  private final StateCopyHandler stateCopyHandler;
+
+  /** The transport to the other logical processes. */
+  private ITimeWarpTransport transport;
+
+  /** The toles, per local index. */
+  private final double[] toles;
+
+  /** The tonies, per local index. */
+  private final double[] tonies;
+
+  /** The roles in the current step, per local index. */
+  private final byte[] roles;
+
+  /** The local models ordered by their tonies. */
+  private final TreeSet<Integer> schedule = new TreeSet<>(
+      new ScheduleComparator());
+
+  /** The messages received but not consumed yet. */
+  private final TreeSet<TimeWarpMessage> pending = new TreeSet<>();
+
+  /** Anti-messages received before their messages. */
+  private final Set<TimeWarpMessage> orphans = new HashSet<>();
+
+  /** The messages received but not processed yet. */
+  private final Queue<TimeWarpMessage> inbox = new ConcurrentLinkedQueue<>();
+
+  /** The steps executed but not committed yet. */
+  private final Deque<Step> history = new ArrayDeque<>();
+
+  /**
+   * The step rolled back because of a message with its time stamp, its
+   * messages are sent again on re-execution.
+   */
+  private Step retained;
+
+  /** The next sequence number. */
+  private long sequence;
+
+  /** The number of rollbacks. */
+  private long rollbacks;
+
+  /** The number of steps rolled back. */
+  private long rolledBackSteps;
+
+  /** The number of anti-messages sent. */
+  private long antiMessages;
+
+  /**
+   * Instantiates a new logical process, and computes the first tonies of its
+   * models.
+   *
+   * @param index
+   *          the index of the logical process
+   * @param models
+   *          the local models, ordered by their global indices
+   * @param ids
+   *          the global indices of the local models
+   * @param processes
+   *          the logical process of each model, per global index
+   * @param routes
+   *          the routes of the local models, per out port name
+   * @param stateCopyHandler
+   *          the state copy handler
+   * @param time
+   *          the start time
+   */
+  public LogicalProcess(int index, IBasicAtomicModel<?>[] models, int[] ids,
+      int[] processes, List<Map<String, Route[]>> routes,
+      StateCopyHandler stateCopyHandler, double time) {
+    this.index = index;
+    this.models = models;
+    this.ids = ids;
+    this.processes = processes;
+    this.routes = routes;
+    this.stateCopyHandler = stateCopyHandler;
+    localIndices = new int[processes.length];
+    Arrays.fill(localIndices, -1);
+    toles = new double[models.length];
+    tonies = new double[models.length];
+    roles = new byte[models.length];
+    for (int i = 0; i < models.length; i++) {
+      localIndices[ids[i]] = i;
+      toles[i] = time;
+      tonies[i] = time + models[i].timeAdvanceSim();
+      schedule.add(i);
+    }
+  }
+
+  /**
+   * Sets the transport to the other logical processes.
+   *
+   * @param transport
+   *          the transport
+   */
+  public void setTransport(ITimeWarpTransport transport) {
+    this.transport = transport;
+  }
+
+  @Override
+  public void receive(TimeWarpMessage message) {
+    inbox.add(message);
+  }
+
+  @Override
+  public void receiveAll(List<TimeWarpMessage> messages) {
+    inbox.addAll(messages);
+  }
+
+  @Override
+  public int execute(int maxSteps, double limit) {
+    int steps = 0;
+    while (steps < maxSteps) {
+      processInbox();
+      double time = getNextTime();
+      if (!(time < limit)) {
+        break;
+      }
+      step(time);
+      steps++;
+      transport.flush();
+    }
+    transport.flush();
+    return steps;
+  }
+
+  @Override
+  public double getLocalMinimum() {
+    processInbox();
+    transport.flush();
+    double min = getNextTime();
+    if (retained != null) {
+      min = Math.min(min, retained.time);
+    }
+    return min;
+  }
+
+  @Override
+  public long fossilCollect(double gvt) {
+    long committed = 0;
+    while (!history.isEmpty() && history.peekFirst().time < gvt) {
+      history.pollFirst();
+      committed++;
+    }
+    return committed;
+  }
+
+  @Override
+  public long getRollbacks() {
+    return rollbacks;
+  }
+
+  @Override
+  public long getRolledBackSteps() {
+    return rolledBackSteps;
+  }
+
+  @Override
+  public long getAntiMessages() {
+    return antiMessages;
+  }
+
+  /**
+   * Processes the messages received: messages are added to the pending
+   * messages and anti-messages annihilate their messages. Stragglers cause
+   * rollbacks.
+   */
+  private void processInbox() {
+    TimeWarpMessage message;
+    while ((message = inbox.poll()) != null) {
+      double time = message.getTime();
+      boolean straggler = !history.isEmpty() && time <= history.peekLast().time;
+      if (message.isAntiMessage()) {
+        if (pending.remove(message)) {
+          continue;
+        }
+        if (straggler) {
+          rollback(time);
+          if (pending.remove(message)) {
+            continue;
+          }
+        }
+        orphans.add(message);
+      } else {
+        if (orphans.remove(message)) {
+          continue;
+        }
+        if (straggler) {
+          rollback(time);
+        }
+        pending.add(message);
+      }
+    }
+  }
+
+  /**
+   * Gets the time stamp of the next step.
+   *
+   * @return the time stamp, {@link Double#POSITIVE_INFINITY} if there is none
+   */
+  private double getNextTime() {
+    double time =
+        schedule.isEmpty() ? Double.POSITIVE_INFINITY : tonies[schedule
+            .first()];
+    if (!pending.isEmpty()) {
+      time = Math.min(time, pending.first().getTime());
+    }
+    return time;
+  }
+
+  /**
+   * Executes the step at the given time.
+   *
+   * @param time
+   *          the time stamp
+   */
+  private void step(double time) {
+    Step step = new Step(time);
+    boolean outputsSent = false;
+    if (retained != null) {
+      if (retained.time == time) {
+        step.sent = retained.sent;
+        outputsSent = true;
+      } else {
+        cancel(retained.sent);
+      }
+      retained = null;
+    }
+
+    List<Integer> active = new ArrayList<>();
+    for (Integer i : schedule) {
+      if (tonies[i] != time) {
+        break;
+      }
+      roles[i] = IMMINENT;
+      active.add(i);
+    }
+
+    if (!outputsSent) {
+      for (int i : active) {
+        models[i].lambdaSim();
+        sendOutputs(i, step);
+        models[i].clearOutPorts();
+      }
+    }
+
+    while (!pending.isEmpty() && pending.first().getTime() == time) {
+      TimeWarpMessage message = pending.pollFirst();
+      step.consumed.add(message);
+      int i = localIndices[message.getTarget()];
+      models[i].getInPort(message.getPort()).writeAll(message.getValues());
+      if (roles[i] == 0) {
+        active.add(i);
+      }
+      roles[i] |= INFLUENCED;
+    }
+    Collections.sort(active);
+
+    int count = active.size();
+    step.models = new int[count];
+    step.states = new AbstractState[count];
+    step.toles = new double[count];
+    step.tonies = new double[count];
+    for (int k = 0; k < count; k++) {
+      int i = active.get(k);
+      step.models[k] = i;
+      step.states[k] = stateCopyHandler.save(models[i]);
+      step.toles[k] = toles[i];
+      step.tonies[k] = tonies[i];
+      schedule.remove(i);
+      transition(i, time);
+      roles[i] = 0;
+      schedule.add(i);
+    }
+    history.addLast(step);
+  }
+
+  /**
+   * Sends the values in the out ports of the given model along its routes.
+   *
+   * @param i
+   *          the local index of the model
+   * @param step
+   *          the current step
+   */
+  private void sendOutputs(int i, Step step) {
+    Map<String, Route[]> portRoutes = routes.get(i);
+    int ordinal = 0;
+    Iterator<IPort> it = models[i].getOutPortIterator();
+    while (it.hasNext()) {
+      IPort port = it.next();
+      Route[] targets = portRoutes.get(port.getName());
+      if (targets == null) {
+        continue;
+      }
+      if (!port.hasValue()) {
+        ordinal += targets.length;
+        continue;
+      }
+      List<Object> values = new ArrayList<>(port.readAll());
+      for (Route route : targets) {
+        TimeWarpMessage message =
+            new TimeWarpMessage(step.time, ids[i], ordinal++, index,
+                sequence++, route.target, route.port, values);
+        step.sent.add(message);
+        int process = processes[route.target];
+        if (process == index) {
+          pending.add(message);
+        } else {
+          transport.send(process, message);
+        }
+      }
+    }
+  }
+
+  /**
+   * Executes the state transition function according to the role of the
+   * model and computes its new tonie.
+   *
+   * @param i
+   *          the local index of the model
+   * @param time
+   *          the current time
+   */
+  private void transition(int i, double time) {
+    IBasicAtomicModel<?> m = models[i];
+    switch (roles[i]) {
+    case IMMINENT:
+      m.deltaInternalSim();
+      break;
+    case INFLUENCED:
+      m.deltaExternalSim(time - toles[i]);
+      m.clearInPorts();
+      break;
+    case CONFLUENT:
+      if (m instanceof IConfluentAtomicModel) {
+        ((IConfluentAtomicModel<?>) m).deltaConfluentSim();
+      } else {
+        m.deltaInternalSim();
+        m.deltaExternalSim(0);
+      }
+      m.clearInPorts();
+      break;
+    default:
+      throw new IllegalStateException("Model " + m.getFullName()
+          + " has no role in the current step.");
+    }
+    toles[i] = time;
+    tonies[i] = time + m.timeAdvanceSim();
+  }
+
+  /**
+   * Rolls back all steps with time stamps greater or equal to the given time.
+   *
+   * @param time
+   *          the time stamp of the straggler
+   */
+  private void rollback(double time) {
+    rollbacks++;
+    if (retained != null && retained.time > time) {
+      cancel(retained.sent);
+      retained = null;
+    }
+    while (!history.isEmpty() && history.peekLast().time >= time) {
+      Step step = history.pollLast();
+      for (int k = step.models.length - 1; k >= 0; k--) {
+        int i = step.models[k];
+        schedule.remove(i);
+        stateCopyHandler.restore(models[i], step.states[k]);
+        toles[i] = step.toles[k];
+        tonies[i] = step.tonies[k];
+        schedule.add(i);
+      }
+      pending.addAll(step.consumed);
+      rolledBackSteps++;
+      if (step.time == time) {
+        retained = step;
+      } else {
+        cancel(step.sent);
+      }
+    }
+  }
+
+  /**
+   * Cancels the given messages.
+   *
+   * @param messages
+   *          the messages
+   */
+  private void cancel(List<TimeWarpMessage> messages) {
+    for (TimeWarpMessage message : messages) {
+      int process = processes[message.getTarget()];
+      if (process == index) {
+        pending.remove(message);
+      } else {
+        transport.send(process, message.createAntiMessage());
+        antiMessages++;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.io.Serializable;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jamesii.core.remote.hostcentral.IObjectId;
+import org.jamesii.core.remote.hostcentral.rmi.IRemoteCommunicationCenter;
+import org.jamesii.core.remote.hostcentral.rmi.RemoteCommunicationCenterException;
+
+/**
+ * Proxy of a {@link LogicalProcess} registered at the
+ * {@link IRemoteCommunicationCenter} of another host. All calls are forwarded
+ * by {@link IRemoteCommunicationCenter#executeMethodIn(String, Object[],
+ * IObjectId)}.
+ */
+public class RemoteLogicalProcess implements ILogicalProcess, Serializable {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 6094305541651580458L;
+
+  /** The communication center of the host. */
+  private final IRemoteCommunicationCenter center;
+
+  /** The id of the logical process at the communication center. */
+  private final IObjectId id;
+
+  /**
+   * Instantiates a new remote logical process.
+   *
+   * @param center
+   *          the communication center of the host
+   * @param id
+   *          the id of the logical process at the communication center
+   */
+  public RemoteLogicalProcess(IRemoteCommunicationCenter center, IObjectId id) {
+    this.center = center;
+    this.id = id;
+  }
+
+  /**
+   * Calls the given method of the logical process.
+   *
+   * @param methodName
+   *          the name of the method
+   * @param parameters
+   *          the parameters
+   * @return the result of the method
+   */
+  private Object call(String methodName, Object... parameters) {
+    try {
+      return center.executeMethodIn(methodName, parameters, id);
+    } catch (RemoteException e) {
+      throw new RemoteCommunicationCenterException("Calling " + methodName
+          + " of the logical process " + id + " failed.", e);
+    }
+  }
+
+  @Override
+  public void receive(TimeWarpMessage message) {
+    call("receive", message);
+  }
+
+  @Override
+  public void receiveAll(List<TimeWarpMessage> messages) {
+    call("receiveAll", new ArrayList<>(messages));
+  }
+
+  @Override
+  public int execute(int maxSteps, double limit) {
+    return (Integer) call("execute", maxSteps, limit);
+  }
+
+  @Override
+  public double getLocalMinimum() {
+    return (Double) call("getLocalMinimum");
+  }
+
+  @Override
+  public long fossilCollect(double gvt) {
+    return (Long) call("fossilCollect", gvt);
+  }
+
+  @Override
+  public long getRollbacks() {
+    return (Long) call("getRollbacks");
+  }
+
+  @Override
+  public long getRolledBackSteps() {
+    return (Long) call("getRolledBackSteps");
+  }
+
+  @Override
+  public long getAntiMessages() {
+    return (Long) call("getAntiMessages");
+  }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Message exchanged by the {@link LogicalProcess}es of the
+ * {@link TimeWarpProcessor}. A message carries the values written by a model
+ * to one of its out ports (in its lambda function) to an in port of one
+ * receiving atomic model, or it is the anti-message of such a message, which
+ * cancels it.
+ * <p>
+ * Messages are identified by the sending logical process and a sequence
+ * number, a message and its anti-message are equal. Messages are ordered by
+ * their time stamps, and messages having the same time stamp by the index of
+ * the sending model and the order of the routes of the sender. So the values
+ * arrive in the in ports in the same order as with the sequential simulators,
+ * independent of the order the messages have been received in.
+ */
+public final class TimeWarpMessage implements Comparable<TimeWarpMessage>,
+    Serializable {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -6830458911735516287L;
+
+  /** The time stamp. */
+  private final double time;
+
+  /** The index of the sending model. */
+  private final int sender;
+
+  /** The index of the route of the sender the message has been sent on. */
+  private final int route;
+
+  /** The index of the sending logical process. */
+  private final int senderProcess;
+
+  /** The sequence number, unique per sending logical process. */
+  private final long sequence;
+
+  /** The index of the receiving model. */
+  private final int target;
+
+  /** The name of the in port of the receiving model. */
+  private final String port;
+
+  /** The values, null for anti-messages. */
+  private final List<Object> values;
+
+  /**
+   * Instantiates a new message.
+   *
+   * @param time
+   *          the time stamp
+   * @param sender
+   *          the index of the sending model
+   * @param route
+   *          the index of the route of the sender
+   * @param senderProcess
+   *          the index of the sending logical process
+   * @param sequence
+   *          the sequence number
+   * @param target
+   *          the index of the receiving model
+   * @param port
+   *          the name of the in port of the receiving model
+   * @param values
+   *          the values, null for anti-messages
+   */
+  public TimeWarpMessage(double time, int sender, int route,
+      int senderProcess, long sequence, int target, String port,
+      List<Object> values) {
+    this.time = time;
+    this.sender = sender;
+    this.route = route;
+    this.senderProcess = senderProcess;
+    this.sequence = sequence;
+    this.target = target;
+    this.port = port;
+    this.values = values;
+  }
+
+  /**
+   * Creates the anti-message of this message.
+   *
+   * @return the anti-message
+   */
+  public TimeWarpMessage createAntiMessage() {
+    return new TimeWarpMessage(time, sender, route, senderProcess, sequence,
+        target, port, null);
+  }
+
+  /**
+   * Checks if this is an anti-message.
+   *
+   * @return true, if this is an anti-message
+   */
+  public boolean isAntiMessage() {
+    return values == null;
+  }
+
+  /**
+   * Gets the time stamp.
+   *
+   * @return the time stamp
+   */
+  public double getTime() {
+    return time;
+  }
+
+  /**
+   * Gets the index of the sending logical process.
+   *
+   * @return the sending logical process
+   */
+  public int getSenderProcess() {
+    return senderProcess;
+  }
+
+  /**
+   * Gets the index of the receiving model.
+   *
+   * @return the receiving model
+   */
+  public int getTarget() {
+    return target;
+  }
+
+  /**
+   * Gets the name of the in port of the receiving model.
+   *
+   * @return the port name
+   */
+  public String getPort() {
+    return port;
+  }
+
+  /**
+   * Gets the values.
+   *
+   * @return the values, null for anti-messages
+   */
+  public List<Object> getValues() {
+    return values;
+  }
+
+  @Override
+  public int compareTo(TimeWarpMessage o) {
+    int result = Double.compare(time, o.time);
+    if (result != 0) {
+      return result;
+    }
+    result = Integer.compare(sender, o.sender);
+    if (result != 0) {
+      return result;
+    }
+    result = Integer.compare(route, o.route);
+    if (result != 0) {
+      return result;
+    }
+    result = Integer.compare(senderProcess, o.senderProcess);
+    if (result != 0) {
+      return result;
+    }
+    return Long.compare(sequence, o.sequence);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof TimeWarpMessage)) {
+      return false;
+    }
+    TimeWarpMessage m = (TimeWarpMessage) o;
+    return senderProcess == m.senderProcess && sequence == m.sequence;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * senderProcess + (int) (sequence ^ (sequence >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return (isAntiMessage() ? "-" : "+") + "[" + time + ", " + senderProcess
+        + ":" + sequence + " -> " + target + "." + port + "]";
+  }
+
+}
@@ -0,0 +1,716 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import model.devscore.IBasicAtomicModel;
+import model.devscore.IBasicCoupledModel;
+import model.devscore.IBasicDEVSModel;
+import model.devscore.couplings.BasicCoupling;
+import model.devscore.couplings.Coupling;
+import model.devscore.ports.IPort;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.distributed.partition.Partition;
+import org.jamesii.core.distributed.simulationserver.ISimulationServer;
+import org.jamesii.core.experiments.tasks.stoppolicy.EmptyStopCondition;
+import org.jamesii.core.experiments.tasks.stoppolicy.IComputationTaskStopPolicy;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.model.InvalidModelException;
+import org.jamesii.core.processor.IRunnable;
+import org.jamesii.core.processor.ProcessorStatus;
+import org.jamesii.core.processor.execontrol.ExecutionControl;
+import org.jamesii.core.remote.hostcentral.BasicRemoteObjectId;
+import org.jamesii.core.remote.hostcentral.IObjectId;
+import org.jamesii.core.remote.hostcentral.rmi.CommunicationCenterFactory;
+import org.jamesii.core.remote.hostcentral.rmi.IRemoteCommunicationCenter;
+import org.jamesii.core.remote.hostcentral.rmi.RemoteCommunicationCenterException;
+import org.jamesii.core.util.id.IUniqueID;
+import org.jamesii.core.util.id.UniqueIDGenerator;
+
+import simulator.devs.timewarp.LogicalProcess.Route;
+import simulator.devs.timewarp.transport.LocalTransport;
+import simulator.devs.timewarp.transport.RemoteTransport;
+import simulator.devscore.BasicDEVSProcessor;
+import simulator.devscore.util.StateCopyHandler;
+
+/**
+ * The Class TimeWarpProcessor.
+ *
+ * <p>
+ * Optimistic parallel DEVS simulator based on Jefferson's Time Warp. The
+ * atomic models are mapped to {@link LogicalProcess}es, each of which
+ * simulates its models on its own, as far as it can, and rolls back whenever
+ * a message from another logical process arrives late. The results are the
+ * same as those of the
+ * {@link simulator.devs.flatparallel.FlatParallelProcessor}, i.e., no select
+ * function is applied and models being imminent and influenced at the same
+ * time execute their confluent transition function.
+ * </p>
+ *
+ * <p>
+ * The atomic models are mapped to the logical processes by the partition
+ * passed: the atomic models contained in the model of the i-th sub-partition
+ * are simulated by the logical process i + 1, all remaining ones by the
+ * logical process 0. If a sub-partition has a host different from the host of
+ * the partition, its logical process is deployed to the communication center
+ * of this host, and all logical processes communicate via the
+ * {@link RemoteTransport}. Otherwise all logical processes are executed
+ * within this JVM and communicate via the {@link LocalTransport}. Without
+ * sub-partitions the atomic models, ordered by their full names, are divided
+ * into the given number of blocks of equal size.
+ * </p>
+ *
+ * <p>
+ * The logical processes are driven in epochs, each call of {@link #doEvent()}
+ * executes one epoch:
+ * <ol>
+ * <li>all logical processes execute up to {@link #stepsPerEpoch} steps
+ * concurrently, with time stamps less than the global virtual time (GVT) plus
+ * the {@link #window},</li>
+ * <li>the GVT is computed as the minimum of the local minima of the logical
+ * processes (as all messages are delivered synchronously no message is in
+ * transit at the end of an epoch),</li>
+ * <li>all steps with time stamps less than the GVT are committed, i.e., the
+ * saved states are freed (fossil collection).</li>
+ * </ol>
+ * The time of the processor is the GVT, so the usual stop policies can be
+ * used. Please note that the logical processes may have executed steps beyond
+ * the GVT, so the states of the models may be ahead of the time of the
+ * processor, and state observers are notified when a step is executed, not
+ * when it is committed.
+ * </p>
+ *
+ * <p>
+ * States are saved by the {@link StateCopyHandler} before each state
+ * transition, thus the models must keep their complete state in their state
+ * objects. Only standard DEVS couplings are supported, and the structure of
+ * the model must not change during the simulation. The values sent by the
+ * models must be serialisable if logical processes are deployed to other
+ * hosts.
+ * </p>
+ */
+public class TimeWarpProcessor extends BasicDEVSProcessor implements IRunnable {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 2146316287418925073L;
+
+  /** The partition, may be null. */
+  private final Partition partition;
+
+  /** The number of logical processes, if the partition has no sub-partitions. */
+  private final int logicalProcesses;
+
+  /** The maximal number of steps per logical process and epoch. */
+  private final int stepsPerEpoch;
+
+  /** The optimism window, steps beyond GVT plus window are not executed. */
+  private final double window;
+
+  /** The state copy handler. */
+  private final StateCopyHandler stateCopyHandler;
+
+  /** The logical processes. */
+  private ILogicalProcess[] processes;
+
+  /** The communication centers the logical processes are registered at. */
+  private IRemoteCommunicationCenter[] centers;
+
+  /** The ids of the logical processes at the communication centers. */
+  private IObjectId[] ids;
+
+  /** The number of steps committed. */
+  private long committedSteps;
+
+  /** Execution control variable, used by all runnable processors. */
+  private ExecutionControl executionControl;
+
+  /** The executor running the logical processes, created on first use. */
+  private transient ExecutorService executor;
+
+  /**
+   * A flag that indicates whether the model associated to this processor is
+   * atomic or not, i.e., coupled.
+   */
+  private boolean isAssociatedModelAtomic = false;
+
+  /**
+   * Instantiates a new time warp processor.
+   *
+   * @param model
+   *          the root model to be computed
+   * @param partition
+   *          the partition of the model, may be null
+   * @param logicalProcesses
+   *          the number of logical processes, used if the partition has no
+   *          sub-partitions
+   * @param stepsPerEpoch
+   *          the maximal number of steps per logical process and epoch
+   * @param window
+   *          the optimism window, {@link Double#POSITIVE_INFINITY} for
+   *          unlimited optimism
+   * @param stateCopyHandler
+   *          the handler used for saving the states
+   */
+  public TimeWarpProcessor(IModel model, Partition partition,
+      int logicalProcesses, int stepsPerEpoch, double window,
+      StateCopyHandler stateCopyHandler) {
+    super(model);
+    this.partition = partition;
+    this.logicalProcesses = Math.max(1, logicalProcesses);
+    this.stepsPerEpoch = Math.max(1, stepsPerEpoch);
+    this.window = window;
+    this.stateCopyHandler = stateCopyHandler;
+    executionControl = new ExecutionControl(this);
+  }
+
+  /**
+   * Invokes the respective functions of the associated model in the defined
+   * order, in case the associated model is an atomic DEVS model and not a
+   * coupled DEVS model.
+   */
+  private void executeAtomicModel() {
+    IBasicAtomicModel<?> m = (IBasicAtomicModel<?>) getModel();
+    m.lambdaSim();
+    m.deltaInternalSim();
+    m.clearOutPorts();
+
+    setTimeOfLastEvent(getTime());
+    setTime(m.timeAdvanceSim() + getTime());
+  }
+
+  @Override
+  public void doEvent() {
+    if (isAssociatedModelAtomic) {
+      executeAtomicModel();
+      return;
+    }
+
+    final double limit = getTime() + window;
+    if (processes.length == 1) {
+      processes[0].execute(stepsPerEpoch, limit);
+    } else {
+      List<Callable<Integer>> epoch = new ArrayList<>(processes.length);
+      for (final ILogicalProcess process : processes) {
+        epoch.add(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            return process.execute(stepsPerEpoch, limit);
+          }
+        });
+      }
+      try {
+        for (Future<Integer> f : getExecutor().invokeAll(epoch)) {
+          f.get();
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing an epoch.",
+            e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("A logical process failed.",
+            e.getCause());
+      }
+    }
+
+    double gvt = Double.POSITIVE_INFINITY;
+    for (ILogicalProcess process : processes) {
+      gvt = Math.min(gvt, process.getLocalMinimum());
+    }
+    for (ILogicalProcess process : processes) {
+      committedSteps += process.fossilCollect(gvt);
+    }
+
+    setTimeOfLastEvent(getTime());
+    setTime(gvt);
+    this.changed();
+  }
+
+  /**
+   * Get the executor, create it if needed.
+   *
+   * @return the executor
+   */
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor = Executors.newFixedThreadPool(processes.length);
+    }
+    return executor;
+  }
+
+  @Override
+  public void cleanUp() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+    if (centers != null) {
+      for (int i = 0; i < centers.length; i++) {
+        try {
+          centers[i].unregisterObject(ids[i]);
+        } catch (RemoteException e) {
+          SimSystem.report(e);
+        }
+      }
+      centers = null;
+    }
+    super.cleanUp();
+  }
+
+  /**
+   * Gets the number of steps committed so far.
+   *
+   * @return the number of committed steps
+   */
+  public long getCommittedSteps() {
+    return committedSteps;
+  }
+
+  /**
+   * Gets the number of steps rolled back so far, summed over all logical
+   * processes.
+   *
+   * @return the number of steps rolled back
+   */
+  public long getRolledBackSteps() {
+    long result = 0;
+    if (processes == null) {
+      return result;
+    }
+    for (ILogicalProcess process : processes) {
+      result += process.getRolledBackSteps();
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of anti-messages sent so far, summed over all logical
+   * processes.
+   *
+   * @return the number of anti-messages
+   */
+  public long getAntiMessages() {
+    long result = 0;
+    if (processes == null) {
+      return result;
+    }
+    for (ILogicalProcess process : processes) {
+      result += process.getAntiMessages();
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of logical processes.
+   *
+   * @return the number of logical processes
+   */
+  public int getNumberOfLogicalProcesses() {
+    return processes == null ? 1 : processes.length;
+  }
+
+  @Override
+  public String getCompleteInfoString() {
+    return super.getCompleteInfoString() + "\nLogical processes: "
+        + getNumberOfLogicalProcesses() + "\nSteps per epoch: "
+        + stepsPerEpoch + "\nWindow: " + window;
+  }
+
+  /**
+   * Initializes the processor using the given time. The atomic models are
+   * mapped to the logical processes, the couplings are resolved to routes
+   * between atomic models, and the logical processes are created (and
+   * deployed).<br>
+   * The current time is moved to the minimal time (tonie) of all events.
+   *
+   * @param time
+   *          the time to start with
+   */
+  public void init(double time) {
+    if (getModel() instanceof IBasicAtomicModel) {
+      isAssociatedModelAtomic = true;
+      setTimeOfLastEvent(time);
+      setTime(((IBasicAtomicModel<?>) getModel()).timeAdvanceSim() + time);
+      return;
+    }
+    if (!(getModel() instanceof IBasicCoupledModel)) {
+      throw new InvalidModelException(getModel()
+          + " is neither an atomic nor a coupled DEVS model.");
+    }
+
+    IBasicCoupledModel root = (IBasicCoupledModel) getModel();
+    List<IBasicAtomicModel<?>> atomics = new ArrayList<>();
+    collectAtomicModels(root, atomics);
+    Collections.sort(atomics, new Comparator<IBasicDEVSModel>() {
+      @Override
+      public int compare(IBasicDEVSModel m1, IBasicDEVSModel m2) {
+        return m1.getFullName().compareTo(m2.getFullName());
+      }
+    });
+    Map<IBasicDEVSModel, Integer> indices = new HashMap<>();
+    for (int i = 0; i < atomics.size(); i++) {
+      indices.put(atomics.get(i), i);
+    }
+
+    List<ISimulationServer> hosts = new ArrayList<>();
+    int[] mapping = mapModels(atomics, hosts);
+    List<Map<String, Route[]>> routes = resolveRoutes(root, atomics, indices);
+
+    LogicalProcess[] created = new LogicalProcess[hosts.size()];
+    for (int p = 0; p < created.length; p++) {
+      List<Integer> members = new ArrayList<>();
+      for (int i = 0; i < mapping.length; i++) {
+        if (mapping[i] == p) {
+          members.add(i);
+        }
+      }
+      IBasicAtomicModel<?>[] models = new IBasicAtomicModel<?>[members.size()];
+      int[] memberIds = new int[members.size()];
+      List<Map<String, Route[]>> memberRoutes = new ArrayList<>();
+      for (int k = 0; k < members.size(); k++) {
+        memberIds[k] = members.get(k);
+        models[k] = atomics.get(memberIds[k]);
+        memberRoutes.add(routes.get(memberIds[k]));
+      }
+      created[p] =
+          new LogicalProcess(p, models, memberIds, mapping, memberRoutes,
+              stateCopyHandler, time);
+    }
+    deploy(created, hosts);
+
+    double min = Double.POSITIVE_INFINITY;
+    for (ILogicalProcess process : processes) {
+      min = Math.min(min, process.getLocalMinimum());
+    }
+    setTime(min);
+  }
+
+  /**
+   * Maps the atomic models to the logical processes, and determines the hosts
+   * of the logical processes.
+   *
+   * @param atomics
+   *          the atomic models
+   * @param hosts
+   *          the hosts of the logical processes, null for this JVM (output)
+   * @return the logical process of each atomic model
+   */
+  private int[] mapModels(List<IBasicAtomicModel<?>> atomics,
+      List<ISimulationServer> hosts) {
+    int n = atomics.size();
+    int[] mapping = new int[n];
+    if (partition == null || partition.getSubPartitionCount() == 0) {
+      int count = Math.max(1, Math.min(logicalProcesses, n));
+      for (int i = 0; i < n; i++) {
+        mapping[i] = (int) ((long) i * count / n);
+      }
+      for (int p = 0; p < count; p++) {
+        hosts.add(null);
+      }
+      return mapping;
+    }
+
+    Map<IBasicDEVSModel, Integer> processOf = new HashMap<>();
+    hosts.add(null);
+    for (int s = 0; s < partition.getSubPartitionCount(); s++) {
+      Partition sub = partition.getSubPartition(s);
+      List<IBasicAtomicModel<?>> contained = new ArrayList<>();
+      if (sub.getModel() instanceof IBasicCoupledModel) {
+        collectAtomicModels((IBasicCoupledModel) sub.getModel(), contained);
+      } else {
+        contained.add((IBasicAtomicModel<?>) sub.getModel());
+      }
+      for (IBasicAtomicModel<?> m : contained) {
+        processOf.put(m, s + 1);
+      }
+      ISimulationServer host = sub.getHost();
+      hosts.add(host == null || host.equals(partition.getHost()) ? null : host);
+    }
+    for (int i = 0; i < n; i++) {
+      Integer p = processOf.get(atomics.get(i));
+      mapping[i] = p == null ? 0 : p;
+    }
+    return mapping;
+  }
+
+  /**
+   * Sets the transports of the logical processes, and registers the logical
+   * processes to be executed on other hosts at the communication centers of
+   * these hosts.
+   *
+   * @param created
+   *          the logical processes
+   * @param hosts
+   *          the hosts of the logical processes, null for this JVM
+   */
+  private void deploy(LogicalProcess[] created, List<ISimulationServer> hosts) {
+    processes = new ILogicalProcess[created.length];
+    boolean distributed = false;
+    for (ISimulationServer host : hosts) {
+      distributed |= host != null;
+    }
+    if (!distributed) {
+      System.arraycopy(created, 0, processes, 0, created.length);
+      for (LogicalProcess process : created) {
+        process.setTransport(new LocalTransport(processes));
+      }
+      return;
+    }
+
+    IUniqueID uid = UniqueIDGenerator.createUniqueID();
+    centers = new IRemoteCommunicationCenter[created.length];
+    ids = new IObjectId[created.length];
+    try {
+      for (int p = 0; p < created.length; p++) {
+        ISimulationServer host = hosts.get(p);
+        centers[p] =
+            host == null ? new CommunicationCenterFactory().create(null,
+                SimSystem.getRegistry().createContext()).getFirstValue()
+                : host.getRemoteCommunicationCenter(uid, null);
+        ids[p] =
+            new BasicRemoteObjectId(uid + "-lp" + p,
+                LogicalProcess.class.getName());
+      }
+      for (int p = 0; p < created.length; p++) {
+        created[p].setTransport(new RemoteTransport(centers, ids));
+        centers[p].registerLocalObject(ids[p], created[p]);
+        processes[p] =
+            hosts.get(p) == null ? created[p] : new RemoteLogicalProcess(
+                centers[p], ids[p]);
+      }
+    } catch (RemoteException e) {
+      throw new RemoteCommunicationCenterException(
+          "Could not deploy the logical processes.", e);
+    }
+  }
+
+  /**
+   * Resolves the couplings of the out ports of all atomic models to routes to
+   * the in ports of atomic models.
+   *
+   * @param root
+   *          the root model
+   * @param atomics
+   *          the atomic models
+   * @param indices
+   *          the index of each atomic model
+   * @return the routes, per atomic model and out port name
+   */
+  private static List<Map<String, Route[]>> resolveRoutes(
+      IBasicCoupledModel root, List<IBasicAtomicModel<?>> atomics,
+      Map<IBasicDEVSModel, Integer> indices) {
+    Map<IBasicDEVSModel, Map<String, List<Coupling>>> outgoing =
+        new HashMap<>();
+    collectCouplings(root, outgoing);
+
+    List<Map<String, Route[]>> result = new ArrayList<>(atomics.size());
+    for (IBasicAtomicModel<?> m : atomics) {
+      Map<String, Route[]> portRoutes = new LinkedHashMap<>();
+      Iterator<IPort> it = m.getOutPortIterator();
+      while (it.hasNext()) {
+        String port = it.next().getName();
+        List<Route> targets = new ArrayList<>();
+        follow(m, port, outgoing, indices, targets);
+        if (!targets.isEmpty()) {
+          portRoutes.put(port, targets.toArray(new Route[targets.size()]));
+        }
+      }
+      result.add(portRoutes);
+    }
+    return result;
+  }
+
+  /**
+   * Follows the couplings of the given port (recursively) until atomic models
+   * are reached.
+   *
+   * @param model
+   *          the model
+   * @param port
+   *          the name of the port
+   * @param outgoing
+   *          the couplings, per source model and port name
+   * @param indices
+   *          the index of each atomic model
+   * @param targets
+   *          the routes found (output)
+   */
+  private static void follow(IBasicDEVSModel model, String port,
+      Map<IBasicDEVSModel, Map<String, List<Coupling>>> outgoing,
+      Map<IBasicDEVSModel, Integer> indices, List<Route> targets) {
+    Map<String, List<Coupling>> ports = outgoing.get(model);
+    if (ports == null || !ports.containsKey(port)) {
+      return;
+    }
+    for (Coupling c : ports.get(port)) {
+      IBasicDEVSModel target = c.getModel2();
+      String targetPort = c.getPort2().getName();
+      if (target instanceof IBasicCoupledModel) {
+        follow(target, targetPort, outgoing, indices, targets);
+      } else {
+        targets.add(new Route(indices.get(target), targetPort));
+      }
+    }
+  }
+
+  /**
+   * Collects the couplings of the given coupled model and of all coupled
+   * models contained, per source model and port name.
+   *
+   * @param model
+   *          the coupled model
+   * @param outgoing
+   *          the couplings (output)
+   */
+  private static void collectCouplings(IBasicCoupledModel model,
+      Map<IBasicDEVSModel, Map<String, List<Coupling>>> outgoing) {
+    addCouplings(model.getEICIterator(), outgoing);
+    addCouplings(model.getICIterator(), outgoing);
+    addCouplings(model.getEOCIterator(), outgoing);
+    Iterator<IBasicDEVSModel> it = model.getSubModelIterator();
+    while (it.hasNext()) {
+      IBasicDEVSModel m = it.next();
+      if (m instanceof IBasicCoupledModel) {
+        collectCouplings((IBasicCoupledModel) m, outgoing);
+      }
+    }
+  }
+
+  /**
+   * Adds the couplings of the given iterator.
+   *
+   * @param it
+   *          the couplings
+   * @param outgoing
+   *          the couplings, per source model and port name (output)
+   */
+  private static void addCouplings(Iterator<BasicCoupling> it,
+      Map<IBasicDEVSModel, Map<String, List<Coupling>>> outgoing) {
+    while (it.hasNext()) {
+      BasicCoupling bc = it.next();
+      if (!(bc instanceof Coupling)) {
+        throw new InvalidModelException(
+            "The time warp simulator only supports std DEVS couplings!");
+      }
+      Map<String, List<Coupling>> ports = outgoing.get(bc.getModel1());
+      if (ports == null) {
+        ports = new HashMap<>();
+        outgoing.put(bc.getModel1(), ports);
+      }
+      List<Coupling> couplings = ports.get(bc.getPort1().getName());
+      if (couplings == null) {
+        couplings = new ArrayList<>();
+        ports.put(bc.getPort1().getName(), couplings);
+      }
+      couplings.add((Coupling) bc);
+    }
+  }
+
+  /**
+   * Collect all atomic models contained in the given coupled model.
+   *
+   * @param model
+   *          the coupled model
+   * @param atomics
+   *          the list the atomic models are added to
+   */
+  private static void collectAtomicModels(IBasicCoupledModel model,
+      List<IBasicAtomicModel<?>> atomics) {
+    Iterator<IBasicDEVSModel> it = model.getSubModelIterator();
+    while (it.hasNext()) {
+      IBasicDEVSModel m = it.next();
+      if (m instanceof IBasicCoupledModel) {
+        collectAtomicModels((IBasicCoupledModel) m, atomics);
+      } else {
+        atomics.add((IBasicAtomicModel<?>) m);
+      }
+    }
+  }
+
+  @Override
+  public boolean isPausing() {
+    return executionControl.isPausing();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return executionControl.isRunning();
+  }
+
+  @Override
+  public boolean isStopping() {
+    return executionControl.isStopping();
+  }
+
+  @Override
+  public void pause() {
+    executionControl.pause();
+  }
+
+  @Override
+  public void postEvent() {
+  }
+
+  @Override
+  public void preEvent() {
+  }
+
+  @Override
+  public void run() {
+    run(new EmptyStopCondition());
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end) {
+    executionControl.run(end);
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end, long pause) {
+    executionControl.run(end, pause);
+  }
+
+  @Override
+  public void run(IComputationTaskStopPolicy end, long pause, boolean paused) {
+    executionControl.run(end, pause, paused);
+  }
+
+  @Override
+  public void next(int num) {
+    executionControl.next(num);
+  }
+
+  @Override
+  public void stop() {
+    executionControl.stop();
+  }
+
+  @Override
+  public void setDelay(long pause) {
+    executionControl.setDelay(pause);
+  }
+
+  @Override
+  public ProcessorStatus getStatus() {
+    return executionControl.getStatus();
+  }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import model.devs.IAtomicModel;
+import model.devs.ICoupledModel;
+
+import org.jamesii.core.distributed.partition.Partition;
+import org.jamesii.core.experiments.tasks.IComputationTask;
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.model.IModel;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.parameters.ParameterBlocks;
+import org.jamesii.core.processor.IProcessor;
+import org.jamesii.core.processor.ProcessorInformation;
+import org.jamesii.core.processor.plugintype.JamesProcessorFactory;
+import org.jamesii.core.simulationrun.ISimulationRun;
+
+import simulator.devscore.util.SerialisationStateCopyHandler;
+
+/**
+ * A factory for creating {@link TimeWarpProcessor} objects.
+ */
+public class TimeWarpProcessorFactory extends JamesProcessorFactory {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -7441734964016399823L;
+
+  /**
+   * The number of logical processes, used if the partition has no
+   * sub-partitions. Type: {@link Integer}.
+   */
+  public static final String LOGICAL_PROCESSES = "logicalprocesses";
+
+  /**
+   * The maximal number of steps per logical process between two computations
+   * of the global virtual time. Type: {@link Integer}.
+   */
+  public static final String STEPS_PER_EPOCH = "stepsperepoch";
+
+  /**
+   * The optimism window, logical processes do not execute steps beyond the
+   * global virtual time plus the window. Type: {@link Double}.
+   */
+  public static final String WINDOW = "window";
+
+  /** The default for {@link #STEPS_PER_EPOCH}. */
+  public static final int DEFAULT_STEPS_PER_EPOCH = 256;
+
+  @Override
+  public IProcessor create(IModel model, IComputationTask computationTask,
+      Partition partition, ParameterBlock parameters, Context context) {
+
+    ISimulationRun simulation = (ISimulationRun) computationTask;
+
+    int logicalProcesses =
+        ParameterBlocks.getSubBlockValueOrDefault(parameters,
+            LOGICAL_PROCESSES, Runtime.getRuntime().availableProcessors());
+    int stepsPerEpoch =
+        ParameterBlocks.getSubBlockValueOrDefault(parameters, STEPS_PER_EPOCH,
+            DEFAULT_STEPS_PER_EPOCH);
+    double window =
+        ParameterBlocks.getSubBlockValueOrDefault(parameters, WINDOW,
+            Double.POSITIVE_INFINITY);
+
+    TimeWarpProcessor p =
+        new TimeWarpProcessor(model, partition, logicalProcesses,
+            stepsPerEpoch, window, new SerialisationStateCopyHandler());
+
+    p.init(simulation.getStartTime());
+
+    simulation.setProcessorInfo(new ProcessorInformation(p));
+
+    return p;
+  }
+
+  /**
+   * Return a value between 0 and 1 which represents the simulators efficiency.
+   * The time warp simulator only pays off for large models with expensive
+   * state transitions (and models keeping their complete state in their state
+   * objects), thus it is not used by default.
+   *
+   * @return 0 for a not efficient and 1 for a highly efficient one
+   */
+  @Override
+  public double getEfficencyIndex() {
+    return 0.01;
+  }
+
+  @Override
+  public List<Class<?>> getSupportedInterfaces() {
+    List<Class<?>> al = new ArrayList<>();
+    al.add(ICoupledModel.class);
+    al.add(IAtomicModel.class);
+    return al;
+  }
+
+  @Override
+  public boolean supportsSubPartitions() {
+    return true;
+  }
+
+}
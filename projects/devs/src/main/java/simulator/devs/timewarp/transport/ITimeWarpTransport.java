@@ -0,0 +1,41 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp.transport;
+
+import java.io.Serializable;
+
+import simulator.devs.timewarp.TimeWarpMessage;
+
+/**
+ * Transport used by a logical process of the
+ * {@link simulator.devs.timewarp.TimeWarpProcessor} to send messages to the
+ * other logical processes. Messages sent to the same logical process must be
+ * delivered in the order they have been sent in (so an anti-message never
+ * overtakes its message), and all messages sent must have been delivered when
+ * {@link #flush()} returns. The latter is required by the computation of the
+ * global virtual time, which assumes that no messages are in transit at the
+ * end of an epoch.
+ */
+public interface ITimeWarpTransport extends Serializable {
+
+  /**
+   * Sends a message to the given logical process. The message may be
+   * buffered until {@link #flush()} is called.
+   *
+   * @param process
+   *          the index of the receiving logical process
+   * @param message
+   *          the message
+   */
+  void send(int process, TimeWarpMessage message);
+
+  /**
+   * Delivers all buffered messages.
+   */
+  void flush();
+
+}
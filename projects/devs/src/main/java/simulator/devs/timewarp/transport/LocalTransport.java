@@ -0,0 +1,45 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp.transport;
+
+import simulator.devs.timewarp.ILogicalProcess;
+import simulator.devs.timewarp.TimeWarpMessage;
+
+/**
+ * Transport for logical processes executed within one JVM. The messages are
+ * passed to {@link ILogicalProcess#receive(TimeWarpMessage)} of the receiver
+ * directly, thus nothing has to be flushed.
+ */
+public class LocalTransport implements ITimeWarpTransport {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 8571520402683137916L;
+
+  /** The logical processes, per index. */
+  private final ILogicalProcess[] processes;
+
+  /**
+   * Instantiates a new local transport.
+   *
+   * @param processes
+   *          the logical processes, per index
+   */
+  public LocalTransport(ILogicalProcess[] processes) {
+    this.processes = processes;
+  }
+
+  @Override
+  public void send(int process, TimeWarpMessage message) {
+    processes[process].receive(message);
+  }
+
+  @Override
+  public void flush() {
+    // nothing buffered
+  }
+
+}
@@ -0,0 +1,92 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp.transport;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jamesii.core.remote.hostcentral.IObjectId;
+import org.jamesii.core.remote.hostcentral.rmi.IRemoteCommunicationCenter;
+import org.jamesii.core.remote.hostcentral.rmi.RemoteCommunicationCenterException;
+
+import simulator.devs.timewarp.TimeWarpMessage;
+
+/**
+ * Transport for logical processes distributed over several JVMs, e.g., over
+ * the {@link org.jamesii.core.distributed.simulationserver.ISimulationServer}s
+ * of the partitions of a model. The logical processes are registered at the
+ * {@link IRemoteCommunicationCenter} of their hosts, and the messages are
+ * passed to them by
+ * {@link IRemoteCommunicationCenter#executeMethodIn(String, Object[], IObjectId)}.
+ * <p>
+ * Messages are buffered per receiver until {@link #flush()} is called, and
+ * all messages buffered for a receiver are passed in a single call. The calls
+ * are synchronous, so the messages have been delivered when {@link #flush()}
+ * returns.
+ */
+public class RemoteTransport implements ITimeWarpTransport {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -3309497318221911358L;
+
+  /** The communication centers of the hosts, per logical process. */
+  private final IRemoteCommunicationCenter[] centers;
+
+  /** The ids of the logical processes at their communication centers. */
+  private final IObjectId[] ids;
+
+  /** The messages not delivered yet, per logical process. */
+  private transient List<List<TimeWarpMessage>> buffers;
+
+  /**
+   * Instantiates a new remote transport.
+   *
+   * @param centers
+   *          the communication centers of the hosts, per logical process
+   * @param ids
+   *          the ids of the logical processes at their communication centers
+   */
+  public RemoteTransport(IRemoteCommunicationCenter[] centers, IObjectId[] ids) {
+    this.centers = centers;
+    this.ids = ids;
+  }
+
+  @Override
+  public void send(int process, TimeWarpMessage message) {
+    if (buffers == null) {
+      buffers = new ArrayList<>(centers.length);
+      for (int i = 0; i < centers.length; i++) {
+        buffers.add(new ArrayList<TimeWarpMessage>());
+      }
+    }
+    buffers.get(process).add(message);
+  }
+
+  @Override
+  public void flush() {
+    if (buffers == null) {
+      return;
+    }
+    for (int i = 0; i < centers.length; i++) {
+      List<TimeWarpMessage> buffer = buffers.get(i);
+      if (buffer.isEmpty()) {
+        continue;
+      }
+      try {
+        centers[i].executeMethodIn("receiveAll",
+            new Object[] { new ArrayList<>(buffer) }, ids[i]);
+      } catch (RemoteException e) {
+        throw new RemoteCommunicationCenterException(
+            "Could not deliver the messages to the logical process " + ids[i],
+            e);
+      }
+      buffer.clear();
+    }
+  }
+
+}
@@ -12,6 +12,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jamesii.SimSystem;
 import org.jamesii.core.processor.util.BasicHandler;
@@ -43,6 +44,10 @@ public class DynamicStructureChangeHandler extends BasicHandler {
    */
   private boolean silentExceptions = false;
 
+  /** The listeners to be informed about applied changes. */
+  private final List<IStructureChangeListener> listeners =
+      new CopyOnWriteArrayList<>();
+
   /**
    * Instantiates a new dynamic structure change handler.
    */
@@ -229,6 +234,32 @@ public class DynamicStructureChangeHandler extends BasicHandler {
         SimSystem.report (e);
       }
     }
+
+    for (IStructureChangeListener listener : listeners) {
+      listener.structureChanged(model);
+    }
+  }
+
+  /**
+   * Adds a listener to be informed about each applied change.
+   * 
+   * @param listener
+   *          the listener
+   */
+  public void addStructureChangeListener(IStructureChangeListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener.
+   * 
+   * @param listener
+   *          the listener
+   * @return true, if the listener has been registered before
+   */
+  public boolean removeStructureChangeListener(
+      IStructureChangeListener listener) {
+    return listeners.remove(listener);
   }
 
   /**
@@ -0,0 +1,28 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devscore.dynamic;
+
+import model.devscore.IBasicDEVSModel;
+
+/**
+ * Listener informed by a {@link DynamicStructureChangeHandler} whenever a
+ * structural change has been applied to a model, e.g., to update structures
+ * derived from the model structure.
+ */
+public interface IStructureChangeListener {
+
+  /**
+   * Called after a change has been applied to the given model.
+   *
+   * @param model
+   *          the model which has been changed: the coupled model for model
+   *          and coupling changes, the model whose ports have changed for
+   *          port changes
+   */
+  void structureChanged(IBasicDEVSModel model);
+
+}
@@ -0,0 +1,38 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devscore.util;
+
+import org.jamesii.core.model.AbstractState;
+import org.jamesii.core.observe.IMediator;
+import org.jamesii.core.util.misc.Clone;
+
+import model.devscore.IBasicAtomicModel;
+
+/**
+ * State copy handler copying the states by serialisation, so it works for
+ * every state but it is not the fastest one. The mediator of the state is
+ * detached during the copy, thus the observers of the state are neither
+ * copied nor serialised.
+ */
+public class SerialisationStateCopyHandler extends StateCopyHandler {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = -4418530526093591474L;
+
+  @Override
+  public AbstractState save(IBasicAtomicModel<?> model) {
+    AbstractState state = model.getState();
+    IMediator mediator = state.getMediator();
+    state.setMediator(null);
+    try {
+      return Clone.riskyCloneSerializable(state);
+    } finally {
+      state.setMediator(mediator);
+    }
+  }
+
+}
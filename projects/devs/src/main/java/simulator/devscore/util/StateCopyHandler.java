@@ -0,0 +1,52 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devscore.util;
+
+import org.jamesii.core.model.AbstractState;
+import org.jamesii.core.processor.util.BasicHandler;
+
+import model.devscore.IBasicAtomicModel;
+
+/**
+ * Handler saving and restoring the states of atomic models, used by
+ * optimistic simulators which have to roll back state transitions (see
+ * {@link simulator.devs.timewarp.TimeWarpProcessor}).<br>
+ * Only the state object of a model ({@link IBasicAtomicModel#getState()}) is
+ * saved, thus models to be simulated optimistically must not keep any state
+ * in other attributes.
+ */
+public abstract class StateCopyHandler extends BasicHandler {
+
+  /** The serialisation ID. */
+  private static final long serialVersionUID = 3217416406516096735L;
+
+  /**
+   * Returns a copy of the current state of the given model. The copy must not
+   * be affected by subsequent state transitions of the model.
+   *
+   * @param model
+   *          the model
+   * @return the copy of the state
+   */
+  public abstract AbstractState save(IBasicAtomicModel<?> model);
+
+  /**
+   * Restores a state returned by {@link #save(IBasicAtomicModel)}. The state
+   * passed is not used for anything else afterwards, so it can be set as it
+   * is. The mediator (and thus the observers) of the current state are kept.
+   *
+   * @param model
+   *          the model
+   * @param state
+   *          the saved state
+   */
+  public void restore(IBasicAtomicModel<?> model, AbstractState state) {
+    state.setMediator(model.getState().getMediator());
+    model.setState(state);
+  }
+
+}
@@ -0,0 +1,190 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package model.devscore.ports;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for the {@link RingBufferPort}.
+ */
+public class RingBufferPortTest extends TestCase {
+
+  /**
+   * Ring buffer port counting the change notifications.
+   */
+  static class CountingPort extends RingBufferPort {
+
+    /** The serialisation ID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The number of change notifications. */
+    int notifications;
+
+    /**
+     * Instantiates a new counting port.
+     *
+     * @param initialCapacity
+     *          the initial capacity
+     */
+    CountingPort(int initialCapacity) {
+      super("port", Integer.class, initialCapacity);
+    }
+
+    @Override
+    public void changed() {
+      notifications++;
+      super.changed();
+    }
+  }
+
+  /**
+   * Tests that values are read in the order they have been written.
+   */
+  public void testReadOrder() {
+    RingBufferPort port = new RingBufferPort("port", Integer.class);
+    assertFalse(port.hasValue());
+    assertNull(port.read());
+
+    for (int i = 0; i < 5; i++) {
+      port.write(i);
+    }
+    assertEquals(5, port.getValuesCount());
+    assertEquals(3, port.read(3));
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i, port.read());
+    }
+    assertFalse(port.hasValue());
+
+    try {
+      port.write("wrong type");
+      fail();
+    } catch (PortTypeMismatchException ex) {
+      // expected
+    }
+  }
+
+  /**
+   * Tests that the list returned by {@link RingBufferPort#readAll()} reflects
+   * the port until it is cleared, and keeps its values afterwards, also if
+   * they wrap around the end of the buffer.
+   */
+  public void testReadAllSurvivesClear() {
+    RingBufferPort port = new RingBufferPort("port", Integer.class, 4);
+    port.write(0);
+    port.write(1);
+    port.write(2);
+    port.read();
+    port.read();
+    List<Object> values = port.readAll();
+    port.write(3);
+    port.write(4);
+    assertEquals(Arrays.<Object> asList(2, 3, 4), values);
+
+    port.clear();
+    assertEquals(0, port.getValuesCount());
+    assertEquals(Arrays.<Object> asList(2, 3, 4), values);
+
+    port.write(5);
+    assertEquals(Arrays.<Object> asList(2, 3, 4), values);
+    assertEquals(Arrays.<Object> asList(5), port.readAll());
+    try {
+      values.get(3);
+      fail();
+    } catch (IndexOutOfBoundsException ex) {
+      // expected
+    }
+
+    // without a view the buffer is kept
+    port.clear();
+    port.write(6);
+    assertEquals(Arrays.<Object> asList(6), port.readAll());
+  }
+
+  /**
+   * Tests {@link RingBufferPort#writeAll(List)} with random access and
+   * sequential lists, and {@link RingBufferPort#drainTo(java.util.Collection)}
+   * .
+   */
+  public void testWriteAllAndDrainTo() {
+    RingBufferPort port = new RingBufferPort("port", Integer.class, 2);
+    port.writeAll(new ArrayList<Object>(Arrays.<Object> asList(0, 1, 2)));
+    port.writeAll(new LinkedList<Object>(Arrays.<Object> asList(3, 4)));
+    port.writeAll(new ArrayList<Object>());
+    assertEquals(5, port.getValuesCount());
+
+    List<Object> drained = new ArrayList<>();
+    assertEquals(5, port.drainTo(drained));
+    assertEquals(Arrays.<Object> asList(0, 1, 2, 3, 4), drained);
+    assertFalse(port.hasValue());
+    assertEquals(0, port.drainTo(drained));
+  }
+
+  /**
+   * Tests that the buffer keeps the order if it grows while the values wrap
+   * around its end.
+   */
+  public void testWrapAroundGrowth() {
+    RingBufferPort port = new RingBufferPort("port", Integer.class, 4);
+    int next = 0;
+    int expected = 0;
+    for (int round = 0; round < 10; round++) {
+      // write more than is read, so that the buffer grows while wrapped
+      for (int i = 0; i < round + 3; i++) {
+        port.write(next++);
+      }
+      for (int i = 0; i < 2; i++) {
+        assertEquals(expected++, port.read());
+      }
+    }
+    assertEquals(next - expected, port.getValuesCount());
+    for (int i = 0; i < port.getValuesCount(); i++) {
+      assertEquals(expected + i, port.read(i));
+    }
+    while (port.hasValue()) {
+      assertEquals(expected++, port.read());
+    }
+    assertEquals(next, expected);
+  }
+
+  /**
+   * Tests that the observers are notified once per
+   * {@link RingBufferPort#flushChanges()}, and only if values have been read
+   * or written.
+   */
+  public void testNotificationCoalescing() {
+    CountingPort port = new CountingPort(4);
+    port.flushChanges();
+    assertEquals(0, port.notifications);
+
+    for (int i = 0; i < 10; i++) {
+      port.write(i);
+    }
+    port.read();
+    port.writeAll(Arrays.<Object> asList(10, 11));
+    assertEquals(0, port.notifications);
+    port.flushChanges();
+    assertEquals(1, port.notifications);
+    port.flushChanges();
+    assertEquals(1, port.notifications);
+
+    port.drainTo(new ArrayList<>());
+    port.flushChanges();
+    assertEquals(2, port.notifications);
+
+    // reading from the empty port changes nothing
+    port.read();
+    port.drainTo(new ArrayList<>());
+    port.flushChanges();
+    assertEquals(2, port.notifications);
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs;
+
+import model.devs.IConfluentAtomicModel;
+
+/**
+ * {@link TrajectoryCell} with its own confluent transition function, which
+ * processes the external events first (as a classic DEVS simulator would do if
+ * the senders are selected first).
+ */
+public class ConfluentTrajectoryCell extends TrajectoryCell implements
+    IConfluentAtomicModel<TrajectoryCell.CellState> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = 4431268096521340931L;
+
+  /**
+   * Instantiates a new confluent trajectory cell.
+   *
+   * @param name
+   *          the name of the cell
+   * @param period
+   *          the time between two internal events
+   */
+  public ConfluentTrajectoryCell(String name, int period) {
+    super(name, period);
+  }
+
+  @Override
+  public void deltaConfluentSim() {
+    deltaExternalSim(timeAdvance());
+    deltaInternalSim();
+  }
+
+}
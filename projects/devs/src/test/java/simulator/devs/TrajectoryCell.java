@@ -0,0 +1,169 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import model.devs.AtomicModel;
+
+import org.jamesii.core.model.State;
+
+/**
+ * Atomic model recording its state and output trajectories, used to compare
+ * the results of different DEVS processors. The cell has an internal event
+ * every period time units, on which it outputs and increments its counter;
+ * the values received are added to its sum. The transition functions commute,
+ * so the trajectories do not depend on whether simultaneous events are
+ * handled one after the other (classic DEVS with select) or at once (Parallel
+ * DEVS with confluent transitions). The trajectories are part of the state,
+ * so they are restored on rollbacks, too.
+ */
+public class TrajectoryCell extends AtomicModel<TrajectoryCell.CellState> {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -5637460186434521733L;
+
+  /** The input port. */
+  public static final String PORT_IN = "in";
+
+  /** The output port. */
+  public static final String PORT_OUT = "out";
+
+  /** The time between two internal events. */
+  private final int period;
+
+  /**
+   * The state of a cell.
+   */
+  public static class CellState extends State {
+
+    /** Serialisation ID. */
+    private static final long serialVersionUID = 2418370947567134525L;
+
+    /** The number of internal events so far. */
+    private int count;
+
+    /** The sum of all values received. */
+    private long sum;
+
+    /** The time of the last event. */
+    private double time;
+
+    /** The time until the next internal event. */
+    private double sigma;
+
+    /** The state at the end of each time the cell was active at. */
+    private final TreeMap<Double, String> states = new TreeMap<>();
+
+    /** The outputs, with their times. */
+    private final ArrayList<String> outputs = new ArrayList<>();
+  }
+
+  /**
+   * Instantiates a new trajectory cell.
+   *
+   * @param name
+   *          the name of the cell
+   * @param period
+   *          the time between two internal events
+   */
+  public TrajectoryCell(String name, int period) {
+    super(name);
+    this.period = period;
+    getState().sigma = period;
+    addInPort(PORT_IN, Integer.class);
+    addOutPort(PORT_OUT, Integer.class);
+  }
+
+  @Override
+  protected CellState createState() {
+    return new CellState();
+  }
+
+  @Override
+  protected void deltaExternal(double elapsedTime) {
+    CellState state = getState();
+    state.time += elapsedTime;
+    state.sigma -= elapsedTime;
+    for (Object o : getInPort(PORT_IN).readAll()) {
+      state.sum += (Integer) o;
+    }
+    record(state);
+  }
+
+  @Override
+  protected void deltaInternal() {
+    CellState state = getState();
+    state.time += state.sigma;
+    state.outputs.add(state.time + ":" + state.count);
+    state.count++;
+    state.sigma = period;
+    record(state);
+  }
+
+  @Override
+  protected void lambda() {
+    getOutPort(PORT_OUT).write(getState().count);
+  }
+
+  @Override
+  public double timeAdvance() {
+    return getState().sigma;
+  }
+
+  /**
+   * Record the current state for the current time, replacing the state
+   * recorded for the same time before.
+   *
+   * @param state
+   *          the state
+   */
+  private static void record(CellState state) {
+    state.states.put(state.time, state.count + "/" + state.sum);
+  }
+
+  /**
+   * Get the state trajectory, i.e., the state at the end of each time the
+   * cell was active at.
+   *
+   * @return the state trajectory
+   */
+  public Map<Double, String> getStateTrajectory() {
+    return new TreeMap<>(getState().states);
+  }
+
+  /**
+   * Get the output trajectory.
+   *
+   * @return the outputs, with their times
+   */
+  public List<String> getOutputTrajectory() {
+    return new ArrayList<>(getState().outputs);
+  }
+
+  /**
+   * Get the number of internal events so far.
+   *
+   * @return the count
+   */
+  public int getCount() {
+    return getState().count;
+  }
+
+  /**
+   * Get the sum of all values received so far.
+   *
+   * @return the sum
+   */
+  public long getSum() {
+    return getState().sum;
+  }
+
+}
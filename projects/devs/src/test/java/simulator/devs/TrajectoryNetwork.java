@@ -0,0 +1,115 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+import model.devs.CoupledModel;
+import model.devscore.IBasicDEVSModel;
+
+/**
+ * Coupled model used to compare the trajectories computed by different DEVS
+ * processors. Contains a ring of {@link TrajectoryCell}s with periods 1, 2
+ * and 3, where each cell sends its outputs to the following fanOut cells
+ * without delay. So there are many simultaneous events, and many cells are
+ * imminent and influenced at the same time. Every second cell is a
+ * {@link ConfluentTrajectoryCell}.
+ */
+public class TrajectoryNetwork extends CoupledModel {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -1794517640224557614L;
+
+  /** The cells. */
+  private final TrajectoryCell[] cells;
+
+  /**
+   * Instantiates a new trajectory network.
+   *
+   * @param size
+   *          the number of cells
+   * @param fanOut
+   *          the number of cells each cell is coupled to
+   */
+  public TrajectoryNetwork(int size, int fanOut) {
+    super("network");
+    cells = new TrajectoryCell[size];
+    for (int i = 0; i < size; i++) {
+      String name = String.format("cell%03d", i);
+      cells[i] =
+          i % 2 == 0 ? new TrajectoryCell(name, i % 3 + 1)
+              : new ConfluentTrajectoryCell(name, i % 3 + 1);
+      addModel(cells[i]);
+    }
+    for (int i = 0; i < size; i++) {
+      for (int j = 1; j <= Math.min(fanOut, size - 1); j++) {
+        addCoupling(cells[i], TrajectoryCell.PORT_OUT, cells[(i + j) % size],
+            TrajectoryCell.PORT_IN);
+      }
+    }
+  }
+
+  @Override
+  public IBasicDEVSModel select(Collection<IBasicDEVSModel> imminents) {
+    // the model with the largest name, so that receivers are selected before
+    // their senders in most cases
+    IBasicDEVSModel result = null;
+    for (IBasicDEVSModel m : imminents) {
+      if (result == null || m.getName().compareTo(result.getName()) > 0) {
+        result = m;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get the cells.
+   *
+   * @return the cells
+   */
+  public TrajectoryCell[] getCells() {
+    return cells.clone();
+  }
+
+  /**
+   * Get the state and output trajectories of all cells.
+   *
+   * @return the trajectories, one entry per cell
+   */
+  public List<String> getTrajectories() {
+    return getTrajectories(Double.POSITIVE_INFINITY);
+  }
+
+  /**
+   * Get the state and output trajectories of all cells up to the given time,
+   * e.g., to ignore steps a processor has executed beyond the end time.
+   *
+   * @param end
+   *          the time of the last states and outputs included
+   * @return the trajectories, one entry per cell
+   */
+  public List<String> getTrajectories(double end) {
+    List<String> result = new ArrayList<>();
+    for (TrajectoryCell cell : cells) {
+      List<String> outputs = new ArrayList<>();
+      for (String output : cell.getOutputTrajectory()) {
+        String time = output.substring(0, output.indexOf(':'));
+        if (Double.parseDouble(time) <= end) {
+          outputs.add(output);
+        }
+      }
+      result.add(cell.getName() + ": states "
+          + new TreeMap<>(cell.getStateTrajectory()).headMap(end, true)
+          + ", outputs " + outputs);
+    }
+    return result;
+  }
+
+}
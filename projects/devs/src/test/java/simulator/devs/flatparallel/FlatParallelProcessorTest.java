@@ -0,0 +1,104 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatparallel;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.processor.IProcessor;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory;
+
+import simulator.devs.TrajectoryNetwork;
+import simulator.devs.flatsequential.FlatSequentialProcessor;
+import simulator.devs.flatsequential.eventforwarding.DirectExternalEventForwardingHandler;
+
+/**
+ * Tests for the {@link FlatParallelProcessor}: the trajectories computed on a
+ * {@link TrajectoryNetwork}, with many simultaneous events and confluent
+ * transitions, have to equal those computed by the
+ * {@link FlatSequentialProcessor}, whatever the number of threads.
+ */
+public class FlatParallelProcessorTest extends TestCase {
+
+  /** The number of cells. */
+  static final int SIZE = 40;
+
+  /** The number of cells each cell is coupled to. */
+  static final int FAN_OUT = 3;
+
+  /** The end time of the simulation runs. */
+  static final double END_TIME = 50;
+
+  /**
+   * Compares the trajectories with parallelism 1, 2 and the number of
+   * available processors to those of the sequential processor.
+   */
+  public void testTrajectoriesEqualSequential() {
+    List<String> expected = runSequential();
+    for (int parallelism : new int[] { 1, 2,
+        Math.max(3, Runtime.getRuntime().availableProcessors()) }) {
+      // a threshold of 1 forks a task per model
+      for (int threshold : new int[] { 1,
+          FlatParallelProcessorFactory.DEFAULT_THRESHOLD }) {
+        assertEquals("parallelism " + parallelism + ", threshold "
+            + threshold, expected, runParallel(parallelism, threshold));
+      }
+    }
+  }
+
+  /**
+   * Computes the trajectories with the {@link FlatSequentialProcessor}.
+   *
+   * @return the trajectories
+   */
+  private static List<String> runSequential() {
+    TrajectoryNetwork model = new TrajectoryNetwork(SIZE, FAN_OUT);
+    FlatSequentialProcessor processor =
+        new FlatSequentialProcessor(model, new IndexedHeapEventQueueFactory(),
+            new DirectExternalEventForwardingHandler());
+    processor.init(0);
+    run(processor);
+    return model.getTrajectories();
+  }
+
+  /**
+   * Computes the trajectories with the {@link FlatParallelProcessor}.
+   *
+   * @param parallelism
+   *          the maximal number of worker threads
+   * @param threshold
+   *          the minimal number of models per forked task
+   * @return the trajectories
+   */
+  private static List<String> runParallel(int parallelism, int threshold) {
+    TrajectoryNetwork model = new TrajectoryNetwork(SIZE, FAN_OUT);
+    FlatParallelProcessor processor =
+        new FlatParallelProcessor(model, new IndexedHeapEventQueueFactory(),
+            new DirectExternalEventForwardingHandler(), parallelism, threshold);
+    processor.init(0);
+    try {
+      run(processor);
+    } finally {
+      processor.cleanUp();
+    }
+    return model.getTrajectories();
+  }
+
+  /**
+   * Executes steps until the end time is reached.
+   *
+   * @param processor
+   *          the processor
+   */
+  private static void run(IProcessor<Double> processor) {
+    while (processor.getTime() <= END_TIME) {
+      processor.executeNextStep();
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.flatsequential.eventforwarding;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import model.devscore.IBasicDEVSModel;
+import model.devscore.dynamic.ChangeRequest;
+import model.devscore.dynamic.CouplingChangeRequest;
+import model.devscore.dynamic.IDynamicCoupledModel;
+
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory;
+
+import simulator.devs.TrajectoryCell;
+import simulator.devs.TrajectoryNetwork;
+import simulator.devs.flatsequential.FlatSequentialProcessor;
+import simulator.devscore.dynamic.DynamicStructureChangeHandler;
+
+/**
+ * Tests for the {@link CompiledExternalEventForwardingHandler}, on static
+ * models and on models whose couplings change during the simulation.
+ */
+public class CompiledExternalEventForwardingHandlerTest extends TestCase {
+
+  /** The number of cells. */
+  static final int SIZE = 12;
+
+  /** The number of cells each cell is coupled to. */
+  static final int FAN_OUT = 2;
+
+  /** The time the couplings are changed at. */
+  static final double CHANGE_TIME = 10;
+
+  /** The end time of the simulation runs. */
+  static final double END_TIME = 30;
+
+  /**
+   * {@link TrajectoryNetwork} whose couplings can be changed.
+   */
+  static class DynamicTrajectoryNetwork extends TrajectoryNetwork implements
+      IDynamicCoupledModel {
+
+    /** Serialisation ID. */
+    private static final long serialVersionUID = 7920461382750128421L;
+
+    /**
+     * Instantiates a new dynamic trajectory network.
+     */
+    DynamicTrajectoryNetwork() {
+      super(SIZE, FAN_OUT);
+    }
+  }
+
+  /**
+   * Structure change handler applying the change requests given.
+   */
+  static class ChangeHandler extends DynamicStructureChangeHandler {
+
+    /** Serialisation ID. */
+    private static final long serialVersionUID = -3519843711254060687L;
+
+    /**
+     * Applies the given change request to the model.
+     *
+     * @param cr
+     *          the change request
+     * @param model
+     *          the model
+     */
+    <M extends IBasicDEVSModel> void apply(ChangeRequest<M> cr, M model) {
+      processChange(cr, model);
+    }
+  }
+
+  /**
+   * Tests that the compiled event forwarding yields the same trajectories as
+   * the direct one.
+   */
+  public void testStaticModel() {
+    assertEquals(run(new DirectExternalEventForwardingHandler(), false, false),
+        run(new CompiledExternalEventForwardingHandler(), false, false));
+  }
+
+  /**
+   * Tests that the routing follows the changes of the couplings: the
+   * trajectories have to equal those computed with a routing compiled from
+   * scratch after the changes.
+   */
+  public void testStructureChanges() {
+    List<String> unchanged =
+        run(new CompiledExternalEventForwardingHandler(), false, false);
+    List<String> expected =
+        run(new CompiledExternalEventForwardingHandler(), true, true);
+    assertFalse(unchanged.equals(expected));
+    assertEquals(expected,
+        run(new CompiledExternalEventForwardingHandler(), true, false));
+  }
+
+  /**
+   * Simulates a {@link DynamicTrajectoryNetwork}.
+   *
+   * @param forwarding
+   *          the event forwarding
+   * @param change
+   *          if true, a coupling is added and another one is removed at
+   *          {@link #CHANGE_TIME}
+   * @param reinit
+   *          if true, the event forwarding is initialised again after the
+   *          changes
+   * @return the trajectories
+   */
+  private static List<String> run(ExternalEventForwardingHandler forwarding,
+      boolean change, boolean reinit) {
+    DynamicTrajectoryNetwork model = new DynamicTrajectoryNetwork();
+    FlatSequentialProcessor processor =
+        new FlatSequentialProcessor(model, new IndexedHeapEventQueueFactory(),
+            forwarding);
+    ChangeHandler changes = new ChangeHandler();
+    processor.setStructureChangeHandler(changes);
+    processor.init(0);
+
+    while (processor.getTime() < CHANGE_TIME) {
+      processor.executeNextStep();
+    }
+    if (change) {
+      TrajectoryCell[] cells = model.getCells();
+      changes.apply(createRequest(model, cells[0], cells[SIZE / 2], true),
+          model);
+      changes.apply(createRequest(model, cells[3], cells[4], false), model);
+      if (reinit) {
+        forwarding.init(model);
+      }
+    }
+    while (processor.getTime() <= END_TIME) {
+      processor.executeNextStep();
+    }
+    return model.getTrajectories();
+  }
+
+  /**
+   * Creates a request to add or remove the coupling between two cells.
+   *
+   * @param model
+   *          the network
+   * @param from
+   *          the sending cell
+   * @param to
+   *          the receiving cell
+   * @param add
+   *          true to add the coupling, false to remove it
+   * @return the change request
+   */
+  private static CouplingChangeRequest<DynamicTrajectoryNetwork> createRequest(
+      DynamicTrajectoryNetwork model, TrajectoryCell from, TrajectoryCell to,
+      boolean add) {
+    return new CouplingChangeRequest<>(from, model, from,
+        from.getOutPort(TrajectoryCell.PORT_OUT), to,
+        to.getInPort(TrajectoryCell.PORT_IN), add);
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.devs.timewarp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory;
+
+import model.devscore.IBasicAtomicModel;
+import simulator.devs.TrajectoryCell;
+import simulator.devs.TrajectoryNetwork;
+import simulator.devs.flatsequential.FlatSequentialProcessor;
+import simulator.devs.flatsequential.eventforwarding.DirectExternalEventForwardingHandler;
+import simulator.devs.timewarp.LogicalProcess.Route;
+import simulator.devs.timewarp.transport.LocalTransport;
+import simulator.devscore.util.SerialisationStateCopyHandler;
+
+/**
+ * Tests for the {@link TimeWarpProcessor} and its {@link LogicalProcess}es:
+ * the trajectories computed on a {@link TrajectoryNetwork}, whose cells are
+ * coupled without delay across the borders of the logical processes, have to
+ * equal those computed by the {@link FlatSequentialProcessor}, also if the
+ * logical processes are driven such that they have to roll back, and fossil
+ * collection must only commit the steps below the GVT.
+ */
+public class TimeWarpProcessorTest extends TestCase {
+
+  /** The number of cells. */
+  static final int SIZE = 40;
+
+  /** The number of cells each cell is coupled to. */
+  static final int FAN_OUT = 3;
+
+  /** The end time of the simulation runs. */
+  static final double END_TIME = 50;
+
+  /**
+   * Compares the trajectories computed by the time warp processor with
+   * different numbers of logical processes, epoch lengths and optimism windows
+   * to those of the sequential processor.
+   */
+  public void testTrajectoriesEqualSequential() {
+    List<String> expected = runSequential();
+    assertEquals(expected, runTimeWarp(2,
+        TimeWarpProcessorFactory.DEFAULT_STEPS_PER_EPOCH,
+        Double.POSITIVE_INFINITY));
+    assertEquals(expected, runTimeWarp(4, 1, Double.POSITIVE_INFINITY));
+    assertEquals(expected, runTimeWarp(3, 8, 2.));
+  }
+
+  /**
+   * Drives two logical processes, connected by the {@link LocalTransport},
+   * such that the second one always runs ahead of the first one and receives
+   * its messages too late (and the first one receives messages which are
+   * cancelled later). The trajectories must equal the sequential ones, and
+   * after each epoch exactly the steps with time stamps below the GVT must
+   * have been committed: every logical process has a step at each integral
+   * time.
+   */
+  public void testRollbacksAndFossilCollection() {
+    TrajectoryNetwork model = new TrajectoryNetwork(SIZE, FAN_OUT);
+    LogicalProcess[] processes = createProcesses(model, 2);
+    long[] committed = new long[processes.length];
+    int epochs = 0;
+    double gvt = 0;
+    while (gvt <= END_TIME) {
+      assertTrue("No progress", epochs++ < 10 * END_TIME);
+      for (int p = processes.length - 1; p >= 0; p--) {
+        processes[p].execute(8, END_TIME + 1);
+      }
+      gvt = Double.POSITIVE_INFINITY;
+      for (LogicalProcess process : processes) {
+        gvt = Math.min(gvt, process.getLocalMinimum());
+      }
+      for (int p = 0; p < processes.length; p++) {
+        committed[p] += processes[p].fossilCollect(gvt);
+        assertEquals("Steps committed by process " + p + " at GVT " + gvt,
+            (long) Math.ceil(gvt) - 1, committed[p]);
+      }
+    }
+
+    assertEquals(runSequential(), model.getTrajectories(END_TIME));
+    long rollbacks = 0;
+    long antiMessages = 0;
+    for (LogicalProcess process : processes) {
+      rollbacks += process.getRollbacks();
+      antiMessages += process.getAntiMessages();
+    }
+    assertTrue(rollbacks > 0);
+    assertTrue(antiMessages > 0);
+  }
+
+  /**
+   * Creates the logical processes for the given network the way the
+   * {@link TimeWarpProcessor} does without a partition: the cells are divided
+   * into blocks of equal size.
+   *
+   * @param model
+   *          the network
+   * @param count
+   *          the number of logical processes
+   * @return the logical processes
+   */
+  private static LogicalProcess[] createProcesses(TrajectoryNetwork model,
+      int count) {
+    TrajectoryCell[] cells = model.getCells();
+    int[] mapping = new int[cells.length];
+    for (int i = 0; i < cells.length; i++) {
+      mapping[i] = i * count / cells.length;
+    }
+
+    LogicalProcess[] processes = new LogicalProcess[count];
+    for (int p = 0; p < count; p++) {
+      List<Integer> members = new ArrayList<>();
+      for (int i = 0; i < cells.length; i++) {
+        if (mapping[i] == p) {
+          members.add(i);
+        }
+      }
+      IBasicAtomicModel<?>[] models = new IBasicAtomicModel<?>[members.size()];
+      int[] ids = new int[members.size()];
+      List<Map<String, Route[]>> routes = new ArrayList<>();
+      for (int k = 0; k < members.size(); k++) {
+        ids[k] = members.get(k);
+        models[k] = cells[ids[k]];
+        Route[] targets = new Route[FAN_OUT];
+        for (int j = 1; j <= FAN_OUT; j++) {
+          targets[j - 1] =
+              new Route((ids[k] + j) % cells.length, TrajectoryCell.PORT_IN);
+        }
+        Map<String, Route[]> portRoutes = new HashMap<>();
+        portRoutes.put(TrajectoryCell.PORT_OUT, targets);
+        routes.add(portRoutes);
+      }
+      processes[p] =
+          new LogicalProcess(p, models, ids, mapping, routes,
+              new SerialisationStateCopyHandler(), 0);
+    }
+    for (LogicalProcess process : processes) {
+      process.setTransport(new LocalTransport(processes));
+    }
+    return processes;
+  }
+
+  /**
+   * Computes the trajectories with the {@link FlatSequentialProcessor}.
+   *
+   * @return the trajectories
+   */
+  private static List<String> runSequential() {
+    TrajectoryNetwork model = new TrajectoryNetwork(SIZE, FAN_OUT);
+    FlatSequentialProcessor processor =
+        new FlatSequentialProcessor(model, new IndexedHeapEventQueueFactory(),
+            new DirectExternalEventForwardingHandler());
+    processor.init(0);
+    while (processor.getTime() <= END_TIME) {
+      processor.executeNextStep();
+    }
+    return model.getTrajectories();
+  }
+
+  /**
+   * Computes the trajectories with the {@link TimeWarpProcessor}.
+   *
+   * @param logicalProcesses
+   *          the number of logical processes
+   * @param stepsPerEpoch
+   *          the maximal number of steps per logical process and epoch
+   * @param window
+   *          the optimism window
+   * @return the trajectories
+   */
+  private static List<String> runTimeWarp(int logicalProcesses,
+      int stepsPerEpoch, double window) {
+    TrajectoryNetwork model = new TrajectoryNetwork(SIZE, FAN_OUT);
+    TimeWarpProcessor processor =
+        new TimeWarpProcessor(model, null, logicalProcesses, stepsPerEpoch,
+            window, new SerialisationStateCopyHandler());
+    processor.init(0);
+    try {
+      assertEquals(logicalProcesses, processor.getNumberOfLogicalProcesses());
+      while (processor.getTime() <= END_TIME) {
+        processor.executeNextStep();
+      }
+      assertTrue(processor.getCommittedSteps() > 0);
+    } finally {
+      processor.cleanUp();
+    }
+    // the logical processes may have executed (uncommitted) steps beyond GVT
+    return model.getTrajectories(END_TIME);
+  }
+
+}
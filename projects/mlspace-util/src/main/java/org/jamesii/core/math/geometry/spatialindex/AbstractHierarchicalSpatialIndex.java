@@ -0,0 +1,600 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jamesii.core.math.geometry.IShapedComponent;
+import org.jamesii.core.math.geometry.shapes.AxisAlignedBox;
+import org.jamesii.core.math.geometry.shapes.IShape;
+import org.jamesii.core.math.geometry.shapes.ShapeRelation;
+import org.jamesii.core.math.geometry.shapes.TorusSurface;
+import org.jamesii.core.math.geometry.vectors.IPositionVector;
+import org.jamesii.core.math.geometry.vectors.Vectors;
+
+/**
+ * Base class for spatial indices based on a hierarchy of grids over the
+ * boundaries, where the cells of each level are the cells of the previous one
+ * halved in each dimension (level 0: one cell covering everything). Each
+ * component is kept in exactly one bin, namely that of the cell containing
+ * its center on the finest level whose cells are at least as large as the
+ * component's extension (i.e. component sizes may span orders of magnitude
+ * without large components being referenced from many cells or small ones
+ * sharing cells with many others). Collision candidates of a component on each
+ * level are thus the components in cells within the component's extension
+ * plus half a cell side around its center. Periodic boundaries (
+ * {@link TorusSurface}) are handled by wrapping cell coordinates around.
+ *
+ * As long as a moved component stays in the same cell (as is the case for most
+ * small displacements), {@link #updateCompPos(IShapedComponent)} only
+ * overwrites the registered coordinates.
+ *
+ * @param <C>
+ *          type of shaped component to index
+ */
+public abstract class AbstractHierarchicalSpatialIndex<C extends IShapedComponent>
+    implements ISpatialIndex<C> {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -7093564101683261465L;
+
+  private static final double DELTA = 1e-12;
+
+  /** Maximum finest level (cell coordinates have to fit into long keys) */
+  private static final int MAX_LEVEL_LIMIT = 20;
+
+  /** Finest level */
+  private int maxLevel;
+
+  /** The boundary-defining shape */
+  private IShape surrounding;
+
+  /** Number of dimensions */
+  private int dim;
+
+  /** Minimum coordinate in each dimension */
+  private double[] min;
+
+  /** Extension (or period) in each dimension */
+  private double[] ext;
+
+  /** Flag whether boundaries are periodic */
+  private boolean toroidal;
+
+  /** Registered components */
+  private final Map<C, Entry<C>> entries = new LinkedHashMap<>();
+
+  /** Lowest cell coordinate in range of a query, by level and dimension */
+  private transient int[][] rangeLow;
+
+  /** Highest cell coordinate in range of a query, by level and dimension */
+  private transient int[][] rangeHigh;
+
+  /** Cell coordinates of a component (scratch array) */
+  private transient int[] cellCoords;
+
+  /**
+   * @param surrounding
+   *          Shape providing system boundaries (if null, {@link #init(IShape)}
+   *          must be called before use)
+   * @param maxLevel
+   *          Finest level (components smaller than its cells are kept there
+   *          nonetheless; at most 20, or 60 / number of dimensions)
+   */
+  protected AbstractHierarchicalSpatialIndex(IShape surrounding, int maxLevel) {
+    if (maxLevel < 0) {
+      throw new IllegalArgumentException("Negative finest level: " + maxLevel);
+    }
+    this.maxLevel = maxLevel;
+    if (surrounding != null) {
+      init(surrounding);
+    }
+  }
+
+  @Override
+  public final boolean init(IShape surroundingShape) {
+    if (surrounding != null) {
+      throw new IllegalArgumentException("Spatial index already initialized");
+    }
+    AxisAlignedBox sbb = (AxisAlignedBox) surroundingShape.boundingBox();
+    dim = sbb.getCenter().getDimensions();
+    min = sbb.getCenter().minus(sbb.getMaxExtVector()).toArray();
+    toroidal = surroundingShape instanceof TorusSurface;
+    if (toroidal) {
+      ext = ((TorusSurface) surroundingShape) // NOSONAR: not unchecked
+          .getVecFac().getPeriod().toArray();
+    } else {
+      ext = sbb.getMaxExtVector().times(2.).toArray();
+    }
+    maxLevel = Math.min(maxLevel, Math.min(MAX_LEVEL_LIMIT, 60 / dim));
+    surrounding = surroundingShape;
+    initBins();
+    return true;
+  }
+
+  /**
+   * Initialize the data structures holding the bins (called once the
+   * boundaries are known)
+   */
+  protected abstract void initBins();
+
+  /**
+   * Put a newly registered component into the respective bin (and set
+   * {@link Entry#getBin()})
+   *
+   * @param entry
+   *          Entry of the component
+   * @param level
+   *          Level of the bin
+   * @param coords
+   *          Cell coordinates of the bin on its level
+   */
+  protected abstract void insert(Entry<C> entry, int level, int[] coords);
+
+  /**
+   * Remove a component from its bin
+   *
+   * @param entry
+   *          Entry of the component
+   */
+  protected abstract void remove(Entry<C> entry);
+
+  /**
+   * @param entry
+   *          Entry of a registered component
+   * @param level
+   *          Level
+   * @param coords
+   *          Cell coordinates on the level
+   * @return true iff the component's bin is the one of the given cell
+   */
+  protected abstract boolean isInBin(Entry<C> entry, int level, int[] coords);
+
+  /**
+   * Visit all components in bins in range of the current query (see
+   * {@link #isInRange(int, int, int)}), calling
+   * {@link #visitBin(Bin, IShapedComponent, ICollisionVisitor)} for each
+   *
+   * @param c
+   *          Query component
+   * @param visitor
+   *          Callback
+   * @return false if the visitor stopped the query
+   */
+  protected abstract boolean visitBinsInRange(C c,
+      ICollisionVisitor<? super C> visitor);
+
+  /**
+   * Determine the level and cell coordinates of a shape
+   *
+   * @param shape
+   *          Shape
+   * @return Level (cell coordinates on that level written to
+   *         {@link #cellCoords})
+   */
+  private int locate(IShape shape) {
+    if (cellCoords == null) {
+      cellCoords = new int[dim];
+    }
+    IPositionVector cen = shape.getCenter();
+    int level = maxLevel;
+    for (int i = 0; i < dim; i++) {
+      double diameter = 2. * halfExtension(shape, cen, i + 1);
+      while (level > 0 && ext[i] / (1L << level) < diameter) {
+        level--;
+      }
+    }
+    for (int i = 0; i < dim; i++) {
+      cellCoords[i] = cellCoord(cen.get(i + 1), i, level);
+    }
+    return level;
+  }
+
+  /**
+   * @return Maximum distance of the shape's boundary from its center along the
+   *         given dimension
+   */
+  private static double halfExtension(IShape shape, IPositionVector cen, int d) {
+    double c = cen.get(d);
+    return Math.max(shape.getMax(d) - c, c - shape.getMin(d));
+  }
+
+  /**
+   * @param x
+   *          Coordinate
+   * @param i
+   *          Dimension (0-based)
+   * @param level
+   *          Level
+   * @return Coordinate of the cell containing x on the given level (wrapped
+   *         around for periodic boundaries, clamped to the boundaries
+   *         otherwise)
+   */
+  private int cellCoord(double x, int i, int level) {
+    int n = 1 << level;
+    double r = (x - min[i]) / ext[i];
+    if (toroidal) {
+      r -= Math.floor(r);
+    }
+    int c = (int) Math.floor(r * n);
+    return c < 0 ? 0 : c >= n ? n - 1 : c;
+  }
+
+  /**
+   * Calculate the cell coordinate ranges of a query shape on all levels
+   *
+   * @param shape
+   *          Query shape
+   */
+  private void setRanges(IShape shape) {
+    if (rangeLow == null) {
+      rangeLow = new int[maxLevel + 1][dim];
+      rangeHigh = new int[maxLevel + 1][dim];
+    }
+    IPositionVector cen = shape.getCenter();
+    for (int i = 0; i < dim; i++) {
+      double c = cen.get(i + 1);
+      double halfExt = halfExtension(shape, cen, i + 1);
+      for (int level = 0; level <= maxLevel; level++) {
+        int n = 1 << level;
+        double side = ext[i] / n;
+        // components on this level extend at most half a cell side
+        double reach = halfExt + side / 2.;
+        int lo = (int) Math.floor((c - reach - min[i]) / side);
+        int hi = (int) Math.floor((c + reach - min[i]) / side);
+        if (toroidal) {
+          if (hi - lo + 1 >= n) {
+            lo = 0;
+            hi = n - 1;
+          } else {
+            lo = Math.floorMod(lo, n);
+            hi = Math.floorMod(hi, n);
+          }
+        } else {
+          lo = Math.min(Math.max(lo, 0), n - 1);
+          hi = Math.min(Math.max(hi, 0), n - 1);
+        }
+        rangeLow[level][i] = lo;
+        rangeHigh[level][i] = hi;
+      }
+    }
+  }
+
+  /**
+   * @param level
+   *          Level
+   * @param i
+   *          Dimension (0-based)
+   * @return Lowest cell coordinate in range of the current query (greater than
+   *         {@link #getRangeHigh(int, int)} if the range wraps around periodic
+   *         boundaries)
+   */
+  protected final int getRangeLow(int level, int i) {
+    return rangeLow[level][i];
+  }
+
+  /**
+   * @param level
+   *          Level
+   * @param i
+   *          Dimension (0-based)
+   * @return Highest cell coordinate in range of the current query
+   */
+  protected final int getRangeHigh(int level, int i) {
+    return rangeHigh[level][i];
+  }
+
+  /**
+   * @param level
+   *          Level
+   * @param i
+   *          Dimension (0-based)
+   * @param coord
+   *          Cell coordinate
+   * @return true iff the cell coordinate is in range of the current query
+   */
+  protected final boolean isInRange(int level, int i, int coord) {
+    int lo = rangeLow[level][i];
+    int hi = rangeHigh[level][i];
+    return lo <= hi ? coord >= lo && coord <= hi : coord >= lo || coord <= hi;
+  }
+
+  /**
+   * @param level
+   *          Level
+   * @param i
+   *          Dimension (0-based)
+   * @return Number of cell coordinates in range of the current query
+   */
+  protected final int getRangeSize(int level, int i) {
+    int lo = rangeLow[level][i];
+    int hi = rangeHigh[level][i];
+    return lo <= hi ? hi - lo + 1 : hi - lo + 1 + (1 << level);
+  }
+
+  /**
+   * @return Finest level
+   */
+  public final int getMaxLevel() {
+    return maxLevel;
+  }
+
+  /**
+   * @return Number of dimensions
+   */
+  protected final int getDimensions() {
+    return dim;
+  }
+
+  /**
+   * Call visitor for all components in the bin colliding with the query
+   * component
+   *
+   * @param bin
+   *          Bin
+   * @param c
+   *          Query component
+   * @param visitor
+   *          Callback
+   * @return false if the visitor stopped the query
+   */
+  protected final boolean visitBin(Bin<C> bin, C c,
+      ICollisionVisitor<? super C> visitor) {
+    IShape cShape = c.getShape();
+    for (int k = 0; k < bin.size(); k++) {
+      C otherComp = bin.get(k).comp;
+      if (otherComp != c
+          && cShape.getRelationTo(otherComp.getShape(), DELTA).isCollision()
+          && !visitor.visit(otherComp)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public List<C> collidingComps(C c) {
+    final List<C> collComps = new ArrayList<>();
+    visitCollidingComps(c, new ICollisionVisitor<C>() {
+      @Override
+      public boolean visit(C comp) {
+        collComps.add(comp);
+        return true;
+      }
+    });
+    return collComps;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The visitor must not use the spatial index at all.
+   */
+  @Override
+  public boolean visitCollidingComps(C c,
+      ICollisionVisitor<? super C> visitor) {
+    setRanges(c.getShape());
+    return visitBinsInRange(c, visitor);
+  }
+
+  @Override
+  public List<C> collidingComps(C c, Collection<C> otherCs) {
+    List<C> collComps = new ArrayList<>();
+    IShape cShape = c.getShape();
+    for (C otherComp : otherCs) {
+      if (otherComp != c && boundingBoxesOverlap(cShape, otherComp.getShape())
+          && cShape.getRelationTo(otherComp.getShape(), DELTA).isCollision()) {
+        collComps.add(otherComp);
+      }
+    }
+    return collComps;
+  }
+
+  /**
+   * @return true iff the bounding boxes (symmetric around the center) of the
+   *         given shapes overlap (considering periodic boundaries)
+   */
+  private boolean boundingBoxesOverlap(IShape s1, IShape s2) {
+    IPositionVector cen1 = s1.getCenter();
+    IPositionVector cen2 = s2.getCenter();
+    for (int d = 1; d <= dim; d++) {
+      double diff = cen2.get(d) - cen1.get(d);
+      if (toroidal) {
+        diff = Vectors.periodCorrectDisplacement(diff, ext[d - 1]);
+      }
+      if (Math.abs(diff) > halfExtension(s1, cen1, d)
+          + halfExtension(s2, cen2, d) + DELTA) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public IShape getBoundaries() {
+    return surrounding;
+  }
+
+  @Override
+  public boolean isOutOfBounds(C c) {
+    return surrounding.getRelationTo(c.getShape()) != ShapeRelation.SUPERSET;
+  }
+
+  @Override
+  public Collection<C> notUpToDate() {
+    List<C> rv = new ArrayList<>();
+    for (Map.Entry<C, Entry<C>> e : entries.entrySet()) {
+      IPositionVector actPos = e.getKey().getPosition();
+      if (actPos.distanceSquared(e.getValue().position) > DELTA) {
+        rv.add(e.getKey());
+      }
+    }
+    return rv;
+  }
+
+  @Override
+  public void registerNewEntity(C c) {
+    if (entries.containsKey(c)) {
+      throw new IllegalStateException("Component already registered: " + c);
+    }
+    Entry<C> entry = new Entry<>(c);
+    entry.position = c.getPosition().copy();
+    int level = locate(c.getShape());
+    insert(entry, level, cellCoords);
+    entries.put(c, entry);
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The returned previously registered position is only valid until the next
+   * update of the same component (its vector object is then reused to store
+   * the new position).
+   */
+  @Override
+  public IPositionVector updateCompPos(C c) {
+    Entry<C> entry = entries.get(c);
+    if (entry == null) {
+      throw new IllegalArgumentException("Component not yet registered: " + c);
+    }
+    IPositionVector oldPos = entry.position;
+    IPositionVector newPos = c.getPosition();
+    if (newPos.equals(oldPos)) {
+      return oldPos;
+    }
+    int level = locate(c.getShape());
+    if (!isInBin(entry, level, cellCoords)) {
+      remove(entry);
+      insert(entry, level, cellCoords);
+    }
+    if (entry.spare == null) {
+      entry.position = newPos.copy();
+    } else {
+      entry.position = entry.spare;
+      for (int d = newPos.getDimensions(); d > 0; d--) {
+        entry.position.set(d, newPos.get(d));
+      }
+    }
+    entry.spare = oldPos;
+    return oldPos;
+  }
+
+  @Override
+  public IPositionVector unregisterComp(C c) {
+    Entry<C> entry = entries.remove(c);
+    if (entry == null) {
+      throw new IllegalArgumentException(c
+          + " is unknown (i.e. not registered)");
+    }
+    remove(entry);
+    return entry.position;
+  }
+
+  @Override
+  public IPositionVector getRegisteredPosition(C c) {
+    Entry<C> entry = entries.get(c);
+    return entry == null ? null : entry.position;
+  }
+
+  /**
+   * Registration of a component
+   *
+   * @param <C>
+   *          type of shaped component
+   */
+  protected static final class Entry<C> implements java.io.Serializable {
+
+    private static final long serialVersionUID = 4196320853307315286L;
+
+    /** The component */
+    private final C comp;
+
+    /** Registered position (a copy) */
+    private IPositionVector position;
+
+    /** Previously registered position, reused for the next update */
+    private IPositionVector spare;
+
+    /** The bin the component is kept in */
+    private Bin<C> bin;
+
+    /** Index of the entry in its bin */
+    private int indexInBin;
+
+    Entry(C comp) {
+      this.comp = comp;
+    }
+
+    /**
+     * @return The bin the component is kept in
+     */
+    public Bin<C> getBin() {
+      return bin;
+    }
+  }
+
+  /**
+   * Bin of components (order of components may change on removal)
+   *
+   * @param <C>
+   *          type of shaped component
+   */
+  protected static class Bin<C> implements java.io.Serializable {
+
+    private static final long serialVersionUID = -2872839471730046617L;
+
+    /** The entries */
+    private final List<Entry<C>> binEntries = new ArrayList<>(2);
+
+    /**
+     * Add entry to this bin (and set its {@link Entry#getBin() bin})
+     *
+     * @param entry
+     *          Entry
+     */
+    public final void add(Entry<C> entry) {
+      entry.bin = this;
+      entry.indexInBin = binEntries.size();
+      binEntries.add(entry);
+    }
+
+    /**
+     * Remove entry from this bin (the last entry takes its place)
+     *
+     * @param entry
+     *          Entry (must be in this bin)
+     */
+    public final void remove(Entry<C> entry) {
+      Entry<C> last = binEntries.remove(binEntries.size() - 1);
+      if (last != entry) {
+        binEntries.set(entry.indexInBin, last);
+        last.indexInBin = entry.indexInBin;
+      }
+      entry.bin = null;
+    }
+
+    /**
+     * @return Number of entries
+     */
+    public final int size() {
+      return binEntries.size();
+    }
+
+    /**
+     * @param k
+     *          Index
+     * @return Entry with given index
+     */
+    public final Entry<C> get(int k) {
+      return binEntries.get(k);
+    }
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+/**
+ * Callback for
+ * {@link ISpatialIndex#visitCollidingComps(org.jamesii.core.math.geometry.IShapedComponent, ICollisionVisitor)}
+ * , i.e. for collision queries that do not need to collect the colliding
+ * components in a list.
+ *
+ * @param <C>
+ *          Shaped component type
+ */
+public interface ICollisionVisitor<C> {
+
+  /**
+   * Called once for each component colliding with the query component (must
+   * not modify the spatial index)
+   *
+   * @param comp
+   *          Colliding component
+   * @return true if the query shall continue, false to stop it
+   */
+  boolean visit(C comp);
+
+}
@@ -62,6 +62,30 @@ public interface ISpatialIndex<C extends IShapedComponent> extends
    */
   List<C> collidingComps(C c);
 
+  /**
+   * Call the given visitor for each component that overlaps the given one, as
+   * determined by {@link #collidingComps(IShapedComponent)}, in the same
+   * order, but without collecting them in a list (implementations should
+   * override this so that no objects are created at all). The visitor must
+   * not modify the spatial index.
+   *
+   * @param c
+   *          Component
+   * @param visitor
+   *          Callback for each overlapping component
+   * @return true if all overlapping components were visited, false if the
+   *         visitor stopped the query
+   */
+  default boolean visitCollidingComps(C c,
+      ICollisionVisitor<? super C> visitor) {
+    for (C other : collidingComps(c)) {
+      if (!visitor.visit(other)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Check whether component overlaps any of the given other component (see
    * {@link IShape#getRelationTo(IShape)}). It is left to the implementation how
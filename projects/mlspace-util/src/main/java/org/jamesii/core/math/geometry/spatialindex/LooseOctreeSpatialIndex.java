@@ -0,0 +1,176 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+import org.jamesii.core.math.geometry.IShapedComponent;
+import org.jamesii.core.math.geometry.shapes.IShape;
+
+/**
+ * Loose octree (quadtree in 2D): each node covers a cell of the respective
+ * level of {@link AbstractHierarchicalSpatialIndex} and holds the components
+ * kept in that cell, whose extension may exceed the cell by up to half a cell
+ * side in each direction (looseness factor 2). Nodes are created on demand and
+ * removed when their subtree becomes empty; collision queries descend only
+ * into non-empty subtrees in range of the query component.
+ *
+ * @param <C>
+ *          type of shaped component to index
+ */
+public class LooseOctreeSpatialIndex<C extends IShapedComponent> extends
+    AbstractHierarchicalSpatialIndex<C> {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = 2163986421185960735L;
+
+  /** Root node (level 0) */
+  private Node<C> root;
+
+  /**
+   * Loose octree of given maximum depth
+   *
+   * @param surrounding
+   *          Shape providing system boundaries (if null,
+   *          {@link #init(IShape)} must be called before use)
+   * @param maxDepth
+   *          Maximum depth of the tree
+   */
+  public LooseOctreeSpatialIndex(IShape surrounding, int maxDepth) {
+    super(surrounding, maxDepth);
+  }
+
+  @Override
+  protected void initBins() {
+    root = new Node<>(null, 0, new int[getDimensions()]);
+  }
+
+  @Override
+  protected void insert(Entry<C> entry, int level, int[] coords) {
+    Node<C> node = root;
+    node.count++;
+    for (int l = 1; l <= level; l++) {
+      int childIndex = 0;
+      for (int i = 0; i < coords.length; i++) {
+        childIndex |= (coords[i] >> level - l & 1) << i;
+      }
+      node = node.getOrCreateChild(childIndex);
+      node.count++;
+    }
+    node.add(entry);
+  }
+
+  @Override
+  protected void remove(Entry<C> entry) {
+    Node<C> node = (Node<C>) entry.getBin();
+    node.remove(entry);
+    Node<C> emptySubtree = null;
+    for (Node<C> n = node; n != null; n = n.parent) {
+      n.count--;
+      if (n.count == 0 && n.parent != null) {
+        emptySubtree = n;
+      }
+    }
+    if (emptySubtree != null) {
+      emptySubtree.parent.children[emptySubtree.childIndex] = null;
+    }
+  }
+
+  @Override
+  protected boolean isInBin(Entry<C> entry, int level, int[] coords) {
+    Node<C> node = (Node<C>) entry.getBin();
+    if (node.level != level) {
+      return false;
+    }
+    for (int i = 0; i < coords.length; i++) {
+      if (node.coords[i] != coords[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  protected boolean visitBinsInRange(C c, ICollisionVisitor<? super C> visitor) {
+    return visitSubtree(root, c, visitor);
+  }
+
+  private boolean visitSubtree(Node<C> node, C c,
+      ICollisionVisitor<? super C> visitor) {
+    if (node.count == 0) {
+      return true;
+    }
+    // (ranges on finer levels are covered by those on coarser ones)
+    for (int i = 0; i < node.coords.length; i++) {
+      if (!isInRange(node.level, i, node.coords[i])) {
+        return true;
+      }
+    }
+    if (!visitBin(node, c, visitor)) {
+      return false;
+    }
+    if (node.children != null) {
+      for (Node<C> child : node.children) {
+        if (child != null && !visitSubtree(child, c, visitor)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tree node
+   *
+   * @param <C>
+   *          type of shaped component
+   */
+  private static final class Node<C> extends Bin<C> {
+
+    private static final long serialVersionUID = -4427402893071390563L;
+
+    /** Parent node (null for the root) */
+    private final Node<C> parent;
+
+    /** Index of this node among its parent's children */
+    private final int childIndex;
+
+    /** Level (depth) of this node */
+    private final int level;
+
+    /** Cell coordinates on its level */
+    private final int[] coords;
+
+    /** Child nodes (created on demand), bit i of index for dimension i */
+    private Node<C>[] children;
+
+    /** Number of components in the subtree rooted at this node */
+    private int count;
+
+    Node(Node<C> parent, int childIndex, int[] coords) {
+      this.parent = parent;
+      this.childIndex = childIndex;
+      this.level = parent == null ? 0 : parent.level + 1;
+      this.coords = coords;
+    }
+
+    @SuppressWarnings("unchecked")
+    Node<C> getOrCreateChild(int index) {
+      if (children == null) {
+        children = new Node[1 << coords.length];
+      }
+      Node<C> child = children[index];
+      if (child == null) {
+        int[] childCoords = new int[coords.length];
+        for (int i = 0; i < coords.length; i++) {
+          childCoords[i] = 2 * coords[i] + (index >> i & 1);
+        }
+        child = new Node<>(this, index, childCoords);
+        children[index] = child;
+      }
+      return child;
+    }
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+import java.io.Serializable;
+
+import org.jamesii.core.math.geometry.IShapedComponent;
+import org.jamesii.core.math.geometry.shapes.IShape;
+import org.jamesii.core.parameters.ParameterBlock;
+
+/**
+ * Factory for the {@link LooseOctreeSpatialIndex}
+ */
+public class LooseOctreeSpatialIndexFactory extends SpatialIndexFactory {
+
+  private static final long serialVersionUID = 7462118370512848291L;
+
+  /** Default maximum depth of the tree */
+  public static final int DEFAULT_MAX_DEPTH = 10;
+
+  /** Identifier for the maximum depth of the tree parameter */
+  public static final String MAX_DEPTH = "MaxDepth";
+
+  /** Identifier for the system boundary parameter */
+  public static final String BOUNDING_SHAPE = "SurroundingShape";
+
+  @Override
+  public <C extends IShapedComponent & Serializable> ISpatialIndex<C> createDirect(
+      ParameterBlock params) {
+    if (params == null) {
+      return new LooseOctreeSpatialIndex<>(null, DEFAULT_MAX_DEPTH);
+    }
+    IShape surround = params.getSubBlockValue(BOUNDING_SHAPE);
+    Integer maxDepth = params.getSubBlockValue(MAX_DEPTH, DEFAULT_MAX_DEPTH);
+    return new LooseOctreeSpatialIndex<>(surround, maxDepth);
+  }
+}
@@ -0,0 +1,291 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+import org.jamesii.core.math.geometry.IShapedComponent;
+import org.jamesii.core.math.geometry.shapes.IShape;
+
+/**
+ * Multi-resolution grid: one sparse grid (hash table of occupied cells) for
+ * each level of {@link AbstractHierarchicalSpatialIndex}, i.e. each component
+ * is binned into the grid whose cell size matches its own size. Collision
+ * queries only look at levels that currently hold components, and on each of
+ * them either look up the cells in range of the query component or, if there
+ * are fewer occupied cells than cells in range (e.g. for large query
+ * components on fine levels), check the occupied cells.
+ *
+ * @param <C>
+ *          type of shaped component to index
+ */
+public class MultiResolutionGridSpatialIndex<C extends IShapedComponent>
+    extends AbstractHierarchicalSpatialIndex<C> {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -5418027960735925476L;
+
+  /** Occupied cells of each level (created on demand) */
+  private CellTable<C>[] levels;
+
+  /** Number of components on each level */
+  private int[] levelCounts;
+
+  /** Cell coordinates when iterating a range (scratch array) */
+  private transient int[] rangeCur;
+
+  /**
+   * Multi-resolution grid with given number of levels
+   *
+   * @param surrounding
+   *          Shape providing system boundaries (if null,
+   *          {@link #init(IShape)} must be called before use)
+   * @param maxLevel
+   *          Finest level (level l has 2^l cells along each dimension)
+   */
+  public MultiResolutionGridSpatialIndex(IShape surrounding, int maxLevel) {
+    super(surrounding, maxLevel);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  protected void initBins() {
+    levels = new CellTable[getMaxLevel() + 1];
+    levelCounts = new int[getMaxLevel() + 1];
+  }
+
+  /**
+   * @return Key of the cell with the given coordinates on the given level
+   *         (coordinates have level bits each)
+   */
+  private static long key(int level, int[] coords) {
+    long key = 0;
+    for (int i = coords.length - 1; i >= 0; i--) {
+      key = key << level | coords[i];
+    }
+    return key;
+  }
+
+  @Override
+  protected void insert(Entry<C> entry, int level, int[] coords) {
+    if (levels[level] == null) {
+      levels[level] = new CellTable<>();
+    }
+    levels[level].getOrCreate(key(level, coords), level).add(entry);
+    levelCounts[level]++;
+  }
+
+  @Override
+  protected void remove(Entry<C> entry) {
+    Cell<C> cell = (Cell<C>) entry.getBin();
+    cell.remove(entry);
+    levelCounts[cell.level]--;
+    if (cell.size() == 0) {
+      levels[cell.level].remove(cell.key);
+    }
+  }
+
+  @Override
+  protected boolean isInBin(Entry<C> entry, int level, int[] coords) {
+    Cell<C> cell = (Cell<C>) entry.getBin();
+    return cell.level == level && cell.key == key(level, coords);
+  }
+
+  @Override
+  protected boolean visitBinsInRange(C c, ICollisionVisitor<? super C> visitor) {
+    int dim = getDimensions();
+    if (rangeCur == null) {
+      rangeCur = new int[dim];
+    }
+    for (int level = 0; level < levels.length; level++) {
+      if (levelCounts[level] == 0) {
+        continue;
+      }
+      CellTable<C> table = levels[level];
+      long numInRange = 1;
+      for (int i = 0; i < dim; i++) {
+        numInRange *= getRangeSize(level, i);
+      }
+      boolean cont =
+          numInRange > table.size() ? visitOccupiedCellsInRange(table, level,
+              c, visitor) : visitCellsInRange(table, level, c, visitor);
+      if (!cont) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean visitCellsInRange(CellTable<C> table, int level, C c,
+      ICollisionVisitor<? super C> visitor) {
+    int dim = rangeCur.length;
+    int n = 1 << level;
+    for (int i = 0; i < dim; i++) {
+      rangeCur[i] = getRangeLow(level, i);
+    }
+    while (true) {
+      Cell<C> cell = table.get(key(level, rangeCur));
+      if (cell != null && !visitBin(cell, c, visitor)) {
+        return false;
+      }
+      int i = 0;
+      while (i < dim && rangeCur[i] == getRangeHigh(level, i)) {
+        rangeCur[i] = getRangeLow(level, i);
+        i++;
+      }
+      if (i == dim) {
+        return true;
+      }
+      // wraps around periodic boundaries if low > high
+      rangeCur[i] = (rangeCur[i] + 1) % n;
+    }
+  }
+
+  private boolean visitOccupiedCellsInRange(CellTable<C> table, int level,
+      C c, ICollisionVisitor<? super C> visitor) {
+    int dim = getDimensions();
+    long mask = (1L << level) - 1;
+    for (int s = 0; s < table.capacity(); s++) {
+      Cell<C> cell = table.cellAt(s);
+      if (cell == null) {
+        continue;
+      }
+      boolean inRange = true;
+      for (int i = 0; i < dim && inRange; i++) {
+        inRange = isInRange(level, i, (int) (cell.key >> i * level & mask));
+      }
+      if (inRange && !visitBin(cell, c, visitor)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Occupied grid cell
+   *
+   * @param <C>
+   *          type of shaped component
+   */
+  private static final class Cell<C> extends Bin<C> {
+
+    private static final long serialVersionUID = 8015470785316128373L;
+
+    /** Level of the cell */
+    private final int level;
+
+    /** Key of the cell (cell coordinates) */
+    private final long key;
+
+    Cell(int level, long key) {
+      this.level = level;
+      this.key = key;
+    }
+  }
+
+  /**
+   * Hash table of cells by key (open addressing with linear probing), so that
+   * lookups do not create any objects
+   *
+   * @param <C>
+   *          type of shaped component
+   */
+  private static final class CellTable<C> implements java.io.Serializable {
+
+    private static final long serialVersionUID = -3207816094618926017L;
+
+    /** Keys by slot */
+    private long[] keys = new long[16];
+
+    /** Cells by slot (null: free) */
+    private Cell<C>[] cells = newCellArray(16);
+
+    /** Number of cells */
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private static <C> Cell<C>[] newCellArray(int length) {
+      return new Cell[length];
+    }
+
+    private int slot(long key) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ h >>> 32) & cells.length - 1;
+    }
+
+    Cell<C> get(long key) {
+      for (int s = slot(key); cells[s] != null; s = s + 1 & cells.length - 1) {
+        if (keys[s] == key) {
+          return cells[s];
+        }
+      }
+      return null;
+    }
+
+    Cell<C> getOrCreate(long key, int level) {
+      Cell<C> cell = get(key);
+      if (cell != null) {
+        return cell;
+      }
+      if (2 * (size + 1) > cells.length) {
+        long[] oldKeys = keys;
+        Cell<C>[] oldCells = cells;
+        keys = new long[2 * oldKeys.length];
+        cells = newCellArray(2 * oldCells.length);
+        for (int s = 0; s < oldCells.length; s++) {
+          if (oldCells[s] != null) {
+            put(oldKeys[s], oldCells[s]);
+          }
+        }
+      }
+      cell = new Cell<>(level, key);
+      put(key, cell);
+      size++;
+      return cell;
+    }
+
+    private void put(long key, Cell<C> cell) {
+      int s = slot(key);
+      while (cells[s] != null) {
+        s = s + 1 & cells.length - 1;
+      }
+      keys[s] = key;
+      cells[s] = cell;
+    }
+
+    void remove(long key) {
+      int mask = cells.length - 1;
+      int s = slot(key);
+      while (keys[s] != key || cells[s] == null) {
+        s = s + 1 & mask;
+      }
+      cells[s] = null;
+      size--;
+      // shift back following cells that would not be found otherwise
+      for (int j = s + 1 & mask; cells[j] != null; j = j + 1 & mask) {
+        int k = slot(keys[j]);
+        boolean reachable = s <= j ? s < k && k <= j : s < k || k <= j;
+        if (!reachable) {
+          keys[s] = keys[j];
+          cells[s] = cells[j];
+          cells[j] = null;
+          s = j;
+        }
+      }
+    }
+
+    int size() {
+      return size;
+    }
+
+    int capacity() {
+      return cells.length;
+    }
+
+    Cell<C> cellAt(int s) {
+      return cells[s];
+    }
+  }
+}
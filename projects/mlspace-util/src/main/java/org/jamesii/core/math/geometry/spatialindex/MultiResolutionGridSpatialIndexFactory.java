@@ -0,0 +1,41 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.geometry.spatialindex;
+
+import java.io.Serializable;
+
+import org.jamesii.core.math.geometry.IShapedComponent;
+import org.jamesii.core.math.geometry.shapes.IShape;
+import org.jamesii.core.parameters.ParameterBlock;
+
+/**
+ * Factory for the {@link MultiResolutionGridSpatialIndex}
+ */
+public class MultiResolutionGridSpatialIndexFactory extends SpatialIndexFactory {
+
+  private static final long serialVersionUID = -1837054629102783546L;
+
+  /** Default finest level */
+  public static final int DEFAULT_MAX_LEVEL = 10;
+
+  /** Identifier for the finest level parameter */
+  public static final String MAX_LEVEL = "MaxLevel";
+
+  /** Identifier for the system boundary parameter */
+  public static final String BOUNDING_SHAPE = "SurroundingShape";
+
+  @Override
+  public <C extends IShapedComponent & Serializable> ISpatialIndex<C> createDirect(
+      ParameterBlock params) {
+    if (params == null) {
+      return new MultiResolutionGridSpatialIndex<>(null, DEFAULT_MAX_LEVEL);
+    }
+    IShape surround = params.getSubBlockValue(BOUNDING_SHAPE);
+    Integer maxLevel = params.getSubBlockValue(MAX_LEVEL, DEFAULT_MAX_LEVEL);
+    return new MultiResolutionGridSpatialIndex<>(surround, maxLevel);
+  }
+}
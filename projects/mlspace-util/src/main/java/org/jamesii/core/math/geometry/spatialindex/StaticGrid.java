@@ -50,6 +50,15 @@ public class StaticGrid implements java.io.Serializable {
 
   private final boolean toroidal;
 
+  /** first n-dim. cell index of a range (scratch array, created on demand) */
+  private transient int[] rangeFrom;
+
+  /** last n-dim. cell index of a range (scratch array) */
+  private transient int[] rangeTo;
+
+  /** current n-dim. cell index when iterating a range (scratch array) */
+  private transient int[] rangeCur;
+
   /**
    * Create grid given system boundaries
    *
@@ -151,6 +160,98 @@ public class StaticGrid implements java.io.Serializable {
     return bbOvGCIdx;
   }
 
+  /**
+   * Get indices of grid cells in range of given shape like
+   * {@link #findGridCellsInRangeIndices(IShape)} (same cells, in ascending
+   * order), but without creating any objects: the indices are written into the
+   * given array. If it is too short, only as many indices as fit are written
+   * (the return value still is the total number, so the caller can retry with a
+   * sufficiently large array).
+   *
+   * @param shape
+   *          Shape for which to find overlapped grid cells
+   * @param indices
+   *          Array to write the grid cell indices into
+   * @return Number of grid cells in range
+   */
+  public int findGridCellsInRangeIndices(IShape shape, int[] indices) {
+    if (rangeCur == null) {
+      rangeFrom = new int[dim];
+      rangeTo = new int[dim];
+      rangeCur = new int[dim];
+    }
+    for (int i = 0; i < dim; i++) {
+      setRange(shape.getMin(i + 1), shape.getMax(i + 1), i);
+      rangeCur[i] = firstInRange(i);
+    }
+    int num = 0;
+    while (true) {
+      if (num < indices.length) {
+        indices[num] = linearIndex(rangeCur);
+      }
+      num++;
+      int i = dim - 1;
+      while (i >= 0 && rangeCur[i] == lastInRange(i)) {
+        rangeCur[i] = firstInRange(i);
+        i--;
+      }
+      if (i < 0) {
+        return num;
+      }
+      rangeCur[i] =
+          rangeFrom[i] > rangeTo[i] && rangeCur[i] == rangeTo[i] ? rangeFrom[i]
+              : rangeCur[i] + 1;
+    }
+  }
+
+  /**
+   * Set {@link #rangeFrom} and {@link #rangeTo} for one dimension (from &gt; to
+   * indicates a range wrapping around periodic boundaries)
+   *
+   * @param min
+   *          Minimum coordinate of range
+   * @param max
+   *          Maximum coordinate of range
+   * @param i
+   *          Dimension (0-based)
+   */
+  private void setRange(double min, double max, int i) {
+    double rMin = (min - minGridPos[i]) / gridExt[i];
+    double rMax = (max - minGridPos[i]) / gridExt[i];
+    if (toroidal) {
+      double fMin = Math.floor(rMin);
+      double fMax = Math.floor(rMax);
+      int from = cellIndex(rMin - fMin, i);
+      int to = cellIndex(rMax - fMax, i);
+      if (fMax - fMin > 1. || fMin != fMax && from <= to) {
+        // range covers whole period
+        from = 0;
+        to = gridSize[i] - 1;
+      }
+      rangeFrom[i] = from;
+      rangeTo[i] = to;
+    } else {
+      if (rMin < -DELTA || rMax > 1. + DELTA) {
+        throw new SpatialException("range out of bounds in dimension "
+            + (i + 1) + ": " + min + " to " + max);
+      }
+      rangeFrom[i] = cellIndex(rMin, i);
+      rangeTo[i] = cellIndex(rMax, i);
+    }
+  }
+
+  private int cellIndex(double r, int i) {
+    return r >= 1. ? gridSize[i] - 1 : r < 0 ? 0 : (int) (gridSize[i] * r);
+  }
+
+  private int firstInRange(int i) {
+    return rangeFrom[i] <= rangeTo[i] ? rangeFrom[i] : 0;
+  }
+
+  private int lastInRange(int i) {
+    return rangeFrom[i] <= rangeTo[i] ? rangeTo[i] : gridSize[i] - 1;
+  }
+
   /**
    * Convert n-dimensional indices to linear index
    *
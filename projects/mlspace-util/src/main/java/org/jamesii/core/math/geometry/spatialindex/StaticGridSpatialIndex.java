@@ -10,7 +10,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -19,7 +18,6 @@ import org.jamesii.core.math.geometry.shapes.AxisAlignedBox;
 import org.jamesii.core.math.geometry.shapes.IShape;
 import org.jamesii.core.math.geometry.shapes.ShapeRelation;
 import org.jamesii.core.math.geometry.vectors.IPositionVector;
-import org.jamesii.core.util.collection.CollectionUtils;
 
 /**
  * Grid-based spatial index where each grid cell can be overlapped by multiple
@@ -27,6 +25,12 @@ import org.jamesii.core.util.collection.CollectionUtils;
  * grid is static, i.e. there is no splitting of grid cells in relation to
  * occupancy or otherwise.
  *
+ * Moving a registered component ({@link #updateCompPos(IShapedComponent)}) and
+ * querying collisions of a registered component via
+ * {@link #visitCollidingComps(IShapedComponent, ICollisionVisitor)} do not
+ * create any objects (unless the grid cells overlapped change), apart from
+ * what the shapes' relation checks may create.
+ *
  * @author Arne Bittig
  *
  * @param <C>
@@ -38,13 +42,16 @@ ISpatialIndex<C> {
   private static final long serialVersionUID = 2675698541867943434L;
 
   /** Components overlapping each grid cell (order as in #grid) */
-  private List<Collection<C>> compsInGridCell;
+  private List<List<C>> compsInGridCell;
+
+  /** Registered position and overlapped grid cells of each component */
+  private final Map<C, Registration> registrations = new LinkedHashMap<>();
 
-  private final Map<C, IPositionVector> registeredPositions =
-      new LinkedHashMap<>();
+  /** Grid cells in range of a shape (scratch array) */
+  private transient int[] cellsInRange;
 
-  private final Map<C, Collection<Integer>> overlappedGridCells =
-      new LinkedHashMap<>();
+  /** Grid cells overlapped by a shape (scratch array) */
+  private transient int[] cellsOverlapped;
 
   /** target grid cell side length for lazy initialization */
   private double targetGridCellSideLength;
@@ -109,8 +116,7 @@ ISpatialIndex<C> {
     initGrid(surroundingShape);
     this.surrounding = surroundingShape;
     this.compsInGridCell =
-        Arrays
-        .asList((Collection<C>[]) new Collection[grid.getNumOfGridCells()]);
+        Arrays.asList((List<C>[]) new List[grid.getNumOfGridCells()]);
     return true;
   }
 
@@ -148,31 +154,55 @@ ISpatialIndex<C> {
 
   @Override
   public List<C> collidingComps(C c) {
-    List<C> collComps = new ArrayList<>();
+    final List<C> collComps = new ArrayList<>();
+    visitCollidingComps(c, new ICollisionVisitor<C>() {
+      @Override
+      public boolean visit(C comp) {
+        collComps.add(comp);
+        return true;
+      }
+    });
+    return collComps;
+  }
+
+  @Override
+  public boolean visitCollidingComps(C c,
+      ICollisionVisitor<? super C> visitor) {
+    int[] cells = getOverlappedGridCells(c);
     IShape cShape = c.getShape();
-    for (Integer gci : getOverlappedGridCells(c)) {
-      for (C otherComp : compsInGridCell.get(gci)) {
+    for (int gci : cells) {
+      List<C> compsInCell = compsInGridCell.get(gci);
+      if (compsInCell == null) {
+        // cell lists are created on first registration
+        continue;
+      }
+      for (int i = 0; i < compsInCell.size(); i++) {
+        C otherComp = compsInCell.get(i);
+        // each colliding component only once, i.e. in the first common cell
         if (otherComp != c
+            && firstCommonCell(cells, registrations.get(otherComp).cells) == gci
             && cShape.getRelationTo(otherComp.getShape(), DELTA).isCollision()
-            && !collComps.contains(otherComp)) {
-          collComps.add(otherComp);
+            && !visitor.visit(otherComp)) {
+          return false;
         }
       }
     }
-    return collComps;
+    return true;
   }
 
   @Override
   public List<C> collidingComps(C c, Collection<C> otherCs) {
-    Collection<Integer> ovGCComp;
-    ovGCComp = getOverlappedGridCells(c);
+    int[] ovGCComp = getOverlappedGridCells(c);
+    if (!registrations.containsKey(c)) {
+      // scratch array would be overwritten for unregistered otherComps
+      ovGCComp = ovGCComp.clone();
+    }
     List<C> collComps = new ArrayList<>();
     IShape cShape = c.getShape();
     for (C otherComp : otherCs) {
       if (otherComp != c
-          && CollectionUtils.sortedCollectionsIntersect(ovGCComp,
-              getOverlappedGridCells(otherComp)) != null
-              && cShape.getRelationTo(otherComp.getShape(), DELTA).isCollision()) {
+          && firstCommonCell(ovGCComp, getOverlappedGridCells(otherComp)) >= 0
+          && cShape.getRelationTo(otherComp.getShape(), DELTA).isCollision()) {
         collComps.add(otherComp);
       }
     }
@@ -185,16 +215,39 @@ ISpatialIndex<C> {
    *
    * @param c
    *          Component
-   * @return Overlapped grid cells' Integer indices
+   * @return Overlapped grid cells' indices in ascending order (only valid
+   *         until the next call if c is not registered)
    */
-  private Collection<Integer> getOverlappedGridCells(C c) {
-    Collection<Integer> ovGCComp;
-    if (registeredPositions.containsKey(c)) {
-      ovGCComp = overlappedGridCells.get(c);
-    } else {
-      ovGCComp = findOverlappedGridCells(c);
+  private int[] getOverlappedGridCells(C c) {
+    Registration reg = registrations.get(c);
+    if (reg != null) {
+      return reg.cells;
     }
-    return ovGCComp;
+    int num = findOverlappedGridCells(c.getShape());
+    return num == cellsOverlapped.length ? cellsOverlapped : Arrays.copyOf(
+        cellsOverlapped, num);
+  }
+
+  /**
+   * @param cells1
+   *          Grid cell indices in ascending order
+   * @param cells2
+   *          Other grid cell indices in ascending order
+   * @return Smallest index contained in both, -1 if there is none
+   */
+  private static int firstCommonCell(int[] cells1, int[] cells2) {
+    int i1 = 0;
+    int i2 = 0;
+    while (i1 < cells1.length && i2 < cells2.length) {
+      if (cells1[i1] == cells2[i2]) {
+        return cells1[i1];
+      } else if (cells1[i1] < cells2[i2]) {
+        i1++;
+      } else {
+        i2++;
+      }
+    }
+    return -1;
   }
 
   @Override
@@ -210,9 +263,9 @@ ISpatialIndex<C> {
   @Override
   public Collection<C> notUpToDate() {
     List<C> rv = new ArrayList<>();
-    for (Map.Entry<C, IPositionVector> e : registeredPositions.entrySet()) {
+    for (Map.Entry<C, Registration> e : registrations.entrySet()) {
       IPositionVector actPos = e.getKey().getPosition();
-      IPositionVector regPos = e.getValue();
+      IPositionVector regPos = e.getValue().position;
       if (actPos.distanceSquared(regPos) > DELTA) {
         rv.add(e.getKey());
       }
@@ -222,93 +275,169 @@ ISpatialIndex<C> {
 
   @Override
   public void registerNewEntity(C c) {
-    if (registeredPositions.containsKey(c)) {
+    if (registrations.containsKey(c)) {
       throw new IllegalStateException("Component already registered: " + c);
     }
-    registerNewPosition(c);
+    Registration reg = new Registration();
+    reg.position = c.getPosition().copy();
+    int num = findOverlappedGridCells(c.getShape());
+    reg.cells = Arrays.copyOf(cellsOverlapped, num);
+    registrations.put(c, reg);
+    addToGridCells(c, reg.cells);
   }
 
   /**
-   * Update stored position as well as "comp->grid cells overlapped" map and
-   * "grid cell->comps overlapping it" maps
+   * (Re-)Calculate which grid cells a given shape overlaps (does NOT add
+   * anything to the list of components in each respective grid cell!)
+   *
+   * @param shape
+   *          Shape
+   * @return Number of overlapped grid cells, whose indices are written to
+   *         {@link #cellsOverlapped} in ascending order
+   */
+  private int findOverlappedGridCells(IShape shape) {
+    if (cellsInRange == null) {
+      cellsInRange = new int[8];
+      cellsOverlapped = new int[8];
+    }
+    int numInRange = grid.findGridCellsInRangeIndices(shape, cellsInRange);
+    if (numInRange > cellsInRange.length) {
+      cellsInRange = new int[numInRange];
+      cellsOverlapped = new int[numInRange];
+      grid.findGridCellsInRangeIndices(shape, cellsInRange);
+    }
+    int num = 0;
+    for (int k = 0; k < numInRange; k++) {
+      int gci = cellsInRange[k];
+      AxisAlignedBox gc = grid.get(gci);
+      if (shape.getRelationTo(gc, DELTA).isCollision()) {
+        cellsOverlapped[num++] = gci;
+      }
+    }
+    return num;
+  }
+
+  /**
+   * Add component to the list of components of each given grid cell
    *
    * @param c
    *          Component
+   * @param cells
+   *          Indices of grid cells
    */
-  protected void registerNewPosition(C c) {
-    registeredPositions.put(c, c.getPosition().copy());
-    List<Integer> ovGCs = findOverlappedGridCells(c);
-    overlappedGridCells.put(c, ovGCs);
-    for (Integer gci : ovGCs) {
-      compsInGridCell.get(gci).add(c);
+  private void addToGridCells(C c, int[] cells) {
+    for (int gci : cells) {
+      List<C> compsInCell = compsInGridCell.get(gci);
+      if (compsInCell == null) {
+        compsInCell = new ArrayList<>();
+        compsInGridCell.set(gci, compsInCell);
+      }
+      compsInCell.add(c);
     }
   }
 
   /**
-   * (Re-)Calculate which grid cells a given component overlaps (does NOT add
-   * parameter to list of components in each respective grid cell!)
+   * Remove component from the list of components of each given grid cell
    *
    * @param c
    *          Component
-   * @return Overlapped grid cells identified by their Integer indices
+   * @param cells
+   *          Indices of grid cells
    */
-  private List<Integer> findOverlappedGridCells(C c) {
-    Collection<Integer> gCIRIs = grid.findGridCellsInRangeIndices(c.getShape());
-    List<Integer> ovGCs = new ArrayList<>(gCIRIs.size());
-    for (Integer gci : gCIRIs) {
-      AxisAlignedBox gc = grid.get(gci);
-      ShapeRelation rel = c.getShape().getRelationTo(gc, DELTA);
-      if (rel.isCollision()) {
-        ovGCs.add(gci);
-        if (compsInGridCell.get(gci) == null) {
-          compsInGridCell.set(gci, new LinkedHashSet<C>());
-        }
-      }
+  private void removeFromGridCells(C c, int[] cells) {
+    if (cells.length == 0) {
+      throw new IllegalStateException(c + " overlaps no grid cell");
+    }
+    for (int gci : cells) {
+      compsInGridCell.get(gci).remove(c);
     }
-    return ovGCs;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * The returned previously registered position is only valid until the next
+   * update of the same component (its vector object is then reused to store
+   * the new position).
+   */
   @Override
   public IPositionVector updateCompPos(C c) {
-    IPositionVector oldPos = registeredPositions.get(c);
-    if (oldPos == null) {
+    Registration reg = registrations.get(c);
+    if (reg == null) {
       throw new IllegalArgumentException("Component not yet registered: " + c);
     }
-    if (c.getPosition().equals(oldPos)) {
+    IPositionVector oldPos = reg.position;
+    IPositionVector newPos = c.getPosition();
+    if (newPos.equals(oldPos)) {
       return oldPos;
     }
-    removeFromIndexMaps(c);
-    registerNewPosition(c);
+    removeFromGridCells(c, reg.cells);
+    int num = findOverlappedGridCells(c.getShape());
+    if (!startsWith(cellsOverlapped, reg.cells, num)) {
+      reg.cells = Arrays.copyOf(cellsOverlapped, num);
+    }
+    // re-added at the end of each cell's list as if newly registered
+    addToGridCells(c, reg.cells);
+
+    if (reg.spare == null) {
+      reg.position = newPos.copy();
+    } else {
+      reg.position = reg.spare;
+      for (int d = newPos.getDimensions(); d > 0; d--) {
+        reg.position.set(d, newPos.get(d));
+      }
+    }
+    reg.spare = oldPos;
     return oldPos;
   }
 
   /**
-   * remove given component from internal maps relating to grid cells
-   * ("comp->cells overlapped" map and and "cell->comps overlapping it" map),
-   * but not {@link #registeredPositions} map
-   *
-   * @param c
+   * @return true iff the first num elements of arr equal those of cells, which
+   *         has exactly num elements
    */
-  private void removeFromIndexMaps(C c) {
-    Collection<Integer> remove = overlappedGridCells.remove(c);
-    if (remove == null) { // DEBUG
-      throw new IllegalStateException(c + " is unknown (i.e. not registered)");
-    } else if (remove.isEmpty()) {
-      throw new IllegalStateException(c + " overlaps no grid cell");
+  private static boolean startsWith(int[] arr, int[] cells, int num) {
+    if (cells.length != num) {
+      return false;
     }
-    for (Integer gci : remove) {
-      compsInGridCell.get(gci).remove(c);
+    for (int i = 0; i < num; i++) {
+      if (arr[i] != cells[i]) {
+        return false;
+      }
     }
+    return true;
   }
 
   @Override
   public IPositionVector unregisterComp(C c) {
-    removeFromIndexMaps(c);
-    return registeredPositions.remove(c);
+    Registration reg = registrations.get(c);
+    if (reg == null) { // DEBUG
+      throw new IllegalStateException(c + " is unknown (i.e. not registered)");
+    }
+    removeFromGridCells(c, reg.cells);
+    registrations.remove(c);
+    return reg.position;
   }
 
   @Override
   public IPositionVector getRegisteredPosition(C c) {
-    return registeredPositions.get(c);
+    Registration reg = registrations.get(c);
+    return reg == null ? null : reg.position;
+  }
+
+  /**
+   * Registered position and overlapped grid cells of a component
+   */
+  private static final class Registration implements java.io.Serializable {
+
+    private static final long serialVersionUID = -6027341929561930128L;
+
+    /** Registered position (a copy) */
+    private IPositionVector position;
+
+    /** Previously registered position, reused for the next update */
+    private IPositionVector spare;
+
+    /** Overlapped grid cells' indices, in ascending order */
+    private int[] cells;
   }
 }
@@ -74,7 +74,14 @@ Periodic2DBaseVector<IPositionVector> implements IPositionVector {
 
   @Override
   public double distanceSquared(IPositionVector p2) {
-    return displacementTo(p2).lengthSquared(); // includes period corr. step
+    // same as displacementTo(p2).lengthSquared(), but without creating the
+    // displacement vector
+    IDisplacementVector period = getVecFac().getPeriod();
+    double dx =
+        Vectors.periodCorrectDisplacement(p2.get(1) - getX(), period.get(1));
+    double dy =
+        Vectors.periodCorrectDisplacement(p2.get(2) - getY(), period.get(2));
+    return dx * dx + dy * dy;
   }
 
   @Override
@@ -47,16 +47,8 @@ Periodic3DBaseVector<IPositionVector> implements IPositionVector {
   }
 
   private double periodCorrect(double val, int dim) {
-    double rv = val;
-    double min = getVecFac().getLowBoundary().get(dim);
-    double max = getVecFac().getHighBoundary().get(dim);
-    while (rv > max) {
-      rv -= max - min;
-    }
-    while (rv < min) {
-      rv += max - min;
-    }
-    return rv;
+    return Vectors.periodCorrectPosition(val, getVecFac().getLowBoundary()
+        .get(dim), getVecFac().getHighBoundary().get(dim));
   }
 
   @Override
@@ -78,7 +70,16 @@ Periodic3DBaseVector<IPositionVector> implements IPositionVector {
 
   @Override
   public double distanceSquared(IPositionVector p2) {
-    return displacementTo(p2).lengthSquared(); // includes period corr. step
+    // same as displacementTo(p2).lengthSquared(), but without creating the
+    // displacement vector
+    IDisplacementVector period = getVecFac().getPeriod();
+    double dx =
+        Vectors.periodCorrectDisplacement(p2.get(1) - getX(), period.get(1));
+    double dy =
+        Vectors.periodCorrectDisplacement(p2.get(2) - getY(), period.get(2));
+    double dz =
+        Vectors.periodCorrectDisplacement(p2.get(3) - getZ(), period.get(3));
+    return dx * dx + dy * dy + dz * dz;
   }
 
   @Override
@@ -88,6 +88,54 @@ public final class Vectors {
     return p;
   }
 
+  /**
+   * Map a coordinate into the interval [min,max] of periodic boundaries (as
+   * done for position vectors in periodic boundary conditions), without
+   * creating any objects
+   *
+   * @param val
+   *          Coordinate value
+   * @param min
+   *          Lower boundary
+   * @param max
+   *          Upper boundary
+   * @return Period-corrected coordinate value
+   */
+  public static double periodCorrectPosition(double val, double min,
+      double max) {
+    double rv = val;
+    while (rv > max) {
+      rv -= max - min;
+    }
+    while (rv < min) {
+      rv += max - min;
+    }
+    return rv;
+  }
+
+  /**
+   * Minimum image of a displacement coordinate in periodic boundaries with
+   * given period (i.e. value in [-period/2,period/2], as done for displacement
+   * vectors in periodic boundary conditions), without creating any objects
+   *
+   * @param val
+   *          Displacement coordinate value
+   * @param period
+   *          Period in the respective dimension
+   * @return Period-corrected displacement coordinate value
+   */
+  public static double periodCorrectDisplacement(double val, double period) {
+    double rv = val;
+    double lim = period / 2.;
+    while (rv > lim) {
+      rv -= period;
+    }
+    while (rv < -lim) {
+      rv += period;
+    }
+    return rv;
+  }
+
   /**
    * Polar/sperical coordinates to cartesian coordinates for 1 to 3 dimensions
    * (hyperspherical not yet supported; 1 is a trivial/degenerate case)
@@ -6,18 +6,26 @@
  */
 package org.jamesii.core.math.spatialindex;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 
+import org.jamesii.core.math.geometry.GeoUtils;
 import org.jamesii.core.math.geometry.IShapedComponent;
 import org.jamesii.core.math.geometry.shapes.AxisAlignedBox;
 import org.jamesii.core.math.geometry.shapes.IShape;
 import org.jamesii.core.math.geometry.shapes.Sphere;
+import org.jamesii.core.math.geometry.shapes.TorusSurface;
+import org.jamesii.core.math.geometry.spatialindex.ICollisionVisitor;
 import org.jamesii.core.math.geometry.spatialindex.ISpatialIndex;
+import org.jamesii.core.math.geometry.vectors.IDisplacementVector;
 import org.jamesii.core.math.geometry.vectors.IPositionVector;
 import org.jamesii.core.math.geometry.vectors.IVectorFactory;
+import org.jamesii.core.math.geometry.vectors.Periodic3DVectorFactory;
 
 /**
  * Test spatial index methods
@@ -108,6 +116,142 @@ public abstract class AbstractSpatialIndexTest extends TestCase {
     assertTrue(ws4coll.contains(ws3));
   }
 
+  /**
+   * Test that collisions are found correctly after moving a component, both by
+   * the list-returning and the visitor query
+   */
+  public void testMoveAndVisitCollisions() {
+    Sphere s1 = new Sphere(vecFac.newPositionVector(-1., -1., -1.), 1.);
+    SimpleShapedComponent ws1 = new SimpleShapedComponent(s1);
+    si.registerNewEntity(ws1);
+    SimpleShapedComponent ws2 =
+        new SimpleShapedComponent(new Sphere(vecFac.newPositionVector(5., 4.,
+            5.), 1.));
+    si.registerNewEntity(ws2);
+    SimpleShapedComponent ws3 =
+        new SimpleShapedComponent(new Sphere(vecFac.newPositionVector(6.5, 4.,
+            5.), 1.));
+    si.registerNewEntity(ws3);
+    assertTrue(si.collidingComps(ws1).isEmpty());
+    assertEquals(Arrays.asList(ws3), si.collidingComps(ws2));
+
+    IPositionVector oldPos = s1.getCenter().copy();
+    s1.move(vecFac.newDisplacementVector(6., 5., 5.5));
+    assertEquals(oldPos, si.updateCompPos(ws1));
+    assertEquals(ws1.getPosition(), si.getRegisteredPosition(ws1));
+    assertTrue(si.notUpToDate().isEmpty());
+    List<SimpleShapedComponent> ws1coll = si.collidingComps(ws1);
+    assertEquals(2, ws1coll.size());
+    assertTrue(ws1coll.contains(ws2));
+    assertTrue(ws1coll.contains(ws3));
+
+    final List<SimpleShapedComponent> visited = new ArrayList<>();
+    assertTrue(si.visitCollidingComps(ws1,
+        new ICollisionVisitor<SimpleShapedComponent>() {
+          @Override
+          public boolean visit(SimpleShapedComponent comp) {
+            visited.add(comp);
+            return true;
+          }
+        }));
+    assertEquals(ws1coll, visited);
+
+    visited.clear();
+    assertFalse(si.visitCollidingComps(ws1,
+        new ICollisionVisitor<SimpleShapedComponent>() {
+          @Override
+          public boolean visit(SimpleShapedComponent comp) {
+            visited.add(comp);
+            return false;
+          }
+        }));
+    assertEquals(1, visited.size());
+
+    s1.move(vecFac.newDisplacementVector(-6., -5., -5.5));
+    si.updateCompPos(ws1);
+    assertTrue(si.collidingComps(ws1).isEmpty());
+    assertEquals(Arrays.asList(ws3), si.collidingComps(ws2));
+  }
+
+  /**
+   * Test collision queries against pairwise checks for many components with
+   * sizes spanning two orders of magnitude that are moved around randomly
+   */
+  public void testAgainstPairwiseCheck() {
+    checkAgainstPairwise(si, vecFac, new double[] { -4., -2., -3. },
+        new double[] { 9., 7., 8. });
+  }
+
+  /**
+   * Test collision queries in periodic boundaries (including collisions across
+   * the boundaries)
+   */
+  public void testPeriodicBoundaries() {
+    IVectorFactory perVecFac =
+        new Periodic3DVectorFactory(-4., -2., -3., 9., 7., 8.);
+    ISpatialIndex<SimpleShapedComponent> perSi =
+        setUpSpatialIndex(new TorusSurface(perVecFac));
+    SimpleShapedComponent ws1 =
+        new SimpleShapedComponent(new Sphere(perVecFac.newPositionVector(8.5,
+            0., 0.), .5));
+    perSi.registerNewEntity(ws1);
+    SimpleShapedComponent ws2 =
+        new SimpleShapedComponent(new Sphere(perVecFac.newPositionVector(-3.6,
+            0., 0.), .5));
+    perSi.registerNewEntity(ws2);
+    assertEquals(Arrays.asList(ws2), perSi.collidingComps(ws1));
+    perSi.unregisterComp(ws1);
+    perSi.unregisterComp(ws2);
+
+    checkAgainstPairwise(perSi, perVecFac, new double[] { -4., -2., -3. },
+        new double[] { 9., 7., 8. });
+  }
+
+  private static void checkAgainstPairwise(
+      ISpatialIndex<SimpleShapedComponent> index, IVectorFactory vecFac,
+      double[] low, double[] high) {
+    Random rand = new Random(42);
+    List<SimpleShapedComponent> comps = new ArrayList<>();
+    while (comps.size() < 150) {
+      double radius = .02 * Math.pow(100., rand.nextDouble());
+      SimpleShapedComponent comp =
+          new SimpleShapedComponent(new Sphere(vecFac.newPositionVector(
+              uniform(rand, low[0], high[0]), uniform(rand, low[1], high[1]),
+              uniform(rand, low[2], high[2])), radius));
+      if (!index.isOutOfBounds(comp)) {
+        index.registerNewEntity(comp);
+        comps.add(comp);
+      }
+    }
+    for (int i = 0; i < 1000; i++) {
+      SimpleShapedComponent comp = comps.get(rand.nextInt(comps.size()));
+      Sphere shape = (Sphere) comp.getShape();
+      IDisplacementVector disp =
+          vecFac.newDisplacementVector(rand.nextGaussian(),
+              rand.nextGaussian(), rand.nextGaussian());
+      disp.scale(i % 10 == 0 ? 2. : .1);
+      shape.move(disp);
+      if (index.isOutOfBounds(comp)) {
+        shape.move(disp.times(-1.));
+      } else {
+        index.updateCompPos(comp);
+      }
+      assertEquals(
+          new HashSet<>(GeoUtils.checkCollisionsPairwise(comp, comps)),
+          new HashSet<>(index.collidingComps(comp)));
+      assertEquals(index.collidingComps(comp).size(),
+          new HashSet<>(index.collidingComps(comp)).size());
+    }
+    assertTrue(index.notUpToDate().isEmpty());
+    for (SimpleShapedComponent comp : comps) {
+      index.unregisterComp(comp);
+    }
+  }
+
+  private static double uniform(Random rand, double low, double high) {
+    return low + (high - low) * rand.nextDouble();
+  }
+
   /**
    * Dummy wrapper class for using {@link IShape}s (almost) directly as
    * {@link IShapedComponent} in {@link ISpatialIndex}.
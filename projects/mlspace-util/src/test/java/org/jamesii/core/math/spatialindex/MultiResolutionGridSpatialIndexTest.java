@@ -0,0 +1,30 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.core.math.spatialindex;
+
+import org.jamesii.core.math.geometry.shapes.IShape;
+import org.jamesii.core.math.geometry.spatialindex.ISpatialIndex;
+import org.jamesii.core.math.geometry.spatialindex.MultiResolutionGridSpatialIndex;
+import org.jamesii.core.math.geometry.spatialindex.MultiResolutionGridSpatialIndexFactory;
+import org.jamesii.core.math.geometry.vectors.AVectorFactory;
+
+public class MultiResolutionGridSpatialIndexTest extends AbstractSpatialIndexTest {
+
+  private static final int TEST_DIM = 3;
+
+  public MultiResolutionGridSpatialIndexTest() {
+    super(new AVectorFactory(TEST_DIM));
+  }
+
+  @Override
+  protected ISpatialIndex<SimpleShapedComponent> setUpSpatialIndex(
+      IShape surrounding) {
+    return new MultiResolutionGridSpatialIndex<>(surrounding,
+        MultiResolutionGridSpatialIndexFactory.DEFAULT_MAX_LEVEL);
+  }
+
+}
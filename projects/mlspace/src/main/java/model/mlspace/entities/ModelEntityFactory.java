@@ -116,6 +116,25 @@ public class ModelEntityFactory implements java.io.Serializable {
     this.vecFac = vecFac;
   }
 
+  /**
+   * Create a factory with the same species definitions and vector factory as
+   * this one, but its own random number generator (e.g. for entity creation in
+   * concurrently simulated parts of a model). Species definitions registered
+   * later at either factory are not shared.
+   * 
+   * @param random
+   *          Random number generator of the copy
+   * @return New model entity factory
+   */
+  public ModelEntityFactory copyWithRandom(IRandom random) {
+    ModelEntityFactory copy = new ModelEntityFactory(random, vecFac);
+    copy.perBoundsLateInit = perBoundsLateInit;
+    copy.speciesNameMap.putAll(speciesNameMap);
+    copy.speciesAttRangeMap.putAll(speciesAttRangeMap);
+    copy.specBindingsMap.putAll(specBindingsMap);
+    return copy;
+  }
+
   /**
    * @return Vector factory used for spatial entities
    */
@@ -0,0 +1,806 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.util.collection.IUpdateableMap;
+import org.jamesii.core.util.collection.UpdateableAmountMap;
+import org.jamesii.core.util.eventset.Entry;
+import org.jamesii.core.util.eventset.IEventQueue;
+
+import model.mlspace.IMLSpaceModel;
+import model.mlspace.entities.InitEntity;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.entities.spatial.SpatialEntity;
+import model.mlspace.rules.MLSpaceRule;
+import model.mlspace.rules.NSMReactionRule;
+import model.mlspace.rules.NonTransferRule;
+import model.mlspace.rules.attributemodification.IAttributeModification;
+import model.mlspace.rules.attributemodification.SpecialAttributeModification;
+import model.mlspace.rules.match.SuccessfulMatch;
+import model.mlspace.subvols.Subvol;
+import simulator.mlspace.compiled.ChannelTable;
+import simulator.mlspace.compiled.ReactionChannel;
+import simulator.mlspace.compiled.SpeciesIndex;
+import simulator.mlspace.event.NSMEvent;
+import simulator.mlspace.eventrecord.ISubvolEventRecord;
+import simulator.mlspace.eventrecord.SubvolEventRecord;
+
+/**
+ * NSM processor working on a compiled representation of the model: entities
+ * are mapped to integer ids ({@link SpeciesIndex}), subvolume states are kept
+ * as amount arrays, and rules are expanded to reaction channels per context
+ * ({@link ChannelTable}). After an event, only the propensities of the
+ * channels depending on the changed entities are recalculated instead of
+ * matching all rules against the whole state again, and only the affected
+ * subvolumes are rescheduled (best used with an indexed event queue, e.g.
+ * {@link org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue}).
+ *
+ * Simulates the same stochastic process as {@link NCMProcessor} for models
+ * without transfer, collision-triggered and context-modifying rules (see
+ * {@link #isApplicable(IMLSpaceModel)}), i.e. diffusion across compartment
+ * boundaries is blocked. Subvolume states are updated as well, so observers
+ * work as before.
+ */
+public class CompiledNSMProcessor
+    extends AbstractMLSpaceProcessor<NSMEvent, ISubvolEventRecord> {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -5306497744431658167L;
+
+  /**
+   * Number of updates of a subvolume after which its rate sums are
+   * recalculated from scratch (to avoid accumulation of rounding errors)
+   */
+  private static final int RESUM_INTERVAL = 256;
+
+  /** Subvolume list for record keeping */
+  private final Collection<Subvol> subvols;
+
+  /** Index of entities */
+  private final SpeciesIndex index = new SpeciesIndex();
+
+  /** Compiled state of each subvolume (in the order of the subvolumes) */
+  private final Map<Subvol, SubvolState> states = new LinkedHashMap<>();
+
+  /** The event queue (for {@link #runUntil(double)}) */
+  private final IEventQueue<NSMEvent, Double> eventQueue;
+
+  /** The simulation time container (for {@link #runUntil(double)}) */
+  private final Timer timer;
+
+  /**
+   * Compiled states changed since the last checkpoint, in the order of their
+   * first change (null if no checkpoint is set)
+   */
+  private transient List<SubvolState> changed = null;
+
+  /** Simulation time of the last checkpoint */
+  private double checkpointTime;
+
+  /**
+   * Constructor
+   *
+   * @param model
+   *          Mesoscopic ML-Space model to simulate (see
+   *          {@link #isApplicable(IMLSpaceModel)})
+   * @param eventQueue
+   *          Event queue to use
+   * @param random
+   *          Random number generator to use
+   */
+  public CompiledNSMProcessor(IMLSpaceModel model,
+      IEventQueue<NSMEvent, Double> eventQueue, IRandom random) {
+    this(model, model.getSubvolumes(), eventQueue, random, new Timer());
+  }
+
+  /**
+   * Constructor for processors simulating only a part of the model's
+   * subvolumes. Diffusion to other subvolumes is passed to
+   * {@link #sendToRemote(Subvol, NSMEntity)}.
+   *
+   * @param model
+   *          Mesoscopic ML-Space model to simulate
+   * @param subvols
+   *          Subvolumes to simulate
+   * @param eventQueue
+   *          Event queue to use
+   * @param random
+   *          Random number generator to use
+   * @param timer
+   *          Container of simulation time
+   */
+  protected CompiledNSMProcessor(IMLSpaceModel model,
+      Collection<Subvol> subvols, IEventQueue<NSMEvent, Double> eventQueue,
+      IRandom random, Timer timer) {
+    super(model, eventQueue, random, timer);
+    if (!isApplicable(model)) {
+      throw new IllegalArgumentException(
+          "Model contains transfer, collision-triggered or context-modifying"
+              + " rules, which are not supported by the compiled NSM.");
+    }
+    this.subvols = subvols;
+    this.eventQueue = eventQueue;
+    this.timer = timer;
+    Collection<NSMReactionRule> rules = model.getNSMReactionRules();
+
+    Map<SpatialEntity, ChannelTable> tables = new IdentityHashMap<>();
+    for (Subvol sv : subvols) {
+      ChannelTable table = tables.get(sv.getEnclosingEntity());
+      if (table == null) {
+        table = new ChannelTable(rules, sv.getEnclosingEntity(), index);
+        tables.put(sv.getEnclosingEntity(), table);
+      }
+      states.put(sv, new SubvolState(sv, table, states.size()));
+    }
+    for (SubvolState state : states.values()) {
+      state.initNeighbors(states);
+    }
+    for (SubvolState state : states.values()) {
+      for (Map.Entry<NSMEntity, Integer> e : state.sv.getState().entrySet()) {
+        state.updateAmount(index.intern(e.getKey()), e.getValue());
+      }
+    }
+    for (SubvolState state : states.values()) {
+      state.updateAllPropensities();
+      reschedule(state);
+    }
+  }
+
+  /**
+   * Check whether the compiled NSM can simulate the given model, i.e. whether
+   * it contains no transfer rules, no collision-triggered rules and no NSM
+   * reaction rules modifying their context (so that the contexts of all
+   * subvolumes are constant)
+   *
+   * @param model
+   *          Model
+   * @return true if the model can be simulated by this processor
+   */
+  public static boolean isApplicable(IMLSpaceModel model) {
+    if (!model.getTransferInRules().isEmpty()
+        || !model.getTransferOutRules().isEmpty()
+        || !model.getCollisionTriggeredRules().isEmpty()) {
+      return false;
+    }
+    for (NSMReactionRule rule : model.getNSMReactionRules()) {
+      if (!rule.getContextMod().isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public ISubvolEventRecord handleEvent(NSMEvent event) {
+    SubvolState state = ((CompiledNSMEvent) event).state;
+    state.queued = false;
+    double sumDiffR = state.getSumOfDiffusionRates();
+    if (getRand().nextDouble() * (sumDiffR + state.sumReactR) <= sumDiffR) {
+      event.setNSMType(NSMEvent.NSMEventType.NSMDIFFUSION);
+      return handleDiffusionEvent(state);
+    }
+    event.setNSMType(NSMEvent.NSMEventType.NSMREACTION);
+    return handleReactionEvent(state);
+  }
+
+  @Override
+  public void updateEventQueue(NSMEvent event, ISubvolEventRecord effect) {
+    for (Subvol sv : effect.getSubvolChanges().keySet()) {
+      SubvolState state = states.get(sv);
+      if (state != null) {
+        reschedule(state);
+      }
+    }
+  }
+
+  /**
+   * Handle all events up to the given time (without notifying observers) and
+   * set the simulation time to it afterwards
+   *
+   * @param endTime
+   *          Time up to which to simulate
+   * @return Number of events handled
+   */
+  public int runUntil(double endTime) {
+    return runUntil(endTime, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Handle events up to the given time, but at most the given number (without
+   * notifying observers), and set the simulation time to the end time if all
+   * events up to it have been handled
+   *
+   * @param endTime
+   *          Time up to which to simulate
+   * @param maxEvents
+   *          Maximum number of events to handle
+   * @return Number of events handled
+   */
+  int runUntil(double endTime, int maxEvents) {
+    int numEvents = 0;
+    while (!eventQueue.isEmpty() && eventQueue.getMin() <= endTime) {
+      if (numEvents == maxEvents) {
+        return numEvents;
+      }
+      Entry<NSMEvent, Double> entry = eventQueue.dequeue();
+      save(((CompiledNSMEvent) entry.getEvent()).state, entry.getTime());
+      timer.setTime(entry.getTime());
+      ISubvolEventRecord effect = handleEvent(entry.getEvent());
+      updateEventQueue(entry.getEvent(), effect);
+      numEvents++;
+    }
+    timer.setTime(endTime);
+    return numEvents;
+  }
+
+  /**
+   * Remember the current state of the subvolumes, their events and the
+   * simulation time, so that it can be restored by {@link #rollback()} (the
+   * state of the random number generator is not remembered); to be called
+   * between events only
+   */
+  void setCheckpoint() {
+    if (changed == null) {
+      changed = new ArrayList<>();
+    } else {
+      for (SubvolState state : changed) {
+        state.saved = null;
+      }
+      changed.clear();
+    }
+    checkpointTime = getTime();
+  }
+
+  /**
+   * Restore the state of the last checkpoint (which remains set), see
+   * {@link #setCheckpoint()}
+   */
+  void rollback() {
+    for (SubvolState state : changed) {
+      state.restore();
+    }
+    changed.clear();
+    timer.setTime(checkpointTime);
+  }
+
+  /**
+   * Save the compiled state of a subvolume before its first change since the
+   * last checkpoint (if any)
+   *
+   * @param state
+   *          Subvolume
+   */
+  private void save(SubvolState state) {
+    if (changed != null && state.saved == null) {
+      save(state, state.queued ? eventQueue.getTime(state.event) : Double.NaN);
+    }
+  }
+
+  /**
+   * Save the compiled state of a subvolume before its first change since the
+   * last checkpoint (if any)
+   *
+   * @param state
+   *          Subvolume
+   * @param eventTime
+   *          Time of the subvolume's event (NaN if there is none)
+   */
+  private void save(SubvolState state, double eventTime) {
+    if (changed != null && state.saved == null) {
+      state.saved = new SavedState(state, eventTime);
+      changed.add(state);
+    }
+  }
+
+  /**
+   * @return Time of the next event, infinity if there is none
+   */
+  double getNextEventTime() {
+    return eventQueue.isEmpty() ? Double.POSITIVE_INFINITY : eventQueue
+        .getMin();
+  }
+
+  /**
+   * Add entities diffused into one of the subvolumes simulated by this
+   * processor from elsewhere (at the current simulation time)
+   *
+   * @param sv
+   *          Target subvolume
+   * @param ent
+   *          Entity
+   * @param amount
+   *          Amount
+   */
+  void receive(Subvol sv, NSMEntity ent, int amount) {
+    SubvolState state = states.get(sv);
+    sv.updateState(ent, amount);
+    state.updateAmount(index.intern(ent), amount);
+    reschedule(state);
+  }
+
+  /**
+   * Handle the diffusion of an entity into a subvolume not simulated by this
+   * processor (the entity has already been removed from the source)
+   *
+   * @param target
+   *          Target subvolume
+   * @param ent
+   *          Entity
+   */
+  protected void sendToRemote(Subvol target, NSMEntity ent) {
+    throw new IllegalStateException("Subvolume " + target
+        + " is not simulated by this processor");
+  }
+
+  /**
+   * Create a product entity of a reaction
+   *
+   * @param pEnt
+   *          Product pattern
+   * @param variables
+   *          Variable values bound by context and reactants
+   * @return The entity
+   */
+  protected NSMEntity createProduct(InitEntity pEnt,
+      Map<String, Object> variables) {
+    return getModEntFac().createNSMEntity(pEnt, variables);
+  }
+
+  /**
+   * Execute NSM diffusion event: select entity (proportional to its diffusion
+   * rate) and target subvolume (proportional to the correction factor), and
+   * move the entity unless the target has a different context
+   *
+   * @param source
+   *          Source subvolume
+   * @return Event effect (see {@link ISubvolEventRecord})
+   */
+  private ISubvolEventRecord handleDiffusionEvent(SubvolState source) {
+    int s = source.sampleDiffusingEntity(getRand().nextDouble());
+    int n = source.sampleNeighbor(getRand().nextDouble());
+    Subvol targetSv = source.neighborSubvols[n];
+    if (source.sv.getEnclosingEntity() != targetSv.getEnclosingEntity()) {
+      // no transfer rules: compartment boundaries are impermeable
+      return new SubvolEventRecord(source.sv,
+          Collections.<NSMEntity, Integer> emptyMap(), targetSv,
+          Collections.<NSMEntity, Integer> emptyMap(),
+          Collections.<MLSpaceRule> emptyList());
+    }
+    NSMEntity ent = index.get(s);
+    source.sv.updateState(ent, -1);
+    source.updateAmount(s, -1);
+    SubvolState target = source.neighbors[n];
+    if (target == null) {
+      sendToRemote(targetSv, ent);
+    } else {
+      targetSv.updateState(ent, 1);
+      target.updateAmount(s, 1);
+    }
+    return new SubvolEventRecord(source.sv,
+        Collections.<NSMEntity, Integer> singletonMap(ent, -1), targetSv);
+  }
+
+  /**
+   * Execute NSM reaction event: select channel (proportional to its
+   * propensity) and apply it as {@link NSMProcessor} does
+   *
+   * @param state
+   *          Subvolume
+   * @return Event effect (see {@link ISubvolEventRecord})
+   */
+  private ISubvolEventRecord handleReactionEvent(SubvolState state) {
+    ReactionChannel channel =
+        state.table.getChannel(state.sampleChannel(getRand().nextDouble()));
+    IUpdateableMap<NSMEntity, Integer> updVec = getChange(channel);
+    for (Map.Entry<NSMEntity, Integer> e : updVec.entrySet()) {
+      changeAmount(state, e.getKey(), e.getValue());
+    }
+    return new SubvolEventRecord(state.sv, updVec, channel.getRule());
+  }
+
+  /**
+   * Determine the change of the state caused by one firing of a channel, i.e.
+   * the consumed and modified reactants and the (newly created) products
+   *
+   * @param channel
+   *          Reaction channel
+   * @return Net change by entity
+   */
+  IUpdateableMap<NSMEntity, Integer> getChange(ReactionChannel channel) {
+    NonTransferRule rule = channel.getRule();
+    Map<String, Object> variables = channel.getEnv();
+    IUpdateableMap<NSMEntity, Integer> updVec = new UpdateableAmountMap<>(
+        channel.getOrder(), Integer.MIN_VALUE, Integer.MAX_VALUE);
+
+    for (int i = 0; i < channel.getOrder(); i++) {
+      NSMEntity selected = index.get(channel.getReactant(i));
+      List<IAttributeModification> mods = rule.getEntityMod(i);
+      if (SpecialAttributeModification.CONSUMED.equals(mods)) {
+        updVec.update(selected, -1);
+      } else if (!mods.isEmpty()) {
+        NSMEntity modEntNew = new NSMEntity(selected);
+        SuccessfulMatch.applyAttMods(modEntNew, mods, variables);
+        updVec.update(modEntNew, 1);
+        updVec.update(selected, -1);
+      }
+    }
+    for (InitEntity pEnt : rule.getProduced()) {
+      updVec.update(createProduct(pEnt, variables), 1);
+    }
+    return updVec;
+  }
+
+  /**
+   * Change the amount of an entity in a subvolume (and its compiled state)
+   *
+   * @param state
+   *          Subvolume
+   * @param ent
+   *          Entity
+   * @param amount
+   *          Amount to add (negative to remove)
+   */
+  void changeAmount(SubvolState state, NSMEntity ent, int amount) {
+    state.sv.updateState(ent, amount);
+    state.updateAmount(index.intern(ent), amount);
+  }
+
+  /**
+   * (Re)schedule the event of a subvolume according to its current rates, or
+   * remove it from the event queue if nothing can happen there anymore
+   *
+   * @param state
+   *          Subvolume
+   */
+  void reschedule(SubvolState state) {
+    save(state);
+    if (++state.numUpdates % RESUM_INTERVAL == 0) {
+      state.resum();
+    }
+    double sumRates = state.getSumOfDiffusionRates() + state.sumReactR;
+    if (sumRates <= 0.) {
+      if (state.queued) {
+        dequeueEvent(state.event);
+        state.queued = false;
+      }
+      return;
+    }
+    double time = getTime() + getExpDistTimeToNextEvent(sumRates);
+    if (state.queued) {
+      requeueEvent(state.event, time);
+    } else {
+      enqueueEvent(state.event, time);
+      state.queued = true;
+    }
+  }
+
+  @Override
+  public Collection<Subvol> getSubvols() {
+    return subvols;
+  }
+
+  /**
+   * @param sv
+   *          Subvolume
+   * @return Sum of diffusion and reaction rates of the subvolume
+   */
+  double getSumOfRates(Subvol sv) {
+    SubvolState state = states.get(sv);
+    return state.getSumOfDiffusionRates() + state.sumReactR;
+  }
+
+  /**
+   * @return Compiled states of the subvolumes, in the order of the subvolumes
+   */
+  Collection<SubvolState> getStates() {
+    return states.values();
+  }
+
+  /**
+   * @return Index of the entities occurred so far
+   */
+  public SpeciesIndex getSpeciesIndex() {
+    return index;
+  }
+
+  /**
+   * Compiled state of a subvolume at a checkpoint
+   */
+  private static final class SavedState {
+
+    private final int[] amounts;
+
+    private final double[] propensities;
+
+    private final double sumReactR;
+
+    private final double sumDX;
+
+    private final int numActiveChannels;
+
+    private final int numDiffusing;
+
+    private final int numUpdates;
+
+    /** Time of the subvolume's event, NaN if there was none */
+    private final double eventTime;
+
+    SavedState(SubvolState state, double eventTime) {
+      amounts = state.amounts.clone();
+      propensities = state.propensities.clone();
+      sumReactR = state.sumReactR;
+      sumDX = state.sumDX;
+      numActiveChannels = state.numActiveChannels;
+      numDiffusing = state.numDiffusing;
+      numUpdates = state.numUpdates;
+      this.eventTime = eventTime;
+    }
+  }
+
+  /**
+   * Event of a subvolume (same instance throughout the simulation)
+   */
+  private static final class CompiledNSMEvent extends NSMEvent {
+
+    private final SubvolState state;
+
+    CompiledNSMEvent(SubvolState state) {
+      super(state.sv);
+      this.state = state;
+    }
+  }
+
+  /**
+   * Compiled state of a subvolume: entity amounts, channel propensities and
+   * their sums, and neighbors for diffusion (to be modified only through the
+   * methods of the processor)
+   */
+  final class SubvolState implements Serializable {
+
+    private static final long serialVersionUID = -7281306052815542447L;
+
+    final Subvol sv;
+
+    /** Position in the order of the subvolumes */
+    final int id;
+
+    private final double volume;
+
+    final ChannelTable table;
+
+    private final CompiledNSMEvent event;
+
+    /** Amount by entity id (ids beyond the length have amount zero) */
+    int[] amounts = new int[16];
+
+    /** Propensity by channel id (ids beyond the length have propensity zero) */
+    double[] propensities = new double[16];
+
+    /** Sum of propensities */
+    private double sumReactR = 0.;
+
+    /** Sum of diffusion constant times amount over all entities */
+    private double sumDX = 0.;
+
+    /**
+     * Number of channels with non-zero propensity (to reset the sum to exactly
+     * zero when there are none)
+     */
+    private int numActiveChannels = 0;
+
+    /**
+     * Number of diffusing entities (to reset the sum to exactly zero when there
+     * are none)
+     */
+    private int numDiffusing = 0;
+
+    /** Neighbors (null for those not simulated by this processor) */
+    SubvolState[] neighbors;
+
+    Subvol[] neighborSubvols;
+
+    /** Cumulative correction factors of the neighbors */
+    double[] cumNeighCorrFac;
+
+    private boolean queued = false;
+
+    private int numUpdates = 0;
+
+    /** State at the last checkpoint, null if unchanged since then */
+    private transient SavedState saved = null;
+
+    SubvolState(Subvol sv, ChannelTable table, int id) {
+      this.sv = sv;
+      this.id = id;
+      this.volume = sv.getVolume();
+      this.table = table;
+      this.event = new CompiledNSMEvent(this);
+    }
+
+    void initNeighbors(Map<Subvol, SubvolState> allStates) {
+      Map<Subvol, Double> neighMap = sv.getNeighborhoodMap();
+      neighbors = new SubvolState[neighMap.size()];
+      neighborSubvols = new Subvol[neighMap.size()];
+      cumNeighCorrFac = new double[neighMap.size()];
+      int i = 0;
+      double sum = 0.;
+      for (Map.Entry<Subvol, Double> e : neighMap.entrySet()) {
+        neighbors[i] = allStates.get(e.getKey());
+        neighborSubvols[i] = e.getKey();
+        sum += e.getValue();
+        cumNeighCorrFac[i++] = sum;
+      }
+    }
+
+    double getSumOfDiffusionRates() {
+      return neighbors.length == 0 ? 0. : sumDX
+          * cumNeighCorrFac[neighbors.length - 1];
+    }
+
+    /**
+     * Change the amount of an entity and update the propensities of the
+     * dependent channels
+     */
+    void updateAmount(int s, int delta) {
+      save(this);
+      if (s >= amounts.length) {
+        amounts = Arrays.copyOf(amounts, Math.max(2 * amounts.length, s + 1));
+      }
+      amounts[s] += delta;
+      double diffConst = index.getDiffusionConstant(s);
+      if (diffConst > 0.) {
+        numDiffusing += delta;
+        sumDX = numDiffusing == 0 ? 0. : sumDX + delta * diffConst;
+      }
+      table.compileUpTo(s + 1);
+      if (table.size() > propensities.length) {
+        propensities =
+            Arrays.copyOf(propensities,
+                Math.max(2 * propensities.length, table.size()));
+      }
+      for (int c : table.getDependents(s)) {
+        double p = table.getChannel(c).getPropensity(amounts, volume);
+        if (propensities[c] > 0.) {
+          numActiveChannels--;
+        }
+        if (p > 0.) {
+          numActiveChannels++;
+        }
+        sumReactR += p - propensities[c];
+        propensities[c] = p;
+      }
+      if (numActiveChannels == 0) {
+        sumReactR = 0.;
+      }
+    }
+
+    void updateAllPropensities() {
+      if (table.size() > propensities.length) {
+        propensities = Arrays.copyOf(propensities, table.size());
+      }
+      for (int c = 0; c < table.size(); c++) {
+        propensities[c] = table.getChannel(c).getPropensity(amounts, volume);
+      }
+      resum();
+    }
+
+    /**
+     * Restore the state saved at the last checkpoint, including the event and
+     * the entities of the subvolume
+     */
+    void restore() {
+      amounts = saved.amounts;
+      propensities = saved.propensities;
+      sumReactR = saved.sumReactR;
+      sumDX = saved.sumDX;
+      numActiveChannels = saved.numActiveChannels;
+      numDiffusing = saved.numDiffusing;
+      numUpdates = saved.numUpdates;
+      if (!Double.isNaN(saved.eventTime)) {
+        if (queued) {
+          requeueEvent(event, saved.eventTime);
+        } else {
+          enqueueEvent(event, saved.eventTime);
+          queued = true;
+        }
+      } else if (queued) {
+        dequeueEvent(event);
+        queued = false;
+      }
+      saved = null;
+      sv.clearState();
+      for (int s = 0; s < amounts.length && s < index.size(); s++) {
+        if (amounts[s] != 0) {
+          sv.updateState(index.get(s), amounts[s]);
+        }
+      }
+    }
+
+    /** Recalculate rate sums from scratch */
+    void resum() {
+      double sum = 0.;
+      numActiveChannels = 0;
+      int numChannels = Math.min(table.size(), propensities.length);
+      for (int c = 0; c < numChannels; c++) {
+        if (propensities[c] > 0.) {
+          sum += propensities[c];
+          numActiveChannels++;
+        }
+      }
+      sumReactR = sum;
+      sum = 0.;
+      numDiffusing = 0;
+      for (int s = 0; s < amounts.length && s < index.size(); s++) {
+        double diffConst = index.getDiffusionConstant(s);
+        if (diffConst > 0.) {
+          sum += amounts[s] * diffConst;
+          numDiffusing += amounts[s];
+        }
+      }
+      sumDX = sum;
+    }
+
+    int sampleChannel(double rand) {
+      int numChannels = Math.min(table.size(), propensities.length);
+      double threshold = rand * sumReactR;
+      int last = -1;
+      for (int c = 0; c < numChannels; c++) {
+        if (propensities[c] > 0.) {
+          last = c;
+          threshold -= propensities[c];
+          if (threshold < 0.) {
+            return c;
+          }
+        }
+      }
+      return last; // rounding errors
+    }
+
+    int sampleDiffusingEntity(double rand) {
+      double threshold = rand * sumDX;
+      int last = -1;
+      for (int s = 0; s < amounts.length && s < index.size(); s++) {
+        double r = amounts[s] * index.getDiffusionConstant(s);
+        if (r > 0.) {
+          last = s;
+          threshold -= r;
+          if (threshold < 0.) {
+            return s;
+          }
+        }
+      }
+      return last; // rounding errors
+    }
+
+    int sampleNeighbor(double rand) {
+      double threshold = rand * cumNeighCorrFac[neighbors.length - 1];
+      for (int i = 0; i < neighbors.length - 1; i++) {
+        if (threshold < cumNeighCorrFac[i]) {
+          return i;
+        }
+      }
+      return neighbors.length - 1;
+    }
+
+    @Override
+    public String toString() {
+      return sv.toString();
+    }
+  }
+
+}
@@ -22,6 +22,7 @@ import org.jamesii.core.math.geometry.GeoUtils;
 import org.jamesii.core.math.geometry.IShapedComponent;
 import org.jamesii.core.math.geometry.shapes.IShape;
 import org.jamesii.core.math.geometry.shapes.ShapeRelation;
+import org.jamesii.core.math.geometry.spatialindex.ICollisionVisitor;
 import org.jamesii.core.math.geometry.spatialindex.ISpatialIndex;
 import org.jamesii.core.math.geometry.vectors.IDisplacementVector;
 import org.jamesii.core.math.geometry.vectors.IVectorFactory;
@@ -113,6 +114,9 @@ public class ContinuousSpaceProcessor extends AbstractContinuousSpaceProcessor {
 
   private int recDepth;
 
+  /** Collision query without result list (created on first use) */
+  private transient CollisionProbe collisionProbe;
+
   /**
    * Continuous Space Simulator (full constructor)
    * 
@@ -871,6 +875,14 @@ public class ContinuousSpaceProcessor extends AbstractContinuousSpaceProcessor {
   }
 
   private List<SpatialEntity> getCollidingComps(SpatialEntity comp) {
+    if (collisionProbe == null) {
+      collisionProbe = new CollisionProbe();
+    }
+    collisionProbe.comp = comp;
+    if (spatialIndex.visitCollidingComps(comp, collisionProbe)) {
+      // common case: nothing but enclosing comps, i.e. nothing to filter
+      return Collections.emptyList();
+    }
     List<SpatialEntity> collComps;
     collComps = spatialIndex.collidingComps(comp);
     GeoUtils.removeEnclosingComps(comp, collComps);
@@ -1311,4 +1323,27 @@ public class ContinuousSpaceProcessor extends AbstractContinuousSpaceProcessor {
   public IHierarchy<SpatialEntity> getSpatialEntities() {
     return compTree;
   }
+
+  /**
+   * Collision visitor stopping at the first colliding component that does not
+   * enclose the query component
+   */
+  private static final class CollisionProbe implements
+      ICollisionVisitor<SpatialEntity> {
+
+    /** The query component */
+    private SpatialEntity comp;
+
+    @Override
+    public boolean visit(SpatialEntity other) {
+      IShapedComponent encComp = comp.getEnclosingEntity();
+      while (encComp != null) {
+        if (encComp.equals(other)) {
+          return true;
+        }
+        encComp = encComp.getEnclosingEntity();
+      }
+      return false;
+    }
+  }
 }
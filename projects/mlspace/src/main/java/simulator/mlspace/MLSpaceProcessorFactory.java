@@ -35,6 +35,7 @@ import org.jamesii.core.util.eventset.IEventQueue;
 import org.jamesii.core.util.eventset.calendar.CalendarReQueueFactory;
 import org.jamesii.core.util.eventset.plugintype.AbstractEventQueueFactory;
 import org.jamesii.core.util.eventset.plugintype.EventQueueFactory;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueueFactory;
 import org.jamesii.core.util.logging.ApplicationLogger;
 import org.jamesii.core.util.misc.ParameterUtils;
 
@@ -101,6 +102,52 @@ public class MLSpaceProcessorFactory extends JamesProcessorFactory {
    */
   public static final String FORCE_HYBRID = "ForceHybrid";
 
+  /**
+   * Parameter setting ID for flag for using the {@link CompiledNSMProcessor}
+   * for subvolume-only models (only applied if the model contains no transfer,
+   * collision-triggered or context-modifying rules)
+   */
+  public static final String COMPILED_NSM = "CompiledNSM";
+
+  /**
+   * Parameter setting ID for the number of spatial domains to simulate
+   * concurrently by the {@link ParallelNSMProcessor} (only applied to
+   * subvolume-only models to which the compiled NSM is applicable; values
+   * below 2 select the sequential processors)
+   */
+  public static final String PARALLEL_DOMAINS = "ParallelDomains";
+
+  /**
+   * Parameter setting ID for the number of threads used by the
+   * {@link ParallelNSMProcessor} (default: number of domains, at most the
+   * number of available processors)
+   */
+  public static final String PARALLEL_THREADS = "ParallelThreads";
+
+  /**
+   * Parameter setting ID for the maximal synchronisation window length of the
+   * {@link ParallelNSMProcessor} (default: see there). The window does not
+   * influence the results, as windows end at the first diffusion into another
+   * domain, but the efficiency: the domains are rolled back to the window
+   * start and simulated up to this diffusion again, so the window should not
+   * be much longer than the mean time between two cross-domain diffusion
+   * events
+   */
+  public static final String PARALLEL_WINDOW = "ParallelWindow";
+
+  /**
+   * Parameter setting ID for flag for using the approximate
+   * {@link TauLeapingNSMProcessor} for subvolume-only models (only applied if
+   * the compiled NSM is applicable, see {@link #COMPILED_NSM})
+   */
+  public static final String TAU_LEAPING = "TauLeaping";
+
+  /**
+   * Parameter setting ID for the error control parameter of the
+   * {@link TauLeapingNSMProcessor} (default: see there)
+   */
+  public static final String TAU_LEAPING_EPSILON = "TauLeapingEpsilon";
+
   public static final String RNG_GENERATOR = "RNGGenerator";
 
   @Override
@@ -167,14 +214,56 @@ public class MLSpaceProcessorFactory extends JamesProcessorFactory {
         params.<Double> getSubBlockValue(MIN_SV_SIDE_LENGTH),
         params.<Double> getSubBlockValue(MAX_SV_SIDE_LENGTH));
     // subvolume-only model (fixed parent compartments possible)
-    processor = usePDEApprox
-        ? new StepwiseDeterministicDiffusionProcessor(mlsModel)
-        : new NCMProcessor(mlsModel,
-            MLSpaceProcessorFactory.<NSMEvent> getOrCreateEventQueue(params),
-            random);
+    int numDomains =
+        ParameterBlocks.getSubBlockValueOrDefault(params, PARALLEL_DOMAINS, 1);
+    if (usePDEApprox) {
+      processor = new StepwiseDeterministicDiffusionProcessor(mlsModel);
+    } else if (numDomains > 1 && isCompiledNSMApplicable(mlsModel)) {
+      int numThreads = ParameterBlocks.getSubBlockValueOrDefault(params,
+          PARALLEL_THREADS,
+          Math.min(numDomains, Runtime.getRuntime().availableProcessors()));
+      processor = new ParallelNSMProcessor(mlsModel, random, numDomains,
+          numThreads, params.<Double> getSubBlockValue(PARALLEL_WINDOW));
+    } else if (useTauLeaping(params, mlsModel)) {
+      processor = new TauLeapingNSMProcessor(mlsModel,
+          MLSpaceProcessorFactory.<NSMEvent> getOrCreateEventQueue(params,
+              IndexedHeapEventQueueFactory.class),
+          random, params.<Double> getSubBlockValue(TAU_LEAPING_EPSILON));
+    } else if (useCompiledNSM(params, mlsModel)) {
+      processor = new CompiledNSMProcessor(mlsModel,
+          MLSpaceProcessorFactory.<NSMEvent> getOrCreateEventQueue(params,
+              IndexedHeapEventQueueFactory.class),
+          random);
+    } else {
+      processor = new NCMProcessor(mlsModel,
+          MLSpaceProcessorFactory.<NSMEvent> getOrCreateEventQueue(params),
+          random);
+    }
     return processor;
   }
 
+  private static boolean useCompiledNSM(ParameterBlock params,
+      MLSpaceModel mlsModel) {
+    return ParameterBlocks.getSubBlockValueOrDefault(params, COMPILED_NSM,
+        false) && isCompiledNSMApplicable(mlsModel);
+  }
+
+  private static boolean useTauLeaping(ParameterBlock params,
+      MLSpaceModel mlsModel) {
+    return ParameterBlocks.getSubBlockValueOrDefault(params, TAU_LEAPING,
+        false) && isCompiledNSMApplicable(mlsModel);
+  }
+
+  private static boolean isCompiledNSMApplicable(MLSpaceModel mlsModel) {
+    if (!CompiledNSMProcessor.isApplicable(mlsModel)) {
+      ApplicationLogger.log(Level.WARNING, "Compiled NSM not applicable to "
+          + mlsModel + " (transfer, collision-triggered or context-modifying"
+          + " rules present). Using NCM processor instead.");
+      return false;
+    }
+    return true;
+  }
+
   private AbstractMLSpaceProcessor<?, ?> createHybridProcessor(
       ParameterBlock params, MLSpaceModel mlsModel, final IRandom random,
       final boolean usePDEApprox,
@@ -195,8 +284,14 @@ public class MLSpaceProcessorFactory extends JamesProcessorFactory {
 
   private static <E extends IMLSpaceEvent<?>> IEventQueue<E, Double> getOrCreateEventQueue(
       ParameterBlock params) {
+    return getOrCreateEventQueue(params, CalendarReQueueFactory.class);
+  }
+
+  private static <E extends IMLSpaceEvent<?>> IEventQueue<E, Double> getOrCreateEventQueue(
+      ParameterBlock params,
+      Class<? extends EventQueueFactory> defaultFactory) {
     ParameterBlock eqfp = ParameterUtils.getFactorySubBlock(params,
-        EventQueueFactory.class, CalendarReQueueFactory.class);
+        EventQueueFactory.class, defaultFactory);
     EventQueueFactory eqf = SimSystem.getRegistry()
         .getFactory(AbstractEventQueueFactory.class, eqfp);
     final IEventQueue<E, Double> eventQueue = eqf.<E> createDirect(eqfp);
@@ -0,0 +1,488 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+
+import org.jamesii.core.math.geometry.vectors.IPositionVector;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue;
+
+import model.mlspace.IMLSpaceModel;
+import model.mlspace.entities.InitEntity;
+import model.mlspace.entities.ModelEntityFactory;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.subvols.Subvol;
+import simulator.mlspace.event.NSMEvent;
+import simulator.mlspace.eventrecord.ISubvolEventRecord;
+import simulator.mlspace.util.MLSpaceLogger.DebugLevel;
+
+/**
+ * Multi-threaded NSM processor using spatial decomposition: the subvolumes are
+ * partitioned into slabs along the axis of their largest extent, each of which
+ * (domain) is simulated by a {@link CompiledNSMProcessor} with its own event
+ * queue and random number stream (streams of one {@link MRG32k3a} seed, so
+ * that results are reproducible independently of the thread scheduling). The
+ * attribute values of reaction products are drawn from the domain's stream,
+ * too, by a copy of the model's {@link ModelEntityFactory}.
+ *
+ * The domains are advanced concurrently and optimistically in synchronisation
+ * windows of at most the given length: each domain is simulated until the end
+ * of the window or its first diffusion into a subvolume of another domain,
+ * whichever comes first. If any domain diffused into another one, all domains
+ * are rolled back to the start of the window (subvolume states, events and
+ * the random number stream, which starts a new substream in each window) and
+ * simulated again up to the earliest of these diffusion events, at whose time
+ * the entity is added to its target and the next window starts. Hence all
+ * events are handled at their own time, and the trajectories are
+ * statistically equivalent to the sequential ones; the window length (see
+ * {@link MLSpaceProcessorFactory#PARALLEL_WINDOW}) only bounds the work
+ * simulated speculatively. The default window is the mean time between two
+ * events of the busiest subvolume at the start of the simulation. The
+ * speed-up depends on the number of events between two cross-domain
+ * diffusion events, i.e. it is best for few large domains.
+ *
+ * Observers are notified once per window (the next event time given is the
+ * earliest event time of all domains), hence effect observers are not
+ * supported.
+ */
+public class ParallelNSMProcessor
+    extends AbstractMLSpaceProcessor<NSMEvent, ISubvolEventRecord> {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -1931520776154718212L;
+
+  /** The domains */
+  private final Domain[] domains;
+
+  /** Domain of each subvolume */
+  private final Map<Subvol, Domain> owners = new IdentityHashMap<>();
+
+  /** Length of a synchronisation window */
+  private final double window;
+
+  /** Number of threads to use */
+  private final int numThreads;
+
+  /** Simulation time container */
+  private final Timer timer;
+
+  /** Notification hint (time of the next event) */
+  private final TimeAndHintContainer<ISubvolEventRecord> nextTimeHint =
+      new TimeAndHintContainer<>();
+
+  /** Number of events handled so far */
+  private long numEvents = 0;
+
+  /** Number of windows processed so far */
+  private long numWindows = 0;
+
+  /** Number of windows ended early by cross-domain diffusion */
+  private long numRollbacks = 0;
+
+  /** Executor for the domains, created on first use */
+  private transient ExecutorService executor;
+
+  /**
+   * Constructor
+   *
+   * @param model
+   *          Mesoscopic ML-Space model to simulate (see
+   *          {@link CompiledNSMProcessor#isApplicable(IMLSpaceModel)})
+   * @param random
+   *          Random number generator, used to draw the seed of the domains'
+   *          random number streams
+   * @param numDomains
+   *          Number of domains (at most the number of subvolumes are used)
+   * @param numThreads
+   *          Number of threads to use
+   * @param window
+   *          Length of a synchronisation window (null: default, see class
+   *          documentation)
+   */
+  public ParallelNSMProcessor(IMLSpaceModel model, IRandom random,
+      int numDomains, int numThreads, Double window) {
+    this(model, random, numDomains, numThreads, window, new Timer());
+  }
+
+  private ParallelNSMProcessor(IMLSpaceModel model, IRandom random,
+      int numDomains, int numThreads, Double window, Timer timer) {
+    super(model, null, random, timer);
+    if (numDomains < 1 || numThreads < 1) {
+      throw new IllegalArgumentException(
+          "At least one domain and thread needed");
+    }
+    this.timer = timer;
+    this.numThreads = numThreads;
+    long seed = random.nextLong();
+    List<List<Subvol>> partition =
+        partition(model.getSubvolumes(), numDomains);
+    domains = new Domain[partition.size()];
+    for (int i = 0; i < domains.length; i++) {
+      domains[i] =
+          new Domain(model, partition.get(i), new MRG32k3a(seed, i));
+      for (Subvol sv : partition.get(i)) {
+        owners.put(sv, domains[i]);
+      }
+    }
+    this.window = window != null ? window : getDefaultWindow();
+    if (!(this.window > 0.)) {
+      throw new IllegalArgumentException("Window length must be positive, not "
+          + this.window);
+    }
+  }
+
+  /**
+   * Partition subvolumes into slabs of (almost) equal size along the axis in
+   * which their positions differ most
+   *
+   * @param subvols
+   *          Subvolumes
+   * @param numDomains
+   *          Number of slabs
+   * @return Non-empty slabs (at most numDomains)
+   */
+  static List<List<Subvol>> partition(Collection<Subvol> subvols,
+      int numDomains) {
+    List<Subvol> sorted = new ArrayList<>(subvols);
+    if (!sorted.isEmpty()) {
+      final int axis = getAxisOfLargestExtent(sorted);
+      // stable sort, i.e. ties keep the order of the model
+      Collections.sort(sorted, new Comparator<Subvol>() {
+        @Override
+        public int compare(Subvol sv1, Subvol sv2) {
+          return Double.compare(sv1.getPosition().get(axis), sv2.getPosition()
+              .get(axis));
+        }
+      });
+    }
+    int num = Math.max(1, Math.min(numDomains, sorted.size()));
+    List<List<Subvol>> rv = new ArrayList<>(num);
+    for (int i = 0; i < num; i++) {
+      rv.add(new ArrayList<>(sorted.subList(i * sorted.size() / num, (i + 1)
+          * sorted.size() / num)));
+    }
+    return rv;
+  }
+
+  /**
+   * @param subvols
+   *          Subvolumes (not empty)
+   * @return Dimension (1-based, see
+   *         {@link org.jamesii.core.math.geometry.vectors.IVector#get(int)})
+   *         in which the positions of the subvolumes differ most
+   */
+  private static int getAxisOfLargestExtent(List<Subvol> subvols) {
+    int dim = subvols.get(0).getPosition().getDimensions();
+    double[] min = new double[dim + 1];
+    double[] max = new double[dim + 1];
+    Arrays.fill(min, Double.POSITIVE_INFINITY);
+    Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    for (Subvol sv : subvols) {
+      IPositionVector pos = sv.getPosition();
+      for (int d = 1; d <= dim; d++) {
+        min[d] = Math.min(min[d], pos.get(d));
+        max[d] = Math.max(max[d], pos.get(d));
+      }
+    }
+    int axis = 1;
+    for (int d = 2; d <= dim; d++) {
+      if (max[d] - min[d] > max[axis] - min[axis]) {
+        axis = d;
+      }
+    }
+    return axis;
+  }
+
+  /**
+   * @return Mean time between two events of the subvolume with the highest
+   *         rate sum (1 if nothing can happen)
+   */
+  private double getDefaultWindow() {
+    double maxRate = 0.;
+    for (Domain domain : domains) {
+      for (Subvol sv : domain.getSubvols()) {
+        maxRate = Math.max(maxRate, domain.getSumOfRates(sv));
+      }
+    }
+    return maxRate > 0. ? 1. / maxRate : 1.;
+  }
+
+  @Override
+  protected void nextStep() {
+    double nextTime = Double.POSITIVE_INFINITY;
+    for (Domain domain : domains) {
+      nextTime = Math.min(nextTime, domain.getNextEventTime());
+    }
+    if (numWindows++ == 0) {
+      getLogger().checkAndLog(
+          DebugLevel.BASIC_START_AND_END_INFO,
+          Level.INFO,
+          "Simulation started with " + domains.length + " domains, "
+              + numThreads + " threads and window " + window + ".\nModel: "
+              + getModel());
+    }
+    nextTimeHint.setTime(nextTime);
+    changed(nextTimeHint);
+    nextTimeHint.setTime(null);
+
+    if (Double.isInfinite(nextTime)) {
+      // no messages are pending between windows
+      getLogger().checkAndLog(DebugLevel.BASIC_START_AND_END_INFO, Level.INFO,
+          "Simulation ended at infinite time (which probably means"
+              + " there were no more events to process)");
+      timer.setTime(nextTime);
+      stop();
+      return;
+    }
+
+    // skip empty windows
+    double start = Math.max(getTime(),
+        getTime() + Math.floor((nextTime - getTime()) / window) * window);
+    double endTime = start + window;
+    int[] windowEvents = runDomains(endTime, false);
+
+    double crossingTime = Double.POSITIVE_INFINITY;
+    for (Domain domain : domains) {
+      if (!domain.outbox.isEmpty()) {
+        crossingTime = Math.min(crossingTime, domain.getTime());
+      }
+    }
+    if (crossingTime < endTime) {
+      // repeat the window up to the first cross-domain diffusion
+      numRollbacks++;
+      for (Domain domain : domains) {
+        domain.repeat = domain.outbox.isEmpty()
+            || domain.getTime() > crossingTime;
+      }
+      int[] repeatedEvents = runDomains(crossingTime, true);
+      for (int i = 0; i < domains.length; i++) {
+        if (domains[i].repeat) {
+          windowEvents[i] = repeatedEvents[i];
+        }
+      }
+      endTime = crossingTime;
+    }
+    for (int n : windowEvents) {
+      numEvents += n;
+    }
+    timer.setTime(endTime);
+
+    for (Domain domain : domains) {
+      for (Map.Entry<Subvol, NSMEntity> msg : domain.outbox) {
+        owners.get(msg.getKey()).receive(msg.getKey(), msg.getValue(), 1);
+      }
+      domain.outbox.clear();
+    }
+  }
+
+  /**
+   * Advance the domains (concurrently) in the current window: either from
+   * the start of the window up to the given time or the first cross-domain
+   * diffusion, or, when repeating the window, roll back those domains marked
+   * for repetition and advance them to the given time
+   *
+   * @param endTime
+   *          Time up to which to simulate
+   * @param repeat
+   *          Whether to repeat the window
+   * @return Number of events handled, by domain
+   */
+  private int[] runDomains(final double endTime, final boolean repeat) {
+    int[] rv = new int[domains.length];
+    if (domains.length == 1 || numThreads == 1) {
+      for (int i = 0; i < domains.length; i++) {
+        rv[i] = domains[i].runWindow(endTime, repeat);
+      }
+      return rv;
+    }
+    List<Callable<Integer>> tasks = new ArrayList<>(domains.length);
+    for (final Domain domain : domains) {
+      tasks.add(new Callable<Integer>() {
+        @Override
+        public Integer call() {
+          return domain.runWindow(endTime, repeat);
+        }
+      });
+    }
+    try {
+      List<Future<Integer>> results = getExecutor().invokeAll(tasks);
+      for (int i = 0; i < domains.length; i++) {
+        rv[i] = results.get(i).get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while executing a window.",
+          e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A domain failed.", e.getCause());
+    }
+    return rv;
+  }
+
+  /**
+   * Get the executor, create it if needed.
+   *
+   * @return the executor
+   */
+  private ExecutorService getExecutor() {
+    if (executor == null) {
+      executor =
+          Executors.newFixedThreadPool(Math.min(numThreads, domains.length));
+    }
+    return executor;
+  }
+
+  @Override
+  public void cleanUp() {
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+    super.cleanUp();
+  }
+
+  @Override
+  public ISubvolEventRecord handleEvent(NSMEvent event) {
+    throw new UnsupportedOperationException(
+        "Events are handled by the domains");
+  }
+
+  @Override
+  public void updateEventQueue(NSMEvent event, ISubvolEventRecord effect) {
+    throw new UnsupportedOperationException(
+        "Events are handled by the domains");
+  }
+
+  @Override
+  public int getNumOfStep() {
+    return (int) Math.min(numEvents, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public Collection<Subvol> getSubvols() {
+    return ((IMLSpaceModel) getModel()).getSubvolumes();
+  }
+
+  /**
+   * @return Number of domains
+   */
+  public int getNumberOfDomains() {
+    return domains.length;
+  }
+
+  /**
+   * @return Maximal length of a synchronisation window
+   */
+  public double getWindow() {
+    return window;
+  }
+
+  /**
+   * @return Number of windows ended early by cross-domain diffusion (and
+   *         hence repeated) so far
+   */
+  public long getNumberOfRollbacks() {
+    return numRollbacks;
+  }
+
+  /**
+   * Compiled NSM processor for a domain, collecting diffusion to other domains
+   */
+  private static final class Domain extends CompiledNSMProcessor {
+
+    private static final long serialVersionUID = 3411584316906745026L;
+
+    /** Diffusion to other domains during the current window, in order */
+    private final List<Map.Entry<Subvol, NSMEntity>> outbox =
+        new ArrayList<>();
+
+    /** Random number stream of the domain */
+    private final MRG32k3a random;
+
+    /** Whether the domain has to repeat the current window */
+    private boolean repeat = false;
+
+    /**
+     * Entity factory of this domain, drawing from the domain's random number
+     * stream (null if the model has none)
+     */
+    private final ModelEntityFactory entityFactory;
+
+    Domain(IMLSpaceModel model, Collection<Subvol> subvols, MRG32k3a random) {
+      super(model, subvols, new IndexedHeapEventQueue<NSMEvent>(), random,
+          new Timer());
+      this.random = random;
+      ModelEntityFactory modelFactory = model.getModelEntityFactory();
+      entityFactory =
+          modelFactory != null ? modelFactory.copyWithRandom(random) : null;
+    }
+
+    /**
+     * Simulate the domain in the current window
+     *
+     * @param endTime
+     *          Time up to which to simulate
+     * @param repeatWindow
+     *          Whether the window is repeated (only domains marked for
+     *          repetition are rolled back and simulated up to the end time,
+     *          others are left unchanged); otherwise the window starts and the
+     *          domain is simulated up to the end time or its first diffusion
+     *          into another domain
+     * @return Number of events handled in the window
+     */
+    int runWindow(double endTime, boolean repeatWindow) {
+      if (repeatWindow) {
+        if (!repeat) {
+          return 0;
+        }
+        rollback();
+        outbox.clear();
+        random.resetSubstream();
+        return runUntil(endTime);
+      }
+      random.nextSubstream();
+      setCheckpoint();
+      int numEvents = 0;
+      while (outbox.isEmpty()) {
+        int handled = runUntil(endTime, 1);
+        if (handled == 0) {
+          break;
+        }
+        numEvents += handled;
+      }
+      return numEvents;
+    }
+
+    @Override
+    protected void sendToRemote(Subvol target, NSMEntity ent) {
+      outbox.add(new SimpleImmutableEntry<>(target, ent));
+    }
+
+    @Override
+    protected NSMEntity createProduct(InitEntity pEnt,
+        Map<String, Object> variables) {
+      return entityFactory.createNSMEntity(pEnt, variables);
+    }
+  }
+
+}
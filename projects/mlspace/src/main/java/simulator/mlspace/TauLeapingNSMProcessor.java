@@ -0,0 +1,769 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+import org.jamesii.core.math.random.distributions.PoissonDistribution;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.util.collection.IUpdateableMap;
+import org.jamesii.core.util.eventset.IEventQueue;
+
+import model.mlspace.IMLSpaceModel;
+import model.mlspace.entities.InitEntity;
+import model.mlspace.entities.NSMEntity;
+import simulator.mlspace.compiled.ReactionChannel;
+import simulator.mlspace.compiled.SpeciesIndex;
+import simulator.mlspace.event.NSMEvent;
+import simulator.mlspace.eventrecord.ISubvolEventRecord;
+import simulator.mlspace.util.MLSpaceLogger.DebugLevel;
+
+/**
+ * Approximate NSM processor using explicit tau-leaping on the compiled model
+ * representation of the {@link CompiledNSMProcessor}, and hence applicable to
+ * the same models (see {@link #isApplicable(IMLSpaceModel)}).
+ *
+ * In each leap, the number of firings of every reaction channel of every
+ * subvolume during the leap is drawn from a Poisson distribution. The same
+ * applies to the diffusion of every entity from a subvolume to each of its
+ * neighbors, which is equivalent to a Poisson distributed number of entities
+ * leaving the subvolume that is split binomially among the neighbors. The leap
+ * length is selected as proposed by Cao, Gillespie and Petzold (2006): the
+ * expected relative change of every propensity is bounded by the error control
+ * parameter epsilon. Channels that could exhaust one of their reactants within
+ * a few firings ({@value #CRITICAL_THRESHOLD}) are critical and fire at most
+ * once per leap, as in the exact simulation. Leaps resulting in negative
+ * amounts are rejected and retried with half the length.
+ *
+ * Whenever a leap would contain only a few events (e.g. because all
+ * populations are small), a number of exact steps of the compiled NSM is
+ * executed instead. Observers are notified before each leap (the next event
+ * time given is the end of the leap), effect observers are hence not
+ * supported.
+ */
+public class TauLeapingNSMProcessor extends CompiledNSMProcessor {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = 4377935152046170288L;
+
+  /** Default error control parameter */
+  public static final double DEFAULT_EPSILON = 0.03;
+
+  /**
+   * Channels that can fire fewer times than this before one of their
+   * reactants is exhausted (and entities of which fewer are present in a
+   * subvolume, for diffusion) are critical
+   */
+  public static final int CRITICAL_THRESHOLD = 10;
+
+  /**
+   * Leaps in which fewer events are expected than this are not executed (exact
+   * steps are executed instead)
+   */
+  private static final double MIN_EVENTS_PER_LEAP = 10.;
+
+  /** Number of exact steps executed when a leap is not worthwhile */
+  private static final int NUM_EXACT_STEPS = 100;
+
+  /** Error control parameter */
+  private final double epsilon;
+
+  /** Simulation time container */
+  private final Timer timer;
+
+  /** Compiled subvolume states, by id */
+  private final SubvolState[] svStates;
+
+  /**
+   * Correction factors of the neighbors of each subvolume (by id), zero for
+   * neighbors in a different context (into which entities cannot diffuse)
+   */
+  private final double[][] openNeighCorrFac;
+
+  /** Stoichiometries of the channels leaped so far */
+  private final Map<ReactionChannel, Stoichiometry> stoichiometries =
+      new IdentityHashMap<>();
+
+  /** Distribution of the number of firings of a channel during a leap */
+  private final PoissonDistribution poisson;
+
+  /** Notification hint (end of the next leap) */
+  private final TimeAndHintContainer<ISubvolEventRecord> nextTimeHint =
+      new TimeAndHintContainer<>();
+
+  /** Expected change of each amount during a leap (subvolume id, entity id) */
+  private transient double[][] meanChange;
+
+  /** Variance of the change of each amount during a leap (as above) */
+  private transient double[][] varChange;
+
+  /**
+   * Highest-order factor for each amount (as above), zero for entities that
+   * are no reactants of non-critical channels
+   */
+  private transient double[][] horFactor;
+
+  /** Change of each amount by the current leap (as above) */
+  private transient int[][] deltas;
+
+  /** Whether a product was created with random attribute values */
+  private transient boolean randomProduct;
+
+  /** Sum of all rates (reactions and diffusion) */
+  private double sumOfRates;
+
+  /** Sum of the rates of the critical channels */
+  private double sumOfCriticalRates;
+
+  /** Number of exact steps still to execute before the next leap */
+  private int exactStepsLeft = 0;
+
+  /** Number of exact steps (events) executed so far */
+  private long numExactSteps = 0;
+
+  /** Number of leaps executed so far */
+  private long numLeaps = 0;
+
+  /** Number of firings (reactions and diffusion) in leaps so far */
+  private long numLeapedEvents = 0;
+
+  /** Number of leaps rejected so far */
+  private long numRejected = 0;
+
+  /**
+   * Constructor
+   *
+   * @param model
+   *          Mesoscopic ML-Space model to simulate (see
+   *          {@link CompiledNSMProcessor#isApplicable(IMLSpaceModel)})
+   * @param eventQueue
+   *          Event queue to use for the exact steps
+   * @param random
+   *          Random number generator to use
+   * @param epsilon
+   *          Error control parameter (null: {@link #DEFAULT_EPSILON})
+   */
+  public TauLeapingNSMProcessor(IMLSpaceModel model,
+      IEventQueue<NSMEvent, Double> eventQueue, IRandom random,
+      Double epsilon) {
+    this(model, eventQueue, random, epsilon, new Timer());
+  }
+
+  private TauLeapingNSMProcessor(IMLSpaceModel model,
+      IEventQueue<NSMEvent, Double> eventQueue, IRandom random,
+      Double epsilon, Timer timer) {
+    super(model, model.getSubvolumes(), eventQueue, random, timer);
+    this.epsilon = epsilon != null ? epsilon : DEFAULT_EPSILON;
+    if (!(this.epsilon > 0. && this.epsilon < 1.)) {
+      throw new IllegalArgumentException(
+          "Error control parameter must be in (0,1), not " + this.epsilon);
+    }
+    this.timer = timer;
+    this.poisson = new PoissonDistribution(random);
+    svStates = getStates().toArray(new SubvolState[0]);
+    openNeighCorrFac = new double[svStates.length][];
+    for (SubvolState state : svStates) {
+      double[] fac = new double[state.neighbors.length];
+      for (int i = 0; i < fac.length; i++) {
+        if (state.sv.getEnclosingEntity() == state.neighborSubvols[i]
+            .getEnclosingEntity()) {
+          fac[i] = state.cumNeighCorrFac[i]
+              - (i == 0 ? 0. : state.cumNeighCorrFac[i - 1]);
+        }
+      }
+      openNeighCorrFac[state.id] = fac;
+    }
+  }
+
+  @Override
+  protected void nextStep() {
+    logStart();
+    if (exactStepsLeft == 0 && leap(Double.POSITIVE_INFINITY, true)) {
+      return;
+    }
+    if (exactStepsLeft == 0) {
+      exactStepsLeft = NUM_EXACT_STEPS;
+    }
+    exactStepsLeft--;
+    numExactSteps++;
+    super.nextStep();
+  }
+
+  /**
+   * Simulate up to the given time (without notifying observers), leaping
+   * where worthwhile; no leap extends beyond the given time
+   *
+   * @param endTime
+   *          Time up to which to simulate
+   * @return Number of leaps and exact events
+   */
+  @Override
+  public int runUntil(double endTime) {
+    logStart();
+    int numSteps = 0;
+    while (getTime() < endTime) {
+      if (exactStepsLeft == 0 && leap(endTime, false)) {
+        numSteps++;
+        continue;
+      }
+      if (exactStepsLeft == 0) {
+        exactStepsLeft = NUM_EXACT_STEPS;
+      }
+      // sets the time to the end time if no more events are due before it
+      int n = runUntil(endTime, exactStepsLeft);
+      exactStepsLeft -= n;
+      numExactSteps += n;
+      numSteps += n;
+    }
+    return numSteps;
+  }
+
+  private void logStart() {
+    if (numLeaps == 0 && numExactSteps == 0) {
+      getLogger().checkAndLog(DebugLevel.BASIC_START_AND_END_INFO, Level.INFO,
+          "Tau-leaping with error control parameter " + epsilon);
+    }
+  }
+
+  /**
+   * Execute a leap if enough events are expected in it; leaps with negative
+   * amounts are retried with half the length
+   *
+   * @param limit
+   *          Time the leap must not extend beyond
+   * @param notify
+   *          Whether to notify observers before the leap
+   * @return true if a leap was executed, false if exact steps are to be
+   *         executed instead
+   */
+  private boolean leap(double limit, boolean notify) {
+    double maxTau = limit - getTime();
+    double tau1 = selectLeapLength();
+    while (isLeapWorthwhile(tau1, maxTau)) {
+      double tau2 =
+          sumOfCriticalRates > 0. ? getExpDistTimeToNextEvent(
+              sumOfCriticalRates) : Double.POSITIVE_INFINITY;
+      double tau = Math.min(Math.min(tau1, tau2), maxTau);
+      clearDeltas();
+      long numFired = sampleNonCriticalFirings(tau);
+      if (tau2 == tau) {
+        sampleCriticalFiring();
+        numFired++;
+      }
+      if (isFeasible()) {
+        applyLeap(tau < maxTau ? getTime() + tau : limit, notify);
+        numLeapedEvents += numFired;
+        return true;
+      }
+      numRejected++;
+      tau1 /= 2.;
+    }
+    return false;
+  }
+
+  /**
+   * @param tau1
+   *          Leap length for the non-critical channels
+   * @param maxTau
+   *          Maximum leap length
+   * @return true if enough events are expected within a leap (also false if
+   *         nothing can happen anymore)
+   */
+  private boolean isLeapWorthwhile(double tau1, double maxTau) {
+    double expectedLength = Math.min(tau1, maxTau);
+    if (sumOfCriticalRates > 0.) {
+      expectedLength = Math.min(expectedLength, 1. / sumOfCriticalRates);
+    }
+    return sumOfRates > 0. && expectedLength < Double.POSITIVE_INFINITY
+        && expectedLength * sumOfRates >= MIN_EVENTS_PER_LEAP;
+  }
+
+  /**
+   * Calculate the rate sums and the leap length for the non-critical channels
+   * (bounding the expected relative change of every propensity by epsilon)
+   *
+   * @return Leap length (infinity if there are no non-critical channels)
+   */
+  private double selectLeapLength() {
+    SpeciesIndex index = getSpeciesIndex();
+    // stoichiometries first, as new products are added to the index
+    for (SubvolState state : svStates) {
+      int numChannels =
+          Math.min(state.table.size(), state.propensities.length);
+      for (int c = 0; c < numChannels; c++) {
+        if (state.propensities[c] > 0.) {
+          getStoichiometry(state.table.getChannel(c));
+        }
+      }
+    }
+    int numSpecies = index.size();
+    initScratch(numSpecies);
+
+    sumOfRates = 0.;
+    sumOfCriticalRates = 0.;
+    for (SubvolState state : svStates) {
+      double[] mean = meanChange[state.id];
+      double[] var = varChange[state.id];
+      double[] hor = horFactor[state.id];
+      int numChannels =
+          Math.min(state.table.size(), state.propensities.length);
+      for (int c = 0; c < numChannels; c++) {
+        double p = state.propensities[c];
+        if (p <= 0.) {
+          continue;
+        }
+        sumOfRates += p;
+        ReactionChannel channel = state.table.getChannel(c);
+        Stoichiometry stoich = getStoichiometry(channel);
+        if (isCritical(state, channel, stoich)) {
+          sumOfCriticalRates += p;
+          continue;
+        }
+        for (int i = 0; i < stoich.ids.length; i++) {
+          double v = stoich.changes[i];
+          mean[stoich.ids[i]] += v * p;
+          var[stoich.ids[i]] += v * v * p;
+        }
+        int[] species = channel.getSpecies();
+        int[] mult = channel.getMultiplicities();
+        for (int i = 0; i < species.length; i++) {
+          hor[species[i]] =
+              Math.max(hor[species[i]], getHorFactor(channel.getOrder(),
+                  mult[i], getAmount(state, species[i])));
+        }
+      }
+
+      double[] openFac = openNeighCorrFac[state.id];
+      double sumCorrFac = getSumOfCorrFac(state);
+      for (int s = 0; s < numSpecies; s++) {
+        int x = getAmount(state, s);
+        double diffConst = index.getDiffusionConstant(s);
+        if (x == 0 || diffConst <= 0. || sumCorrFac <= 0.) {
+          continue;
+        }
+        double rate = diffConst * x * sumCorrFac;
+        sumOfRates += rate;
+        if (x < CRITICAL_THRESHOLD) {
+          sumOfCriticalRates += rate;
+          continue;
+        }
+        for (int n = 0; n < openFac.length; n++) {
+          double r = diffConst * x * openFac[n];
+          mean[s] -= r;
+          var[s] += r;
+          meanChange[state.neighbors[n].id][s] += r;
+          varChange[state.neighbors[n].id][s] += r;
+        }
+        hor[s] = Math.max(hor[s], 1.);
+      }
+    }
+
+    double tau1 = Double.POSITIVE_INFINITY;
+    for (SubvolState state : svStates) {
+      double[] mean = meanChange[state.id];
+      double[] var = varChange[state.id];
+      double[] hor = horFactor[state.id];
+      for (int s = 0; s < numSpecies; s++) {
+        if (hor[s] <= 0.) {
+          continue;
+        }
+        double bound = Math.max(epsilon * getAmount(state, s) / hor[s], 1.);
+        if (mean[s] != 0.) {
+          tau1 = Math.min(tau1, bound / Math.abs(mean[s]));
+        }
+        if (var[s] > 0.) {
+          tau1 = Math.min(tau1, bound * bound / var[s]);
+        }
+      }
+    }
+    return tau1;
+  }
+
+  /**
+   * Draw the number of firings of all non-critical channels during a leap
+   *
+   * @param tau
+   *          Leap length
+   * @return Number of firings
+   */
+  private long sampleNonCriticalFirings(double tau) {
+    SpeciesIndex index = getSpeciesIndex();
+    long numFired = 0;
+    for (SubvolState state : svStates) {
+      int numChannels =
+          Math.min(state.table.size(), state.propensities.length);
+      for (int c = 0; c < numChannels; c++) {
+        double p = state.propensities[c];
+        if (p <= 0.) {
+          continue;
+        }
+        ReactionChannel channel = state.table.getChannel(c);
+        Stoichiometry stoich = getStoichiometry(channel);
+        if (isCritical(state, channel, stoich)) {
+          continue;
+        }
+        int k = samplePoisson(p * tau);
+        for (int i = 0; i < stoich.ids.length; i++) {
+          addDelta(state, stoich.ids[i], k * stoich.changes[i]);
+        }
+        numFired += k;
+      }
+
+      double[] openFac = openNeighCorrFac[state.id];
+      for (int s = 0; s < index.size(); s++) {
+        int x = getAmount(state, s);
+        double diffConst = index.getDiffusionConstant(s);
+        if (x < CRITICAL_THRESHOLD || diffConst <= 0.) {
+          continue;
+        }
+        for (int n = 0; n < openFac.length; n++) {
+          if (openFac[n] > 0.) {
+            int k = samplePoisson(diffConst * x * openFac[n] * tau);
+            addDelta(state, s, -k);
+            addDelta(state.neighbors[n], s, k);
+            numFired += k;
+          }
+        }
+      }
+    }
+    return numFired;
+  }
+
+  /**
+   * Select one critical channel (proportional to its rate) and add the change
+   * of one firing to the deltas
+   */
+  private void sampleCriticalFiring() {
+    SpeciesIndex index = getSpeciesIndex();
+    double threshold = getRand().nextDouble() * sumOfCriticalRates;
+    SubvolState lastState = null;
+    ReactionChannel lastChannel = null;
+    int lastDiffusing = -1;
+    for (SubvolState state : svStates) {
+      int numChannels =
+          Math.min(state.table.size(), state.propensities.length);
+      for (int c = 0; c < numChannels; c++) {
+        double p = state.propensities[c];
+        if (p <= 0.) {
+          continue;
+        }
+        ReactionChannel channel = state.table.getChannel(c);
+        if (!isCritical(state, channel, getStoichiometry(channel))) {
+          continue;
+        }
+        lastState = state;
+        lastChannel = channel;
+        lastDiffusing = -1;
+        threshold -= p;
+        if (threshold < 0.) {
+          addCriticalReaction(state, channel);
+          return;
+        }
+      }
+      double sumCorrFac = getSumOfCorrFac(state);
+      for (int s = 0; s < index.size() && sumCorrFac > 0.; s++) {
+        int x = getAmount(state, s);
+        double diffConst = index.getDiffusionConstant(s);
+        if (x == 0 || x >= CRITICAL_THRESHOLD || diffConst <= 0.) {
+          continue;
+        }
+        lastState = state;
+        lastChannel = null;
+        lastDiffusing = s;
+        threshold -= diffConst * x * sumCorrFac;
+        if (threshold < 0.) {
+          addCriticalDiffusion(state, s);
+          return;
+        }
+      }
+    }
+    // rounding errors
+    if (lastChannel != null) {
+      addCriticalReaction(lastState, lastChannel);
+    } else if (lastDiffusing >= 0) {
+      addCriticalDiffusion(lastState, lastDiffusing);
+    }
+  }
+
+  private void addCriticalReaction(SubvolState state, ReactionChannel channel) {
+    Stoichiometry stoich = getStoichiometry(channel);
+    if (!stoich.random) {
+      for (int i = 0; i < stoich.ids.length; i++) {
+        addDelta(state, stoich.ids[i], stoich.changes[i]);
+      }
+      return;
+    }
+    SpeciesIndex index = getSpeciesIndex();
+    for (Map.Entry<NSMEntity, Integer> e : getChange(channel).entrySet()) {
+      addDelta(state, index.intern(e.getKey()), e.getValue());
+    }
+  }
+
+  private void addCriticalDiffusion(SubvolState state, int s) {
+    double threshold =
+        getRand().nextDouble() * getSumOfCorrFac(state);
+    int n = 0;
+    while (n < state.neighbors.length - 1
+        && threshold >= state.cumNeighCorrFac[n]) {
+      n++;
+    }
+    // no transfer rules: compartment boundaries are impermeable
+    if (openNeighCorrFac[state.id][n] > 0.) {
+      addDelta(state, s, -1);
+      addDelta(state.neighbors[n], s, 1);
+    }
+  }
+
+  /**
+   * @return true if no amount would become negative by the current deltas
+   */
+  private boolean isFeasible() {
+    for (SubvolState state : svStates) {
+      int[] delta = deltas[state.id];
+      for (int s = 0; s < delta.length; s++) {
+        if (delta[s] < 0 && getAmount(state, s) + delta[s] < 0) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Notify observers (if requested), apply the deltas, advance the simulation
+   * time and reschedule the exact events of all subvolumes (their times are
+   * redrawn for the new state)
+   *
+   * @param endTime
+   *          End of the leap
+   * @param notify
+   *          Whether to notify observers
+   */
+  private void applyLeap(double endTime, boolean notify) {
+    if (notify) {
+      nextTimeHint.setTime(endTime);
+      changed(nextTimeHint);
+      nextTimeHint.setTime(null);
+    }
+
+    SpeciesIndex index = getSpeciesIndex();
+    for (SubvolState state : svStates) {
+      int[] delta = deltas[state.id];
+      for (int s = 0; s < delta.length; s++) {
+        if (delta[s] != 0) {
+          changeAmount(state, index.get(s), delta[s]);
+        }
+      }
+    }
+    timer.setTime(endTime);
+    for (SubvolState state : svStates) {
+      reschedule(state);
+    }
+    numLeaps++;
+  }
+
+  /**
+   * A channel is critical if its products have random attribute values or if
+   * it can fire fewer than {@link #CRITICAL_THRESHOLD} times
+   */
+  private static boolean isCritical(SubvolState state,
+      ReactionChannel channel, Stoichiometry stoich) {
+    if (stoich.random) {
+      return true;
+    }
+    int[] species = channel.getSpecies();
+    int[] mult = channel.getMultiplicities();
+    for (int i = 0; i < species.length; i++) {
+      if (getAmount(state, species[i]) < CRITICAL_THRESHOLD * mult[i]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Factor bounding the relative change of the propensities of the channels
+   * of the given order by the relative change of the amount of a reactant
+   * (Cao et al. 2006, "highest order of reaction")
+   *
+   * @param order
+   *          Order of the channel
+   * @param mult
+   *          Multiplicity of the reactant in the channel
+   * @param x
+   *          Amount of the reactant (at least the multiplicity plus one)
+   * @return Factor
+   */
+  private static double getHorFactor(int order, int mult, int x) {
+    switch (order) {
+    case 1:
+      return 1.;
+    case 2:
+      return mult == 1 ? 2. : 2. + 1. / (x - 1);
+    case 3:
+      if (mult == 1) {
+        return 3.;
+      }
+      return mult == 2 ? 1.5 * (2. + 1. / (x - 1)) : 3. + 1. / (x - 1) + 2.
+          / (x - 2);
+    default:
+      return order;
+    }
+  }
+
+  private Stoichiometry getStoichiometry(ReactionChannel channel) {
+    Stoichiometry stoich = stoichiometries.get(channel);
+    if (stoich == null) {
+      randomProduct = false;
+      IUpdateableMap<NSMEntity, Integer> change = getChange(channel);
+      stoich = new Stoichiometry(change, getSpeciesIndex(), randomProduct);
+      stoichiometries.put(channel, stoich);
+    }
+    return stoich;
+  }
+
+  @Override
+  protected NSMEntity createProduct(InitEntity pEnt,
+      Map<String, Object> variables) {
+    NSMEntity product = super.createProduct(pEnt, variables);
+    randomProduct |= getModEntFac().rngUsedInLastCreation();
+    return product;
+  }
+
+  private int samplePoisson(double mean) {
+    if (mean <= 0.) {
+      return 0;
+    }
+    poisson.setLambda(mean);
+    return (int) poisson.getRandomNumber();
+  }
+
+  private static int getAmount(SubvolState state, int s) {
+    return s < state.amounts.length ? state.amounts[s] : 0;
+  }
+
+  private static double getSumOfCorrFac(SubvolState state) {
+    return state.neighbors.length == 0 ? 0.
+        : state.cumNeighCorrFac[state.neighbors.length - 1];
+  }
+
+  private void addDelta(SubvolState state, int s, int delta) {
+    int[] row = deltas[state.id];
+    if (s >= row.length) {
+      row = Arrays.copyOf(row, Math.max(2 * row.length, s + 1));
+      deltas[state.id] = row;
+    }
+    row[s] += delta;
+  }
+
+  private void clearDeltas() {
+    for (int[] row : deltas) {
+      Arrays.fill(row, 0);
+    }
+  }
+
+  /**
+   * (Re)initialise the per-leap arrays for the given number of entities
+   *
+   * @param numSpecies
+   *          Number of entities in the index
+   */
+  private void initScratch(int numSpecies) {
+    if (meanChange == null || meanChange[0].length < numSpecies) {
+      int len = Math.max(numSpecies, 16);
+      meanChange = new double[svStates.length][len];
+      varChange = new double[svStates.length][len];
+      horFactor = new double[svStates.length][len];
+      if (deltas == null) {
+        deltas = new int[svStates.length][len];
+      }
+      return;
+    }
+    for (int i = 0; i < svStates.length; i++) {
+      Arrays.fill(meanChange[i], 0.);
+      Arrays.fill(varChange[i], 0.);
+      Arrays.fill(horFactor[i], 0.);
+    }
+  }
+
+  @Override
+  public int getNumOfStep() {
+    return (int) Math.min(numExactSteps + numLeaps, Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return Number of leaps executed so far
+   */
+  public long getNumOfLeaps() {
+    return numLeaps;
+  }
+
+  /**
+   * @return Number of reaction and diffusion firings in leaps so far
+   */
+  public long getNumOfLeapedEvents() {
+    return numLeapedEvents;
+  }
+
+  /**
+   * @return Number of leaps rejected so far (because of negative amounts)
+   */
+  public long getNumOfRejectedLeaps() {
+    return numRejected;
+  }
+
+  /**
+   * @return Number of exact steps executed so far
+   */
+  public long getNumOfExactSteps() {
+    return numExactSteps;
+  }
+
+  /**
+   * @return Error control parameter
+   */
+  public double getEpsilon() {
+    return epsilon;
+  }
+
+  /**
+   * Net change of the amounts by one firing of a channel
+   */
+  private static final class Stoichiometry implements Serializable {
+
+    private static final long serialVersionUID = 2381646153520917563L;
+
+    /** Ids of the entities whose amount changes */
+    private final int[] ids;
+
+    /** Change of the amount of each of these entities */
+    private final int[] changes;
+
+    /**
+     * Whether products have random attribute values (i.e. the change has to
+     * be determined anew for each firing)
+     */
+    private final boolean random;
+
+    Stoichiometry(Map<NSMEntity, Integer> change, SpeciesIndex index,
+        boolean random) {
+      this.ids = new int[change.size()];
+      this.changes = new int[change.size()];
+      this.random = random;
+      int i = 0;
+      for (Map.Entry<NSMEntity, Integer> e : change.entrySet()) {
+        ids[i] = index.intern(e.getKey());
+        changes[i++] = e.getValue();
+      }
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace.compiled;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.mlspace.entities.AbstractModelEntity;
+import model.mlspace.entities.RuleEntity;
+import model.mlspace.rules.NSMReactionRule;
+import model.mlspace.rules.NonTransferRule;
+
+/**
+ * Reaction channels of all subvolumes sharing the same context (enclosing
+ * entity), together with the dependency graph from entity ids to the channels
+ * whose propensity depends on the amount of the respective entity. Channels
+ * are compiled lazily: whenever a new entity id occurs, all reactant tuples
+ * containing it (and otherwise only previously known ids) are matched against
+ * the rules, so every tuple is matched exactly once. This requires the context
+ * not to change during the simulation, i.e. no rule may modify it.
+ */
+public class ChannelTable implements Serializable {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -1645395126019347292L;
+
+  /** Index of entities (shared by all tables of a simulation) */
+  private final SpeciesIndex index;
+
+  /** Rules applicable in this context */
+  private final List<NonTransferRule> rules = new ArrayList<>();
+
+  /** Variables bound by the context, for each rule applicable */
+  private final List<Map<String, Object>> contextVars = new ArrayList<>();
+
+  /** The channels, index = channel id */
+  private final List<ReactionChannel> channels = new ArrayList<>();
+
+  /** Ids of dependent channels by entity id */
+  private final List<int[]> dependents = new ArrayList<>();
+
+  /** Number of entity ids for which channels have been compiled */
+  private int numCompiled = 0;
+
+  /**
+   * @param rules
+   *          Reaction rules
+   * @param context
+   *          Context (enclosing entity) of the subvolumes
+   * @param index
+   *          Index of entities
+   */
+  public ChannelTable(Collection<NSMReactionRule> rules,
+      AbstractModelEntity context, SpeciesIndex index) {
+    this.index = index;
+    for (NSMReactionRule rule : rules) {
+      Map<String, Object> vars = rule.matchContext(context);
+      if (vars == null) {
+        continue;
+      }
+      if (rule.getOrder() == 0) {
+        channels.add(new ReactionChannel(rule, new int[0], vars));
+      } else {
+        this.rules.add(rule);
+        contextVars.add(vars);
+      }
+    }
+  }
+
+  /**
+   * Compile the channels for all entity ids below the given one (if not done
+   * before)
+   *
+   * @param numSpecies
+   *          Number of entity ids to consider
+   */
+  public void compileUpTo(int numSpecies) {
+    while (numCompiled < numSpecies) {
+      int newest = numCompiled++;
+      dependents.add(new int[0]);
+      for (int i = 0; i < rules.size(); i++) {
+        NonTransferRule rule = rules.get(i);
+        matchReactant(rule, rule.getLeftHandSide().getReactants(), 0,
+            new int[rule.getOrder()], contextVars.get(i), newest, false);
+      }
+    }
+  }
+
+  /**
+   * Recursively match the reactants of a rule (starting with the one with the
+   * given position) to entity ids up to newest, adding a channel for every
+   * complete match containing the newest id. Variable bindings are threaded
+   * through the reactants as in
+   * {@link model.mlspace.rules.populationmatching.PopulationMatchStrategy}.
+   */
+  private void matchReactant(NonTransferRule rule, List<RuleEntity> reactants,
+      int pos, int[] tuple, Map<String, Object> env, int newest,
+      boolean containsNewest) {
+    if (pos == tuple.length) {
+      if (containsNewest) {
+        addChannel(new ReactionChannel(rule, tuple, env));
+      }
+      return;
+    }
+    RuleEntity reactant = reactants.get(pos);
+    boolean changesEnv = !reactant.getVarNames().isEmpty();
+    boolean lastChance = !containsNewest && pos == tuple.length - 1;
+    for (int s = lastChance ? newest : 0; s <= newest; s++) {
+      Map<String, Object> newEnv = changesEnv ? new LinkedHashMap<>(env) : env;
+      if (reactant.matches(index.get(s), newEnv)) {
+        tuple[pos] = s;
+        matchReactant(rule, reactants, pos + 1, tuple, newEnv, newest,
+            containsNewest || s == newest);
+      }
+    }
+  }
+
+  private void addChannel(ReactionChannel channel) {
+    int id = channels.size();
+    channels.add(channel);
+    for (int s : channel.getSpecies()) {
+      int[] dep = dependents.get(s);
+      dep = Arrays.copyOf(dep, dep.length + 1);
+      dep[dep.length - 1] = id;
+      dependents.set(s, dep);
+    }
+  }
+
+  /**
+   * @return Number of channels compiled so far
+   */
+  public int size() {
+    return channels.size();
+  }
+
+  /**
+   * @param id
+   *          Channel id
+   * @return Channel with the given id
+   */
+  public ReactionChannel getChannel(int id) {
+    return channels.get(id);
+  }
+
+  /**
+   * @param speciesId
+   *          Entity id (channels must have been compiled for it)
+   * @return Ids of the channels whose propensity depends on the amount of the
+   *         given entity (not to be modified)
+   */
+  public int[] getDependents(int speciesId) {
+    return dependents.get(speciesId);
+  }
+
+}
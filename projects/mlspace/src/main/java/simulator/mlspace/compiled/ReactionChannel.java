@@ -0,0 +1,179 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace.compiled;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Map;
+
+import model.mlspace.rules.NonTransferRule;
+
+/**
+ * Reaction channel, i.e. a reaction rule applied to a specific tuple of
+ * entities (given by their ids in a {@link SpeciesIndex}) in a specific context.
+ * The rate constant, including the evaluation of the rule's rate expression
+ * with the variables bound by context and reactants, is calculated once, so
+ * that the propensity in a subvolume depends only on the amounts of the
+ * reactants and the subvolume's volume.
+ */
+public final class ReactionChannel implements Serializable {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = -3807262461409962811L;
+
+  /** The rule */
+  private final NonTransferRule rule;
+
+  /** Ids of the matched entities, one per reactant of the rule */
+  private final int[] reactants;
+
+  /** Distinct ids among the reactants */
+  private final int[] species;
+
+  /** Number of occurrences of each of the distinct ids among the reactants */
+  private final int[] multiplicities;
+
+  /** Variable values bound by context and reactants */
+  private final Map<String, Object> env;
+
+  /** Rate constant (rule rate evaluated for the bound variables) */
+  private final double rateConstant;
+
+  /**
+   * @param rule
+   *          Reaction rule
+   * @param reactants
+   *          Ids of the matched entities, one per reactant of the rule (in
+   *          order)
+   * @param env
+   *          Variable values bound by context and reactants
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public ReactionChannel(NonTransferRule rule, int[] reactants,
+      Map<String, Object> env) {
+    this.rule = rule;
+    this.reactants = reactants.clone();
+    this.env = env;
+    this.rateConstant = rule.getRate((Map) env);
+
+    int[] sorted = reactants.clone();
+    Arrays.sort(sorted);
+    int[] spec = new int[sorted.length];
+    int[] mult = new int[sorted.length];
+    int n = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (n > 0 && spec[n - 1] == sorted[i]) {
+        mult[n - 1]++;
+      } else {
+        spec[n] = sorted[i];
+        mult[n] = 1;
+        n++;
+      }
+    }
+    this.species = Arrays.copyOf(spec, n);
+    this.multiplicities = Arrays.copyOf(mult, n);
+  }
+
+  /**
+   * Calculate the propensity of this channel as in
+   * {@link model.mlspace.rules.populationmatching.PopulationMatchStrategy}
+   * (volume-scaled rate for zero-order rules, rate times number of reactant
+   * combinations divided by volume^(order-1) otherwise)
+   *
+   * @param amounts
+   *          Amounts by entity id (missing ids count as zero)
+   * @param volume
+   *          Volume of the subvolume
+   * @return Propensity
+   */
+  public double getPropensity(int[] amounts, double volume) {
+    if (reactants.length == 0) {
+      return volume * rateConstant;
+    }
+    double rv = rateConstant;
+    for (int i = 0; i < species.length; i++) {
+      int s = species[i];
+      int amount = s < amounts.length ? amounts[s] : 0;
+      int k = multiplicities[i];
+      if (amount < k) {
+        return 0.;
+      }
+      rv *= nChooseK(amount, k);
+    }
+    for (int i = reactants.length; i > 1; i--) {
+      rv /= volume;
+    }
+    return rv;
+  }
+
+  /**
+   * n choose k assuming 0<k<=n
+   *
+   * @param n
+   * @param k
+   * @return (n k)
+   */
+  private static double nChooseK(int n, int k) {
+    double rv = n;
+    for (int i = 1; i < k; i++) {
+      rv *= n - i;
+      rv /= i + 1;
+    }
+    return rv;
+  }
+
+  /**
+   * @return The rule
+   */
+  public NonTransferRule getRule() {
+    return rule;
+  }
+
+  /**
+   * @param index
+   *          Reactant index
+   * @return Id of the entity matched by the reactant with the given index
+   */
+  public int getReactant(int index) {
+    return reactants[index];
+  }
+
+  /**
+   * @return Number of reactants (i.e. the order of the rule)
+   */
+  public int getOrder() {
+    return reactants.length;
+  }
+
+  /**
+   * @return Distinct ids among the reactants (not to be modified)
+   */
+  public int[] getSpecies() {
+    return species;
+  }
+
+  /**
+   * @return Number of occurrences among the reactants of each of the ids
+   *         returned by {@link #getSpecies()} (not to be modified)
+   */
+  public int[] getMultiplicities() {
+    return multiplicities;
+  }
+
+  /**
+   * @return Variable values bound by context and reactants
+   */
+  public Map<String, Object> getEnv() {
+    return env;
+  }
+
+  @Override
+  public String toString() {
+    return rule + " on " + Arrays.toString(reactants);
+  }
+
+}
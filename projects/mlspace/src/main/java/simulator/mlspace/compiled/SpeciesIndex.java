@@ -0,0 +1,86 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace.compiled;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import model.mlspace.entities.NSMEntity;
+
+/**
+ * Index of the distinct population entities (species with specific attribute
+ * values) of a simulation, mapping each to a dense integer id so that states
+ * and rates can be stored in primitive arrays. Entities are added on first
+ * occurrence, ids are never reused. The diffusion constant of each entity is
+ * cached, as it is needed for every rate update.
+ */
+public class SpeciesIndex implements Serializable {
+
+  /** Serialization ID */
+  private static final long serialVersionUID = 7362094189327810425L;
+
+  /** Entity to id map */
+  private final Map<NSMEntity, Integer> ids = new HashMap<>();
+
+  /** Entities by id */
+  private final List<NSMEntity> entities = new ArrayList<>();
+
+  /** Diffusion constants by id */
+  private double[] diffusionConstants = new double[16];
+
+  /**
+   * Get the id of an entity, adding the entity to the index if not present yet
+   *
+   * @param ent
+   *          Entity
+   * @return Id of the entity
+   */
+  public int intern(NSMEntity ent) {
+    Integer id = ids.get(ent);
+    if (id != null) {
+      return id;
+    }
+    int newId = entities.size();
+    if (newId == diffusionConstants.length) {
+      diffusionConstants = Arrays.copyOf(diffusionConstants, 2 * newId);
+    }
+    diffusionConstants[newId] = ent.getDiffusionConstant();
+    entities.add(ent);
+    ids.put(ent, newId);
+    return newId;
+  }
+
+  /**
+   * @param id
+   *          Entity id
+   * @return Entity with the given id
+   */
+  public NSMEntity get(int id) {
+    return entities.get(id);
+  }
+
+  /**
+   * @param id
+   *          Entity id
+   * @return Diffusion constant of the entity with the given id
+   */
+  public double getDiffusionConstant(int id) {
+    return diffusionConstants[id];
+  }
+
+  /**
+   * @return Number of entities in the index (i.e. the next id to be assigned)
+   */
+  public int size() {
+    return entities.size();
+  }
+
+}
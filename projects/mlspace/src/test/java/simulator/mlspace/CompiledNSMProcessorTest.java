@@ -0,0 +1,122 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.mersennetwister.MersenneTwister;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue;
+
+import model.mlspace.IMLSpaceModel;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.subvols.Subvol;
+import simulator.mlspace.event.NSMEvent;
+import simulator.mlspace.javamodels.NSMReactTestModel;
+
+/**
+ * Test for the {@link CompiledNSMProcessor}: incrementally updated rates have
+ * to match those calculated from scratch as in the {@link NSMProcessor}, and a
+ * rollback has to restore the state of the checkpoint
+ */
+public class CompiledNSMProcessorTest extends TestCase {
+
+  private static final double EPSILON = 1e-9;
+
+  public void testRatesMatchNSM() {
+    NSMReactTestModel model =
+        new NSMReactTestModel(Collections.<String, Object> emptyMap());
+    // usually set when the subvolumes are initialised (needed for logging)
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    CompiledNSMProcessor proc = new CompiledNSMProcessor(model,
+        new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(42));
+    int initialBalance = getBalance(model.getSubvolumes());
+    assertRatesMatch(model, proc);
+
+    double lastTime = proc.getTime();
+    for (int i = 0; i < 2000; i++) {
+      proc.nextStep();
+      if (proc.getTime().isInfinite()) {
+        break;
+      }
+      assertTrue(proc.getTime() >= lastTime);
+      lastTime = proc.getTime();
+      assertRatesMatch(model, proc);
+    }
+    assertTrue(lastTime > 0.);
+    // every reaction consumes one P1 and one P2 or changes an attribute
+    assertEquals(initialBalance, getBalance(model.getSubvolumes()));
+  }
+
+  public void testRollback() {
+    NSMReactTestModel model =
+        new NSMReactTestModel(Collections.<String, Object> emptyMap());
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    MRG32k3a random = new MRG32k3a(42);
+    CompiledNSMProcessor proc = new CompiledNSMProcessor(model,
+        new IndexedHeapEventQueue<NSMEvent>(), random);
+    proc.runUntil(0.5);
+    List<Map<NSMEntity, Integer>> initial = getStates(model);
+    double nextEventTime = proc.getNextEventTime();
+
+    random.nextSubstream();
+    proc.setCheckpoint();
+    assertTrue(proc.runUntil(2.) > 0);
+    List<Map<NSMEntity, Integer>> simulated = getStates(model);
+    assertFalse(initial.equals(simulated));
+
+    proc.rollback();
+    assertEquals(0.5, proc.getTime(), 0.);
+    assertEquals(initial, getStates(model));
+    assertEquals(nextEventTime, proc.getNextEventTime(), 0.);
+    assertRatesMatch(model, proc);
+
+    random.resetSubstream();
+    proc.runUntil(2.);
+    assertEquals(simulated, getStates(model));
+    assertRatesMatch(model, proc);
+  }
+
+  private static List<Map<NSMEntity, Integer>> getStates(IMLSpaceModel model) {
+    List<Map<NSMEntity, Integer>> states = new ArrayList<>();
+    for (Subvol sv : model.getSubvolumes()) {
+      states.add(new HashMap<>(sv.getState()));
+    }
+    return states;
+  }
+
+  private static void assertRatesMatch(IMLSpaceModel model,
+      CompiledNSMProcessor proc) {
+    for (Subvol sv : model.getSubvolumes()) {
+      NSMEvent ev = new NSMEvent(sv);
+      double expected = ev.getSumOfDiffusionRates()
+          + ev.getSumOfReactionRates(model.getNSMReactionRules());
+      assertEquals(expected, proc.getSumOfRates(sv),
+          EPSILON * Math.max(1., expected));
+    }
+  }
+
+  private static int getBalance(Iterable<Subvol> subvols) {
+    int balance = 0;
+    for (Subvol sv : subvols) {
+      for (Map.Entry<NSMEntity, Integer> e : sv.getState().entrySet()) {
+        if ("P1".equals(e.getKey().getSpecies().toString())) {
+          balance += e.getValue();
+        } else {
+          balance -= e.getValue();
+        }
+      }
+    }
+    return balance;
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.mersennetwister.MersenneTwister;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue;
+
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.subvols.Subvol;
+import simulator.mlspace.event.NSMEvent;
+import simulator.mlspace.javamodels.NSMProductTestModel;
+import simulator.mlspace.javamodels.NSMReactTestModel;
+
+/**
+ * Test for the {@link ParallelNSMProcessor}: partitioning, conservation of
+ * entities across domain boundaries, reproducibility and statistical
+ * equivalence to the sequential processors (independently of the window
+ * length)
+ */
+public class ParallelNSMProcessorTest extends TestCase {
+
+  /** Number of replications per processor in the statistical test */
+  private static final int REPLICATIONS = 100;
+
+  /** Simulation end time in the statistical test */
+  private static final double END_TIME = 4.;
+
+  /**
+   * Window length in the statistical test, much longer than the mean time
+   * between two cross-domain diffusion events
+   */
+  private static final double LONG_WINDOW = 1.;
+
+  private static NSMReactTestModel createModel() {
+    NSMReactTestModel model =
+        new NSMReactTestModel(Collections.<String, Object> emptyMap());
+    // usually set when the subvolumes are initialised (needed for logging)
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    return model;
+  }
+
+  public void testPartition() {
+    NSMReactTestModel model = createModel();
+    List<List<Subvol>> partition =
+        ParallelNSMProcessor.partition(model.getSubvolumes(), 5);
+    assertEquals(3, partition.size());
+    assertEquals("bot", partition.get(0).get(0).getName());
+    assertEquals("cen", partition.get(1).get(0).getName());
+    assertEquals("top", partition.get(2).get(0).getName());
+    assertEquals(1, ParallelNSMProcessor.partition(model.getSubvolumes(), 1)
+        .size());
+  }
+
+  public void testConservationAndReproducibility() {
+    List<String> first = run(2);
+    assertEquals(first, run(2));
+    // the thread scheduling does not matter
+    assertEquals(first, run(1));
+  }
+
+  private static List<String> run(int numThreads) {
+    NSMReactTestModel model = createModel();
+    ParallelNSMProcessor proc = new ParallelNSMProcessor(model,
+        new MersenneTwister(42), 3, numThreads, 0.01);
+    try {
+      int initialBalance = getBalance(model.getSubvolumes());
+      double lastTime = proc.getTime();
+      for (int i = 0; i < 200; i++) {
+        proc.nextStep();
+        if (proc.getTime().isInfinite()) {
+          break;
+        }
+        assertTrue(proc.getTime() > lastTime);
+        lastTime = proc.getTime();
+        assertEquals(initialBalance, getBalance(model.getSubvolumes()));
+      }
+      assertTrue(proc.getNumOfStep() > 0);
+    } finally {
+      proc.cleanUp();
+    }
+    List<String> states = new ArrayList<>();
+    for (Subvol sv : model.getSubvolumes()) {
+      states.add(sv.getState().toString());
+    }
+    return states;
+  }
+
+  public void testRollbacks() {
+    NSMProductTestModel model = createProductModel(0);
+    ParallelNSMProcessor proc = new ParallelNSMProcessor(model,
+        new MersenneTwister(1), 3, 2, LONG_WINDOW);
+    try {
+      proc.nextStep();
+      // the first window ends at the first cross-domain diffusion
+      assertEquals(1, proc.getNumberOfRollbacks());
+      assertTrue(proc.getTime() < LONG_WINDOW);
+    } finally {
+      proc.cleanUp();
+    }
+  }
+
+  /**
+   * Compares the means and variances of the amounts of remaining reactants and
+   * of products (with either value of their randomly chosen attribute) over
+   * independent replications with those of the {@link NSMProcessor} and the
+   * {@link CompiledNSMProcessor} (which must not deviate by more than four
+   * standard errors), for the default and a long window
+   */
+  public void testStatisticalEquivalence() {
+    double[][] nsm = new double[REPLICATIONS][];
+    double[][] compiled = new double[REPLICATIONS][];
+    double[][] parallel = new double[REPLICATIONS][];
+    double[][] longWindow = new double[REPLICATIONS][];
+    for (int i = 0; i < REPLICATIONS; i++) {
+      NSMProductTestModel model = createProductModel(i);
+      nsm[i] = runToEnd(model, new NSMProcessor(model,
+          new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(i + 1)));
+      model = createProductModel(i);
+      compiled[i] = runToEnd(model, new CompiledNSMProcessor(model,
+          new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(i + 1)));
+      model = createProductModel(i);
+      ParallelNSMProcessor proc = new ParallelNSMProcessor(model,
+          new MersenneTwister(i + 1), 3, 2, null);
+      try {
+        parallel[i] = runToEnd(model, proc);
+      } finally {
+        proc.cleanUp();
+      }
+      model = createProductModel(i);
+      proc = new ParallelNSMProcessor(model, new MersenneTwister(i + 1), 3, 2,
+          LONG_WINDOW);
+      try {
+        longWindow[i] = runToEnd(model, proc);
+      } finally {
+        proc.cleanUp();
+      }
+    }
+    for (int q = 0; q < 3; q++) {
+      assertTrue(mean(nsm, q) > 0.);
+      assertTrue(variance(nsm, q) > 0.);
+      assertEquivalent(q, nsm, parallel);
+      assertEquivalent(q, compiled, parallel);
+      assertEquivalent(q, nsm, longWindow);
+      assertEquivalent(q, compiled, longWindow);
+    }
+  }
+
+  private static NSMProductTestModel createProductModel(long seed) {
+    // seeds distinct from those of the processors
+    NSMProductTestModel model = new NSMProductTestModel(
+        new MersenneTwister(seed + REPLICATIONS + 1), 6, 50);
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    return model;
+  }
+
+  /**
+   * @return amounts of A, of C with x = 0 and of C with x = 1 at the end time
+   */
+  private static double[] runToEnd(NSMProductTestModel model,
+      AbstractMLSpaceProcessor<NSMEvent, ?> proc) {
+    while (proc.getTime() < END_TIME) {
+      proc.nextStep();
+    }
+    double[] amounts = new double[3];
+    for (Subvol sv : model.getSubvolumes()) {
+      for (Map.Entry<NSMEntity, Integer> e : sv.getState().entrySet()) {
+        String species = e.getKey().getSpecies().toString();
+        if ("A".equals(species)) {
+          amounts[0] += e.getValue();
+        } else if ("C".equals(species)) {
+          Object x = e.getKey().getAttribute(NSMProductTestModel.ATTRIBUTE);
+          amounts[Integer.valueOf(1).equals(x) ? 2 : 1] += e.getValue();
+        }
+      }
+    }
+    return amounts;
+  }
+
+  private static void assertEquivalent(int q, double[][] expected,
+      double[][] actual) {
+    double stdErr = Math.sqrt((variance(expected, q) + variance(actual, q))
+        / REPLICATIONS);
+    assertEquals(mean(expected, q), mean(actual, q), 4 * stdErr);
+    double varStdErr = Math.sqrt(varianceOfVariance(expected, q)
+        + varianceOfVariance(actual, q));
+    assertEquals(variance(expected, q), variance(actual, q), 4 * varStdErr);
+  }
+
+  private static double mean(double[][] samples, int q) {
+    double sum = 0.;
+    for (double[] s : samples) {
+      sum += s[q];
+    }
+    return sum / samples.length;
+  }
+
+  private static double variance(double[][] samples, int q) {
+    double mean = mean(samples, q);
+    double sum = 0.;
+    for (double[] s : samples) {
+      sum += (s[q] - mean) * (s[q] - mean);
+    }
+    return sum / (samples.length - 1);
+  }
+
+  /**
+   * @return Estimated variance of the sample variance, (m4 - s^4) / n with
+   *         the fourth central moment m4 (no normality assumed)
+   */
+  private static double varianceOfVariance(double[][] samples, int q) {
+    double mean = mean(samples, q);
+    double m4 = 0.;
+    for (double[] s : samples) {
+      m4 += Math.pow(s[q] - mean, 4);
+    }
+    m4 /= samples.length;
+    double var = variance(samples, q);
+    return (m4 - var * var) / samples.length;
+  }
+
+  private static int getBalance(Iterable<Subvol> subvols) {
+    int balance = 0;
+    for (Subvol sv : subvols) {
+      for (Map.Entry<NSMEntity, Integer> e : sv.getState().entrySet()) {
+        if ("P1".equals(e.getKey().getSpecies().toString())) {
+          balance += e.getValue();
+        } else {
+          balance -= e.getValue();
+        }
+      }
+    }
+    return balance;
+  }
+}
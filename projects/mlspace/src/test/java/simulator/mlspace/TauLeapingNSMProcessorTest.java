@@ -0,0 +1,112 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.mersennetwister.MersenneTwister;
+import org.jamesii.core.util.eventset.primitive.IndexedHeapEventQueue;
+
+import model.mlspace.MLSpaceModel;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.reader.MLSpaceModelReader;
+import model.mlspace.reader.MLSpaceModelReaderFactory;
+import model.mlspace.subvols.Subvol;
+import simulator.mlspace.event.NSMEvent;
+
+/**
+ * Test for the {@link TauLeapingNSMProcessor}: leaps have to conserve mass and
+ * keep all amounts non-negative, and the mean outcome has to be close to that
+ * of the exact {@link CompiledNSMProcessor}
+ */
+public class TauLeapingNSMProcessorTest extends TestCase {
+
+  private static final String MODEL = "Cell(size:8,position:(0,0,0),"
+      + "shape:cube); A(diffusion:1); B(diffusion:1); C(diffusion:0.5); "
+      + "1 Cell[2000 A + 2000 B]; A + B -> C @ 0.01; C -> A + B @ 0.1";
+
+  private static final double END_TIME = 0.5;
+
+  private static final int REPLICATIONS = 8;
+
+  public void testLeapsConserveMass() throws Exception {
+    MLSpaceModel model = readModel(1);
+    TauLeapingNSMProcessor proc =
+        new TauLeapingNSMProcessor(model,
+            new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(1),
+            null);
+    double lastTime = proc.getTime();
+    while (proc.getTime() < END_TIME) {
+      proc.nextStep();
+      assertTrue(proc.getTime() >= lastTime);
+      lastTime = proc.getTime();
+      for (Subvol sv : model.getSubvolumes()) {
+        for (Integer amount : sv.getState().values()) {
+          assertTrue(amount >= 0);
+        }
+      }
+      assertEquals(2000, getAmount(model, "A") + getAmount(model, "C"));
+      assertEquals(2000, getAmount(model, "B") + getAmount(model, "C"));
+    }
+    assertTrue(proc.getNumOfLeaps() > 0);
+    assertTrue(proc.getNumOfLeapedEvents() > proc.getNumOfLeaps());
+  }
+
+  public void testMeanMatchesExact() throws Exception {
+    double exactSum = 0.;
+    double tauSum = 0.;
+    for (int r = 1; r <= REPLICATIONS; r++) {
+      MLSpaceModel model = readModel(r);
+      CompiledNSMProcessor exact =
+          new CompiledNSMProcessor(model,
+              new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(r));
+      exact.runUntil(END_TIME);
+      assertEquals(END_TIME, exact.getTime(), 0.);
+      exactSum += getAmount(model, "C");
+
+      model = readModel(r);
+      TauLeapingNSMProcessor tau =
+          new TauLeapingNSMProcessor(model,
+              new IndexedHeapEventQueue<NSMEvent>(), new MersenneTwister(r),
+              null);
+      tau.runUntil(END_TIME);
+      assertEquals(END_TIME, tau.getTime(), 0.);
+      assertTrue(tau.getNumOfLeaps() > 0);
+      tauSum += getAmount(model, "C");
+    }
+    double exactMean = exactSum / REPLICATIONS;
+    // the bias of explicit leaping is of the order of epsilon
+    assertEquals(exactMean, tauSum / REPLICATIONS,
+        TauLeapingNSMProcessor.DEFAULT_EPSILON * exactMean);
+  }
+
+  private static MLSpaceModel readModel(int seed) throws Exception {
+    MLSpaceModel model =
+        (MLSpaceModel) new MLSpaceModelReader().read(new URI(
+            MLSpaceModelReaderFactory.ML_SPACE_STRING, MODEL, null),
+            Collections.<String, Object> emptyMap());
+    model.initSubvolumes(new MersenneTwister(seed), 2., 2.);
+    model.setInfo("Sv amount", model.getSubvolumes().size());
+    return model;
+  }
+
+  private static int getAmount(MLSpaceModel model, String species) {
+    int amount = 0;
+    for (Subvol sv : model.getSubvolumes()) {
+      for (Map.Entry<NSMEntity, Integer> e : sv.getState().entrySet()) {
+        if (species.equals(e.getKey().getSpecies().toString())) {
+          amount += e.getValue();
+        }
+      }
+    }
+    return amount;
+  }
+}
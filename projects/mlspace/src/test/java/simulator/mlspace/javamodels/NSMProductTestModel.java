@@ -0,0 +1,104 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package simulator.mlspace.javamodels;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jamesii.core.math.geometry.shapes.AxisAlignedBox;
+import org.jamesii.core.math.geometry.vectors.AVectorFactory;
+import org.jamesii.core.math.geometry.vectors.IVectorFactory;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.simpletree.nullary.FixedValueNode;
+
+import model.mlspace.MLSpaceModel;
+import model.mlspace.entities.InitEntity;
+import model.mlspace.entities.ModelEntityFactory;
+import model.mlspace.entities.NSMEntity;
+import model.mlspace.entities.RuleEntity;
+import model.mlspace.entities.Species;
+import model.mlspace.entities.spatial.SpatialAttribute;
+import model.mlspace.entities.values.AbstractValueRange;
+import model.mlspace.rules.NSMReactionRule;
+import model.mlspace.rules.RuleCollection;
+import model.mlspace.rules.RuleSide;
+import model.mlspace.rules.attributemodification.IAttributeModification;
+import model.mlspace.rules.attributemodification.SpecialAttributeModification;
+import model.mlspace.subvols.Subvol;
+
+/**
+ * NSM test model with a row of cubic subvolumes, A entities in the leftmost and
+ * B entities in the rightmost one, and a single reaction A + B -> C. The
+ * attribute x of the product C is 0 or 1, chosen at random by the model entity
+ * factory.
+ */
+public class NSMProductTestModel extends MLSpaceModel {
+
+  private static final long serialVersionUID = 3807196355042611592L;
+
+  /** Name of the product's randomly chosen attribute */
+  public static final String ATTRIBUTE = "x";
+
+  /**
+   * @param rand
+   *          Random number generator of the model entity factory
+   * @param numSubvols
+   *          Number of subvolumes (at least 2)
+   * @param amount
+   *          Initial amount of A and B entities
+   */
+  public NSMProductTestModel(IRandom rand, int numSubvols, int amount) {
+    super("NSM product test", null, new ModelEntityFactory(rand, null));
+
+    Map<String, AbstractValueRange<?>> productAtts = new LinkedHashMap<>();
+    productAtts.put(ATTRIBUTE,
+        AbstractValueRange.newSet(new HashSet<>(Arrays.asList(0, 1))));
+    getModelEntityFactory().registerSpeciesDefinition("C", productAtts, null);
+    Species specC = getModelEntityFactory().getSpeciesForName("C");
+
+    Species specA = new Species("A");
+    Species specB = new Species("B");
+    Map<String, Object> diffusion = new LinkedHashMap<>();
+    diffusion.put(SpatialAttribute.DIFFUSION.toString(), 1.);
+
+    NSMReactionRule rule = new NSMReactionRule(null,
+        new RuleSide.Builder().addEntity(new RuleEntity(specA))
+            .addEntity(new RuleEntity(specB)).build(),
+        Collections.<IAttributeModification> emptyList(),
+        Arrays.<List<IAttributeModification>> asList(
+            SpecialAttributeModification.CONSUMED,
+            SpecialAttributeModification.CONSUMED),
+        Arrays.asList(new InitEntity(specC,
+            Collections.<String, AbstractValueRange<?>> emptyMap())),
+        new FixedValueNode(0.05));
+    RuleCollection rules = new RuleCollection();
+    rules.add(rule);
+    setRules(rules);
+
+    IVectorFactory vf = new AVectorFactory();
+    List<Subvol> subvols = new ArrayList<>();
+    for (int i = 0; i < numSubvols; i++) {
+      Subvol sv = new Subvol(new AxisAlignedBox(vf.newPositionVector(i, 0.),
+          vf.newDisplacementVector(0.5, 0.5)), null);
+      sv.setName("sv" + i);
+      if (i > 0) {
+        sv.addNeighborOneWay(subvols.get(i - 1), 1.);
+        subvols.get(i - 1).addNeighborOneWay(sv, 1.);
+      }
+      subvols.add(sv);
+    }
+    subvols.get(0).updateState(new NSMEntity(specA, diffusion), amount);
+    subvols.get(numSubvols - 1).updateState(new NSMEntity(specB, diffusion),
+        amount);
+    setSubvolumes(subvols);
+  }
+}
@@ -0,0 +1,245 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jamesii.core.math.random.RandomSampler;
+import org.jamesii.core.math.random.distributions.BinomialDistribution;
+import org.jamesii.core.math.random.distributions.UniformDistribution;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.util.misc.Pair;
+
+/**
+ * An individual for the {@link IGenePool} using a bit set (an array of longs)
+ * for representing the genome, i.e. algorithm i is chosen if bit (i % 64) of
+ * word (i / 64) is set. Behaves like {@link BooleanIndividual}, but
+ * recombination works on whole words and the genome can be handed to
+ * {@link org.jamesii.asf.portfolios.ga.fitness.IColumnarPortfolioFitness}
+ * without conversion.
+ * 
+ */
+public class BitSetIndividual extends Individual {
+
+  /** The number of bits per genome word. */
+  private static final int BITS_PER_WORD = Long.SIZE;
+
+  /** The genome of the individual. */
+  private long[] genome;
+
+  /** The length of the genome, i.e. the number of algorithms. */
+  private int length;
+
+  /**
+   * Instantiates a new individual.
+   * 
+   * @param genome
+   *          the genome
+   * @param length
+   *          the length of the genome
+   * @param random
+   *          the random number generator to be used
+   */
+  public BitSetIndividual(long[] genome, int length, IRandom random) {
+    super(random);
+    this.genome = genome;
+    this.length = length;
+  }
+
+  @Override
+  public void generateRandomGenome(int genomeLength, int portfolioSize) {
+    int remainingPortfolioSize = portfolioSize;
+    long[] newGenome = new long[numOfWords(genomeLength)];
+    UniformDistribution randomPosition =
+        new UniformDistribution(getRNG(), 0, genomeLength);
+    while (remainingPortfolioSize > 0) {
+      int position = (int) randomPosition.getRandomNumber();
+      if (!isSet(newGenome, position)) {
+        flip(newGenome, position);
+        remainingPortfolioSize--;
+      }
+    }
+    this.genome = newGenome;
+    this.length = genomeLength;
+  }
+
+  @Override
+  public void mutate(double mutationRate, int minSize, int maxSize) {
+    BinomialDistribution mutationNumberDistribution =
+        new BinomialDistribution(getRNG(), mutationRate, length);
+    int numOfMutations =
+        (int) Math.round(mutationNumberDistribution.getRandomNumber());
+    int[] mutationPositions =
+        RandomSampler.sampleUnique(numOfMutations, length, getRNG());
+    for (int mutationPosition : mutationPositions) {
+      flip(genome, mutationPosition);
+    }
+  }
+
+  @Override
+  public void repairGenome(int minSize, int maxSize) {
+    int portfolioSize = numOfChosenAlgo();
+    if (portfolioSize < minSize) {
+      flipRandomly(minSize - portfolioSize, false);
+    } else if (portfolioSize > maxSize) {
+      flipRandomly(portfolioSize - maxSize, true);
+    }
+  }
+
+  /**
+   * Flips (randomly) the given number of bits that are currently set or unset.
+   * 
+   * @param count
+   *          the number of bits to be flipped
+   * @param set
+   *          true if set bits shall be flipped, false for unset bits
+   */
+  private void flipRandomly(int count, boolean set) {
+    List<Integer> positions = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      if (isSet(genome, i) == set) {
+        positions.add(i);
+      }
+    }
+    List<Integer> posForSwitching =
+        RandomSampler.sampleSet(count, positions, getRNG());
+    for (Integer posForSwitch : posForSwitching) {
+      flip(genome, posForSwitch);
+    }
+  }
+
+  @Override
+  public int numOfChosenAlgo() {
+    int ones = 0;
+    for (long word : genome) {
+      ones += Long.bitCount(word);
+    }
+    return ones;
+  }
+
+  @Override
+  public Pair<IIndividual, IIndividual> recombine(IIndividual partner) {
+    int crossoverPoint =
+        (int) (new UniformDistribution(getRNG(), 0, length)).getRandomNumber();
+    long[] partnerGenome =
+        partner instanceof BitSetIndividual ? ((BitSetIndividual) partner)
+            .getBits() : toBits(partner.getBooleanRepresentation());
+    Pair<long[], long[]> newGenomes =
+        recombineGenomes(crossoverPoint, genome, partnerGenome);
+    return new Pair<IIndividual, IIndividual>(new BitSetIndividual(
+        newGenomes.getFirstValue(), length, getRNG()), new BitSetIndividual(
+        newGenomes.getSecondValue(), length, getRNG()));
+  }
+
+  /**
+   * Recombines two genomes with one-point crossover at a given point.
+   * 
+   * @param crossover
+   *          the crossover point
+   * @param genomeParentA
+   *          the first parent's genome
+   * @param genomeParentB
+   *          the second parent's genome
+   * @return two recombined child genomes
+   */
+  protected static Pair<long[], long[]> recombineGenomes(int crossover,
+      long[] genomeParentA, long[] genomeParentB) {
+    return new Pair<>(copyGenome(crossover, genomeParentA, genomeParentB),
+        copyGenome(crossover, genomeParentB, genomeParentA));
+  }
+
+  /**
+   * Create new genome of form [genomeA (start -> crossover point) + genomeB
+   * (crossover point -> end)].
+   * 
+   * @param crossover
+   *          the crossover point
+   * @param genomeA
+   *          the first genome
+   * @param genomeB
+   *          the second genome
+   * @return the resulting genome
+   */
+  private static long[] copyGenome(int crossover, long[] genomeA,
+      long[] genomeB) {
+    long[] result = new long[genomeA.length];
+    int word = crossover / BITS_PER_WORD;
+    System.arraycopy(genomeA, 0, result, 0, word);
+    if (word < result.length) {
+      long lowerBits = (1L << (crossover % BITS_PER_WORD)) - 1;
+      result[word] = (genomeA[word] & lowerBits) | (genomeB[word] & ~lowerBits);
+      System.arraycopy(genomeB, word + 1, result, word + 1, result.length
+          - word - 1);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean[] getBooleanRepresentation() {
+    boolean[] result = new boolean[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = isSet(genome, i);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the genome as bit set. The returned array must not be modified.
+   * 
+   * @return the genome
+   */
+  public long[] getBits() {
+    return genome;
+  }
+
+  /**
+   * Gets the length of the genome.
+   * 
+   * @return the length
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Converts a boolean genome to a bit set.
+   * 
+   * @param genome
+   *          the genome
+   * @return the bit set
+   */
+  public static long[] toBits(boolean[] genome) {
+    long[] result = new long[numOfWords(genome.length)];
+    for (int i = 0; i < genome.length; i++) {
+      if (genome[i]) {
+        flip(result, i);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Gets the number of words needed to store a genome of the given length.
+   * 
+   * @param genomeLength
+   *          the length of the genome
+   * @return the number of words
+   */
+  private static int numOfWords(int genomeLength) {
+    return (genomeLength + BITS_PER_WORD - 1) / BITS_PER_WORD;
+  }
+
+  private static boolean isSet(long[] bits, int position) {
+    return (bits[position / BITS_PER_WORD] & (1L << position)) != 0;
+  }
+
+  private static void flip(long[] bits, int position) {
+    bits[position / BITS_PER_WORD] ^= 1L << position;
+  }
+
+}
@@ -0,0 +1,28 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import org.jamesii.core.math.random.generators.IRandom;
+
+/**
+ * Factory for {@link BitSetIndividual}.
+ * 
+ */
+public class BitSetIndividualFactory extends AbstractIndividualFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = -2829203467316744519L;
+
+  @Override
+  public IIndividual createRandomIndividual(IRandom rng, int length,
+      int portfolioSize) {
+    BitSetIndividual ind = new BitSetIndividual(null, length, rng);
+    ind.generateRandomGenome(length, portfolioSize);
+    return ind;
+  }
+
+}
@@ -36,6 +36,9 @@ public class GenePool implements IGenePool {
   /** The mutation rate. */
   private final double mutationRate;
 
+  /** The evaluator for the fitness of the individuals. */
+  private final IFitnessEvaluator evaluator;
+
   /** The best individual in this pool. */
   private IIndividual bestIndividual;
 
@@ -68,9 +71,36 @@ public class GenePool implements IGenePool {
   public GenePool(PortfolioProblemDescription problem, int numIndividuals,
       IPortfolioFitness fitness, double mutationRate,
       AbstractIndividualFactory individualFactory) {
+    this(problem, numIndividuals, fitness, mutationRate, individualFactory,
+        new SequentialFitnessEvaluator());
+  }
+
+  /**
+   * Public constructor for generating (populating) a new pool whose
+   * individuals (and those of all following generations) are evaluated by the
+   * given evaluator.
+   * 
+   * @param problem
+   *          the portfolio selection problem
+   * @param numIndividuals
+   *          the number of individuals
+   * @param fitness
+   *          the fitness function
+   * @param mutationRate
+   *          the mutation rate
+   * @param individualFactory
+   *          the factory to create individuals
+   * @param evaluator
+   *          the fitness evaluator
+   */
+  public GenePool(PortfolioProblemDescription problem, int numIndividuals,
+      IPortfolioFitness fitness, double mutationRate,
+      AbstractIndividualFactory individualFactory,
+      IFitnessEvaluator evaluator) {
     this.problem = problem;
     this.fitness = fitness;
     this.mutationRate = mutationRate;
+    this.evaluator = evaluator;
     populatePool(numIndividuals, individualFactory);
     calculateFitness();
   }
@@ -86,14 +116,17 @@ public class GenePool implements IGenePool {
    *          the fitness function
    * @param mutationRate
    *          the mutation rate
+   * @param evaluator
+   *          the fitness evaluator
    */
   private GenePool(IIndividual[] individuals,
       PortfolioProblemDescription portProbDesc, IPortfolioFitness fitness,
-      double mutationRate) {
+      double mutationRate, IFitnessEvaluator evaluator) {
     this.individuals = individuals;
     this.problem = portProbDesc;
     this.mutationRate = mutationRate;
     this.fitness = fitness;
+    this.evaluator = evaluator;
     calculateFitness();
   }
 
@@ -109,14 +142,11 @@ public class GenePool implements IGenePool {
     sumOfFitness = 0.0;
 
     double worstFitness = Double.POSITIVE_INFINITY;
-    double[] fitnessValues = new double[individuals.length];
 
     // 1st round: determine fitness by individual
+    double[] fitnessValues =
+        evaluator.evaluate(problem, fitness, individuals);
     for (int i = 0; i < individuals.length; i++) {
-      fitnessValues[i] =
-          fitness.calculateFitness(problem,
-              problem.getPerformanceData()[0].performances,
-              individuals[i].getBooleanRepresentation());
       if (fitnessValues[i] < worstFitness) {
         worstFitness = fitnessValues[i];
       }
@@ -193,7 +223,7 @@ public class GenePool implements IGenePool {
     }
 
     return new GenePool(newIndividuals.toArray(new IIndividual[newIndividuals
-        .size()]), problem, fitness, mutationRate);
+        .size()]), problem, fitness, mutationRate, evaluator);
   }
 
   /**
@@ -0,0 +1,34 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import org.jamesii.asf.portfolios.ga.fitness.IPortfolioFitness;
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+
+/**
+ * Interface for the evaluation of all individuals of a {@link GenePool}. An
+ * evaluator is used for all generations of a single run of the genetic
+ * algorithm, i.e. it may cache data that depends on the problem.
+ * 
+ */
+public interface IFitnessEvaluator {
+
+  /**
+   * Calculates the fitness of the given individuals.
+   * 
+   * @param problem
+   *          the portfolio problem
+   * @param fitness
+   *          the fitness function
+   * @param individuals
+   *          the individuals
+   * @return the fitness values, in the order of the individuals
+   */
+  double[] evaluate(PortfolioProblemDescription problem,
+      IPortfolioFitness fitness, IIndividual[] individuals);
+
+}
@@ -0,0 +1,169 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.jamesii.asf.portfolios.ga.fitness.IColumnarPortfolioFitness;
+import org.jamesii.asf.portfolios.ga.fitness.IPortfolioFitness;
+import org.jamesii.asf.portfolios.ga.fitness.PerformanceColumns;
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+
+/**
+ * Evaluates the individuals in parallel on a fork/join pool. This is only done
+ * for {@link IColumnarPortfolioFitness} functions, which are calculated on
+ * {@link PerformanceColumns} that are computed once per performance matrix,
+ * and on bit set genomes (taken as-is from {@link BitSetIndividual}, converted
+ * for all other individuals). Other fitness functions are not guaranteed to be
+ * thread-safe (e.g., the best-performances fitness modifies the performance
+ * data), so they are evaluated by a {@link SequentialFitnessEvaluator}.
+ * 
+ * The fork/join pool is given on construction, so that all evaluators of a
+ * {@link ParallelGenePoolFactory} share one pool (i.e., one set of worker
+ * threads) no matter how many gene pools it creates.
+ * 
+ */
+public class ParallelFitnessEvaluator implements IFitnessEvaluator {
+
+  /** The number of tasks the individuals are split into, per thread. */
+  private static final int TASKS_PER_THREAD = 4;
+
+  /** The pool the individuals are evaluated on. */
+  private final ForkJoinPool pool;
+
+  /** The maximal number of individuals to be evaluated concurrently. */
+  private final int parallelism;
+
+  /** The evaluator for fitness functions that are not columnar. */
+  private final IFitnessEvaluator sequentialEvaluator =
+      new SequentialFitnessEvaluator();
+
+  /** The performances from which the columns were computed. */
+  private Double[][] performances;
+
+  /** The performance columns. */
+  private PerformanceColumns columns;
+
+  /**
+   * Instantiates a new parallel fitness evaluator.
+   * 
+   * @param pool
+   *          the pool the individuals are evaluated on, its parallelism is the
+   *          maximal number of individuals to be evaluated concurrently
+   */
+  public ParallelFitnessEvaluator(ForkJoinPool pool) {
+    this.pool = pool;
+    this.parallelism = pool.getParallelism();
+  }
+
+  @Override
+  public double[] evaluate(final PortfolioProblemDescription problem,
+      IPortfolioFitness fitness, final IIndividual[] individuals) {
+    if (!(fitness instanceof IColumnarPortfolioFitness)) {
+      return sequentialEvaluator.evaluate(problem, fitness, individuals);
+    }
+
+    final IColumnarPortfolioFitness columnarFitness =
+        (IColumnarPortfolioFitness) fitness;
+    final PerformanceColumns perfColumns =
+        getColumns(problem.getPerformanceData()[0].performances);
+    final double[] fitnessValues = new double[individuals.length];
+
+    int numOfTasks =
+        Math.min(individuals.length, parallelism * TASKS_PER_THREAD);
+    if (parallelism == 1 || numOfTasks < 2) {
+      evaluate(problem, columnarFitness, perfColumns, individuals,
+          fitnessValues, 0, individuals.length);
+      return fitnessValues;
+    }
+
+    final List<RecursiveAction> tasks = new ArrayList<>(numOfTasks);
+    for (int i = 0; i < numOfTasks; i++) {
+      final int from = i * individuals.length / numOfTasks;
+      final int to = (i + 1) * individuals.length / numOfTasks;
+      tasks.add(new RecursiveAction() {
+        private static final long serialVersionUID = -6415399370457637404L;
+
+        @Override
+        protected void compute() {
+          evaluate(problem, columnarFitness, perfColumns, individuals,
+              fitnessValues, from, to);
+        }
+      });
+    }
+
+    pool.invoke(new RecursiveAction() {
+      private static final long serialVersionUID = 2931498262815389163L;
+
+      @Override
+      protected void compute() {
+        invokeAll(tasks);
+      }
+    });
+    return fitnessValues;
+  }
+
+  /**
+   * Evaluates a range of individuals.
+   * 
+   * @param problem
+   *          the portfolio problem
+   * @param fitness
+   *          the fitness function
+   * @param perfColumns
+   *          the performance columns
+   * @param individuals
+   *          the individuals
+   * @param fitnessValues
+   *          the array to store the fitness values in
+   * @param from
+   *          the index of the first individual (inclusive)
+   * @param to
+   *          the index of the last individual (exclusive)
+   */
+  private static void evaluate(PortfolioProblemDescription problem,
+      IColumnarPortfolioFitness fitness, PerformanceColumns perfColumns,
+      IIndividual[] individuals, double[] fitnessValues, int from, int to) {
+    for (int i = from; i < to; i++) {
+      IIndividual ind = individuals[i];
+      long[] genome =
+          ind instanceof BitSetIndividual ? ((BitSetIndividual) ind).getBits()
+              : BitSetIndividual.toBits(ind.getBooleanRepresentation());
+      fitnessValues[i] = fitness.calculateFitness(problem, perfColumns, genome);
+    }
+  }
+
+  /**
+   * Gets the performance columns for the given performances, computes them if
+   * needed.
+   * 
+   * @param perf
+   *          the performances
+   * @return the performance columns
+   */
+  private PerformanceColumns getColumns(Double[][] perf) {
+    // Check reference, since performances should stay the same...
+    if (performances != perf) {
+      performances = perf;
+      columns = new PerformanceColumns(perf);
+    }
+    return columns;
+  }
+
+  /**
+   * Gets the maximal number of individuals to be evaluated concurrently.
+   * 
+   * @return the parallelism
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+}
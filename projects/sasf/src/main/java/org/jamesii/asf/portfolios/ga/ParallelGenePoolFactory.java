@@ -0,0 +1,87 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.jamesii.asf.portfolios.ga.fitness.IPortfolioFitness;
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+
+/**
+ * Factory for {@link GenePool} instances that evaluate their individuals with
+ * a {@link ParallelFitnessEvaluator}. Should be combined with a
+ * {@link BitSetIndividualFactory} and a
+ * {@link org.jamesii.asf.portfolios.ga.fitness.IColumnarPortfolioFitness}.
+ * 
+ * All gene pools created by a factory share its fork/join pool, which is
+ * created on first use. Its worker threads are daemon threads that terminate
+ * when they have been idle for a while.
+ * 
+ */
+public class ParallelGenePoolFactory extends AbstractGenePoolFactory {
+
+  /** The Constant serialVersionUID. */
+  private static final long serialVersionUID = 5182733018641407735L;
+
+  /** The maximal number of individuals to be evaluated concurrently. */
+  private final int parallelism;
+
+  /** The pool the individuals are evaluated on, created on first use. */
+  private transient ForkJoinPool pool;
+
+  /**
+   * Instantiates a new factory, using as many threads as there are
+   * processors.
+   */
+  public ParallelGenePoolFactory() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Instantiates a new factory.
+   * 
+   * @param parallelism
+   *          the maximal number of individuals to be evaluated concurrently
+   */
+  public ParallelGenePoolFactory(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive, not "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  @Override
+  public IGenePool create(PortfolioProblemDescription problem,
+      int numIndividuals, IPortfolioFitness fitness, double mutationRate,
+      AbstractIndividualFactory individualFactory) {
+    return new GenePool(problem, numIndividuals, fitness, mutationRate,
+        individualFactory, new ParallelFitnessEvaluator(getPool()));
+  }
+
+  /**
+   * Gets the pool, creates it if needed.
+   * 
+   * @return the pool
+   */
+  private synchronized ForkJoinPool getPool() {
+    if (pool == null) {
+      pool = new ForkJoinPool(parallelism);
+    }
+    return pool;
+  }
+
+  /**
+   * Gets the maximal number of individuals to be evaluated concurrently.
+   * 
+   * @return the parallelism
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import org.jamesii.asf.portfolios.ga.fitness.IPortfolioFitness;
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+
+/**
+ * Evaluates the individuals one after another, on their boolean
+ * representation.
+ * 
+ */
+public class SequentialFitnessEvaluator implements IFitnessEvaluator {
+
+  @Override
+  public double[] evaluate(PortfolioProblemDescription problem,
+      IPortfolioFitness fitness, IIndividual[] individuals) {
+    double[] fitnessValues = new double[individuals.length];
+    for (int i = 0; i < individuals.length; i++) {
+      fitnessValues[i] =
+          fitness.calculateFitness(problem,
+              problem.getPerformanceData()[0].performances,
+              individuals[i].getBooleanRepresentation());
+    }
+    return fitnessValues;
+  }
+
+}
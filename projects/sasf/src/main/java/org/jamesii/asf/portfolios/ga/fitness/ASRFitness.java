@@ -21,7 +21,8 @@ import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
  * @author René Schulz
  * 
  */
-public class ASRFitness extends AbstractPortfolioFitness {
+public class ASRFitness extends AbstractPortfolioFitness implements
+    IColumnarPortfolioFitness {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = -6624789432669509589L;
@@ -65,4 +66,35 @@ public class ASRFitness extends AbstractPortfolioFitness {
         .getAcceptableRisk()) * averagePerformanceSum)
         / performances.length;
   }
+
+  @Override
+  public double calculateFitness(PortfolioProblemDescription problem,
+      PerformanceColumns columns, long[] genome) {
+    int[] chosen = PerformanceColumns.getChosenAlgorithms(genome);
+
+    // Best and summed performance per problem, algorithm by algorithm
+    double[] bestPerformances = columns.getPerformances(chosen[0]).clone();
+    double[] performanceSums = bestPerformances.clone();
+    for (int i = 1; i < chosen.length; i++) {
+      double[] performances = columns.getPerformances(chosen[i]);
+      for (int prob = 0; prob < performances.length; prob++) {
+        if (performances[prob] > bestPerformances[prob]) {
+          bestPerformances[prob] = performances[prob];
+        }
+        performanceSums[prob] += performances[prob];
+      }
+    }
+
+    double averagePerformanceSum = 0;
+    double bestPerformanceSum = 0;
+    for (int prob = 0; prob < bestPerformances.length; prob++) {
+      bestPerformanceSum += bestPerformances[prob];
+      averagePerformanceSum += (performanceSums[prob] / chosen.length);
+    }
+
+    // Apply linear interpolation between risky and non-risky case
+    return (problem.getAcceptableRisk() * bestPerformanceSum + (1 - problem
+        .getAcceptableRisk()) * averagePerformanceSum)
+        / columns.getNumOfAlgorithms();
+  }
 }
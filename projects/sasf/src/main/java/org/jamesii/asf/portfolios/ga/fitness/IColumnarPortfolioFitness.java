@@ -0,0 +1,38 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga.fitness;
+
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+
+/**
+ * Interface for fitness functions that can also be calculated on precomputed
+ * {@link PerformanceColumns} and genomes given as bit sets. The result has to
+ * be the same as for
+ * {@link IPortfolioFitness#calculateFitness(PortfolioProblemDescription, Double[][], boolean[])}
+ * (up to rounding errors). Implementations of this method must not modify
+ * any state, as it is called by several threads concurrently.
+ * 
+ */
+public interface IColumnarPortfolioFitness extends IPortfolioFitness {
+
+  /**
+   * Calculate fitness.
+   * 
+   * @param problem
+   *          the portfolio problem
+   * @param columns
+   *          the precomputed performances
+   * @param genome
+   *          the individual's genome, algorithm i is chosen if bit (i % 64) of
+   *          word (i / 64) is set
+   * 
+   * @return the fitness of the individual
+   */
+  double calculateFitness(PortfolioProblemDescription problem,
+      PerformanceColumns columns, long[] genome);
+
+}
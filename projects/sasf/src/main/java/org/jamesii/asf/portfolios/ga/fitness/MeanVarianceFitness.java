@@ -12,13 +12,16 @@ import org.jamesii.core.util.misc.Pair;
 
 
 /**
- * The calculates the mean-variance fitness of an individual.
+ * The calculates the mean-variance fitness of an individual. When calculated
+ * on {@link PerformanceColumns}, only the average performances and covariances
+ * of the chosen algorithms are summed up.
  * 
  * @see MeanVariancePortfolioUtils
  * 
  * @author Roland Ewald
  */
-public class MeanVarianceFitness extends AbstractPortfolioFitness {
+public class MeanVarianceFitness extends AbstractPortfolioFitness implements
+    IColumnarPortfolioFitness {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = -4358029730978595284L;
@@ -56,4 +59,32 @@ public class MeanVarianceFitness extends AbstractPortfolioFitness {
         averagePerformances, covMatrix, problem.getAcceptableRisk());
   }
 
+  @Override
+  public double calculateFitness(PortfolioProblemDescription problem,
+      PerformanceColumns columns, long[] genome) {
+    double[] means = columns.getMeans();
+    double[][] covariances = columns.getCovariances();
+    int[] chosen = PerformanceColumns.getChosenAlgorithms(genome);
+
+    // All chosen algorithms have the same weight, cf. boolean version
+    double weight = 1.0 / columns.getNumOfAlgorithms();
+    double mean = 0;
+    double variance = 0;
+    for (int i = 0; i < chosen.length; i++) {
+      double[] covRow = covariances[chosen[i]];
+      mean += means[chosen[i]];
+      // the covariance matrix is symmetric
+      double covSum = 0;
+      for (int j = 0; j < i; j++) {
+        covSum += covRow[chosen[j]];
+      }
+      variance += covRow[chosen[i]] + 2 * covSum;
+    }
+    mean *= weight;
+    variance *= weight * weight;
+
+    double risk = problem.getAcceptableRisk();
+    return risk * mean - (1 - risk) * variance;
+  }
+
 }
@@ -0,0 +1,185 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga.fitness;
+
+import org.jamesii.asf.portfolios.MeanVariancePortfolioUtils;
+import org.jamesii.core.util.misc.Pair;
+
+/**
+ * Performance data of a portfolio selection problem, precomputed once per
+ * algorithm (column) so that {@link IColumnarPortfolioFitness} functions do
+ * not have to go over the boxed performance matrix for every individual.
+ * Missing performances are stored as {@link Double#NaN}. Average performances
+ * and the covariance matrix (see {@link MeanVariancePortfolioUtils}) are only
+ * computed when they are needed for the first time.
+ * 
+ * Instances are safe to be used by several threads concurrently.
+ * 
+ */
+public final class PerformanceColumns {
+
+  /** The number of bits per genome word. */
+  private static final int BITS_PER_WORD = Long.SIZE;
+
+  /** The original performances, first index is the algorithm. */
+  private final Double[][] performances;
+
+  /** The performances, first index is the algorithm. */
+  private final double[][] values;
+
+  /** The sum of all (non-missing) performances per algorithm. */
+  private final double[] sums;
+
+  /** The average performance per algorithm. */
+  private volatile double[] means;
+
+  /** The covariance matrix of the algorithms. */
+  private volatile double[][] covariances;
+
+  /**
+   * Instantiates new performance columns.
+   * 
+   * @param performances
+   *          the performances, first index is the algorithm, second the
+   *          problem (null for missing values)
+   */
+  public PerformanceColumns(Double[][] performances) {
+    this.performances = performances;
+    values = new double[performances.length][];
+    sums = new double[performances.length];
+    for (int algo = 0; algo < performances.length; algo++) {
+      values[algo] = new double[performances[algo].length];
+      for (int prob = 0; prob < values[algo].length; prob++) {
+        Double perf = performances[algo][prob];
+        if (perf == null) {
+          values[algo][prob] = Double.NaN;
+        } else {
+          values[algo][prob] = perf;
+          sums[algo] += perf;
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of algorithms.
+   * 
+   * @return the number of algorithms
+   */
+  public int getNumOfAlgorithms() {
+    return values.length;
+  }
+
+  /**
+   * Gets the number of problems.
+   * 
+   * @return the number of problems
+   */
+  public int getNumOfProblems() {
+    return values.length == 0 ? 0 : values[0].length;
+  }
+
+  /**
+   * Gets the performances of an algorithm. The returned array must not be
+   * modified.
+   * 
+   * @param algo
+   *          the algorithm
+   * @return the performances per problem (NaN for missing values)
+   */
+  public double[] getPerformances(int algo) {
+    return values[algo];
+  }
+
+  /**
+   * Gets the sum of all (non-missing) performances of an algorithm.
+   * 
+   * @param algo
+   *          the algorithm
+   * @return the sum of performances
+   */
+  public double getSum(int algo) {
+    return sums[algo];
+  }
+
+  /**
+   * Gets the average performances of all algorithms. The returned array must
+   * not be modified.
+   * 
+   * @return the average performances
+   */
+  public double[] getMeans() {
+    initMeansAndCovariances();
+    return means;
+  }
+
+  /**
+   * Gets the covariance matrix of all algorithms. The returned array must not
+   * be modified.
+   * 
+   * @return the covariance matrix
+   */
+  public double[][] getCovariances() {
+    initMeansAndCovariances();
+    return covariances;
+  }
+
+  /**
+   * Computes average performances and covariance matrix, if necessary.
+   */
+  private void initMeansAndCovariances() {
+    if (covariances != null) {
+      return;
+    }
+    synchronized (this) {
+      if (covariances != null) {
+        return;
+      }
+      Pair<Double[], Double[][]> avgPerfCov =
+          MeanVariancePortfolioUtils.getAvgAndCovFromPerformances(performances);
+      Double[] avgPerf = avgPerfCov.getFirstValue();
+      Double[][] covMatrix = avgPerfCov.getSecondValue();
+      double[] newMeans = new double[avgPerf.length];
+      double[][] newCovariances = new double[covMatrix.length][];
+      for (int i = 0; i < avgPerf.length; i++) {
+        newMeans[i] = avgPerf[i];
+        newCovariances[i] = new double[covMatrix[i].length];
+        for (int j = 0; j < covMatrix[i].length; j++) {
+          newCovariances[i][j] = covMatrix[i][j];
+        }
+      }
+      means = newMeans;
+      covariances = newCovariances;
+    }
+  }
+
+  /**
+   * Gets the indices of the chosen algorithms from a genome that is given as
+   * bit set, i.e. algorithm i is chosen if bit (i % 64) of word (i / 64) is
+   * set.
+   * 
+   * @param genome
+   *          the genome
+   * @return the indices of the chosen algorithms, in ascending order
+   */
+  public static int[] getChosenAlgorithms(long[] genome) {
+    int count = 0;
+    for (long word : genome) {
+      count += Long.bitCount(word);
+    }
+    int[] chosen = new int[count];
+    int index = 0;
+    for (int w = 0; w < genome.length; w++) {
+      for (long word = genome[w]; word != 0; word &= word - 1) {
+        chosen[index++] =
+            w * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+      }
+    }
+    return chosen;
+  }
+
+}
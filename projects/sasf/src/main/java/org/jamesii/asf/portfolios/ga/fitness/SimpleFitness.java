@@ -16,7 +16,8 @@ import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
  * @author René Schulz, Roland Ewald
  */
 
-public class SimpleFitness extends AbstractPortfolioFitness {
+public class SimpleFitness extends AbstractPortfolioFitness implements
+    IColumnarPortfolioFitness {
 
   /** The Constant serialVersionUID. */
   private static final long serialVersionUID = -5312915673449712122L;
@@ -43,4 +44,15 @@ public class SimpleFitness extends AbstractPortfolioFitness {
     return fitness;
   }
 
+  @Override
+  public double calculateFitness(PortfolioProblemDescription problem,
+      PerformanceColumns columns, long[] genome) {
+    double fitness = 0;
+    int[] chosen = PerformanceColumns.getChosenAlgorithms(genome);
+    for (int algo : chosen) {
+      fitness += columns.getSum(algo) / columns.getNumOfProblems();
+    }
+    return fitness / chosen.length;
+  }
+
 }
@@ -0,0 +1,549 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.spdm.dataimport;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.jamesii.asf.spdm.Configuration;
+import org.jamesii.asf.spdm.Features;
+import org.jamesii.perfdb.recording.performance.plugintype.PerformanceMeasurerFactory;
+
+/**
+ * Column-oriented representation of a set of performance tuples, for data sets
+ * too large to be held as {@link PerformanceTuple} objects. Each row
+ * corresponds to a tuple. Instead of storing the feature/configuration maps per
+ * row, they are dictionary-encoded:
+ * <ul>
+ * <li>each distinct {@link Features} instance (i.e., problem) and each
+ * distinct {@link Configuration} is stored once and referred to by an int id,
+ * </li>
+ * <li>feature names are mapped to int ids, the feature values are held in one
+ * double column per feature (numeric values as they are, other values as ids
+ * of a per-feature dictionary of nominal values, {@link Double#NaN} if the
+ * feature is not defined for the row),</li>
+ * <li>the performances are held in a double column.</li>
+ * </ul>
+ * 
+ * Rows can only be appended. Use {@link #getView()} to filter the rows or group
+ * them by problem or configuration (see {@link PerformanceDataView}).
+ */
+public class ColumnarPerformanceDataSet implements Serializable {
+
+  /** Serialisation ID. */
+  private static final long serialVersionUID = -3911785217410672862L;
+
+  /** The initial capacity (number of rows). */
+  private static final int INITIAL_CAPACITY = 64;
+
+  /** The meta data (of all distinct features and configurations). */
+  private final PerfTupleMetaData metaData = new PerfTupleMetaData();
+
+  /** The names of the features, index is the feature id. */
+  private final List<String> featureNames = new ArrayList<>();
+
+  /** Map from feature name to feature id. */
+  private final Map<String, Integer> featureIDs = new HashMap<>();
+
+  /** The feature columns, index is the feature id. */
+  private final List<FeatureColumn> featureColumns = new ArrayList<>();
+
+  /** The distinct problems, index is the problem id. */
+  private final List<Features> problems = new ArrayList<>();
+
+  /** Map from problem to problem id. */
+  private final Map<Features, Integer> problemIDs = new HashMap<>();
+
+  /** The distinct configurations, index is the configuration id. */
+  private final List<Configuration> configurations = new ArrayList<>();
+
+  /** Map from configuration to configuration id. */
+  private final Map<Configuration, Integer> configurationIDs = new HashMap<>();
+
+  /** The distinct performance measurer factories. */
+  private final List<Class<? extends PerformanceMeasurerFactory>> perfMeasureFactories =
+      new ArrayList<>();
+
+  /** The problem id of each row. */
+  private int[] problemColumn = new int[INITIAL_CAPACITY];
+
+  /** The configuration id of each row. */
+  private int[] configurationColumn = new int[INITIAL_CAPACITY];
+
+  /** The index of the performance measurer factory of each row. */
+  private int[] perfMeasureColumn = new int[INITIAL_CAPACITY];
+
+  /** The performance of each row. */
+  private double[] performanceColumn = new double[INITIAL_CAPACITY];
+
+  /** The number of rows. */
+  private int size = 0;
+
+  /**
+   * Instantiates a new, empty data set.
+   * 
+   * @param maximise
+   *          flag to decide whether this performance measure shall be maximised
+   */
+  public ColumnarPerformanceDataSet(boolean maximise) {
+    metaData.setMaximizePerformance(maximise);
+  }
+
+  /**
+   * Creates a columnar copy of the given data set.
+   * 
+   * @param dataSet
+   *          the data set
+   * @return the columnar data set
+   */
+  public static ColumnarPerformanceDataSet fromDataSet(
+      PerformanceDataSet<?> dataSet) {
+    ColumnarPerformanceDataSet result =
+        new ColumnarPerformanceDataSet(dataSet.getMetaData() != null
+            && dataSet.getMetaData().isMaximizePerformance());
+    result.addAll(dataSet.getInstances());
+    return result;
+  }
+
+  /**
+   * Appends a row for each tuple.
+   * 
+   * @param tuples
+   *          the performance tuples
+   */
+  public void addAll(List<? extends PerformanceTuple> tuples) {
+    ensureCapacity(size + tuples.size());
+    for (PerformanceTuple tuple : tuples) {
+      add(tuple);
+    }
+  }
+
+  /**
+   * Appends a row for the tuple.
+   * 
+   * @param tuple
+   *          the performance tuple
+   * @return the row
+   */
+  public int add(PerformanceTuple tuple) {
+    return add(tuple.getFeatures(), tuple.getConfiguration(),
+        tuple.getPerfMeasureFactory(), tuple.getPerformance());
+  }
+
+  /**
+   * Appends a row.
+   * 
+   * @param features
+   *          the features of the simulation problem
+   * @param configuration
+   *          the configuration
+   * @param perfMeasureFactory
+   *          class of the performance measure factory
+   * @param performance
+   *          the performance
+   * @return the row
+   */
+  public int add(Features features, Configuration configuration,
+      Class<? extends PerformanceMeasurerFactory> perfMeasureFactory,
+      double performance) {
+    ensureCapacity(size + 1);
+
+    Integer problemID = problemIDs.get(features);
+    if (problemID == null) {
+      problemID = problems.size();
+      problems.add(features);
+      problemIDs.put(features, problemID);
+      metaData.checkForAttributes(features);
+    }
+
+    Integer configID = configurationIDs.get(configuration);
+    if (configID == null) {
+      configID = configurations.size();
+      configurations.add(configuration);
+      configurationIDs.put(configuration, configID);
+      metaData.checkForAttributes(configuration);
+    }
+
+    int perfMeasureID = perfMeasureFactories.indexOf(perfMeasureFactory);
+    if (perfMeasureID < 0) {
+      perfMeasureID = perfMeasureFactories.size();
+      perfMeasureFactories.add(perfMeasureFactory);
+    }
+
+    for (Entry<String, Serializable> feature : features.entrySet()) {
+      int featureID = getOrCreateFeatureID(feature.getKey());
+      if (!featureColumns.get(featureID).canStore(feature.getValue())) {
+        toNominal(featureID);
+      }
+      featureColumns.get(featureID).set(size, feature.getValue());
+    }
+
+    problemColumn[size] = problemID;
+    configurationColumn[size] = configID;
+    perfMeasureColumn[size] = perfMeasureID;
+    performanceColumn[size] = performance;
+    return size++;
+  }
+
+  /**
+   * Gets the id of the feature, creates the feature if necessary.
+   * 
+   * @param name
+   *          the name of the feature
+   * @return the feature id
+   */
+  private int getOrCreateFeatureID(String name) {
+    Integer id = featureIDs.get(name);
+    if (id == null) {
+      id = featureNames.size();
+      featureNames.add(name);
+      featureIDs.put(name, id);
+      featureColumns.add(new FeatureColumn(problemColumn.length));
+    }
+    return id;
+  }
+
+  /**
+   * Converts the values of a numeric feature to ids of nominal values. The
+   * nominal values are the original values of the problems, e.g. an
+   * {@link Integer} 5 and a {@link Double} 5.0 remain distinct.
+   * 
+   * @param featureID
+   *          the feature id
+   */
+  private void toNominal(int featureID) {
+    FeatureColumn column = featureColumns.get(featureID);
+    column.setNominal();
+    String name = featureNames.get(featureID);
+    for (int row = 0; row < size; row++) {
+      column.set(row, problems.get(problemColumn[row]).get(name));
+    }
+  }
+
+  /**
+   * Ensures the capacity of all columns.
+   * 
+   * @param capacity
+   *          the required number of rows
+   */
+  private void ensureCapacity(int capacity) {
+    if (capacity <= problemColumn.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, 2 * problemColumn.length);
+    problemColumn = Arrays.copyOf(problemColumn, newCapacity);
+    configurationColumn = Arrays.copyOf(configurationColumn, newCapacity);
+    perfMeasureColumn = Arrays.copyOf(perfMeasureColumn, newCapacity);
+    performanceColumn = Arrays.copyOf(performanceColumn, newCapacity);
+    for (FeatureColumn column : featureColumns) {
+      column.ensureCapacity(newCapacity);
+    }
+  }
+
+  /**
+   * Gets the number of rows.
+   * 
+   * @return the number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets a view on all rows.
+   * 
+   * @return the view
+   */
+  public PerformanceDataView getView() {
+    int[] rows = new int[size];
+    for (int i = 0; i < size; i++) {
+      rows[i] = i;
+    }
+    return new PerformanceDataView(this, rows);
+  }
+
+  /**
+   * Gets the meta data.
+   * 
+   * @return the meta data
+   */
+  public PerfTupleMetaData getMetaData() {
+    return metaData;
+  }
+
+  /**
+   * Gets the number of features.
+   * 
+   * @return the number of features
+   */
+  public int getNumberOfFeatures() {
+    return featureNames.size();
+  }
+
+  /**
+   * Gets the name of a feature.
+   * 
+   * @param featureID
+   *          the feature id
+   * @return the feature name
+   */
+  public String getFeatureName(int featureID) {
+    return featureNames.get(featureID);
+  }
+
+  /**
+   * Gets the id of a feature.
+   * 
+   * @param name
+   *          the feature name
+   * @return the feature id, -1 if there is no such feature
+   */
+  public int getFeatureID(String name) {
+    Integer id = featureIDs.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Checks whether a feature is nominal, i.e. whether its column holds the ids
+   * of its nominal values.
+   * 
+   * @param featureID
+   *          the feature id
+   * @return true, if the feature is nominal
+   */
+  public boolean isNominal(int featureID) {
+    return featureColumns.get(featureID).nominalValues != null;
+  }
+
+  /**
+   * Gets a nominal value of a feature.
+   * 
+   * @param featureID
+   *          the feature id
+   * @param valueID
+   *          the id of the value, as stored in the feature column
+   * @return the value
+   */
+  public Serializable getNominalValue(int featureID, int valueID) {
+    return featureColumns.get(featureID).nominalValues.get(valueID);
+  }
+
+  /**
+   * Gets the value of a feature.
+   * 
+   * @param row
+   *          the row
+   * @param featureID
+   *          the feature id
+   * @return the numeric value or the id of the nominal value,
+   *         {@link Double#NaN} if the feature is not defined for the row
+   */
+  public double getFeatureValue(int row, int featureID) {
+    checkRow(row);
+    return featureColumns.get(featureID).values[row];
+  }
+
+  /**
+   * Gets the performance.
+   * 
+   * @param row
+   *          the row
+   * @return the performance
+   */
+  public double getPerformance(int row) {
+    checkRow(row);
+    return performanceColumn[row];
+  }
+
+  /**
+   * Gets the number of distinct problems.
+   * 
+   * @return the number of problems
+   */
+  public int getNumberOfProblems() {
+    return problems.size();
+  }
+
+  /**
+   * Gets a problem.
+   * 
+   * @param problemID
+   *          the problem id
+   * @return the features of the problem
+   */
+  public Features getProblem(int problemID) {
+    return problems.get(problemID);
+  }
+
+  /**
+   * Gets the problem id.
+   * 
+   * @param row
+   *          the row
+   * @return the problem id
+   */
+  public int getProblemID(int row) {
+    checkRow(row);
+    return problemColumn[row];
+  }
+
+  /**
+   * Gets the number of distinct configurations.
+   * 
+   * @return the number of configurations
+   */
+  public int getNumberOfConfigurations() {
+    return configurations.size();
+  }
+
+  /**
+   * Gets a configuration.
+   * 
+   * @param configurationID
+   *          the configuration id
+   * @return the configuration
+   */
+  public Configuration getConfiguration(int configurationID) {
+    return configurations.get(configurationID);
+  }
+
+  /**
+   * Gets the configuration id.
+   * 
+   * @param row
+   *          the row
+   * @return the configuration id
+   */
+  public int getConfigurationID(int row) {
+    checkRow(row);
+    return configurationColumn[row];
+  }
+
+  /**
+   * Gets the performance measurer factory.
+   * 
+   * @param row
+   *          the row
+   * @return the class of the performance measurer factory
+   */
+  public Class<? extends PerformanceMeasurerFactory> getPerfMeasureFactory(
+      int row) {
+    checkRow(row);
+    return perfMeasureFactories.get(perfMeasureColumn[row]);
+  }
+
+  /**
+   * Creates the performance tuple of a row. Its features and configuration are
+   * shared with all tuples of the same problem and configuration.
+   * 
+   * @param row
+   *          the row
+   * @return the performance tuple
+   */
+  public PerformanceTuple getTuple(int row) {
+    checkRow(row);
+    return new PerformanceTuple(problems.get(problemColumn[row]),
+        configurations.get(configurationColumn[row]),
+        perfMeasureFactories.get(perfMeasureColumn[row]),
+        performanceColumn[row]);
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+    }
+  }
+
+  /**
+   * Column of a feature. Values are stored as numbers until the first value
+   * that is no {@link Number} or {@link Boolean} occurs; then all values
+   * (including those seen so far) are stored as ids of nominal values (see
+   * {@link ColumnarPerformanceDataSet#toNominal(int)}).
+   */
+  private static final class FeatureColumn implements Serializable {
+
+    private static final long serialVersionUID = 6093874625420914839L;
+
+    /** The values. */
+    private double[] values;
+
+    /** The nominal values, null if the feature is numeric. */
+    private List<Serializable> nominalValues;
+
+    /** Map from nominal value to its id, null if the feature is numeric. */
+    private Map<Serializable, Integer> nominalValueIDs;
+
+    FeatureColumn(int capacity) {
+      values = new double[capacity];
+      Arrays.fill(values, Double.NaN);
+    }
+
+    void ensureCapacity(int capacity) {
+      int oldCapacity = values.length;
+      values = Arrays.copyOf(values, capacity);
+      Arrays.fill(values, oldCapacity, capacity, Double.NaN);
+    }
+
+    /**
+     * Checks whether the value can be stored without converting the column
+     * to nominal values.
+     * 
+     * @param value
+     *          the value
+     * @return true, if the column is nominal or the value is numeric
+     */
+    boolean canStore(Serializable value) {
+      return nominalValues != null || value == null
+          || value instanceof Number || value instanceof Boolean;
+    }
+
+    /**
+     * Sets the value of a row.
+     * 
+     * @param row
+     *          the row
+     * @param value
+     *          the value, has to be storable (see
+     *          {@link #canStore(Serializable)})
+     */
+    void set(int row, Serializable value) {
+      if (value == null) {
+        values[row] = Double.NaN;
+      } else if (nominalValues != null) {
+        values[row] = getNominalValueID(value);
+      } else if (value instanceof Boolean) {
+        values[row] = ((Boolean) value) ? 1 : 0;
+      } else {
+        values[row] = ((Number) value).doubleValue();
+      }
+    }
+
+    /**
+     * Makes the column nominal, the values of all rows have to be set anew.
+     */
+    void setNominal() {
+      nominalValues = new ArrayList<>();
+      nominalValueIDs = new HashMap<>();
+    }
+
+    private int getNominalValueID(Serializable value) {
+      Integer id = nominalValueIDs.get(value);
+      if (id == null) {
+        id = nominalValues.size();
+        nominalValues.add(value);
+        nominalValueIDs.put(value, id);
+      }
+      return id;
+    }
+  }
+
+}
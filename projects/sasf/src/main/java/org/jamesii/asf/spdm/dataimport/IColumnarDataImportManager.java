@@ -0,0 +1,27 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.spdm.dataimport;
+
+/**
+ * Interface for data import managers that can import performance data into a
+ * {@link ColumnarPerformanceDataSet}, without keeping all performance tuples
+ * in memory.
+ * 
+ * @param <T>
+ *          the type of the performance tuples
+ */
+public interface IColumnarDataImportManager<T extends PerformanceTuple> extends
+    IDMDataImportManager<T> {
+
+  /**
+   * Get performance data in columnar form.
+   * 
+   * @return the performance data
+   */
+  ColumnarPerformanceDataSet getColumnarPerformanceData();
+
+}
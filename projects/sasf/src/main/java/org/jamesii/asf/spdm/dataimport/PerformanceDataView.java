@@ -0,0 +1,216 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.spdm.dataimport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * View on a subset of the rows of a {@link ColumnarPerformanceDataSet}. Views
+ * only hold the indices of their rows, filtering and grouping them does not
+ * copy any data.
+ */
+public class PerformanceDataView {
+
+  /**
+   * Filter for rows of a {@link ColumnarPerformanceDataSet}.
+   */
+  public interface IRowFilter {
+
+    /**
+     * Checks whether a row is accepted.
+     * 
+     * @param data
+     *          the data set
+     * @param row
+     *          the row
+     * @return true, if the row shall be kept
+     */
+    boolean accept(ColumnarPerformanceDataSet data, int row);
+  }
+
+  /** The data set. */
+  private final ColumnarPerformanceDataSet data;
+
+  /** The rows of the data set, in ascending order. */
+  private final int[] rows;
+
+  /**
+   * Instantiates a new view.
+   * 
+   * @param data
+   *          the data set
+   * @param rows
+   *          the rows (not copied)
+   */
+  PerformanceDataView(ColumnarPerformanceDataSet data, int[] rows) {
+    this.data = data;
+    this.rows = rows;
+  }
+
+  /**
+   * Gets the data set.
+   * 
+   * @return the data set
+   */
+  public ColumnarPerformanceDataSet getData() {
+    return data;
+  }
+
+  /**
+   * Gets the number of rows.
+   * 
+   * @return the number of rows
+   */
+  public int size() {
+    return rows.length;
+  }
+
+  /**
+   * Gets the row of the data set.
+   * 
+   * @param index
+   *          the index within this view
+   * @return the row of the data set
+   */
+  public int getRow(int index) {
+    return rows[index];
+  }
+
+  /**
+   * Gets the performances of the rows.
+   * 
+   * @return the performances, in the order of the rows
+   */
+  public double[] getPerformances() {
+    double[] result = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      result[i] = data.getPerformance(rows[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Gets the values of a feature for the rows.
+   * 
+   * @param featureID
+   *          the feature id
+   * @return the values, in the order of the rows (see
+   *         {@link ColumnarPerformanceDataSet#getFeatureValue(int, int)})
+   */
+  public double[] getFeatureValues(int featureID) {
+    double[] result = new double[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      result[i] = data.getFeatureValue(rows[i], featureID);
+    }
+    return result;
+  }
+
+  /**
+   * Creates a view on the rows accepted by the filter.
+   * 
+   * @param filter
+   *          the filter
+   * @return the filtered view
+   */
+  public PerformanceDataView filter(IRowFilter filter) {
+    int[] result = new int[rows.length];
+    int count = 0;
+    for (int row : rows) {
+      if (filter.accept(data, row)) {
+        result[count++] = row;
+      }
+    }
+    return new PerformanceDataView(data, Arrays.copyOf(result, count));
+  }
+
+  /**
+   * Groups the rows by problem.
+   * 
+   * @return one view per problem, index is the problem id (empty views for
+   *         problems without rows in this view)
+   */
+  public List<PerformanceDataView> groupByProblem() {
+    int[] groups = new int[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      groups[i] = data.getProblemID(rows[i]);
+    }
+    return group(groups, data.getNumberOfProblems());
+  }
+
+  /**
+   * Groups the rows by configuration.
+   * 
+   * @return one view per configuration, index is the configuration id (empty
+   *         views for configurations without rows in this view)
+   */
+  public List<PerformanceDataView> groupByConfiguration() {
+    int[] groups = new int[rows.length];
+    for (int i = 0; i < rows.length; i++) {
+      groups[i] = data.getConfigurationID(rows[i]);
+    }
+    return group(groups, data.getNumberOfConfigurations());
+  }
+
+  /**
+   * Groups the rows (counting sort by group id).
+   * 
+   * @param groups
+   *          the group id of each row
+   * @param numGroups
+   *          the number of groups
+   * @return one view per group
+   */
+  private List<PerformanceDataView> group(int[] groups, int numGroups) {
+    int[] groupSizes = new int[numGroups];
+    for (int group : groups) {
+      groupSizes[group]++;
+    }
+    int[][] groupRows = new int[numGroups][];
+    for (int g = 0; g < numGroups; g++) {
+      groupRows[g] = new int[groupSizes[g]];
+    }
+    int[] next = new int[numGroups];
+    for (int i = 0; i < rows.length; i++) {
+      groupRows[groups[i]][next[groups[i]]++] = rows[i];
+    }
+    List<PerformanceDataView> result = new ArrayList<>(numGroups);
+    for (int g = 0; g < numGroups; g++) {
+      result.add(new PerformanceDataView(data, groupRows[g]));
+    }
+    return result;
+  }
+
+  /**
+   * Creates the performance tuples of the rows, e.g. for predictor generators
+   * that do not support columnar data.
+   * 
+   * @return the performance tuples
+   */
+  public List<PerformanceTuple> toTuples() {
+    List<PerformanceTuple> result = new ArrayList<>(rows.length);
+    for (int row : rows) {
+      result.add(data.getTuple(row));
+    }
+    return result;
+  }
+
+  /**
+   * Creates a performance data set with the tuples of the rows (see
+   * {@link #toTuples()}) and the meta data of the columnar data set.
+   * 
+   * @return the performance data set
+   */
+  public PerformanceDataSet<PerformanceTuple> toDataSet() {
+    PerformanceDataSet<PerformanceTuple> result = new PerformanceDataSet<>();
+    result.setInstances(toTuples());
+    result.setMetaData(data.getMetaData());
+    return result;
+  }
+
+}
@@ -0,0 +1,95 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.util.Date;
+
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IHardwareSetup;
+import org.jamesii.perfdb.entities.IProblemInstance;
+import org.jamesii.perfdb.entities.IResultDataProvider;
+import org.jamesii.perfdb.entities.IRuntimeConfiguration;
+
+/**
+ * Application of the {@link BatchedPerformanceDatabase}.
+ */
+class Application extends IDEntity implements IApplication {
+
+  private static final long serialVersionUID = -7803390733811519788L;
+
+  /** The problem instance. */
+  private IProblemInstance problemInstance;
+
+  /** The runtime configuration. */
+  private IRuntimeConfiguration runtimeConfiguration;
+
+  /** The hardware setup (may be null). */
+  private IHardwareSetup setup;
+
+  /** The result data provider (may be null). */
+  private IResultDataProvider<?> dataProvider;
+
+  /** The execution date. */
+  private final Date executionDate;
+
+  Application(long id, IProblemInstance problemInstance,
+      IRuntimeConfiguration runtimeConfiguration, IHardwareSetup setup,
+      IResultDataProvider<?> dataProvider, Date executionDate) {
+    super(id);
+    this.problemInstance = problemInstance;
+    this.runtimeConfiguration = runtimeConfiguration;
+    this.setup = setup;
+    this.dataProvider = dataProvider;
+    this.executionDate = executionDate;
+  }
+
+  @Override
+  public IProblemInstance getProblemInstance() {
+    return problemInstance;
+  }
+
+  @Override
+  public void setProblemInstance(IProblemInstance problemInstance) {
+    this.problemInstance = problemInstance;
+  }
+
+  @Override
+  public IRuntimeConfiguration getRuntimeConfiguration() {
+    return runtimeConfiguration;
+  }
+
+  @Override
+  public void setRuntimeConfiguration(IRuntimeConfiguration runtimeConfiguration) {
+    this.runtimeConfiguration = runtimeConfiguration;
+  }
+
+  @Override
+  public IHardwareSetup getSetup() {
+    return setup;
+  }
+
+  @Override
+  public void setSetup(IHardwareSetup setup) {
+    this.setup = setup;
+  }
+
+  @Override
+  public IResultDataProvider<?> getDataProvider() {
+    return dataProvider;
+  }
+
+  @Override
+  public void setDataProvider(IResultDataProvider<?> dataProvider) {
+    this.dataProvider = dataProvider;
+  }
+
+  @Override
+  public Date getExecutionDate() {
+    return executionDate;
+  }
+
+}
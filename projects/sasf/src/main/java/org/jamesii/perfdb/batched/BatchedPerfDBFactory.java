@@ -0,0 +1,46 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.core.data.DBConnectionData;
+import org.jamesii.core.factories.Context;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.perfdb.IPerformanceDatabase;
+import org.jamesii.perfdb.plugintype.PerfDBFactory;
+
+/**
+ * Factory for the {@link BatchedPerformanceDatabase}. The batch size and the
+ * maximal delay of inserts can be configured via {@link #BATCH_SIZE} and
+ * {@link #MAX_DELAY}.
+ */
+public class BatchedPerfDBFactory extends PerfDBFactory {
+
+  private static final long serialVersionUID = -3735024985419381436L;
+
+  /** The number of inserts that are written in one batch. Type: Integer. */
+  public static final String BATCH_SIZE = "batchSize";
+
+  /** The maximal time (in ms) an insert may be pending. Type: Long. */
+  public static final String MAX_DELAY = "maxDelay";
+
+  @Override
+  public IPerformanceDatabase create(ParameterBlock params, Context context) {
+    return new BatchedPerformanceDatabase(
+        (DBConnectionData) params
+            .getSubBlockValue(PerfDBFactory.CONNECTION_DATA),
+        params.getSubBlockValue(BATCH_SIZE,
+            BatchedPerformanceDatabase.DEFAULT_BATCH_SIZE),
+        params.getSubBlockValue(MAX_DELAY,
+            BatchedPerformanceDatabase.DEFAULT_MAX_DELAY));
+  }
+
+  @Override
+  public int supportsParameters(ParameterBlock params) {
+    return 1;
+  }
+
+}
@@ -0,0 +1,1579 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.jamesii.core.data.DBConnectionData;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.serialization.SerialisationUtils;
+import org.jamesii.perfdb.DatabaseAccessException;
+import org.jamesii.perfdb.IPerformanceDatabase;
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IFeature;
+import org.jamesii.perfdb.entities.IFeatureType;
+import org.jamesii.perfdb.entities.IHardwareSetup;
+import org.jamesii.perfdb.entities.IIDEntity;
+import org.jamesii.perfdb.entities.IMachine;
+import org.jamesii.perfdb.entities.IPerformance;
+import org.jamesii.perfdb.entities.IPerformanceType;
+import org.jamesii.perfdb.entities.IProblemDefinition;
+import org.jamesii.perfdb.entities.IProblemInstance;
+import org.jamesii.perfdb.entities.IProblemScheme;
+import org.jamesii.perfdb.entities.IResultDataProvider;
+import org.jamesii.perfdb.entities.IRuntimeConfiguration;
+import org.jamesii.perfdb.recording.features.plugintype.FeatureExtractorFactory;
+import org.jamesii.perfdb.recording.features.plugintype.IFeatureExtractor;
+import org.jamesii.perfdb.recording.performance.plugintype.PerformanceMeasurerFactory;
+import org.jamesii.perfdb.recording.selectiontrees.SelectionTree;
+import org.jamesii.perfdb.util.ParameterBlocks;
+
+/**
+ * JDBC implementation of the performance database that is optimised for
+ * recording many runs:
+ * <ul>
+ * <li>all statements are prepared once per connection and then re-used (see
+ * {@link StatementCache}),</li>
+ * <li>problem instances, applications, performances, and new features are
+ * inserted asynchronously in JDBC batches by a {@link WriteBehindQueue}, i.e.
+ * recording a run does not wait for the database,</li>
+ * <li>problem schemes and definitions, problem instances, runtime
+ * configurations, machines, hardware setups, and performance and feature types
+ * are loaded on {@link #open()} and then kept in an identity cache, so that
+ * looking them up (which is done for every recorded run) does not require any
+ * query.</li>
+ * </ul>
+ * 
+ * IDs are assigned by this class, not by the database: each instance reserves
+ * blocks of {@link #ID_BLOCK_SIZE} IDs per table in the table
+ * {@link #SEQUENCES}, so that several instances (e.g., of different processes)
+ * may write to the same database. Cache misses reload the caches if another
+ * instance has reserved IDs of the table in question since they were loaded.
+ * All queries for applications, performances, and features flush the
+ * write-behind queue first, i.e. they see all previous writes of this instance.
+ * 
+ * The schema is created on {@link #create()} or {@link #open()}, if it does not
+ * exist yet. It uses standard SQL only (plus MySQL's LONGTEXT for MySQL
+ * URLs), and has been tested with HSQLDB.
+ */
+public class BatchedPerformanceDatabase implements IPerformanceDatabase {
+
+  /** The default number of inserts that are written in one batch. */
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+
+  /** The default maximal time (in ms) an insert may be pending. */
+  public static final long DEFAULT_MAX_DELAY = 1000;
+
+  /** The number of IDs of a table that are reserved at once. */
+  public static final int ID_BLOCK_SIZE = 1000;
+
+  /** Table of the next IDs to be reserved, by table. */
+  static final String SEQUENCES = "id_sequences";
+
+  /** Table of problem schemes. */
+  static final String SCHEMES = "problem_schemes";
+
+  /** Table of problem definitions. */
+  static final String DEFINITIONS = "problem_definitions";
+
+  /** Table of problem instances. */
+  static final String INSTANCES = "problem_instances";
+
+  /** Table of machines. */
+  static final String MACHINES = "machines";
+
+  /** Table of hardware setups. */
+  static final String SETUPS = "hardware_setups";
+
+  /** Table relating hardware setups and machines. */
+  static final String SETUP_MACHINES = "setup_machines";
+
+  /** Table of runtime configurations. */
+  static final String CONFIGS = "runtime_configurations";
+
+  /** Table of applications. */
+  static final String APPLICATIONS = "applications";
+
+  /** Table of performance types. */
+  static final String PERF_TYPES = "performance_types";
+
+  /** Table of performances. */
+  static final String PERFORMANCES = "performances";
+
+  /** Table of feature types. */
+  static final String FEATURE_TYPES = "feature_types";
+
+  /** Table of features. */
+  static final String FEATURES = "features";
+
+  /** The tables with an ID column. */
+  private static final String[] ID_TABLES = { SCHEMES, DEFINITIONS,
+      INSTANCES, MACHINES, SETUPS, CONFIGS, APPLICATIONS, PERF_TYPES,
+      PERFORMANCES, FEATURE_TYPES, FEATURES };
+
+  /**
+   * The column definitions of all tables (in the order of {@link #ID_TABLES},
+   * followed by {@link #SETUP_MACHINES}), %s stands for the large text type.
+   */
+  private static final String[] COLUMNS = {
+      "id BIGINT PRIMARY KEY, uri VARCHAR(1024), name VARCHAR(255),"
+          + " scheme_type VARCHAR(255), description %s",
+      "id BIGINT PRIMARY KEY, scheme_id BIGINT, def_params_hash BIGINT,"
+          + " scheme_params_hash BIGINT, def_params %1$s, scheme_params %1$s",
+      "id BIGINT PRIMARY KEY, definition_id BIGINT, rng_seed BIGINT,"
+          + " rng_name VARCHAR(255)",
+      "id BIGINT PRIMARY KEY, name VARCHAR(255), description %s,"
+          + " mac_address VARCHAR(64), scimark DOUBLE",
+      "id BIGINT PRIMARY KEY, name VARCHAR(255), description %s,"
+          + " nw_topology VARCHAR(255), nw_speed BIGINT",
+      "id BIGINT PRIMARY KEY, selection_tree %s, tree_hash BIGINT,"
+          + " version INT, up_to_date BOOLEAN, introduction_date TIMESTAMP",
+      "id BIGINT PRIMARY KEY, instance_id BIGINT, config_id BIGINT,"
+          + " setup_id BIGINT, data_provider %s, execution_date TIMESTAMP",
+      "id BIGINT PRIMARY KEY, name VARCHAR(255), description %s,"
+          + " measurer_class VARCHAR(1024)",
+      "id BIGINT PRIMARY KEY, application_id BIGINT, type_id BIGINT,"
+          + " performance DOUBLE",
+      "id BIGINT PRIMARY KEY, name VARCHAR(255), description %s,"
+          + " extractor_class VARCHAR(1024)",
+      "id BIGINT PRIMARY KEY, application_id BIGINT, type_id BIGINT,"
+          + " feature_values %s", "setup_id BIGINT, machine_id BIGINT" };
+
+  /** The indices on foreign keys that are used by queries. */
+  private static final String[] INDICES = {
+      INSTANCES + " (definition_id)", APPLICATIONS + " (instance_id)",
+      PERFORMANCES + " (application_id)", PERFORMANCES + " (type_id)",
+      FEATURES + " (application_id)", SETUP_MACHINES + " (setup_id)" };
+
+  /** The columns of an application. */
+  private static final String APPLICATION_COLUMNS =
+      "a.id, a.instance_id, a.config_id, a.setup_id, a.data_provider,"
+          + " a.execution_date";
+
+  /** Query for applications joined with their problem instance. */
+  private static final String APPLICATIONS_OF_DEFINITION = "SELECT "
+      + APPLICATION_COLUMNS + " FROM " + APPLICATIONS + " a, " + INSTANCES
+      + " i WHERE a.instance_id = i.id AND i.definition_id = ?";
+
+  /** The connection data. */
+  private final DBConnectionData connectionData;
+
+  /** The number of inserts that are written in one batch. */
+  private final int batchSize;
+
+  /** The maximal time (in ms) an insert may be pending. */
+  private final long maxDelay;
+
+  /** The statements of the connection for queries and synchronous writes. */
+  private StatementCache statements;
+
+  /** The write-behind queue. */
+  private WriteBehindQueue writeQueue;
+
+  /** Map table => reserved IDs, i.e. the next ID and the limit of the block. */
+  private final Map<String, long[]> idBlocks = new HashMap<>();
+
+  /**
+   * Map table => next ID of its sequence when the caches were loaded, advanced
+   * by the blocks this instance has reserved since.
+   */
+  private final Map<String, Long> loadedSequences = new HashMap<>();
+
+  /** The problem schemes, by ID. */
+  private final Map<Long, ProblemScheme> schemes = new LinkedHashMap<>();
+
+  /** The problem schemes, by URI. */
+  private final Map<URI, ProblemScheme> schemesByURI = new HashMap<>();
+
+  /** The problem definitions, by ID. */
+  private final Map<Long, ProblemDefinition> definitions =
+      new LinkedHashMap<>();
+
+  /** The problem definitions, by scheme and parameter hashes. */
+  private final Map<String, ProblemDefinition> definitionsByKey =
+      new HashMap<>();
+
+  /** The problem instances, by ID. */
+  private final Map<Long, ProblemInstance> instances = new LinkedHashMap<>();
+
+  /** The problem instances, by definition and seed. */
+  private final Map<String, ProblemInstance> instancesByKey = new HashMap<>();
+
+  /** The machines, by ID. */
+  private final Map<Long, Machine> machines = new LinkedHashMap<>();
+
+  /** The hardware setups, by ID. */
+  private final Map<Long, HardwareSetup> setups = new LinkedHashMap<>();
+
+  /** The hardware setups, by name. */
+  private final Map<String, HardwareSetup> setupsByName = new HashMap<>();
+
+  /** The runtime configurations, by ID. */
+  private final Map<Long, RuntimeConfiguration> configs =
+      new LinkedHashMap<>();
+
+  /** The up-to-date runtime configurations, by selection tree hash. */
+  private final Map<Long, RuntimeConfiguration> currentConfigs =
+      new HashMap<>();
+
+  /** The performance types, by ID. */
+  private final Map<Long, PerformanceType> perfTypes = new LinkedHashMap<>();
+
+  /** The feature types, by ID. */
+  private final Map<Long, FeatureType> featureTypes = new LinkedHashMap<>();
+
+  /**
+   * Instantiates a new batched performance database with default batch size
+   * and delay.
+   * 
+   * @param connectionData
+   *          the connection data
+   */
+  public BatchedPerformanceDatabase(DBConnectionData connectionData) {
+    this(connectionData, DEFAULT_BATCH_SIZE, DEFAULT_MAX_DELAY);
+  }
+
+  /**
+   * Instantiates a new batched performance database.
+   * 
+   * @param connectionData
+   *          the connection data
+   * @param batchSize
+   *          the number of inserts that are written in one batch
+   * @param maxDelay
+   *          the maximal time (in ms) an insert may be pending
+   */
+  public BatchedPerformanceDatabase(DBConnectionData connectionData,
+      int batchSize, long maxDelay) {
+    if (batchSize < 1 || maxDelay < 1) {
+      throw new IllegalArgumentException(
+          "Batch size and delay have to be positive.");
+    }
+    this.connectionData = connectionData;
+    this.batchSize = batchSize;
+    this.maxDelay = maxDelay;
+  }
+
+  /**
+   * Computes the hash of a parameter map, which is independent of the order of
+   * the entries and of the identity of parameter blocks.
+   * 
+   * @param parameters
+   *          the parameters (may be null)
+   * @return the hash
+   */
+  static long getParametersHash(Map<String, Serializable> parameters) {
+    if (parameters == null) {
+      return 0;
+    }
+    long hash = 1125899906842597L;
+    for (Entry<String, Serializable> entry : new TreeMap<>(parameters)
+        .entrySet()) {
+      Object value = entry.getValue();
+      String string =
+          entry.getKey()
+              + '='
+              + (value instanceof ParameterBlock ? ParameterBlocks
+                  .toUniqueString((ParameterBlock) value) : String
+                  .valueOf(value)) + ';';
+      for (int i = 0; i < string.length(); i++) {
+        hash = 31 * hash + string.charAt(i);
+      }
+    }
+    return hash;
+  }
+
+  // General
+
+  @Override
+  public synchronized void create() {
+    connect();
+    try {
+      createTables();
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  @Override
+  public synchronized void open() {
+    create();
+    flush();
+    clearCaches();
+    reloadCaches();
+  }
+
+  @Override
+  public synchronized void clear() {
+    flush();
+    try {
+      for (String table : ID_TABLES) {
+        update("DELETE FROM " + table);
+      }
+      update("DELETE FROM " + SETUP_MACHINES);
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    clearCaches();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (statements == null) {
+      return;
+    }
+    try {
+      writeQueue.close();
+    } finally {
+      try {
+        statements.close();
+      } catch (SQLException e) {
+        throw new DatabaseAccessException(e);
+      } finally {
+        statements = null;
+        writeQueue = null;
+        idBlocks.clear();
+        clearCaches();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    checkOpen();
+    writeQueue.flush();
+  }
+
+  // Problem schemes
+
+  @Override
+  public synchronized List<IProblemScheme> getAllProblemSchemes() {
+    refreshCaches(SCHEMES);
+    return new ArrayList<IProblemScheme>(schemes.values());
+  }
+
+  @Override
+  public synchronized IProblemScheme getProblemScheme(URI uri) {
+    ProblemScheme scheme = schemesByURI.get(uri);
+    if (scheme == null && refreshCaches(SCHEMES)) {
+      scheme = schemesByURI.get(uri);
+    }
+    return scheme;
+  }
+
+  @Override
+  public synchronized IProblemScheme newProblemScheme(URI uri, String name,
+      String type, String description) {
+    IProblemScheme existing = getProblemScheme(uri);
+    if (existing != null) {
+      return existing;
+    }
+    ProblemScheme scheme =
+        new ProblemScheme(nextID(SCHEMES), uri, name, type, description);
+    insert(SCHEMES, scheme.getID(), uri.toString(), name, type, description);
+    cache(scheme);
+    return scheme;
+  }
+
+  @Override
+  public synchronized boolean deleteProblemScheme(IProblemScheme scheme) {
+    ProblemScheme cached = schemes.remove(scheme.getID());
+    if (cached != null) {
+      schemesByURI.remove(cached.getUri());
+    }
+    return delete(SCHEMES, scheme);
+  }
+
+  // Problem definitions and instances
+
+  @Override
+  public synchronized List<IProblemDefinition> getAllProblemDefinitions() {
+    refreshCaches(DEFINITIONS);
+    return new ArrayList<IProblemDefinition>(definitions.values());
+  }
+
+  @Override
+  public synchronized List<IProblemDefinition> getAllProblemDefinitions(
+      IProblemScheme scheme) {
+    refreshCaches(DEFINITIONS);
+    List<IProblemDefinition> result = new ArrayList<>();
+    for (ProblemDefinition definition : definitions.values()) {
+      if (definition.getProblemScheme().getID() == scheme.getID()) {
+        result.add(definition);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized IProblemDefinition getProblemDefinition(
+      IProblemScheme scheme, Map<String, Serializable> definitionParameters,
+      Map<String, Serializable> schemeParameters) {
+    String key =
+        getDefinitionKey(scheme.getID(),
+            getParametersHash(definitionParameters),
+            getParametersHash(schemeParameters));
+    ProblemDefinition definition = definitionsByKey.get(key);
+    if (definition == null && refreshCaches(DEFINITIONS)) {
+      definition = definitionsByKey.get(key);
+    }
+    return definition;
+  }
+
+  @Override
+  public synchronized IProblemDefinition newProblemDefinition(
+      IProblemScheme scheme, Map<String, Serializable> definitionParameters,
+      Map<String, Serializable> schemeParameters) {
+    IProblemDefinition existing =
+        getProblemDefinition(scheme, definitionParameters, schemeParameters);
+    if (existing != null) {
+      return existing;
+    }
+    ProblemDefinition definition =
+        new ProblemDefinition(nextID(DEFINITIONS), scheme,
+            definitionParameters, schemeParameters);
+    insert(DEFINITIONS, definition.getID(), scheme.getID(),
+        definition.getDefinitionParametersHash(),
+        definition.getSchemeParametersHash(),
+        toString(toSerializableMap(definitionParameters)),
+        toString(toSerializableMap(schemeParameters)));
+    cache(definition);
+    return definition;
+  }
+
+  @Override
+  public synchronized boolean deleteProblemDefinition(
+      IProblemDefinition problemDefinition) {
+    ProblemDefinition cached = definitions.remove(problemDefinition.getID());
+    if (cached != null) {
+      definitionsByKey.remove(getDefinitionKey(cached));
+    }
+    return delete(DEFINITIONS, problemDefinition);
+  }
+
+  @Override
+  public synchronized IProblemInstance newProblemInstance(
+      IProblemDefinition problemDefinition, long rngSeed,
+      String rngFactoryName) {
+    IProblemInstance existing = getProblemInstance(problemDefinition, rngSeed);
+    if (existing != null) {
+      return existing;
+    }
+    ProblemInstance instance =
+        new ProblemInstance(nextID(INSTANCES), problemDefinition, rngSeed,
+            rngFactoryName);
+    enqueueInsert(INSTANCES, instance.getID(), problemDefinition.getID(),
+        rngSeed, rngFactoryName);
+    cache(instance);
+    return instance;
+  }
+
+  @Override
+  public synchronized IProblemInstance getProblemInstance(
+      IProblemDefinition problemDefinition, long rngSeed) {
+    String key = problemDefinition.getID() + ":" + rngSeed;
+    ProblemInstance instance = instancesByKey.get(key);
+    if (instance == null && refreshCaches(INSTANCES)) {
+      instance = instancesByKey.get(key);
+    }
+    return instance;
+  }
+
+  @Override
+  public synchronized List<IProblemInstance> getAllProblemInstances(
+      IProblemDefinition problemDefinition) {
+    refreshCaches(INSTANCES);
+    List<IProblemInstance> result = new ArrayList<>();
+    for (ProblemInstance instance : instances.values()) {
+      if (instance.getProblemDefinition().getID() == problemDefinition
+          .getID()) {
+        result.add(instance);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized boolean deleteProblemInstance(
+      IProblemInstance problemInstance) {
+    ProblemInstance cached = instances.remove(problemInstance.getID());
+    if (cached != null) {
+      instancesByKey.remove(cached.getProblemDefinition().getID() + ":"
+          + cached.getRandomSeed());
+    }
+    flush();
+    return delete(INSTANCES, problemInstance);
+  }
+
+  // Runtime configurations and applications
+
+  @Override
+  public synchronized IRuntimeConfiguration getRuntimeConfig(
+      SelectionTree selectionTree) {
+    return getCurrentConfig(selectionTree.getHash());
+  }
+
+  @Override
+  public synchronized List<IRuntimeConfiguration> getAllRuntimeConfigurations(
+      IProblemInstance probInstance) {
+    return queryRuntimeConfigs("SELECT DISTINCT config_id FROM "
+        + APPLICATIONS + " WHERE instance_id = ?", false, probInstance.getID());
+  }
+
+  @Override
+  public synchronized List<IRuntimeConfiguration> getAllRuntimeConfigs() {
+    refreshCaches(CONFIGS);
+    return new ArrayList<IRuntimeConfiguration>(configs.values());
+  }
+
+  @Override
+  public synchronized List<IRuntimeConfiguration> getAllRuntimeConfigs(
+      IProblemDefinition simProb) {
+    return queryRuntimeConfigs(getConfigsOfDefinitionQuery(), false,
+        simProb.getID());
+  }
+
+  @Override
+  public synchronized List<IRuntimeConfiguration> getAllCurrentRTConfigs(
+      IProblemDefinition simProb) {
+    return queryRuntimeConfigs(getConfigsOfDefinitionQuery(), true,
+        simProb.getID());
+  }
+
+  @Override
+  public synchronized IRuntimeConfiguration newRuntimeConfiguration(
+      SelectionTree selectionTree, boolean newVersion) {
+    long hash = selectionTree.getHash();
+    RuntimeConfiguration current = getCurrentConfig(hash);
+    if (current != null && !newVersion) {
+      return current;
+    }
+    int version = 1;
+    if (current != null) {
+      version = current.getVersion() + 1;
+      try {
+        update("UPDATE " + CONFIGS + " SET up_to_date = ? WHERE id = ?",
+            false, current.getID());
+      } catch (SQLException e) {
+        throw new DatabaseAccessException(e);
+      }
+      current.setUpToDate(false);
+    }
+    RuntimeConfiguration config =
+        new RuntimeConfiguration(nextID(CONFIGS), selectionTree, version, true,
+            new Date());
+    insert(CONFIGS, config.getID(), toString(selectionTree), hash, version,
+        true, new Timestamp(config.getIntroductionDate().getTime()));
+    cache(config, hash);
+    return config;
+  }
+
+  @Override
+  public synchronized IApplication newApplication(IProblemInstance probInst,
+      IRuntimeConfiguration rtConfig, IHardwareSetup hwSetup,
+      IResultDataProvider<?> sdProvider) {
+    Application application =
+        new Application(nextID(APPLICATIONS), probInst, rtConfig, hwSetup,
+            sdProvider, new Date());
+    enqueueInsert(APPLICATIONS, application.getID(), probInst.getID(),
+        rtConfig.getID(), hwSetup == null ? null : hwSetup.getID(),
+        sdProvider == null ? null : toString(sdProvider), new Timestamp(
+            application.getExecutionDate().getTime()));
+    return application;
+  }
+
+  @Override
+  public synchronized List<IApplication> getAllApplications(
+      IProblemInstance probInstance) {
+    return queryApplications("SELECT " + APPLICATION_COLUMNS + " FROM "
+        + APPLICATIONS + " a WHERE a.instance_id = ? ORDER BY a.id",
+        probInstance.getID());
+  }
+
+  @Override
+  public synchronized List<IApplication> getAllApplications(
+      IProblemInstance instance, IRuntimeConfiguration rtConfig) {
+    return queryApplications("SELECT " + APPLICATION_COLUMNS + " FROM "
+        + APPLICATIONS
+        + " a WHERE a.instance_id = ? AND a.config_id = ? ORDER BY a.id",
+        instance.getID(), rtConfig.getID());
+  }
+
+  @Override
+  public synchronized List<IApplication> getAllApplications(
+      IProblemDefinition simProb) {
+    return queryApplications(APPLICATIONS_OF_DEFINITION + " ORDER BY a.id",
+        simProb.getID());
+  }
+
+  @Override
+  public synchronized List<IApplication> getAllApplications(
+      IProblemDefinition simProb, IRuntimeConfiguration rtConfig) {
+    return queryApplications(APPLICATIONS_OF_DEFINITION
+        + " AND a.config_id = ? ORDER BY a.id", simProb.getID(),
+        rtConfig.getID());
+  }
+
+  // Performances
+
+  @Override
+  public synchronized List<IPerformanceType> getAllPerformanceTypes() {
+    refreshCaches(PERF_TYPES);
+    return new ArrayList<IPerformanceType>(perfTypes.values());
+  }
+
+  @Override
+  public synchronized IPerformanceType getPerformanceType(
+      Class<? extends PerformanceMeasurerFactory> measurerClass) {
+    String name;
+    try {
+      name = measurerClass.newInstance().getMeasurementName();
+    } catch (InstantiationException | IllegalAccessException e) {
+      throw new DatabaseAccessException(
+          "Could not determine name of performance measure "
+              + measurerClass.getName(), e);
+    }
+    return newPerformanceType(name, "", measurerClass);
+  }
+
+  @Override
+  public synchronized IPerformanceType newPerformanceType(String typeName,
+      String typeDesc,
+      Class<? extends PerformanceMeasurerFactory> measurerClass) {
+    PerformanceType type = findPerformanceType(typeName, measurerClass);
+    if (type == null && refreshCaches(PERF_TYPES)) {
+      type = findPerformanceType(typeName, measurerClass);
+    }
+    if (type != null) {
+      return type;
+    }
+    type =
+        new PerformanceType(nextID(PERF_TYPES), typeName, typeDesc,
+            measurerClass);
+    insert(PERF_TYPES, type.getID(), typeName, typeDesc,
+        measurerClass.getName());
+    perfTypes.put(type.getID(), type);
+    return type;
+  }
+
+  @Override
+  public synchronized IPerformance newPerformance(IApplication application,
+      IPerformanceType performanceMeasure, double performance) {
+    Performance perf =
+        new Performance(nextID(PERFORMANCES), application, performanceMeasure,
+            performance);
+    enqueueInsert(PERFORMANCES, perf.getID(), application.getID(),
+        performanceMeasure.getID(), performance);
+    return perf;
+  }
+
+  @Override
+  public synchronized List<IPerformance> getAllPerformances(
+      IApplication application) {
+    return queryPerformances(application, "SELECT id, type_id, performance"
+        + " FROM " + PERFORMANCES + " WHERE application_id = ? ORDER BY id",
+        application.getID());
+  }
+
+  @Override
+  public synchronized Map<Long, Double> getAllPerformancesMap(
+      IPerformanceType perfType) {
+    flush();
+    Map<Long, Double> result = new HashMap<>();
+    try (ResultSet rs =
+        query("SELECT application_id, performance FROM " + PERFORMANCES
+            + " WHERE type_id = ? ORDER BY id", perfType.getID())) {
+      while (rs.next()) {
+        result.put(rs.getLong(1), rs.getDouble(2));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized IPerformance getPerformance(IApplication application,
+      IPerformanceType perfType) {
+    List<IPerformance> performances =
+        queryPerformances(application, "SELECT id, type_id, performance FROM "
+            + PERFORMANCES
+            + " WHERE application_id = ? AND type_id = ? ORDER BY id",
+            application.getID(), perfType.getID());
+    return performances.isEmpty() ? null : performances.get(0);
+  }
+
+  // Features
+
+  @Override
+  public synchronized IFeatureType getFeatureForFactory(
+      Class<? extends FeatureExtractorFactory> factory) {
+    FeatureType type = findFeatureType(null, factory);
+    if (type == null && refreshCaches(FEATURE_TYPES)) {
+      type = findFeatureType(null, factory);
+    }
+    return type;
+  }
+
+  @Override
+  public synchronized List<IFeatureType> getAllFeatureTypes() {
+    refreshCaches(FEATURE_TYPES);
+    return new ArrayList<IFeatureType>(featureTypes.values());
+  }
+
+  @Override
+  public synchronized IFeatureType newFeatureType(String featureName,
+      String featureDescription,
+      Class<? extends FeatureExtractorFactory> featureExtractor) {
+    FeatureType type = findFeatureType(featureName, featureExtractor);
+    if (type == null && refreshCaches(FEATURE_TYPES)) {
+      type = findFeatureType(featureName, featureExtractor);
+    }
+    if (type != null) {
+      return type;
+    }
+    type =
+        new FeatureType(nextID(FEATURE_TYPES), featureName,
+            featureDescription, featureExtractor);
+    insert(FEATURE_TYPES, type.getID(), featureName, featureDescription,
+        featureExtractor.getName());
+    featureTypes.put(type.getID(), type);
+    return type;
+  }
+
+  @Override
+  public synchronized List<IFeature> getAllFeatures(IApplication app) {
+    return queryFeatures(app, "SELECT id, type_id, feature_values FROM "
+        + FEATURES + " WHERE application_id = ? ORDER BY id", app.getID());
+  }
+
+  @Override
+  public synchronized IFeature getFeature(IApplication app,
+      IFeatureType featureType) {
+    List<IFeature> features =
+        queryFeatures(app, "SELECT id, type_id, feature_values FROM "
+            + FEATURES + " WHERE application_id = ? AND type_id = ?"
+            + " ORDER BY id", app.getID(), featureType.getID());
+    return features.isEmpty() ? null : features.get(0);
+  }
+
+  @Override
+  public synchronized IFeature newFeature(IApplication app,
+      IFeatureType feature, IFeatureExtractor<ParameterBlock> extractor) {
+    return newFeature(app, feature, extractor
+        .extractFeatures(new ParameterBlock(app,
+            FeatureExtractorFactory.PROBLEM_REPRESENTATION)));
+  }
+
+  @Override
+  public synchronized IFeature newFeature(IApplication app,
+      IFeatureType featureType, Map<String, Serializable> featureValues) {
+    IFeature existing = getFeature(app, featureType);
+    String values = toString(toSerializableMap(featureValues));
+    if (existing == null) {
+      Feature feature =
+          new Feature(nextID(FEATURES), app, featureType, featureValues);
+      enqueueInsert(FEATURES, feature.getID(), app.getID(),
+          featureType.getID(), values);
+      return feature;
+    }
+    try {
+      update("UPDATE " + FEATURES + " SET feature_values = ? WHERE id = ?",
+          values, existing.getID());
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return new Feature(existing.getID(), app, featureType, featureValues);
+  }
+
+  // Hardware
+
+  @Override
+  public synchronized List<IMachine> getAllMachines() {
+    refreshCaches(MACHINES);
+    return new ArrayList<IMachine>(machines.values());
+  }
+
+  @Override
+  public synchronized List<IMachine> getAllMachines(String macAddress) {
+    refreshCaches(MACHINES);
+    List<IMachine> result = new ArrayList<>();
+    for (Machine machine : machines.values()) {
+      if (machine.getMacAddress().equals(macAddress)) {
+        result.add(machine);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized List<IHardwareSetup> getAllHardwareSetups() {
+    refreshCaches(SETUPS);
+    return new ArrayList<IHardwareSetup>(setups.values());
+  }
+
+  @Override
+  public synchronized boolean deleteHardwareSetup(IHardwareSetup setup) {
+    HardwareSetup cached = setups.remove(setup.getID());
+    if (cached != null) {
+      setupsByName.remove(cached.getName());
+    }
+    try {
+      update("DELETE FROM " + SETUP_MACHINES + " WHERE setup_id = ?",
+          setup.getID());
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return delete(SETUPS, setup);
+  }
+
+  @Override
+  public synchronized boolean deleteMachine(IMachine machine) {
+    if (getSetupCount(machine) > 0) {
+      return false;
+    }
+    machines.remove(machine.getID());
+    return delete(MACHINES, machine);
+  }
+
+  @Override
+  public synchronized IHardwareSetup newHardwareSetup(String name,
+      String desc, String nwTopology, long nwSpeed, Set<IMachine> machineSet) {
+    HardwareSetup setup = setupsByName.get(name);
+    if (setup == null && refreshCaches(SETUPS)) {
+      setup = setupsByName.get(name);
+    }
+    if (setup != null) {
+      return setup;
+    }
+    setup =
+        new HardwareSetup(nextID(SETUPS), name, desc, nwTopology, nwSpeed,
+            new HashSet<>(machineSet));
+    insert(SETUPS, setup.getID(), name, desc, nwTopology, nwSpeed);
+    for (IMachine machine : machineSet) {
+      insert(SETUP_MACHINES, setup.getID(), machine.getID());
+    }
+    cache(setup);
+    return setup;
+  }
+
+  @Override
+  public synchronized IMachine newMachine(String name, String desc,
+      String macAddress, double sciMark) {
+    Machine machine =
+        new Machine(nextID(MACHINES), name, desc, macAddress, sciMark);
+    insert(MACHINES, machine.getID(), name, desc, macAddress, sciMark);
+    machines.put(machine.getID(), machine);
+    return machine;
+  }
+
+  @Override
+  public synchronized int getSetupCount(IMachine machine) {
+    int count = 0;
+    for (HardwareSetup setup : setups.values()) {
+      for (IMachine setupMachine : setup.getMachines()) {
+        if (setupMachine.getID() == machine.getID()) {
+          count++;
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  // Connection and schema
+
+  /**
+   * Opens the connections, if this has not been done yet.
+   */
+  private void connect() {
+    if (statements != null) {
+      return;
+    }
+    try {
+      statements = new StatementCache(connectionData.createNewConnection());
+      writeQueue =
+          new WriteBehindQueue(new StatementCache(
+              connectionData.createNewConnection()), batchSize, maxDelay);
+    } catch (SQLException | ClassNotFoundException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  private void checkOpen() {
+    if (statements == null) {
+      throw new IllegalStateException("Performance database is not open.");
+    }
+  }
+
+  /**
+   * Creates all tables and indices that do not exist yet.
+   * 
+   * @throws SQLException
+   *           if creation fails
+   */
+  private void createTables() throws SQLException {
+    String textType =
+        connectionData.getURL().startsWith("jdbc:mysql") ? "LONGTEXT"
+            : "LONGVARCHAR";
+    DatabaseMetaData metaData = statements.getConnection().getMetaData();
+    String[] tables = new String[ID_TABLES.length + 1];
+    System.arraycopy(ID_TABLES, 0, tables, 0, ID_TABLES.length);
+    tables[ID_TABLES.length] = SETUP_MACHINES;
+    boolean created = false;
+    for (int i = 0; i < tables.length; i++) {
+      if (!tableExists(metaData, tables[i])) {
+        update("CREATE TABLE " + tables[i] + " ("
+            + String.format(COLUMNS[i], textType) + ")");
+        created = true;
+      }
+    }
+    if (!tableExists(metaData, SEQUENCES)) {
+      update("CREATE TABLE " + SEQUENCES
+          + " (table_name VARCHAR(255) PRIMARY KEY, next_id BIGINT)");
+    }
+    if (created) {
+      for (int i = 0; i < INDICES.length; i++) {
+        update("CREATE INDEX idx_" + INDICES[i].replaceAll("\\W+", "_")
+            + " ON " + INDICES[i]);
+      }
+    }
+  }
+
+  private static boolean tableExists(DatabaseMetaData metaData, String table)
+      throws SQLException {
+    for (String name : new String[] { table, table.toUpperCase() }) {
+      try (ResultSet rs = metaData.getTables(null, null, name, null)) {
+        if (rs.next()) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // Identity cache
+
+  private void clearCaches() {
+    schemes.clear();
+    schemesByURI.clear();
+    definitions.clear();
+    definitionsByKey.clear();
+    instances.clear();
+    instancesByKey.clear();
+    machines.clear();
+    setups.clear();
+    setupsByName.clear();
+    configs.clear();
+    currentConfigs.clear();
+    perfTypes.clear();
+    featureTypes.clear();
+    loadedSequences.clear();
+  }
+
+  private void reloadCaches() {
+    try {
+      loadCaches();
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  /**
+   * Reloads the caches if another instance has reserved IDs of a table since
+   * they were loaded, i.e. if the table may contain entities that are not
+   * cached. This is done on cache misses.
+   * 
+   * @param table
+   *          the table
+   * @return true, if the caches have been reloaded
+   */
+  private boolean refreshCaches(String table) {
+    checkOpen();
+    try {
+      Long next = querySequence(table);
+      if (next == null || next.equals(loadedSequences.get(table))) {
+        return false;
+      }
+      loadCaches();
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return true;
+  }
+
+  /**
+   * Gets a cached entity by ID, the caches are reloaded if it is missing (i.e.
+   * if it has been created by another instance).
+   * 
+   * @param cache
+   *          the cache
+   * @param id
+   *          the ID
+   * @return the entity, null if it does not exist
+   */
+  private <E> E getCached(Map<Long, E> cache, long id) {
+    E entity = cache.get(id);
+    if (entity == null) {
+      reloadCaches();
+      entity = cache.get(id);
+    }
+    return entity;
+  }
+
+  /**
+   * Loads all entities that are not cached yet, in the order of their IDs, and
+   * the states of the ID sequences. Cached runtime configurations are marked as
+   * outdated if they are outdated in the database.
+   * 
+   * @throws SQLException
+   *           if a query fails
+   */
+  @SuppressWarnings("unchecked")
+  private void loadCaches() throws SQLException {
+    // read first, so that entities inserted meanwhile are found by later misses
+    try (ResultSet rs =
+        query("SELECT table_name, next_id FROM " + SEQUENCES)) {
+      while (rs.next()) {
+        loadedSequences.put(rs.getString(1), rs.getLong(2));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, uri, name, scheme_type, description FROM " + SCHEMES
+            + " ORDER BY id")) {
+      while (rs.next()) {
+        if (schemes.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        cache(new ProblemScheme(rs.getLong(1), new URI(rs.getString(2)),
+            rs.getString(3), rs.getString(4), rs.getString(5)));
+      }
+    } catch (URISyntaxException e) {
+      throw new DatabaseAccessException(e);
+    }
+    try (ResultSet rs =
+        query("SELECT id, scheme_id, def_params, scheme_params FROM "
+            + DEFINITIONS + " ORDER BY id")) {
+      while (rs.next()) {
+        if (definitions.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        cache(new ProblemDefinition(rs.getLong(1), schemes.get(rs.getLong(2)),
+            (Map<String, Serializable>) fromString(rs.getString(3)),
+            (Map<String, Serializable>) fromString(rs.getString(4))));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, definition_id, rng_seed, rng_name FROM " + INSTANCES
+            + " ORDER BY id")) {
+      while (rs.next()) {
+        if (instances.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        cache(new ProblemInstance(rs.getLong(1), definitions.get(rs
+            .getLong(2)), rs.getLong(3), rs.getString(4)));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, name, description, mac_address, scimark FROM "
+            + MACHINES + " ORDER BY id")) {
+      while (rs.next()) {
+        if (machines.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        machines.put(rs.getLong(1), new Machine(rs.getLong(1),
+            rs.getString(2), rs.getString(3), rs.getString(4),
+            rs.getDouble(5)));
+      }
+    }
+    Map<Long, Set<IMachine>> setupMachines = new HashMap<>();
+    try (ResultSet rs =
+        query("SELECT setup_id, machine_id FROM " + SETUP_MACHINES)) {
+      while (rs.next()) {
+        Set<IMachine> machineSet = setupMachines.get(rs.getLong(1));
+        if (machineSet == null) {
+          machineSet = new HashSet<>();
+          setupMachines.put(rs.getLong(1), machineSet);
+        }
+        machineSet.add(machines.get(rs.getLong(2)));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, name, description, nw_topology, nw_speed FROM "
+            + SETUPS + " ORDER BY id")) {
+      while (rs.next()) {
+        if (setups.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        Set<IMachine> machineSet = setupMachines.get(rs.getLong(1));
+        cache(new HardwareSetup(rs.getLong(1), rs.getString(2),
+            rs.getString(3), rs.getString(4), rs.getLong(5),
+            machineSet == null ? new HashSet<IMachine>() : machineSet));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, selection_tree, tree_hash, version, up_to_date,"
+            + " introduction_date FROM " + CONFIGS + " ORDER BY id")) {
+      while (rs.next()) {
+        RuntimeConfiguration config = configs.get(rs.getLong(1));
+        if (config == null) {
+          config =
+              new RuntimeConfiguration(rs.getLong(1),
+                  (SelectionTree) fromString(rs.getString(2)), rs.getInt(4),
+                  rs.getBoolean(5), rs.getTimestamp(6));
+          cache(config, rs.getLong(3));
+        } else if (config.isUpToDate() && !rs.getBoolean(5)) {
+          config.setUpToDate(false);
+          if (currentConfigs.get(rs.getLong(3)) == config) {
+            currentConfigs.remove(rs.getLong(3));
+          }
+        }
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, name, description, measurer_class FROM "
+            + PERF_TYPES + " ORDER BY id")) {
+      while (rs.next()) {
+        if (perfTypes.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        perfTypes.put(rs.getLong(1), new PerformanceType(rs.getLong(1),
+            rs.getString(2), rs.getString(3),
+            (Class<? extends PerformanceMeasurerFactory>) loadClass(rs
+                .getString(4))));
+      }
+    }
+    try (ResultSet rs =
+        query("SELECT id, name, description, extractor_class FROM "
+            + FEATURE_TYPES + " ORDER BY id")) {
+      while (rs.next()) {
+        if (featureTypes.containsKey(rs.getLong(1))) {
+          continue;
+        }
+        featureTypes.put(rs.getLong(1), new FeatureType(rs.getLong(1),
+            rs.getString(2), rs.getString(3),
+            (Class<? extends FeatureExtractorFactory>) loadClass(rs
+                .getString(4))));
+      }
+    }
+  }
+
+  private void cache(ProblemScheme scheme) {
+    schemes.put(scheme.getID(), scheme);
+    schemesByURI.put(scheme.getUri(), scheme);
+  }
+
+  private void cache(ProblemDefinition definition) {
+    definitions.put(definition.getID(), definition);
+    definitionsByKey.put(getDefinitionKey(definition), definition);
+  }
+
+  private void cache(ProblemInstance instance) {
+    instances.put(instance.getID(), instance);
+    instancesByKey.put(instance.getProblemDefinition().getID() + ":"
+        + instance.getRandomSeed(), instance);
+  }
+
+  private void cache(HardwareSetup setup) {
+    setups.put(setup.getID(), setup);
+    setupsByName.put(setup.getName(), setup);
+  }
+
+  private void cache(RuntimeConfiguration config, long treeHash) {
+    configs.put(config.getID(), config);
+    if (config.isUpToDate()) {
+      currentConfigs.put(treeHash, config);
+    }
+  }
+
+  private RuntimeConfiguration getCurrentConfig(long treeHash) {
+    RuntimeConfiguration config = currentConfigs.get(treeHash);
+    if (config == null && refreshCaches(CONFIGS)) {
+      config = currentConfigs.get(treeHash);
+    }
+    return config;
+  }
+
+  private PerformanceType findPerformanceType(String name,
+      Class<? extends PerformanceMeasurerFactory> measurerClass) {
+    for (PerformanceType type : perfTypes.values()) {
+      if (type.getName().equals(name)
+          && type.getPerformanceMeasurerFactory().equals(measurerClass)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Finds a cached feature type.
+   * 
+   * @param name
+   *          the name of the feature type, null matches any name
+   * @param extractor
+   *          the feature extractor factory
+   * @return the feature type, null if none is cached
+   */
+  private FeatureType findFeatureType(String name,
+      Class<? extends FeatureExtractorFactory> extractor) {
+    for (FeatureType type : featureTypes.values()) {
+      if ((name == null || type.getName().equals(name))
+          && type.getFeatureExtractorFactory().equals(extractor)) {
+        return type;
+      }
+    }
+    return null;
+  }
+
+  private static String getDefinitionKey(ProblemDefinition definition) {
+    return getDefinitionKey(definition.getProblemScheme().getID(),
+        definition.getDefinitionParametersHash(),
+        definition.getSchemeParametersHash());
+  }
+
+  private static String getDefinitionKey(long schemeID, long defParamsHash,
+      long schemeParamsHash) {
+    return schemeID + ":" + defParamsHash + ":" + schemeParamsHash;
+  }
+
+  /**
+   * Gets the next ID of a table, from the block reserved by this instance.
+   * 
+   * @param table
+   *          the table
+   * @return the next ID
+   */
+  private long nextID(String table) {
+    checkOpen();
+    long[] block = idBlocks.get(table);
+    if (block == null || block[0] == block[1]) {
+      long first;
+      try {
+        first = reserveIDs(table);
+      } catch (SQLException e) {
+        throw new DatabaseAccessException(e);
+      }
+      block = new long[] { first, first + ID_BLOCK_SIZE };
+      idBlocks.put(table, block);
+    }
+    return block[0]++;
+  }
+
+  /**
+   * Reserves a block of {@link #ID_BLOCK_SIZE} IDs of a table by advancing its
+   * sequence, which is retried if another instance has advanced the sequence
+   * concurrently. A missing sequence starts after the largest ID of the table,
+   * i.e. databases created before sequences were introduced can be used.
+   * 
+   * @param table
+   *          the table
+   * @return the first ID of the block
+   * @throws SQLException
+   *           if a query fails
+   */
+  private long reserveIDs(String table) throws SQLException {
+    while (true) {
+      Long next = querySequence(table);
+      if (next == null) {
+        long first;
+        try (ResultSet rs = query("SELECT MAX(id) FROM " + table)) {
+          first = rs.next() ? rs.getLong(1) + 1 : 1;
+        }
+        try {
+          update("INSERT INTO " + SEQUENCES + " VALUES (?, ?)", table, first
+              + ID_BLOCK_SIZE);
+        } catch (SQLException e) {
+          // another instance may have inserted the sequence meanwhile
+          if (querySequence(table) == null) {
+            throw e;
+          }
+          continue;
+        }
+        loadedSequences.put(table, first + ID_BLOCK_SIZE);
+        return first;
+      }
+      if (update("UPDATE " + SEQUENCES
+          + " SET next_id = ? WHERE table_name = ? AND next_id = ?", next
+          + ID_BLOCK_SIZE, table, next) == 1) {
+        if (next.equals(loadedSequences.get(table))) {
+          loadedSequences.put(table, next + ID_BLOCK_SIZE);
+        }
+        return next;
+      }
+    }
+  }
+
+  /**
+   * Queries the next ID of the sequence of a table.
+   * 
+   * @param table
+   *          the table
+   * @return the next ID to be reserved, null if there is no sequence yet
+   * @throws SQLException
+   *           if the query fails
+   */
+  private Long querySequence(String table) throws SQLException {
+    try (ResultSet rs =
+        query("SELECT next_id FROM " + SEQUENCES + " WHERE table_name = ?",
+            table)) {
+      return rs.next() ? Long.valueOf(rs.getLong(1)) : null;
+    }
+  }
+
+  // Queries
+
+  private static String getConfigsOfDefinitionQuery() {
+    return "SELECT DISTINCT a.config_id FROM " + APPLICATIONS + " a, "
+        + INSTANCES + " i WHERE a.instance_id = i.id AND i.definition_id = ?";
+  }
+
+  /**
+   * Queries runtime configurations (the first column has to be their ID) and
+   * returns them in the order of their IDs.
+   * 
+   * @param sql
+   *          the query
+   * @param upToDateOnly
+   *          flag whether to return up-to-date configurations only
+   * @param parameters
+   *          the parameters of the query
+   * @return the runtime configurations
+   */
+  private List<IRuntimeConfiguration> queryRuntimeConfigs(String sql,
+      boolean upToDateOnly, Object... parameters) {
+    flush();
+    Set<Long> ids = new TreeSet<>();
+    try (ResultSet rs = query(sql, parameters)) {
+      while (rs.next()) {
+        ids.add(rs.getLong(1));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    List<IRuntimeConfiguration> result = new ArrayList<>();
+    for (Long id : ids) {
+      RuntimeConfiguration config = getCached(configs, id);
+      if (config != null && (!upToDateOnly || config.isUpToDate())) {
+        result.add(config);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Queries applications (the columns have to be
+   * {@link #APPLICATION_COLUMNS}).
+   * 
+   * @param sql
+   *          the query
+   * @param parameters
+   *          the parameters of the query
+   * @return the applications
+   */
+  private List<IApplication> queryApplications(String sql,
+      Object... parameters) {
+    flush();
+    List<IApplication> result = new ArrayList<>();
+    try (ResultSet rs = query(sql, parameters)) {
+      while (rs.next()) {
+        long setupID = rs.getLong(4);
+        HardwareSetup setup =
+            rs.wasNull() ? null : getCached(setups, setupID);
+        String provider = rs.getString(5);
+        result.add(new Application(rs.getLong(1), getCached(instances,
+            rs.getLong(2)), getCached(configs, rs.getLong(3)), setup,
+            provider == null ? null
+                : (IResultDataProvider<?>) fromString(provider), rs
+                .getTimestamp(6)));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return result;
+  }
+
+  /**
+   * Queries performances of an application (the columns have to be ID, type
+   * ID, and performance).
+   * 
+   * @param application
+   *          the application
+   * @param sql
+   *          the query
+   * @param parameters
+   *          the parameters of the query
+   * @return the performances
+   */
+  private List<IPerformance> queryPerformances(IApplication application,
+      String sql, Object... parameters) {
+    flush();
+    List<IPerformance> result = new ArrayList<>();
+    try (ResultSet rs = query(sql, parameters)) {
+      while (rs.next()) {
+        result.add(new Performance(rs.getLong(1), application, getCached(
+            perfTypes, rs.getLong(2)), rs.getDouble(3)));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return result;
+  }
+
+  /**
+   * Queries features of an application (the columns have to be ID, type ID,
+   * and values).
+   * 
+   * @param application
+   *          the application
+   * @param sql
+   *          the query
+   * @param parameters
+   *          the parameters of the query
+   * @return the features
+   */
+  @SuppressWarnings("unchecked")
+  private List<IFeature> queryFeatures(IApplication application, String sql,
+      Object... parameters) {
+    flush();
+    List<IFeature> result = new ArrayList<>();
+    try (ResultSet rs = query(sql, parameters)) {
+      while (rs.next()) {
+        result.add(new Feature(rs.getLong(1), application, getCached(
+            featureTypes, rs.getLong(2)),
+            (Map<String, Serializable>) fromString(rs.getString(3))));
+      }
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    return result;
+  }
+
+  // Statements
+
+  private ResultSet query(String sql, Object... parameters)
+      throws SQLException {
+    checkOpen();
+    return statements.get(sql, parameters).executeQuery();
+  }
+
+  private int update(String sql, Object... parameters) throws SQLException {
+    checkOpen();
+    return statements.get(sql, parameters).executeUpdate();
+  }
+
+  /**
+   * Inserts a row synchronously.
+   * 
+   * @param table
+   *          the table
+   * @param values
+   *          the values of all columns
+   */
+  private void insert(String table, Object... values) {
+    try {
+      update(getInsertSQL(table, values.length), values);
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  /**
+   * Inserts a row asynchronously, via the write-behind queue.
+   * 
+   * @param table
+   *          the table
+   * @param values
+   *          the values of all columns
+   */
+  private void enqueueInsert(String table, Object... values) {
+    checkOpen();
+    writeQueue.add(getInsertSQL(table, values.length), values);
+  }
+
+  /**
+   * Deletes an entity synchronously.
+   * 
+   * @param table
+   *          the table
+   * @param entity
+   *          the entity
+   * @return true, if a row has been deleted
+   */
+  private boolean delete(String table, IIDEntity entity) {
+    try {
+      return update("DELETE FROM " + table + " WHERE id = ?",
+          entity.getID()) > 0;
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  private static String getInsertSQL(String table, int numOfColumns) {
+    StringBuilder sql =
+        new StringBuilder("INSERT INTO ").append(table).append(" VALUES (");
+    for (int i = 0; i < numOfColumns; i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    return sql.append(')').toString();
+  }
+
+  // Serialisation
+
+  private static HashMap<String, Serializable> toSerializableMap(
+      Map<String, Serializable> map) {
+    return map == null ? null : new HashMap<>(map);
+  }
+
+  private static String toString(Serializable object) {
+    if (object == null) {
+      return null;
+    }
+    try {
+      return SerialisationUtils.serializeToB64String(object);
+    } catch (IOException e) {
+      throw new DatabaseAccessException("Could not serialise " + object, e);
+    }
+  }
+
+  private static Object fromString(String string) {
+    if (string == null) {
+      return null;
+    }
+    try {
+      return SerialisationUtils.deserializeFromB64String(string);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+  private static Class<?> loadClass(String name) {
+    try {
+      return Class.forName(name);
+    } catch (ClassNotFoundException e) {
+      throw new DatabaseAccessException(e);
+    }
+  }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IFeature;
+import org.jamesii.perfdb.entities.IFeatureType;
+
+/**
+ * Feature of the {@link BatchedPerformanceDatabase}.
+ */
+class Feature extends IDEntity implements IFeature {
+
+  private static final long serialVersionUID = 5539400404767412212L;
+
+  /** The feature type. */
+  private IFeatureType featureType;
+
+  /** The application. */
+  private IApplication application;
+
+  /** The feature values. */
+  private Map<String, Serializable> value;
+
+  Feature(long id, IApplication application, IFeatureType featureType,
+      Map<String, Serializable> value) {
+    super(id);
+    this.application = application;
+    this.featureType = featureType;
+    this.value = value;
+  }
+
+  @Override
+  public IFeatureType getFeatureType() {
+    return featureType;
+  }
+
+  @Override
+  public void setFeatureType(IFeatureType feature) {
+    featureType = feature;
+  }
+
+  @Override
+  public IApplication getApplication() {
+    return application;
+  }
+
+  @Override
+  public void setApplication(IApplication app) {
+    application = app;
+  }
+
+  @Override
+  public Map<String, Serializable> getValue() {
+    return value;
+  }
+
+  @Override
+  public void setValue(Map<String, Serializable> value) {
+    this.value = value;
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IFeatureType;
+import org.jamesii.perfdb.recording.features.plugintype.FeatureExtractorFactory;
+
+/**
+ * Feature type of the {@link BatchedPerformanceDatabase}.
+ */
+class FeatureType extends NamedEntity implements IFeatureType {
+
+  private static final long serialVersionUID = 2206437914981773346L;
+
+  /** The feature extractor factory. */
+  private Class<? extends FeatureExtractorFactory> extractorFactory;
+
+  FeatureType(long id, String name, String description,
+      Class<? extends FeatureExtractorFactory> extractorFactory) {
+    super(id, name, description);
+    this.extractorFactory = extractorFactory;
+  }
+
+  @Override
+  public Class<? extends FeatureExtractorFactory> getFeatureExtractorFactory() {
+    return extractorFactory;
+  }
+
+  @Override
+  public void setFeatureExtractorFactory(
+      Class<? extends FeatureExtractorFactory> featureExtractorFactory) {
+    extractorFactory = featureExtractorFactory;
+  }
+
+}
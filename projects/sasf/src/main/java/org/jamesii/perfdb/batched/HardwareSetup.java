@@ -0,0 +1,68 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.util.Set;
+
+import org.jamesii.perfdb.entities.IHardwareSetup;
+import org.jamesii.perfdb.entities.IMachine;
+
+/**
+ * Hardware setup of the {@link BatchedPerformanceDatabase}.
+ */
+class HardwareSetup extends NamedEntity implements IHardwareSetup {
+
+  private static final long serialVersionUID = -1239358738919839170L;
+
+  /** The network topology. */
+  private String networkTopology;
+
+  /** The network speed. */
+  private long networkSpeed;
+
+  /** The machines. */
+  private Set<IMachine> machines;
+
+  HardwareSetup(long id, String name, String description,
+      String networkTopology, long networkSpeed, Set<IMachine> machines) {
+    super(id, name, description);
+    this.networkTopology = networkTopology;
+    this.networkSpeed = networkSpeed;
+    this.machines = machines;
+  }
+
+  @Override
+  public String getNetworkTopology() {
+    return networkTopology;
+  }
+
+  @Override
+  public void setNetworkTopology(String networkTopology) {
+    this.networkTopology = networkTopology;
+  }
+
+  @Override
+  public long getNetworkSpeed() {
+    return networkSpeed;
+  }
+
+  @Override
+  public void setNetworkSpeed(long networkSpeed) {
+    this.networkSpeed = networkSpeed;
+  }
+
+  @Override
+  public Set<IMachine> getMachines() {
+    return machines;
+  }
+
+  @Override
+  public void setMachines(Set<IMachine> machines) {
+    this.machines = machines;
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IIDEntity;
+
+/**
+ * Base class of all entities of the {@link BatchedPerformanceDatabase}. Ids are
+ * assigned by the database before the entity is written, so that entities are
+ * equal if (and only if) they are of the same class and have the same id.
+ * Changes made via the setters are not written to the database.
+ */
+abstract class IDEntity implements IIDEntity {
+
+  private static final long serialVersionUID = 1846128530262178745L;
+
+  /** The id. */
+  private long id;
+
+  /**
+   * Instantiates a new entity.
+   * 
+   * @param id
+   *          the id
+   */
+  IDEntity(long id) {
+    this.id = id;
+  }
+
+  @Override
+  public long getID() {
+    return id;
+  }
+
+  @Override
+  public void setID(long id) {
+    this.id = id;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj != null && obj.getClass() == getClass()
+        && ((IDEntity) obj).id == id;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (id ^ (id >>> 32));
+  }
+
+}
@@ -0,0 +1,51 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IMachine;
+
+/**
+ * Machine of the {@link BatchedPerformanceDatabase}.
+ */
+class Machine extends NamedEntity implements IMachine {
+
+  private static final long serialVersionUID = 6655003622930416049L;
+
+  /** The MAC address. */
+  private String macAddress;
+
+  /** The SciMark score. */
+  private double javaSciMark;
+
+  Machine(long id, String name, String description, String macAddress,
+      double javaSciMark) {
+    super(id, name, description);
+    this.macAddress = macAddress;
+    this.javaSciMark = javaSciMark;
+  }
+
+  @Override
+  public String getMacAddress() {
+    return macAddress;
+  }
+
+  @Override
+  public void setMacAddress(String macAddress) {
+    this.macAddress = macAddress;
+  }
+
+  @Override
+  public double getJavaSciMark() {
+    return javaSciMark;
+  }
+
+  @Override
+  public void setJavaSciMark(double javaSciMark) {
+    this.javaSciMark = javaSciMark;
+  }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.INamedDBEntity;
+
+/**
+ * Base class of all named entities of the {@link BatchedPerformanceDatabase}.
+ */
+abstract class NamedEntity extends IDEntity implements INamedDBEntity {
+
+  private static final long serialVersionUID = -1460926003612262290L;
+
+  /** The name. */
+  private String name;
+
+  /** The description. */
+  private String description;
+
+  /**
+   * Instantiates a new named entity.
+   * 
+   * @param id
+   *          the id
+   * @param name
+   *          the name
+   * @param description
+   *          the description
+   */
+  NamedEntity(long id, String name, String description) {
+    super(id);
+    this.name = name;
+    this.description = description;
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public void setDescription(String description) {
+    this.description = description;
+  }
+
+}
@@ -0,0 +1,67 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IPerformance;
+import org.jamesii.perfdb.entities.IPerformanceType;
+
+/**
+ * Performance of the {@link BatchedPerformanceDatabase}.
+ */
+class Performance extends IDEntity implements IPerformance {
+
+  private static final long serialVersionUID = -2150006327567963938L;
+
+  /** The application. */
+  private IApplication application;
+
+  /** The performance type. */
+  private IPerformanceType performanceType;
+
+  /** The performance. */
+  private double performance;
+
+  Performance(long id, IApplication application,
+      IPerformanceType performanceType, double performance) {
+    super(id);
+    this.application = application;
+    this.performanceType = performanceType;
+    this.performance = performance;
+  }
+
+  @Override
+  public IApplication getApplication() {
+    return application;
+  }
+
+  @Override
+  public void setApplication(IApplication application) {
+    this.application = application;
+  }
+
+  @Override
+  public IPerformanceType getPerformanceType() {
+    return performanceType;
+  }
+
+  @Override
+  public void setPerformanceType(IPerformanceType perfType) {
+    performanceType = perfType;
+  }
+
+  @Override
+  public double getPerformance() {
+    return performance;
+  }
+
+  @Override
+  public void setPerformance(double performance) {
+    this.performance = performance;
+  }
+
+}
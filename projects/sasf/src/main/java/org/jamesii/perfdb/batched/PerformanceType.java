@@ -0,0 +1,39 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IPerformanceType;
+import org.jamesii.perfdb.recording.performance.plugintype.PerformanceMeasurerFactory;
+
+/**
+ * Performance type of the {@link BatchedPerformanceDatabase}.
+ */
+class PerformanceType extends NamedEntity implements IPerformanceType {
+
+  private static final long serialVersionUID = 3640870961718734862L;
+
+  /** The performance measurer factory. */
+  private Class<? extends PerformanceMeasurerFactory> measurerFactory;
+
+  PerformanceType(long id, String name, String description,
+      Class<? extends PerformanceMeasurerFactory> measurerFactory) {
+    super(id, name, description);
+    this.measurerFactory = measurerFactory;
+  }
+
+  @Override
+  public Class<? extends PerformanceMeasurerFactory> getPerformanceMeasurerFactory() {
+    return measurerFactory;
+  }
+
+  @Override
+  public void setPerformanceMeasurerFactory(
+      Class<? extends PerformanceMeasurerFactory> performanceMeasurerFactory) {
+    measurerFactory = performanceMeasurerFactory;
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.io.Serializable;
+import java.util.Map;
+
+import org.jamesii.perfdb.entities.IProblemDefinition;
+import org.jamesii.perfdb.entities.IProblemScheme;
+
+/**
+ * Problem definition of the {@link BatchedPerformanceDatabase}.
+ */
+class ProblemDefinition extends IDEntity implements IProblemDefinition {
+
+  private static final long serialVersionUID = -6400170474596245817L;
+
+  /** The problem scheme. */
+  private IProblemScheme scheme;
+
+  /** The parameters of the problem scheme. */
+  private Map<String, Serializable> schemeParameters;
+
+  /** The parameters of the problem definition. */
+  private Map<String, Serializable> definitionParameters;
+
+  ProblemDefinition(long id, IProblemScheme scheme,
+      Map<String, Serializable> definitionParameters,
+      Map<String, Serializable> schemeParameters) {
+    super(id);
+    this.scheme = scheme;
+    this.definitionParameters = definitionParameters;
+    this.schemeParameters = schemeParameters;
+  }
+
+  @Override
+  public IProblemScheme getProblemScheme() {
+    return scheme;
+  }
+
+  @Override
+  public void setProblemScheme(IProblemScheme scheme) {
+    this.scheme = scheme;
+  }
+
+  @Override
+  public Map<String, Serializable> getSchemeParameters() {
+    return schemeParameters;
+  }
+
+  @Override
+  public void setSchemeParameters(Map<String, Serializable> parameters) {
+    schemeParameters = parameters;
+  }
+
+  @Override
+  public long getSchemeParametersHash() {
+    return BatchedPerformanceDatabase.getParametersHash(schemeParameters);
+  }
+
+  @Override
+  public Map<String, Serializable> getDefinitionParameters() {
+    return definitionParameters;
+  }
+
+  @Override
+  public void setDefinitionParameters(Map<String, Serializable> parameters) {
+    definitionParameters = parameters;
+  }
+
+  @Override
+  public long getDefinitionParametersHash() {
+    return BatchedPerformanceDatabase.getParametersHash(definitionParameters);
+  }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import org.jamesii.perfdb.entities.IProblemDefinition;
+import org.jamesii.perfdb.entities.IProblemInstance;
+
+/**
+ * Problem instance of the {@link BatchedPerformanceDatabase}.
+ */
+class ProblemInstance extends IDEntity implements IProblemInstance {
+
+  private static final long serialVersionUID = 4408880722484196187L;
+
+  /** The problem definition. */
+  private IProblemDefinition problemDefinition;
+
+  /** The random seed. */
+  private long randomSeed;
+
+  /** The name of the random number generator factory. */
+  private String rngFactoryName;
+
+  ProblemInstance(long id, IProblemDefinition problemDefinition,
+      long randomSeed, String rngFactoryName) {
+    super(id);
+    this.problemDefinition = problemDefinition;
+    this.randomSeed = randomSeed;
+    this.rngFactoryName = rngFactoryName;
+  }
+
+  @Override
+  public void setProblemDefinition(IProblemDefinition problemDefinition) {
+    this.problemDefinition = problemDefinition;
+  }
+
+  @Override
+  public IProblemDefinition getProblemDefinition() {
+    return problemDefinition;
+  }
+
+  @Override
+  public void setRandomSeed(long randomSeed) {
+    this.randomSeed = randomSeed;
+  }
+
+  @Override
+  public long getRandomSeed() {
+    return randomSeed;
+  }
+
+  @Override
+  public void setRNGFactoryName(String rngFactoryName) {
+    this.rngFactoryName = rngFactoryName;
+  }
+
+  @Override
+  public String getRNGFactoryName() {
+    return rngFactoryName;
+  }
+
+}
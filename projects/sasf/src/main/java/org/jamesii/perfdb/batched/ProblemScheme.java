@@ -0,0 +1,52 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.net.URI;
+
+import org.jamesii.perfdb.entities.IProblemScheme;
+
+/**
+ * Problem scheme of the {@link BatchedPerformanceDatabase}.
+ */
+class ProblemScheme extends NamedEntity implements IProblemScheme {
+
+  private static final long serialVersionUID = 2912815318520419352L;
+
+  /** The type. */
+  private String type;
+
+  /** The URI. */
+  private URI uri;
+
+  ProblemScheme(long id, URI uri, String name, String type, String description) {
+    super(id, name, description);
+    this.uri = uri;
+    this.type = type;
+  }
+
+  @Override
+  public String getType() {
+    return type;
+  }
+
+  @Override
+  public void setType(String type) {
+    this.type = type;
+  }
+
+  @Override
+  public URI getUri() {
+    return uri;
+  }
+
+  @Override
+  public void setUri(URI uri) {
+    this.uri = uri;
+  }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.util.Date;
+
+import org.jamesii.perfdb.entities.IRuntimeConfiguration;
+import org.jamesii.perfdb.recording.selectiontrees.SelectionTree;
+
+/**
+ * Runtime configuration of the {@link BatchedPerformanceDatabase}.
+ */
+class RuntimeConfiguration extends IDEntity implements IRuntimeConfiguration {
+
+  private static final long serialVersionUID = -3297010785574416325L;
+
+  /** The selection tree. */
+  private SelectionTree selectionTree;
+
+  /** The version. */
+  private final int version;
+
+  /** Flag whether this is the latest version. */
+  private boolean upToDate;
+
+  /** The introduction date. */
+  private final Date introductionDate;
+
+  RuntimeConfiguration(long id, SelectionTree selectionTree, int version,
+      boolean upToDate, Date introductionDate) {
+    super(id);
+    this.selectionTree = selectionTree;
+    this.version = version;
+    this.upToDate = upToDate;
+    this.introductionDate = introductionDate;
+  }
+
+  @Override
+  public SelectionTree getSelectionTree() {
+    return selectionTree;
+  }
+
+  @Override
+  public void setSelectionTree(SelectionTree selectionTree) {
+    this.selectionTree = selectionTree;
+  }
+
+  @Override
+  public long getSelectionTreeHash() {
+    return selectionTree.getHash();
+  }
+
+  @Override
+  public boolean isUpToDate() {
+    return upToDate;
+  }
+
+  void setUpToDate(boolean upToDate) {
+    this.upToDate = upToDate;
+  }
+
+  @Override
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public Date getIntroductionDate() {
+    return introductionDate;
+  }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of the prepared statements of a connection, so that each SQL statement
+ * is only prepared once. Not thread-safe.
+ */
+final class StatementCache {
+
+  /** The connection. */
+  private final Connection connection;
+
+  /** Map SQL => prepared statement. */
+  private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+  /**
+   * Instantiates a new statement cache.
+   * 
+   * @param connection
+   *          the connection
+   */
+  StatementCache(Connection connection) {
+    this.connection = connection;
+  }
+
+  /**
+   * Gets the prepared statement for the SQL, prepares it if necessary.
+   * 
+   * @param sql
+   *          the SQL
+   * @param parameters
+   *          the parameters to be set
+   * @return the prepared statement
+   * @throws SQLException
+   *           if preparing the statement or setting a parameter fails
+   */
+  PreparedStatement get(String sql, Object... parameters) throws SQLException {
+    PreparedStatement statement = statements.get(sql);
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+      statements.put(sql, statement);
+    }
+    setParameters(statement, parameters);
+    return statement;
+  }
+
+  /**
+   * Gets the connection.
+   * 
+   * @return the connection
+   */
+  Connection getConnection() {
+    return connection;
+  }
+
+  /**
+   * Closes all statements and the connection.
+   * 
+   * @throws SQLException
+   *           if closing fails
+   */
+  void close() throws SQLException {
+    try {
+      for (PreparedStatement statement : statements.values()) {
+        statement.close();
+      }
+    } finally {
+      statements.clear();
+      connection.close();
+    }
+  }
+
+  /**
+   * Sets the parameters of a prepared statement.
+   * 
+   * @param statement
+   *          the statement
+   * @param parameters
+   *          the parameters (null values are set as SQL NULL)
+   * @throws SQLException
+   *           if setting a parameter fails
+   */
+  static void setParameters(PreparedStatement statement, Object[] parameters)
+      throws SQLException {
+    for (int i = 0; i < parameters.length; i++) {
+      if (parameters[i] == null) {
+        statement.setNull(i + 1, statement.getParameterMetaData()
+            .getParameterType(i + 1));
+      } else {
+        statement.setObject(i + 1, parameters[i]);
+      }
+    }
+  }
+
+}
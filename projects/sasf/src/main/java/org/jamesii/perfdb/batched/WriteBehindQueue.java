@@ -0,0 +1,266 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.perfdb.DatabaseAccessException;
+
+/**
+ * Write-behind queue for inserts: the inserts are collected and executed as
+ * JDBC batches (one per SQL statement, with prepared statements of its own
+ * connection) by a background thread, either when the batch size is reached,
+ * when the maximal delay has passed, or on {@link #flush()}. The inserts of the
+ * same statement are executed in the order in which they were added, inserts
+ * of different statements may be reordered.
+ * 
+ * If a batch fails, it is rolled back, the failure is reported, and all inserts
+ * that are pending or added later are discarded. The failure is thrown by all
+ * subsequent calls of {@link #add(String, Object...)}, {@link #flush()}, and
+ * {@link #close()}.
+ */
+final class WriteBehindQueue implements Runnable {
+
+  /** The statements of the connection used for writing. */
+  private final StatementCache statements;
+
+  /** The number of inserts that triggers writing. */
+  private final int batchSize;
+
+  /** The maximal time (in ms) an insert may be pending. */
+  private final long maxDelay;
+
+  /** The pending inserts: SQL and parameters. */
+  private List<Object[]> pending = new ArrayList<>();
+
+  /** The time (in ms) the oldest pending insert was added. */
+  private long oldestPendingTime;
+
+  /** The number of inserts added so far. */
+  private long numAdded = 0;
+
+  /** The number of inserts written so far. */
+  private long numWritten = 0;
+
+  /** The number of inserts to be written before flushing is done. */
+  private long flushTarget = 0;
+
+  /** The flag whether the queue is closed. */
+  private boolean closed = false;
+
+  /** The failure of writing a batch, if any. */
+  private Exception failure;
+
+  /** The writer thread. */
+  private final Thread writer;
+
+  /**
+   * Instantiates a new write-behind queue and starts its writer thread.
+   * 
+   * @param statements
+   *          the statement cache of the connection to be used (exclusively)
+   * @param batchSize
+   *          the number of inserts that triggers writing
+   * @param maxDelay
+   *          the maximal time (in ms) an insert may be pending
+   * @throws SQLException
+   *           if auto-commit cannot be disabled
+   */
+  WriteBehindQueue(StatementCache statements, int batchSize, long maxDelay)
+      throws SQLException {
+    this.statements = statements;
+    this.batchSize = batchSize;
+    this.maxDelay = maxDelay;
+    statements.getConnection().setAutoCommit(false);
+    writer = new Thread(this, "Performance database writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  /**
+   * Adds an insert.
+   * 
+   * @param sql
+   *          the SQL of the prepared statement
+   * @param parameters
+   *          the parameters
+   */
+  synchronized void add(String sql, Object... parameters) {
+    checkState();
+    pending.add(new Object[] { sql, parameters });
+    numAdded++;
+    // the writer waits without timeout while the queue is empty
+    if (pending.size() == 1) {
+      oldestPendingTime = System.currentTimeMillis();
+      notifyAll();
+    } else if (pending.size() >= batchSize) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Waits until all inserts added so far have been written.
+   */
+  synchronized void flush() {
+    checkState();
+    flushTarget = numAdded;
+    notifyAll();
+    boolean interrupted = false;
+    while (numWritten < flushTarget && failure == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+    checkState();
+  }
+
+  /**
+   * Writes all pending inserts and stops the writer thread. The connection is
+   * closed.
+   */
+  void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      flushTarget = numAdded;
+      closed = true;
+      notifyAll();
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    try {
+      statements.close();
+    } catch (SQLException e) {
+      throw new DatabaseAccessException(e);
+    }
+    synchronized (this) {
+      checkFailure();
+    }
+  }
+
+  /**
+   * Gets the number of pending inserts.
+   * 
+   * @return the number of pending inserts
+   */
+  synchronized long getNumOfPendingInserts() {
+    return numAdded - numWritten;
+  }
+
+  private void checkState() {
+    checkFailure();
+    if (closed) {
+      throw new IllegalStateException("Write-behind queue has been closed.");
+    }
+  }
+
+  private void checkFailure() {
+    if (failure != null) {
+      throw new DatabaseAccessException(
+          "Writing to the performance database failed.", failure);
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      List<Object[]> inserts;
+      synchronized (this) {
+        while (!closed && numWritten >= flushTarget
+            && pending.size() < batchSize) {
+          long waitTime = 0;
+          if (!pending.isEmpty()) {
+            waitTime =
+                oldestPendingTime + maxDelay - System.currentTimeMillis();
+            if (waitTime <= 0) {
+              break;
+            }
+          }
+          try {
+            wait(waitTime);
+          } catch (InterruptedException e) {
+            closed = true;
+          }
+        }
+        if (pending.isEmpty() && closed) {
+          return;
+        }
+        inserts = pending;
+        pending = new ArrayList<>();
+        if (failure != null) {
+          // discard the inserts, they may depend on those that failed
+          numWritten += inserts.size();
+          notifyAll();
+          continue;
+        }
+      }
+      write(inserts);
+      synchronized (this) {
+        numWritten += inserts.size();
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Writes the inserts, one batch per statement.
+   * 
+   * @param inserts
+   *          the inserts
+   */
+  private void write(List<Object[]> inserts) {
+    Map<String, List<Object[]>> batches = new LinkedHashMap<>();
+    for (Object[] insert : inserts) {
+      List<Object[]> batch = batches.get(insert[0]);
+      if (batch == null) {
+        batch = new ArrayList<>();
+        batches.put((String) insert[0], batch);
+      }
+      batch.add((Object[]) insert[1]);
+    }
+    try {
+      for (Entry<String, List<Object[]>> batch : batches.entrySet()) {
+        PreparedStatement statement = statements.get(batch.getKey());
+        for (Object[] parameters : batch.getValue()) {
+          StatementCache.setParameters(statement, parameters);
+          statement.addBatch();
+        }
+        statement.executeBatch();
+      }
+      statements.getConnection().commit();
+    } catch (SQLException | RuntimeException e) {
+      SimSystem.report(Level.SEVERE,
+          "Writing to the performance database failed.", e);
+      try {
+        statements.getConnection().rollback();
+      } catch (SQLException rollbackFailure) {
+        e.addSuppressed(rollbackFailure);
+      }
+      synchronized (this) {
+        failure = e;
+      }
+    }
+  }
+
+}
@@ -6,15 +6,25 @@
  */
 package org.jamesii.simspex.exploration.ils.algorithm;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.jamesii.SimSystem;
 import org.jamesii.core.base.Entity;
 import org.jamesii.core.math.random.generators.IRandom;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.perfdb.util.ParameterBlocks;
+import org.jamesii.simspex.exploration.ils.explorer.IConcurrentILSInformationSource;
 import org.jamesii.simspex.exploration.ils.explorer.IILSSimSpaceExplorerInformationSource;
 import org.jamesii.simspex.exploration.ils.observation.ParamILSMessage;
 import org.jamesii.simspex.exploration.ils.observation.ParamILSMessageType;
@@ -37,6 +47,23 @@ import org.jamesii.simspex.exploration.ils.termination.ParamILSTerminationSimple
  * algorithm. Due to this only the better function and the calculation of the
  * costs have to be implemented manually.
  * 
+ * <p/>
+ * If more than one thread is configured (see {@link #setNumberOfThreads(int)}
+ * ), the runs needed to estimate the cost of a configuration are executed
+ * concurrently by an {@link IConcurrentILSInformationSource}. As the resource
+ * cap of a run depends on the costs of the runs before it, all runs are
+ * dispatched with the resource cap of the first run (the largest one), and
+ * their costs are truncated to the resource cap of the sequential execution
+ * when they are recorded. Runs are recorded in the order of the run numbers,
+ * and the decisions whether a run has to be executed at all are made as in the
+ * sequential execution, so for costs that are determined by the configuration,
+ * the run number and the resource cap the search takes the same course as the
+ * sequential one, regardless of the thread scheduling. Once the runs recorded
+ * so far show that the configuration exceeds its bound, the runs that are not
+ * needed anymore are cancelled. In addition, the runs of all neighbours are
+ * dispatched before the neighbourhood is searched, and kept per configuration
+ * and run number until they are needed.
+ * 
  * @author Robert Engelke
  * 
  */
@@ -60,6 +87,9 @@ public abstract class ParamILS extends Entity {
   /** The default value for {@link #minResourceCap}. */
   private static final double DEFAULT_MIN_RESOURCE_CAP = 10.;
 
+  /** The default value for {@link #numberOfThreads}. */
+  private static final int DEFAULT_NUMBER_OF_THREADS = 1;
+
   /** The Constant MAX_POSSIBLE_OBJECTIVE. */
   private static final double MAX_POSSIBLE_OBJECTIVE = 100000.;
 
@@ -99,6 +129,19 @@ public abstract class ParamILS extends Entity {
    */
   private int changesPerRun = DEFAULT_CHANGES;
 
+  /** The number of threads executing runs (1: sequential execution). */
+  private int numberOfThreads = DEFAULT_NUMBER_OF_THREADS;
+
+  /**
+   * The runs executed concurrently but not recorded yet, per configuration
+   * (unique string) and run number.
+   */
+  private final transient Map<String, Map<Integer, RunTask>> pendingRuns =
+      new HashMap<>();
+
+  /** The executor for concurrent runs, created on first use. */
+  private transient ThreadPoolExecutor executor;
+
   /** Indicates whether to stop the run. */
   private Boolean stopRun = false;
 
@@ -131,7 +174,21 @@ public abstract class ParamILS extends Entity {
    * See algorithm 1 in Hutter et al. paper
    */
   public void run() {
+    try {
+      search();
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+        executor = null;
+      }
+      pendingRuns.clear();
+    }
+  }
 
+  /**
+   * Executes the main search loop.
+   */
+  private void search() {
     ParameterBlock thetaILS = initializeSearch();
 
     // Main search loop
@@ -207,6 +264,9 @@ public abstract class ParamILS extends Entity {
             .toUniqueString(neighbourConfiguration));
         List<ParameterBlock> neighbourhood =
             getInformationSource().getNeighbourhood(neighbourConfiguration);
+        if (isParallel()) {
+          dispatchRuns(neighbourhood, neighbourConfiguration);
+        }
         // iterating over the neighborhood of the actual best
         // configuration
         for (ParameterBlock nextNeighbour : neighbourhood) {
@@ -219,11 +279,40 @@ public abstract class ParamILS extends Entity {
                     getInformationSource().getNumberOfRuns(config))));
           }
         }
+        if (isParallel()) {
+          discardQueuedRuns();
+        }
       }
     } while (config != neighbourConfiguration);
     return config;
   }
 
+  /**
+   * Dispatches the runs needed to compare the neighbours to the incumbent
+   * configuration, i.e. as many runs as the incumbent has (at least one) with
+   * the resource cap of the first run.
+   * 
+   * @param neighbourhood
+   *          the neighbours
+   * @param incumbent
+   *          the incumbent configuration
+   */
+  private void dispatchRuns(List<ParameterBlock> neighbourhood,
+      ParameterBlock incumbent) {
+    int n = Math.max(1, getInformationSource().getNumberOfRuns(incumbent));
+    double resourceCap =
+        calculateResourceCap(n,
+            calculateBound(getConsistentEstimator(incumbent, n), n), 0);
+    for (ParameterBlock neighbour : neighbourhood) {
+      for (int i = 0; i < n; i++) {
+        if (getInformationSource().getNumberOfRuns(neighbour) <= i
+            || hasResourceCapEffect(neighbour, i, resourceCap)) {
+          submitRun(neighbour, i, resourceCap);
+        }
+      }
+    }
+  }
+
   /**
    * Indicates whether the termination criteria was already reached.
    * 
@@ -294,6 +383,9 @@ public abstract class ParamILS extends Entity {
    */
   private double calculateConsistentEstimator(ParameterBlock configuration,
       int n, double bound) {
+    if (isParallel()) {
+      return calculateConsistentEstimatorConcurrently(configuration, n, bound);
+    }
     double sumOfCosts = 0;
     for (int i = 0; i < n; i++) {
       double cost =
@@ -301,11 +393,100 @@ public abstract class ParamILS extends Entity {
               calculateResourceCap(n, bound, sumOfCosts));
       sumOfCosts += cost;
       if (cost >= getMaxExecutionTime() || sumOfCosts > bound * n) {
-        changed(new ParamILSMessage(ParamILSMessageType.PerformanceEstimation,
-            configuration, MAX_POSSIBLE_OBJECTIVE));
-        return MAX_POSSIBLE_OBJECTIVE + (n + 1 - i);
+        return rejectConfiguration(configuration, n, i);
+      }
+    }
+    return acceptEstimation(configuration, n, sumOfCosts);
+  }
+
+  /**
+   * Calculate consistent estimator for given configuration and first n runs,
+   * executing the runs concurrently. All runs that may be needed are
+   * dispatched with the resource cap of the first run, which is an upper bound
+   * of the resource caps of the other runs. The runs are then recorded in
+   * order, exactly as in the sequential execution: the resource cap of each
+   * run is calculated from the costs recorded before, a run is only recorded
+   * if there is no result with the same effect yet, and its cost is truncated
+   * to the resource cap. Once the bound is exceeded, the remaining runs are
+   * cancelled.
+   * 
+   * @param configuration
+   *          the configuration
+   * @param n
+   *          the number of runs needed to be calculated
+   * @param bound
+   *          the bound which should not be exceeded in average
+   * @return the consistent estimator for run n
+   */
+  private double calculateConsistentEstimatorConcurrently(
+      ParameterBlock configuration, int n, double bound) {
+    double firstResourceCap = calculateResourceCap(n, bound, 0);
+    RunTask[] tasks = new RunTask[n];
+    for (int i = 0; i < n; i++) {
+      if (getInformationSource().getNumberOfRuns(configuration) <= i
+          || hasResourceCapEffect(configuration, i, firstResourceCap)) {
+        tasks[i] = submitRun(configuration, i, firstResourceCap);
       }
     }
+    double sumOfCosts = 0;
+    for (int i = 0; i < n; i++) {
+      double resourceCap = calculateResourceCap(n, bound, sumOfCosts);
+      double cost;
+      if (getInformationSource().getNumberOfRuns(configuration) > i
+          && !hasResourceCapEffect(configuration, i, resourceCap)) {
+        cost = getInformationSource().getCost(configuration, i);
+        if (tasks[i] != null) {
+          cancelRun(tasks[i]);
+        }
+      } else {
+        cost = recordRun(tasks[i], configuration, i, resourceCap);
+      }
+      tasks[i] = null;
+      sumOfCosts += cost;
+      if (cost >= getMaxExecutionTime() || sumOfCosts > bound * n) {
+        for (RunTask task : tasks) {
+          if (task != null) {
+            cancelRun(task);
+          }
+        }
+        return rejectConfiguration(configuration, n, i);
+      }
+    }
+    return acceptEstimation(configuration, n, sumOfCosts);
+  }
+
+  /**
+   * Rejects a configuration whose runs exceeded the bound.
+   * 
+   * @param configuration
+   *          the configuration
+   * @param n
+   *          the number of runs needed to be calculated
+   * @param i
+   *          the run that exceeded the bound
+   * @return the estimator of a rejected configuration
+   */
+  private double rejectConfiguration(ParameterBlock configuration, int n,
+      int i) {
+    changed(new ParamILSMessage(ParamILSMessageType.PerformanceEstimation,
+        configuration, MAX_POSSIBLE_OBJECTIVE));
+    return MAX_POSSIBLE_OBJECTIVE + (n + 1 - i);
+  }
+
+  /**
+   * Accepts the estimation of a configuration whose runs did not exceed the
+   * bound, and updates the minimum configuration if necessary.
+   * 
+   * @param configuration
+   *          the configuration
+   * @param n
+   *          the number of runs
+   * @param sumOfCosts
+   *          the sum of the costs of the runs
+   * @return the consistent estimator for run n
+   */
+  private double acceptEstimation(ParameterBlock configuration, int n,
+      double sumOfCosts) {
     changed(new ParamILSMessage(ParamILSMessageType.PerformanceEstimation,
         configuration, sumOfCosts / n));
     // checking whether configuration is better then minimum
@@ -399,6 +580,146 @@ public abstract class ParamILS extends Entity {
             configuration, i));
   }
 
+  /**
+   * Dispatches a run to the executor, unless a run of the configuration with
+   * the same number and resource cap is pending already. Runs with another
+   * resource cap are cancelled, as their result may differ (reusing them would
+   * make the search depend on which runs happen to be pending).
+   * 
+   * @param configuration
+   *          the configuration
+   * @param runNumber
+   *          the run number
+   * @param resourceCap
+   *          the resource cap
+   * @return the pending run
+   */
+  private RunTask submitRun(ParameterBlock configuration, int runNumber,
+      double resourceCap) {
+    String key = ParameterBlocks.toUniqueString(configuration);
+    Map<Integer, RunTask> runs = pendingRuns.get(key);
+    if (runs == null) {
+      runs = new HashMap<>();
+      pendingRuns.put(key, runs);
+    }
+    RunTask task = runs.get(runNumber);
+    if (task != null && Double.compare(task.resourceCap, resourceCap) == 0) {
+      return task;
+    }
+    if (task != null) {
+      task.cancel(true);
+    }
+    task = new RunTask(configuration, runNumber, resourceCap);
+    runs.put(runNumber, task);
+    getExecutor().execute(task);
+    return task;
+  }
+
+  /**
+   * Waits for a run and records its result with the information source. The
+   * cost is truncated to the given resource cap, so that it is the same as the
+   * cost of a run executed with this resource cap. If the run has been
+   * cancelled in the meantime, or if it has been executed with a smaller
+   * resource cap that affects the result, it is executed (again) with the given
+   * resource cap.
+   * 
+   * @param pendingRun
+   *          the run that has been dispatched, may be null
+   * @param configuration
+   *          the configuration
+   * @param runNumber
+   *          the run number
+   * @param resourceCap
+   *          the resource cap of the run
+   * @return the recorded cost of the run
+   */
+  private double recordRun(RunTask pendingRun, ParameterBlock configuration,
+      int runNumber, double resourceCap) {
+    RunTask task = pendingRun;
+    while (true) {
+      if (task == null) {
+        task = submitRun(configuration, runNumber, resourceCap);
+      }
+      Double cost = task.awaitCost();
+      removePendingRun(task);
+      if (cost != null
+          && (task.resourceCap >= resourceCap || cost < task.resourceCap)) {
+        getConcurrentInformationSource().registerRun(configuration, runNumber,
+            resourceCap, Math.min(cost, resourceCap));
+        return getInformationSource().getCost(configuration, runNumber);
+      }
+      task = null;
+    }
+  }
+
+  /**
+   * Cancels a pending run.
+   * 
+   * @param task
+   *          the run
+   */
+  private void cancelRun(RunTask task) {
+    task.cancel(true);
+    removePendingRun(task);
+  }
+
+  /**
+   * Removes a run from the pending runs.
+   * 
+   * @param task
+   *          the run
+   */
+  private void removePendingRun(RunTask task) {
+    Map<Integer, RunTask> runs =
+        pendingRuns.get(ParameterBlocks.toUniqueString(task.configuration));
+    if (runs != null && runs.get(task.runNumber) == task) {
+      runs.remove(task.runNumber);
+    }
+  }
+
+  /**
+   * Removes the pending runs that have not been started yet (i.e., those
+   * dispatched for a neighbourhood that has been searched already). Runs that
+   * are executing or done are kept.
+   */
+  private void discardQueuedRuns() {
+    for (Map<Integer, RunTask> runs : pendingRuns.values()) {
+      for (RunTask task : runs.values().toArray(new RunTask[0])) {
+        if (executor.remove(task)) {
+          runs.remove(task.runNumber);
+        }
+      }
+    }
+  }
+
+  /**
+   * Get the executor for concurrent runs, create it if needed.
+   * 
+   * @return the executor
+   */
+  private ThreadPoolExecutor getExecutor() {
+    if (executor == null) {
+      executor =
+          new ThreadPoolExecutor(numberOfThreads, numberOfThreads, 0L,
+              TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+    }
+    return executor;
+  }
+
+  /**
+   * Gets the information source, which has to support concurrent runs.
+   * 
+   * @return the information source
+   */
+  private IConcurrentILSInformationSource getConcurrentInformationSource() {
+    if (!(getInformationSource() instanceof IConcurrentILSInformationSource)) {
+      throw new IllegalStateException(
+          "Executing runs concurrently requires an information source implementing "
+              + IConcurrentILSInformationSource.class.getName());
+    }
+    return (IConcurrentILSInformationSource) getInformationSource();
+  }
+
   /**
    * Calculates the consistent estimator of the runNumber for a given
    * configuration.
@@ -603,6 +924,39 @@ public abstract class ParamILS extends Entity {
     return MAX_POSSIBLE_OBJECTIVE;
   }
 
+  /**
+   * Gets the number of threads executing runs.
+   * 
+   * @return the number of threads
+   */
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Sets the number of threads executing runs. If more than one thread is
+   * used, the information source has to implement
+   * {@link IConcurrentILSInformationSource}.
+   * 
+   * @param numberOfThreads
+   *          the new number of threads (at least one)
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("At least one thread is needed.");
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * Checks whether runs are executed concurrently.
+   * 
+   * @return true, if more than one thread is used
+   */
+  public boolean isParallel() {
+    return numberOfThreads > 1;
+  }
+
   /**
    * Indicates to stop the algorithm.
    */
@@ -629,4 +983,89 @@ public abstract class ParamILS extends Entity {
   public void setMaxExecutionTime(double maxExecutionTime) {
     this.maxExecutionTime = maxExecutionTime;
   }
+
+  /**
+   * A run executed concurrently.
+   */
+  private final class RunTask extends FutureTask<Double> {
+
+    /** The configuration. */
+    private final ParameterBlock configuration;
+
+    /** The run number. */
+    private final int runNumber;
+
+    /** The resource cap. */
+    private final double resourceCap;
+
+    /**
+     * Instantiates a new run.
+     * 
+     * @param configuration
+     *          the configuration
+     * @param runNumber
+     *          the run number
+     * @param resourceCap
+     *          the resource cap
+     */
+    RunTask(final ParameterBlock configuration, final int runNumber,
+        final double resourceCap) {
+      super(new RunExecution(getConcurrentInformationSource(), configuration,
+          runNumber, resourceCap));
+      this.configuration = configuration;
+      this.runNumber = runNumber;
+      this.resourceCap = resourceCap;
+    }
+
+    /**
+     * Waits until the run is done and gets its cost.
+     * 
+     * @return the cost, null if the run has been cancelled
+     */
+    Double awaitCost() {
+      try {
+        return get();
+      } catch (CancellationException e) {
+        return null;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for run "
+            + runNumber + " of " + configuration + ".", e);
+      } catch (ExecutionException e) {
+        throw new IllegalStateException("Run " + runNumber + " of "
+            + configuration + " failed.", e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Executes a run with the information source.
+   */
+  private static final class RunExecution implements Callable<Double> {
+
+    /** The information source. */
+    private final IConcurrentILSInformationSource source;
+
+    /** The configuration. */
+    private final ParameterBlock configuration;
+
+    /** The run number. */
+    private final int runNumber;
+
+    /** The resource cap. */
+    private final double resourceCap;
+
+    RunExecution(IConcurrentILSInformationSource source,
+        ParameterBlock configuration, int runNumber, double resourceCap) {
+      this.source = source;
+      this.configuration = configuration;
+      this.runNumber = runNumber;
+      this.resourceCap = resourceCap;
+    }
+
+    @Override
+    public Double call() throws InterruptedException {
+      return source.executeRun(configuration, runNumber, resourceCap);
+    }
+  }
 }
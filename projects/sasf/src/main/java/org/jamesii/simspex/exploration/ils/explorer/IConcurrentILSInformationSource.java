@@ -0,0 +1,72 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.exploration.ils.explorer;
+
+import org.jamesii.core.parameters.ParameterBlock;
+
+/**
+ * Information source that allows
+ * {@link org.jamesii.simspex.exploration.ils.algorithm.ParamILS} to execute
+ * algorithm runs concurrently (see
+ * {@link org.jamesii.simspex.exploration.ils.algorithm.ParamILS#setNumberOfThreads(int)}
+ * ). Executing a run and recording its cost, which are both done by
+ * {@link #calculateCost(ParameterBlock, int, Double)}, are separated: runs of
+ * any configuration may be executed concurrently and in any order, their
+ * results are recorded by the ParamILS thread in the order of the run numbers
+ * (so the same constraints as for
+ * {@link #calculateCost(ParameterBlock, int, Double)} apply).
+ * {@link ILSSimSpaceExplorer} implements this interface by handing the runs
+ * to the experiment, which executes them concurrently if it uses a parallel
+ * task runner.
+ * 
+ */
+public interface IConcurrentILSInformationSource extends
+    IILSSimSpaceExplorerInformationSource {
+
+  /**
+   * Executes a run of the given configuration, without recording the result.
+   * Must be thread-safe. Runs are cancelled by interrupting the executing
+   * thread, so an implementation has to wait interruptibly (or check
+   * {@link Thread#isInterrupted()} regularly), and should discard the run as
+   * soon as possible when interrupted. The cost of a run may exceed the
+   * resource cap, it is truncated to the resource cap of the sequential
+   * execution before it is recorded.
+   * 
+   * @param configuration
+   *          the configuration
+   * @param runNumber
+   *          the run number (i.e., the training instance to use)
+   * @param resourceCap
+   *          the value that characterizes an amount of resources (e.g.
+   *          computing time), and after exceeding this the algorithm run is
+   *          capped
+   * @return the cost of the run
+   * @throws InterruptedException
+   *           if the run has been cancelled
+   */
+  double executeRun(ParameterBlock configuration, int runNumber,
+      double resourceCap) throws InterruptedException;
+
+  /**
+   * Records the result of a run executed by
+   * {@link #executeRun(ParameterBlock, int, double)}, so that it is considered
+   * by {@link #getNumberOfRuns(ParameterBlock)},
+   * {@link #getCost(ParameterBlock, int)} etc. afterwards.
+   * 
+   * @param configuration
+   *          the configuration
+   * @param runNumber
+   *          the run number, whereby 0 <= runNumber <= numberOfRuns
+   * @param resourceCap
+   *          the resource cap used for the run
+   * @param cost
+   *          the cost of the run
+   */
+  void registerRun(ParameterBlock configuration, int runNumber,
+      double resourceCap, double cost);
+
+}
@@ -12,13 +12,18 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import org.jamesii.SimSystem;
 import org.jamesii.core.experiments.RunInformation;
 import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.experiments.execonfig.IParamBlockUpdate;
+import org.jamesii.core.experiments.execonfig.SingularParamBlockUpdate;
 import org.jamesii.core.experiments.steering.VariablesAssignment;
 import org.jamesii.core.factories.Factory;
 import org.jamesii.core.model.variables.BaseVariable;
@@ -38,22 +43,46 @@ import org.jamesii.simspex.util.sampling.SimpleConfigurationSamplingRules;
 /**
  * A simulation space explorer that uses iterated local search to explore the
  * performance space. The iterated search policy is executed in a newly created
- * thread, and communicates with the explorer via a job- and a result-queue.
+ * thread, and communicates with the explorer via a job queue. Each job is
+ * identified by a number that is passed to the computation task via the
+ * execution parameters, so that its result can be handed back to the waiting
+ * search thread when the execution is finished.
+ * 
+ * <p/>
+ * If {@link ParamILS} executes runs concurrently (see
+ * {@link ParamILS#setNumberOfThreads(int)}), several jobs are handed to the
+ * experiment at once, so they are executed concurrently if the experiment uses
+ * a parallel task runner. When new jobs are requested while others are still
+ * being executed, the explorer does not wait for further jobs (the experiment
+ * requests them again when the next execution is finished). Cancelled runs are
+ * removed from the job queue if they have not been handed to the experiment
+ * yet, otherwise they are executed up to their resource cap and their results
+ * are discarded.
  * 
  * @author Roland Ewald
  * @author Robert Engelke
  * 
  */
 public class ILSSimSpaceExplorer implements ISimSpaceExplorer,
-    IILSSimSpaceExplorerInformationSource {
+    IConcurrentILSInformationSource {
 
-  /** The result queue; may only contain a single element. */
-  private final BlockingQueue<ExecutionResult> resultQueue =
-      new ArrayBlockingQueue<>(1);
+  /**
+   * The name of the execution parameter that holds the number of the job
+   * executed by a computation task.
+   */
+  public static final String JOB_NUMBER = ILSSimSpaceExplorer.class.getName()
+      + ".jobNumber";
 
-  /** The job queue; may only contain a single element. */
+  /** The job queue. */
   private final BlockingQueue<ExecutionJob> jobQueue =
-      new ArrayBlockingQueue<>(1);
+      new LinkedBlockingQueue<>();
+
+  /** The jobs handed to the experiment, per job number. */
+  private final Map<Long, ExecutionJob> executedJobs =
+      new ConcurrentHashMap<>();
+
+  /** The number of the next job. */
+  private final AtomicLong jobCounter = new AtomicLong();
 
   /** The configuration sampler. */
   private final IConfigurationSampler configurationSampler;
@@ -121,22 +150,32 @@ public class ILSSimSpaceExplorer implements ISimSpaceExplorer,
         return null;
       }
 
-      // Retrieve job
+      // Retrieve job; only wait for it if no other job is being executed
       SimSystem.report(Level.FINEST, "Waiting for new job.");
-      currentJob = jobQueue.take();
+      ExecutionJob job =
+          executedJobs.isEmpty() ? jobQueue.take() : jobQueue.poll();
+      if (job == null) {
+        return null;
+      }
       SimSystem.report(Level.FINEST, "Received new job for configuration:\n"
-          + currentJob.getConfiguration());
+          + job.getConfiguration());
 
-      // Check if param ILS provoked an error
-      if (currentJob.getConfiguration() == null) {
+      // Check if param ILS is done or provoked an error
+      if (job.getConfiguration() == null) {
+        jobQueue.add(job);
         return null;
       }
+      currentJob = job;
+      executedJobs.put(job.getNumber(), job);
 
       // Configure variable assignment accordingly
+      Set<IParamBlockUpdate> updates =
+          UpdateGenerator.generateUpdates(job.getConfiguration());
+      updates.add(new SingularParamBlockUpdate(new String[] {}, JOB_NUMBER,
+          new ParameterBlock(job.getNumber())));
       VariablesAssignment assignment =
-          UpdateGenerator.getUpdateAssignment(UpdateGenerator
-              .generateUpdates(currentJob.getConfiguration()));
-      assignment.putAll(getOrCreateModelSetup(currentJob.getModelSetupIndex()));
+          UpdateGenerator.getUpdateAssignment(updates);
+      assignment.putAll(getOrCreateModelSetup(job.getModelSetupIndex()));
       return assignment;
     } catch (InterruptedException ex) {
       SimSystem.report(Level.SEVERE,
@@ -166,19 +205,18 @@ public class ILSSimSpaceExplorer implements ISimSpaceExplorer,
   @Override
   public void executionFinished(TaskConfiguration simConfig,
       RunInformation runInformation) {
-    try {
-      this.lastRun = runInformation;
-      if (terminationIndicator != null) {
-        terminationIndicator.updateTerminationCriterion(this);
-      }
-      Double runtime =
-          resultStore.registerExecution(currentJob,
-              runInformation.getTotalRuntime());
-      resultQueue.put(new ExecutionResult(runtime));
-    } catch (InterruptedException e) {
-      SimSystem.report(Level.SEVERE,
-          "Interrupted while waiting to enqueue execution result.", e);
+    this.lastRun = runInformation;
+    if (terminationIndicator != null) {
+      terminationIndicator.updateTerminationCriterion(this);
     }
+    Long jobNumber = simConfig.getExecParams().getSubBlockValue(JOB_NUMBER);
+    ExecutionJob job = jobNumber == null ? null : executedJobs.remove(jobNumber);
+    if (job == null) {
+      SimSystem.report(Level.WARNING,
+          "Finished execution does not belong to any job: " + simConfig);
+      return;
+    }
+    job.finish(runInformation.getTotalRuntime());
   }
 
   @Override
@@ -258,9 +296,9 @@ public class ILSSimSpaceExplorer implements ISimSpaceExplorer,
   public double calculateCost(ParameterBlock configuration, int runNumber,
       Double resourceCap) {
     try {
-      jobQueue.put(new ExecutionJob(configuration, runNumber, resourceCap));
-      ExecutionResult result = resultQueue.take();
-      return result.getExecutionCosts();
+      double cost = executeRun(configuration, runNumber, resourceCap);
+      return resultStore.registerExecution(new ExecutionJob(configuration,
+          runNumber, resourceCap, 0), cost);
     } catch (InterruptedException ex) {
       SimSystem
           .report(
@@ -271,6 +309,28 @@ public class ILSSimSpaceExplorer implements ISimSpaceExplorer,
     }
   }
 
+  @Override
+  public double executeRun(ParameterBlock configuration, int runNumber,
+      double resourceCap) throws InterruptedException {
+    ExecutionJob job =
+        new ExecutionJob(configuration, runNumber, resourceCap,
+            jobCounter.getAndIncrement());
+    jobQueue.put(job);
+    try {
+      return job.awaitCost();
+    } catch (InterruptedException ex) {
+      jobQueue.remove(job);
+      throw ex;
+    }
+  }
+
+  @Override
+  public void registerRun(ParameterBlock configuration,
+      int runNumber, double resourceCap, double cost) {
+    resultStore.registerExecution(new ExecutionJob(configuration, runNumber,
+        resourceCap, 0), cost);
+  }
+
   @Override
   public int getNumberOfRuns(ParameterBlock configuration) {
     return resultStore.getNumberOfRuns(configuration);
@@ -344,14 +404,17 @@ class ParamILSRunner implements Runnable {
   /** The ParamILS instance to run. */
   private final ParamILS paramILS;
 
-  /** The job queue to be used. */
+  /**
+   * The job queue to be used, a job without configuration is added when
+   * ParamILS is done.
+   */
   private final BlockingQueue<ExecutionJob> jobQueue;
 
   /**
    * The flag to indicate whether a severe error has occurred (lets the
    * exploration stop).
    */
-  private boolean errorOccurred = false;
+  private volatile boolean errorOccurred = false;
 
   ParamILSRunner(ParamILS paramILS, BlockingQueue<ExecutionJob> jobQueue) {
     this.paramILS = paramILS;
@@ -375,7 +438,8 @@ class ParamILSRunner implements Runnable {
       SimSystem.report(Level.SEVERE,
           "Problem in ParamILS, stopping exploration (and thread).", t);
       errorOccurred = true;
-      jobQueue.add(new ExecutionJob(null, null, null));
+    } finally {
+      jobQueue.add(new ExecutionJob(null, null, null, -1));
     }
   }
 
@@ -386,25 +450,8 @@ class ParamILSRunner implements Runnable {
 }
 
 /**
- * The execution results, handled by the {@link BlockingQueue}.
- * 
- * @author Roland Ewald
- */
-class ExecutionResult {
-
-  private final Double executionCosts;
-
-  ExecutionResult(Double executionCosts) {
-    this.executionCosts = executionCosts;
-  }
-
-  public Double getExecutionCosts() {
-    return executionCosts;
-  }
-}
-
-/**
- * The execution job, handled by the {@link BlockingQueue}.
+ * The execution job, handled by the {@link BlockingQueue}. The thread that
+ * created the job waits until the cost of its execution is known.
  * 
  * @author Roland Ewald
  */
@@ -416,11 +463,18 @@ class ExecutionJob {
 
   private final Double resourceCap;
 
+  private final long number;
+
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  private volatile double cost;
+
   ExecutionJob(ParameterBlock configuration, Integer modelSetupIndex,
-      Double cappingValue) {
+      Double cappingValue, long number) {
     this.configuration = configuration;
     this.modelSetupIndex = modelSetupIndex;
     this.resourceCap = cappingValue;
+    this.number = number;
   }
 
   public ParameterBlock getConfiguration() {
@@ -435,4 +489,31 @@ class ExecutionJob {
     return resourceCap;
   }
 
-}
\ No newline at end of file
+  public long getNumber() {
+    return number;
+  }
+
+  /**
+   * Sets the cost of the execution, and wakes up the waiting thread.
+   * 
+   * @param executionCost
+   *          the cost of the execution
+   */
+  void finish(double executionCost) {
+    cost = executionCost;
+    finished.countDown();
+  }
+
+  /**
+   * Waits until the job has been executed.
+   * 
+   * @return the cost of the execution
+   * @throws InterruptedException
+   *           if interrupted while waiting
+   */
+  double awaitCost() throws InterruptedException {
+    finished.await();
+    return cost;
+  }
+
+}
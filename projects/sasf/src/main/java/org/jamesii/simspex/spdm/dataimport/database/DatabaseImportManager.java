@@ -16,7 +16,8 @@ import java.util.logging.Level;
 import org.jamesii.SimSystem;
 import org.jamesii.asf.spdm.Configuration;
 import org.jamesii.asf.spdm.Features;
-import org.jamesii.asf.spdm.dataimport.IDMDataImportManager;
+import org.jamesii.asf.spdm.dataimport.ColumnarPerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.IColumnarDataImportManager;
 import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
 import org.jamesii.asf.spdm.dataimport.ProblemPerformanceTuple;
 import org.jamesii.core.util.misc.Pair;
@@ -45,7 +46,7 @@ import org.jamesii.simspex.gui.SimSpExPerspective;
  * 
  */
 public class DatabaseImportManager implements
-    IDMDataImportManager<ProblemPerformanceTuple> {
+    IColumnarDataImportManager<ProblemPerformanceTuple> {
 
   /**
    * String to match all URI parts of those problem schemes whose performance
@@ -192,6 +193,41 @@ public class DatabaseImportManager implements
         targetPerfMeasurerFactory.isForMaximisation());
   }
 
+  /**
+   * {@inheritDoc} Only the tuples of one problem scheme are held in memory at
+   * a time. The problem definitions are not retained, problems are identified
+   * by their features.
+   */
+  @Override
+  public ColumnarPerformanceDataSet getColumnarPerformanceData() {
+
+    if (targetPerfType == null) {
+      throw new IllegalStateException(
+          "Could not find a performance type for target performance measure '"
+              + targetPerformance + "'.");
+    }
+
+    ColumnarPerformanceDataSet data =
+        new ColumnarPerformanceDataSet(
+            targetPerfMeasurerFactory.isForMaximisation());
+    perfDB = SimSpExPerspective.getPerformanceDataBase();
+
+    try {
+      perfDB.open();
+      List<IProblemScheme> allModels = perfDB.getAllProblemSchemes();
+      for (IProblemScheme model : allModels) {
+        if (model.getUri().toString().contains(targetProblemSchemeURIPart)) {
+          data.addAll(getPerfDataForScheme(model));
+        }
+      }
+    } catch (Exception e) {
+      SimSystem.report(Level.SEVERE,
+          "Processing performance data from database failed.", e);
+    }
+
+    return data;
+  }
+
   /**
    * Creates a list of performance tuples for a given problem scheme.
    * 
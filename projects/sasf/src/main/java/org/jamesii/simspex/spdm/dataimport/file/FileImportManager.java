@@ -23,7 +23,8 @@ import java.util.logging.Level;
 import org.jamesii.SimSystem;
 import org.jamesii.asf.spdm.Configuration;
 import org.jamesii.asf.spdm.Features;
-import org.jamesii.asf.spdm.dataimport.IDMDataImportManager;
+import org.jamesii.asf.spdm.dataimport.ColumnarPerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.IColumnarDataImportManager;
 import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
 import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
 import org.jamesii.core.base.Entity;
@@ -38,7 +39,7 @@ import org.jamesii.perfdb.recording.performance.totaltime.TotalRuntimePerfMeasur
  */
 @Deprecated
 public class FileImportManager extends Entity implements
-    IDMDataImportManager<PerformanceTuple> {
+    IColumnarDataImportManager<PerformanceTuple> {
 
   /** Compares files by name. */
   private static final class CompareFilesByName implements Comparator<File>,
@@ -114,6 +115,29 @@ public class FileImportManager extends Entity implements
     return new PerformanceDataSet(performanceData, maximisePerformance);
   }
 
+  @Override
+  public ColumnarPerformanceDataSet getColumnarPerformanceData() {
+
+    ColumnarPerformanceDataSet performanceData =
+        new ColumnarPerformanceDataSet(maximisePerformance);
+
+    if (!dirFile.isDirectory()) {
+      return performanceData;
+    }
+
+    List<File> importableFiles = getEligibleFiles(dirFile);
+    Collections.sort(importableFiles, new CompareFilesByName());
+
+    // Only the tuples of one file are held in memory at a time
+    for (File file : importableFiles) {
+      performanceData.addAll(readProblemFile(file, getModelProps(file)));
+    }
+
+    SimSystem.report(Level.INFO, "Size of performance data: " + performanceData.size()
+    + " tuples from " + importableFiles.size() + " files.");
+    return performanceData;
+  }
+
   /**
    * Function to extract model features from file name.
    * 
@@ -9,7 +9,8 @@ package org.jamesii.simspex.spdm.dataimport.xml;
 
 import java.io.FileNotFoundException;
 
-import org.jamesii.asf.spdm.dataimport.IDMDataImportManager;
+import org.jamesii.asf.spdm.dataimport.ColumnarPerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.IColumnarDataImportManager;
 import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
 import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
 import org.jamesii.core.util.misc.Files;
@@ -23,7 +24,8 @@ import org.jamesii.core.util.misc.Files;
  * @author Roland Ewald
  * 
  */
-public class XMLImportManager implements IDMDataImportManager<PerformanceTuple> {
+public class XMLImportManager implements
+    IColumnarDataImportManager<PerformanceTuple> {
 
   /** Location of the file holding the results. */
   private final String resultFile;
@@ -55,4 +57,9 @@ public class XMLImportManager implements IDMDataImportManager<PerformanceTuple>
     }
     return dataSet;
   }
+
+  @Override
+  public ColumnarPerformanceDataSet getColumnarPerformanceData() {
+    return ColumnarPerformanceDataSet.fromDataSet(getPerformanceData());
+  }
 }
@@ -0,0 +1,53 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.spdm.evaluation;
+
+/**
+ * A split of {@link IndexedPerformanceData} into training and test data, given
+ * by the indices of the feature groups in either set. The arrays are not
+ * copied and must not be modified.
+ */
+public final class DataSplit {
+
+  /** The groups of the training data. */
+  private final int[] trainingGroups;
+
+  /** The groups of the test data. */
+  private final int[] testGroups;
+
+  /**
+   * Instantiates a new data split.
+   * 
+   * @param trainingGroups
+   *          the groups of the training data (may contain duplicates)
+   * @param testGroups
+   *          the groups of the test data
+   */
+  public DataSplit(int[] trainingGroups, int[] testGroups) {
+    this.trainingGroups = trainingGroups;
+    this.testGroups = testGroups;
+  }
+
+  /**
+   * Gets the training groups.
+   * 
+   * @return the training groups
+   */
+  public int[] getTrainingGroups() {
+    return trainingGroups;
+  }
+
+  /**
+   * Gets the test groups.
+   * 
+   * @return the test groups
+   */
+  public int[] getTestGroups() {
+    return testGroups;
+  }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.spdm.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jamesii.asf.spdm.Features;
+import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
+
+/**
+ * Performance tuples indexed by their distinct model features. Tuples with the
+ * same features form a group; the groups are numbered in the order in which
+ * their features first occur in the data, and all tuples are stored in one
+ * array, group by group. Training and test sets are hence described by arrays
+ * of group indices (see {@link DataSplit}) and assembled without any hashing.
+ * 
+ * @param <T>
+ *          the type of the performance tuples
+ */
+public class IndexedPerformanceData<T extends PerformanceTuple> {
+
+  /** The tuples, sorted by group. */
+  private final PerformanceTuple[] tuples;
+
+  /**
+   * Index of the first tuple of each group, the last element is the number of
+   * tuples.
+   */
+  private final int[] groupStart;
+
+  /** The features of each group. */
+  private final Features[] features;
+
+  /**
+   * Instantiates a new index.
+   * 
+   * @param data
+   *          the performance tuples
+   */
+  public IndexedPerformanceData(List<T> data) {
+    Map<Features, Integer> groupIndices = new HashMap<>();
+    List<Features> groupFeatures = new ArrayList<>();
+    int[] groupOfTuple = new int[data.size()];
+    int[] groupSize = new int[Math.max(data.size(), 1)];
+
+    for (int i = 0; i < groupOfTuple.length; i++) {
+      Features f = data.get(i).getFeatures();
+      Integer group = groupIndices.get(f);
+      if (group == null) {
+        group = groupFeatures.size();
+        groupIndices.put(f, group);
+        groupFeatures.add(f);
+      }
+      groupOfTuple[i] = group;
+      groupSize[group]++;
+    }
+
+    features = groupFeatures.toArray(new Features[groupFeatures.size()]);
+    groupStart = new int[features.length + 1];
+    for (int g = 0; g < features.length; g++) {
+      groupStart[g + 1] = groupStart[g] + groupSize[g];
+    }
+
+    tuples = new PerformanceTuple[groupOfTuple.length];
+    int[] next = Arrays.copyOf(groupStart, features.length);
+    for (int i = 0; i < groupOfTuple.length; i++) {
+      tuples[next[groupOfTuple[i]]++] = data.get(i);
+    }
+  }
+
+  /**
+   * Gets the number of groups, i.e. of distinct features.
+   * 
+   * @return the number of groups
+   */
+  public int getNumberOfGroups() {
+    return features.length;
+  }
+
+  /**
+   * Gets the number of tuples.
+   * 
+   * @return the number of tuples
+   */
+  public int getNumberOfTuples() {
+    return tuples.length;
+  }
+
+  /**
+   * Gets the number of tuples in a group.
+   * 
+   * @param group
+   *          the group
+   * @return the number of tuples with the features of the group
+   */
+  public int getGroupSize(int group) {
+    return groupStart[group + 1] - groupStart[group];
+  }
+
+  /**
+   * Gets the features of a group.
+   * 
+   * @param group
+   *          the group
+   * @return the features
+   */
+  public Features getFeatures(int group) {
+    return features[group];
+  }
+
+  /**
+   * Gets the tuples of the given groups, group by group. A group that is given
+   * more than once contributes its tuples as often.
+   * 
+   * @param groups
+   *          the indices of the groups
+   * @return the tuples
+   */
+  @SuppressWarnings("unchecked")
+  public List<T> getTuples(int[] groups) {
+    int size = 0;
+    for (int group : groups) {
+      size += getGroupSize(group);
+    }
+    List<T> result = new ArrayList<>(size);
+    for (int group : groups) {
+      for (int i = groupStart[group]; i < groupStart[group + 1]; i++) {
+        result.add((T) tuples[i]);
+      }
+    }
+    return result;
+  }
+
+}
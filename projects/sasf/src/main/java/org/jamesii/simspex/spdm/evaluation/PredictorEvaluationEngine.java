@@ -0,0 +1,164 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.spdm.evaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+
+import org.jamesii.SimSystem;
+import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
+import org.jamesii.asf.spdm.generators.IPerformancePredictor;
+import org.jamesii.asf.spdm.generators.plugintype.IPerformancePredictorGenerator;
+import org.jamesii.asf.spdm.generators.plugintype.PerformancePredictorGeneratorFactory;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.util.misc.Strings;
+import org.jamesii.simspex.spdm.evaluation.evaluator.IPredictorEvaluator;
+import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
+
+/**
+ * Evaluation engine shared by the predictor generator evaluation strategies
+ * that evaluate a predictor generator on several training/test splits of the
+ * same data, e.g. cross-validation and bootstrapping. For each split, a
+ * predictor is generated from the training data and evaluated on the test
+ * data. The splits are processed in parallel on a fork/join pool, but the
+ * results are always returned in the order of the splits.
+ */
+public class PredictorEvaluationEngine {
+
+  /** The maximal number of splits to be processed concurrently. */
+  private final int parallelism;
+
+  /** The predictor evaluator. */
+  private final IPredictorEvaluator predictorEvaluator;
+
+  /**
+   * Instantiates a new evaluation engine.
+   * 
+   * @param parallelism
+   *          the maximal number of splits to be processed concurrently
+   * @param predictorEvaluator
+   *          the predictor evaluator
+   */
+  public PredictorEvaluationEngine(int parallelism,
+      IPredictorEvaluator predictorEvaluator) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive, not "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
+    this.predictorEvaluator = predictorEvaluator;
+  }
+
+  /**
+   * Evaluates the predictor generator on all splits.
+   * 
+   * @param <T>
+   *          the type of the performance tuples
+   * @param factory
+   *          the predictor generator factory
+   * @param dataSet
+   *          the overall data set
+   * @param parameters
+   *          the parameters for predictor generation
+   * @param data
+   *          the indexed performance tuples of the data set
+   * @param splits
+   *          the splits
+   * @return the predictor performances, one per split (in the same order)
+   */
+  public <T extends PerformanceTuple> List<PredictorPerformance> evaluate(
+      final PerformancePredictorGeneratorFactory factory,
+      final PerformanceDataSet<T> dataSet, final ParameterBlock parameters,
+      final IndexedPerformanceData<T> data, final List<DataSplit> splits) {
+
+    final PredictorPerformance[] results =
+        new PredictorPerformance[splits.size()];
+
+    if (parallelism == 1 || splits.size() < 2) {
+      for (int i = 0; i < results.length; i++) {
+        results[i] =
+            evaluateSplit(factory, dataSet, parameters, data, splits.get(i));
+      }
+      return Arrays.asList(results);
+    }
+
+    final List<RecursiveAction> tasks = new ArrayList<>(splits.size());
+    for (int i = 0; i < results.length; i++) {
+      final int index = i;
+      tasks.add(new RecursiveAction() {
+        private static final long serialVersionUID = 7591862893465627137L;
+
+        @Override
+        protected void compute() {
+          results[index] =
+              evaluateSplit(factory, dataSet, parameters, data,
+                  splits.get(index));
+        }
+      });
+    }
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new RecursiveAction() {
+        private static final long serialVersionUID = -3060870522167352196L;
+
+        @Override
+        protected void compute() {
+          invokeAll(tasks);
+        }
+      });
+    } catch (PredictorGeneratorEvaluationException e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new PredictorGeneratorEvaluationException(e);
+    } finally {
+      pool.shutdown();
+    }
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Generates a predictor from the training data of a split and evaluates it.
+   * 
+   * @param <T>
+   *          the type of the performance tuples
+   * @param factory
+   *          the predictor generator factory
+   * @param dataSet
+   *          the overall data set
+   * @param parameters
+   *          the parameters for predictor generation
+   * @param data
+   *          the indexed performance tuples of the data set
+   * @param split
+   *          the split
+   * @return the predictor performance
+   */
+  private <T extends PerformanceTuple> PredictorPerformance evaluateSplit(
+      PerformancePredictorGeneratorFactory factory,
+      PerformanceDataSet<T> dataSet, ParameterBlock parameters,
+      IndexedPerformanceData<T> data, DataSplit split) {
+    List<T> trainingData = data.getTuples(split.getTrainingGroups());
+    List<T> testData = data.getTuples(split.getTestGroups());
+    SimSystem.report(Level.FINE,
+        "\tCreating predictor with '" + Strings.dispClassName(factory.getClass())
+            + " / " + parameters.toString() + "'...");
+    IPerformancePredictorGenerator predGen =
+        factory.createPredictorGenerator(parameters, dataSet.getInstances()
+            .get(0));
+    IPerformancePredictor predictor =
+        predGen.generatePredictor(trainingData, dataSet.getMetaData());
+    return predictorEvaluator.evaluate(predictor, trainingData, testData,
+        parameters);
+  }
+
+}
@@ -9,23 +9,20 @@ package org.jamesii.simspex.spdm.evaluation.bootstrapping;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.jamesii.SimSystem;
-import org.jamesii.asf.spdm.Features;
 import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
 import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
-import org.jamesii.asf.spdm.generators.IPerformancePredictor;
-import org.jamesii.asf.spdm.generators.plugintype.IPerformancePredictorGenerator;
 import org.jamesii.asf.spdm.generators.plugintype.PerformancePredictorGeneratorFactory;
-import org.jamesii.asf.spdm.util.PerformanceTuples;
 import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
 import org.jamesii.core.parameters.ParameterBlock;
 import org.jamesii.core.util.misc.Pair;
+import org.jamesii.simspex.spdm.evaluation.DataSplit;
 import org.jamesii.simspex.spdm.evaluation.IPredictorGeneratorEvaluationStrategy;
+import org.jamesii.simspex.spdm.evaluation.IndexedPerformanceData;
+import org.jamesii.simspex.spdm.evaluation.PredictorEvaluationEngine;
 import org.jamesii.simspex.spdm.evaluation.evaluator.FullPredictorEvaluator;
-import org.jamesii.simspex.spdm.evaluation.evaluator.IPredictorEvaluator;
 import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
 
 /**
@@ -33,6 +30,13 @@ import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
  * estimation of machine learners (see Frank and Witten, "Data Mining: Practical
  * Machine Learning Tools and Techniques". Morgan Kaufmann 2005).
  * 
+ * Each pass draws its sample of the distinct model features from its own
+ * random number stream of the seed, so that the results (ordered by pass) only
+ * depend on the seed (and not on the parallelism, see
+ * {@link PredictorEvaluationEngine}). By default, the passes are evaluated
+ * sequentially; a higher parallelism should only be set if the predictor
+ * generators and evaluators are thread-safe.
+ * 
  * @author Steffen Torbahn
  * @author Roland Ewald
  * 
@@ -42,8 +46,11 @@ public class BootStrapping implements IPredictorGeneratorEvaluationStrategy {
   /** Number of passes (repetitions). */
   private final int numPasses;
 
-  /** Random number generator. */
-  private IRandom rand = SimSystem.getRNGGenerator().getNextRNG();
+  /** The number of passes to be evaluated concurrently. */
+  private int parallelism = 1;
+
+  /** The seed for the samples of the passes. */
+  private long seed = SimSystem.getRNGGenerator().getNextRNG().nextLong();
 
   /**
    * Default constructor.
@@ -61,105 +68,107 @@ public class BootStrapping implements IPredictorGeneratorEvaluationStrategy {
    * 
    * @param data
    *          list of overall data tuples
+   * @param pass
+   *          the number of the pass (determines the random number stream)
    * @return pair of lists of data elements: (training,test)
    */
   protected Pair<List<PerformanceTuple>, List<PerformanceTuple>> bootStrap(
-      List<PerformanceTuple> data) {
-
-    // Bootstrap over distinct model features
-    List<Features> allFeatures = new ArrayList<>();
-    List<Features> trainingFeatures = new ArrayList<>();
-    List<Features> testFeatures = new ArrayList<>();
-    Map<Features, List<PerformanceTuple>> featureMap =
-        PerformanceTuples.sortToFeatureMap(data);
-    allFeatures.addAll(featureMap.keySet());
-
-    fillFeatureListsByBootStrap(allFeatures, trainingFeatures, testFeatures);
-
-    List<PerformanceTuple> trainingData =
-        PerformanceTuples.getTuplesForFeatures(featureMap, trainingFeatures);
-    List<PerformanceTuple> testData =
-        PerformanceTuples.getTuplesForFeatures(featureMap, testFeatures);
-    return new Pair<>(
-        trainingData, testData);
+      List<PerformanceTuple> data, int pass) {
+    IndexedPerformanceData<PerformanceTuple> indexedData =
+        new IndexedPerformanceData<>(data);
+    DataSplit split =
+        bootStrap(indexedData.getNumberOfGroups(), new MRG32k3a(seed, pass));
+    return new Pair<>(indexedData.getTuples(split.getTrainingGroups()),
+        indexedData.getTuples(split.getTestGroups()));
   }
 
   /**
-   * Fills feature list by bootstrapping, takes care that list of test features
-   * is non-empty.
+   * Draws a bootstrap sample of the feature groups as training data, all
+   * groups not drawn are test data. Takes care that the test data is
+   * non-empty.
    * 
-   * @param allFeatures
-   *          list of all features
-   * @param trainingFeatures
-   *          list of training features
-   * @param testFeatures
-   *          list of test features
+   * @param numGroups
+   *          the number of feature groups
+   * @param random
+   *          the random number generator
+   * @return the split
    */
-  private void fillFeatureListsByBootStrap(List<Features> allFeatures,
-      List<Features> trainingFeatures, List<Features> testFeatures) {
+  static DataSplit bootStrap(int numGroups, IRandom random) {
     // Method only works when at least two elements exist (one for test, one for
     // training)
-    if (allFeatures.size() < 2) {
-      return;
+    if (numGroups < 2) {
+      return new DataSplit(new int[0], new int[0]);
     }
 
+    int[] training = new int[numGroups];
+    int[] test;
     do {
-      trainingFeatures.clear();
-      Set<Integer> trainingIndices =
-          org.jamesii.core.math.statistics.Resampling.bootStrap(allFeatures,
-              trainingFeatures, rand);
+      boolean[] drawn = new boolean[numGroups];
+      int numDrawn = 0;
+      for (int i = 0; i < numGroups; i++) {
+        training[i] = random.nextInt(numGroups);
+        if (!drawn[training[i]]) {
+          drawn[training[i]] = true;
+          numDrawn++;
+        }
+      }
       // Put every element not belonging to training data
       // into test data
-      for (int i = 0; i < allFeatures.size(); i++) {
-        if (trainingIndices.contains(i)) {
-          continue;
+      test = new int[numGroups - numDrawn];
+      for (int i = 0, j = 0; i < numGroups; i++) {
+        if (!drawn[i]) {
+          test[j++] = i;
         }
-        testFeatures.add(allFeatures.get(i));
       }
       // If test features are empty (unlucky), repeat
-    } while (testFeatures.isEmpty());
+    } while (test.length == 0);
+    return new DataSplit(training, test);
   }
 
   @Override
-  public List<PredictorPerformance> evaluatePredictorGenerator(
+  public <T extends PerformanceTuple> List<PredictorPerformance> evaluatePredictorGenerator(
       PerformancePredictorGeneratorFactory selGenFactory,
-      PerformanceDataSet dataSet, ParameterBlock parameters) {
-    List<PredictorPerformance> result = new ArrayList<>();
+      PerformanceDataSet<T> dataSet, ParameterBlock parameters) {
+    IndexedPerformanceData<T> data =
+        new IndexedPerformanceData<>(dataSet.getInstances());
+    List<DataSplit> splits = new ArrayList<>(numPasses);
     for (int i = 0; i < numPasses; i++) {
-      PredictorPerformance selPerf =
-          createAndTestPredictor(selGenFactory, dataSet, parameters);
-      result.add(selPerf);
+      splits.add(bootStrap(data.getNumberOfGroups(), new MRG32k3a(seed, i)));
     }
-    return result;
+    return new PredictorEvaluationEngine(parallelism,
+        new FullPredictorEvaluator()).evaluate(selGenFactory, dataSet,
+        parameters, data, splits);
+  }
+
+  public int getParallelism() {
+    return parallelism;
   }
 
   /**
-   * Creates and tests a predictor.
+   * Sets the number of passes to be evaluated concurrently.
    * 
-   * @param predGenFactory
-   *          the predictor generator factory
-   * @param dataSet
-   *          the data set
-   * @param parameters
-   *          the parameters
+   * @param parallelism
+   *          the parallelism, at least one
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive, not "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Sets the seed for the samples of the passes.
    * 
-   * @return the predictor performance
+   * @param seed
+   *          the seed
    */
-  PredictorPerformance createAndTestPredictor(
-      PerformancePredictorGeneratorFactory predGenFactory,
-      PerformanceDataSet dataSet, ParameterBlock parameters) {
-    List<PerformanceTuple> data = dataSet.getInstances();
-    Pair<List<PerformanceTuple>, List<PerformanceTuple>> bootstrapData =
-        bootStrap(data);
-    IPerformancePredictorGenerator predGen =
-        predGenFactory.createPredictorGenerator(parameters, data.get(0));
-    IPerformancePredictor predictor =
-        predGen.generatePredictor(bootstrapData.getFirstValue(),
-            dataSet.getMetaData());
-    IPredictorEvaluator sev = new FullPredictorEvaluator();
-    PredictorPerformance selPerf =
-        sev.evaluate(predictor, bootstrapData.getFirstValue(),
-            bootstrapData.getSecondValue(), parameters);
-    return selPerf;
+  public void setSeed(long seed) {
+    this.seed = seed;
   }
 }
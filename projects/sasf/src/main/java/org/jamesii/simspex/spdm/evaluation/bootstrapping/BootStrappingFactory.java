@@ -26,8 +26,15 @@ public class BootStrappingFactory extends PredictorGeneratorEvaluationFactory {
   @Override
   public IPredictorGeneratorEvaluationStrategy create(
       ParameterBlock params, Context context) {
-    return new BootStrapping(params.getSubBlockValue(NUMBER_OF_PASSES,
-        DEFAULT_VAL_NUM_PASSES));
+    BootStrapping bootStrapping =
+        new BootStrapping(params.getSubBlockValue(NUMBER_OF_PASSES,
+            DEFAULT_VAL_NUM_PASSES));
+    Long seed = params.getSubBlockValue(SEED);
+    if (seed != null) {
+      bootStrapping.setSeed(seed);
+    }
+    bootStrapping.setParallelism(params.getSubBlockValue(PARALLELISM, 1));
+    return bootStrapping;
   }
 
 }
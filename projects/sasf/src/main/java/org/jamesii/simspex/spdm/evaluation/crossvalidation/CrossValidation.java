@@ -8,28 +8,20 @@ package org.jamesii.simspex.spdm.evaluation.crossvalidation;
 
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
 
 import org.jamesii.SimSystem;
-import org.jamesii.asf.spdm.Features;
 import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
 import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
-import org.jamesii.asf.spdm.generators.IPerformancePredictor;
-import org.jamesii.asf.spdm.generators.plugintype.IPerformancePredictorGenerator;
 import org.jamesii.asf.spdm.generators.plugintype.PerformancePredictorGeneratorFactory;
-import org.jamesii.asf.spdm.util.PerformanceTuples;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
 import org.jamesii.core.parameters.ParameterBlock;
-import org.jamesii.core.util.misc.Strings;
-import org.jamesii.simspex.spdm.evaluation.IDataSelector;
+import org.jamesii.simspex.spdm.evaluation.DataSplit;
 import org.jamesii.simspex.spdm.evaluation.IPredictorGeneratorEvaluationStrategy;
-import org.jamesii.simspex.spdm.evaluation.PredictorGeneratorEvaluationException;
-import org.jamesii.simspex.spdm.evaluation.SimpleDataSelector;
+import org.jamesii.simspex.spdm.evaluation.IndexedPerformanceData;
+import org.jamesii.simspex.spdm.evaluation.PredictorEvaluationEngine;
 import org.jamesii.simspex.spdm.evaluation.evaluator.FullPredictorEvaluator;
 import org.jamesii.simspex.spdm.evaluation.evaluator.IPredictorEvaluator;
 import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
@@ -40,7 +32,13 @@ import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
  * Practical Machine Learning Tools and Techniques". Morgan Kaufmann 2005). Can
  * be configured for "leave-one-out" - cross validation.
  * 
- * Will generate (folds x replications) predictor performances.
+ * Will generate (folds x replications) predictor performances, ordered by
+ * replication and fold. Each replication partitions a permutation of the
+ * distinct model features that is drawn from its own random number stream of
+ * the seed, so that the results only depend on the seed (and not on the
+ * parallelism, see {@link PredictorEvaluationEngine}). By default, the folds
+ * are evaluated sequentially; a higher parallelism should only be set if the
+ * predictor generators and evaluators are thread-safe.
  * 
  * @author Roland Ewald
  * @author Steffen Torbahn
@@ -48,14 +46,14 @@ import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
  */
 public class CrossValidation implements IPredictorGeneratorEvaluationStrategy {
 
-  /** The maximal waiting time until termination. */
-  private static final int WAIT_TIME_UNTIL_TERMINATION = 1200;
-
   /** Number of folds. */
   private int folds;
 
-  /** The number of threads for replication. */
-  private int threads = 1;
+  /** The number of folds to be evaluated concurrently. */
+  private int parallelism = 1;
+
+  /** The seed for the permutations of the replications. */
+  private long seed = SimSystem.getRNGGenerator().getNextRNG().nextLong();
 
   /** The number of replications. */
   private final int numOfReplications;
@@ -85,181 +83,62 @@ public class CrossValidation implements IPredictorGeneratorEvaluationStrategy {
 
   @Override
   public <T extends PerformanceTuple> List<PredictorPerformance> evaluatePredictorGenerator(
-      final PerformancePredictorGeneratorFactory gef,
-      final PerformanceDataSet<T> dataSet, final ParameterBlock parameters) {
-
-    final List<PredictorPerformance> result =
-        new ArrayList<>();
+      PerformancePredictorGeneratorFactory gef, PerformanceDataSet<T> dataSet,
+      ParameterBlock parameters) {
 
-    List<T> allData = dataSet.getInstances();
-    final Map<Features, List<T>> featureMap =
-        PerformanceTuples.sortToFeatureMap(allData);
+    IndexedPerformanceData<T> data =
+        new IndexedPerformanceData<>(dataSet.getInstances());
 
-    final List<Features> allFeatures = new ArrayList<>();
-    allFeatures.addAll(featureMap.keySet());
-
-    if (leaveOneOut || folds > allFeatures.size()) {
-      folds = allFeatures.size() - 1;
+    int numGroups = data.getNumberOfGroups();
+    if (leaveOneOut || folds > numGroups) {
+      folds = numGroups - 1;
     }
 
-    ExecutorService exec = Executors.newFixedThreadPool(threads);
-
+    List<DataSplit> splits = new ArrayList<>(numOfReplications * folds);
     for (int i = 0; i < numOfReplications; i++) {
-      Runnable replicationJob = new Runnable() {
-        @Override
-        public void run() {
-          try {
-            Collections.shuffle(allFeatures);
-
-            List<PredictorPerformance> myResult =
-                executeCrossValidation(featureMap, allFeatures, gef, dataSet,
-                    parameters);
-            synchronized (result) {
-              result.addAll(myResult);
-            }
-          } catch (Throwable t) { // NOSONAR:{robustness_required}
-            SimSystem.report(Level.SEVERE, "Cross-validation failed.", t);
-          }
-        }
-      };
-      exec.submit(replicationJob);
+      splits.addAll(createSplits(numGroups, folds, new MRG32k3a(seed, i)));
     }
 
-    exec.shutdown();
-    try {
-      exec.awaitTermination(WAIT_TIME_UNTIL_TERMINATION, TimeUnit.SECONDS);
-    } catch (InterruptedException e) {
-      throw new PredictorGeneratorEvaluationException(e);
-    }
-    return result;
+    return new PredictorEvaluationEngine(parallelism, predictorEvaluator)
+        .evaluate(gef, dataSet, parameters, data, splits);
   }
 
   /**
-   * Executes a single cross-validation.
-   * 
-   * * @param featureMap the map feature => corresponding performance tuples
+   * Creates the splits of a single cross-validation.
    * 
-   * @param <T>
-   *          the type of performance tuple
-   * @param featureMap
-   *          the feature map
-   * @param allFeatures
-   *          list of all features
-   * @param factory
-   *          the predictor generator factory
-   * @param dataSet
-   *          the overall data set
-   * @param parameters
-   *          the parameters for predictor generation
-   * @return the results, equals the number of folds
+   * @param numGroups
+   *          the number of feature groups
+   * @param numFolds
+   *          the number of folds
+   * @param random
+   *          the random number generator for the permutation of the groups
+   * @return the splits, one per fold
    */
-  private <T extends PerformanceTuple> List<PredictorPerformance> executeCrossValidation(
-      Map<Features, List<T>> featureMap, List<Features> allFeatures,
-      PerformancePredictorGeneratorFactory factory,
-      PerformanceDataSet<T> dataSet, ParameterBlock parameters) {
-
-    List<PredictorPerformance> results = new ArrayList<>();
-
-    for (int i = 0; i < folds; i++) {
-      SimSystem.report(Level.INFO, "\tFold: " + i);
-      int startIndex = i * allFeatures.size() / folds;
-      int endIndex = (i + 1) * allFeatures.size() / folds;
-
-      List<T> trainingData =
-          getTrainingData(featureMap, allFeatures, startIndex, endIndex);
-      List<T> testData =
-          getTestData(featureMap, allFeatures, startIndex, endIndex);
-      SimSystem.report(
-          Level.INFO,
-          "\tCreating predictor with '"
-              + Strings.dispClassName(factory.getClass()) + " / "
-              + parameters.toString() + "'...");
-      IPerformancePredictor predictor =
-          createPredictor(factory, dataSet, parameters, trainingData);
-      SimSystem.report(Level.INFO, "done.\n\tStarting evaluation...");
-      results.add(predictorEvaluator.evaluate(predictor, trainingData,
-          testData, parameters));
-      SimSystem.report(Level.INFO, "done.");
+  static List<DataSplit> createSplits(int numGroups, int numFolds,
+      IRandom random) {
+    int[] permutation = new int[numGroups];
+    for (int i = 0; i < numGroups; i++) {
+      permutation[i] = i;
+    }
+    for (int i = numGroups - 1; i > 0; i--) {
+      int j = random.nextInt(i + 1);
+      int tmp = permutation[i];
+      permutation[i] = permutation[j];
+      permutation[j] = tmp;
     }
-    return results;
-  }
-
-  /**
-   * Compiles test data.
-   * 
-   * @param <T>
-   *          the type of the performance tuple
-   * @param featureMap
-   *          the map feature => corresponding performance tuples
-   * @param allFeatures
-   *          list of all features
-   * @param startIndex
-   *          the start index of the test set
-   * @param endIndex
-   *          the end index of the test set
-   * @return the test data
-   */
-  private <T extends PerformanceTuple> List<T> getTestData(
-      Map<Features, List<T>> featureMap, List<Features> allFeatures,
-      int startIndex, int endIndex) {
-    IDataSelector testDataSelector =
-        new SimpleDataSelector(startIndex, endIndex);
-    List<Features> testFeatures = testDataSelector.selectData(allFeatures);
-    List<T> testData =
-        PerformanceTuples.getTuplesForFeatures(featureMap, testFeatures);
-    return testData;
-  }
-
-  /**
-   * Creates a predictor.
-   * 
-   * @param <T>
-   *          the type of performance tuple
-   * @param predGenFactory
-   *          the predictor generator factory
-   * @param dataSet
-   *          the overall data set
-   * @param parameters
-   *          the parameters for predictor generation
-   * @param trainingData
-   *          the training data
-   * @return newly created predictor, based on training data
-   */
-  private <T extends PerformanceTuple> IPerformancePredictor createPredictor(
-      PerformancePredictorGeneratorFactory predGenFactory,
-      PerformanceDataSet<T> dataSet, ParameterBlock parameters,
-      List<T> trainingData) {
-    IPerformancePredictorGenerator predGen =
-        predGenFactory.createPredictorGenerator(parameters, dataSet
-            .getInstances().get(0));
-    return predGen.generatePredictor(trainingData, dataSet.getMetaData());
-  }
-
-  /**
-   * Compiles training data.
-   * 
-   * @param featureMap
-   *          the map feature => corresponding performance tuples
-   * @param allFeatures
-   *          list of all features
-   * @param startIndex
-   *          the start index of the test set
-   * @param endIndex
-   *          the end index of the test set
-   * @return the training data
-   */
-  private <T extends PerformanceTuple> List<T> getTrainingData(
-      Map<Features, List<T>> featureMap, List<Features> allFeatures,
-      int startIndex, int endIndex) {
-    IDataSelector trainingDataSelector = new SimpleDataSelector(0, startIndex);
-    List<Features> trainingFeatures =
-        trainingDataSelector.selectData(allFeatures);
 
-    trainingDataSelector = new SimpleDataSelector(endIndex, allFeatures.size());
-    trainingFeatures.addAll(trainingDataSelector.selectData(allFeatures));
-    List<T> trainingData =
-        PerformanceTuples.getTuplesForFeatures(featureMap, trainingFeatures);
-    return trainingData;
+    List<DataSplit> splits = new ArrayList<>(numFolds);
+    for (int i = 0; i < numFolds; i++) {
+      int startIndex = i * numGroups / numFolds;
+      int endIndex = (i + 1) * numGroups / numFolds;
+      int[] training = new int[numGroups - (endIndex - startIndex)];
+      System.arraycopy(permutation, 0, training, 0, startIndex);
+      System.arraycopy(permutation, endIndex, training, startIndex, numGroups
+          - endIndex);
+      splits.add(new DataSplit(training, Arrays.copyOfRange(permutation,
+          startIndex, endIndex)));
+    }
+    return splits;
   }
 
   public int getFolds() {
@@ -278,4 +157,36 @@ public class CrossValidation implements IPredictorGeneratorEvaluationStrategy {
     return predictorEvaluator;
   }
 
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Sets the number of folds to be evaluated concurrently.
+   * 
+   * @param parallelism
+   *          the parallelism, at least one
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive, not "
+          + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Sets the seed for the permutations of the replications.
+   * 
+   * @param seed
+   *          the seed
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
 }
@@ -33,9 +33,17 @@ public class CrossValidationFactory extends PredictorGeneratorEvaluationFactory
 
   @Override
   public IPredictorGeneratorEvaluationStrategy create(ParameterBlock params, Context context) {
-    return new CrossValidation(params.getSubBlockValue(FOLDS,
-        DEFAULT_NUMBER_FOLDS), params.getSubBlockValue(LEAVE_ONE_OUT, false),
-        params.getSubBlockValue(NUMBER_OF_PASSES, DEFAULT_VAL_NUM_PASSES));
+    CrossValidation crossValidation =
+        new CrossValidation(params.getSubBlockValue(FOLDS,
+            DEFAULT_NUMBER_FOLDS),
+            params.getSubBlockValue(LEAVE_ONE_OUT, false),
+            params.getSubBlockValue(NUMBER_OF_PASSES, DEFAULT_VAL_NUM_PASSES));
+    Long seed = params.getSubBlockValue(SEED);
+    if (seed != null) {
+      crossValidation.setSeed(seed);
+    }
+    crossValidation.setParallelism(params.getSubBlockValue(PARALLELISM, 1));
+    return crossValidation;
   }
 
 }
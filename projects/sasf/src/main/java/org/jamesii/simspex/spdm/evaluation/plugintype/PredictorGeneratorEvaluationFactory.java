@@ -36,6 +36,20 @@ public abstract class PredictorGeneratorEvaluationFactory extends
    */
   public static final int DEFAULT_VAL_NUM_PASSES = 10;
 
+  /**
+   * Parameter for the seed of the random number streams of the passes, type:
+   * {@link Long}. If not set, a seed is drawn from the random number generator
+   * of the system.
+   */
+  public static final String SEED = "seed";
+
+  /**
+   * Parameter for the number of passes to be evaluated concurrently, type:
+   * {@link Integer}. Default is 1, i.e. sequential evaluation. Only set this
+   * if the predictor generator to be evaluated is thread-safe.
+   */
+  public static final String PARALLELISM = "parallelism";
+
   /**
    * Creates evaluation strategy.
  * @param params
@@ -0,0 +1,83 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+import org.jamesii.core.util.misc.Pair;
+
+/**
+ * Tests for the recombination and repair of {@link BitSetIndividual}.
+ * 
+ */
+public class TestBitSetIndividual extends TestCase {
+
+  /** The length of the genomes, spans several words. */
+  static final int LENGTH = 150;
+
+  /**
+   * Tests one-point crossover within and at the borders of genome words,
+   * compared to {@link BooleanIndividual}.
+   */
+  public void testGenomeRecombination() {
+    boolean[] zeros = new boolean[LENGTH];
+    boolean[] ones = new boolean[LENGTH];
+    Arrays.fill(ones, true);
+
+    for (int crossover : new int[] { 0, 1, 63, 64, 65, 128, LENGTH - 1 }) {
+      Pair<long[], long[]> recombinedGenomes =
+          BitSetIndividual.recombineGenomes(crossover,
+              BitSetIndividual.toBits(zeros), BitSetIndividual.toBits(ones));
+      Pair<boolean[], boolean[]> expected =
+          BooleanIndividual.recombineGenomes(crossover, zeros, ones);
+      assertTrue(Arrays.equals(expected.getFirstValue(), toBooleans(
+          recombinedGenomes.getFirstValue())));
+      assertTrue(Arrays.equals(expected.getSecondValue(), toBooleans(
+          recombinedGenomes.getSecondValue())));
+    }
+  }
+
+  /**
+   * Tests that random genomes, mutation and repair respect the size
+   * constraints and that the boolean representation is consistent.
+   */
+  public void testSizeConstraints() {
+    IRandom rng = new MRG32k3a(42, 0);
+    IIndividual ind =
+        new BitSetIndividualFactory().createRandomIndividual(rng, LENGTH, 10);
+    assertEquals(10, ind.numOfChosenAlgo());
+
+    for (int i = 0; i < 100; i++) {
+      ind.mutate(0.1, 5, 20);
+      ind.repairGenome(5, 20);
+      int size = ind.numOfChosenAlgo();
+      assertTrue("Portfolio size " + size + " violates constraints",
+          size >= 5 && size <= 20);
+
+      boolean[] genome = ind.getBooleanRepresentation();
+      assertEquals(LENGTH, genome.length);
+      assertTrue(Arrays.equals(BitSetIndividual.toBits(genome),
+          ((BitSetIndividual) ind).getBits()));
+    }
+  }
+
+  /**
+   * Converts a bit set genome to a boolean genome.
+   * 
+   * @param bits
+   *          the bit set
+   * @return the boolean genome
+   */
+  private static boolean[] toBooleans(long[] bits) {
+    return new BitSetIndividual(bits, LENGTH, null).getBooleanRepresentation();
+  }
+
+}
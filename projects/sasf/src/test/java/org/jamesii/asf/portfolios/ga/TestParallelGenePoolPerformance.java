@@ -0,0 +1,144 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.asf.portfolios.ga;
+
+import java.util.logging.Level;
+
+import junit.framework.TestCase;
+
+import org.jamesii.SimSystem;
+import org.jamesii.asf.portfolios.ga.abort.GenerationCountAbort;
+import org.jamesii.asf.portfolios.ga.fitness.ASRFitness;
+import org.jamesii.asf.portfolios.ga.fitness.IColumnarPortfolioFitness;
+import org.jamesii.asf.portfolios.ga.fitness.MeanVarianceFitness;
+import org.jamesii.asf.portfolios.ga.fitness.PerformanceColumns;
+import org.jamesii.asf.portfolios.ga.fitness.SimpleFitness;
+import org.jamesii.asf.portfolios.plugintype.PortfolioPerformanceData;
+import org.jamesii.asf.portfolios.plugintype.PortfolioProblemDescription;
+import org.jamesii.core.math.random.generators.IRandom;
+import org.jamesii.core.math.random.generators.mrg32k3a.MRG32k3a;
+import org.jamesii.core.util.StopWatch;
+
+/**
+ * Compares the {@link ParallelGenePoolFactory} (with
+ * {@link BitSetIndividual}s) to the {@link GenePoolFactory} (with
+ * {@link BooleanIndividual}s) on synthetic data with 500 algorithms, see
+ * {@link PerformanceDataGenerator}.
+ * 
+ */
+public class TestParallelGenePoolPerformance extends TestCase {
+
+  /** The number of algorithm clusters (with four algorithms each). */
+  static final int NUM_OF_CLUSTERS = 125;
+
+  /** The number of problems. */
+  static final int NUM_OF_PROBLEMS = 200;
+
+  /** Minimal size of portfolio. */
+  static final int MIN_SIZE = 5;
+
+  /** Maximal size of portfolio. */
+  static final int MAX_SIZE = 50;
+
+  /** The number of individuals. */
+  static final int NUM_OF_IND = 50;
+
+  /** The number of generations. */
+  static final int NUM_OF_GENERATIONS = 20;
+
+  /** The acceptable risk. */
+  static final double RISK = 0.5;
+
+  /** The performance data. */
+  private PortfolioPerformanceData perfData;
+
+  @Override
+  public void setUp() {
+    perfData =
+        new PerformanceDataGenerator(NUM_OF_CLUSTERS, 4, NUM_OF_PROBLEMS, 3, 3)
+            .generateTestMatrix();
+  }
+
+  /**
+   * Checks that the columnar fitness functions yield the same results as their
+   * boolean counterparts.
+   */
+  public void testFitnessEquivalence() {
+    PortfolioProblemDescription problem =
+        new PortfolioProblemDescription(perfData, RISK, true, MIN_SIZE,
+            MAX_SIZE);
+    Double[][] performances = perfData.performances;
+    PerformanceColumns columns = new PerformanceColumns(performances);
+    IRandom rng = new MRG32k3a(42, 0);
+
+    for (IColumnarPortfolioFitness fitness : new IColumnarPortfolioFitness[] {
+        new MeanVarianceFitness(), new ASRFitness(), new SimpleFitness() }) {
+      for (int i = 0; i < 10; i++) {
+        BitSetIndividual ind =
+            (BitSetIndividual) new BitSetIndividualFactory()
+                .createRandomIndividual(rng, performances.length,
+                    MIN_SIZE + i * (MAX_SIZE - MIN_SIZE) / 10);
+        double expected =
+            fitness.calculateFitness(problem, performances,
+                ind.getBooleanRepresentation());
+        double actual =
+            fitness.calculateFitness(problem, columns, ind.getBits());
+        assertEquals(fitness.getClass().getSimpleName(), expected, actual,
+            Math.abs(expected) * 1e-9);
+      }
+    }
+  }
+
+  /**
+   * Runs the selector with both gene pool factories and reports the time
+   * needed.
+   */
+  public void testPerformance() {
+    long sequential =
+        runSelector(new GenePoolFactory(), new BooleanIndividualFactory());
+    long parallel =
+        runSelector(new ParallelGenePoolFactory(),
+            new BitSetIndividualFactory());
+    SimSystem.report(Level.INFO, "Selection with " + NUM_OF_IND
+        + " individuals and " + NUM_OF_GENERATIONS + " generations on "
+        + perfData.performances.length + " algorithms: " + sequential
+        + " ms (sequential, boolean), " + parallel
+        + " ms (parallel, bit sets).");
+  }
+
+  /**
+   * Runs the GA-based selector.
+   * 
+   * @param genePoolFactory
+   *          the gene pool factory
+   * @param individualFactory
+   *          the individual factory
+   * @return the time needed (in milliseconds)
+   */
+  private long runSelector(AbstractGenePoolFactory genePoolFactory,
+      AbstractIndividualFactory individualFactory) {
+    GeneticAlgorithmPortfolioSelector gaps =
+        new GeneticAlgorithmPortfolioSelector();
+    gaps.setAbortCriterion(new GenerationCountAbort(NUM_OF_GENERATIONS));
+    gaps.setFitness(new MeanVarianceFitness());
+    gaps.setNumIndividuals(NUM_OF_IND);
+    gaps.setFactoryGenePool(genePoolFactory);
+    gaps.setIndividualFactory(individualFactory);
+
+    StopWatch watch = new StopWatch();
+    watch.start();
+    double[] vector =
+        gaps.portfolio(new PortfolioProblemDescription(perfData, RISK, true,
+            MIN_SIZE, MAX_SIZE));
+    watch.stop();
+
+    assertEquals(NUM_OF_GENERATIONS, gaps.getGenerationCount());
+    assertEquals(perfData.performances.length, vector.length);
+    return watch.elapsedMilliseconds();
+  }
+
+}
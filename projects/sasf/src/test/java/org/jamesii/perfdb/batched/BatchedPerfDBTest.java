@@ -0,0 +1,314 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.perfdb.batched;
+
+import java.io.Serializable;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.jamesii.core.data.DBConnectionData;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.perfdb.DatabaseAccessException;
+import org.jamesii.perfdb.IPerformanceDatabase;
+import org.jamesii.perfdb.PerfDBTest;
+import org.jamesii.perfdb.entities.IApplication;
+import org.jamesii.perfdb.entities.IHardwareSetup;
+import org.jamesii.perfdb.entities.IMachine;
+import org.jamesii.perfdb.entities.IPerformanceType;
+import org.jamesii.perfdb.entities.IProblemDefinition;
+import org.jamesii.perfdb.entities.IProblemInstance;
+import org.jamesii.perfdb.entities.IProblemScheme;
+import org.jamesii.perfdb.entities.IRuntimeConfiguration;
+import org.jamesii.perfdb.recording.performance.totaltime.TotalRuntimePerfMeasurerFactory;
+import org.jamesii.perfdb.recording.selectiontrees.SelectionTree;
+import org.jamesii.simspex.util.DBConfiguration;
+
+/**
+ * Tests the {@link BatchedPerformanceDatabase} with an in-memory HSQLDB.
+ */
+public class BatchedPerfDBTest extends PerfDBTest {
+
+  /** The connection data of the in-memory database. */
+  static final DBConnectionData CONNECTION_DATA = new DBConnectionData(
+      "jdbc:hsqldb:mem:batched_perfdb_test", DBConfiguration.HSQL_DEFAULT_USER,
+      DBConfiguration.HSQL_DEFAULT_PWD, DBConfiguration.HSQL_DRIVER);
+
+  /** The maximal delay of inserts in {@link #testMaxDelay()} (in ms). */
+  static final long MAX_DELAY = 200;
+
+  @Override
+  public IPerformanceDatabase getDataBase(DBConnectionData dbConn) {
+    // batch size and delay are chosen such that the queue is rarely written
+    // before a query flushes it
+    BatchedPerformanceDatabase db =
+        new BatchedPerformanceDatabase(CONNECTION_DATA, 100, 10000);
+    db.open();
+    return db;
+  }
+
+  /**
+   * Tests that all entities are read back after re-opening the database, and
+   * that new IDs do not collide with existing ones.
+   * 
+   * @throws Exception
+   *           if test fails
+   */
+  public void testReopen() throws Exception {
+    IPerformanceDatabase db = getPerfDB();
+    IProblemScheme scheme =
+        db.newProblemScheme(new URI("http://test/reopen"), "Scheme",
+            "type", "desc");
+    Map<String, Serializable> params = new HashMap<>();
+    params.put("block", new ParameterBlock(2, "x"));
+    IProblemDefinition definition =
+        db.newProblemDefinition(scheme, params,
+            new HashMap<String, Serializable>());
+    IProblemInstance instance =
+        db.newProblemInstance(definition, 42L, "rng");
+    IRuntimeConfiguration config =
+        db.newRuntimeConfiguration(new SelectionTree(null), false);
+    IMachine machine = db.newMachine("machine", "", "mac", 1.);
+    HashSet<IMachine> machines = new HashSet<>();
+    machines.add(machine);
+    IHardwareSetup setup =
+        db.newHardwareSetup("setup", "", "none", 0, machines);
+    IPerformanceType perfType =
+        db.getPerformanceType(TotalRuntimePerfMeasurerFactory.class);
+    IApplication application =
+        db.newApplication(instance, config, setup, null);
+    for (int i = 0; i < 250; i++) {
+      db.newPerformance(application, perfType, i);
+    }
+    db.close();
+
+    db = getDataBase(null);
+    try {
+      assertEquals(scheme, db.getProblemScheme(scheme.getUri()));
+      Map<String, Serializable> sameParams = new HashMap<>();
+      sameParams.put("block", new ParameterBlock(2, "x"));
+      assertEquals(definition, db.getProblemDefinition(scheme, sameParams,
+          new HashMap<String, Serializable>()));
+      assertEquals(instance, db.getProblemInstance(definition, 42L));
+      assertEquals(config,
+          db.newRuntimeConfiguration(new SelectionTree(null), false));
+      assertEquals(1, db.getSetupCount(machine));
+      assertEquals(perfType,
+          db.getPerformanceType(TotalRuntimePerfMeasurerFactory.class));
+
+      IApplication readApplication =
+          db.getAllApplications(instance, config).get(0);
+      assertEquals(application, readApplication);
+      assertEquals(setup, readApplication.getSetup());
+      assertEquals(250, db.getAllPerformances(readApplication).size());
+      assertEquals(249., db.getAllPerformancesMap(perfType).get(
+          application.getID()));
+
+      IApplication newApplication =
+          db.newApplication(instance, config, null, null);
+      assertTrue(newApplication.getID() > application.getID());
+      assertEquals(2, db.getAllApplications(definition).size());
+    } finally {
+      db.close();
+    }
+  }
+
+  /**
+   * Tests that a single insert is written after the maximal delay, without
+   * flushing, i.e. that it can be read via another connection.
+   * 
+   * @throws Exception
+   *           if test fails
+   */
+  public void testMaxDelay() throws Exception {
+    DBConnectionData connData =
+        new DBConnectionData("jdbc:hsqldb:mem:batched_perfdb_delay_test",
+            DBConfiguration.HSQL_DEFAULT_USER,
+            DBConfiguration.HSQL_DEFAULT_PWD, DBConfiguration.HSQL_DRIVER);
+    BatchedPerformanceDatabase db =
+        new BatchedPerformanceDatabase(connData, 1000, MAX_DELAY);
+    db.open();
+    Connection connection =
+        DriverManager.getConnection(connData.getURL(), connData.getUser(),
+            connData.getPassword());
+    try {
+      IProblemScheme scheme =
+          db.newProblemScheme(new URI("http://test/delay"), "Scheme", "type",
+              "desc");
+      IProblemDefinition definition =
+          db.newProblemDefinition(scheme,
+              new HashMap<String, Serializable>(),
+              new HashMap<String, Serializable>());
+      IApplication application =
+          db.newApplication(db.newProblemInstance(definition, 42L, "rng"),
+              db.newRuntimeConfiguration(new SelectionTree(null), false),
+              null, null);
+
+      // let the writer become idle before the single insert is added
+      Thread.sleep(2 * MAX_DELAY);
+      assertEquals(0, countPerformances(connection));
+      db.newPerformance(application,
+          db.getPerformanceType(TotalRuntimePerfMeasurerFactory.class), 1.);
+
+      long deadline = System.currentTimeMillis() + 20 * MAX_DELAY;
+      while (countPerformances(connection) == 0
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(MAX_DELAY / 4);
+      }
+      assertEquals(1, countPerformances(connection));
+    } finally {
+      connection.close();
+      db.close();
+    }
+  }
+
+  /**
+   * Tests that two instances can write to the same database at the same time:
+   * their IDs do not collide, and each one finds the entities created by the
+   * other.
+   * 
+   * @throws Exception
+   *           if test fails
+   */
+  public void testSharedDatabase() throws Exception {
+    DBConnectionData connData =
+        new DBConnectionData("jdbc:hsqldb:mem:batched_perfdb_shared_test",
+            DBConfiguration.HSQL_DEFAULT_USER,
+            DBConfiguration.HSQL_DEFAULT_PWD, DBConfiguration.HSQL_DRIVER);
+    BatchedPerformanceDatabase db1 =
+        new BatchedPerformanceDatabase(connData, 100, 10000);
+    BatchedPerformanceDatabase db2 =
+        new BatchedPerformanceDatabase(connData, 100, 10000);
+    db1.open();
+    db2.open();
+    Connection connection =
+        DriverManager.getConnection(connData.getURL(), connData.getUser(),
+            connData.getPassword());
+    try {
+      URI uri = new URI("http://test/shared");
+      IProblemScheme scheme = db1.newProblemScheme(uri, "Scheme", "type", "");
+      assertEquals(scheme, db2.getProblemScheme(uri));
+      assertEquals(scheme, db2.newProblemScheme(uri, "Scheme", "type", ""));
+      IProblemDefinition definition =
+          db1.newProblemDefinition(scheme,
+              new HashMap<String, Serializable>(),
+              new HashMap<String, Serializable>());
+      IProblemInstance instance =
+          db1.newProblemInstance(definition, 42L, "rng");
+      IRuntimeConfiguration config =
+          db1.newRuntimeConfiguration(new SelectionTree(null), false);
+      db1.flush();
+      assertEquals(instance, db2.getProblemInstance(definition, 42L));
+      assertEquals(config,
+          db2.newRuntimeConfiguration(new SelectionTree(null), false));
+
+      IPerformanceType perfType1 =
+          db1.getPerformanceType(TotalRuntimePerfMeasurerFactory.class);
+      IPerformanceType perfType2 =
+          db2.getPerformanceType(TotalRuntimePerfMeasurerFactory.class);
+      assertEquals(perfType1, perfType2);
+      int numOfApplications = 2 * BatchedPerformanceDatabase.ID_BLOCK_SIZE + 1;
+      for (int i = 0; i < numOfApplications; i++) {
+        db1.newPerformance(db1.newApplication(instance, config, null, null),
+            perfType1, i);
+        db2.newPerformance(db2.newApplication(instance, config, null, null),
+            perfType2, i);
+      }
+      db1.flush();
+      db2.flush();
+      assertEquals(2 * numOfApplications, countPerformances(connection));
+      assertEquals(2 * numOfApplications, db2.getAllApplications(instance)
+          .size());
+      assertEquals(config, db1.getAllApplications(instance).get(0)
+          .getRuntimeConfiguration());
+    } finally {
+      connection.close();
+      db1.close();
+      db2.close();
+    }
+  }
+
+  /**
+   * Tests that a failed write is thrown by the next flush and by closing the
+   * database.
+   * 
+   * @throws Exception
+   *           if test fails
+   */
+  public void testWriteFailure() throws Exception {
+    DBConnectionData connData =
+        new DBConnectionData("jdbc:hsqldb:mem:batched_perfdb_failure_test",
+            DBConfiguration.HSQL_DEFAULT_USER,
+            DBConfiguration.HSQL_DEFAULT_PWD, DBConfiguration.HSQL_DRIVER);
+    BatchedPerformanceDatabase db =
+        new BatchedPerformanceDatabase(connData, 1, 10000);
+    db.open();
+    Connection connection =
+        DriverManager.getConnection(connData.getURL(), connData.getUser(),
+            connData.getPassword());
+    try {
+      IProblemScheme scheme =
+          db.newProblemScheme(new URI("http://test/failure"), "Scheme",
+              "type", "desc");
+      IProblemInstance instance =
+          db.newProblemInstance(db.newProblemDefinition(scheme,
+              new HashMap<String, Serializable>(),
+              new HashMap<String, Serializable>()), 42L, "rng");
+      IRuntimeConfiguration config =
+          db.newRuntimeConfiguration(new SelectionTree(null), false);
+      db.newApplication(instance, config, null, null);
+      db.flush();
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("DROP TABLE "
+            + BatchedPerformanceDatabase.APPLICATIONS);
+      }
+      db.newApplication(instance, config, null, null);
+      try {
+        db.flush();
+        fail("The failed write should be thrown.");
+      } catch (DatabaseAccessException e) {
+        assertTrue(e.getCause() instanceof SQLException);
+      }
+      try {
+        db.close();
+        fail("The failed write should be thrown.");
+      } catch (DatabaseAccessException e) {
+        assertTrue(e.getCause() instanceof SQLException);
+      }
+    } finally {
+      connection.close();
+      db.close();
+    }
+  }
+
+  /**
+   * Counts the rows of the performances table.
+   * 
+   * @param connection
+   *          the connection to be used
+   * @return the number of performances
+   * @throws Exception
+   *           if query fails
+   */
+  private static int countPerformances(Connection connection)
+      throws Exception {
+    try (Statement statement = connection.createStatement();
+        ResultSet result =
+            statement.executeQuery("SELECT COUNT(*) FROM "
+                + BatchedPerformanceDatabase.PERFORMANCES)) {
+      result.next();
+      return result.getInt(1);
+    }
+  }
+
+}
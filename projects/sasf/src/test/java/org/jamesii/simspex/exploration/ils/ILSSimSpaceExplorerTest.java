@@ -0,0 +1,196 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ *
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.exploration.ils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.core.experiments.RunInformation;
+import org.jamesii.core.experiments.TaskConfiguration;
+import org.jamesii.core.experiments.execonfig.IParamBlockUpdate;
+import org.jamesii.core.experiments.steering.VariablesAssignment;
+import org.jamesii.core.factories.Factory;
+import org.jamesii.core.model.variables.BaseVariable;
+import org.jamesii.core.model.variables.IntVariable;
+import org.jamesii.core.model.variables.QuantitativeBaseVariable;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.core.processor.plugintype.ProcessorFactory;
+import org.jamesii.simspex.exploration.ils.algorithm.BasicILS;
+import org.jamesii.simspex.exploration.ils.algorithm.ParamILS;
+import org.jamesii.simspex.exploration.ils.explorer.ILSSimSpaceExplorer;
+import org.jamesii.simspex.exploration.ils.termination.ParamILSTerminationSimpleCounter;
+
+/**
+ * Tests {@link ILSSimSpaceExplorer} as a steerer that is driven the way an
+ * experiment drives it: jobs are requested until none is available, and the
+ * executions are finished in arbitrary order. The cost of a configuration is
+ * 1 + |x-2| seconds.
+ *
+ */
+public class ILSSimSpaceExplorerTest extends TestCase {
+
+  /** The number of runs per configuration (and of threads). */
+  private static final int RUNS = 3;
+
+  /** The name of the parameter to be explored. */
+  private static final String PARAMETER = "x";
+
+  /** Waiting time for threads to reach a state (in ms). */
+  private static final long WAIT = 10;
+
+  public void testConcurrentRunsAreHandedToExperiment() {
+    ParamILS paramILS =
+        new BasicILS(RUNS, new ParamILSTerminationSimpleCounter(2));
+    paramILS.setNumberOfThreads(RUNS);
+    ILSSimSpaceExplorer explorer = createExplorer(paramILS);
+    explorer.init();
+
+    List<TaskConfiguration> executing = new ArrayList<>();
+    int maxExecuting = 0;
+    int executed = 0;
+    while (true) {
+      VariablesAssignment assignment;
+      while ((assignment = explorer.getNextVariableAssignment()) != null) {
+        executing.add(createTaskConfiguration(assignment));
+      }
+      if (executing.isEmpty()) {
+        break;
+      }
+      maxExecuting = Math.max(maxExecuting, executing.size());
+      // finish the most recent execution first
+      TaskConfiguration taskConfig = executing.remove(executing.size() - 1);
+      explorer.executionFinished(taskConfig, new TimedRunInformation(
+          getCost(taskConfig)));
+      executed++;
+    }
+
+    assertTrue(explorer.isFinished());
+    assertTrue(executed >= RUNS);
+    assertTrue(maxExecuting > 1);
+    assertTrue(maxExecuting <= RUNS);
+    assertEquals(2, getX(paramILS.getMinimumConfiguration()));
+  }
+
+  public void testCancelledRunsAreNotHandedToExperiment()
+      throws InterruptedException {
+    ILSSimSpaceExplorer explorer =
+        createExplorer(new BasicILS(RUNS, new ParamILSTerminationSimpleCounter(
+            1)));
+
+    RunExecutor cancelled = new RunExecutor(explorer, createConfiguration(0));
+    cancelled.start();
+    while (cancelled.getState() != Thread.State.WAITING) {
+      Thread.sleep(WAIT);
+    }
+    cancelled.interrupt();
+    cancelled.join();
+    assertTrue(cancelled.interrupted);
+
+    RunExecutor executed = new RunExecutor(explorer, createConfiguration(1));
+    executed.start();
+    TaskConfiguration taskConfig =
+        createTaskConfiguration(explorer.getNextVariableAssignment());
+    assertEquals(1, getX(taskConfig.getExecParams()));
+    explorer.executionFinished(taskConfig, new TimedRunInformation(2.));
+    executed.join();
+    assertFalse(executed.interrupted);
+    assertEquals(2., executed.cost, 1e-6);
+  }
+
+  private static ILSSimSpaceExplorer createExplorer(ParamILS paramILS) {
+    Map<Class<? extends Factory<?>>, List<QuantitativeBaseVariable<?>>> parameters =
+        new HashMap<>();
+    parameters.put(ProcessorFactory.class, Collections
+        .<QuantitativeBaseVariable<?>> singletonList(new IntVariable(
+            PARAMETER, 0, 0, 5, 1)));
+    ILSSimSpaceExplorer explorer =
+        new ILSSimSpaceExplorer(Collections
+            .singletonList(createConfiguration(0)), paramILS, parameters);
+    explorer.setModelVariables(Collections
+        .<BaseVariable<?>> singleton(new IntVariable("n", 1, 1, 10, 1)));
+    return explorer;
+  }
+
+  private static ParameterBlock createConfiguration(int x) {
+    return new ParameterBlock().addSubBl(ProcessorFactory.class.getName(),
+        new ParameterBlock(ProcessorFactory.class.getName()).addSubBl(
+            PARAMETER, x));
+  }
+
+  private static TaskConfiguration createTaskConfiguration(
+      VariablesAssignment assignment) {
+    ParameterBlock execParams = new ParameterBlock();
+    for (Serializable value : assignment.values()) {
+      if (value instanceof IParamBlockUpdate) {
+        ((IParamBlockUpdate) value).update(execParams);
+      }
+    }
+    assertNotNull(execParams
+        .getSubBlockValue(ILSSimSpaceExplorer.JOB_NUMBER));
+    return new TaskConfiguration(0, new ParameterBlock(),
+        new HashMap<String, Object>(), execParams);
+  }
+
+  private static double getCost(TaskConfiguration taskConfig) {
+    return 1 + Math.abs(getX(taskConfig.getExecParams()) - 2);
+  }
+
+  private static int getX(ParameterBlock configuration) {
+    return configuration.getSubBlock(ProcessorFactory.class.getName())
+        .<Integer> getSubBlockValue(PARAMETER);
+  }
+
+  /**
+   * Run information with a given total runtime.
+   */
+  static class TimedRunInformation extends RunInformation {
+
+    private static final long serialVersionUID = 3466870396245306573L;
+
+    TimedRunInformation(double seconds) {
+      super(true);
+      setModelCreationTime(0);
+      setObserverConfigurationTime(0);
+      setComputationTaskCreationTime(0);
+      setComputationTaskRunTime(Math.round(seconds * 1000));
+    }
+  }
+
+  /**
+   * Executes a run with the explorer in a separate thread.
+   */
+  static class RunExecutor extends Thread {
+
+    private final ILSSimSpaceExplorer explorer;
+
+    private final ParameterBlock configuration;
+
+    private volatile boolean interrupted;
+
+    private volatile double cost;
+
+    RunExecutor(ILSSimSpaceExplorer explorer, ParameterBlock configuration) {
+      this.explorer = explorer;
+      this.configuration = configuration;
+    }
+
+    @Override
+    public void run() {
+      try {
+        cost = explorer.executeRun(configuration, 0, 1.);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+  }
+}
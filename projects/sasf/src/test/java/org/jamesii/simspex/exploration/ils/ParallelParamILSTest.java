@@ -0,0 +1,373 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.exploration.ils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.jamesii.SimSystem;
+import org.jamesii.core.math.random.rnggenerator.IRNGGenerator;
+import org.jamesii.core.math.random.rnggenerator.stream.StreamRNGGenerator;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.perfdb.util.ParameterBlocks;
+import org.jamesii.simspex.exploration.ils.algorithm.BasicILS;
+import org.jamesii.simspex.exploration.ils.algorithm.FocusedILS;
+import org.jamesii.simspex.exploration.ils.algorithm.ParamILS;
+import org.jamesii.simspex.exploration.ils.explorer.IConcurrentILSInformationSource;
+import org.jamesii.simspex.exploration.ils.explorer.IILSSimSpaceExplorerInformationSource;
+import org.jamesii.simspex.exploration.ils.termination.ParamILSTerminationSimpleCounter;
+
+/**
+ * Tests {@link ParamILS} with concurrently executed runs: for a given seed
+ * (and deterministic costs), the search has to take the same course as the
+ * sequential search regardless of the thread scheduling, and has to find the
+ * optimum of a simple cost landscape.
+ * 
+ */
+public class ParallelParamILSTest extends TestCase {
+
+  /** The seed of the search. */
+  private static final long SEED = 42L;
+
+  /** The number of iterations of the search. */
+  private static final int ITERATIONS = 10;
+
+  /** The number of threads. */
+  private static final int THREADS = 4;
+
+  public void testBasicILSIsDeterministic() {
+    checkDeterministic(new BasicILSCreator());
+  }
+
+  public void testFocusedILSIsDeterministic() {
+    checkDeterministic(new FocusedILSCreator());
+  }
+
+  public void testSequentialAndParallelFindOptimum() {
+    for (int threads : new int[] { 1, THREADS }) {
+      GridInformationSource source = new GridInformationSource();
+      ParamILS paramILS = search(new BasicILSCreator(), source, threads);
+      ParameterBlock minimum = paramILS.getMinimumConfiguration();
+      assertEquals(3, minimum.<Integer> getSubBlockValue("x").intValue());
+      assertEquals(6, minimum.<Integer> getSubBlockValue("y").intValue());
+    }
+  }
+
+  public void testBasicILSRecordsSameRunsAsSequential() {
+    checkSameRunsAsSequential(new BasicILSCreator(), false);
+  }
+
+  public void testFocusedILSRecordsSameRunsAsSequential() {
+    checkSameRunsAsSequential(new FocusedILSCreator(), false);
+  }
+
+  public void testCappedRunsAreRecordedAsSequential() {
+    checkSameRunsAsSequential(new BasicILSCreator(), true);
+  }
+
+  public void testParallelRequiresConcurrentSource() {
+    ParamILS paramILS = new BasicILSCreator().create();
+    paramILS.setNumberOfThreads(THREADS);
+    paramILS.setInformationSource(new SequentialInformationSource(
+        new GridInformationSource()));
+    try {
+      paramILS.run();
+      fail("Plain information source must not be accepted.");
+    } catch (IllegalStateException ex) {
+      // expected
+    }
+  }
+
+  private void checkSameRunsAsSequential(ParamILSCreator creator,
+      boolean aggressiveCapping) {
+    GridInformationSource sequential = new GridInformationSource();
+    search(creator, sequential, 1, aggressiveCapping);
+    GridInformationSource parallel = new GridInformationSource();
+    search(creator, parallel, THREADS, aggressiveCapping);
+    assertEquals(sequential.getRecordedRuns(), parallel.getRecordedRuns());
+  }
+
+  private void checkDeterministic(ParamILSCreator creator) {
+    GridInformationSource first = new GridInformationSource();
+    ParamILS firstILS = search(creator, first, THREADS);
+    GridInformationSource second = new GridInformationSource();
+    ParamILS secondILS = search(creator, second, THREADS);
+    assertFalse(first.getRecordedRuns().isEmpty());
+    assertEquals(first.getRecordedRuns(), second.getRecordedRuns());
+    assertTrue(ParameterBlocks.equal(firstILS.getMinimumConfiguration(),
+        secondILS.getMinimumConfiguration()));
+  }
+
+  private ParamILS search(ParamILSCreator creator,
+      GridInformationSource source, int threads) {
+    return search(creator, source, threads, false);
+  }
+
+  private ParamILS search(ParamILSCreator creator,
+      GridInformationSource source, int threads, boolean aggressiveCapping) {
+    IRNGGenerator rngGenerator = SimSystem.getRNGGenerator();
+    try {
+      SimSystem.setRandSeedGenerator(new StreamRNGGenerator(SEED));
+      ParamILS paramILS = creator.create();
+      paramILS.setNumberOfThreads(threads);
+      paramILS.setAggressiveCapping(aggressiveCapping);
+      paramILS.setMinResourceCap(1);
+      paramILS.setInformationSource(source);
+      paramILS.run();
+      return paramILS;
+    } finally {
+      SimSystem.setRandSeedGenerator(rngGenerator);
+    }
+  }
+
+  /**
+   * Creates the ParamILS variant to test.
+   */
+  interface ParamILSCreator {
+    ParamILS create();
+  }
+
+  static class BasicILSCreator implements ParamILSCreator {
+    @Override
+    public ParamILS create() {
+      return new BasicILS(3, new ParamILSTerminationSimpleCounter(ITERATIONS));
+    }
+  }
+
+  static class FocusedILSCreator implements ParamILSCreator {
+    @Override
+    public ParamILS create() {
+      return new FocusedILS(new ParamILSTerminationSimpleCounter(ITERATIONS));
+    }
+  }
+
+  /**
+   * Information source for configurations of two integer parameters x and y
+   * in [0,9], whose (deterministic) costs are minimal for x=3 and y=6. Runs
+   * take a few milliseconds, so that they actually overlap.
+   */
+  static class GridInformationSource implements
+      IConcurrentILSInformationSource {
+
+    private static final int SIZE = 10;
+
+    private final Random random = new Random(SEED);
+
+    /** The costs and resource caps of the recorded runs. */
+    private final Map<String, List<double[]>> runs = new HashMap<>();
+
+    /** The recorded runs, in order. */
+    private final List<String> recordedRuns = new ArrayList<>();
+
+    @Override
+    public double executeRun(ParameterBlock configuration, int runNumber,
+        double resourceCap) throws InterruptedException {
+      int x = configuration.getSubBlockValue("x");
+      int y = configuration.getSubBlockValue("y");
+      double cost =
+          1 + Math.abs(x - 3) + Math.abs(y - 6) + 0.1 * (runNumber % 3);
+      Thread.sleep(1 + (x + y + runNumber) % 3);
+      return Math.min(cost, resourceCap);
+    }
+
+    @Override
+    public synchronized void registerRun(ParameterBlock configuration,
+        int runNumber, double resourceCap, double cost) {
+      List<double[]> configRuns = getRuns(configuration);
+      if (runNumber < configRuns.size()) {
+        configRuns.set(runNumber, new double[] { cost, resourceCap });
+      } else {
+        assertEquals(configRuns.size(), runNumber);
+        configRuns.add(new double[] { cost, resourceCap });
+      }
+      recordedRuns.add(ParameterBlocks.toUniqueString(configuration) + "#"
+          + runNumber + ":" + cost + "/" + resourceCap);
+    }
+
+    @Override
+    public double calculateCost(ParameterBlock configuration, int runNumber,
+        Double resourceCap) {
+      double cap =
+          resourceCap == null ? Double.POSITIVE_INFINITY : resourceCap;
+      try {
+        double cost = executeRun(configuration, runNumber, cap);
+        registerRun(configuration, runNumber, cap, cost);
+        return cost;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return Double.POSITIVE_INFINITY;
+      }
+    }
+
+    @Override
+    public synchronized int getNumberOfRuns(ParameterBlock configuration) {
+      return getRuns(configuration).size();
+    }
+
+    @Override
+    public synchronized double getCost(ParameterBlock configuration,
+        int runNumber) {
+      return getRuns(configuration).get(runNumber)[0];
+    }
+
+    @Override
+    public synchronized double getSumOfCosts(ParameterBlock configuration,
+        int runNumber) {
+      double sum = 0;
+      for (int i = 0; i < runNumber; i++) {
+        sum += getCost(configuration, i);
+      }
+      return sum;
+    }
+
+    @Override
+    public synchronized double getResourceCap(ParameterBlock configuration,
+        int runNumber) {
+      return getRuns(configuration).get(runNumber)[1];
+    }
+
+    @Override
+    public ParameterBlock getInitialConfiguration() {
+      return createConfiguration(0, 0);
+    }
+
+    @Override
+    public ParameterBlock getRandomNeighbour(ParameterBlock simConfig) {
+      return getRandomNeighbour(simConfig, random.nextInt(2));
+    }
+
+    @Override
+    public ParameterBlock getRandomNeighbour(ParameterBlock simConfig,
+        int positionToChange) {
+      int x = simConfig.getSubBlockValue("x");
+      int y = simConfig.getSubBlockValue("y");
+      return positionToChange == 0 ? createConfiguration(random.nextInt(SIZE),
+          y) : createConfiguration(x, random.nextInt(SIZE));
+    }
+
+    @Override
+    public List<ParameterBlock> getNeighbourhood(ParameterBlock simConfig) {
+      int x = simConfig.getSubBlockValue("x");
+      int y = simConfig.getSubBlockValue("y");
+      List<ParameterBlock> neighbourhood = new ArrayList<>();
+      for (int d = -1; d <= 1; d += 2) {
+        if (x + d >= 0 && x + d < SIZE) {
+          neighbourhood.add(createConfiguration(x + d, y));
+        }
+        if (y + d >= 0 && y + d < SIZE) {
+          neighbourhood.add(createConfiguration(x, y + d));
+        }
+      }
+      return neighbourhood;
+    }
+
+    @Override
+    public int getNumberOfParameters(ParameterBlock configuration) {
+      return 2;
+    }
+
+    @Override
+    public ParameterBlock restart() {
+      return createConfiguration(random.nextInt(SIZE), random.nextInt(SIZE));
+    }
+
+    private List<double[]> getRuns(ParameterBlock configuration) {
+      String key = ParameterBlocks.toUniqueString(configuration);
+      List<double[]> configRuns = runs.get(key);
+      if (configRuns == null) {
+        configRuns = new ArrayList<>();
+        runs.put(key, configRuns);
+      }
+      return configRuns;
+    }
+
+    private static ParameterBlock createConfiguration(int x, int y) {
+      return new ParameterBlock().addSubBl("x", x).addSubBl("y", y);
+    }
+
+    synchronized List<String> getRecordedRuns() {
+      return Collections.unmodifiableList(new ArrayList<>(recordedRuns));
+    }
+  }
+
+  /**
+   * Wraps a {@link GridInformationSource}, hiding its support for concurrent
+   * runs.
+   */
+  static class SequentialInformationSource implements
+      IILSSimSpaceExplorerInformationSource {
+
+    private final GridInformationSource source;
+
+    SequentialInformationSource(GridInformationSource source) {
+      this.source = source;
+    }
+
+    @Override
+    public double calculateCost(ParameterBlock configuration, int runNumber,
+        Double resourceCap) {
+      return source.calculateCost(configuration, runNumber, resourceCap);
+    }
+
+    @Override
+    public int getNumberOfRuns(ParameterBlock configuration) {
+      return source.getNumberOfRuns(configuration);
+    }
+
+    @Override
+    public double getCost(ParameterBlock configuration, int runNumber) {
+      return source.getCost(configuration, runNumber);
+    }
+
+    @Override
+    public double getSumOfCosts(ParameterBlock configuration, int runNumber) {
+      return source.getSumOfCosts(configuration, runNumber);
+    }
+
+    @Override
+    public double getResourceCap(ParameterBlock configuration, int runNumber) {
+      return source.getResourceCap(configuration, runNumber);
+    }
+
+    @Override
+    public ParameterBlock getInitialConfiguration() {
+      return source.getInitialConfiguration();
+    }
+
+    @Override
+    public ParameterBlock getRandomNeighbour(ParameterBlock simConfig) {
+      return source.getRandomNeighbour(simConfig);
+    }
+
+    @Override
+    public ParameterBlock getRandomNeighbour(ParameterBlock simConfig,
+        int positionToChange) {
+      return source.getRandomNeighbour(simConfig, positionToChange);
+    }
+
+    @Override
+    public List<ParameterBlock> getNeighbourhood(ParameterBlock simConfig) {
+      return source.getNeighbourhood(simConfig);
+    }
+
+    @Override
+    public int getNumberOfParameters(ParameterBlock configuration) {
+      return source.getNumberOfParameters(configuration);
+    }
+
+    @Override
+    public ParameterBlock restart() {
+      return source.restart();
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.spdm.dataimport;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.TestCase;
+
+import org.jamesii.asf.spdm.Configuration;
+import org.jamesii.asf.spdm.Features;
+import org.jamesii.asf.spdm.dataimport.ColumnarPerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.PerformanceDataView;
+import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
+import org.jamesii.asf.spdm.util.PerformanceTuples;
+import org.jamesii.perfdb.recording.performance.totaltime.TotalRuntimePerfMeasurerFactory;
+import org.jamesii.simspex.spdm.dataimport.file.FileImportManager;
+
+/**
+ * Tests for {@link ColumnarPerformanceDataSet} and
+ * {@link PerformanceDataView}.
+ */
+@Deprecated
+public class ColumnarPerformanceDataSetTest extends TestCase {
+
+  /** The performance data, as tuples. */
+  private PerformanceDataSet<PerformanceTuple> tupleData;
+
+  /** The performance data, in columnar form. */
+  private ColumnarPerformanceDataSet columnarData;
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected void setUp() throws Exception {
+    FileImportManager importManager =
+        (FileImportManager) FileImportManagerTest.createTestFileImportManager();
+    tupleData = importManager.getPerformanceData();
+    columnarData = importManager.getColumnarPerformanceData();
+  }
+
+  /**
+   * Tests that the columnar import yields the same tuples.
+   */
+  public void testImport() {
+    List<PerformanceTuple> tuples = tupleData.getInstances();
+    assertEquals(tuples.size(), columnarData.size());
+    assertEquals(tuples, columnarData.getView().toTuples());
+    assertEquals(tupleData.getMetaData().getNominalAttribs(), columnarData
+        .getMetaData().getNominalAttribs());
+    assertEquals(tupleData.getMetaData().getNumericAttribs(), columnarData
+        .getMetaData().getNumericAttribs());
+
+    int modelFeature = columnarData.getFeatureID(FileImportManager.MODEL);
+    assertTrue(columnarData.isNominal(modelFeature));
+    for (int row = 0; row < columnarData.size(); row++) {
+      assertEquals(tuples.get(row).getPerformance(),
+          columnarData.getPerformance(row));
+      assertEquals(
+          tuples.get(row).getFeatures().get(FileImportManager.MODEL),
+          columnarData.getNominalValue(modelFeature,
+              (int) columnarData.getFeatureValue(row, modelFeature)));
+    }
+  }
+
+  /**
+   * Tests grouping by problem and filtering.
+   */
+  public void testGroupingAndFiltering() {
+    Map<Features, List<PerformanceTuple>> featureMap =
+        PerformanceTuples.sortToFeatureMap(tupleData.getInstances());
+    List<PerformanceDataView> problems = columnarData.getView().groupByProblem();
+    assertEquals(featureMap.size(), problems.size());
+    for (int i = 0; i < problems.size(); i++) {
+      assertEquals(featureMap.get(columnarData.getProblem(i)),
+          problems.get(i).toTuples());
+    }
+
+    PerformanceDataView positive =
+        columnarData.getView().filter(new PerformanceDataView.IRowFilter() {
+          @Override
+          public boolean accept(ColumnarPerformanceDataSet data, int row) {
+            return data.getPerformance(row) > 1;
+          }
+        });
+    int expected = 0;
+    for (PerformanceTuple tuple : tupleData.getInstances()) {
+      expected += tuple.getPerformance() > 1 ? 1 : 0;
+    }
+    assertEquals(expected, positive.size());
+    for (double performance : positive.getPerformances()) {
+      assertTrue(performance > 1);
+    }
+  }
+
+  /**
+   * Tests columns of features with numeric and nominal values.
+   */
+  public void testMixedFeatureColumn() {
+    ColumnarPerformanceDataSet data = new ColumnarPerformanceDataSet(false);
+    data.add(createFeatures(2), new Configuration(),
+        TotalRuntimePerfMeasurerFactory.class, 1);
+    data.add(new Features(), new Configuration(),
+        TotalRuntimePerfMeasurerFactory.class, 2);
+    assertFalse(data.isNominal(0));
+    assertEquals(2., data.getFeatureValue(0, 0));
+    assertTrue(Double.isNaN(data.getFeatureValue(1, 0)));
+
+    data.add(createFeatures("large"), new Configuration(),
+        TotalRuntimePerfMeasurerFactory.class, 3);
+    assertTrue(data.isNominal(0));
+    assertEquals(Integer.valueOf(2),
+        data.getNominalValue(0, (int) data.getFeatureValue(0, 0)));
+    assertTrue(Double.isNaN(data.getFeatureValue(1, 0)));
+    assertEquals("large",
+        data.getNominalValue(0, (int) data.getFeatureValue(2, 0)));
+    assertEquals(3, data.getNumberOfProblems());
+    assertEquals(1, data.getNumberOfConfigurations());
+  }
+
+  /**
+   * Tests that numeric values which are equal as doubles remain distinct when
+   * their column becomes nominal.
+   */
+  public void testNominalValuesKeepTypes() {
+    ColumnarPerformanceDataSet data = new ColumnarPerformanceDataSet(false);
+    Serializable[] sizes = { 5, 5., true, 1., "large" };
+    for (Serializable size : sizes) {
+      data.add(createFeatures(size), new Configuration(),
+          TotalRuntimePerfMeasurerFactory.class, 1);
+    }
+    assertTrue(data.isNominal(0));
+    for (int row = 0; row < sizes.length; row++) {
+      assertEquals(row, (int) data.getFeatureValue(row, 0));
+      assertEquals(sizes[row], data.getNominalValue(0, row));
+    }
+  }
+
+  /**
+   * Creates features with a single size feature.
+   * 
+   * @param size
+   *          the value of the size feature
+   * @return the features
+   */
+  private static Features createFeatures(Serializable size) {
+    Features features = new Features();
+    features.put("size", size);
+    return features;
+  }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * The general modelling and simulation framework JAMES II.
+ * Copyright by the University of Rostock.
+ * 
+ * LICENCE: JAMESLIC
+ */
+package org.jamesii.simspex.spdm.evaluation;
+
+import java.util.List;
+
+import org.jamesii.ChattyTestCase;
+import org.jamesii.asf.spdm.dataimport.PerformanceDataSet;
+import org.jamesii.asf.spdm.dataimport.PerformanceTuple;
+import org.jamesii.asf.spdm.generators.random.RandomPredictorGeneratorFactory;
+import org.jamesii.core.parameters.ParameterBlock;
+import org.jamesii.simspex.spdm.dataimport.FileImportManagerTest;
+import org.jamesii.simspex.spdm.evaluation.bootstrapping.BootStrapping;
+import org.jamesii.simspex.spdm.evaluation.bootstrapping.BootStrappingFactory;
+import org.jamesii.simspex.spdm.evaluation.crossvalidation.CrossValidation;
+import org.jamesii.simspex.spdm.evaluation.crossvalidation.CrossValidationFactory;
+import org.jamesii.simspex.spdm.evaluation.perfmeasures.PredictorPerformance;
+import org.jamesii.simspex.spdm.evaluation.plugintype.PredictorGeneratorEvaluationFactory;
+
+/**
+ * Tests for {@link PredictorEvaluationEngine} and the evaluation strategies
+ * using it.
+ */
+public class PredictorEvaluationEngineTest extends ChattyTestCase {
+
+  /** The seed to be used. */
+  private static final long SEED = 4711;
+
+  /** Performance data set to be analysed. */
+  private PerformanceDataSet<PerformanceTuple> performanceData;
+
+  @Override
+  public void setUp() throws Exception {
+    performanceData =
+        FileImportManagerTest.createTestFileImportManager()
+            .getPerformanceData();
+  }
+
+  /**
+   * Tests that the indexed data contains each tuple exactly once, grouped by
+   * features.
+   */
+  public void testIndexedData() {
+    List<PerformanceTuple> tuples = performanceData.getInstances();
+    IndexedPerformanceData<PerformanceTuple> data =
+        new IndexedPerformanceData<>(tuples);
+    int[] allGroups = new int[data.getNumberOfGroups()];
+    for (int i = 0; i < allGroups.length; i++) {
+      allGroups[i] = i;
+      for (PerformanceTuple tuple : data.getTuples(new int[] { i })) {
+        assertEquals(data.getFeatures(i), tuple.getFeatures());
+      }
+    }
+    List<PerformanceTuple> indexed = data.getTuples(allGroups);
+    assertEquals(tuples.size(), indexed.size());
+    assertTrue(indexed.containsAll(tuples));
+  }
+
+  /**
+   * Tests that cross-validation results only depend on the seed.
+   */
+  public void testCrossValidationIsDeterministic() {
+    CrossValidation sequential = new CrossValidation(5, false, 3);
+    sequential.setSeed(SEED);
+    sequential.setParallelism(1);
+    CrossValidation parallel = new CrossValidation(5, false, 3);
+    parallel.setSeed(SEED);
+    parallel.setParallelism(4);
+    assertSameSplits(evaluate(sequential), evaluate(parallel));
+  }
+
+  /**
+   * Tests that bootstrapping results only depend on the seed.
+   */
+  public void testBootStrappingIsDeterministic() {
+    BootStrapping sequential = new BootStrapping(10);
+    sequential.setSeed(SEED);
+    sequential.setParallelism(1);
+    BootStrapping parallel = new BootStrapping(10);
+    parallel.setSeed(SEED);
+    parallel.setParallelism(4);
+    assertSameSplits(evaluate(sequential), evaluate(parallel));
+  }
+
+  /**
+   * Tests that the strategies are sequential unless the parallelism is set
+   * explicitly.
+   */
+  public void testParallelismParameter() {
+    assertEquals(1, new CrossValidation(5, false, 3).getParallelism());
+    assertEquals(1, new BootStrapping(10).getParallelism());
+
+    assertEquals(1, ((CrossValidation) new CrossValidationFactory().create(
+        new ParameterBlock(), null)).getParallelism());
+    assertEquals(1, ((BootStrapping) new BootStrappingFactory().create(
+        new ParameterBlock(), null)).getParallelism());
+
+    ParameterBlock params =
+        new ParameterBlock().addSubBl(
+            PredictorGeneratorEvaluationFactory.PARALLELISM, 3);
+    assertEquals(3, ((CrossValidation) new CrossValidationFactory().create(
+        params, null)).getParallelism());
+    assertEquals(3, ((BootStrapping) new BootStrappingFactory().create(params,
+        null)).getParallelism());
+  }
+
+  /**
+   * Evaluates a random predictor generator with the given strategy.
+   * 
+   * @param strategy
+   *          the strategy
+   * @return the predictor performances
+   */
+  private List<PredictorPerformance> evaluate(
+      IPredictorGeneratorEvaluationStrategy strategy) {
+    return strategy.evaluatePredictorGenerator(
+        new RandomPredictorGeneratorFactory(), performanceData,
+        new ParameterBlock());
+  }
+
+  /**
+   * Asserts that the results have been obtained on splits of the same sizes,
+   * in the same order.
+   * 
+   * @param expected
+   *          the expected results
+   * @param actual
+   *          the actual results
+   */
+  private static void assertSameSplits(List<PredictorPerformance> expected,
+      List<PredictorPerformance> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).getTrainingSetSize(), actual.get(i)
+          .getTrainingSetSize());
+      assertEquals(expected.get(i).getTestSetSize(), actual.get(i)
+          .getTestSetSize());
+    }
+  }
+
+}